@@ -32,6 +32,7 @@ import java.util.Random;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.ctakes.assertion.attributes.features.selection.FeatureSelection;
 import org.apache.ctakes.assertion.medfacts.cleartk.extractors.FedaFeatureFunction;
+import org.apache.ctakes.assertion.util.AssertionDocumentIndex;
 import org.apache.ctakes.core.util.DocumentIDAnnotationUtil;
 import org.apache.ctakes.typesystem.type.constants.CONST;
 import org.apache.ctakes.typesystem.type.syntax.BaseToken;
@@ -364,6 +365,8 @@ public abstract class AssertionCleartkAnalysisEngine extends
 //        JCasUtil.indexCovering(jCas, IdentifiedAnnotation.class, Sentence.class);
     
 //    List<Instance<String>> instances = new ArrayList<Instance<String>>();
+    // covering sentences, cues and token distances are looked up per entity, so index them once per document
+    final AssertionDocumentIndex documentIndex = new AssertionDocumentIndex( jCas );
     // generate a list of training instances for each sentence in the document
     Collection<IdentifiedAnnotation> entities = JCasUtil.select(identifiedAnnotationView, IdentifiedAnnotation.class);
     for (IdentifiedAnnotation identifiedAnnotation : entities)
@@ -411,11 +414,7 @@ public abstract class AssertionCleartkAnalysisEngine extends
           instance.addAll(extractor.extract(identifiedAnnotationView, entityMention));
         }
         */
-      List<Sentence> sents = new ArrayList<>(JCasUtil.selectCovering(jCas, Sentence.class, entityOrEventMention.getBegin(), entityOrEventMention.getEnd()));
-      Sentence coveringSent = null;
-      if(sents.size() > 0){
-        coveringSent = sents.get(0);
-      }
+      Sentence coveringSent = documentIndex.getCoveringSentence(entityOrEventMention.getBegin(), entityOrEventMention.getEnd());
       
       // only use extract this version if not doing domain adaptation 
       if (ffDomainAdaptor==null) {
@@ -434,14 +433,14 @@ public abstract class AssertionCleartkAnalysisEngine extends
 //          cuePhraseInWindowExtractor.extract(jCas, entityOrEventMention);
           //cuePhraseInWindowExtractor.extractWithin(jCas, entityMention, firstCoveringSentence);
 //      List<Sentence> sents = new ArrayList<Sentence>(coveringSents.get(entityOrEventMention));
-        List<AssertionCuePhraseAnnotation> cues = JCasUtil.selectCovered(AssertionCuePhraseAnnotation.class, coveringSent);
+        List<AssertionCuePhraseAnnotation> cues = documentIndex.getCues(coveringSent);
         int closest = Integer.MAX_VALUE;
         AssertionCuePhraseAnnotation closestCue = null;
         for(AssertionCuePhraseAnnotation cue : cues){
-          List<BaseToken> tokens = JCasUtil.selectBetween(BaseToken.class, cue, entityOrEventMention);
-          if(tokens.size() < closest){
+          int tokenCount = documentIndex.countTokensBetween(cue, entityOrEventMention);
+          if(tokenCount < closest){
             closestCue = cue;
-            closest = tokens.size();
+            closest = tokenCount;
           }
 //          instance.addAll(cuePhraseInWindowExtractor.extractBetween(jCas, cue, entityOrEventMention));
         }
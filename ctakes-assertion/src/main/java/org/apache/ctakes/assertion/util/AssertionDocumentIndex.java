@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.assertion.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ctakes.typesystem.type.syntax.BaseToken;
+import org.apache.ctakes.typesystem.type.temporary.assertion.AssertionCuePhraseAnnotation;
+import org.apache.ctakes.typesystem.type.textspan.Sentence;
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.tcas.Annotation;
+
+/**
+ * Per-document offset index used by the assertion engines so that each entity does not
+ * have to walk the annotation index for its covering sentence and for the tokens between
+ * itself and every cue phrase.
+ * <p>
+ * The answers are the same as {@link JCasUtil#selectCovering(JCas, Class, int, int)} (first hit)
+ * and {@link JCasUtil#selectBetween(Class, org.apache.uima.cas.text.AnnotationFS, org.apache.uima.cas.text.AnnotationFS)}
+ * (size), but each lookup is a binary search or an array read instead of an index scan.
+ * Build one per document and throw it away afterwards.
+ */
+final public class AssertionDocumentIndex {
+
+  private final JCas _jCas;
+
+  private final List<Sentence> _sentences;
+  private final int[] _sentenceBegins;
+  // running maximum of sentence ends, so the first covering sentence can be found by binary search
+  private final int[] _sentenceMaxEnds;
+
+  private final Map<Sentence, List<AssertionCuePhraseAnnotation>> _sentenceCues = new HashMap<>();
+
+  // _tokensBeginBefore[ offset ] = number of tokens with begin < offset
+  // _tokensEndBy[ offset ] = number of tokens with end <= offset
+  private final int[] _tokensBeginBefore;
+  private final int[] _tokensEndBy;
+  // token ordinals only work when tokens do not overlap, otherwise fall back to the uimafit scan
+  private final boolean _tokensOrdered;
+
+  public AssertionDocumentIndex( final JCas jCas ) {
+    _jCas = jCas;
+    _sentences = new ArrayList<>( JCasUtil.select( jCas, Sentence.class ) );
+    _sentenceBegins = new int[ _sentences.size() ];
+    _sentenceMaxEnds = new int[ _sentences.size() ];
+    int maxEnd = Integer.MIN_VALUE;
+    for ( int i = 0; i < _sentences.size(); i++ ) {
+      final Sentence sentence = _sentences.get( i );
+      _sentenceBegins[ i ] = sentence.getBegin();
+      maxEnd = Math.max( maxEnd, sentence.getEnd() );
+      _sentenceMaxEnds[ i ] = maxEnd;
+    }
+
+    final String text = jCas.getDocumentText();
+    int length = text == null ? 0 : text.length();
+    final List<BaseToken> tokens = new ArrayList<>( JCasUtil.select( jCas, BaseToken.class ) );
+    boolean ordered = true;
+    int previousEnd = Integer.MIN_VALUE;
+    for ( BaseToken token : tokens ) {
+      if ( token.getBegin() < 0 || token.getEnd() < token.getBegin() || token.getBegin() < previousEnd ) {
+        ordered = false;
+      }
+      previousEnd = token.getEnd();
+      length = Math.max( length, token.getEnd() );
+    }
+    _tokensOrdered = ordered;
+    if ( ordered ) {
+      _tokensBeginBefore = new int[ length + 2 ];
+      _tokensEndBy = new int[ length + 2 ];
+      for ( BaseToken token : tokens ) {
+        _tokensBeginBefore[ token.getBegin() + 1 ]++;
+        _tokensEndBy[ token.getEnd() ]++;
+      }
+      for ( int i = 1; i < _tokensBeginBefore.length; i++ ) {
+        _tokensBeginBefore[ i ] += _tokensBeginBefore[ i - 1 ];
+        _tokensEndBy[ i ] += _tokensEndBy[ i - 1 ];
+      }
+    } else {
+      _tokensBeginBefore = null;
+      _tokensEndBy = null;
+    }
+  }
+
+  /**
+   * @param begin begin offset of the covered span
+   * @param end   end offset of the covered span
+   * @return the first sentence in index order that covers the span, or null if there is none
+   */
+  public Sentence getCoveringSentence( final int begin, final int end ) {
+    // sentences [0, candidates) begin at or before the span
+    final int candidates = upperBound( _sentenceBegins, begin );
+    if ( candidates == 0 ) {
+      return null;
+    }
+    // the first sentence whose end reaches the span end is the first with running max end >= end
+    final int first = lowerBound( _sentenceMaxEnds, end );
+    if ( first >= candidates ) {
+      return null;
+    }
+    return _sentences.get( first );
+  }
+
+  /**
+   * @param sentence some sentence in the document
+   * @return cue phrases covered by the sentence, computed once per sentence
+   */
+  public List<AssertionCuePhraseAnnotation> getCues( final Sentence sentence ) {
+    List<AssertionCuePhraseAnnotation> cues = _sentenceCues.get( sentence );
+    if ( cues == null ) {
+      cues = JCasUtil.selectCovered( AssertionCuePhraseAnnotation.class, sentence );
+      _sentenceCues.put( sentence, cues );
+    }
+    return cues;
+  }
+
+  /**
+   * @param annotation1 -
+   * @param annotation2 -
+   * @return the number of tokens between the two annotations, same as the size of
+   * {@code JCasUtil.selectBetween( BaseToken.class, annotation1, annotation2 )}
+   */
+  public int countTokensBetween( final Annotation annotation1, final Annotation annotation2 ) {
+    if ( !_tokensOrdered ) {
+      return JCasUtil.selectBetween( _jCas, BaseToken.class, annotation1, annotation2 ).size();
+    }
+    Annotation left = annotation1;
+    Annotation right = annotation2;
+    if ( annotation1.getEnd() > annotation2.getBegin() ) {
+      left = annotation2;
+      right = annotation1;
+    }
+    final int firstOrdinal = _tokensBeginBefore[ clamp( left.getEnd() ) ];
+    final int pastLastOrdinal = _tokensEndBy[ clamp( right.getBegin() ) ];
+    return Math.max( 0, pastLastOrdinal - firstOrdinal );
+  }
+
+  private int clamp( final int offset ) {
+    return Math.max( 0, Math.min( offset, _tokensEndBy.length - 1 ) );
+  }
+
+  /**
+   * @return the number of values in the sorted array that are <= key
+   */
+  static private int upperBound( final int[] sorted, final int key ) {
+    int low = 0;
+    int high = sorted.length;
+    while ( low < high ) {
+      final int mid = (low + high) >>> 1;
+      if ( sorted[ mid ] <= key ) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * @return the index of the first value in the sorted array that is >= key
+   */
+  static private int lowerBound( final int[] sorted, final int key ) {
+    int low = 0;
+    int high = sorted.length;
+    while ( low < high ) {
+      final int mid = (low + high) >>> 1;
+      if ( sorted[ mid ] < key ) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+}
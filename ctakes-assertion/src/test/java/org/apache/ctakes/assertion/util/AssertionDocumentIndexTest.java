@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.assertion.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.ctakes.typesystem.type.syntax.BaseToken;
+import org.apache.ctakes.typesystem.type.temporary.assertion.AssertionCuePhraseAnnotation;
+import org.apache.ctakes.typesystem.type.textsem.IdentifiedAnnotation;
+import org.apache.ctakes.typesystem.type.textspan.Sentence;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.jcas.JCas;
+import org.junit.Test;
+
+/**
+ * Compares the indexed lookups with the selectCovering, selectCovered and selectBetween calls
+ * that AssertionCleartkAnalysisEngine made for every entity before the index was added.
+ */
+public class AssertionDocumentIndexTest {
+
+  private static final int TEXT_LENGTH = 300;
+
+  @Test
+  public void testGoldenDocument() throws Exception {
+    JCas jCas = JCasFactory.createJCas();
+    //                  0         1         2         3
+    //                  0123456789012345678901234567890123456
+    jCas.setDocumentText("No chest pain. Denies fever or chills.");
+    Sentence first = new Sentence(jCas, 0, 14);
+    first.addToIndexes();
+    Sentence second = new Sentence(jCas, 15, 38);
+    second.addToIndexes();
+    for (int[] span : new int[][] { { 0, 2 }, { 3, 8 }, { 9, 13 }, { 13, 14 }, { 15, 21 }, { 22, 27 }, { 28, 30 },
+        { 31, 37 }, { 37, 38 } }) {
+      new BaseToken(jCas, span[0], span[1]).addToIndexes();
+    }
+    AssertionCuePhraseAnnotation no = new AssertionCuePhraseAnnotation(jCas, 0, 2);
+    no.addToIndexes();
+    AssertionCuePhraseAnnotation denies = new AssertionCuePhraseAnnotation(jCas, 15, 21);
+    denies.addToIndexes();
+    IdentifiedAnnotation pain = new IdentifiedAnnotation(jCas, 3, 13);
+    IdentifiedAnnotation chills = new IdentifiedAnnotation(jCas, 31, 37);
+
+    AssertionDocumentIndex index = new AssertionDocumentIndex(jCas);
+    assertSame(first, index.getCoveringSentence(pain.getBegin(), pain.getEnd()));
+    assertSame(second, index.getCoveringSentence(chills.getBegin(), chills.getEnd()));
+    assertEquals(null, index.getCoveringSentence(10, 20));
+    assertEquals(Arrays.asList(no), index.getCues(first));
+    assertEquals(Arrays.asList(denies), index.getCues(second));
+    assertEquals(0, index.countTokensBetween(no, pain));
+    // fever or
+    assertEquals(2, index.countTokensBetween(denies, chills));
+    assertEquals(2, index.countTokensBetween(chills, denies));
+  }
+
+  @Test
+  public void testSameAsUimaFit() throws Exception {
+    Random random = new Random(26);
+    JCas jCas = JCasFactory.createJCas();
+    for (int document = 0; document < 200; document++) {
+      jCas.reset();
+      char[] text = new char[TEXT_LENGTH];
+      Arrays.fill(text, 'x');
+      jCas.setDocumentText(new String(text));
+      // every fifth document has overlapping tokens, which the index does not order
+      boolean overlappingTokens = document % 5 == 0;
+      addTokens(jCas, random, overlappingTokens);
+      List<Sentence> sentences = new ArrayList<>();
+      for (int i = random.nextInt(12); i > 0; i--) {
+        int[] span = randomSpan(random, 60);
+        Sentence sentence = new Sentence(jCas, span[0], span[1]);
+        sentence.addToIndexes();
+        sentences.add(sentence);
+      }
+      for (int i = random.nextInt(20); i > 0; i--) {
+        int[] span = randomSpan(random, 8);
+        new AssertionCuePhraseAnnotation(jCas, span[0], span[1]).addToIndexes();
+      }
+      List<IdentifiedAnnotation> entities = new ArrayList<>();
+      for (int i = 0; i < 30; i++) {
+        int[] span = randomSpan(random, 15);
+        IdentifiedAnnotation entity = new IdentifiedAnnotation(jCas, span[0], span[1]);
+        entity.addToIndexes();
+        entities.add(entity);
+      }
+
+      AssertionDocumentIndex index = new AssertionDocumentIndex(jCas);
+      for (IdentifiedAnnotation entity : entities) {
+        List<Sentence> covering = JCasUtil.selectCovering(jCas, Sentence.class, entity.getBegin(), entity.getEnd());
+        Sentence expected = covering.isEmpty() ? null : covering.get(0);
+        assertSame("Covering sentence of " + entity.getBegin() + "-" + entity.getEnd(), expected,
+            index.getCoveringSentence(entity.getBegin(), entity.getEnd()));
+        if (expected == null) {
+          continue;
+        }
+        List<AssertionCuePhraseAnnotation> cues = index.getCues(expected);
+        assertEquals(JCasUtil.selectCovered(AssertionCuePhraseAnnotation.class, expected), cues);
+        for (AssertionCuePhraseAnnotation cue : cues) {
+          assertEquals("Tokens between cue " + cue.getBegin() + "-" + cue.getEnd() + " and entity "
+                  + entity.getBegin() + "-" + entity.getEnd(),
+              JCasUtil.selectBetween(BaseToken.class, cue, entity).size(),
+              index.countTokensBetween(cue, entity));
+        }
+      }
+      for (Sentence sentence : sentences) {
+        assertEquals(JCasUtil.selectCovered(AssertionCuePhraseAnnotation.class, sentence), index.getCues(sentence));
+      }
+    }
+  }
+
+  private static void addTokens(JCas jCas, Random random, boolean overlapping) {
+    int begin = random.nextInt(3);
+    while (begin < TEXT_LENGTH) {
+      int end = Math.min(TEXT_LENGTH, begin + 1 + random.nextInt(5));
+      new BaseToken(jCas, begin, end).addToIndexes();
+      if (overlapping && random.nextInt(4) == 0) {
+        new BaseToken(jCas, begin, Math.min(TEXT_LENGTH, end + 3)).addToIndexes();
+      }
+      begin = end + random.nextInt(3);
+    }
+  }
+
+  private static int[] randomSpan(Random random, int maxLength) {
+    int begin = random.nextInt(TEXT_LENGTH - 1);
+    int end = Math.min(TEXT_LENGTH, begin + 1 + random.nextInt(maxLength));
+    return new int[] { begin, end };
+  }
+}
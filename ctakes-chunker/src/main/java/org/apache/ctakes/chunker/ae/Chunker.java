@@ -21,6 +21,7 @@ package org.apache.ctakes.chunker.ae;
 import opennlp.tools.chunker.ChunkerModel;
 import org.apache.ctakes.core.pipeline.PipeBitInfo;
 import org.apache.ctakes.core.resource.FileLocator;
+import org.apache.ctakes.core.util.SentenceCache;
 import org.apache.ctakes.typesystem.type.syntax.BaseToken;
 import org.apache.ctakes.typesystem.type.textspan.Sentence;
 import org.apache.log4j.Logger;
@@ -95,8 +96,25 @@ public class Chunker extends JCasAnnotator_ImplBase {
 	    )
   String chunkerCreatorClassName;
 
+	/**
+	 * "SentenceCacheSize" is an optional, single, integer parameter giving the
+	 * number of distinct tagged sentences whose chunks are remembered, so that
+	 * templated text repeating across notes skips the model. The cache is shared
+	 * by all chunkers using the same model. 0 disables it.
+	 */
+	public static final String PARAM_SENTENCE_CACHE_SIZE = "SentenceCacheSize";
+	@ConfigurationParameter(
+	    name = PARAM_SENTENCE_CACHE_SIZE,
+	    mandatory = false,
+	    defaultValue = "0",
+	    description = "Number of distinct sentences whose chunks are cached, 0 to disable"
+	    )
+  private int sentenceCacheSize;
+
 	private opennlp.tools.chunker.Chunker chunker;
 
+	private SentenceCache<String[]> sentenceCache;
+
 	ChunkCreator chunkerCreator;
 
 	@Override
@@ -121,6 +139,7 @@ public class Chunker extends JCasAnnotator_ImplBase {
       throw new ResourceInitializationException(e);
     }
     chunkerCreator.initialize(uimaContext);
+    sentenceCache = SentenceCache.getSharedCache("Chunker " + chunkerModelPath, sentenceCacheSize);
 	}
 
 	@Override
@@ -139,7 +158,7 @@ public class Chunker extends JCasAnnotator_ImplBase {
         tags[i] = tokens.get(i).getPartOfSpeech();
       }
 
-			String[] chunks = chunker.chunk(words, tags);
+			String[] chunks = chunk(words, tags);
 
 			int chunkBegin = 0;
 			String chunkType = "";
@@ -175,6 +194,27 @@ public class Chunker extends JCasAnnotator_ImplBase {
 		}
 	}
 	
+	private String[] chunk(String[] words, String[] tags) {
+	  if (sentenceCache == null) {
+	    return chunker.chunk(words, tags);
+	  }
+	  SentenceCache.Key key = SentenceCache.createKey(words, tags);
+	  String[] chunks = sentenceCache.get(key);
+	  if (chunks == null) {
+	    chunks = chunker.chunk(words, tags);
+	    sentenceCache.put(key, chunks);
+	  }
+	  return chunks;
+	}
+
+	@Override
+	public void collectionProcessComplete() throws AnalysisEngineProcessException {
+	  super.collectionProcessComplete();
+	  if (sentenceCache != null) {
+	    sentenceCache.logStatistics();
+	  }
+	}
+
 	public static AnalysisEngineDescription createAnnotatorDescription() throws ResourceInitializationException{
 	  return AnalysisEngineFactory.createEngineDescription(Chunker.class);
 	}
@@ -3,7 +3,7 @@ package org.apache.ctakes.core.ae;
 import org.apache.ctakes.core.pipeline.PipeBitInfo;
 import org.apache.ctakes.core.resource.FileLocator;
 import org.apache.ctakes.core.util.Pair;
-import org.apache.ctakes.core.util.regex.RegexSpanFinder;
+import org.apache.ctakes.core.util.regex.MultiRegexFinder;
 import org.apache.ctakes.typesystem.type.textspan.ListEntry;
 import org.apache.ctakes.typesystem.type.textspan.Segment;
 import org.apache.log4j.Logger;
@@ -79,6 +79,9 @@ final public class ListAnnotator extends JCasAnnotator_ImplBase {
    }
 
    private final Collection<ListType> _listTypes = new HashSet<>();
+   // list patterns of all list types, searched with one call per section; the type of pattern i is at index i
+   private MultiRegexFinder _listFinder;
+   private final List<ListType> _finderListTypes = new ArrayList<>();
 
 //   private final ExecutorService _executor = Executors.newSingleThreadExecutor();
 
@@ -127,18 +130,28 @@ final public class ListAnnotator extends JCasAnnotator_ImplBase {
 
    private Map<Pair<Integer>, ListType> findListTypes( final String text ) {
       final Map<Pair<Integer>, ListType> listTypes = new HashMap<>();
-      for ( ListType listType : _listTypes ) {
-         if ( listType.__listPattern == null ) {
-            continue;
-         }
-         try ( RegexSpanFinder finder = new RegexSpanFinder( listType.__listPattern ) ) {
-            final List<Pair<Integer>> spans = finder.findSpans( text );
-            spans.forEach( s -> listTypes.put( s, listType ) );
+      for ( MultiRegexFinder.RegexMatch match : getListFinder().findMatches( text ) ) {
+         if ( match.getEnd() > match.getBegin() ) {
+            listTypes.put( new Pair<>( match.getBegin(), match.getEnd() ), _finderListTypes.get( match.getPatternIndex() ) );
          }
       }
       return listTypes;
    }
 
+   private MultiRegexFinder getListFinder() {
+      if ( _listFinder == null ) {
+         final List<Pattern> patterns = new ArrayList<>();
+         for ( ListType listType : _listTypes ) {
+            if ( listType.__listPattern != null ) {
+               patterns.add( listType.__listPattern );
+               _finderListTypes.add( listType );
+            }
+         }
+         _listFinder = new MultiRegexFinder( patterns );
+      }
+      return _listFinder;
+   }
+
 
    /**
     * Get rid of list overlaps
@@ -3,6 +3,7 @@ package org.apache.ctakes.core.ae;
 import org.apache.ctakes.core.pipeline.PipeBitInfo;
 import org.apache.ctakes.core.resource.FileLocator;
 import org.apache.ctakes.core.util.Pair;
+import org.apache.ctakes.core.util.regex.MultiRegexFinder;
 import org.apache.ctakes.core.util.regex.RegexSpanFinder;
 import org.apache.ctakes.typesystem.type.textspan.Paragraph;
 import org.apache.ctakes.typesystem.type.textspan.Segment;
@@ -65,6 +66,8 @@ final public class ParagraphAnnotator extends JCasAnnotator_ImplBase {
    }
 
    private final Collection<ParagraphType> _paragraphTypes = new HashSet<>();
+   // separator patterns of all paragraph types, searched with one call per document
+   private MultiRegexFinder _separatorFinder;
 
 
    /**
@@ -109,12 +112,20 @@ final public class ParagraphAnnotator extends JCasAnnotator_ImplBase {
 
 
    private Collection<Pair<Integer>> findSeparators( final String docText ) {
+      if ( _separatorFinder == null ) {
+         final List<Pattern> patterns = new ArrayList<>();
+         for ( ParagraphType paragraphType : _paragraphTypes ) {
+            if ( paragraphType.__separatorPattern != null ) {
+               patterns.add( paragraphType.__separatorPattern );
+            }
+         }
+         _separatorFinder = new MultiRegexFinder( patterns );
+      }
       final Collection<Pair<Integer>> separators = new HashSet<>();
-      for ( ParagraphType paragraphType : _paragraphTypes ) {
-         if ( paragraphType.__separatorPattern == null ) {
-            continue;
+      for ( MultiRegexFinder.RegexMatch match : _separatorFinder.findMatches( docText ) ) {
+         if ( match.getEnd() > match.getBegin() ) {
+            separators.add( new Pair<>( match.getBegin(), match.getEnd() ) );
          }
-         separators.addAll( findSeparators( docText, paragraphType.__separatorPattern ) );
       }
       return separators;
    }
@@ -3,8 +3,8 @@ package org.apache.ctakes.core.ae;
 
 import org.apache.ctakes.core.pipeline.PipeBitInfo;
 import org.apache.ctakes.core.util.Pair;
+import org.apache.ctakes.core.util.regex.MultiRegexFinder;
 import org.apache.ctakes.core.util.regex.RegexSpanFinder;
-import org.apache.ctakes.core.util.regex.TimeoutMatcher;
 import org.apache.ctakes.typesystem.type.textspan.Segment;
 import org.apache.log4j.Logger;
 import org.apache.uima.UimaContext;
@@ -16,7 +16,6 @@ import org.apache.uima.resource.ResourceInitializationException;
 
 import java.util.*;
 import java.util.function.Function;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -48,6 +47,7 @@ abstract public class RegexSectionizer extends JCasAnnotator_ImplBase {
     */
    static private final String DEFAULT_SEGMENT_ID = "SIMPLE_SEGMENT";
    static private final String SECTION_NAME_EX = "SECTION_NAME";
+   static private final int DEFAULT_TIMEOUT_MILLIS = 1000;
    static public final String DIVIDER_LINE_NAME = "DIVIDER_LINE";
    static private final Pattern DIVIDER_LINE_PATTERN = Pattern.compile( "^[\\t ]*[_\\-=]{4,}[\\t ]*$" );
 
@@ -110,6 +110,10 @@ abstract public class RegexSectionizer extends JCasAnnotator_ImplBase {
    static private final Object SECTION_TYPE_LOCK = new Object();
    static private final Map<String, SectionType> _sectionTypes = new HashMap<>();
    static private volatile boolean _sectionsLoaded = false;
+   // all header and footer patterns, searched together; the type and tag type of pattern i are at index i
+   static private MultiRegexFinder _tagFinder;
+   static private final List<SectionType> _tagSectionTypes = new ArrayList<>();
+   static private final List<TagType> _tagTagTypes = new ArrayList<>();
 
    static protected void addSectionType( final SectionType sectionType ) {
       _sectionTypes.put( sectionType.__name, sectionType );
@@ -128,6 +132,7 @@ abstract public class RegexSectionizer extends JCasAnnotator_ImplBase {
       synchronized (SECTION_TYPE_LOCK) {
          if ( !_sectionsLoaded ) {
             loadSections();
+            createTagFinder();
             _sectionsLoaded = true;
          }
       }
@@ -144,13 +149,14 @@ abstract public class RegexSectionizer extends JCasAnnotator_ImplBase {
          return;
       }
       final String docText = jcas.getDocumentText();
-      final Map<Pair<Integer>, SectionTag> headerTags = findHeaderTags( docText );
+      final Map<Pair<Integer>, SectionTag> headerTags = new HashMap<>();
+      final Map<Pair<Integer>, SectionTag> footerTags = new HashMap<>();
+      findSectionTags( docText, headerTags, footerTags );
       if ( headerTags.isEmpty() ) {
          LOGGER.debug( "No section headers found" );
       }
       final Collection<Pair<Integer>> subsumedTags = getSubsumedBounds( headerTags.keySet() );
       headerTags.keySet().removeAll( subsumedTags );
-      final Map<Pair<Integer>, SectionTag> footerTags = findFooterTags( docText );
       final Map<Pair<Integer>, SectionTag> dividerLines = new HashMap<>();
       if ( _tagDividers ) {
          dividerLines.putAll( findDividerLines( docText ) );
@@ -171,18 +177,16 @@ abstract public class RegexSectionizer extends JCasAnnotator_ImplBase {
     */
    // Todo make TextSpanUtil
    static private Collection<Pair<Integer>> getSubsumedBounds( final Collection<Pair<Integer>> bounds ) {
+      // sorted by begin and then longest first, anything that subsumes a bounds comes before it
       final List<Pair<Integer>> boundsList = new ArrayList<>( bounds );
+      boundsList.sort( new PairIntSorter() );
       final Collection<Pair<Integer>> subsumedBounds = new HashSet<>();
-      for ( int i = 0; i < boundsList.size() - 1; i++ ) {
-         final Pair<Integer> pairI = boundsList.get( i );
-         for ( int j = i + 1; j < boundsList.size(); j++ ) {
-            final Pair<Integer> pairJ = boundsList.get( j );
-            if ( pairI.getValue1() <= pairJ.getValue1() && pairJ.getValue2() <= pairI.getValue2() ) {
-               subsumedBounds.add( pairJ );
-            } else if ( pairJ.getValue1() <= pairI.getValue1() && pairI.getValue2() <= pairJ.getValue2() ) {
-               subsumedBounds.add( pairI );
-            }
+      int maxEnd = Integer.MIN_VALUE;
+      for ( Pair<Integer> pair : boundsList ) {
+         if ( pair.getValue2() <= maxEnd ) {
+            subsumedBounds.add( pair );
          }
+         maxEnd = Math.max( maxEnd, pair.getValue2() );
       }
       return subsumedBounds;
    }
@@ -227,21 +231,16 @@ abstract public class RegexSectionizer extends JCasAnnotator_ImplBase {
    static private List<Pair<Integer>> sortAndTrimBounds( final Collection<Pair<Integer>> bounds ) {
       final List<Pair<Integer>> boundsList = new ArrayList<>( bounds );
       boundsList.sort( new PairIntSorter() );
-      final Collection<Pair<Integer>> removalBounds = new HashSet<>();
-      for ( int i = 0; i < boundsList.size() - 1; i++ ) {
-         final Pair<Integer> pairI = boundsList.get( i );
-         for ( int j = i + 1; j < boundsList.size(); j++ ) {
-            final Pair<Integer> pairJ = boundsList.get( j );
-            if ( pairJ.getValue1() > pairI.getValue2() ) {
-               // pairJ after pairI.  Move on to next pairI
-               break;
-            }
-            // PairI subsumes or overlaps pairJ.  Remove pairJ.
-            removalBounds.add( pairJ );
+      // A bounds is removed if it begins at or before the end of any earlier bounds, removed or not.
+      final List<Pair<Integer>> trimmedBounds = new ArrayList<>( boundsList.size() );
+      int maxEnd = Integer.MIN_VALUE;
+      for ( Pair<Integer> pair : boundsList ) {
+         if ( pair.getValue1() > maxEnd ) {
+            trimmedBounds.add( pair );
          }
+         maxEnd = Math.max( maxEnd, pair.getValue2() );
       }
-      boundsList.removeAll( removalBounds );
-      return boundsList;
+      return trimmedBounds;
    }
 
 
@@ -253,75 +252,56 @@ abstract public class RegexSectionizer extends JCasAnnotator_ImplBase {
    abstract protected void loadSections() throws ResourceInitializationException;
 
    /**
-    * find all section separator header tags
-    *
-    * @param docText -
-    * @return section tags mapped to index pairs
+    * Collect the header and footer patterns of all section types into one finder.
     */
-   static private Map<Pair<Integer>, SectionTag> findHeaderTags( final String docText ) {
-      final Map<Pair<Integer>, SectionTag> headerTags = new HashMap<>();
+   static private void createTagFinder() {
+      final List<Pattern> patterns = new ArrayList<>();
+      _tagSectionTypes.clear();
+      _tagTagTypes.clear();
       for ( SectionType sectionType : _sectionTypes.values() ) {
-         if ( sectionType.__headerPattern == null ) {
-            continue;
+         if ( sectionType.__headerPattern != null ) {
+            patterns.add( sectionType.__headerPattern );
+            _tagSectionTypes.add( sectionType );
+            _tagTagTypes.add( TagType.HEADER );
          }
-         headerTags
-               .putAll( findSectionTags( docText, sectionType.__name, sectionType.__headerPattern, TagType.HEADER ) );
       }
-      return headerTags;
-   }
-
-   /**
-    * find all section separator footer tags
-    *
-    * @param docText -
-    * @return section tags mapped to index pairs
-    */
-   static private Map<Pair<Integer>, SectionTag> findFooterTags( final String docText ) {
-      final Map<Pair<Integer>, SectionTag> footerTags = new HashMap<>();
       for ( SectionType sectionType : _sectionTypes.values() ) {
-         if ( sectionType.__footerPattern == null ) {
-            continue;
+         if ( sectionType.__footerPattern != null ) {
+            patterns.add( sectionType.__footerPattern );
+            _tagSectionTypes.add( sectionType );
+            _tagTagTypes.add( TagType.FOOTER );
          }
-         footerTags
-               .putAll( findSectionTags( docText, sectionType.__name, sectionType.__footerPattern, TagType.FOOTER ) );
       }
-      return footerTags;
+      _tagFinder = new MultiRegexFinder( patterns, SECTION_NAME_EX, DEFAULT_TIMEOUT_MILLIS );
    }
 
    /**
+    * find all section separator header and footer tags with one pass of the tag finder
+    *
     * @param docText    -
-    * @param typeName   section type name
-    * @param tagPattern regex pattern for section type
-    * @param tagType    header or footer
-    * @return section tags mapped to index pairs
+    * @param headerTags header section tags mapped to index pairs are added to this map
+    * @param footerTags footer section tags mapped to index pairs are added to this map
     */
-   static Map<Pair<Integer>, SectionTag> findSectionTags( final String docText,
-                                                          final String typeName,
-                                                          final Pattern tagPattern,
-                                                          final TagType tagType ) {
-      final Map<Pair<Integer>, SectionTag> sectionTags = new HashMap<>();
-      try ( TimeoutMatcher finder = new TimeoutMatcher( tagPattern, docText ) ) {
-         Matcher tagMatcher = finder.nextMatch();
-         while ( tagMatcher != null ) {
-            String name;
-            // the start tag of this tag is the start of the current match
-            // the end tag of this tag is the end of the current match, exclusive
-            final Pair<Integer> tagBounds = new Pair<>( tagMatcher.start(), tagMatcher.end() );
-            try {
-               name = tagMatcher.group( SECTION_NAME_EX );
-               if ( name == null || name.isEmpty() ) {
-                  name = typeName;
-               }
-            } catch ( IllegalArgumentException iaE ) {
-               name = typeName;
-            }
-            sectionTags.put( tagBounds, new SectionTag( name, typeName, tagType ) );
-            tagMatcher = finder.nextMatch();
+   static private void findSectionTags( final String docText,
+                                        final Map<Pair<Integer>, SectionTag> headerTags,
+                                        final Map<Pair<Integer>, SectionTag> footerTags ) {
+      for ( MultiRegexFinder.RegexMatch match : _tagFinder.findMatches( docText ) ) {
+         final SectionType sectionType = _tagSectionTypes.get( match.getPatternIndex() );
+         final TagType tagType = _tagTagTypes.get( match.getPatternIndex() );
+         String name = match.getGroup();
+         if ( name == null || name.isEmpty() ) {
+            name = sectionType.__name;
+         }
+         // the start tag of this tag is the start of the current match
+         // the end tag of this tag is the end of the current match, exclusive
+         final Pair<Integer> tagBounds = new Pair<>( match.getBegin(), match.getEnd() );
+         final SectionTag sectionTag = new SectionTag( name, sectionType.__name, tagType );
+         if ( tagType == TagType.HEADER ) {
+            headerTags.put( tagBounds, sectionTag );
+         } else {
+            footerTags.put( tagBounds, sectionTag );
          }
-      } catch ( IllegalArgumentException iaE ) {
-         LOGGER.error( iaE.getMessage() );
       }
-      return sectionTags;
    }
 
    /**
@@ -21,6 +21,12 @@ import java.util.Map;
 
 /**
  * Write cas to a database using jdbc
+ * <p>
+ * By default the rows of each cas are written before the next cas is processed.
+ * With {@link #PARAM_WRITE_BEHIND} rows written with {@link #writeTableRow(String, Map)} are instead queued
+ * for a writer thread with its own connection, which executes batches of {@link #PARAM_BATCH_SIZE} rows
+ * at least every {@link #PARAM_FLUSH_INTERVAL} milliseconds.  Processing waits when {@link #PARAM_QUEUE_SIZE}
+ * rows are queued.  All rows are written before {@link #collectionProcessComplete(ProcessTrace)} returns.
  *
  * @author SPF , chip-nlp
  * @version %I%
@@ -32,9 +38,15 @@ abstract public class AbstractJdbcWriter extends CasConsumer_ImplBase {
 
    // Parameter names for the desc file
    static public final String PARAM_DB_CONN_RESRC = "DbConnResrcName";
+   static public final String PARAM_BATCH_SIZE = "BatchSize";
+   static public final String PARAM_WRITE_BEHIND = "WriteBehind";
+   static public final String PARAM_FLUSH_INTERVAL = "FlushInterval";
+   static public final String PARAM_QUEUE_SIZE = "WriteQueueSize";
 
-   // Maximum row count for prepared statement batches
+   // Default row count for prepared statement batches
    static private final int MAX_BATCH_SIZE = 100;
+   static private final int DEFAULT_FLUSH_INTERVAL = 1000;
+   static private final int DEFAULT_QUEUE_SIZE = 10000;
 
 
    protected interface TableInfo {
@@ -76,6 +88,11 @@ abstract public class AbstractJdbcWriter extends CasConsumer_ImplBase {
 
    final protected Map<String, TableSqlInfo> _tableSqlInfoMap = new HashMap<>();
 
+   private int _batchSize;
+   private JdbcWriteBehind _writeBehind;
+   // connection opened for the writer thread, null if it shares the resource connection
+   private Connection _writeConnection;
+
 
    /**
     * {@inheritDoc}
@@ -90,25 +107,61 @@ abstract public class AbstractJdbcWriter extends CasConsumer_ImplBase {
          // thrown by UimaContext.getResourceObject(..)
          throw new ResourceInitializationException( raE );
       }
+      _batchSize = getIntParameterValue( PARAM_BATCH_SIZE, MAX_BATCH_SIZE );
       final Connection connection = resource.getConnection();
       final Collection<TableInfo> tableInfos = getTableInfos();
       try {
          for ( TableInfo tableInfo : tableInfos ) {
             _tableSqlInfoMap.put( tableInfo.getTableName(), new TableSqlInfo( connection, tableInfo ) );
          }
+         if ( Boolean.TRUE.equals( getConfigParameterValue( PARAM_WRITE_BEHIND ) ) ) {
+            _writeConnection = openWriteConnection( resource );
+            _writeBehind = new JdbcWriteBehind( _writeConnection != null ? _writeConnection : connection,
+                  tableInfos, _batchSize,
+                  getIntParameterValue( PARAM_FLUSH_INTERVAL, DEFAULT_FLUSH_INTERVAL ),
+                  getIntParameterValue( PARAM_QUEUE_SIZE, DEFAULT_QUEUE_SIZE ) );
+         }
       } catch ( SQLException sqlE ) {
          // thrown by Connection.prepareStatement(..)
          throw new ResourceInitializationException( sqlE );
       }
    }
 
+   private int getIntParameterValue( final String name, final int defaultValue ) {
+      final Object value = getConfigParameterValue( name );
+      return value instanceof Integer ? (Integer)value : defaultValue;
+   }
+
+   /**
+    * @param resource -
+    * @return a new connection for the writer thread, or null if the resource cannot open one
+    * @throws SQLException if a new connection could not be opened
+    */
+   static private Connection openWriteConnection( final JdbcConnectionResource resource ) throws SQLException {
+      try {
+         return resource.openConnection();
+      } catch ( SQLFeatureNotSupportedException sqlE ) {
+         LOGGER.warn( sqlE.getMessage() + " , writing behind on the shared connection" );
+         return null;
+      }
+   }
+
    /**
     * {@inheritDoc}
-    * closes the PreparedStatements
+    * writes all queued rows and closes the PreparedStatements
     */
    @Override
    public void collectionProcessComplete( ProcessTrace arg0 )
          throws ResourceProcessException, IOException {
+      if ( _writeBehind != null ) {
+         try {
+            _writeBehind.close();
+         } catch ( SQLException sqlE ) {
+            throw new ResourceProcessException( sqlE );
+         } finally {
+            closeWriteConnection();
+         }
+      }
       try {
          for ( TableSqlInfo tableSqlInfo : _tableSqlInfoMap.values() ) {
             tableSqlInfo.__preparedStatement.close();
@@ -206,9 +259,49 @@ abstract public class AbstractJdbcWriter extends CasConsumer_ImplBase {
       fieldInfoMap.put( fieldInfo, value );
    }
 
+   private void closeWriteConnection() {
+      if ( _writeConnection == null ) {
+         return;
+      }
+      try {
+         _writeConnection.close();
+      } catch ( SQLException sqlE ) {
+         LOGGER.warn( sqlE.getMessage() );
+      }
+      _writeConnection = null;
+   }
+
+   /**
+    * Adds a new row of values to the batch of a table, or queues it for the writer thread when writing behind.
+    * If the number of rows in the batch hits the batch size then the batch is executed.
+    *
+    * @param tableName    table to which the row is written
+    * @param fieldInfoMap for row value assignment, may be reused after the call
+    * @throws SQLException if a PreparedStatement call throws one or if there is a type, value mismatch in fieldInfoMap
+    */
+   protected void writeTableRow( final String tableName,
+                                 final Map<? extends FieldInfo, Object> fieldInfoMap ) throws SQLException {
+      if ( _writeBehind != null ) {
+         _writeBehind.write( tableName, fieldInfoMap );
+         return;
+      }
+      final TableSqlInfo tableSqlInfo = _tableSqlInfoMap.get( tableName );
+      tableSqlInfo.setBatchCount( writeTableRow( tableSqlInfo.getPreparedStatement(), tableSqlInfo.getBatchCount(),
+            _batchSize, fieldInfoMap ) );
+   }
+
+   /**
+    * @return the configured {@link #PARAM_BATCH_SIZE}, or 100 if it is not set
+    */
+   protected int getBatchSize() {
+      return _batchSize;
+   }
+
    /**
     * Adds a new row of values to a batch in the prepared statement.  If the number of rows hits a maximum size (100)
     * then the batch is executed.
+    * Rows added with this method are always written on the calling thread, and {@link #PARAM_BATCH_SIZE} is ignored.
+    * Use {@link #writeTableRow(PreparedStatement, int, int, Map)} with {@link #getBatchSize()} to honor it.
     *
     * @param preparedStatement -
     * @param batchSize         the current batch row count in the prepared statement
@@ -218,36 +311,64 @@ abstract public class AbstractJdbcWriter extends CasConsumer_ImplBase {
     */
    static protected int writeTableRow( final PreparedStatement preparedStatement, final int batchSize,
                                        final Map<? extends FieldInfo, Object> fieldInfoMap ) throws SQLException {
+      return writeTableRow( preparedStatement, batchSize, MAX_BATCH_SIZE, fieldInfoMap );
+   }
+
+   /**
+    * Adds a new row of values to a batch in the prepared statement.  If the number of rows hits the maximum batch size
+    * then the batch is executed.
+    * Rows added with this method are always written on the calling thread.
+    *
+    * @param preparedStatement -
+    * @param batchCount        the current batch row count in the prepared statement
+    * @param maxBatchSize      row count at which the batch is executed
+    * @param fieldInfoMap      for row value assignment
+    * @return new batchCount (incremented by one or reset to zero)
+    * @throws SQLException if a PreparedStatement call throws one or if there is a type, value mismatch in fieldInfoMap
+    */
+   static protected int writeTableRow( final PreparedStatement preparedStatement, final int batchCount,
+                                       final int maxBatchSize,
+                                       final Map<? extends FieldInfo, Object> fieldInfoMap ) throws SQLException {
       for ( Map.Entry<? extends FieldInfo, Object> fieldInfoEntry : fieldInfoMap.entrySet() ) {
-         final int fieldIndex = fieldInfoEntry.getKey().getFieldIndex();
-         final Class<?> valueClass = fieldInfoEntry.getKey().getValueClass();
-         final Object value = fieldInfoEntry.getValue();
-         if ( valueClass.isAssignableFrom( String.class ) && String.class.isInstance( value ) ) {
-            preparedStatement.setString( fieldIndex, (String)value );
-         } else if ( valueClass.isAssignableFrom( Integer.class ) && Integer.class.isInstance( value ) ) {
-            preparedStatement.setInt( fieldIndex, (Integer)value );
-         } else if ( valueClass.isAssignableFrom( Long.class ) && Long.class.isInstance( value ) ) {
-            preparedStatement.setLong( fieldIndex, (Long)value );
-         } else if ( valueClass.isAssignableFrom( Float.class ) && Float.class.isInstance( value ) ) {
-            preparedStatement.setFloat( fieldIndex, (Float)value );
-         } else if ( valueClass.isAssignableFrom( Double.class ) && Double.class.isInstance( value ) ) {
-            preparedStatement.setDouble( fieldIndex, (Double)value );
-         } else if ( valueClass.isAssignableFrom( Boolean.class ) && Boolean.class.isInstance( value ) ) {
-            preparedStatement.setBoolean( fieldIndex, (Boolean)value );
-         } else if ( valueClass.isAssignableFrom( Timestamp.class ) && Timestamp.class.isInstance( value ) ) {
-            preparedStatement.setTimestamp( fieldIndex, (Timestamp)value );
-         } else {
-            throw new SQLDataException( "Invalid Value Class for Field " + fieldInfoEntry.getKey().getFieldName() );
-         }
+         setFieldValue( preparedStatement, fieldInfoEntry.getKey(), fieldInfoEntry.getValue() );
       }
       preparedStatement.addBatch();
-      if ( batchSize + 1 >= MAX_BATCH_SIZE ) {
+      if ( batchCount + 1 >= maxBatchSize ) {
          preparedStatement.executeBatch();
          // Not all drivers automatically clear the batch.  This is considered by some to be a feature, by most a bug.
          preparedStatement.clearBatch();
          return 0;
       }
-      return batchSize + 1;
+      return batchCount + 1;
+   }
+
+   /**
+    * @param preparedStatement -
+    * @param fieldInfo         field to set
+    * @param value             value of the field
+    * @throws SQLException if a PreparedStatement call throws one or if the value is not of the field's class
+    */
+   static void setFieldValue( final PreparedStatement preparedStatement,
+                              final FieldInfo fieldInfo, final Object value ) throws SQLException {
+      final int fieldIndex = fieldInfo.getFieldIndex();
+      final Class<?> valueClass = fieldInfo.getValueClass();
+      if ( valueClass.isAssignableFrom( String.class ) && String.class.isInstance( value ) ) {
+         preparedStatement.setString( fieldIndex, (String)value );
+      } else if ( valueClass.isAssignableFrom( Integer.class ) && Integer.class.isInstance( value ) ) {
+         preparedStatement.setInt( fieldIndex, (Integer)value );
+      } else if ( valueClass.isAssignableFrom( Long.class ) && Long.class.isInstance( value ) ) {
+         preparedStatement.setLong( fieldIndex, (Long)value );
+      } else if ( valueClass.isAssignableFrom( Float.class ) && Float.class.isInstance( value ) ) {
+         preparedStatement.setFloat( fieldIndex, (Float)value );
+      } else if ( valueClass.isAssignableFrom( Double.class ) && Double.class.isInstance( value ) ) {
+         preparedStatement.setDouble( fieldIndex, (Double)value );
+      } else if ( valueClass.isAssignableFrom( Boolean.class ) && Boolean.class.isInstance( value ) ) {
+         preparedStatement.setBoolean( fieldIndex, (Boolean)value );
+      } else if ( valueClass.isAssignableFrom( Timestamp.class ) && Timestamp.class.isInstance( value ) ) {
+         preparedStatement.setTimestamp( fieldIndex, (Timestamp)value );
+      } else {
+         throw new SQLDataException( "Invalid Value Class for Field " + fieldInfo.getFieldName() );
+      }
    }
 
    /**
@@ -0,0 +1,269 @@
+package org.apache.ctakes.core.cc;
+
+import org.apache.ctakes.core.cc.AbstractJdbcWriter.FieldInfo;
+import org.apache.ctakes.core.cc.AbstractJdbcWriter.TableInfo;
+import org.apache.ctakes.core.cc.AbstractJdbcWriter.TableSqlInfo;
+import org.apache.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes table rows to a database on its own thread.
+ * <p>
+ * Rows are queued by the caller and added to the batch of their table's prepared statement by the writer thread.
+ * A batch is executed when it holds the batch size of rows, when the flush interval has passed since the first
+ * row that is not yet executed, and on flush and close.
+ * When the queue is full the caller waits for the writer thread to catch up.
+ * If a batch cannot be executed the error is thrown on the next write, flush or close and later rows are discarded.
+ */
+final class JdbcWriteBehind {
+
+   static private final Logger LOGGER = Logger.getLogger( "JdbcWriteBehind" );
+
+   /**
+    * A queued row, or a request to execute all batches when it has a latch
+    */
+   static private final class Row {
+      private final TableSqlInfo _tableSqlInfo;
+      private final FieldInfo[] _fieldInfos;
+      private final Object[] _values;
+      private final CountDownLatch _flushed;
+
+      private Row( final TableSqlInfo tableSqlInfo, final FieldInfo[] fieldInfos, final Object[] values ) {
+         _tableSqlInfo = tableSqlInfo;
+         _fieldInfos = fieldInfos;
+         _values = values;
+         _flushed = null;
+      }
+
+      private Row( final CountDownLatch flushed ) {
+         _tableSqlInfo = null;
+         _fieldInfos = null;
+         _values = null;
+         _flushed = flushed;
+      }
+   }
+
+   private final Map<String, TableSqlInfo> _tableSqlInfoMap = new HashMap<>();
+   private final int _batchSize;
+   private final long _flushIntervalNanos;
+   private final BlockingQueue<Row> _queue;
+   private final Thread _thread;
+   private volatile SQLException _writeException;
+   private int _pendingCount;
+   private long _rowCount;
+   private boolean _closed;
+
+   /**
+    * Prepares an insert statement for each table and starts the writer thread.
+    *
+    * @param connection      connection used only by the writer thread
+    * @param tableInfos      tables to which rows are written
+    * @param batchSize       largest number of rows in a batch
+    * @param flushInterval   longest time in milliseconds that a row waits in a batch, 0 for no limit
+    * @param queueSize       largest number of rows queued for the writer thread
+    * @throws SQLException if a statement could not be prepared
+    */
+   JdbcWriteBehind( final Connection connection,
+                    final Collection<TableInfo> tableInfos,
+                    final int batchSize,
+                    final long flushInterval,
+                    final int queueSize ) throws SQLException {
+      for ( TableInfo tableInfo : tableInfos ) {
+         _tableSqlInfoMap.put( tableInfo.getTableName(), new TableSqlInfo( connection, tableInfo ) );
+      }
+      _batchSize = Math.max( 1, batchSize );
+      _flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos( Math.max( 0, flushInterval ) );
+      _queue = new ArrayBlockingQueue<>( Math.max( 1, queueSize ) );
+      _thread = new Thread( this::writeRows, "JdbcWriteBehind" );
+      _thread.setDaemon( true );
+      _thread.start();
+   }
+
+   /**
+    * Queues a row, waiting while the queue is full.
+    * The field values are copied, so the map can be reused by the caller.
+    *
+    * @param tableName    table to which the row is written
+    * @param fieldInfoMap for row value assignment
+    * @throws SQLException if an earlier batch could not be executed or the table is unknown
+    */
+   void write( final String tableName, final Map<? extends FieldInfo, Object> fieldInfoMap ) throws SQLException {
+      throwWriteException();
+      final TableSqlInfo tableSqlInfo = _tableSqlInfoMap.get( tableName );
+      if ( tableSqlInfo == null ) {
+         throw new SQLException( "Unknown table " + tableName );
+      }
+      final FieldInfo[] fieldInfos = new FieldInfo[ fieldInfoMap.size() ];
+      final Object[] values = new Object[ fieldInfos.length ];
+      int i = 0;
+      for ( Map.Entry<? extends FieldInfo, Object> fieldInfoEntry : fieldInfoMap.entrySet() ) {
+         fieldInfos[ i ] = fieldInfoEntry.getKey();
+         values[ i ] = fieldInfoEntry.getValue();
+         i++;
+      }
+      put( new Row( tableSqlInfo, fieldInfos, values ) );
+   }
+
+   /**
+    * Waits until all queued rows have been executed.
+    *
+    * @throws SQLException if a batch could not be executed
+    */
+   void flush() throws SQLException {
+      final CountDownLatch flushed = new CountDownLatch( 1 );
+      put( new Row( flushed ) );
+      try {
+         flushed.await();
+      } catch ( InterruptedException intE ) {
+         Thread.currentThread().interrupt();
+         throw new SQLException( "Interrupted while flushing rows", intE );
+      }
+      throwWriteException();
+   }
+
+   /**
+    * Flushes all queued rows, stops the writer thread and closes the prepared statements.
+    *
+    * @throws SQLException if a batch could not be executed
+    */
+   void close() throws SQLException {
+      if ( _closed ) {
+         return;
+      }
+      try {
+         flush();
+      } finally {
+         _closed = true;
+         _thread.interrupt();
+         try {
+            _thread.join();
+         } catch ( InterruptedException intE ) {
+            Thread.currentThread().interrupt();
+         }
+         for ( TableSqlInfo tableSqlInfo : _tableSqlInfoMap.values() ) {
+            try {
+               tableSqlInfo.getPreparedStatement().close();
+            } catch ( SQLException sqlE ) {
+               LOGGER.warn( sqlE.getMessage() );
+            }
+         }
+         LOGGER.info( "Wrote " + _rowCount + " rows" );
+      }
+   }
+
+   private void put( final Row row ) throws SQLException {
+      if ( _closed ) {
+         throw new SQLException( "Rows can not be written after close" );
+      }
+      try {
+         _queue.put( row );
+      } catch ( InterruptedException intE ) {
+         Thread.currentThread().interrupt();
+         throw new SQLException( "Interrupted while queueing rows", intE );
+      }
+   }
+
+   private void throwWriteException() throws SQLException {
+      final SQLException writeException = _writeException;
+      if ( writeException != null ) {
+         throw writeException;
+      }
+   }
+
+   /**
+    * Run by the writer thread until it is interrupted
+    */
+   private void writeRows() {
+      long flushTime = 0;
+      while ( true ) {
+         final Row row;
+         try {
+            if ( _pendingCount == 0 || _flushIntervalNanos == 0 ) {
+               row = _queue.take();
+            } else {
+               row = _queue.poll( flushTime - System.nanoTime(), TimeUnit.NANOSECONDS );
+            }
+         } catch ( InterruptedException intE ) {
+            return;
+         }
+         if ( row == null ) {
+            // the flush interval has passed
+            executeBatches();
+         } else if ( row._flushed != null ) {
+            executeBatches();
+            row._flushed.countDown();
+         } else if ( _writeException == null ) {
+            if ( _pendingCount == 0 ) {
+               flushTime = System.nanoTime() + _flushIntervalNanos;
+            }
+            addBatch( row );
+         }
+      }
+   }
+
+   private void addBatch( final Row row ) {
+      final TableSqlInfo tableSqlInfo = row._tableSqlInfo;
+      try {
+         for ( int i = 0; i < row._fieldInfos.length; i++ ) {
+            AbstractJdbcWriter.setFieldValue( tableSqlInfo.getPreparedStatement(), row._fieldInfos[ i ],
+                  row._values[ i ] );
+         }
+         tableSqlInfo.getPreparedStatement().addBatch();
+         tableSqlInfo.setBatchCount( tableSqlInfo.getBatchCount() + 1 );
+         _pendingCount++;
+         if ( tableSqlInfo.getBatchCount() >= _batchSize ) {
+            executeBatch( tableSqlInfo );
+         }
+      } catch ( SQLException sqlE ) {
+         setWriteException( sqlE );
+      }
+   }
+
+   private void executeBatches() {
+      try {
+         for ( TableSqlInfo tableSqlInfo : _tableSqlInfoMap.values() ) {
+            executeBatch( tableSqlInfo );
+         }
+      } catch ( SQLException sqlE ) {
+         setWriteException( sqlE );
+      }
+   }
+
+   private void executeBatch( final TableSqlInfo tableSqlInfo ) throws SQLException {
+      final int batchCount = tableSqlInfo.getBatchCount();
+      if ( batchCount == 0 ) {
+         return;
+      }
+      tableSqlInfo.setBatchCount( 0 );
+      _pendingCount -= batchCount;
+      tableSqlInfo.getPreparedStatement().executeBatch();
+      // Not all drivers automatically clear the batch.  This is considered by some to be a feature, by most a bug.
+      tableSqlInfo.getPreparedStatement().clearBatch();
+      _rowCount += batchCount;
+   }
+
+   private void setWriteException( final SQLException sqlE ) {
+      LOGGER.error( "Could not write rows : " + sqlE.getMessage() );
+      _writeException = sqlE;
+      // later rows are discarded, so nothing is pending
+      for ( TableSqlInfo tableSqlInfo : _tableSqlInfoMap.values() ) {
+         tableSqlInfo.setBatchCount( 0 );
+         try {
+            tableSqlInfo.getPreparedStatement().clearBatch();
+         } catch ( SQLException clearE ) {
+            LOGGER.warn( clearE.getMessage() );
+         }
+      }
+      _pendingCount = 0;
+   }
+
+}
@@ -34,6 +34,7 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.Reader;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
@@ -41,6 +42,10 @@ import java.util.StringTokenizer;
 
 /**
  * Collection Reader that pulls documents to be processed from a database.
+ * <p>
+ * If a key column is given the query is read by ranges of the key, each on its
+ * own connection and thread, into a bounded prefetch queue so that the pipeline
+ * does not wait on the database. See {@link JdbcKeyRangeReader}.
  * 
  * @author Mayo Clinic
  */
@@ -92,6 +97,42 @@ public class JdbcCollectionReader extends CollectionReader_ImplBase
      */
     public static final String PARAM_VALUE_FILE_RESRC = "ValueFileResrcName";
 
+    /**
+     * Optional parameter. Name of a numeric column from the resultset that is
+     * unique for each document. If set, the query is read in key ranges by
+     * parallel connections and the key is the default document ID. Cannot be
+     * used with a prepared statement value file.
+     */
+    public static final String PARAM_KEY_COL = "KeyColName";
+
+    /**
+     * Optional parameter. Number of key ranges read in parallel, default 4.
+     */
+    public static final String PARAM_KEY_RANGE_COUNT = "KeyRangeCount";
+
+    /**
+     * Optional parameter. Number of rows fetched per database round trip.
+     */
+    public static final String PARAM_FETCH_SIZE = "FetchSize";
+
+    /**
+     * Optional parameter. Number of documents read ahead of the pipeline when
+     * reading key ranges, default 100.
+     */
+    public static final String PARAM_PREFETCH_SIZE = "PrefetchSize";
+
+    /**
+     * Optional parameter. File holding the last key processed from each key
+     * range. If the file exists an interrupted run restarts after those keys.
+     * A row counts as processed when the pipeline asks for the next document
+     * after it, which in a pipeline that processes one document at a time
+     * means that every annotator has finished with it, so a row that failed or
+     * was cut off is read again on restart. A pipeline that reads documents
+     * ahead of processing them, such as a CPE with several processing threads,
+     * may checkpoint rows that were never processed.
+     */
+    public static final String PARAM_CHECKPOINT_FILE = "CheckpointFile";
+
     private PreparedStatement queryPrepStmt;
     private ResultSet rs;
 
@@ -115,6 +156,12 @@ public class JdbcCollectionReader extends CollectionReader_ImplBase
     private int prepStmtValArrIdx = 0;
     private boolean usePrepStmtVals = false;
 
+    // optional, will remain null if no key column is set
+    private JdbcKeyRangeReader keyRangeReader = null;
+    private JdbcKeyRangeReader.Row nextRow = null;
+    // row put in the last CAS, checkpointed once the pipeline asks for more
+    private JdbcKeyRangeReader.Row processingRow = null;
+
    @Override
     public void initialize() throws ResourceInitializationException
     {
@@ -133,6 +180,11 @@ public class JdbcCollectionReader extends CollectionReader_ImplBase
 
             Connection conn = resrc.getConnection();
             queryPrepStmt = conn.prepareStatement(sql);
+            Integer fetchSize = (Integer) getConfigParameterValue(PARAM_FETCH_SIZE);
+            if (fetchSize != null && fetchSize > 0)
+            {
+                queryPrepStmt.setFetchSize(fetchSize);
+            }
 
             String fileResrcName = (String) getConfigParameterValue(PARAM_VALUE_FILE_RESRC);
             if ((fileResrcName != null) && (fileResrcName.trim().length() > 0))
@@ -150,6 +202,26 @@ public class JdbcCollectionReader extends CollectionReader_ImplBase
             }
 
             totalRowCount = getRowCount(conn, sql);
+
+            String keyColName = (String) getConfigParameterValue(PARAM_KEY_COL);
+            if ((keyColName != null) && (keyColName.trim().length() > 0))
+            {
+                if (usePrepStmtVals)
+                {
+                    throw new Exception(PARAM_KEY_COL + " cannot be used with "
+                            + PARAM_VALUE_FILE_RESRC);
+                }
+                Integer rangeCount = (Integer) getConfigParameterValue(PARAM_KEY_RANGE_COUNT);
+                Integer prefetchSize = (Integer) getConfigParameterValue(PARAM_PREFETCH_SIZE);
+                String checkpointPath = (String) getConfigParameterValue(PARAM_CHECKPOINT_FILE);
+                keyRangeReader = new JdbcKeyRangeReader(sql, keyColName.trim(),
+                        docTextColName, docIdColNames, docIdDelimiter,
+                        fetchSize == null ? 0 : fetchSize,
+                        prefetchSize == null ? 100 : prefetchSize,
+                        (checkpointPath == null || checkpointPath.trim().isEmpty())
+                                ? null : new File(checkpointPath.trim()));
+                keyRangeReader.start(resrc, rangeCount == null ? 4 : rangeCount);
+            }
         } catch (Exception e)
         {
             throw new ResourceInitializationException(e);
@@ -252,6 +324,11 @@ public class JdbcCollectionReader extends CollectionReader_ImplBase
     public void getNext( CAS cas ) throws IOException, CollectionException
     {
         currRowCount++;
+        if (keyRangeReader != null)
+        {
+            getNextRow(cas);
+            return;
+        }
         try
         {
             // pull doc text from resultset
@@ -294,6 +371,38 @@ public class JdbcCollectionReader extends CollectionReader_ImplBase
         }
     }
 
+    /**
+     * Puts the next prefetched key range row in the CAS.
+     * 
+     * @param cas
+     * @throws CollectionException
+     */
+    private void getNextRow(CAS cas) throws CollectionException
+    {
+        JdbcKeyRangeReader.Row row = nextRow;
+        nextRow = null;
+        if (row == null)
+        {
+            throw new CollectionException(new IllegalStateException(
+                    "getNext called without a next row"));
+        }
+        try
+        {
+            cas.getJCas().setDocumentText(row.getText());
+
+            DocumentID docIdAnnot = new DocumentID(cas.getJCas());
+            docIdAnnot.setDocumentID(row.getDocumentId());
+            docIdAnnot.addToIndexes();
+
+            logger.info("Reading document with ID="
+                    + docIdAnnot.getDocumentID());
+        } catch (Exception e)
+        {
+            throw new CollectionException(e);
+        }
+        processingRow = row;
+    }
+
     /**
      * Builds a document ID from one or more pieces of query data. If the query
      * data is not specified, the current row # is used.
@@ -305,17 +414,7 @@ public class JdbcCollectionReader extends CollectionReader_ImplBase
     {
         if (docIdColNames != null)
         {
-            StringBuffer sb = new StringBuffer();
-            for (int i = 0; i < docIdColNames.length; i++)
-            {
-                String val = rs.getObject(docIdColNames[i]).toString();
-                sb.append(val);
-                if (i != (docIdColNames.length - 1))
-                {
-                    sb.append(docIdDelimiter);
-                }
-            }
-            return sb.toString();
+            return JdbcKeyRangeReader.getDocumentId(rs, docIdColNames, docIdDelimiter);
         } else
         {
             // default is to return row num
@@ -333,17 +432,10 @@ public class JdbcCollectionReader extends CollectionReader_ImplBase
      */
     private String convertToString(Clob clob) throws SQLException, IOException
     {
-        StringBuffer sb = new StringBuffer();
-        BufferedReader br = new BufferedReader(clob.getCharacterStream());
-        String line = br.readLine();
-        while (line != null)
+        try (Reader reader = clob.getCharacterStream())
         {
-            sb.append(line);
-            sb.append('\n');
-            line = br.readLine();
+            return JdbcKeyRangeReader.readText(reader);
         }
-        br.close();
-        return sb.toString();
     }
 
     /*
@@ -354,6 +446,19 @@ public class JdbcCollectionReader extends CollectionReader_ImplBase
     @Override
     public boolean hasNext() throws IOException, CollectionException
     {
+        if (keyRangeReader != null)
+        {
+            if (processingRow != null)
+            {
+                keyRangeReader.setRead(processingRow);
+                processingRow = null;
+            }
+            if (nextRow == null)
+            {
+                nextRow = keyRangeReader.next();
+            }
+            return nextRow != null;
+        }
         try
         {
 
@@ -429,6 +534,10 @@ public class JdbcCollectionReader extends CollectionReader_ImplBase
     @Override
     public void close() throws IOException
     {
+        if (keyRangeReader != null)
+        {
+            keyRangeReader.close();
+        }
         try
         {
             queryPrepStmt.close();
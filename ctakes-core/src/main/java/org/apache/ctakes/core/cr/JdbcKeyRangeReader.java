@@ -0,0 +1,446 @@
+package org.apache.ctakes.core.cr;
+
+
+import org.apache.ctakes.core.resource.JdbcConnectionResource;
+import org.apache.log4j.Logger;
+
+import java.io.*;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Reads the rows of an sql query by ranges of a numeric key column, each range on its own connection and thread.
+ * <p>
+ * The key range of the query is split into contiguous ranges of equal width, each read in key order.
+ * Rows are prefetched into a bounded queue so that the caller only waits on the database when the queue is empty.
+ * The last key of every range that the caller marks read with {@link #setRead(Row)} can be checkpointed to a file.  When the file exists the ranges are not
+ * recomputed and each is read from after its checkpointed key, so an interrupted run restarts where it stopped.
+ * Delete the checkpoint file to read everything again.
+ * <p>
+ * If the connection resource cannot open new connections all ranges are read one after the other on its connection.
+ */
+final public class JdbcKeyRangeReader implements Closeable {
+
+   static private final Logger LOGGER = Logger.getLogger( "JdbcKeyRangeReader" );
+
+   static private final int CHECKPOINT_INTERVAL = 100;
+   static private final int READ_BUFFER_SIZE = 8192;
+
+   /**
+    * One row of the query.
+    */
+   static public final class Row {
+      private final int _range;
+      private final long _key;
+      private final String _documentId;
+      private final String _text;
+
+      private Row( final int range, final long key, final String documentId, final String text ) {
+         _range = range;
+         _key = key;
+         _documentId = documentId;
+         _text = text;
+      }
+
+      /**
+       * @return value of the key column
+       */
+      public long getKey() {
+         return _key;
+      }
+
+      /**
+       * @return document id built from the document id columns, or the key if there are none
+       */
+      public String getDocumentId() {
+         return _documentId;
+      }
+
+      /**
+       * @return document text
+       */
+      public String getText() {
+         return _text;
+      }
+   }
+
+   // marks the end of the rows of one thread
+   static private final Row END = new Row( -1, 0, null, null );
+
+   static private final class KeyRange {
+      private final long _low;
+      private final long _high;
+      // last key marked read, _low - 1 before any
+      private volatile long _lastKey;
+
+      private KeyRange( final long low, final long high, final long lastKey ) {
+         _low = low;
+         _high = high;
+         _lastKey = lastKey;
+      }
+   }
+
+   private final String _sql;
+   private final String _keyColName;
+   private final String _docTextColName;
+   private final String[] _docIdColNames;
+   private final String _docIdDelimiter;
+   private final int _fetchSize;
+   private final File _checkpointFile;
+   private final BlockingQueue<Row> _queue;
+   private final List<KeyRange> _ranges = new ArrayList<>();
+   private ExecutorService _executor;
+   private int _threadCount;
+   private int _endedThreadCount;
+   private volatile Exception _readException;
+   private int _readCount;
+   private volatile boolean _closed;
+
+   /**
+    * @param sql            query for the documents, its select list must hold the key, text and document id columns
+    * @param keyColName     numeric key column, unique for each row
+    * @param docTextColName column holding the document text, of type CHAR, VARCHAR or CLOB
+    * @param docIdColNames  columns joined to build the document id, null to use the key
+    * @param docIdDelimiter joins the document id columns
+    * @param fetchSize      rows fetched per database round trip, 0 for the driver default
+    * @param prefetchSize   largest number of rows read ahead of the caller
+    * @param checkpointFile file holding the key ranges and the last key read from each, null for none
+    */
+   public JdbcKeyRangeReader( final String sql,
+                              final String keyColName,
+                              final String docTextColName,
+                              final String[] docIdColNames,
+                              final String docIdDelimiter,
+                              final int fetchSize,
+                              final int prefetchSize,
+                              final File checkpointFile ) {
+      _sql = sql;
+      _keyColName = keyColName;
+      _docTextColName = docTextColName;
+      _docIdColNames = docIdColNames;
+      _docIdDelimiter = docIdDelimiter;
+      _fetchSize = fetchSize;
+      _checkpointFile = checkpointFile;
+      _queue = new ArrayBlockingQueue<>( Math.max( 1, prefetchSize ) );
+   }
+
+   /**
+    * Splits the key range and starts reading.
+    *
+    * @param connectionResource source of the connections
+    * @param rangeCount         number of key ranges, each read on its own connection
+    * @throws SQLException if the key range could not be found or connections could not be opened
+    * @throws IOException  if the checkpoint file could not be read
+    */
+   public void start( final JdbcConnectionResource connectionResource, final int rangeCount )
+         throws SQLException, IOException {
+      if ( _checkpointFile != null && _checkpointFile.isFile() ) {
+         loadCheckpoint();
+         LOGGER.info( "Restarting " + _ranges.size() + " key ranges from checkpoint " + _checkpointFile.getPath() );
+      } else {
+         splitKeyRange( connectionResource.getConnection(), Math.max( 1, rangeCount ) );
+      }
+      final List<Connection> connections = new ArrayList<>();
+      try {
+         for ( int i = 0; i < _ranges.size(); i++ ) {
+            connections.add( connectionResource.openConnection() );
+         }
+      } catch ( SQLFeatureNotSupportedException sqlE ) {
+         LOGGER.warn( sqlE.getMessage() + " , reading all key ranges on one connection" );
+         for ( Connection connection : connections ) {
+            connection.close();
+         }
+         connections.clear();
+      } catch ( SQLException sqlE ) {
+         for ( Connection connection : connections ) {
+            connection.close();
+         }
+         throw sqlE;
+      }
+      _threadCount = connections.isEmpty() ? 1 : connections.size();
+      _executor = Executors.newFixedThreadPool( _threadCount, r -> {
+         final Thread thread = new Thread( r, "JdbcKeyRangeReader" );
+         thread.setDaemon( true );
+         return thread;
+      } );
+      if ( connections.isEmpty() ) {
+         final List<Integer> allRanges = new ArrayList<>();
+         for ( int i = 0; i < _ranges.size(); i++ ) {
+            allRanges.add( i );
+         }
+         final Connection shared = connectionResource.getConnection();
+         _executor.submit( () -> readRanges( shared, false, allRanges ) );
+      } else {
+         for ( int i = 0; i < connections.size(); i++ ) {
+            final Connection connection = connections.get( i );
+            final List<Integer> range = new ArrayList<>();
+            range.add( i );
+            _executor.submit( () -> readRanges( connection, true, range ) );
+         }
+      }
+      _executor.shutdown();
+   }
+
+   /**
+    * Blocks until a row has been read.
+    *
+    * @return the next row, null when all ranges have been read
+    * @throws IOException if a range could not be read
+    */
+   public Row next() throws IOException {
+      while ( _endedThreadCount < _threadCount ) {
+         final Row row;
+         try {
+            row = _queue.take();
+         } catch ( InterruptedException intE ) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException( "Interrupted waiting for database rows" );
+         }
+         if ( row != END ) {
+            return row;
+         }
+         _endedThreadCount++;
+         if ( _readException != null ) {
+            throw new IOException( "Could not read database rows", _readException );
+         }
+      }
+      return null;
+   }
+
+   /**
+    * Marks a row as read, to be saved at the next checkpoint.
+    * Rows of a range are returned by {@link #next()} in key order and must be marked in that order,
+    * so the key is the last read of its range and a restart reads every row after it.
+    *
+    * @param row row returned by {@link #next()}
+    */
+   public void setRead( final Row row ) {
+      _ranges.get( row._range )._lastKey = row._key;
+      _readCount++;
+      if ( _readCount % CHECKPOINT_INTERVAL == 0 ) {
+         saveCheckpoint();
+      }
+   }
+
+   /**
+    * Stops reading and saves the checkpoint.
+    */
+   @Override
+   public void close() {
+      if ( _closed ) {
+         return;
+      }
+      _closed = true;
+      if ( _executor != null ) {
+         _executor.shutdownNow();
+      }
+      saveCheckpoint();
+   }
+
+   private void splitKeyRange( final Connection connection, final int rangeCount ) throws SQLException {
+      final String sql = "SELECT MIN(" + _keyColName + "), MAX(" + _keyColName + ") FROM ( " + _sql + " ) ctakes_source";
+      try ( Statement statement = connection.createStatement();
+            ResultSet rs = statement.executeQuery( sql ) ) {
+         if ( !rs.next() ) {
+            return;
+         }
+         final long min = rs.getLong( 1 );
+         if ( rs.wasNull() ) {
+            // no rows
+            return;
+         }
+         final long max = rs.getLong( 2 );
+         final long width = ( max - min ) / rangeCount + 1;
+         for ( long low = min; low <= max; low += width ) {
+            _ranges.add( new KeyRange( low, Math.min( max, low + width - 1 ), low - 1 ) );
+         }
+      }
+      LOGGER.info( "Reading keys " + _keyColName + " from " + _ranges.get( 0 )._low + " to " + max()
+                   + " in " + _ranges.size() + " ranges" );
+   }
+
+   private long max() {
+      return _ranges.get( _ranges.size() - 1 )._high;
+   }
+
+   private void readRanges( final Connection connection, final boolean ownConnection, final List<Integer> ranges ) {
+      try {
+         if ( ownConnection && _fetchSize > 0 ) {
+            // some drivers only fetch in batches within a transaction
+            connection.setAutoCommit( false );
+         }
+         final String sql = "SELECT * FROM ( " + _sql + " ) ctakes_source WHERE "
+                            + _keyColName + " > ? AND " + _keyColName + " <= ? ORDER BY " + _keyColName;
+         for ( int range : ranges ) {
+            final KeyRange keyRange = _ranges.get( range );
+            try ( PreparedStatement statement = connection.prepareStatement( sql ) ) {
+               if ( _fetchSize > 0 ) {
+                  statement.setFetchSize( _fetchSize );
+               }
+               statement.setLong( 1, keyRange._lastKey );
+               statement.setLong( 2, keyRange._high );
+               try ( ResultSet rs = statement.executeQuery() ) {
+                  readRows( rs, range );
+               }
+            }
+         }
+      } catch ( InterruptedException intE ) {
+         // closed
+         return;
+      } catch ( Exception e ) {
+         if ( !_closed ) {
+            LOGGER.error( "Could not read database rows : " + e.getMessage() );
+            _readException = e;
+         }
+      } finally {
+         if ( ownConnection ) {
+            try {
+               connection.close();
+            } catch ( SQLException sqlE ) {
+               LOGGER.warn( "Could not close database connection : " + sqlE.getMessage() );
+            }
+         }
+      }
+      try {
+         _queue.put( END );
+      } catch ( InterruptedException intE ) {
+         // closed
+      }
+   }
+
+   private void readRows( final ResultSet rs, final int range )
+         throws SQLException, IOException, InterruptedException {
+      final int textColType = rs.getMetaData().getColumnType( rs.findColumn( _docTextColName ) );
+      while ( rs.next() ) {
+         final long key = rs.getLong( _keyColName );
+         final String text;
+         if ( textColType == Types.CHAR || textColType == Types.VARCHAR ) {
+            text = rs.getString( _docTextColName );
+         } else if ( textColType == Types.CLOB ) {
+            try ( Reader reader = rs.getCharacterStream( _docTextColName ) ) {
+               text = reader == null ? null : readText( reader );
+            }
+         } else {
+            throw new SQLException( "Unsupported document text column type: "
+                                    + rs.getMetaData().getColumnTypeName( rs.findColumn( _docTextColName ) ) );
+         }
+         final String documentId = _docIdColNames == null
+                                   ? Long.toString( key )
+                                   : getDocumentId( rs, _docIdColNames, _docIdDelimiter );
+         _queue.put( new Row( range, key, documentId, text ) );
+      }
+   }
+
+   /**
+    * @param rs            result set positioned on a row
+    * @param docIdColNames columns to join
+    * @param delimiter     joins the columns
+    * @return document id of the row
+    * @throws SQLException if a column could not be read
+    */
+   static String getDocumentId( final ResultSet rs, final String[] docIdColNames, final String delimiter )
+         throws SQLException {
+      final StringBuilder sb = new StringBuilder();
+      for ( int i = 0; i < docIdColNames.length; i++ ) {
+         if ( i > 0 ) {
+            sb.append( delimiter );
+         }
+         sb.append( rs.getObject( docIdColNames[ i ] ) );
+      }
+      return sb.toString();
+   }
+
+   /**
+    * Reads all text, ending every line with a newline as the clob reading of {@link JdbcCollectionReader} always did.
+    *
+    * @param reader character stream of a clob
+    * @return the text with \r\n and \r line ends replaced by \n, and \n appended to a last line without one
+    * @throws IOException if the text could not be read
+    */
+   static String readText( final Reader reader ) throws IOException {
+      final StringBuilder sb = new StringBuilder();
+      final char[] buffer = new char[ READ_BUFFER_SIZE ];
+      boolean skipLineFeed = false;
+      boolean lineOpen = false;
+      int count = reader.read( buffer );
+      while ( count >= 0 ) {
+         for ( int i = 0; i < count; i++ ) {
+            final char c = buffer[ i ];
+            if ( skipLineFeed ) {
+               skipLineFeed = false;
+               if ( c == '\n' ) {
+                  continue;
+               }
+            }
+            if ( c == '\r' ) {
+               sb.append( '\n' );
+               skipLineFeed = true;
+               lineOpen = false;
+            } else if ( c == '\n' ) {
+               sb.append( '\n' );
+               lineOpen = false;
+            } else {
+               sb.append( c );
+               lineOpen = true;
+            }
+         }
+         count = reader.read( buffer );
+      }
+      if ( lineOpen ) {
+         sb.append( '\n' );
+      }
+      return sb.toString();
+   }
+
+   private void loadCheckpoint() throws IOException {
+      try ( BufferedReader reader = new BufferedReader( new FileReader( _checkpointFile ) ) ) {
+         String line = reader.readLine();
+         while ( line != null ) {
+            line = line.trim();
+            if ( !line.isEmpty() && !line.startsWith( "#" ) ) {
+               final String[] keys = line.split( "\t" );
+               if ( keys.length != 3 ) {
+                  throw new IOException( "Not a key range checkpoint line: " + line );
+               }
+               try {
+                  _ranges.add( new KeyRange( Long.parseLong( keys[ 0 ] ), Long.parseLong( keys[ 1 ] ),
+                        Long.parseLong( keys[ 2 ] ) ) );
+               } catch ( NumberFormatException nfE ) {
+                  throw new IOException( "Not a key range checkpoint line: " + line );
+               }
+            }
+            line = reader.readLine();
+         }
+      }
+   }
+
+   private void saveCheckpoint() {
+      if ( _checkpointFile == null || _ranges.isEmpty() ) {
+         return;
+      }
+      // write a temporary file and rename it so that a crash never leaves a partial checkpoint
+      final File partial = new File( _checkpointFile.getPath() + ".tmp" );
+      try ( Writer writer = new BufferedWriter( new FileWriter( partial ) ) ) {
+         writer.write( "# low key\thigh key\tlast key read\n" );
+         for ( KeyRange range : _ranges ) {
+            writer.write( range._low + "\t" + range._high + "\t" + range._lastKey + "\n" );
+         }
+      } catch ( IOException ioE ) {
+         LOGGER.warn( "Could not save checkpoint " + _checkpointFile.getPath() + " : " + ioE.getMessage() );
+         partial.delete();
+         return;
+      }
+      if ( !partial.renameTo( _checkpointFile ) ) {
+         _checkpointFile.delete();
+         if ( !partial.renameTo( _checkpointFile ) ) {
+            LOGGER.warn( "Could not replace checkpoint " + _checkpointFile.getPath() );
+         }
+      }
+   }
+
+}
@@ -0,0 +1,297 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.core.fsm.machine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ctakes.core.fsm.state.NamedState;
+import org.apache.ctakes.core.fsm.state.NonTerminalEndState;
+import org.apache.ctakes.core.fsm.token.BaseToken;
+import org.apache.log4j.Logger;
+
+import net.openai.util.fsm.AnyCondition;
+import net.openai.util.fsm.Condition;
+import net.openai.util.fsm.Machine;
+import net.openai.util.fsm.State;
+
+/**
+ * A set of finite state machines compiled into integer transition tables and
+ * run together in a single pass over the tokens.
+ * <p>
+ * Every state of every machine gets a number. Each state holds its
+ * transitions as parallel arrays of condition numbers and target state
+ * numbers, tested in the order the transitions were added, so the first
+ * satisfied condition wins exactly as in {@link Machine#input(Object)}.
+ * Conditions are numbered by identity; the result of a condition for the
+ * current token is kept in a bitset, so a condition shared by several states
+ * or machines is tested at most once per token. {@link AnyCondition} is never
+ * tested at all.
+ * <p>
+ * The matches reported are those of the execute loop shared by the machine
+ * classes in this package: the token index of the last visit to the start
+ * state is remembered, a match starts one token after it (or at token zero if
+ * the start state was never revisited) and the machine is reset after every
+ * match.
+ * <p>
+ * Only machines made of {@link NamedState}s, whose transitions are recorded,
+ * can be compiled, and every state that is not an end state must have an
+ * {@link AnyCondition} transition so that there is always a next state.
+ */
+public class CompiledMachineSet {
+	private static final Logger iv_logger = Logger
+			.getLogger(CompiledMachineSet.class);
+
+	// condition number used for AnyCondition
+	private static final int ANY_CONDITION = -1;
+
+	private final Condition[] iv_conditions;
+	private final int[][] iv_transitionConditions;
+	private final int[][] iv_transitionTargets;
+	private final boolean[] iv_startFlags;
+	private final boolean[] iv_endFlags;
+	private final boolean[] iv_nonTerminalFlags;
+	private final int[] iv_machineStartStates;
+	private final boolean iv_keepStartAfterMatch;
+
+	/**
+	 * @param machines
+	 *            machines to compile, they are run in the iteration order of
+	 *            the collection
+	 * @param keepStartAfterMatch
+	 *            true if the start index of a match should be kept as the
+	 *            remembered start index after the machine is reset, as done by
+	 *            {@link FractionFSM}
+	 * @throws IllegalArgumentException
+	 *             if a machine cannot be compiled
+	 */
+	public CompiledMachineSet(Collection<Machine> machines,
+			boolean keepStartAfterMatch) throws IllegalArgumentException {
+		Map<State, Integer> stateNumbers = new IdentityHashMap<State, Integer>();
+		List<NamedState> states = new ArrayList<NamedState>();
+		Map<Condition, Integer> conditionNumbers = new IdentityHashMap<Condition, Integer>();
+		List<Condition> conditions = new ArrayList<Condition>();
+
+		iv_machineStartStates = new int[machines.size()];
+		int machineIndex = 0;
+		for (Machine machine : machines) {
+			machine.reset();
+			iv_machineStartStates[machineIndex++] = numberState(
+					machine.getCurrentState(), stateNumbers, states);
+		}
+		// numbering a state's targets appends them, so this visits every
+		// reachable state
+		List<int[]> transitionConditions = new ArrayList<int[]>();
+		List<int[]> transitionTargets = new ArrayList<int[]>();
+		for (int i = 0; i < states.size(); i++) {
+			NamedState state = states.get(i);
+			List<Condition> stateConditions = state.getTransitionConditions();
+			List<State> stateTargets = state.getTransitionStates();
+			int count = 0;
+			boolean hasAny = false;
+			while (count < stateConditions.size() && !hasAny) {
+				// transitions after an AnyCondition can never be taken
+				hasAny = stateConditions.get(count) instanceof AnyCondition;
+				count++;
+			}
+			if (!hasAny && !state.getEndStateFlag()) {
+				throw new IllegalArgumentException("State " + state.getName()
+						+ " has no transition for any token");
+			}
+			int[] conditionIds = new int[count];
+			int[] targetIds = new int[count];
+			for (int t = 0; t < count; t++) {
+				Condition condition = stateConditions.get(t);
+				if (condition instanceof AnyCondition) {
+					conditionIds[t] = ANY_CONDITION;
+				} else {
+					Integer number = conditionNumbers.get(condition);
+					if (number == null) {
+						number = new Integer(conditions.size());
+						conditionNumbers.put(condition, number);
+						conditions.add(condition);
+					}
+					conditionIds[t] = number.intValue();
+				}
+				targetIds[t] = numberState(stateTargets.get(t), stateNumbers,
+						states);
+			}
+			transitionConditions.add(conditionIds);
+			transitionTargets.add(targetIds);
+		}
+
+		iv_conditions = conditions.toArray(new Condition[conditions.size()]);
+		iv_transitionConditions = transitionConditions
+				.toArray(new int[states.size()][]);
+		iv_transitionTargets = transitionTargets.toArray(new int[states
+				.size()][]);
+		iv_startFlags = new boolean[states.size()];
+		iv_endFlags = new boolean[states.size()];
+		iv_nonTerminalFlags = new boolean[states.size()];
+		for (int i = 0; i < states.size(); i++) {
+			iv_startFlags[i] = states.get(i).getStartStateFlag();
+			iv_endFlags[i] = states.get(i).getEndStateFlag();
+			iv_nonTerminalFlags[i] = states.get(i) instanceof NonTerminalEndState;
+		}
+		iv_keepStartAfterMatch = keepStartAfterMatch;
+	}
+
+	/**
+	 * @param machines
+	 *            machines to compile
+	 * @param keepStartAfterMatch
+	 *            see {@link #CompiledMachineSet(Collection, boolean)}
+	 * @return the compiled machines, or null if they cannot be compiled and
+	 *         must be run through the fsm library
+	 */
+	public static CompiledMachineSet compileOrNull(Collection<Machine> machines,
+			boolean keepStartAfterMatch) {
+		try {
+			return new CompiledMachineSet(machines, keepStartAfterMatch);
+		} catch (IllegalArgumentException iae) {
+			iv_logger.warn("Running machines uncompiled: " + iae.getMessage());
+			return null;
+		}
+	}
+
+	private static int numberState(State state, Map<State, Integer> stateNumbers,
+			List<NamedState> states) {
+		Integer number = stateNumbers.get(state);
+		if (number == null) {
+			if (!(state instanceof NamedState)) {
+				throw new IllegalArgumentException("Cannot compile state "
+						+ state.getName() + " of " + state.getClass());
+			}
+			number = new Integer(states.size());
+			stateNumbers.put(state, number);
+			states.add((NamedState) state);
+		}
+		return number.intValue();
+	}
+
+	/**
+	 * Runs all machines over the input.
+	 *
+	 * @param inputs
+	 *            tokens to feed to the machines, null entries are skipped
+	 * @return every match of every machine, in the order they were found
+	 */
+	public List<Match> execute(List<? extends BaseToken> inputs) {
+		List<Match> matches = new ArrayList<Match>();
+		int machineCount = iv_machineStartStates.length;
+		int[] currentStates = Arrays.copyOf(iv_machineStartStates, machineCount);
+		int[] startIndices = new int[machineCount];
+		Arrays.fill(startIndices, -1);
+		int words = (iv_conditions.length + 63) / 64;
+		long[] tested = new long[words];
+		long[] satisfied = new long[words];
+
+		for (int i = 0; i < inputs.size(); i++) {
+			BaseToken token = inputs.get(i);
+			if (token == null) {
+				continue;
+			}
+			Arrays.fill(tested, 0L);
+			for (int m = 0; m < machineCount; m++) {
+				int state = nextState(currentStates[m], token, tested, satisfied);
+				if (iv_startFlags[state]) {
+					startIndices[m] = i;
+				}
+				if (iv_endFlags[state]) {
+					int startIndex = startIndices[m] < 0 ? 0 : startIndices[m] + 1;
+					matches.add(new Match(startIndex, i, iv_nonTerminalFlags[state]));
+					state = iv_machineStartStates[m];
+					if (iv_keepStartAfterMatch) {
+						startIndices[m] = startIndex;
+					}
+				}
+				currentStates[m] = state;
+			}
+		}
+		return matches;
+	}
+
+	private int nextState(int state, BaseToken token, long[] tested,
+			long[] satisfied) {
+		int[] conditionIds = iv_transitionConditions[state];
+		for (int t = 0; t < conditionIds.length; t++) {
+			int id = conditionIds[t];
+			if (id == ANY_CONDITION) {
+				return iv_transitionTargets[state][t];
+			}
+			int word = id >>> 6;
+			long bit = 1L << id;
+			if ((tested[word] & bit) == 0) {
+				tested[word] |= bit;
+				if (iv_conditions[id].satisfiedBy(token)) {
+					satisfied[word] |= bit;
+				} else {
+					satisfied[word] &= ~bit;
+				}
+			}
+			if ((satisfied[word] & bit) != 0) {
+				return iv_transitionTargets[state][t];
+			}
+		}
+		// only end states may lack a catch-all transition, and machines never
+		// rest in an end state
+		return state;
+	}
+
+	/**
+	 * A span of tokens matched by one of the machines.
+	 */
+	public static class Match {
+		private final int iv_startIndex;
+		private final int iv_endIndex;
+		private final boolean iv_nonTerminal;
+
+		private Match(int startIndex, int endIndex, boolean nonTerminal) {
+			iv_startIndex = startIndex;
+			iv_endIndex = endIndex;
+			iv_nonTerminal = nonTerminal;
+		}
+
+		/**
+		 * @return index of the first token of the match
+		 */
+		public int getStartIndex() {
+			return iv_startIndex;
+		}
+
+		/**
+		 * @return index of the token that moved the machine into its end state
+		 */
+		public int getEndIndex() {
+			return iv_endIndex;
+		}
+
+		/**
+		 * @return true if the end state is a {@link NonTerminalEndState}, in
+		 *         which case the token at the end index is not part of the match
+		 */
+		public boolean isNonTerminal() {
+			return iv_nonTerminal;
+		}
+	}
+}
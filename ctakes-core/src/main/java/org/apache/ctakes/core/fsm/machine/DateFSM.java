@@ -62,12 +62,25 @@ public class DateFSM {
 	// contains the finite state machines
 	private Set<Machine> iv_machineSet = new HashSet<Machine>();
 
+	// the machines compiled into transition tables, null to run them through
+	// the fsm library
+	private CompiledMachineSet iv_compiledMachines;
+
 	/**
 	 * 
 	 * Constructor
 	 * 
 	 */
 	public DateFSM() {
+		this(true);
+	}
+
+	/**
+	 * @param compile
+	 *            true to run the machines as compiled transition tables,
+	 *            false to run them through the fsm library
+	 */
+	public DateFSM(boolean compile) {
 		iv_monthFullNameSet.add("january");
 		iv_monthFullNameSet.add("february");
 		iv_monthFullNameSet.add("march");
@@ -97,6 +110,11 @@ public class DateFSM {
 
 		iv_machineSet.add(getNumericDateMachine());
 		iv_machineSet.add(getTextualDateMachine());
+
+		if (compile) {
+			iv_compiledMachines = CompiledMachineSet.compileOrNull(
+					iv_machineSet, false);
+		}
 	}
 
 	/**
@@ -258,6 +276,19 @@ public class DateFSM {
 		// key = fsm , value = token start index
 		Map<Machine, Integer> tokenStartMap = new HashMap<Machine, Integer>();
 
+		if (iv_compiledMachines != null) {
+			for (CompiledMachineSet.Match match : iv_compiledMachines
+					.execute(tokens)) {
+				BaseToken startToken = tokens.get(match.getStartIndex());
+				BaseToken endToken = match.isNonTerminal() ? tokens
+						.get(match.getEndIndex() - 1) : tokens.get(match
+						.getEndIndex());
+				dateSet.add(new DateToken(startToken.getStartOffset(),
+						endToken.getEndOffset()));
+			}
+			return dateSet;
+		}
+
 		for (int i = 0; i < tokens.size(); i++) {
 			BaseToken token = tokens.get(i);
 
@@ -52,12 +52,25 @@ public class FractionFSM {
 	// contains the finite state machines
 	private Set<Machine> iv_machineSet = new HashSet<Machine>();
 
+	// the machines compiled into transition tables, null to run them through
+	// the fsm library
+	private CompiledMachineSet iv_compiledMachines;
+
 	/**
 	 * 
 	 * Constructor
 	 * 
 	 */
 	public FractionFSM() {
+		this(true);
+	}
+
+	/**
+	 * @param compile
+	 *            true to run the machines as compiled transition tables,
+	 *            false to run them through the fsm library
+	 */
+	public FractionFSM(boolean compile) {
 		iv_textNumeratorSet.add("one");
 		iv_textNumeratorSet.add("two");
 		iv_textNumeratorSet.add("three");
@@ -89,6 +102,11 @@ public class FractionFSM {
 		iv_textDenominatorSet.add("tenths");
 
 		iv_machineSet.add(getMachine());
+
+		if (compile) {
+			iv_compiledMachines = CompiledMachineSet.compileOrNull(
+					iv_machineSet, true);
+		}
 	}
 
 	/**
@@ -156,6 +174,17 @@ public class FractionFSM {
 		// key = fsm , value = token start index
 		Map<Machine, Integer> tokenStartMap = new HashMap<Machine, Integer>();
 
+		if (iv_compiledMachines != null) {
+			for (CompiledMachineSet.Match match : iv_compiledMachines
+					.execute(tokens)) {
+				BaseToken startToken = tokens.get(match.getStartIndex());
+				BaseToken endToken = tokens.get(match.getEndIndex());
+				fractionSet.add(new FractionToken(startToken.getStartOffset(),
+						endToken.getEndOffset()));
+			}
+			return fractionSet;
+		}
+
 		for (int i = 0; i < tokens.size(); i++) {
 			BaseToken token = tokens.get(i);
 
@@ -49,18 +49,36 @@ public class PersonTitleFSM {
 	// contains the finite state machines
 	private Set<Machine> iv_machineSet = new HashSet<Machine>();
 
+	// the machines compiled into transition tables, null to run them through
+	// the fsm library
+	private CompiledMachineSet iv_compiledMachines;
+
 	/**
 	 * 
 	 * Constructor
 	 * 
 	 */
 	public PersonTitleFSM() {
+		this(true);
+	}
+
+	/**
+	 * @param compile
+	 *            true to run the machines as compiled transition tables,
+	 *            false to run them through the fsm library
+	 */
+	public PersonTitleFSM(boolean compile) {
 		iv_fullTextSet.add("mr");
 		iv_fullTextSet.add("ms");
 		iv_fullTextSet.add("mrs");
 		iv_fullTextSet.add("dr");
 
 		iv_machineSet.add(getTitleMachine());
+
+		if (compile) {
+			iv_compiledMachines = CompiledMachineSet.compileOrNull(
+					iv_machineSet, false);
+		}
 	}
 
 	/**
@@ -107,6 +125,17 @@ public class PersonTitleFSM {
 		// key = fsm , value = token start index
 		Map<Machine, Integer> tokenStartMap = new HashMap<Machine, Integer>();
 
+		if (iv_compiledMachines != null) {
+			for (CompiledMachineSet.Match match : iv_compiledMachines
+					.execute(tokens)) {
+				BaseToken startToken = tokens.get(match.getStartIndex());
+				BaseToken endToken = tokens.get(match.getEndIndex());
+				personTitleSet.add(new PersonTitleToken(startToken.getStartOffset(),
+						endToken.getEndOffset()));
+			}
+			return personTitleSet;
+		}
+
 		for (int i = 0; i < tokens.size(); i++) {
 			BaseToken token = tokens.get(i);
 
@@ -18,6 +18,7 @@
  */
 package org.apache.ctakes.core.fsm.machine;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -51,12 +52,25 @@ public class RangeFSM {
 	// contains the finite state machines
 	private Set<Machine> iv_machineSet = new HashSet<Machine>();
 
+	// the machines compiled into transition tables, null to run them through
+	// the fsm library
+	private CompiledMachineSet iv_compiledMachines;
+
 	/**
 	 * 
 	 * Constructor
 	 * 
 	 */
 	public RangeFSM() {
+		this(true);
+	}
+
+	/**
+	 * @param compile
+	 *            true to run the machines as compiled transition tables,
+	 *            false to run them through the fsm library
+	 */
+	public RangeFSM(boolean compile) {
 		iv_textNumberSet.add("one");
 		iv_textNumberSet.add("two");
 		iv_textNumberSet.add("three");
@@ -69,6 +83,11 @@ public class RangeFSM {
 		iv_textNumberSet.add("ten");
 
 		iv_machineSet.add(getMachine());
+
+		if (compile) {
+			iv_compiledMachines = CompiledMachineSet.compileOrNull(
+					iv_machineSet, false);
+		}
 	}
 
 	/**
@@ -139,38 +158,24 @@ public class RangeFSM {
 		// key = fsm , value = token start index
 		Map<Machine, Integer> tokenStartMap = new HashMap<Machine, Integer>();
 
-		Iterator<? extends BaseToken> overrideTokenItr = overrideSet.iterator();
-		// key = start offset, value = override BaseToken object
-		Map<Integer, BaseToken> overrideTokenMap = new HashMap<Integer, BaseToken>();
-		while (overrideTokenItr.hasNext()) {
-			BaseToken t = overrideTokenItr.next();
-			Integer key = new Integer(t.getStartOffset());
-			overrideTokenMap.put(key, t);
-		}
-
-		boolean overrideOn = false;
-		int overrideEndOffset = -1;
-		for (int i = 0; i < tokens.size(); i++) {
-			BaseToken token = tokens.get(i);
+		List<BaseToken> inputs = getInputs(tokens, overrideSet);
 
-			Integer key = new Integer(token.getStartOffset());
+		if (iv_compiledMachines != null) {
+			for (CompiledMachineSet.Match match : iv_compiledMachines
+					.execute(inputs)) {
+				BaseToken startToken = tokens.get(match.getStartIndex());
+				BaseToken endToken = inputs.get(match.getEndIndex());
+				rangeSet.add(new RangeToken(startToken.getStartOffset(),
+						endToken.getEndOffset()));
+			}
+			return rangeSet;
+		}
 
-			if (overrideOn) {
-				if (token.getStartOffset() >= overrideEndOffset) {
-					overrideOn = false;
-					overrideEndOffset = -1;
-				} else {
-					// step to next iteration of for loop
-					continue;
-				}
-			} else {
-				if (overrideTokenMap.containsKey(key)) {
-					// override one or more tokens until the override
-					// token is complete
-					token = overrideTokenMap.get(key);
-					overrideOn = true;
-					overrideEndOffset = token.getEndOffset();
-				}
+		for (int i = 0; i < inputs.size(); i++) {
+			BaseToken token = inputs.get(i);
+			if (token == null) {
+				// covered by an override token
+				continue;
 			}
 
 			Iterator<Machine> machineItr = iv_machineSet.iterator();
@@ -217,4 +222,52 @@ public class RangeFSM {
 
 		return rangeSet;
 	}
+
+	/**
+	 * Replaces each token at which an override token starts with the override
+	 * token, and the tokens it covers with null.
+	 * 
+	 * @return tokens to feed to the machines, parallel to the given tokens
+	 */
+	private static List<BaseToken> getInputs(List<? extends BaseToken> tokens,
+			Set<? extends BaseToken> overrideSet) {
+		Iterator<? extends BaseToken> overrideTokenItr = overrideSet.iterator();
+		// key = start offset, value = override BaseToken object
+		Map<Integer, BaseToken> overrideTokenMap = new HashMap<Integer, BaseToken>();
+		while (overrideTokenItr.hasNext()) {
+			BaseToken t = overrideTokenItr.next();
+			Integer key = new Integer(t.getStartOffset());
+			overrideTokenMap.put(key, t);
+		}
+
+		List<BaseToken> inputs = new ArrayList<BaseToken>(tokens.size());
+		boolean overrideOn = false;
+		int overrideEndOffset = -1;
+		for (int i = 0; i < tokens.size(); i++) {
+			BaseToken token = tokens.get(i);
+
+			Integer key = new Integer(token.getStartOffset());
+
+			if (overrideOn) {
+				if (token.getStartOffset() >= overrideEndOffset) {
+					overrideOn = false;
+					overrideEndOffset = -1;
+				} else {
+					// step to next token
+					inputs.add(null);
+					continue;
+				}
+			} else {
+				if (overrideTokenMap.containsKey(key)) {
+					// override one or more tokens until the override
+					// token is complete
+					token = overrideTokenMap.get(key);
+					overrideOn = true;
+					overrideEndOffset = token.getEndOffset();
+				}
+			}
+			inputs.add(token);
+		}
+		return inputs;
+	}
 }
@@ -46,13 +46,31 @@ public class RomanNumeralFSM {
 	// contains the finite state machines
 	private Set<Machine> iv_machineSet = new HashSet<Machine>();
 
+	// the machines compiled into transition tables, null to run them through
+	// the fsm library
+	private CompiledMachineSet iv_compiledMachines;
+
 	/**
 	 * 
 	 * Constructor
 	 * 
 	 */
 	public RomanNumeralFSM() {
+		this(true);
+	}
+
+	/**
+	 * @param compile
+	 *            true to run the machines as compiled transition tables,
+	 *            false to run them through the fsm library
+	 */
+	public RomanNumeralFSM(boolean compile) {
 		iv_machineSet.add(getMachine());
+
+		if (compile) {
+			iv_compiledMachines = CompiledMachineSet.compileOrNull(
+					iv_machineSet, false);
+		}
 	}
 
 	/**
@@ -92,6 +110,17 @@ public class RomanNumeralFSM {
 		// key = fsm , value = token start index
 		Map<Machine, Integer> tokenStartMap = new HashMap<Machine, Integer>();
 
+		if (iv_compiledMachines != null) {
+			for (CompiledMachineSet.Match match : iv_compiledMachines
+					.execute(tokens)) {
+				BaseToken startToken = tokens.get(match.getStartIndex());
+				BaseToken endToken = tokens.get(match.getEndIndex());
+				romanNumeralSet.add(new RomanNumeralToken(startToken.getStartOffset(),
+						endToken.getEndOffset()));
+			}
+			return romanNumeralSet;
+		}
+
 		for (int i = 0; i < tokens.size(); i++) {
 			BaseToken token = tokens.get(i);
 
@@ -58,16 +58,34 @@ public class TimeFSM {
 	// contains the finite state machines
 	private Set<Machine> iv_machineSet = new HashSet<Machine>();
 
+	// the machines compiled into transition tables, null to run them through
+	// the fsm library
+	private CompiledMachineSet iv_compiledMachines;
+
 	/**
 	 * 
 	 * Constructor
 	 * 
 	 */
 	public TimeFSM() {
+		this(true);
+	}
+
+	/**
+	 * @param compile
+	 *            true to run the machines as compiled transition tables,
+	 *            false to run them through the fsm library
+	 */
+	public TimeFSM(boolean compile) {
 		iv_dayNightSet.add("am");
 		iv_dayNightSet.add("pm");
 
 		iv_machineSet.add(getMachine());
+
+		if (compile) {
+			iv_compiledMachines = CompiledMachineSet.compileOrNull(
+					iv_machineSet, false);
+		}
 	}
 
 	/**
@@ -136,6 +154,17 @@ public class TimeFSM {
 		// key = fsm , value = token start index
 		Map<Machine, Integer> tokenStartMap = new HashMap<Machine, Integer>();
 
+		if (iv_compiledMachines != null) {
+			for (CompiledMachineSet.Match match : iv_compiledMachines
+					.execute(tokens)) {
+				BaseToken startToken = tokens.get(match.getStartIndex());
+				BaseToken endToken = tokens.get(match.getEndIndex());
+				timeSet.add(new TimeToken(startToken.getStartOffset(),
+						endToken.getEndOffset()));
+			}
+			return timeSet;
+		}
+
 		for (int i = 0; i < tokens.size(); i++) {
 			BaseToken token = tokens.get(i);
 
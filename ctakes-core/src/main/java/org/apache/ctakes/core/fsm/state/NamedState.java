@@ -18,6 +18,11 @@
  */
 package org.apache.ctakes.core.fsm.state;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import net.openai.util.fsm.Condition;
 import net.openai.util.fsm.State;
 
 /**
@@ -28,10 +33,41 @@ import net.openai.util.fsm.State;
 @SuppressWarnings("serial")
 public class NamedState extends State {
 
+	// transitions in the order they were added, kept so that machines can be
+	// compiled into transition tables
+	private List<Condition> iv_conditions = new ArrayList<Condition>();
+	private List<State> iv_targetStates = new ArrayList<State>();
+
 	public NamedState(String name) {
 		setName(name);
 	}
 
+	/**
+	 * Adds the transition to the state and remembers it for
+	 * {@link #getTransitionConditions()} and {@link #getTransitionStates()}.
+	 */
+	public void addTransition(Condition condition, State state) {
+		super.addTransition(condition, state);
+		iv_conditions.add(condition);
+		iv_targetStates.add(state);
+	}
+
+	/**
+	 * @return conditions of the transitions out of this state, in the order
+	 *         they were added and are tested
+	 */
+	public List<Condition> getTransitionConditions() {
+		return Collections.unmodifiableList(iv_conditions);
+	}
+
+	/**
+	 * @return target states of the transitions out of this state, parallel to
+	 *         {@link #getTransitionConditions()}
+	 */
+	public List<State> getTransitionStates() {
+		return Collections.unmodifiableList(iv_targetStates);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
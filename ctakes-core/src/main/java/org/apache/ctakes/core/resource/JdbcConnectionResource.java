@@ -19,6 +19,8 @@
 package org.apache.ctakes.core.resource;
 
 import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
 
 /**
  * Resource for obtaining a JDBC database connection.
@@ -31,4 +33,17 @@ public interface JdbcConnectionResource
      * Gets the JDBC connection.
      */
     public Connection getConnection();
+
+    /**
+     * Opens a new JDBC connection to the same database, for use by another
+     * thread. The caller must close it.
+     * 
+     * @throws SQLFeatureNotSupportedException if the resource cannot open new
+     *             connections
+     */
+    default public Connection openConnection() throws SQLException
+    {
+        throw new SQLFeatureNotSupportedException(getClass().getName()
+                + " cannot open new connections");
+    }
 }
@@ -21,6 +21,7 @@ package org.apache.ctakes.core.resource;
 import java.lang.reflect.Field;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.SQLException;
 
 import org.apache.log4j.Logger;
 
@@ -76,6 +77,12 @@ public class JdbcConnectionResourceImpl implements JdbcConnectionResource,
     
 	private Connection iv_conn;
 
+	private String iv_driverClassName;
+	private String iv_urlStr;
+	private String iv_username;
+	private String iv_password;
+	private Integer iv_isolationLevel;
+
 	public void load(DataResource dr) throws ResourceInitializationException
 	{
 		ConfigurationParameterSettings cps = dr.getMetaData()
@@ -93,6 +100,11 @@ public class JdbcConnectionResourceImpl implements JdbcConnectionResource,
         
         String isolationStr = (String) cps.getParameterValue(PARAM_ISOLATION);
         
+        iv_driverClassName = driverClassName;
+        iv_urlStr = urlStr;
+        iv_username = username;
+        iv_password = password;
+        
 		try
 		{            
 			if (keepAlive.booleanValue())
@@ -123,6 +135,7 @@ public class JdbcConnectionResourceImpl implements JdbcConnectionResource,
                 iv_logger.info("Connection transaction isolation level set: " +
                         isolationStr + "(" + level +")");
                 iv_conn.setTransactionIsolation(level);
+                iv_isolationLevel = level;
             }            
 		}
 		catch (Exception e)
@@ -135,4 +148,25 @@ public class JdbcConnectionResourceImpl implements JdbcConnectionResource,
 	{
 		return iv_conn;
 	}
+
+	/**
+	 * Opens a plain connection with the same settings, without auto-reconnect.
+	 */
+	public Connection openConnection() throws SQLException
+	{
+		try
+		{
+			Class.forName(iv_driverClassName);
+		}
+		catch (ClassNotFoundException e)
+		{
+			throw new SQLException(e);
+		}
+		Connection conn = DriverManager.getConnection(iv_urlStr, iv_username, iv_password);
+		if (iv_isolationLevel != null)
+		{
+			conn.setTransactionIsolation(iv_isolationLevel);
+		}
+		return conn;
+	}
 }
\ No newline at end of file
@@ -0,0 +1,166 @@
+package org.apache.ctakes.core.util;
+
+import org.apache.log4j.Logger;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, least recently used cache of per-sentence model output keyed by the sentence's token sequence.
+ * <p>
+ * Clinical notes repeat a lot of templated text: headers, disclaimers, medication instructions.
+ * Sequence models such as the part of speech tagger, chunker and dependency parser give the same answer
+ * for the same input, so an annotator can look its input up here before running the model.
+ * Keys are compared on their full content, never on a hash alone, so a hit is always the exact input.
+ * <p>
+ * Caches are shared by name so that every pipeline thread (and every copy of an annotator) using the same model
+ * also uses the same cache.  The name should therefore identify the model as well as the annotator.
+ * Values must not be modified after they are put into the cache.
+ */
+@ThreadSafe
+final public class SentenceCache<V> {
+
+   static private final Logger LOGGER = Logger.getLogger( "SentenceCache" );
+
+   static private final Map<String, SentenceCache<?>> SHARED_CACHES = new HashMap<>();
+
+   private final String _name;
+   private final Map<Key, V> _cache;
+   private final AtomicLong _hits = new AtomicLong();
+   private final AtomicLong _misses = new AtomicLong();
+
+   /**
+    * @param name    name of the cache, used for logging
+    * @param maxSize maximum number of sentences held, the least recently used is dropped beyond that
+    */
+   public SentenceCache( final String name, final int maxSize ) {
+      _name = name;
+      _cache = new LinkedHashMap<Key, V>( Math.min( maxSize, 1024 ), 0.75f, true ) {
+         @Override
+         protected boolean removeEldestEntry( final Map.Entry<Key, V> eldest ) {
+            return size() > maxSize;
+         }
+      };
+   }
+
+   /**
+    * @param name    name of the cache, including the model path so that different models never share results
+    * @param maxSize maximum number of sentences held, only used when the cache is first created
+    * @param <V>     type of cached value
+    * @return the cache with the given name, or null if maxSize is not positive (caching disabled)
+    */
+   @SuppressWarnings( "unchecked" )
+   static public <V> SentenceCache<V> getSharedCache( final String name, final int maxSize ) {
+      if ( maxSize <= 0 ) {
+         return null;
+      }
+      synchronized ( SHARED_CACHES ) {
+         return (SentenceCache<V>)SHARED_CACHES.computeIfAbsent( name, n -> new SentenceCache<V>( n, maxSize ) );
+      }
+   }
+
+   /**
+    * @param tokens one or more aligned sequences describing the sentence, e.g. words, or words and tags
+    * @return a key for the sentence
+    */
+   static public Key createKey( final String[]... tokens ) {
+      return new Key( tokens );
+   }
+
+   /**
+    * @param key sentence key
+    * @return the cached value, or null if the sentence has not been seen
+    */
+   public V get( final Key key ) {
+      final V value;
+      synchronized ( _cache ) {
+         value = _cache.get( key );
+      }
+      if ( value == null ) {
+         _misses.incrementAndGet();
+      } else {
+         _hits.incrementAndGet();
+      }
+      return value;
+   }
+
+   /**
+    * @param key   sentence key
+    * @param value model output for the sentence, must not be modified afterwards
+    */
+   public void put( final Key key, final V value ) {
+      synchronized ( _cache ) {
+         _cache.put( key, value );
+      }
+   }
+
+   public long getHitCount() {
+      return _hits.get();
+   }
+
+   public long getMissCount() {
+      return _misses.get();
+   }
+
+   /**
+    * @return fraction of lookups that were hits, 0 if there have been no lookups
+    */
+   public double getHitRate() {
+      final long hits = _hits.get();
+      final long lookups = hits + _misses.get();
+      return lookups == 0 ? 0 : (double)hits / lookups;
+   }
+
+   public int size() {
+      synchronized ( _cache ) {
+         return _cache.size();
+      }
+   }
+
+   /**
+    * Log the hit rate at info level
+    */
+   public void logStatistics() {
+      LOGGER.info( toString() );
+   }
+
+   @Override
+   public String toString() {
+      return String.format( "%s sentence cache: %d hits, %d misses, hit rate %.1f%%, %d sentences held",
+            _name, getHitCount(), getMissCount(), 100 * getHitRate(), size() );
+   }
+
+
+   /**
+    * Sentence key holding its token sequences by value, with the hash computed once.
+    */
+   static public final class Key {
+      private final String[][] _tokens;
+      private final int _hashCode;
+
+      private Key( final String[][] tokens ) {
+         _tokens = new String[ tokens.length ][];
+         for ( int i = 0; i < tokens.length; i++ ) {
+            _tokens[ i ] = tokens[ i ].clone();
+         }
+         _hashCode = Arrays.deepHashCode( _tokens );
+      }
+
+      @Override
+      public int hashCode() {
+         return _hashCode;
+      }
+
+      @Override
+      public boolean equals( final Object other ) {
+         return other instanceof Key
+               && _hashCode == ((Key)other)._hashCode
+               && Arrays.deepEquals( _tokens, ((Key)other)._tokens );
+      }
+   }
+
+}
@@ -0,0 +1,157 @@
+package org.apache.ctakes.core.util.regex;
+
+import org.apache.log4j.Logger;
+
+import javax.annotation.concurrent.Immutable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Finds the matches of several regular expressions in a text with a single call on the calling thread.
+ * <p>
+ * {@link TimeoutMatcher} and {@link RegexSpanFinder} hand every find to another thread so that it can be abandoned
+ * at a timeout.  When a document is searched with dozens of patterns that thread hand-off is most of the cost.
+ * This finder instead reads the text through a deadline-checking {@link ThreadString}, so a runaway find breaks
+ * by itself and no thread is needed.  As with {@link TimeoutMatcher} the timeout applies to each find; a pattern
+ * that times out keeps the matches found before the timeout and the other patterns are still searched.
+ * <p>
+ * The patterns are not merged into one alternation: that would lose matches of one pattern that overlap matches of
+ * another, and named groups could not repeat across patterns.  Matches are returned grouped by pattern, in the order
+ * of the patterns, and in text order within each pattern - the same order as running each pattern in turn.
+ * <p>
+ * Instances hold no per-text state and can be shared by threads.
+ */
+final public class MultiRegexFinder {
+
+   static private final Logger LOGGER = Logger.getLogger( "MultiRegexFinder" );
+
+   static private final int DEFAULT_TIMEOUT_MILLIS = 1000;
+   static private final int MIN_TIMEOUT_MILLIS = 100;
+   static private final int MAX_TIMEOUT_MILLIS = 10000;
+
+   private final List<Pattern> _patterns;
+   private final String _groupName;
+   private final int _timeoutMillis;
+
+   /**
+    * Uses the default timeout of 1000 milliseconds per find
+    *
+    * @param patterns Patterns compiled from regular expressions
+    * @throws IllegalArgumentException if a pattern is null
+    */
+   public MultiRegexFinder( final List<Pattern> patterns ) throws IllegalArgumentException {
+      this( patterns, null, DEFAULT_TIMEOUT_MILLIS );
+   }
+
+   /**
+    * @param patterns      Patterns compiled from regular expressions
+    * @param groupName     name of a group to capture with each match, may be null.  Patterns need not define it.
+    * @param timeoutMillis milliseconds at which a single find should abort, between 100 and 10000
+    * @throws IllegalArgumentException if a pattern is null or the timeout is out of range
+    */
+   public MultiRegexFinder( final List<Pattern> patterns, final String groupName, final int timeoutMillis )
+         throws IllegalArgumentException {
+      if ( patterns.contains( null ) ) {
+         throw new PatternSyntaxException( "Pattern cannot be null", "", -1 );
+      }
+      if ( timeoutMillis < MIN_TIMEOUT_MILLIS || timeoutMillis > MAX_TIMEOUT_MILLIS ) {
+         throw new IllegalArgumentException( "Timeout must be between "
+                                             + MIN_TIMEOUT_MILLIS + " and " + MAX_TIMEOUT_MILLIS );
+      }
+      _patterns = Collections.unmodifiableList( new ArrayList<>( patterns ) );
+      _groupName = groupName;
+      _timeoutMillis = timeoutMillis;
+   }
+
+   /**
+    * @return the patterns, in the order used for {@link RegexMatch#getPatternIndex()}
+    */
+   public List<Pattern> getPatterns() {
+      return _patterns;
+   }
+
+   /**
+    * @param text text in which a find should be conducted
+    * @return all matches of all patterns, grouped by pattern in pattern order and in text order within a pattern
+    */
+   public List<RegexMatch> findMatches( final String text ) {
+      if ( text == null || text.isEmpty() || _patterns.isEmpty() ) {
+         return Collections.emptyList();
+      }
+      final ThreadString threadText = new ThreadString( text );
+      final List<RegexMatch> matches = new ArrayList<>();
+      for ( int i = 0; i < _patterns.size(); i++ ) {
+         final Pattern pattern = _patterns.get( i );
+         final Matcher matcher = pattern.matcher( threadText );
+         boolean hasGroup = _groupName != null;
+         try {
+            threadText.setTimeout( _timeoutMillis );
+            while ( matcher.find() ) {
+               String group = null;
+               if ( hasGroup ) {
+                  try {
+                     group = matcher.group( _groupName );
+                  } catch ( IllegalArgumentException iaE ) {
+                     // the pattern does not define the group, don't ask again
+                     hasGroup = false;
+                  }
+               }
+               matches.add( new RegexMatch( i, matcher.start(), matcher.end(), group ) );
+               threadText.setTimeout( _timeoutMillis );
+            }
+         } catch ( RuntimeException rtE ) {
+            if ( !ThreadString.isTimeout( rtE ) ) {
+               throw rtE;
+            }
+            LOGGER.error( "Timed out while detecting " + pattern );
+         }
+      }
+      return matches;
+   }
+
+
+   /**
+    * A single match of one of the patterns
+    */
+   @Immutable
+   static public final class RegexMatch {
+      private final int _patternIndex;
+      private final int _begin;
+      private final int _end;
+      private final String _group;
+
+      private RegexMatch( final int patternIndex, final int begin, final int end, final String group ) {
+         _patternIndex = patternIndex;
+         _begin = begin;
+         _end = end;
+         _group = group;
+      }
+
+      /**
+       * @return index of the matching pattern in the finder's list of patterns
+       */
+      public int getPatternIndex() {
+         return _patternIndex;
+      }
+
+      public int getBegin() {
+         return _begin;
+      }
+
+      public int getEnd() {
+         return _end;
+      }
+
+      /**
+       * @return text of the named group for this match, or null if the group was not matched or not defined
+       */
+      public String getGroup() {
+         return _group;
+      }
+   }
+
+}
@@ -0,0 +1,29 @@
+package org.apache.ctakes.core.util.regex;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread pool shared by the regex finders that run their finds on another thread.
+ * Creating an executor per finder started new threads for every pattern of every document.
+ * Threads are daemons, idle threads are dropped after a minute, and the pool is never shut down.
+ */
+final class RegexExecutor {
+
+   static private final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+   static private final ExecutorService EXECUTOR = Executors.newCachedThreadPool( r -> {
+      final Thread thread = new Thread( r, "RegexFinder-" + THREAD_COUNT.incrementAndGet() );
+      thread.setDaemon( true );
+      return thread;
+   } );
+
+   private RegexExecutor() {
+   }
+
+   static ExecutorService getInstance() {
+      return EXECUTOR;
+   }
+
+}
@@ -16,6 +16,7 @@ import java.util.regex.PatternSyntaxException;
 /**
  * Class that can / should be used to find text spans using regular expressions.
  * It runs Matcher find {@link Matcher#find()} in a separate thread so that it may be interrupted at a set timeout.
+ * The thread comes from a pool shared by all finders.
  * This prevents infinite loop problems that can be caused by poorly-built expressions or unexpected text contents.
  * The timeout can be specified in milliseconds between 100 and 10,000.  Large timeouts are unadvised.  If a large
  * amount of text needs to be parsed then it is better to split up the text logically and use smaller timeouts.
@@ -104,7 +105,7 @@ final public class RegexSpanFinder implements Closeable {
       }
       _pattern = pattern;
       _timeoutMillis = timeoutMillis;
-      _executor = Executors.newSingleThreadExecutor();
+      _executor = RegexExecutor.getInstance();
    }
 
 
@@ -136,12 +137,11 @@ final public class RegexSpanFinder implements Closeable {
    }
 
    /**
-    * shut down the executor
+    * The executor is shared, so there is nothing to shut down.  Kept so that existing try-with-resources usage works.
     * {@inheritDoc}
     */
    @Override
    public void close() {
-      _executor.shutdownNow();
    }
 
 
@@ -1,21 +1,54 @@
 package org.apache.ctakes.core.util.regex;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 /**
  * A representation of text that can check its container thread for interruptions.
  * This allows a break within tight charAt(..) calling loops, which can otherwise become infinite in a corrupt find.
+ * It can also be given a deadline, in which case a find running on the calling thread breaks once the deadline passes.
  */
 final class ThreadString implements CharSequence {
+   // the clock is only read every so many characters, reading it on every charAt(..) is too expensive
+   static private final int DEADLINE_CHECK_INTERVAL = 1024;
+
    private final CharSequence _delegate;
+   private long _deadline;
+   private boolean _hasDeadline;
+   private int _untilCheck = DEADLINE_CHECK_INTERVAL;
 
    ThreadString( final CharSequence delegate ) {
       _delegate = delegate;
    }
 
+   /**
+    * @param timeoutMillis milliseconds from now after which reading a character throws an exception
+    */
+   void setTimeout( final int timeoutMillis ) {
+      _deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos( timeoutMillis );
+      _hasDeadline = true;
+      _untilCheck = DEADLINE_CHECK_INTERVAL;
+   }
+
+   /**
+    * @param throwable some exception thrown during a find
+    * @return true if the exception was thrown because the deadline passed
+    */
+   static boolean isTimeout( final Throwable throwable ) {
+      return throwable instanceof RuntimeException && throwable.getCause() instanceof TimeoutException;
+   }
+
    @Override
    public char charAt( final int index ) {
       if ( Thread.currentThread().isInterrupted() ) {
          throw new RuntimeException( new InterruptedException() );
       }
+      if ( _hasDeadline && --_untilCheck <= 0 ) {
+         _untilCheck = DEADLINE_CHECK_INTERVAL;
+         if ( System.nanoTime() - _deadline > 0 ) {
+            throw new RuntimeException( new TimeoutException() );
+         }
+      }
       return _delegate.charAt( index );
    }
 
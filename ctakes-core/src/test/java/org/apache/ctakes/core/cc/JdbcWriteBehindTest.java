@@ -0,0 +1,180 @@
+package org.apache.ctakes.core.cc;
+
+import org.apache.ctakes.core.cc.AbstractJdbcWriter.FieldInfo;
+import org.apache.ctakes.core.cc.AbstractJdbcWriter.TableInfo;
+import org.apache.log4j.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.*;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Writes rows behind to an in-memory hsqldb table at several batch sizes, logging the throughput,
+ * and checks flush, the flush interval and a failed batch.
+ */
+public class JdbcWriteBehindTest {
+
+   static private final Logger LOGGER = Logger.getLogger( "JdbcWriteBehindTest" );
+
+   static private final String TABLE_NAME = "NLP_ROWS";
+   static private final int ROW_COUNT = 20000;
+
+   private enum RowField implements FieldInfo {
+      ROW_ID( 1, "row_id", Integer.class ),
+      CONCEPT_CD( 2, "concept_cd", String.class ),
+      TVAL_CHAR( 3, "tval_char", String.class );
+      final private String __name;
+      final private int __index;
+      final private Class<?> __class;
+
+      RowField( final int index, final String name, final Class<?> valueClass ) {
+         __name = name;
+         __index = index;
+         __class = valueClass;
+      }
+
+      @Override
+      public String getFieldName() {
+         return __name;
+      }
+
+      @Override
+      public int getFieldIndex() {
+         return __index;
+      }
+
+      @Override
+      public Class<?> getValueClass() {
+         return __class;
+      }
+   }
+
+   static private final TableInfo TABLE_INFO = new TableInfo() {
+      @Override
+      public String getTableName() {
+         return TABLE_NAME;
+      }
+
+      @Override
+      public FieldInfo[] getFieldInfos() {
+         return RowField.values();
+      }
+   };
+
+   static private int _databaseCount = 0;
+
+   private Connection _connection;
+
+   @Before
+   public void createDatabase() throws Exception {
+      Class.forName( "org.hsqldb.jdbc.JDBCDriver" );
+      _connection = DriverManager.getConnection( "jdbc:hsqldb:mem:writebehind" + ( _databaseCount++ ), "SA", "" );
+      try ( Statement statement = _connection.createStatement() ) {
+         statement.execute( "CREATE TABLE " + TABLE_NAME
+                            + " ( row_id INTEGER PRIMARY KEY, concept_cd VARCHAR(50), tval_char VARCHAR(255) )" );
+      }
+   }
+
+   @After
+   public void dropDatabase() throws SQLException {
+      try ( Statement statement = _connection.createStatement() ) {
+         statement.execute( "SHUTDOWN" );
+      }
+   }
+
+   private int countRows() throws SQLException {
+      try ( Statement statement = _connection.createStatement();
+            ResultSet resultSet = statement.executeQuery( "SELECT COUNT(*) FROM " + TABLE_NAME ) ) {
+         resultSet.next();
+         return resultSet.getInt( 1 );
+      }
+   }
+
+   private void clearRows() throws SQLException {
+      try ( Statement statement = _connection.createStatement() ) {
+         statement.execute( "DELETE FROM " + TABLE_NAME );
+      }
+   }
+
+   static private void writeRows( final JdbcWriteBehind writeBehind, final int firstRowId, final int rowCount )
+         throws SQLException {
+      // like JdbcWriterTemplate the map is reused for every row
+      final Map<RowField, Object> fieldValues = new EnumMap<>( RowField.class );
+      for ( int i = firstRowId; i < firstRowId + rowCount; i++ ) {
+         fieldValues.put( RowField.ROW_ID, i );
+         fieldValues.put( RowField.CONCEPT_CD, "C" + ( i % 1000 ) );
+         fieldValues.put( RowField.TVAL_CHAR, "Preferred text of row " + i );
+         writeBehind.write( TABLE_NAME, fieldValues );
+      }
+   }
+
+   @Test
+   public void testThroughputByBatchSize() throws SQLException {
+      for ( int batchSize : new int[] { 1, 10, 100, 1000 } ) {
+         clearRows();
+         final long start = System.nanoTime();
+         final JdbcWriteBehind writeBehind
+               = new JdbcWriteBehind( _connection, Collections.singletonList( TABLE_INFO ), batchSize, 1000, 1000 );
+         writeRows( writeBehind, 0, ROW_COUNT );
+         writeBehind.close();
+         final long millis = Math.max( 1, ( System.nanoTime() - start ) / 1000000 );
+         LOGGER.info( "Batch size " + batchSize + " : " + ROW_COUNT + " rows in " + millis + " ms , "
+                      + ( ROW_COUNT * 1000L / millis ) + " rows per second" );
+         assertEquals( "All rows should be written on close with batch size " + batchSize,
+               ROW_COUNT, countRows() );
+      }
+   }
+
+   @Test
+   public void testFlush() throws SQLException {
+      final JdbcWriteBehind writeBehind
+            = new JdbcWriteBehind( _connection, Collections.singletonList( TABLE_INFO ), 1000, 0, 10 );
+      writeRows( writeBehind, 0, 25 );
+      writeBehind.flush();
+      assertEquals( 25, countRows() );
+      writeRows( writeBehind, 25, 5 );
+      writeBehind.close();
+      assertEquals( 30, countRows() );
+   }
+
+   @Test
+   public void testFlushInterval() throws Exception {
+      final JdbcWriteBehind writeBehind
+            = new JdbcWriteBehind( _connection, Collections.singletonList( TABLE_INFO ), 1000, 20, 100 );
+      writeRows( writeBehind, 0, 3 );
+      final long timeout = System.currentTimeMillis() + 10000;
+      while ( countRows() < 3 && System.currentTimeMillis() < timeout ) {
+         Thread.sleep( 10 );
+      }
+      assertEquals( "Rows should be written after the flush interval", 3, countRows() );
+      writeBehind.close();
+   }
+
+   @Test
+   public void testWriteException() throws SQLException {
+      final JdbcWriteBehind writeBehind
+            = new JdbcWriteBehind( _connection, Collections.singletonList( TABLE_INFO ), 10, 0, 10 );
+      writeRows( writeBehind, 0, 5 );
+      // duplicate primary keys
+      writeRows( writeBehind, 0, 5 );
+      try {
+         writeBehind.close();
+         fail( "Duplicate rows should throw on close" );
+      } catch ( SQLException sqlE ) {
+         // expected
+      }
+      try {
+         writeRows( writeBehind, 100, 1 );
+         fail( "Rows should not be written after close" );
+      } catch ( SQLException sqlE ) {
+         // expected
+      }
+   }
+
+}
@@ -0,0 +1,185 @@
+package org.apache.ctakes.core.cr;
+
+import org.apache.ctakes.core.resource.JdbcConnectionResource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.*;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Reads key ranges of an in-memory database, on their own connections and on a shared one, and restarts reads
+ * from checkpoints.
+ */
+public class JdbcKeyRangeReaderTest {
+
+   static private final String SQL = "SELECT ID, NOTE, SITE FROM NOTES";
+   static private final int ROW_COUNT = 250;
+
+   static private int _databaseCount = 0;
+
+   private String _url;
+   private Connection _connection;
+   private File _checkpointFile;
+
+   @Before
+   public void createDatabase() throws Exception {
+      Class.forName( "org.hsqldb.jdbc.JDBCDriver" );
+      _url = "jdbc:hsqldb:mem:keyrange" + ( _databaseCount++ );
+      _connection = DriverManager.getConnection( _url, "SA", "" );
+      try ( Statement statement = _connection.createStatement() ) {
+         statement.execute( "CREATE TABLE NOTES ( ID INTEGER PRIMARY KEY, NOTE CLOB, SITE VARCHAR(10) )" );
+      }
+      try ( PreparedStatement insert = _connection.prepareStatement( "INSERT INTO NOTES VALUES ( ?, ?, ? )" ) ) {
+         for ( int i = 0; i < ROW_COUNT; i++ ) {
+            // keys with gaps
+            insert.setInt( 1, i * 3 + 7 );
+            insert.setString( 2, "Note " + i + "\r\nsecond line" );
+            insert.setString( 3, "site" + ( i % 2 ) );
+            insert.executeUpdate();
+         }
+      }
+      _checkpointFile = File.createTempFile( "JdbcKeyRangeReader", ".checkpoint" );
+      _checkpointFile.delete();
+   }
+
+   @After
+   public void dropDatabase() throws SQLException {
+      try ( Statement statement = _connection.createStatement() ) {
+         statement.execute( "SHUTDOWN" );
+      }
+      _checkpointFile.delete();
+   }
+
+   private JdbcConnectionResource createResource( final boolean canOpen ) {
+      return new JdbcConnectionResource() {
+         @Override
+         public Connection getConnection() {
+            return _connection;
+         }
+
+         @Override
+         public Connection openConnection() throws SQLException {
+            if ( !canOpen ) {
+               return JdbcConnectionResource.super.openConnection();
+            }
+            return DriverManager.getConnection( _url, "SA", "" );
+         }
+      };
+   }
+
+   static private Map<Long, JdbcKeyRangeReader.Row> readRows( final JdbcKeyRangeReader reader, final int maxCount )
+         throws IOException {
+      return readRows( reader, maxCount, maxCount );
+   }
+
+   /**
+    * @param markedCount number of rows to mark read, the rows after them are only taken
+    */
+   static private Map<Long, JdbcKeyRangeReader.Row> readRows( final JdbcKeyRangeReader reader, final int maxCount,
+                                                              final int markedCount ) throws IOException {
+      final Map<Long, JdbcKeyRangeReader.Row> rows = new HashMap<>();
+      JdbcKeyRangeReader.Row row = reader.next();
+      while ( row != null ) {
+         assertNull( "Key " + row.getKey() + " should be read once", rows.put( row.getKey(), row ) );
+         if ( rows.size() <= markedCount ) {
+            reader.setRead( row );
+         }
+         if ( rows.size() == maxCount ) {
+            break;
+         }
+         row = reader.next();
+      }
+      return rows;
+   }
+
+   @Test
+   public void testReadKeyRanges() throws Exception {
+      final JdbcKeyRangeReader reader
+            = new JdbcKeyRangeReader( SQL, "ID", "NOTE", new String[] { "SITE", "ID" }, "_", 10, 5, null );
+      reader.start( createResource( true ), 4 );
+      final Map<Long, JdbcKeyRangeReader.Row> rows = readRows( reader, Integer.MAX_VALUE );
+      reader.close();
+      assertEquals( ROW_COUNT, rows.size() );
+      final JdbcKeyRangeReader.Row row = rows.get( 10L );
+      assertEquals( "Clob lines should end with newlines", "Note 1\nsecond line\n", row.getText() );
+      assertEquals( "site1_10", row.getDocumentId() );
+   }
+
+   @Test
+   public void testReadOnSharedConnection() throws Exception {
+      final JdbcKeyRangeReader reader = new JdbcKeyRangeReader( SQL, "ID", "NOTE", null, "_", 0, 5, null );
+      reader.start( createResource( false ), 3 );
+      final Map<Long, JdbcKeyRangeReader.Row> rows = readRows( reader, Integer.MAX_VALUE );
+      reader.close();
+      assertEquals( ROW_COUNT, rows.size() );
+      assertEquals( "The key should be the default document id", "7", rows.get( 7L ).getDocumentId() );
+   }
+
+   @Test
+   public void testRestartFromCheckpoint() throws Exception {
+      final JdbcKeyRangeReader first
+            = new JdbcKeyRangeReader( SQL, "ID", "NOTE", null, "_", 10, 5, _checkpointFile );
+      first.start( createResource( true ), 4 );
+      final Map<Long, JdbcKeyRangeReader.Row> firstRows = readRows( first, 130 );
+      first.close();
+      assertTrue( "Checkpoint should be saved on close", _checkpointFile.isFile() );
+
+      final JdbcKeyRangeReader second
+            = new JdbcKeyRangeReader( SQL, "ID", "NOTE", null, "_", 10, 5, _checkpointFile );
+      second.start( createResource( true ), 4 );
+      final Map<Long, JdbcKeyRangeReader.Row> secondRows = readRows( second, Integer.MAX_VALUE );
+      second.close();
+      assertEquals( 130, firstRows.size() );
+      assertEquals( ROW_COUNT - 130, secondRows.size() );
+      final Set<Long> allKeys = new HashSet<>( firstRows.keySet() );
+      allKeys.addAll( secondRows.keySet() );
+      assertEquals( "The restarted run should read exactly the unread rows", ROW_COUNT, allKeys.size() );
+   }
+
+   @Test
+   public void testUnmarkedRowsAreReadAgain() throws Exception {
+      final JdbcKeyRangeReader first
+            = new JdbcKeyRangeReader( SQL, "ID", "NOTE", null, "_", 10, 5, _checkpointFile );
+      first.start( createResource( true ), 4 );
+      // rows taken from the reader but never processed, as when a pipeline fails
+      final Map<Long, JdbcKeyRangeReader.Row> firstRows = readRows( first, 130, 100 );
+      first.close();
+      assertEquals( 130, firstRows.size() );
+
+      final JdbcKeyRangeReader second
+            = new JdbcKeyRangeReader( SQL, "ID", "NOTE", null, "_", 10, 5, _checkpointFile );
+      second.start( createResource( true ), 4 );
+      final Map<Long, JdbcKeyRangeReader.Row> secondRows = readRows( second, Integer.MAX_VALUE );
+      second.close();
+      assertEquals( ROW_COUNT - 100, secondRows.size() );
+      final Set<Long> allKeys = new HashSet<>( firstRows.keySet() );
+      allKeys.addAll( secondRows.keySet() );
+      assertEquals( ROW_COUNT, allKeys.size() );
+   }
+
+   @Test
+   public void testEmptyQuery() throws Exception {
+      final JdbcKeyRangeReader reader
+            = new JdbcKeyRangeReader( SQL + " WHERE ID < 0", "ID", "NOTE", null, "_", 0, 5, null );
+      reader.start( createResource( true ), 4 );
+      assertNull( reader.next() );
+      reader.close();
+   }
+
+   @Test
+   public void testReadText() throws IOException {
+      assertEquals( "", JdbcKeyRangeReader.readText( new StringReader( "" ) ) );
+      assertEquals( "a\n", JdbcKeyRangeReader.readText( new StringReader( "a" ) ) );
+      assertEquals( "a\n", JdbcKeyRangeReader.readText( new StringReader( "a\n" ) ) );
+      assertEquals( "a\n\nb\n", JdbcKeyRangeReader.readText( new StringReader( "a\r\n\rb" ) ) );
+      assertEquals( "\n", JdbcKeyRangeReader.readText( new StringReader( "\n" ) ) );
+   }
+
+}
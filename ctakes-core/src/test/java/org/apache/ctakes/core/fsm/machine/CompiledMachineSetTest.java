@@ -0,0 +1,208 @@
+package org.apache.ctakes.core.fsm.machine;
+
+import org.apache.ctakes.core.fsm.token.BaseToken;
+import org.apache.ctakes.core.fsm.token.IntegerToken;
+import org.apache.ctakes.core.fsm.token.PunctuationToken;
+import org.apache.ctakes.core.fsm.token.WordToken;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that the compiled machines find the same spans as the machines run through the fsm library.
+ */
+public class CompiledMachineSetTest {
+
+   static private final String[] TEXTS = {
+         "Seen on 12/03/2009 and again on March 4, 2010 at 10:30 am.",
+         "Follow up 3/4/10, 2 1/2 weeks after the 11-12 mm lesion was found.",
+         "Mr. Smith and Dr. Jones took 2-3 tablets of 5 mg twice a day for iv weeks.",
+         "BP 120/80 , pulse 72 , temp 98.6 , stage III , grade ii .",
+         "Jan 5 , 2004 , 4 pm , 1/2 tab , 10 ml , 3 to 4 times , Mrs. Doe",
+         "",
+   };
+
+   @Test
+   public void testDateFSM() throws Exception {
+      for ( String text : TEXTS ) {
+         final List<BaseToken> tokens = tokenize( text );
+         assertEquals( text,
+               spans( new DateFSM( false ).execute( tokens ) ),
+               spans( new DateFSM( true ).execute( tokens ) ) );
+      }
+   }
+
+   @Test
+   public void testTimeFSM() throws Exception {
+      for ( String text : TEXTS ) {
+         final List<BaseToken> tokens = tokenize( text );
+         assertEquals( text,
+               spans( new TimeFSM( false ).execute( tokens ) ),
+               spans( new TimeFSM( true ).execute( tokens ) ) );
+      }
+   }
+
+   @Test
+   public void testFractionFSM() throws Exception {
+      for ( String text : TEXTS ) {
+         final List<BaseToken> tokens = tokenize( text );
+         assertEquals( text,
+               spans( new FractionFSM( false ).execute( tokens ) ),
+               spans( new FractionFSM( true ).execute( tokens ) ) );
+      }
+   }
+
+   @Test
+   public void testRomanNumeralFSM() throws Exception {
+      for ( String text : TEXTS ) {
+         final List<BaseToken> tokens = tokenize( text );
+         assertEquals( text,
+               spans( new RomanNumeralFSM( false ).execute( tokens ) ),
+               spans( new RomanNumeralFSM( true ).execute( tokens ) ) );
+      }
+   }
+
+   @Test
+   public void testRangeFSM() throws Exception {
+      for ( String text : TEXTS ) {
+         final List<BaseToken> tokens = tokenize( text );
+         assertEquals( text,
+               spans( new RangeFSM( false ).execute( tokens, Collections.<BaseToken>emptySet() ) ),
+               spans( new RangeFSM( true ).execute( tokens, Collections.<BaseToken>emptySet() ) ) );
+      }
+   }
+
+   @Test
+   public void testMeasurementFSM() throws Exception {
+      for ( String text : TEXTS ) {
+         final List<BaseToken> tokens = tokenize( text );
+         // ranges override the tokens they cover, as in the context dependent tokenizer
+         final RangeFSM rangeFSM = new RangeFSM( false );
+         final HashSet<BaseToken> overrides
+               = new HashSet<BaseToken>( rangeFSM.execute( tokens, Collections.<BaseToken>emptySet() ) );
+         assertEquals( text,
+               spans( new MeasurementFSM( false ).execute( tokens, overrides ) ),
+               spans( new MeasurementFSM( true ).execute( tokens, overrides ) ) );
+      }
+   }
+
+   @Test
+   public void testPersonTitleFSM() throws Exception {
+      for ( String text : TEXTS ) {
+         final List<BaseToken> tokens = tokenize( text );
+         assertEquals( text,
+               spans( new PersonTitleFSM( false ).execute( tokens ) ),
+               spans( new PersonTitleFSM( true ).execute( tokens ) ) );
+      }
+   }
+
+   static private List<String> spans( final Collection<? extends BaseToken> tokens ) {
+      final List<String> spans = new ArrayList<>();
+      for ( BaseToken token : tokens ) {
+         spans.add( token.getStartOffset() + "," + token.getEndOffset() );
+      }
+      Collections.sort( spans );
+      return spans;
+   }
+
+   static private final Pattern TOKEN_PATTERN = Pattern.compile( "\\d+|[A-Za-z]+|\\S" );
+
+   static private List<BaseToken> tokenize( final String text ) {
+      final List<BaseToken> tokens = new ArrayList<>();
+      final Matcher matcher = TOKEN_PATTERN.matcher( text );
+      while ( matcher.find() ) {
+         final String word = matcher.group();
+         final int begin = matcher.start();
+         final int end = matcher.end();
+         if ( Character.isDigit( word.charAt( 0 ) ) ) {
+            tokens.add( new TestIntegerToken( begin, end, Long.parseLong( word ) ) );
+         } else if ( Character.isLetter( word.charAt( 0 ) ) ) {
+            tokens.add( new TestWordToken( begin, end, word ) );
+         } else {
+            tokens.add( new TestPunctuationToken( begin, end, word.charAt( 0 ) ) );
+         }
+      }
+      return tokens;
+   }
+
+   static private class TestToken implements BaseToken {
+      private final int _begin;
+      private final int _end;
+
+      private TestToken( final int begin, final int end ) {
+         _begin = begin;
+         _end = end;
+      }
+
+      @Override
+      public int getStartOffset() {
+         return _begin;
+      }
+
+      @Override
+      public int getEndOffset() {
+         return _end;
+      }
+   }
+
+   static private final class TestWordToken extends TestToken implements WordToken {
+      private final String _text;
+
+      private TestWordToken( final int begin, final int end, final String text ) {
+         super( begin, end );
+         _text = text;
+      }
+
+      @Override
+      public String getText() {
+         return _text;
+      }
+
+      @Override
+      public byte getCaps() {
+         return Character.isUpperCase( _text.charAt( 0 ) ) ? CAPS_FIRST_ONLY : CAPS_NONE;
+      }
+
+      @Override
+      public byte getNumPosition() {
+         return NUM_NONE;
+      }
+   }
+
+   static private final class TestIntegerToken extends TestToken implements IntegerToken {
+      private final long _value;
+
+      private TestIntegerToken( final int begin, final int end, final long value ) {
+         super( begin, end );
+         _value = value;
+      }
+
+      @Override
+      public long getValue() {
+         return _value;
+      }
+   }
+
+   static private final class TestPunctuationToken extends TestToken implements PunctuationToken {
+      private final char _char;
+
+      private TestPunctuationToken( final int begin, final int end, final char c ) {
+         super( begin, end );
+         _char = c;
+      }
+
+      @Override
+      public char getChar() {
+         return _char;
+      }
+   }
+
+}
@@ -0,0 +1,54 @@
+package org.apache.ctakes.core.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SentenceCacheTest {
+
+   static private final String[] WORDS = { "Take", "one", "tablet", "daily", "." };
+   static private final String[] TAGS = { "VB", "CD", "NN", "RB", "." };
+
+   @Test
+   public void testHitsAndMisses() {
+      final SentenceCache<String[]> cache = new SentenceCache<>( "test", 10 );
+      assertNull( cache.get( SentenceCache.createKey( WORDS ) ) );
+      cache.put( SentenceCache.createKey( WORDS ), TAGS );
+      // a new but equal token sequence hits
+      assertArrayEquals( TAGS, cache.get( SentenceCache.createKey( WORDS.clone() ) ) );
+      // the same words with different extra input do not
+      assertNull( cache.get( SentenceCache.createKey( WORDS, TAGS ) ) );
+      assertEquals( 1, cache.getHitCount() );
+      assertEquals( 2, cache.getMissCount() );
+      assertEquals( 1d / 3, cache.getHitRate(), 0.0001 );
+   }
+
+   @Test
+   public void testKeyCopiesTokens() {
+      final SentenceCache<String> cache = new SentenceCache<>( "test", 10 );
+      final String[] words = WORDS.clone();
+      cache.put( SentenceCache.createKey( words ), "value" );
+      words[ 0 ] = "Skip";
+      assertEquals( "value", cache.get( SentenceCache.createKey( WORDS ) ) );
+   }
+
+   @Test
+   public void testLeastRecentlyUsedIsDropped() {
+      final SentenceCache<String> cache = new SentenceCache<>( "test", 2 );
+      cache.put( SentenceCache.createKey( new String[]{ "a" } ), "a" );
+      cache.put( SentenceCache.createKey( new String[]{ "b" } ), "b" );
+      cache.get( SentenceCache.createKey( new String[]{ "a" } ) );
+      cache.put( SentenceCache.createKey( new String[]{ "c" } ), "c" );
+      assertEquals( 2, cache.size() );
+      assertEquals( "a", cache.get( SentenceCache.createKey( new String[]{ "a" } ) ) );
+      assertNull( cache.get( SentenceCache.createKey( new String[]{ "b" } ) ) );
+   }
+
+   @Test
+   public void testSharedByName() {
+      final SentenceCache<String> cache = SentenceCache.getSharedCache( "SentenceCacheTest", 5 );
+      assertSame( cache, SentenceCache.getSharedCache( "SentenceCacheTest", 5 ) );
+      assertNull( SentenceCache.getSharedCache( "SentenceCacheTest disabled", 0 ) );
+   }
+
+}
@@ -0,0 +1,58 @@
+package org.apache.ctakes.core.util.regex;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MultiRegexFinderTest {
+
+   static private final String TEXT = "History:\nnone\nMedications:\naspirin\nEnd of note";
+
+   @Test
+   public void testMatchesInPatternOrder() {
+      final MultiRegexFinder finder = new MultiRegexFinder( Arrays.asList(
+            Pattern.compile( "^(?<name>[A-Za-z]+):$", Pattern.MULTILINE ),
+            Pattern.compile( "^End of note$", Pattern.MULTILINE ) ), "name", 1000 );
+      final List<MultiRegexFinder.RegexMatch> matches = finder.findMatches( TEXT );
+      assertEquals( 3, matches.size() );
+      assertEquals( 0, matches.get( 0 ).getPatternIndex() );
+      assertEquals( "History", matches.get( 0 ).getGroup() );
+      assertEquals( 0, matches.get( 0 ).getBegin() );
+      assertEquals( 8, matches.get( 0 ).getEnd() );
+      assertEquals( "Medications", matches.get( 1 ).getGroup() );
+      assertEquals( 1, matches.get( 2 ).getPatternIndex() );
+      assertNull( matches.get( 2 ).getGroup() );
+      assertEquals( TEXT.length(), matches.get( 2 ).getEnd() );
+   }
+
+   @Test
+   public void testOverlappingMatchesOfDifferentPatterns() {
+      final MultiRegexFinder finder = new MultiRegexFinder( Arrays.asList(
+            Pattern.compile( "Medications" ), Pattern.compile( "Medications:\\s+aspirin" ) ) );
+      assertEquals( 2, finder.findMatches( TEXT ).size() );
+   }
+
+   @Test
+   public void testTimeout() {
+      final StringBuilder sb = new StringBuilder();
+      for ( int i = 0; i < 40; i++ ) {
+         sb.append( 'a' );
+      }
+      final String text = "aa!" + sb.toString();
+      // the first pattern backtracks catastrophically, the second must still be searched
+      final MultiRegexFinder finder = new MultiRegexFinder( Arrays.asList(
+            Pattern.compile( "(a+)+b" ), Pattern.compile( "aa!" ) ), null, 100 );
+      final long start = System.currentTimeMillis();
+      final List<MultiRegexFinder.RegexMatch> matches = finder.findMatches( text );
+      assertTrue( System.currentTimeMillis() - start < 5000 );
+      assertEquals( 1, matches.size() );
+      assertEquals( 1, matches.get( 0 ).getPatternIndex() );
+   }
+
+}
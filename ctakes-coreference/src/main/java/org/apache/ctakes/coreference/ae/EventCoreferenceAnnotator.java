@@ -520,6 +520,15 @@ public class EventCoreferenceAnnotator extends RelationExtractorAnnotator {
     return category;
   }
   
+  /**
+   * createRelation() reads the score of the last classify() call and the anaphors linked so far,
+   * so pairs have to be classified and linked one at a time.
+   */
+  @Override
+  protected boolean isBatchClassification() {
+    return false;
+  }
+
   @Override
   protected Class<? extends Annotation> getCoveringClass() {
     return Segment.class;
@@ -9,6 +9,7 @@ import org.apache.ctakes.coreference.ae.pairing.cluster.*;
 import org.apache.ctakes.coreference.util.ClusterMentionFetcher;
 import org.apache.ctakes.coreference.util.MarkableCacheRelationExtractor;
 import org.apache.ctakes.coreference.util.MarkableUtilities;
+import org.apache.ctakes.coreference.util.MentionCandidateIndex;
 import org.apache.ctakes.dependency.parser.util.DependencyUtility;
 import org.apache.ctakes.relationextractor.ae.features.RelationFeaturesExtractor;
 import org.apache.ctakes.relationextractor.eval.RelationExtractorEvaluation.HashableArguments;
@@ -132,6 +133,8 @@ public class MentionClusterCoreferenceAnnotator extends CleartkAnnotator<String>
   private List<RelationFeaturesExtractor<CollectionTextRelation,IdentifiedAnnotation>> relationExtractors = this.getFeatureExtractors();
   private List<FeatureExtractor1<Markable>> mentionExtractors = this.getMentionExtractors();
   private List<ClusterMentionPairer_ImplBase> pairExtractors = this.getPairExtractors();
+  // clusters of the document being processed, kept up to date as mentions are linked
+  private MentionCandidateIndex candidateIndex = null;
 
 //  private Set<String> markableStrings = null;
 
@@ -202,9 +205,12 @@ public class MentionClusterCoreferenceAnnotator extends CleartkAnnotator<String>
   }
 
   private void resetPairers(JCas jcas, Map<Markable,ConllDependencyNode> cache){
+    // one candidate index per document, shared by all pairers
+    candidateIndex = new MentionCandidateIndex(jcas, cache);
     for(ClusterMentionPairer_ImplBase pairer : this.pairExtractors){
       pairer.reset(jcas);
       pairer.setCache(cache);
+      pairer.setCandidateIndex(candidateIndex);
     }
   }
 
@@ -377,10 +383,12 @@ public class MentionClusterCoreferenceAnnotator extends CleartkAnnotator<String>
           chain.addToIndexes();
           list.addToIndexes();
           list.getTail().addToIndexes();
+          candidateIndex.addCluster( chain );
         }
       }
     }
 
+    candidateIndex = null;
     removeSingletonClusters( jCas );
 
     createEventClusters( jCas );
@@ -456,6 +464,9 @@ public class MentionClusterCoreferenceAnnotator extends CleartkAnnotator<String>
 //    RelationArgument arg = new RelationArgument(jCas);
 //    arg.setArgument(mention);
     ListFactory.append(jCas, cluster.getMembers(), mention);
+    if(candidateIndex != null){
+      candidateIndex.addMember(cluster, mention);
+    }
   }
 
   /**
@@ -3,12 +3,11 @@ package org.apache.ctakes.coreference.ae.pairing.cluster;
 //import org.apache.ctakes.coreference.ae.MentionClusterCoreferenceAnnotator.CollectionTextRelationIdentifiedAnnotationPair;
 import org.apache.ctakes.coreference.ae.pairing.AnnotationPairer;
 import org.apache.ctakes.coreference.util.MarkableCacheRelationExtractor;
+import org.apache.ctakes.coreference.util.MentionCandidateIndex;
 import org.apache.ctakes.dependency.parser.util.DependencyUtility;
 import org.apache.ctakes.typesystem.type.relation.CollectionTextRelation;
 import org.apache.ctakes.typesystem.type.syntax.ConllDependencyNode;
-import org.apache.ctakes.typesystem.type.textsem.IdentifiedAnnotation;
 import org.apache.ctakes.typesystem.type.textsem.Markable;
-import org.apache.uima.fit.util.JCasUtil;
 import org.apache.uima.jcas.JCas;
 import org.apache.uima.jcas.tcas.Annotation;
 
@@ -20,56 +19,24 @@ import static org.apache.ctakes.coreference.util.ClusterMentionFetcher.Collectio
 
 public abstract class ClusterMentionPairer_ImplBase implements AnnotationPairer<Markable, CollectionTextRelationIdentifiedAnnotationPair>, MarkableCacheRelationExtractor {
   public abstract List<CollectionTextRelationIdentifiedAnnotationPair> getPairs(JCas jcas, Markable m);
-  private Map<ConllDependencyNode,Collection<IdentifiedAnnotation>> nodeEntMap = null;
   private Map<Markable,ConllDependencyNode> cache = null;
+  private MentionCandidateIndex candidateIndex = null;
 
   @Override
   public void reset(JCas jcas){
-    nodeEntMap = JCasUtil.indexCovering(jcas, ConllDependencyNode.class, IdentifiedAnnotation.class);
+    // a new document gets a new candidate index
+    candidateIndex = null;
   }
   
+  /**
+   * @return the union of the semantic types of the cluster members, from the summary kept by the candidate index
+   */
   public Set<String> getBestEnt(JCas jcas, CollectionTextRelation cluster){
-    Set<String> semTypes = new HashSet<>();
-    for(Markable member : JCasUtil.select(cluster.getMembers(), Markable.class)){
-      semTypes.addAll(getBestEnt(jcas, member));
-    }
-    return semTypes;
+    return getCandidateIndex(jcas).getSemanticTypes(cluster);
   }
 
   public Set<String> getBestEnt(JCas jcas, Markable markable){
-    Set<String> bestEnts = new HashSet<>();
-    IdentifiedAnnotation bestEnt = null;
-    Set<IdentifiedAnnotation> otherBestEnts = new HashSet<>();
-    ConllDependencyNode head = cache.get(markable);
-    if ( head == null ) {
-      return Collections.emptySet();
-    }
-
-    Collection<IdentifiedAnnotation> coveringEnts = nodeEntMap.get(head);
-    for(IdentifiedAnnotation ent : coveringEnts){
-      if(ent.getOntologyConceptArr() == null) continue; // skip non-umls entities.
-      ConllDependencyNode entHead = DependencyUtility.getNominalHeadNode(jcas, ent);
-      if(entHead == head){
-        if(bestEnt == null){
-          bestEnt = ent;
-        }else if((ent.getEnd()-ent.getBegin()) > (bestEnt.getEnd() - bestEnt.getBegin())){
-          // if the span of this entity is bigger than the biggest existing one:
-          bestEnt = ent;
-          otherBestEnts = new HashSet<>();
-        }else if((ent.getEnd()-ent.getBegin()) == (bestEnt.getEnd() - bestEnt.getBegin())){
-          // there is another one with the exact same span and possibly different type!
-          otherBestEnts.add(ent);
-        }
-      }
-    }
-
-    if(bestEnt!=null){
-      bestEnts.add(bestEnt.getClass().getSimpleName());
-      for(IdentifiedAnnotation other : otherBestEnts){
-        bestEnts.add(other.getClass().getSimpleName());
-      }
-    }
-    return bestEnts;
+    return getCandidateIndex(jcas).getSemanticTypes(markable);
   }
 
   protected static final boolean dominates(Annotation arg1, Annotation arg2) {
@@ -80,4 +47,27 @@ public abstract class ClusterMentionPairer_ImplBase implements AnnotationPairer<
   public void setCache(Map<Markable,ConllDependencyNode> cache){
     this.cache = cache;
   }
+
+  /**
+   * Share one candidate index between all pairers of a document.  Pairers that are not given
+   * one build their own the first time they need it, which only sees the clusters that are in
+   * the CAS at that time.
+   */
+  public void setCandidateIndex(MentionCandidateIndex candidateIndex){
+    this.candidateIndex = candidateIndex;
+  }
+
+  protected MentionCandidateIndex getCandidateIndex(JCas jcas){
+    if(candidateIndex == null || !candidateIndex.isIndexOf(jcas)){
+      candidateIndex = new MentionCandidateIndex(jcas, cache);
+    }
+    return candidateIndex;
+  }
+
+  protected ConllDependencyNode getHeadNode(JCas jcas, Markable markable){
+    if(cache != null && cache.containsKey(markable)){
+      return cache.get(markable);
+    }
+    return DependencyUtility.getNominalHeadNode(jcas, markable);
+  }
 }
@@ -1,13 +1,10 @@
 package org.apache.ctakes.coreference.ae.pairing.cluster;
 
-import org.apache.ctakes.coreference.ae.EventCoreferenceAnnotator;
-import org.apache.ctakes.coreference.util.ClusterUtils;
+import org.apache.ctakes.coreference.util.MentionCandidateIndex;
 import org.apache.ctakes.typesystem.type.relation.CollectionTextRelation;
 import org.apache.ctakes.typesystem.type.textsem.IdentifiedAnnotation;
 import org.apache.ctakes.typesystem.type.textsem.Markable;
-import org.apache.uima.fit.util.JCasUtil;
 import org.apache.uima.jcas.JCas;
-import org.apache.uima.jcas.cas.NonEmptyFSList;
 import org.apache.uima.jcas.tcas.Annotation;
 
 import java.util.ArrayList;
@@ -35,22 +32,20 @@ public class ClusterPairer extends ClusterMentionPairer_ImplBase {
   @Override
   public List<CollectionTextRelationIdentifiedAnnotationPair> getPairs(JCas jcas, Markable mention) {
     List<CollectionTextRelationIdentifiedAnnotationPair> pairs = new ArrayList<>();
-    for(CollectionTextRelation cluster : JCasUtil.select(jcas, CollectionTextRelation.class)){
-      NonEmptyFSList members = ((NonEmptyFSList)cluster.getMembers());
-      Annotation first = (Annotation) members.getHead();
+    MentionCandidateIndex index = getCandidateIndex(jcas);
+    // only clusters with a second member before the mention can pass the checks below
+    for(CollectionTextRelation cluster : index.getMultiMemberClusters(mention, sentDist)){
+      Annotation first = index.getMembers(cluster).get(0);
       if(first == null || mention.getBegin() <= first.getEnd()){
         continue;
       }
 
-      IdentifiedAnnotation mostRecent = (IdentifiedAnnotation) ClusterUtils.getMostRecent((NonEmptyFSList)cluster.getMembers(), mention);
-      if(mostRecent == null || EventCoreferenceAnnotator.sentDist(jcas, mostRecent, mention) > sentDist){
+      IdentifiedAnnotation mostRecent = (IdentifiedAnnotation) index.getMostRecent(cluster, mention);
+      if(mostRecent == null || index.sentDist(mostRecent, mention) > sentDist){
         continue;
       }
-      int numMembers=0;
-      for(Markable m : JCasUtil.select(cluster.getMembers(), Markable.class)){
-        numMembers++;
-        if(m == mostRecent) break;
-      }
+      // members up to and including the most recent one
+      int numMembers = index.getMostRecentPosition(cluster, mention) + 1;
       if(numMembers > 1){
         pairs.add(new CollectionTextRelationIdentifiedAnnotationPair(cluster, mention));
       }
@@ -1,11 +1,9 @@
 package org.apache.ctakes.coreference.ae.pairing.cluster;
 
-import org.apache.ctakes.coreference.util.ClusterUtils;
+import org.apache.ctakes.coreference.util.MentionCandidateIndex;
 import org.apache.ctakes.typesystem.type.relation.CollectionTextRelation;
 import org.apache.ctakes.typesystem.type.textsem.Markable;
-import org.apache.uima.fit.util.JCasUtil;
 import org.apache.uima.jcas.JCas;
-import org.apache.uima.jcas.cas.NonEmptyFSList;
 import org.apache.uima.jcas.tcas.Annotation;
 
 import java.util.ArrayList;
@@ -23,6 +21,7 @@ public class ExactStringPairer extends ClusterMentionPairer_ImplBase {
   
   @Override
   public void reset(JCas jcas){
+    super.reset(jcas);
     markableStrings = new HashSet<>();
   }
   /*
@@ -35,23 +34,27 @@ public class ExactStringPairer extends ClusterMentionPairer_ImplBase {
   @Override
   public List<CollectionTextRelationIdentifiedAnnotationPair> getPairs(JCas jcas, Markable mention) {
     List<CollectionTextRelationIdentifiedAnnotationPair> pairs = new ArrayList<>();
+    MentionCandidateIndex index = getCandidateIndex(jcas);
+    String mentionString = index.getLowerText(mention);
     
-    if(markableStrings.contains(mention.getCoveredText().toLowerCase())){
-      for(CollectionTextRelation cluster : JCasUtil.select(jcas, CollectionTextRelation.class)){
-        Annotation mostRecent = ClusterUtils.getMostRecent((NonEmptyFSList)cluster.getMembers(), mention);
+    if(markableStrings.contains(mentionString)){
+      // only clusters with a member of the same string up to the mention can pass the check below
+      for(CollectionTextRelation cluster : index.getClustersWithText(mentionString, mention)){
+        Annotation mostRecent = index.getMostRecent(cluster, mention);
         if(mostRecent == null) continue;
 
-        for(Markable m : JCasUtil.select(cluster.getMembers(), Markable.class)){
+        for(Annotation m : index.getMembers(cluster)){
           if(m == mostRecent) break;
+          if(!(m instanceof Markable)) continue;
           // see if any of the members of the cluster have the exact same string as this 
-          if(m.getCoveredText().toLowerCase().equals(mention.getCoveredText().toLowerCase())){
+          if(index.getLowerText(m).equals(mentionString)){
             pairs.add(new CollectionTextRelationIdentifiedAnnotationPair(cluster, mention));
             break;
           }
         }
       }
     }
-    markableStrings.add(mention.getCoveredText().toLowerCase());
+    markableStrings.add(mentionString);
     return pairs;
   }
 }
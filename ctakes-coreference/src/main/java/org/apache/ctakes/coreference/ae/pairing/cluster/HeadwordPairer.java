@@ -1,12 +1,13 @@
 package org.apache.ctakes.coreference.ae.pairing.cluster;
 
 import org.apache.ctakes.coreference.ae.MentionClusterCoreferenceAnnotator;
-import org.apache.ctakes.coreference.util.ClusterMentionFetcher;
-import org.apache.ctakes.dependency.parser.util.DependencyUtility;
+import org.apache.ctakes.coreference.util.MentionCandidateIndex;
+import org.apache.ctakes.typesystem.type.relation.CollectionTextRelation;
 import org.apache.ctakes.typesystem.type.syntax.ConllDependencyNode;
 import org.apache.ctakes.typesystem.type.textsem.Markable;
 import org.apache.log4j.Logger;
 import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.tcas.Annotation;
 
 import java.util.*;
 
@@ -27,15 +28,22 @@ public class HeadwordPairer extends ClusterMentionPairer_ImplBase {
   public List<CollectionTextRelationIdentifiedAnnotationPair> getPairs(JCas jcas, Markable mention) {
     List<CollectionTextRelationIdentifiedAnnotationPair> pairs = new ArrayList<>();
 
-    ConllDependencyNode headNode = DependencyUtility.getNominalHeadNode(jcas, mention);
+    ConllDependencyNode headNode = getHeadNode(jcas, mention);
     if(headNode == null){
       Logger.getLogger(MentionClusterCoreferenceAnnotator.class).warn("There is a markable with no dependency node covering it.");
       return pairs;
     }
-    String head = headNode.getCoveredText().toLowerCase();
+    MentionCandidateIndex index = getCandidateIndex(jcas);
+    String head = index.getLowerText(headNode);
     if(headWordMarkables.containsKey(head)){
        final Set<Markable> headSet = headWordMarkables.get( head );
-       ClusterMentionFetcher.populatePairs( jcas, mention, headSet, pairs );
+       // only clusters with a member of the same head word up to the mention can have their most recent member in the set
+       for ( CollectionTextRelation cluster : index.getClustersWithHeadWord( head, mention ) ) {
+          final Annotation mostRecent = index.getMostRecent( cluster, mention );
+          if ( mostRecent != null && headSet.contains( mostRecent ) ) {
+             pairs.add( new CollectionTextRelationIdentifiedAnnotationPair( cluster, mention ) );
+          }
+       }
     } else {
       headWordMarkables.put(head, new HashSet<Markable>());
     }
@@ -1,15 +1,12 @@
 package org.apache.ctakes.coreference.ae.pairing.cluster;
 
-import org.apache.ctakes.coreference.ae.EventCoreferenceAnnotator;
-import org.apache.ctakes.coreference.util.ClusterUtils;
+import org.apache.ctakes.coreference.util.MentionCandidateIndex;
 import org.apache.ctakes.typesystem.type.relation.CollectionTextRelation;
 import org.apache.ctakes.typesystem.type.textsem.AnatomicalSiteMention;
 import org.apache.ctakes.typesystem.type.textsem.IdentifiedAnnotation;
 import org.apache.ctakes.typesystem.type.textsem.Markable;
 import org.apache.ctakes.typesystem.type.textsem.MedicationEventMention;
-import org.apache.uima.fit.util.JCasUtil;
 import org.apache.uima.jcas.JCas;
-import org.apache.uima.jcas.cas.NonEmptyFSList;
 import org.apache.uima.jcas.tcas.Annotation;
 
 import java.util.ArrayList;
@@ -37,18 +34,22 @@ public class SentenceDistancePairer extends ClusterMentionPairer_ImplBase {
   public List<CollectionTextRelationIdentifiedAnnotationPair> getPairs( JCas jcas, Markable mention ) {
     List<CollectionTextRelationIdentifiedAnnotationPair> pairs = new ArrayList<>();
     Set<String> bestAnaTypes = getBestEnt(jcas, (Markable) mention);
-    
-    for(CollectionTextRelation cluster : JCasUtil.select(jcas, CollectionTextRelation.class)){
-      NonEmptyFSList members = ((NonEmptyFSList)cluster.getMembers());
-      Annotation first = (Annotation) members.getHead();
+    MentionCandidateIndex index = getCandidateIndex(jcas);
+    boolean anyDistance = bestAnaTypes.contains(AnatomicalSiteMention.class.getSimpleName()) ||
+        bestAnaTypes.contains(MedicationEventMention.class.getSimpleName());
+    // only clusters of the same semantic type, or within the sentence window, can pass the checks below
+    List<CollectionTextRelation> candidates = anyDistance ? index.getClustersOfTypes(mention, bestAnaTypes)
+        : index.getClustersNear(mention, this.sentDistance);
+
+    for(CollectionTextRelation cluster : candidates){
+      Annotation first = index.getMembers(cluster).get(0);
       if(first == null || mention.getBegin() <= first.getEnd()) continue;
       
       // check for distance if they are not anatomical site or medication
-      if(!(bestAnaTypes.contains(AnatomicalSiteMention.class.getSimpleName()) ||
-          bestAnaTypes.contains(MedicationEventMention.class.getSimpleName()))){
+      if(!anyDistance){
   
-        IdentifiedAnnotation mostRecent = (IdentifiedAnnotation) ClusterUtils.getMostRecent(members, mention);
-        if(mostRecent == null || EventCoreferenceAnnotator.sentDist(jcas, mostRecent, mention) > this.sentDistance) continue;
+        IdentifiedAnnotation mostRecent = (IdentifiedAnnotation) index.getMostRecent(cluster, mention);
+        if(mostRecent == null || index.sentDist(mostRecent, mention) > this.sentDistance) continue;
       }
   
       // check for types of cluster
@@ -0,0 +1,627 @@
+package org.apache.ctakes.coreference.util;
+
+import org.apache.ctakes.dependency.parser.util.DependencyUtility;
+import org.apache.ctakes.temporal.utils.PatientViewsUtil;
+import org.apache.ctakes.typesystem.type.relation.CollectionTextRelation;
+import org.apache.ctakes.typesystem.type.syntax.ConllDependencyNode;
+import org.apache.ctakes.typesystem.type.textsem.IdentifiedAnnotation;
+import org.apache.ctakes.typesystem.type.textsem.Markable;
+import org.apache.ctakes.typesystem.type.textspan.Paragraph;
+import org.apache.ctakes.typesystem.type.textspan.Sentence;
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.cas.FSList;
+import org.apache.uima.jcas.cas.NonEmptyFSList;
+import org.apache.uima.jcas.tcas.Annotation;
+
+import java.util.*;
+
+/**
+ * Per-document index of the coreference clusters, shared by the cluster-mention pairers so that each
+ * mention only looks at the clusters that can pass a pairer instead of every cluster in the CAS.
+ * <p>
+ * Cluster members are indexed by begin offset (the sentence window before a mention), by lower case
+ * text, by lower case head word and by the section header they sit in, and clusters by the semantic
+ * types of their members and by the end of their first and second members.  Every member is stored with
+ * its offsets, so a query only returns clusters with a member before the mention, which also holds for
+ * training, where the gold clusters already contain the members that follow the mention being paired.
+ * Each query returns the clusters in the order they were indexed, which is the order of
+ * {@code JCasUtil.select(jcas, CollectionTextRelation.class)}, and the pairers apply their exact checks
+ * to the candidates as before.
+ * <p>
+ * Build one per document view, hand it to the pairers with
+ * {@link org.apache.ctakes.coreference.ae.pairing.cluster.ClusterMentionPairer_ImplBase#setCandidateIndex(MentionCandidateIndex)}
+ * and drop it when the view is done.  Clusters that are in the view when the index is built are indexed
+ * right away; clusters and members added afterwards must be reported with {@link #addCluster(CollectionTextRelation)}
+ * and {@link #addMember(CollectionTextRelation, Annotation)}.
+ */
+public class MentionCandidateIndex {
+  private final JCas jcas;
+  private final Map<Markable,ConllDependencyNode> heads;
+
+  // sentence offsets in index order, for counting covered sentences by binary search
+  private final int[] sentBegins;
+  private final int[] sentEnds;
+  // binary search only works if sentence ends are sorted as well, otherwise use uimafit
+  private final boolean sentsOrdered;
+
+  // paragraphs that hold exactly one sentence, i.e. section headers and list items, in index order,
+  // with the largest end of each prefix so that the search for a covering header can stop early
+  private final int[] headerBegins;
+  private final int[] headerEnds;
+  private final int[] headerMaxEnds;
+  private final Map<Annotation,Integer> memberHeaderEnds = new IdentityHashMap<>();
+
+  private final Map<Annotation,String> lowerTexts = new IdentityHashMap<>();
+
+  private Map<ConllDependencyNode,Collection<IdentifiedAnnotation>> nodeEntMap = null;
+  private final Map<Markable,Set<String>> semTypes = new IdentityHashMap<>();
+
+  // one summary per cluster, numbered in the order the clusters were indexed
+  private final Map<CollectionTextRelation,ClusterSummary> summaries = new IdentityHashMap<>();
+
+  // members by begin offset, for the sentence window before a mention
+  private final TreeMap<Integer,List<ClusterMember>> membersByBegin = new TreeMap<>();
+  // members by lower case text and by lower case head word, each by end offset
+  private final Map<String,TreeMap<Integer,List<ClusterMember>>> membersByText = new HashMap<>();
+  private final Map<String,TreeMap<Integer,List<ClusterMember>>> membersByHeadWord = new HashMap<>();
+  // markable members that sit in a section header, by the end of the header
+  private final TreeMap<Integer,List<ClusterMember>> membersByHeaderEnd = new TreeMap<>();
+  // clusters by the end of their first member, without any semantic type and per semantic type
+  private final TreeMap<Integer,List<ClusterSummary>> untypedByFirstEnd = new TreeMap<>();
+  private final Map<String,TreeMap<Integer,List<ClusterSummary>>> typedByFirstEnd = new HashMap<>();
+  // clusters with more than one member, by the end of the second member
+  private final TreeMap<Integer,List<ClusterSummary>> bySecondEnd = new TreeMap<>();
+  // clusters with members from other document views, whose offsets say nothing about order in this view
+  private final List<ClusterSummary> foreignClusters = new ArrayList<>();
+
+  // position of the most recent member of each cluster for the mention currently being paired
+  private Annotation recentFocus = null;
+  private final Map<ClusterSummary,Integer> recentPositions = new IdentityHashMap<>();
+
+  public MentionCandidateIndex(JCas jcas){
+    this(jcas, null);
+  }
+
+  /**
+   * @param heads nominal head node of each markable, used for head words and semantic types.  Markables
+   *              that are not in the map have no semantic type, as in the pairers.
+   */
+  public MentionCandidateIndex(JCas jcas, Map<Markable,ConllDependencyNode> heads){
+    this.jcas = jcas;
+    this.heads = heads == null ? Collections.<Markable,ConllDependencyNode>emptyMap() : heads;
+    List<Sentence> sents = new ArrayList<>(JCasUtil.select(jcas, Sentence.class));
+    sentBegins = new int[sents.size()];
+    sentEnds = new int[sents.size()];
+    boolean ordered = true;
+    for(int i = 0; i < sents.size(); i++){
+      sentBegins[i] = sents.get(i).getBegin();
+      sentEnds[i] = sents.get(i).getEnd();
+      if(i > 0 && sentEnds[i] < sentEnds[i-1]){
+        ordered = false;
+      }
+    }
+    sentsOrdered = ordered;
+
+    List<Paragraph> headers = new ArrayList<>();
+    for(Paragraph par : JCasUtil.select(jcas, Paragraph.class)){
+      if(JCasUtil.selectCovered(jcas, Sentence.class, par).size() == 1){
+        headers.add(par);
+      }
+    }
+    headerBegins = new int[headers.size()];
+    headerEnds = new int[headers.size()];
+    headerMaxEnds = new int[headers.size()];
+    for(int i = 0; i < headers.size(); i++){
+      headerBegins[i] = headers.get(i).getBegin();
+      headerEnds[i] = headers.get(i).getEnd();
+      headerMaxEnds[i] = i == 0 ? headerEnds[i] : Math.max(headerMaxEnds[i-1], headerEnds[i]);
+    }
+
+    for(CollectionTextRelation cluster : JCasUtil.select(jcas, CollectionTextRelation.class)){
+      addCluster(cluster);
+    }
+  }
+
+  public boolean isIndexOf(JCas view){
+    return view == this.jcas;
+  }
+
+  /**
+   * Index a cluster that was added to the view after this index was built, with the members it has.
+   * Clusters that are already indexed are ignored.
+   */
+  public void addCluster(CollectionTextRelation cluster){
+    if(summaries.containsKey(cluster)){
+      return;
+    }
+    ClusterSummary summary = new ClusterSummary(cluster, summaries.size());
+    summaries.put(cluster, summary);
+    FSList members = cluster.getMembers();
+    if(!(members instanceof NonEmptyFSList) || ((NonEmptyFSList)members).getHead() == null){
+      // the pairers skip clusters without a first member
+      summary.unpaired = true;
+      return;
+    }
+    while(members instanceof NonEmptyFSList){
+      NonEmptyFSList node = (NonEmptyFSList) members;
+      indexMember(summary, (Annotation) node.getHead());
+      members = node.getTail();
+    }
+  }
+
+  /**
+   * Index a member that was appended to the end of the member list of an indexed cluster.
+   * Clusters that are not in this index, e.g. those of a previous document, are ignored.
+   */
+  public void addMember(CollectionTextRelation cluster, Annotation member){
+    ClusterSummary summary = summaries.get(cluster);
+    if(summary == null || summary.unpaired){
+      return;
+    }
+    indexMember(summary, member);
+    recentPositions.remove(summary);
+  }
+
+  /**
+   * @return the clusters with a member that starts within sentDistance sentences before the end of the
+   * mention, which includes every cluster whose most recent member is within that distance
+   */
+  public List<CollectionTextRelation> getClustersNear(Annotation mention, int sentDistance){
+    Collection<ClusterSummary> candidates = new ArrayList<>();
+    final int windowBegin = getWindowBegin(mention.getEnd(), sentDistance);
+    if(windowBegin <= mention.getEnd()){
+      for(List<ClusterMember> members : membersByBegin.subMap(windowBegin, true, mention.getEnd(), true).values()){
+        addBefore(members, mention.getEnd(), candidates);
+      }
+    }
+    return inIndexOrder(candidates);
+  }
+
+  /**
+   * @return the clusters with a second member that ends before the mention, i.e. those whose most recent
+   * member can be something other than the first, limited to the sentence window if sentDistance bounds it
+   */
+  public List<CollectionTextRelation> getMultiMemberClusters(Annotation mention, int sentDistance){
+    if(getWindowBegin(mention.getEnd(), sentDistance) != Integer.MIN_VALUE){
+      return getClustersNear(mention, sentDistance);
+    }
+    Collection<ClusterSummary> candidates = new ArrayList<>();
+    for(List<ClusterSummary> clusters : bySecondEnd.headMap(mention.getEnd(), false).values()){
+      candidates.addAll(clusters);
+    }
+    return inIndexOrder(candidates);
+  }
+
+  /**
+   * @return the clusters whose first member ends before the mention begins and that either have no
+   * semantic type or share one of the given types
+   */
+  public List<CollectionTextRelation> getClustersOfTypes(Annotation mention, Set<String> types){
+    Collection<ClusterSummary> candidates = new ArrayList<>();
+    for(List<ClusterSummary> clusters : untypedByFirstEnd.headMap(mention.getBegin(), false).values()){
+      candidates.addAll(clusters);
+    }
+    for(String type : types){
+      TreeMap<Integer,List<ClusterSummary>> typed = typedByFirstEnd.get(type);
+      if(typed != null){
+        for(List<ClusterSummary> clusters : typed.headMap(mention.getBegin(), false).values()){
+          candidates.addAll(clusters);
+        }
+      }
+    }
+    return inIndexOrder(candidates);
+  }
+
+  /**
+   * @return the clusters with a markable member in a section header that ends at or before the offset
+   */
+  public List<CollectionTextRelation> getClustersInHeadersBefore(int offset){
+    Collection<ClusterSummary> candidates = new ArrayList<>();
+    for(List<ClusterMember> members : membersByHeaderEnd.headMap(offset, true).values()){
+      for(ClusterMember member : members){
+        candidates.add(member.cluster);
+      }
+    }
+    return inIndexOrder(candidates);
+  }
+
+  /**
+   * @return the clusters with a member that has the given lower case text and does not end after the mention
+   */
+  public List<CollectionTextRelation> getClustersWithText(String lowerText, Annotation mention){
+    return getClustersWithKey(membersByText, lowerText, mention);
+  }
+
+  /**
+   * @return the clusters with a member that has the given lower case head word and does not end after the mention
+   */
+  public List<CollectionTextRelation> getClustersWithHeadWord(String lowerHeadWord, Annotation mention){
+    return getClustersWithKey(membersByHeadWord, lowerHeadWord, mention);
+  }
+
+  /**
+   * @return the members of an indexed cluster in list order, without walking the FSList
+   */
+  public List<Annotation> getMembers(CollectionTextRelation cluster){
+    ClusterSummary summary = summaries.get(cluster);
+    if(summary == null){
+      List<Annotation> members = new ArrayList<>();
+      for(Annotation member : JCasUtil.select(cluster.getMembers(), Annotation.class)){
+        members.add(member);
+      }
+      return members;
+    }
+    return Collections.unmodifiableList(summary.members);
+  }
+
+  /**
+   * @return the union of the semantic types of the markable members of the cluster, kept up to date as
+   * members are added
+   */
+  public Set<String> getSemanticTypes(CollectionTextRelation cluster){
+    ClusterSummary summary = summaries.get(cluster);
+    if(summary == null){
+      Set<String> types = new HashSet<>();
+      for(Markable member : JCasUtil.select(cluster.getMembers(), Markable.class)){
+        types.addAll(getSemanticTypes(member));
+      }
+      return types;
+    }
+    return Collections.unmodifiableSet(summary.semTypes);
+  }
+
+  /**
+   * @return the simple class names of the largest UMLS entities headed by the head of the markable
+   */
+  public Set<String> getSemanticTypes(Markable markable){
+    Set<String> types = semTypes.get(markable);
+    if(types == null){
+      types = findSemanticTypes(markable);
+      semTypes.put(markable, types);
+    }
+    return types;
+  }
+
+  /**
+   * @return the lower case text of the nominal head of the markable, or null if it has no head
+   */
+  public String getHeadWord(Markable markable){
+    ConllDependencyNode head = getHeadNode(markable);
+    return head == null ? null : getLowerText(head);
+  }
+
+  /**
+   * @return the number of sentences covered by the span from the begin of arg1 to the end of arg2,
+   * same as {@code JCasUtil.selectCovered(jcas, Sentence.class, arg1.getBegin(), arg2.getEnd()).size()}
+   */
+  public int sentDist(Annotation arg1, Annotation arg2){
+    final int begin = arg1.getBegin();
+    final int end = arg2.getEnd();
+    if(!sentsOrdered){
+      return JCasUtil.selectCovered(jcas, Sentence.class, begin, end).size();
+    }
+    // sentences at or after the first begin >= begin form a suffix, those with end <= end a prefix
+    final int firstAfterBegin = lowerBound(sentBegins, begin);
+    final int pastLastBeforeEnd = upperBound(sentEnds, end);
+    return Math.max(0, pastLastBeforeEnd - firstAfterBegin);
+  }
+
+  /**
+   * @return the same as {@link ClusterUtils#getMostRecent(NonEmptyFSList, Annotation)} for the cluster
+   * members, remembered until a different focus annotation is asked about
+   */
+  public Annotation getMostRecent(CollectionTextRelation cluster, Annotation focus){
+    ClusterSummary summary = summaries.get(cluster);
+    if(summary == null || summary.unpaired){
+      return ClusterUtils.getMostRecent((NonEmptyFSList)cluster.getMembers(), focus);
+    }
+    int position = getMostRecentPosition(summary, focus);
+    return position < 0 ? null : summary.members.get(position);
+  }
+
+  /**
+   * @return the position in the member list of the most recent member for the focus, or -1 if there is none.
+   * A position above 0 means the cluster had grown past its first member by the time of the focus.
+   */
+  public int getMostRecentPosition(CollectionTextRelation cluster, Annotation focus){
+    ClusterSummary summary = summaries.get(cluster);
+    if(summary == null || summary.unpaired){
+      Annotation mostRecent = ClusterUtils.getMostRecent((NonEmptyFSList)cluster.getMembers(), focus);
+      return mostRecent == null ? -1 : getMembers(cluster).indexOf(mostRecent);
+    }
+    return getMostRecentPosition(summary, focus);
+  }
+
+  /**
+   * @return lower case covered text of the annotation, computed once
+   */
+  public String getLowerText(Annotation annotation){
+    String text = lowerTexts.get(annotation);
+    if(text == null){
+      text = annotation.getCoveredText().toLowerCase();
+      lowerTexts.put(annotation, text);
+    }
+    return text;
+  }
+
+  /**
+   * @return true if a single-sentence paragraph that ends at or before the given offset spans the annotation
+   */
+  public boolean isInHeaderBefore(Annotation annotation, int offset){
+    return getHeaderEnd(annotation) <= offset;
+  }
+
+  private void indexMember(ClusterSummary summary, Annotation member){
+    final int position = summary.members.size();
+    summary.members.add(member);
+    if(position > 1 && member.getEnd() < summary.members.get(position-1).getEnd()){
+      summary.laterEndsOrdered = false;
+    }
+
+    final boolean foreign = !member.getView().equals(jcas.getCas());
+    if(foreign && !summary.foreign){
+      summary.foreign = true;
+      foreignClusters.add(summary);
+    }
+    if(!foreign){
+      ClusterMember entry = new ClusterMember(summary, member);
+      put(membersByBegin, member.getBegin(), entry);
+      put(keyed(membersByText, getLowerText(member)), member.getEnd(), entry);
+      if(member instanceof Markable){
+        String headWord = getHeadWord((Markable) member);
+        if(headWord != null){
+          put(keyed(membersByHeadWord, headWord), member.getEnd(), entry);
+        }
+        int headerEnd = getHeaderEnd(member);
+        if(headerEnd != Integer.MAX_VALUE){
+          put(membersByHeaderEnd, headerEnd, entry);
+        }
+      }
+      if(position == 0){
+        summary.firstEnd = member.getEnd();
+        put(untypedByFirstEnd, summary.firstEnd, summary);
+      }else if(position == 1){
+        put(bySecondEnd, member.getEnd(), summary);
+      }
+    }
+
+    if(member instanceof Markable){
+      for(String type : getSemanticTypes((Markable) member)){
+        if(!summary.semTypes.add(type) || summary.firstEnd == null){
+          continue;
+        }
+        if(summary.semTypes.size() == 1){
+          untypedByFirstEnd.get(summary.firstEnd).remove(summary);
+        }
+        put(keyed(typedByFirstEnd, type), summary.firstEnd, summary);
+      }
+    }
+  }
+
+  private int getMostRecentPosition(ClusterSummary summary, Annotation focus){
+    if(focus != recentFocus){
+      recentPositions.clear();
+      recentFocus = focus;
+    }
+    Integer position = recentPositions.get(summary);
+    if(position == null){
+      position = findMostRecentPosition(summary, focus);
+      recentPositions.put(summary, position);
+    }
+    return position;
+  }
+
+  /*
+   * Same walk as ClusterUtils.getMostRecent: the first member unless the focus comes before it, then each
+   * following member as long as it ends before the focus.  If the following members are in end order
+   * the walk is a binary search.
+   */
+  private static int findMostRecentPosition(ClusterSummary summary, Annotation focus){
+    List<Annotation> members = summary.members;
+    Annotation first = members.get(0);
+    if(PatientViewsUtil.isSameDocument(first, focus) && first.getEnd() > focus.getEnd()){
+      return -1;
+    }
+    if(summary.laterEndsOrdered){
+      int low = 1;
+      int high = members.size();
+      while(low < high){
+        int mid = (low + high) >>> 1;
+        if(members.get(mid).getEnd() < focus.getEnd()){
+          low = mid + 1;
+        }else{
+          high = mid;
+        }
+      }
+      return low - 1;
+    }
+    int position = 0;
+    while(position + 1 < members.size() && members.get(position + 1).getEnd() < focus.getEnd()){
+      position++;
+    }
+    return position;
+  }
+
+  private List<CollectionTextRelation> getClustersWithKey(Map<String,TreeMap<Integer,List<ClusterMember>>> index,
+                                                          String key, Annotation mention){
+    Collection<ClusterSummary> candidates = new ArrayList<>();
+    TreeMap<Integer,List<ClusterMember>> members = index.get(key);
+    if(members != null){
+      for(List<ClusterMember> atEnd : members.headMap(mention.getEnd(), true).values()){
+        for(ClusterMember member : atEnd){
+          candidates.add(member.cluster);
+        }
+      }
+    }
+    return inIndexOrder(candidates);
+  }
+
+  private static void addBefore(List<ClusterMember> members, int end, Collection<ClusterSummary> candidates){
+    for(ClusterMember member : members){
+      if(member.annotation.getEnd() <= end){
+        candidates.add(member.cluster);
+      }
+    }
+  }
+
+  /*
+   * Candidates without duplicates, plus the clusters that reach into other views, in index order
+   */
+  private List<CollectionTextRelation> inIndexOrder(Collection<ClusterSummary> candidates){
+    Set<ClusterSummary> unique = Collections.newSetFromMap(new IdentityHashMap<ClusterSummary,Boolean>());
+    unique.addAll(candidates);
+    unique.addAll(foreignClusters);
+    List<ClusterSummary> ordered = new ArrayList<>(unique);
+    ordered.sort(Comparator.comparingInt(summary -> summary.ordinal));
+    List<CollectionTextRelation> clusters = new ArrayList<>(ordered.size());
+    for(ClusterSummary summary : ordered){
+      clusters.add(summary.cluster);
+    }
+    return clusters;
+  }
+
+  /*
+   * Smallest begin offset from which the span to the end offset covers at most sentDistance sentences,
+   * Integer.MIN_VALUE if any begin does.
+   */
+  private int getWindowBegin(int end, int sentDistance){
+    if(!sentsOrdered){
+      return Integer.MIN_VALUE;
+    }
+    // sentences ending by the end offset that must begin before the window
+    final int outside = upperBound(sentEnds, end) - sentDistance;
+    if(outside <= 0){
+      return Integer.MIN_VALUE;
+    }
+    return sentBegins[outside - 1] + 1;
+  }
+
+  /*
+   * The smallest end of any single-sentence paragraph that spans the annotation,
+   * or Integer.MAX_VALUE if there is none.
+   */
+  private int getHeaderEnd(Annotation annotation){
+    Integer headerEnd = memberHeaderEnds.get(annotation);
+    if(headerEnd == null){
+      headerEnd = Integer.MAX_VALUE;
+      // headers that begin at or before the annotation, from the last one back while any can still span it
+      for(int i = upperBound(headerBegins, annotation.getBegin()) - 1; i >= 0 && headerMaxEnds[i] >= annotation.getEnd(); i--){
+        if(headerEnds[i] >= annotation.getEnd() && headerEnds[i] < headerEnd){
+          headerEnd = headerEnds[i];
+        }
+      }
+      memberHeaderEnds.put(annotation, headerEnd);
+    }
+    return headerEnd;
+  }
+
+  private ConllDependencyNode getHeadNode(Markable markable){
+    if(heads.containsKey(markable)){
+      return heads.get(markable);
+    }
+    return DependencyUtility.getNominalHeadNode(jcas, markable);
+  }
+
+  private Set<String> findSemanticTypes(Markable markable){
+    ConllDependencyNode head = heads.get(markable);
+    if(head == null){
+      return Collections.emptySet();
+    }
+    if(nodeEntMap == null){
+      nodeEntMap = JCasUtil.indexCovering(jcas, ConllDependencyNode.class, IdentifiedAnnotation.class);
+    }
+    Set<String> bestEnts = new HashSet<>();
+    IdentifiedAnnotation bestEnt = null;
+    Set<IdentifiedAnnotation> otherBestEnts = new HashSet<>();
+    for(IdentifiedAnnotation ent : nodeEntMap.get(head)){
+      if(ent.getOntologyConceptArr() == null) continue; // skip non-umls entities.
+      ConllDependencyNode entHead = DependencyUtility.getNominalHeadNode(jcas, ent);
+      if(entHead == head){
+        if(bestEnt == null){
+          bestEnt = ent;
+        }else if((ent.getEnd()-ent.getBegin()) > (bestEnt.getEnd() - bestEnt.getBegin())){
+          // if the span of this entity is bigger than the biggest existing one:
+          bestEnt = ent;
+          otherBestEnts = new HashSet<>();
+        }else if((ent.getEnd()-ent.getBegin()) == (bestEnt.getEnd() - bestEnt.getBegin())){
+          // there is another one with the exact same span and possibly different type!
+          otherBestEnts.add(ent);
+        }
+      }
+    }
+
+    if(bestEnt!=null){
+      bestEnts.add(bestEnt.getClass().getSimpleName());
+      for(IdentifiedAnnotation other : otherBestEnts){
+        bestEnts.add(other.getClass().getSimpleName());
+      }
+    }
+    return bestEnts;
+  }
+
+  private static <V> TreeMap<Integer,List<V>> keyed(Map<String,TreeMap<Integer,List<V>>> index, String key){
+    TreeMap<Integer,List<V>> values = index.get(key);
+    if(values == null){
+      values = new TreeMap<>();
+      index.put(key, values);
+    }
+    return values;
+  }
+
+  private static <V> void put(TreeMap<Integer,List<V>> index, int offset, V value){
+    List<V> values = index.get(offset);
+    if(values == null){
+      values = new ArrayList<>(1);
+      index.put(offset, values);
+    }
+    values.add(value);
+  }
+
+  // index of the first value >= key
+  private static int lowerBound(int[] sorted, int key){
+    int index = Arrays.binarySearch(sorted, key);
+    if(index < 0) return -index - 1;
+    while(index > 0 && sorted[index-1] == key) index--;
+    return index;
+  }
+
+  // index of the first value > key
+  private static int upperBound(int[] sorted, int key){
+    int index = Arrays.binarySearch(sorted, key);
+    if(index < 0) return -index - 1;
+    while(index < sorted.length-1 && sorted[index+1] == key) index++;
+    return index + 1;
+  }
+
+  /*
+   * What the pairers need to know about a cluster, updated as members are added
+   */
+  private static final class ClusterSummary {
+    private final CollectionTextRelation cluster;
+    private final int ordinal;
+    private final List<Annotation> members = new ArrayList<>();
+    private final Set<String> semTypes = new HashSet<>();
+    // end of the first member, null if it is in another view
+    private Integer firstEnd = null;
+    // members after the first are in order of their end offsets
+    private boolean laterEndsOrdered = true;
+    private boolean foreign = false;
+    private boolean unpaired = false;
+
+    private ClusterSummary(CollectionTextRelation cluster, int ordinal){
+      this.cluster = cluster;
+      this.ordinal = ordinal;
+    }
+  }
+
+  private static final class ClusterMember {
+    private final ClusterSummary cluster;
+    private final Annotation annotation;
+
+    private ClusterMember(ClusterSummary cluster, Annotation annotation){
+      this.cluster = cluster;
+      this.annotation = annotation;
+    }
+  }
+}
@@ -0,0 +1,410 @@
+package org.apache.ctakes.coreference.util;
+
+import org.apache.ctakes.core.util.ListFactory;
+import org.apache.ctakes.coreference.ae.EventCoreferenceAnnotator;
+import org.apache.ctakes.coreference.ae.pairing.cluster.*;
+import org.apache.ctakes.dependency.parser.util.DependencyUtility;
+import org.apache.ctakes.typesystem.type.relation.CollectionTextRelation;
+import org.apache.ctakes.typesystem.type.syntax.ConllDependencyNode;
+import org.apache.ctakes.typesystem.type.textsem.AnatomicalSiteMention;
+import org.apache.ctakes.typesystem.type.textsem.DiseaseDisorderMention;
+import org.apache.ctakes.typesystem.type.textsem.IdentifiedAnnotation;
+import org.apache.ctakes.typesystem.type.textsem.Markable;
+import org.apache.ctakes.typesystem.type.textsem.MedicationEventMention;
+import org.apache.ctakes.typesystem.type.textspan.Paragraph;
+import org.apache.ctakes.typesystem.type.textspan.Sentence;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.cas.EmptyFSList;
+import org.apache.uima.jcas.cas.FSArray;
+import org.apache.uima.jcas.cas.NonEmptyFSList;
+import org.apache.uima.jcas.tcas.Annotation;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.apache.ctakes.coreference.util.ClusterMentionFetcher.CollectionTextRelationIdentifiedAnnotationPair;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares the candidate pairs of the cluster-mention pairers with the pairs made by the code they had
+ * before MentionCandidateIndex, which visited every cluster in the CAS for every mention.
+ */
+public class MentionCandidateIndexTest {
+
+  private static final String[] WORDS = { "pain", "Pain", "aspirin", "it", "the patient", "fever", "she", "left arm" };
+
+  /*
+   * Like training, clusters hold members before and after the mentions that are paired with them
+   */
+  @Test
+  public void testSameCandidatePairs() throws Exception {
+    Random random = new Random(28);
+    JCas jcas = JCasFactory.createJCas();
+    for(int document = 0; document < 50; document++){
+      jcas.reset();
+      Map<Markable,ConllDependencyNode> cache = new HashMap<>();
+      List<Markable> markables = createDocument(jcas, random, cache);
+      List<CollectionTextRelation> clusters = createClusters(jcas, random, markables);
+
+      MentionCandidateIndex index = new MentionCandidateIndex(jcas, cache);
+      Pairers pairers = new Pairers(jcas, cache, index);
+      Reference reference = new Reference(jcas, cache);
+      for(Markable mention : markables){
+        pairers.assertSamePairs("Document " + document, reference, mention);
+      }
+      assertEquals(clusters.size(), JCasUtil.select(jcas, CollectionTextRelation.class).size());
+    }
+  }
+
+  /*
+   * Like classification, clusters are created and grow between mentions, and during training the new
+   * singletons sit next to gold clusters
+   */
+  @Test
+  public void testSameCandidatePairsAsClustersGrow() throws Exception {
+    Random random = new Random(280);
+    JCas jcas = JCasFactory.createJCas();
+    for(int document = 0; document < 50; document++){
+      jcas.reset();
+      Map<Markable,ConllDependencyNode> cache = new HashMap<>();
+      List<Markable> markables = createDocument(jcas, random, cache);
+      if(document % 2 == 0){
+        createClusters(jcas, random, markables.subList(0, random.nextInt(markables.size() + 1)));
+      }
+
+      MentionCandidateIndex index = new MentionCandidateIndex(jcas, cache);
+      Pairers pairers = new Pairers(jcas, cache, index);
+      Reference reference = new Reference(jcas, cache);
+      for(Markable mention : markables){
+        List<CollectionTextRelation> candidates = pairers.assertSamePairs("Document " + document, reference, mention);
+        if(!candidates.isEmpty() && random.nextInt(3) > 0){
+          CollectionTextRelation cluster = candidates.get(random.nextInt(candidates.size()));
+          ListFactory.append(jcas, cluster.getMembers(), mention);
+          index.addMember(cluster, mention);
+        }else{
+          CollectionTextRelation chain = new CollectionTextRelation(jcas);
+          chain.setCategory("Identity");
+          NonEmptyFSList list = new NonEmptyFSList(jcas);
+          list.setHead(mention);
+          list.setTail(new EmptyFSList(jcas));
+          chain.setMembers(list);
+          chain.addToIndexes();
+          list.addToIndexes();
+          list.getTail().addToIndexes();
+          index.addCluster(chain);
+        }
+      }
+    }
+  }
+
+  /*
+   * Sentences of random length, some alone in a paragraph as section headers, with markables over the words,
+   * a dependency node over the last word of each markable and, for some, named entities of the same span
+   */
+  private static List<Markable> createDocument(JCas jcas, Random random, Map<Markable,ConllDependencyNode> cache){
+    StringBuilder text = new StringBuilder();
+    List<int[]> sentences = new ArrayList<>();
+    List<int[]> markableSpans = new ArrayList<>();
+    for(int s = 12 + random.nextInt(20); s > 0; s--){
+      int sentBegin = text.length();
+      for(int w = 1 + random.nextInt(5); w > 0; w--){
+        String word = WORDS[random.nextInt(WORDS.length)];
+        if(random.nextInt(3) == 0){
+          markableSpans.add(new int[]{ text.length(), text.length() + word.length() });
+        }
+        text.append(word).append(' ');
+      }
+      text.setCharAt(text.length() - 1, '.');
+      sentences.add(new int[]{ sentBegin, text.length() });
+      text.append('\n');
+    }
+    jcas.setDocumentText(text.toString());
+    int paragraphBegin = -1;
+    for(int[] span : sentences){
+      new Sentence(jcas, span[0], span[1]).addToIndexes();
+      if(random.nextInt(4) == 0){
+        // a header paragraph of one sentence
+        new Paragraph(jcas, span[0], span[1]).addToIndexes();
+      }else if(paragraphBegin < 0){
+        paragraphBegin = span[0];
+      }else{
+        new Paragraph(jcas, paragraphBegin, span[1]).addToIndexes();
+        paragraphBegin = -1;
+      }
+    }
+    List<Markable> markables = new ArrayList<>();
+    for(int[] span : markableSpans){
+      Markable markable = new Markable(jcas, span[0], span[1]);
+      markable.addToIndexes();
+      markables.add(markable);
+
+      String covered = markable.getCoveredText();
+      ConllDependencyNode head = new ConllDependencyNode(jcas, span[0] + covered.lastIndexOf(' ') + 1, span[1]);
+      head.setId(1);
+      head.setPostag("NN");
+      head.addToIndexes();
+      cache.put(markable, head);
+
+      int entities = random.nextInt(6);
+      if(entities == 1 || entities == 3){
+        addEntity(new AnatomicalSiteMention(jcas, span[0], span[1]), jcas);
+      }
+      if(entities == 2 || entities == 3){
+        addEntity(new MedicationEventMention(jcas, span[0], span[1]), jcas);
+      }
+      if(entities == 4){
+        addEntity(new DiseaseDisorderMention(jcas, span[0], span[1]), jcas);
+      }
+    }
+    return markables;
+  }
+
+  private static void addEntity(IdentifiedAnnotation entity, JCas jcas){
+    entity.setOntologyConceptArr(new FSArray(jcas, 0));
+    entity.addToIndexes();
+  }
+
+  /*
+   * Random clusters of the markables in document order
+   */
+  private static List<CollectionTextRelation> createClusters(JCas jcas, Random random, List<Markable> markables){
+    List<List<Markable>> memberLists = new ArrayList<>();
+    for(Markable markable : markables){
+      int choice = random.nextInt(memberLists.size() + 2);
+      if(choice >= memberLists.size()){
+        memberLists.add(new ArrayList<>(Collections.singletonList(markable)));
+      }else{
+        memberLists.get(choice).add(markable);
+      }
+    }
+    List<CollectionTextRelation> clusters = new ArrayList<>();
+    for(List<Markable> members : memberLists){
+      CollectionTextRelation cluster = new CollectionTextRelation(jcas);
+      cluster.setCategory("Identity");
+      NonEmptyFSList list = null;
+      for(int i = members.size() - 1; i >= 0; i--){
+        NonEmptyFSList node = new NonEmptyFSList(jcas);
+        node.setHead(members.get(i));
+        node.setTail(list == null ? new EmptyFSList(jcas) : list);
+        list = node;
+      }
+      cluster.setMembers(list);
+      cluster.addToIndexes();
+      clusters.add(cluster);
+    }
+    return clusters;
+  }
+
+  private static List<CollectionTextRelation> clustersOf(List<CollectionTextRelationIdentifiedAnnotationPair> pairs){
+    List<CollectionTextRelation> clusters = new ArrayList<>();
+    for(CollectionTextRelationIdentifiedAnnotationPair pair : pairs){
+      clusters.add(pair.getCluster());
+    }
+    return clusters;
+  }
+
+  /*
+   * The pairers under test, sharing one index the way the annotator sets them up
+   */
+  private static class Pairers {
+    private final JCas jcas;
+    private final List<ClusterMentionPairer_ImplBase> pairers = Arrays.asList(new SentenceDistancePairer(1),
+        new SectionHeaderPairer(1), new ClusterPairer(2), new ClusterPairer(Integer.MAX_VALUE),
+        new ExactStringPairer(), new HeadwordPairer());
+
+    private Pairers(JCas jcas, Map<Markable,ConllDependencyNode> cache, MentionCandidateIndex index){
+      this.jcas = jcas;
+      for(ClusterMentionPairer_ImplBase pairer : pairers){
+        pairer.reset(jcas);
+        pairer.setCache(cache);
+        pairer.setCandidateIndex(index);
+      }
+    }
+
+    // asserts that each pairer makes the same pairs as before and returns all their clusters
+    private List<CollectionTextRelation> assertSamePairs(String document, Reference reference, Markable mention){
+      String message = document + " mention " + mention.getBegin() + "-" + mention.getEnd();
+      List<List<CollectionTextRelation>> expected = Arrays.asList(reference.sentenceDistancePairs(mention, 1),
+          reference.sectionHeaderPairs(mention, 1), reference.clusterPairs(mention, 2),
+          reference.clusterPairs(mention, Integer.MAX_VALUE), reference.exactStringPairs(mention),
+          reference.headwordPairs(mention));
+      Set<CollectionTextRelation> candidates = new LinkedHashSet<>();
+      for(int i = 0; i < pairers.size(); i++){
+        List<CollectionTextRelation> actual = clustersOf(pairers.get(i).getPairs(jcas, mention));
+        assertEquals(message + " " + pairers.get(i).getClass().getSimpleName(), expected.get(i), actual);
+        candidates.addAll(actual);
+      }
+      return new ArrayList<>(candidates);
+    }
+  }
+
+  /*
+   * The pairers as they were before the index, visiting every cluster for each mention
+   */
+  private static class Reference {
+    private final JCas jcas;
+    private final Map<Markable,ConllDependencyNode> cache;
+    private final Map<ConllDependencyNode,Collection<IdentifiedAnnotation>> nodeEntMap;
+    private final Set<String> markableStrings = new HashSet<>();
+    private final Map<String,Set<Markable>> headWordMarkables = new HashMap<>();
+
+    private Reference(JCas jcas, Map<Markable,ConllDependencyNode> cache){
+      this.jcas = jcas;
+      this.cache = cache;
+      this.nodeEntMap = JCasUtil.indexCovering(jcas, ConllDependencyNode.class, IdentifiedAnnotation.class);
+    }
+
+    private List<CollectionTextRelation> sentenceDistancePairs(Markable mention, int sentDistance){
+      List<CollectionTextRelation> pairs = new ArrayList<>();
+      Set<String> bestAnaTypes = getBestEnt(mention);
+      for(CollectionTextRelation cluster : JCasUtil.select(jcas, CollectionTextRelation.class)){
+        NonEmptyFSList members = ((NonEmptyFSList)cluster.getMembers());
+        Annotation first = (Annotation) members.getHead();
+        if(first == null || mention.getBegin() <= first.getEnd()) continue;
+        if(!(bestAnaTypes.contains(AnatomicalSiteMention.class.getSimpleName()) ||
+            bestAnaTypes.contains(MedicationEventMention.class.getSimpleName()))){
+          IdentifiedAnnotation mostRecent = (IdentifiedAnnotation) ClusterUtils.getMostRecent(members, mention);
+          if(mostRecent == null || EventCoreferenceAnnotator.sentDist(jcas, mostRecent, mention) > sentDistance) continue;
+        }
+        Set<String> bestClusterTypes = new HashSet<>();
+        for(Markable member : JCasUtil.select(cluster.getMembers(), Markable.class)){
+          bestClusterTypes.addAll(getBestEnt(member));
+        }
+        if(bestAnaTypes.size() > 0 && bestClusterTypes.size() > 0){
+          boolean overlap = false;
+          for(String semType : bestAnaTypes){
+            if(bestClusterTypes.contains(semType)){
+              overlap = true;
+            }
+          }
+          if(!overlap){
+            continue;
+          }
+        }
+        pairs.add(cluster);
+      }
+      return pairs;
+    }
+
+    private List<CollectionTextRelation> sectionHeaderPairs(Markable mention, int sentDist){
+      List<CollectionTextRelation> pairs = new ArrayList<>();
+      for(CollectionTextRelation cluster : JCasUtil.select(jcas, CollectionTextRelation.class)){
+        NonEmptyFSList members = ((NonEmptyFSList)cluster.getMembers());
+        Annotation first = (Annotation) members.getHead();
+        if(first == null || mention.getBegin() <= first.getEnd()){
+          continue;
+        }
+        IdentifiedAnnotation mostRecent = (IdentifiedAnnotation) ClusterUtils.getMostRecent(members, mention);
+        if(mostRecent == null || EventCoreferenceAnnotator.sentDist(jcas, mostRecent, mention) <= sentDist){
+          continue;
+        }
+        List<Paragraph> pars = JCasUtil.selectCovered(jcas, Paragraph.class, 0, mention.getBegin());
+        for(int j = 0; j < pars.size(); j++){
+          boolean match = false;
+          Paragraph par = pars.get(j);
+          List<Sentence> coveredSents = JCasUtil.selectCovered(jcas, Sentence.class, par);
+          if(coveredSents != null && coveredSents.size() == 1){
+            for(Markable m : JCasUtil.select(members, Markable.class)){
+              if(par.getBegin() <= m.getBegin() && par.getEnd() >= m.getEnd()){
+                pairs.add(cluster);
+                match = true;
+                break;
+              }
+            }
+          }
+          if(match) break;
+        }
+      }
+      return pairs;
+    }
+
+    private List<CollectionTextRelation> clusterPairs(Markable mention, int sentDist){
+      List<CollectionTextRelation> pairs = new ArrayList<>();
+      for(CollectionTextRelation cluster : JCasUtil.select(jcas, CollectionTextRelation.class)){
+        NonEmptyFSList members = ((NonEmptyFSList)cluster.getMembers());
+        Annotation first = (Annotation) members.getHead();
+        if(first == null || mention.getBegin() <= first.getEnd()){
+          continue;
+        }
+        IdentifiedAnnotation mostRecent = (IdentifiedAnnotation) ClusterUtils.getMostRecent(members, mention);
+        if(mostRecent == null || EventCoreferenceAnnotator.sentDist(jcas, mostRecent, mention) > sentDist){
+          continue;
+        }
+        int numMembers=0;
+        for(Markable m : JCasUtil.select(cluster.getMembers(), Markable.class)){
+          numMembers++;
+          if(m == mostRecent) break;
+        }
+        if(numMembers > 1){
+          pairs.add(cluster);
+        }
+      }
+      return pairs;
+    }
+
+    private List<CollectionTextRelation> exactStringPairs(Markable mention){
+      List<CollectionTextRelation> pairs = new ArrayList<>();
+      String mentionString = mention.getCoveredText().toLowerCase();
+      if(markableStrings.contains(mentionString)){
+        for(CollectionTextRelation cluster : JCasUtil.select(jcas, CollectionTextRelation.class)){
+          Annotation mostRecent = ClusterUtils.getMostRecent((NonEmptyFSList)cluster.getMembers(), mention);
+          if(mostRecent == null) continue;
+          for(Markable m : JCasUtil.select(cluster.getMembers(), Markable.class)){
+            if(m == mostRecent) break;
+            if(m.getCoveredText().toLowerCase().equals(mentionString)){
+              pairs.add(cluster);
+              break;
+            }
+          }
+        }
+      }
+      markableStrings.add(mentionString);
+      return pairs;
+    }
+
+    private List<CollectionTextRelation> headwordPairs(Markable mention){
+      List<CollectionTextRelationIdentifiedAnnotationPair> pairs = new ArrayList<>();
+      String head = cache.get(mention).getCoveredText().toLowerCase();
+      if(headWordMarkables.containsKey(head)){
+        ClusterMentionFetcher.populatePairs(jcas, mention, headWordMarkables.get(head), pairs);
+      }else{
+        headWordMarkables.put(head, new HashSet<Markable>());
+      }
+      headWordMarkables.get(head).add(mention);
+      return clustersOf(pairs);
+    }
+
+    private Set<String> getBestEnt(Markable markable){
+      Set<String> bestEnts = new HashSet<>();
+      IdentifiedAnnotation bestEnt = null;
+      Set<IdentifiedAnnotation> otherBestEnts = new HashSet<>();
+      ConllDependencyNode head = cache.get(markable);
+      if(head == null){
+        return bestEnts;
+      }
+      for(IdentifiedAnnotation ent : nodeEntMap.get(head)){
+        if(ent.getOntologyConceptArr() == null) continue;
+        ConllDependencyNode entHead = DependencyUtility.getNominalHeadNode(jcas, ent);
+        if(entHead == head){
+          if(bestEnt == null){
+            bestEnt = ent;
+          }else if((ent.getEnd()-ent.getBegin()) > (bestEnt.getEnd() - bestEnt.getBegin())){
+            bestEnt = ent;
+            otherBestEnts = new HashSet<>();
+          }else if((ent.getEnd()-ent.getBegin()) == (bestEnt.getEnd() - bestEnt.getBegin())){
+            otherBestEnts.add(ent);
+          }
+        }
+      }
+      if(bestEnt != null){
+        bestEnts.add(bestEnt.getClass().getSimpleName());
+        for(IdentifiedAnnotation other : otherBestEnts){
+          bestEnts.add(other.getClass().getSimpleName());
+        }
+      }
+      return bestEnts;
+    }
+  }
+}
@@ -25,10 +25,13 @@ import com.googlecode.clearnlp.dependency.DEPTree;
 import com.googlecode.clearnlp.morphology.AbstractMPAnalyzer;
 import com.googlecode.clearnlp.reader.AbstractReader;
 import org.apache.ctakes.core.pipeline.PipeBitInfo;
+import org.apache.ctakes.core.util.SentenceCache;
+import org.apache.ctakes.dependency.parser.ae.shared.ComponentPool;
 import org.apache.ctakes.dependency.parser.ae.shared.DependencySharedModel;
 import org.apache.ctakes.dependency.parser.ae.shared.LemmatizerSharedModel;
 import org.apache.ctakes.dependency.parser.util.ClearDependencyUtility;
 import org.apache.ctakes.dependency.parser.util.DependencyUtility;
+import org.apache.ctakes.dependency.parser.util.SentenceTaskRunner;
 import org.apache.ctakes.typesystem.type.syntax.BaseToken;
 import org.apache.ctakes.typesystem.type.syntax.ConllDependencyNode;
 import org.apache.ctakes.typesystem.type.syntax.NewlineToken;
@@ -49,7 +52,9 @@ import org.apache.uima.resource.ExternalResourceDescription;
 import org.apache.uima.resource.ResourceInitializationException;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * <br>
@@ -83,8 +88,6 @@ import java.util.List;
 )
 public class ClearNLPDependencyParserAE extends JCasAnnotator_ImplBase {
 
-   public final static Object LOCK = new Object();
-   
    final String language = AbstractReader.LANG_EN;
    //  public Logger logger = Logger.getLogger(getClass().getName());
    static private final Logger LOGGER = Logger.getLogger( ClearNLPDependencyParserAE.class.getSimpleName() );
@@ -127,6 +130,30 @@ public class ClearNLPDependencyParserAE extends JCasAnnotator_ImplBase {
          description = "If true, use the default ClearNLP lemmatizer, otherwise use lemmas from the BaseToken normalizedToken field" )
    private boolean useLemmatizer;
 
+   public static final String PARAM_SENTENCE_CACHE_SIZE = "SentenceCacheSize";
+   @ConfigurationParameter(
+         name = PARAM_SENTENCE_CACHE_SIZE,
+         mandatory = false,
+         defaultValue = "0",
+         description = "Number of distinct sentences whose parses are cached and shared by all parsers using the same model, 0 to disable" )
+   private int sentenceCacheSize;
+
+   public static final String PARAM_PARSE_THREADS = "ParseThreads";
+   @ConfigurationParameter(
+         name = PARAM_PARSE_THREADS,
+         mandatory = false,
+         defaultValue = "1",
+         description = "Largest number of threads parsing the sentences of one document, 1 to parse on the calling thread" )
+   private int parseThreads;
+
+   public static final String PARAM_MAX_MODEL_INSTANCES = "MaxModelInstances";
+   @ConfigurationParameter(
+         name = PARAM_MAX_MODEL_INSTANCES,
+         mandatory = false,
+         defaultValue = "0",
+         description = "Largest number of parser model copies this annotator adds to the shared parser pool, 0 for the number of parse threads" )
+   private int maxModelInstances;
+
    public static final String DEP_MODEL_KEY = "DepModel";
    @ExternalResource( key = DEP_MODEL_KEY, mandatory = false )
    private DependencySharedModel parserModel = null;
@@ -135,8 +162,9 @@ public class ClearNLPDependencyParserAE extends JCasAnnotator_ImplBase {
    @ExternalResource( key = LEM_MODEL_KEY, mandatory = false )
    private LemmatizerSharedModel lemmatizerModel = null;
 
-   protected AbstractComponent parser = null;
+   protected ComponentPool parserPool = null;
    protected AbstractMPAnalyzer lemmatizer = null;
+   private SentenceCache<SentenceParse> sentenceCache = null;
 
    @Override
    public void initialize( UimaContext context ) throws ResourceInitializationException {
@@ -162,18 +190,31 @@ public class ClearNLPDependencyParserAE extends JCasAnnotator_ImplBase {
       if ( this.parserModel == null ) {
 //      this.parser = DependencySharedModel.getDefaultModel();
          logDeprecation( PARAM_PARSER_MODEL_FILE_NAME, DEP_MODEL_KEY );
-         this.parser = DependencySharedModel.getModel( parserModelPath, DependencySharedModel.DEFAULT_LANGUAGE );
+         this.parserPool = DependencySharedModel.getParserPool( parserModelPath, DependencySharedModel.DEFAULT_LANGUAGE );
+         this.parserPool.addCapacity( getMaxModelInstances() );
+         this.parserPool.ensureLoaded();
       } else {
-         this.parser = parserModel.getParser();
+         this.parserPool = parserModel.getParserPool();
+         this.parserPool.addCapacity( getMaxModelInstances() );
       }
+      // keyed on the parser pool, which is shared by every annotator using the same model
+      sentenceCache = SentenceCache.getSharedCache( "ClearNLP dependency parser "
+            + parserPool.getClass().getName() + "@" + System.identityHashCode( parserPool ), sentenceCacheSize );
    }
 
    @Override
-   public synchronized void process( JCas jCas ) throws AnalysisEngineProcessException {
+   public void process( JCas jCas ) throws AnalysisEngineProcessException {
       LOGGER.info( "Dependency parser starting with thread:" + Thread.currentThread().getName() );
+      final Map<Sentence, Collection<BaseToken>> sentenceTokens
+            = JCasUtil.indexCovered( jCas, Sentence.class, BaseToken.class );
+      final List<ParseJob> jobs = new ArrayList<>();
       for ( Sentence sentence : JCasUtil.select( jCas, Sentence.class ) ) {
+         final Collection<BaseToken> tokens = sentenceTokens.get( sentence );
+         if ( tokens == null ) {
+            continue;
+         }
          List<BaseToken> printableTokens = new ArrayList<>();
-         for ( BaseToken token : JCasUtil.selectCovered( jCas, BaseToken.class, sentence ) ) {
+         for ( BaseToken token : tokens ) {
             if ( token instanceof NewlineToken ) continue;
             printableTokens.add( token );
          }
@@ -182,29 +223,114 @@ public class ClearNLPDependencyParserAE extends JCasAnnotator_ImplBase {
             // If there are no printable tokens then #convert fails
             continue;
          }
-         DEPTree tree = new DEPTree();
+         jobs.add( new ParseJob( sentence, printableTokens ) );
+      }
+
+      // Run parser on ClearNLP structures, which are not part of the CAS and can be parsed by any thread
+      SentenceTaskRunner.runAll( jobs, parseThreads, this::parse );
+
+      // Convert output back to CAS friendly data types
+      for ( ParseJob job : jobs ) {
+         ArrayList<ConllDependencyNode> nodes = ClearDependencyUtility.convert( jCas, job._tree, job._sentence, job._tokens );
+         DependencyUtility.addToIndexes( jCas, nodes );
+      }
+      LOGGER.info( "Dependency parser ending with thread:" + Thread.currentThread().getName() );
+   }
+
+   private void parse( final ParseJob job ) throws ResourceInitializationException {
+      final SentenceCache.Key key = sentenceCache == null
+                                    ? null : SentenceCache.createKey( job._words, job._lemmas, job._tags );
+      final SentenceParse cachedParse = key == null ? null : sentenceCache.get( key );
+      if ( cachedParse != null ) {
+         cachedParse.applyTo( job._tree );
+         return;
+      }
+      final AbstractComponent parser = parserPool.borrow();
+      try {
+         parser.process( job._tree );
+      } finally {
+         parserPool.release( parser );
+      }
+      if ( key != null ) {
+         sentenceCache.put( key, new SentenceParse( job._tree ) );
+      }
+   }
+
+   @Override
+   public void collectionProcessComplete() throws AnalysisEngineProcessException {
+      super.collectionProcessComplete();
+      if ( sentenceCache != null ) {
+         sentenceCache.logStatistics();
+      }
+   }
+
+   private int getMaxModelInstances() throws ResourceInitializationException {
+      final int maxInstances = maxModelInstances > 0 ? maxModelInstances : parseThreads;
+      if ( maxInstances < 1 ) {
+         throw new ResourceInitializationException( new IllegalArgumentException(
+               PARAM_PARSE_THREADS + " must be at least 1, not " + parseThreads ) );
+      }
+      return maxInstances;
+   }
+
+   static private void logDeprecation( final String parameterName, final String resourceName ) {
+      LOGGER.warn( "Use of configuration parameter " + parameterName
+            + " may be deprecated in the future in favor of external resource " + resourceName );
+   }
+
+   /**
+    * A sentence and the ClearNLP tree built from its tokens.
+    * The tree is built from the CAS on the calling thread so that parsing does not touch the CAS.
+    */
+   private final class ParseJob {
+      private final Sentence _sentence;
+      private final List<BaseToken> _tokens;
+      private final DEPTree _tree = new DEPTree();
+      private final String[] _words;
+      private final String[] _lemmas;
+      private final String[] _tags;
+
+      private ParseJob( final Sentence sentence, final List<BaseToken> printableTokens ) {
+         _sentence = sentence;
+         _tokens = printableTokens;
+         _words = new String[ printableTokens.size() ];
+         _lemmas = new String[ printableTokens.size() ];
+         _tags = new String[ printableTokens.size() ];
 
          // Convert CAS data into structures usable by ClearNLP
          for ( int i = 0; i < printableTokens.size(); i++ ) {
             BaseToken token = printableTokens.get( i );
             String lemma = useLemmatizer ? lemmatizer.getLemma( token.getCoveredText(), token.getPartOfSpeech() ) : token.getNormalizedForm();
             DEPNode node = new DEPNode( i + 1, token.getCoveredText(), lemma, token.getPartOfSpeech(), new DEPFeat() );
-            tree.add( node );
+            _tree.add( node );
+            _words[ i ] = token.getCoveredText();
+            _lemmas[ i ] = lemma;
+            _tags[ i ] = token.getPartOfSpeech();
          }
+      }
+   }
+
+   /**
+    * Heads and labels of a parsed sentence, enough to rebuild the parse of an identical sentence.
+    */
+   static private final class SentenceParse {
+      private final int[] _heads;
+      private final String[] _labels;
 
-         // Run parser and convert output back to CAS friendly data types
-         synchronized(LOCK){
-           parser.process( tree );
-           ArrayList<ConllDependencyNode> nodes = ClearDependencyUtility.convert( jCas, tree, sentence, printableTokens );
-           DependencyUtility.addToIndexes( jCas, nodes );
+      private SentenceParse( final DEPTree tree ) {
+         _heads = new int[ tree.size() ];
+         _labels = new String[ tree.size() ];
+         for ( int i = 1; i < tree.size(); i++ ) {
+            _heads[ i ] = tree.get( i ).getHead().id;
+            _labels[ i ] = tree.get( i ).getLabel();
          }
       }
-      LOGGER.info( "Dependency parser ending with thread:" + Thread.currentThread().getName() );
-   }
 
-   static private void logDeprecation( final String parameterName, final String resourceName ) {
-      LOGGER.warn( "Use of configuration parameter " + parameterName
-            + " may be deprecated in the future in favor of external resource " + resourceName );
+      private void applyTo( final DEPTree tree ) {
+         for ( int i = 1; i < tree.size(); i++ ) {
+            tree.get( i ).setHead( tree.get( _heads[ i ] ), _labels[ i ] );
+         }
+      }
    }
 
    // If someone calls this, they want the default model, lazy initialization of the external resources:
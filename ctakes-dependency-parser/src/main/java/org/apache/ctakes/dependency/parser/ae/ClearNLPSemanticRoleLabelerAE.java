@@ -23,9 +23,11 @@ import com.googlecode.clearnlp.dependency.*;
 import com.googlecode.clearnlp.reader.AbstractReader;
 import org.apache.ctakes.core.pipeline.PipeBitInfo;
 import org.apache.ctakes.core.util.ListFactory;
+import org.apache.ctakes.dependency.parser.ae.shared.ComponentPool;
 import org.apache.ctakes.dependency.parser.ae.shared.SRLSharedParserModel;
 import org.apache.ctakes.dependency.parser.ae.shared.SRLSharedPredictionModel;
 import org.apache.ctakes.dependency.parser.ae.shared.SRLSharedRoleModel;
+import org.apache.ctakes.dependency.parser.util.SentenceTaskRunner;
 import org.apache.ctakes.typesystem.type.syntax.BaseToken;
 import org.apache.ctakes.typesystem.type.syntax.ConllDependencyNode;
 import org.apache.ctakes.typesystem.type.syntax.NewlineToken;
@@ -38,6 +40,7 @@ import org.apache.uima.UimaContext;
 import org.apache.uima.analysis_engine.AnalysisEngineDescription;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
 import org.apache.uima.fit.component.JCasAnnotator_ImplBase;
+import org.apache.uima.fit.descriptor.ConfigurationParameter;
 import org.apache.uima.fit.descriptor.ExternalResource;
 import org.apache.uima.fit.descriptor.TypeCapability;
 import org.apache.uima.fit.factory.AnalysisEngineFactory;
@@ -51,6 +54,8 @@ import org.apache.uima.resource.ExternalResourceDescription;
 import org.apache.uima.resource.ResourceInitializationException;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -111,9 +116,25 @@ public class ClearNLPSemanticRoleLabelerAE extends JCasAnnotator_ImplBase {
        SRLSharedRoleModel.class, 
        SRLSharedRoleModel.DEFAULT_ROLE_MODEL_FILE_NAME);
    
-   protected AbstractComponent parser;
-   protected AbstractComponent identifier;
-   protected AbstractComponent classifier;
+   public static final String PARAM_PARSE_THREADS = "ParseThreads";
+   @ConfigurationParameter(
+         name = PARAM_PARSE_THREADS,
+         mandatory = false,
+         defaultValue = "1",
+         description = "Largest number of threads labeling the sentences of one document, 1 to label on the calling thread" )
+   private int parseThreads;
+
+   public static final String PARAM_MAX_MODEL_INSTANCES = "MaxModelInstances";
+   @ConfigurationParameter(
+         name = PARAM_MAX_MODEL_INSTANCES,
+         mandatory = false,
+         defaultValue = "0",
+         description = "Largest number of copies of each model this annotator adds to the shared component pools, 0 for the number of parse threads" )
+   private int maxModelInstances;
+
+   protected ComponentPool parserPool;
+   protected ComponentPool identifierPool;
+   protected ComponentPool classifierPool;
 
 
    @Override
@@ -122,20 +143,30 @@ public class ClearNLPSemanticRoleLabelerAE extends JCasAnnotator_ImplBase {
 
       logger.info("Initializing ClearNLP semantic role labeler");
       try {
+        final int maxInstances = maxModelInstances > 0 ? maxModelInstances : parseThreads;
         if(this.predModel == null){
-          this.identifier = SRLSharedPredictionModel.getDefaultModel();
+          this.identifierPool = SRLSharedPredictionModel.getDefaultPool();
+          this.identifierPool.addCapacity(maxInstances);
+          this.identifierPool.ensureLoaded();
         }else{
-          this.identifier = predModel.getComponent();
+          this.identifierPool = predModel.getComponentPool();
+          this.identifierPool.addCapacity(maxInstances);
         }
         if(this.roleModel == null){
-          this.classifier = SRLSharedRoleModel.getDefaultModel();
+          this.classifierPool = SRLSharedRoleModel.getDefaultPool();
+          this.classifierPool.addCapacity(maxInstances);
+          this.classifierPool.ensureLoaded();
         }else{
-          this.classifier = roleModel.getComponent();
+          this.classifierPool = roleModel.getComponentPool();
+          this.classifierPool.addCapacity(maxInstances);
         }
         if(this.parserModel == null){
-          this.parser = SRLSharedParserModel.getDefaultModel();
+          this.parserPool = SRLSharedParserModel.getDefaultPool();
+          this.parserPool.addCapacity(maxInstances);
+          this.parserPool.ensureLoaded();
         }else{
-          this.parser = parserModel.getComponent();
+          this.parserPool = parserModel.getComponentPool();
+          this.parserPool.addCapacity(maxInstances);
         }
       } catch ( Exception e ) {
          throw new ResourceInitializationException( e );
@@ -144,9 +175,16 @@ public class ClearNLPSemanticRoleLabelerAE extends JCasAnnotator_ImplBase {
 
    @Override
    public void process( JCas jCas ) throws AnalysisEngineProcessException {
+      final Map<Sentence, Collection<BaseToken>> sentenceTokens
+            = JCasUtil.indexCovered( jCas, Sentence.class, BaseToken.class );
+      final Map<Sentence, Collection<ConllDependencyNode>> sentenceDepNodes
+            = JCasUtil.indexCovered( jCas, Sentence.class, ConllDependencyNode.class );
+      final Map<BaseToken, Collection<ConllDependencyNode>> tokenDepNodes
+            = JCasUtil.indexCovered( jCas, BaseToken.class, ConllDependencyNode.class );
+      final List<LabelJob> jobs = new ArrayList<>();
       for ( Sentence sentence : JCasUtil.select( jCas, Sentence.class ) ) {
          List<BaseToken> printableTokens = new ArrayList<>();
-         for ( BaseToken token : JCasUtil.selectCovered( jCas, BaseToken.class, sentence ) ) {
+         for ( BaseToken token : sentenceTokens.getOrDefault( sentence, Collections.emptyList() ) ) {
             if ( token instanceof NewlineToken ) {
                continue;
             }
@@ -158,7 +196,7 @@ public class ClearNLPSemanticRoleLabelerAE extends JCasAnnotator_ImplBase {
          // ClearNLP dependency node/tree
          Map<ConllDependencyNode, Integer> depNodeToID = new HashMap<>();
          int nodeId = 1;
-         for ( ConllDependencyNode depNode : JCasUtil.selectCovered( jCas, ConllDependencyNode.class, sentence ) ) {
+         for ( ConllDependencyNode depNode : sentenceDepNodes.getOrDefault( sentence, Collections.emptyList() ) ) {
             //if (depNode instanceof TopDependencyNode) {
             if ( depNode.getHead() == null ) {
                // A node without the head is the head of the sentence
@@ -181,7 +219,7 @@ public class ClearNLPSemanticRoleLabelerAE extends JCasAnnotator_ImplBase {
             // ignore newline tokens within a sentence - newline = whitespace = non-token
             if ( !(token instanceof NewlineToken) ) {
                // Determine HeadId
-               List<ConllDependencyNode> casDepNodes = JCasUtil.selectCovered( jCas, ConllDependencyNode.class, token );
+               List<ConllDependencyNode> casDepNodes = new ArrayList<>( tokenDepNodes.get( token ) );
 
                ConllDependencyNode casDepNode = casDepNodes.get( 0 );
                if ( casDepNode.getId() == 0 ) {
@@ -219,19 +257,42 @@ public class ClearNLPSemanticRoleLabelerAE extends JCasAnnotator_ImplBase {
          }
 
          tree.initSHeads();
+         jobs.add( new LabelJob( printableTokens, tree ) );
+      }
 
-         // Run the SRL
-         identifier.process( tree );
-         classifier.process( tree );
-         parser.process( tree );
+      // Run the SRL on ClearNLP structures, which are not part of the CAS and can be labeled by any thread
+      SentenceTaskRunner.runAll( jobs, parseThreads, job -> {
+         runComponent( identifierPool, job._tree );
+         runComponent( classifierPool, job._tree );
+         runComponent( parserPool, job._tree );
+      } );
 
+      // Convert ClearNLP SRL output to CAS types
+      for ( LabelJob job : jobs ) {
+         extractSRLInfo( jCas, job._tokens, job._tree );
+      }
+   }
 
-         // Convert ClearNLP SRL output to CAS types
-         extractSRLInfo( jCas, printableTokens, tree );
+   static private void runComponent( final ComponentPool pool, final DEPTree tree ) throws ResourceInitializationException {
+      final AbstractComponent component = pool.borrow();
+      try {
+         component.process( tree );
+      } finally {
+         pool.release( component );
+      }
+   }
 
+   /**
+    * Tokens of a sentence and the ClearNLP tree built from their dependency nodes.
+    */
+   static private final class LabelJob {
+      private final List<BaseToken> _tokens;
+      private final DEPTree _tree;
 
+      private LabelJob( final List<BaseToken> tokens, final DEPTree tree ) {
+         _tokens = tokens;
+         _tree = tree;
       }
-
    }
 
    /**
@@ -0,0 +1,131 @@
+package org.apache.ctakes.dependency.parser.ae.shared;
+
+import com.googlecode.clearnlp.component.AbstractComponent;
+import com.googlecode.clearnlp.engine.EngineGetter;
+import org.apache.ctakes.core.resource.FileLocator;
+import org.apache.log4j.Logger;
+import org.apache.uima.resource.ResourceInitializationException;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Instances of a ClearNLP component loaded from one model, each lent to one thread at a time.
+ * <p>
+ * A ClearNLP 1.3 component keeps the state of the sentence it is decoding in fields next to its model,
+ * so a single instance cannot process two sentences at once.  Instead of locking the one instance,
+ * a pool lends an idle instance to each thread and loads another from the same model only when every
+ * loaded instance is busy.  A pipeline that never processes two sentences at once holds a single instance.
+ * <p>
+ * The number of instances is bounded by the capacity that annotators add with {@link #addCapacity(int)},
+ * normally their parse thread count.  Once that many are loaded, a thread borrowing waits for another
+ * thread to release an instance rather than loading another copy of the model.
+ * <p>
+ * Pools are shared by model path and mode so that every annotator using the same model uses the same pool.
+ */
+@ThreadSafe
+final public class ComponentPool {
+
+   static private final Logger LOGGER = Logger.getLogger( "ComponentPool" );
+
+   static private final Map<String, ComponentPool> SHARED_POOLS = new HashMap<>();
+
+   private final String _modelPath;
+   private final String _mode;
+   private final InstancePool<AbstractComponent> _pool;
+
+   private ComponentPool( final String modelPath, final String language, final String mode ) {
+      _modelPath = modelPath;
+      _mode = mode;
+      _pool = new InstancePool<>( () -> load( language ) );
+   }
+
+   /**
+    * @param modelPath path of the model, as accepted by {@link FileLocator#getAsStream(String)}
+    * @param language  ClearNLP language of the model
+    * @param mode      ClearNLP mode of the component, e.g. NLPLib.MODE_DEP
+    * @return the pool for the model, created empty if it does not exist yet
+    */
+   static public ComponentPool getSharedPool( final String modelPath, final String language, final String mode ) {
+      synchronized ( SHARED_POOLS ) {
+         return SHARED_POOLS.computeIfAbsent( mode + " " + modelPath,
+               k -> new ComponentPool( modelPath, language, mode ) );
+      }
+   }
+
+   /**
+    * Adds a component already loaded from the pool's model, so that it is lent instead of loading another.
+    *
+    * @param component component loaded from the pool's model
+    */
+   public void add( final AbstractComponent component ) {
+      _pool.add( component );
+   }
+
+   /**
+    * Raises the largest number of components loaded from the model.
+    * Each annotator using the pool adds the number of threads with which it uses the pool.
+    *
+    * @param count number of components by which to raise the maximum, at least 1
+    */
+   public void addCapacity( final int count ) {
+      _pool.addCapacity( count );
+   }
+
+   /**
+    * Loads the first component of the pool if none has been loaded, so that a bad model fails at initialization.
+    *
+    * @throws ResourceInitializationException if the model cannot be loaded
+    */
+   public void ensureLoaded() throws ResourceInitializationException {
+      if ( _pool.getLoadedCount() == 0 ) {
+         release( borrow() );
+      }
+   }
+
+   /**
+    * @return an idle component, loaded from the model if no loaded component is idle and fewer than the maximum
+    * are loaded, otherwise the first component released by another thread.
+    * It must be given back with {@link #release(AbstractComponent)}.
+    * @throws ResourceInitializationException if the model cannot be loaded or the thread is interrupted while waiting
+    */
+   public AbstractComponent borrow() throws ResourceInitializationException {
+      return _pool.borrow();
+   }
+
+   /**
+    * @param component component obtained from {@link #borrow()} that is no longer used by the calling thread
+    */
+   public void release( final AbstractComponent component ) {
+      _pool.release( component );
+   }
+
+   /**
+    * @return number of components loaded from the model so far
+    */
+   public int getLoadedCount() {
+      return _pool.getLoadedCount();
+   }
+
+   /**
+    * @return largest number of components loaded from the model
+    */
+   public int getMaxCount() {
+      return _pool.getMaxCount();
+   }
+
+   private AbstractComponent load( final String language ) throws ResourceInitializationException {
+      try {
+         final AbstractComponent component
+               = EngineGetter.getComponent( FileLocator.getAsStream( _modelPath ), language, _mode );
+         LOGGER.info( "Loaded ClearNLP " + _mode + " component " + getLoadedCount() + " of at most " + getMaxCount()
+                      + " from " + _modelPath );
+         return component;
+      } catch ( IOException e ) {
+         throw new ResourceInitializationException( e );
+      }
+   }
+
+}
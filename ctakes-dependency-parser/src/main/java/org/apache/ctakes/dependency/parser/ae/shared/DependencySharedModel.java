@@ -16,7 +16,7 @@ import java.net.URI;
 
 public class DependencySharedModel implements SharedResourceObject {
 
-   private AbstractComponent parser;
+   private ComponentPool parserPool;
    public static final String DEFAULT_MODEL_FILE_NAME = "org/apache/ctakes/dependency/parser/models/dependency/mayo-en-dep-1.3.0.jar";
    static public final String DEFAULT_LANGUAGE = AbstractReader.LANG_EN;
    // If this is final then why don't we just use a default such as above?  Future mutability?
@@ -35,15 +35,20 @@ public class DependencySharedModel implements SharedResourceObject {
 //    }catch(IOException e){
 //      throw new ResourceInitializationException(e);
 //    }
-      if ( uri != null ) {
-         this.parser = getModel( uri.getPath(), this.language );
-      } else {
-         this.parser = getDefaultModel();
-      }
+      final String modelPath = uri != null ? uri.getPath() : DEFAULT_MODEL_FILE_NAME;
+      this.parserPool = getParserPool( modelPath, this.language );
+      this.parserPool.add( getModel( modelPath, this.language ) );
+   }
+
+   /**
+    * @return pool of parsers loaded from the model, for use by concurrent threads
+    */
+   public ComponentPool getParserPool() {
+      return parserPool;
    }
 
-   public AbstractComponent getParser() {
-      return parser;
+   static public ComponentPool getParserPool( final String modelPath, final String language ) {
+      return ComponentPool.getSharedPool( modelPath, language, NLPLib.MODE_DEP );
    }
 
    static public AbstractComponent getModel( final String modelPath, final String language ) throws ResourceInitializationException {
@@ -0,0 +1,119 @@
+package org.apache.ctakes.dependency.parser.ae.shared;
+
+import org.apache.uima.resource.ResourceInitializationException;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Instances lent to one thread at a time, loaded on demand up to a maximum count.
+ * <p>
+ * A thread that borrows while every loaded instance is busy loads another if the maximum has not been reached,
+ * otherwise it waits until an instance is released.  The maximum is the sum of the capacities added to the pool,
+ * and at least one.
+ *
+ * @param <T> type of the pooled instances
+ */
+@ThreadSafe
+final class InstancePool<T> {
+
+   /**
+    * Loads a new instance.
+    *
+    * @param <T> type of the pooled instances
+    */
+   interface Loader<T> {
+      T load() throws ResourceInitializationException;
+   }
+
+   private final Loader<T> _loader;
+   // guarded by this
+   private final Deque<T> _idle = new ArrayDeque<>();
+   // includes the instances still being loaded, guarded by this
+   private int _loadedCount;
+   // guarded by this
+   private int _capacity;
+
+   InstancePool( final Loader<T> loader ) {
+      _loader = loader;
+   }
+
+   /**
+    * @param instance instance already loaded, lent instead of loading another.  It counts toward the maximum.
+    */
+   synchronized void add( final T instance ) {
+      _loadedCount++;
+      _idle.push( instance );
+      notifyAll();
+   }
+
+   /**
+    * @param count number of instances by which to raise the maximum
+    */
+   synchronized void addCapacity( final int count ) {
+      if ( count < 1 ) {
+         throw new IllegalArgumentException( "Capacity must be at least 1, not " + count );
+      }
+      _capacity += count;
+      notifyAll();
+   }
+
+   /**
+    * @return an idle instance, loaded if none is idle and the maximum has not been reached.
+    * It must be given back with {@link #release(Object)}.
+    * @throws ResourceInitializationException if an instance cannot be loaded or the thread is interrupted while waiting
+    */
+   T borrow() throws ResourceInitializationException {
+      synchronized ( this ) {
+         while ( _idle.isEmpty() && _loadedCount >= getMaxCount() ) {
+            try {
+               wait();
+            } catch ( InterruptedException intE ) {
+               Thread.currentThread().interrupt();
+               throw new ResourceInitializationException( intE );
+            }
+         }
+         if ( !_idle.isEmpty() ) {
+            return _idle.pop();
+         }
+         _loadedCount++;
+      }
+      boolean loaded = false;
+      try {
+         final T instance = _loader.load();
+         loaded = true;
+         return instance;
+      } finally {
+         if ( !loaded ) {
+            synchronized ( this ) {
+               _loadedCount--;
+               notifyAll();
+            }
+         }
+      }
+   }
+
+   /**
+    * @param instance instance obtained from {@link #borrow()} that is no longer used by the calling thread
+    */
+   synchronized void release( final T instance ) {
+      _idle.push( instance );
+      notifyAll();
+   }
+
+   /**
+    * @return number of instances loaded or being loaded
+    */
+   synchronized int getLoadedCount() {
+      return _loadedCount;
+   }
+
+   /**
+    * @return largest number of instances that are loaded
+    */
+   synchronized int getMaxCount() {
+      return Math.max( 1, _capacity );
+   }
+
+}
@@ -14,17 +14,21 @@ import com.googlecode.clearnlp.reader.AbstractReader;
 
 public abstract class SRLSharedModel implements SharedResourceObject {
 
-  protected AbstractComponent component;
+  protected ComponentPool componentPool;
   protected String language = AbstractReader.LANG_EN;
   
   @Override
   public void load(DataResource aData) throws ResourceInitializationException {
     URI modelUri = aData.getUri();
-    this.component = getUriComponent(modelUri.toString(), this.language, this.getMode() );
+    this.componentPool = ComponentPool.getSharedPool(modelUri.toString(), this.language, this.getMode());
+    this.componentPool.add(getUriComponent(modelUri.toString(), this.language, this.getMode()));
   }
 
-  public AbstractComponent getComponent(){
-    return this.component;
+  /**
+   * @return pool of components loaded from the model, for use by concurrent threads
+   */
+  public ComponentPool getComponentPool(){
+    return this.componentPool;
   }
   
   public static AbstractComponent getUriComponent(String uri, String lang, String mode) throws ResourceInitializationException{
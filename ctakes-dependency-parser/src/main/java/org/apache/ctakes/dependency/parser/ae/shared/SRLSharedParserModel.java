@@ -18,4 +18,8 @@ public class SRLSharedParserModel extends SRLSharedModel {
   public static AbstractComponent getDefaultModel() throws ResourceInitializationException {
     return SRLSharedModel.getUriComponent(DEFAULT_SRL_MODEL_FILE_NAME, AbstractReader.LANG_EN, NLPLib.MODE_SRL);
   }
+
+  public static ComponentPool getDefaultPool(){
+    return ComponentPool.getSharedPool(DEFAULT_SRL_MODEL_FILE_NAME, AbstractReader.LANG_EN, NLPLib.MODE_SRL);
+  }
 }
@@ -18,4 +18,8 @@ public class SRLSharedPredictionModel extends SRLSharedModel {
   public static AbstractComponent getDefaultModel() throws ResourceInitializationException{
     return SRLSharedModel.getUriComponent(DEFAULT_PRED_MODEL_FILE_NAME, AbstractReader.LANG_EN, NLPLib.MODE_PRED);
   }
+
+  public static ComponentPool getDefaultPool(){
+    return ComponentPool.getSharedPool(DEFAULT_PRED_MODEL_FILE_NAME, AbstractReader.LANG_EN, NLPLib.MODE_PRED);
+  }
 }
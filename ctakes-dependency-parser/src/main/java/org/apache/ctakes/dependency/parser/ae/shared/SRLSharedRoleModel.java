@@ -18,4 +18,8 @@ public class SRLSharedRoleModel extends SRLSharedModel {
   public static AbstractComponent getDefaultModel() throws ResourceInitializationException{
     return SRLSharedModel.getUriComponent(DEFAULT_ROLE_MODEL_FILE_NAME, AbstractReader.LANG_EN, NLPLib.MODE_ROLE);
   }
+
+  public static ComponentPool getDefaultPool(){
+    return ComponentPool.getSharedPool(DEFAULT_ROLE_MODEL_FILE_NAME, AbstractReader.LANG_EN, NLPLib.MODE_ROLE);
+  }
 }
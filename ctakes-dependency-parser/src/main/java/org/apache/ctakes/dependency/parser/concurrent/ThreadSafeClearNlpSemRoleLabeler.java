@@ -15,7 +15,7 @@ import org.apache.uima.resource.ResourceInitializationException;
 /**
  * Normally I would use composition and a singleton, but here extension is done for @ConfigurationParameter discovery.
  * Made a singleton mostly for model memory.
- * ClearNLPSemanticRoleLabelerAE is almost thread safe ... the shared models are not immutable.
+ * The shared ClearNLP components are not immutable, so ClearNLPSemanticRoleLabelerAE lends each thread its own.
  * <p>
  * {@inheritDoc}
  *
@@ -96,6 +96,14 @@ final public class ThreadSafeClearNlpSemRoleLabeler extends ClearNLPSemanticRole
          return _delegate;
       }
 
+      /**
+       * The delegate lends each parsing thread its own ClearNLP components, so documents are not processed in turn.
+       */
+      @Override
+      public void process( final JCas jCas ) throws AnalysisEngineProcessException {
+         _delegate.process( jCas );
+      }
+
       @Override
       public boolean isInitialized() {
          return _initialized;
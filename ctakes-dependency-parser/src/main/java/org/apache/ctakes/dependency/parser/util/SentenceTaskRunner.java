@@ -0,0 +1,102 @@
+package org.apache.ctakes.dependency.parser.util;
+
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a task over the sentences of a document, fanning the sentences of a long document out to other threads.
+ * <p>
+ * The calling thread always takes part, and helper threads are only started when there are enough sentences
+ * to keep them busy.  Sentences are handed out one at a time from a shared counter so that a few long sentences
+ * do not leave the other threads idle.  Tasks must not touch the CAS, which is not thread safe:
+ * read the CAS before and write to it after.
+ */
+final public class SentenceTaskRunner {
+
+   /**
+    * Work done for a single sentence.
+    *
+    * @param <T> type holding the sentence input and output
+    */
+   public interface SentenceTask<T> {
+      void run( T sentence ) throws Exception;
+   }
+
+   // tasks are never queued, so a cached pool grows to the number of helper threads in use at once
+   static private final ExecutorService EXECUTOR = Executors.newCachedThreadPool( r -> {
+      final Thread thread = new Thread( r, "SentenceTaskRunner" );
+      thread.setDaemon( true );
+      return thread;
+   } );
+
+   // fewer sentences than this per thread cost more to hand off than they save
+   static private final int MIN_SENTENCES_PER_THREAD = 4;
+
+   private SentenceTaskRunner() {
+   }
+
+   /**
+    * @param sentences   sentences to process
+    * @param threadCount largest number of threads, including the calling thread, to run tasks on
+    * @param task        task to run once for each sentence
+    * @param <T>         type holding the sentence input and output
+    * @throws AnalysisEngineProcessException wrapping the first exception thrown by a task.
+    *                                        Every started task has finished when it is thrown.
+    */
+   static public <T> void runAll( final List<T> sentences, final int threadCount, final SentenceTask<T> task )
+         throws AnalysisEngineProcessException {
+      final AtomicInteger next = new AtomicInteger();
+      final SentenceTask<Void> worker = v -> {
+         try {
+            for ( int i = next.getAndIncrement(); i < sentences.size(); i = next.getAndIncrement() ) {
+               task.run( sentences.get( i ) );
+            }
+         } catch ( Exception e ) {
+            // stop the other threads taking more sentences
+            next.set( sentences.size() );
+            throw e;
+         }
+      };
+      final int helperCount = Math.min( threadCount, sentences.size() / MIN_SENTENCES_PER_THREAD ) - 1;
+      final List<Future<Void>> futures = new ArrayList<>();
+      for ( int i = 0; i < helperCount; i++ ) {
+         futures.add( EXECUTOR.submit( () -> {
+            worker.run( null );
+            return null;
+         } ) );
+      }
+      Exception failure = null;
+      try {
+         worker.run( null );
+      } catch ( Exception e ) {
+         failure = e;
+      }
+      for ( Future<Void> future : futures ) {
+         try {
+            future.get();
+         } catch ( ExecutionException eE ) {
+            if ( failure == null ) {
+               failure = eE.getCause() instanceof Exception ? (Exception)eE.getCause() : eE;
+            }
+         } catch ( InterruptedException iE ) {
+            Thread.currentThread().interrupt();
+            if ( failure == null ) {
+               failure = iE;
+            }
+         }
+      }
+      if ( failure instanceof AnalysisEngineProcessException ) {
+         throw (AnalysisEngineProcessException)failure;
+      } else if ( failure != null ) {
+         throw new AnalysisEngineProcessException( failure );
+      }
+   }
+
+}
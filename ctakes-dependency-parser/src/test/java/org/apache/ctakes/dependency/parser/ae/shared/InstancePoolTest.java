@@ -0,0 +1,141 @@
+package org.apache.ctakes.dependency.parser.ae.shared;
+
+import org.apache.uima.resource.ResourceInitializationException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Borrows and releases instances from many threads at once, checking that no instance is lent to two threads
+ * and that no more instances are loaded than the pool's capacity.
+ */
+public class InstancePoolTest {
+
+   @Test
+   public void testConcurrentBorrowAndRelease() throws Exception {
+      final int threadCount = 8;
+      final int capacity = 3;
+      final AtomicInteger loads = new AtomicInteger();
+      final InstancePool<Object> pool = new InstancePool<>( () -> {
+         loads.incrementAndGet();
+         return new Object();
+      } );
+      pool.addCapacity( 2 );
+      pool.addCapacity( 1 );
+      final Set<Object> lent = Collections.synchronizedSet( Collections.newSetFromMap( new IdentityHashMap<>() ) );
+      final AtomicInteger maxLent = new AtomicInteger();
+      final CountDownLatch start = new CountDownLatch( 1 );
+      final ExecutorService executor = Executors.newFixedThreadPool( threadCount );
+      try {
+         final List<Future<?>> futures = new ArrayList<>();
+         for ( int t = 0; t < threadCount; t++ ) {
+            futures.add( executor.submit( () -> {
+               start.await();
+               for ( int i = 0; i < 2000; i++ ) {
+                  final Object instance = pool.borrow();
+                  assertTrue( "An instance was lent to two threads", lent.add( instance ) );
+                  maxLent.accumulateAndGet( lent.size(), Math::max );
+                  if ( i % 100 == 0 ) {
+                     Thread.sleep( 1 );
+                  }
+                  assertTrue( lent.remove( instance ) );
+                  pool.release( instance );
+               }
+               return null;
+            } ) );
+         }
+         start.countDown();
+         for ( Future<?> future : futures ) {
+            future.get( 60, TimeUnit.SECONDS );
+         }
+      } finally {
+         executor.shutdownNow();
+      }
+      assertTrue( "Loaded " + loads.get(), loads.get() <= capacity );
+      assertEquals( loads.get(), pool.getLoadedCount() );
+      assertTrue( "Lent " + maxLent.get(), maxLent.get() <= capacity );
+      assertTrue( "Lent " + maxLent.get(), maxLent.get() > 1 );
+   }
+
+   @Test
+   public void testBorrowWaitsForRelease() throws Exception {
+      final InstancePool<Object> pool = new InstancePool<>( Object::new );
+      pool.addCapacity( 1 );
+      final Object first = pool.borrow();
+      final ExecutorService executor = Executors.newSingleThreadExecutor();
+      try {
+         final Future<Object> second = executor.submit( pool::borrow );
+         Thread.sleep( 200 );
+         assertFalse( "Borrowed more than the capacity", second.isDone() );
+         pool.release( first );
+         assertSame( first, second.get( 10, TimeUnit.SECONDS ) );
+      } finally {
+         executor.shutdownNow();
+      }
+      assertEquals( 1, pool.getLoadedCount() );
+   }
+
+   @Test
+   public void testAddedCapacityWakesBorrower() throws Exception {
+      final InstancePool<Object> pool = new InstancePool<>( Object::new );
+      final Object first = pool.borrow();
+      final ExecutorService executor = Executors.newSingleThreadExecutor();
+      try {
+         final Future<Object> second = executor.submit( pool::borrow );
+         Thread.sleep( 200 );
+         assertFalse( second.isDone() );
+         pool.addCapacity( 2 );
+         assertNotSame( first, second.get( 10, TimeUnit.SECONDS ) );
+      } finally {
+         executor.shutdownNow();
+      }
+      assertEquals( 2, pool.getLoadedCount() );
+   }
+
+   @Test
+   public void testFailedLoadFreesSlot() throws Exception {
+      final AtomicInteger loads = new AtomicInteger();
+      final InstancePool<Object> pool = new InstancePool<>( () -> {
+         if ( loads.incrementAndGet() == 1 ) {
+            throw new ResourceInitializationException( new IllegalStateException( "Bad model" ) );
+         }
+         return new Object();
+      } );
+      try {
+         pool.borrow();
+         fail( "The first load should fail" );
+      } catch ( ResourceInitializationException riE ) {
+         assertEquals( 0, pool.getLoadedCount() );
+      }
+      assertNotNull( pool.borrow() );
+      assertEquals( 1, pool.getLoadedCount() );
+   }
+
+   @Test
+   public void testAddedInstanceIsLent() throws Exception {
+      final InstancePool<Object> pool = new InstancePool<>( () -> {
+         throw new ResourceInitializationException( new IllegalStateException( "Should not load" ) );
+      } );
+      final Object added = new Object();
+      pool.add( added );
+      assertSame( added, pool.borrow() );
+   }
+
+   @Test( expected = IllegalArgumentException.class )
+   public void testNoCapacity() {
+      new InstancePool<>( Object::new ).addCapacity( 0 );
+   }
+
+}
@@ -23,6 +23,7 @@ import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
 
@@ -41,20 +42,9 @@ import org.apache.ctakes.core.util.JCasUtil;
 import org.apache.ctakes.core.util.ParamUtil;
 import org.apache.ctakes.drugner.DrugMention;
 import org.apache.ctakes.drugner.elements.DrugChangeStatusElement;
-import org.apache.ctakes.drugner.fsm.machines.elements.DecimalStrengthFSM;
-import org.apache.ctakes.drugner.fsm.machines.elements.DosagesFSM;
-import org.apache.ctakes.drugner.fsm.machines.elements.DrugChangeStatusFSM;
-import org.apache.ctakes.drugner.fsm.machines.elements.DurationFSM;
-import org.apache.ctakes.drugner.fsm.machines.elements.FormFSM;
-import org.apache.ctakes.drugner.fsm.machines.elements.FractionStrengthFSM;
-import org.apache.ctakes.drugner.fsm.machines.elements.FrequencyFSM;
-import org.apache.ctakes.drugner.fsm.machines.elements.FrequencyUnitFSM;
-import org.apache.ctakes.drugner.fsm.machines.elements.RangeStrengthFSM;
-import org.apache.ctakes.drugner.fsm.machines.elements.RouteFSM;
-import org.apache.ctakes.drugner.fsm.machines.elements.StrengthFSM;
-import org.apache.ctakes.drugner.fsm.machines.elements.StrengthUnitFSM;
+import org.apache.ctakes.drugner.fsm.machines.DrugFSMCascade;
+import org.apache.ctakes.drugner.fsm.machines.DrugFSMCascade.Stage;
 import org.apache.ctakes.drugner.fsm.machines.util.SubSectionIndicatorFSM;
-import org.apache.ctakes.drugner.fsm.machines.util.SuffixStrengthFSM;
 import org.apache.ctakes.drugner.fsm.output.elements.BaseTokenImpl;
 import org.apache.ctakes.drugner.fsm.output.elements.DosageToken;
 import org.apache.ctakes.drugner.fsm.output.elements.DrugChangeStatusToken;
@@ -160,6 +150,11 @@ public class DrugMentionAnnotator extends JCasAnnotator_ImplBase
   	 * Annotation type that defines the boundary within which the dictionary hits should be present. 
   	 */
   	public static String BOUNDARY_ANN_TYPE = "STATUS_BOUNDARY_ANN_TYPE";
+  	/**
+  	 * Smallest number of tokens for which independent drug attribute machines are run concurrently, -1 for never.
+  	 */
+  	public static String PARALLEL_FSM_TOKEN_THRESHOLD = "PARALLEL_FSM_TOKEN_THRESHOLD";
+  	public static final int DEFAULT_PARALLEL_FSM_TOKEN_THRESHOLD = 500;
   	public static int NO_WINDOW_SIZE_SPECIFIED = -1;
   	public static int NO_ANNOTATION_TYPE_SPECIFIED = -1;
 
@@ -167,20 +162,8 @@ public class DrugMentionAnnotator extends JCasAnnotator_ImplBase
   	private int iAnnotationType = NO_ANNOTATION_TYPE_SPECIFIED; //type used to define a window
   	private int iBoundaryAnnType = NO_ANNOTATION_TYPE_SPECIFIED; //type used to define boundary across which pairs cannot exist.
 
-	private FractionStrengthFSM iv_fractionFSM;
-	private RangeStrengthFSM iv_rangeFSM;
 	private SubSectionIndicatorFSM iv_subMedSectionFSM;
-	private DosagesFSM iv_dosagesFSM;
-	private SuffixStrengthFSM iv_suffixFSM;
-	private DurationFSM iv_durationFSM;
-	private RouteFSM iv_routeFSM;
-	private FrequencyFSM iv_frequencyFSM;
-	private DrugChangeStatusFSM iv_statusFSM;
-	private DecimalStrengthFSM iv_decimalFSM;
-	private StrengthFSM iv_strengthFSM;
-	private StrengthUnitFSM iv_strengthUnitFSM;
-	private FrequencyUnitFSM iv_frequencyUnitFSM;
-	private FormFSM iv_formFSM;
+	private DrugFSMCascade iv_fsmCascade;
 	private static final int NERTypeIdentifier = 1;
 	private static boolean handledRanges;
 	private Set<String> iv_exclusionTagSet = null;
@@ -196,19 +179,11 @@ public class DrugMentionAnnotator extends JCasAnnotator_ImplBase
 					PARAM_SEGMENTS_MEDICATION_RELATED, annotCtx);
 
 
-		iv_fractionFSM = new FractionStrengthFSM();
-		iv_suffixFSM = new SuffixStrengthFSM();
-		iv_durationFSM = new DurationFSM();
-		iv_routeFSM = new RouteFSM();
-		iv_frequencyFSM = new FrequencyFSM();
-		iv_dosagesFSM = new DosagesFSM();
-		iv_rangeFSM = new RangeStrengthFSM();
-		iv_statusFSM = new DrugChangeStatusFSM();
-		iv_decimalFSM = new DecimalStrengthFSM();
-		iv_strengthFSM = new StrengthFSM();
-		iv_strengthUnitFSM = new StrengthUnitFSM();
-		iv_frequencyUnitFSM = new FrequencyUnitFSM();
-		iv_formFSM = new FormFSM();
+		int parallelTokenThreshold = DEFAULT_PARALLEL_FSM_TOKEN_THRESHOLD;
+		String threshold = (String)annotCtx.getConfigParameterValue(PARALLEL_FSM_TOKEN_THRESHOLD);
+		if (threshold != null)
+			parallelTokenThreshold = Integer.parseInt(threshold);
+		iv_fsmCascade = new DrugFSMCascade(parallelTokenThreshold);
 		iv_subMedSectionFSM = new SubSectionIndicatorFSM();
 		iv_logger.info("Finite state machines loaded.");
 		
@@ -735,23 +710,25 @@ public class DrugMentionAnnotator extends JCasAnnotator_ImplBase
 			{
 		try
 		{
-			Set fractionTokenSet = iv_fractionFSM.execute(baseTokenList);
+			Map<Stage, Set> fsmTokenSets = iv_fsmCascade.execute(baseTokenList);
+
+			Set fractionTokenSet = fsmTokenSets.get(Stage.FRACTION);
 			addAnnotations(jcas, fractionTokenSet, FractionStrengthAnnotation.type);
 
-			Set decimalTokenSet = iv_decimalFSM.execute(baseTokenList);
+			Set decimalTokenSet = fsmTokenSets.get(Stage.DECIMAL);
 
 			addAnnotations(jcas, decimalTokenSet, FractionStrengthAnnotation.type);
 
-			Set statusTokenSet = iv_statusFSM.execute(baseTokenList);
+			Set statusTokenSet = fsmTokenSets.get(Stage.STATUS);
 
 			addAnnotations(jcas, statusTokenSet, DrugChangeStatusAnnotation.type);    
 			//statusConfidence = true;
 
-			Set rangeTokenSet = iv_rangeFSM.execute(baseTokenList);
+			Set rangeTokenSet = fsmTokenSets.get(Stage.RANGE);
 
       addAnnotations(jcas, decimalTokenSet, RangeStrengthAnnotation.type);
       //Mayo SPM 2/20/2012 Changed due to separation of strength tokens
-      Set strengthTokenSet = iv_strengthUnitFSM.execute(baseTokenList, rangeTokenSet);
+      Set strengthTokenSet = fsmTokenSets.get(Stage.STRENGTH_UNIT);
       Iterator measurementTokenItr = strengthTokenSet.iterator();
       int begin = 0, previous = 0;
       while (measurementTokenItr.hasNext())
@@ -795,8 +772,7 @@ public class DrugMentionAnnotator extends JCasAnnotator_ImplBase
 //        }
 //      }
 
-			Set formTokenSet = iv_formFSM.execute(baseTokenList,
-					/* decimalTokenSet */new HashSet());
+			Set formTokenSet = fsmTokenSets.get(Stage.FORM);
 			Iterator formTokenItr = formTokenSet.iterator();
 
 			while (formTokenItr.hasNext())
@@ -815,7 +791,7 @@ public class DrugMentionAnnotator extends JCasAnnotator_ImplBase
 			// confidence factoring
 			//      if (!doseConfidence && decTokenSet != null)
 //      {
-        Set preTokenSet = iv_strengthFSM.execute(baseTokenList, strengthTokenSet, fractionTokenSet);
+        Set preTokenSet = fsmTokenSets.get(Stage.STRENGTH);
         Iterator preTokenItr = preTokenSet.iterator();
 
         while (preTokenItr.hasNext())
@@ -833,8 +809,7 @@ public class DrugMentionAnnotator extends JCasAnnotator_ImplBase
 
         }
 //      }
-			Set doseTokenSet = iv_dosagesFSM.execute(baseTokenList, formTokenSet,
-					strengthTokenSet);
+			Set doseTokenSet = fsmTokenSets.get(Stage.DOSAGES);
 			Iterator dosTokenItr = doseTokenSet.iterator();
 			Iterator formCheckItr = formTokenSet.iterator();
 			Iterator strengthCheckItr = strengthTokenSet.iterator();
@@ -852,7 +827,7 @@ public class DrugMentionAnnotator extends JCasAnnotator_ImplBase
 				ma.addToIndexes();
 
 			}
-			Set suffixTokenSet = iv_suffixFSM.execute(baseTokenList, strengthTokenSet);
+			Set suffixTokenSet = fsmTokenSets.get(Stage.SUFFIX);
 
 			Iterator suffixTokenItr = suffixTokenSet.iterator();
 			while (suffixTokenItr.hasNext())
@@ -864,7 +839,7 @@ public class DrugMentionAnnotator extends JCasAnnotator_ImplBase
 			// This needs to be handled differently. But since I'm not sure if this feature will be utilized
 			// I am going to leave 'as is' for now.
 
-			Set routeTokenSet = iv_routeFSM.execute(baseTokenList);
+			Set routeTokenSet = fsmTokenSets.get(Stage.ROUTE);
 			boolean foundRoute = false;
 			Iterator routeTokenItr = routeTokenSet.iterator();
 			int begSegRT = 0, endSegRT = 0;
@@ -879,7 +854,7 @@ public class DrugMentionAnnotator extends JCasAnnotator_ImplBase
 
 			}
 
-			Set frequencyUnitTokenSet = iv_frequencyUnitFSM.execute(baseTokenList);
+			Set frequencyUnitTokenSet = fsmTokenSets.get(Stage.FREQUENCY_UNIT);
 			boolean foundFrequencyUnit = false;
 			Iterator frequencyUnitTokenItr = frequencyUnitTokenSet.iterator();
 			int begSegFUT = 0, endSegFUT = 0;
@@ -898,8 +873,7 @@ public class DrugMentionAnnotator extends JCasAnnotator_ImplBase
 			}
 			// The frequencyFSM can take advantage of the frequencyUnit to
 			// establish conditions via the override
-			Set frequencyTokenSet = iv_frequencyFSM.execute(baseTokenList,
-					frequencyUnitTokenSet, rangeTokenSet);
+			Set frequencyTokenSet = fsmTokenSets.get(Stage.FREQUENCY);
 			boolean foundFrequency = false;
 			Iterator frequencyTokenItr = frequencyTokenSet.iterator();
 			int begSegFT = 0, endSegFT = 0;
@@ -917,8 +891,7 @@ public class DrugMentionAnnotator extends JCasAnnotator_ImplBase
 
 			/* Check again if confidence was found during frequency check */
 
-			Set durationTokenSet = iv_durationFSM.execute(baseTokenList,
-					rangeTokenSet);
+			Set durationTokenSet = fsmTokenSets.get(Stage.DURATION);
 			Iterator durationTokenItr = durationTokenSet.iterator();
 
 			int begSegDU = 0, endSegDU = 0;
@@ -0,0 +1,237 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.drugner.fsm.machines;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.ctakes.drugner.fsm.machines.elements.DecimalStrengthFSM;
+import org.apache.ctakes.drugner.fsm.machines.elements.DosagesFSM;
+import org.apache.ctakes.drugner.fsm.machines.elements.DrugChangeStatusFSM;
+import org.apache.ctakes.drugner.fsm.machines.elements.DurationFSM;
+import org.apache.ctakes.drugner.fsm.machines.elements.FormFSM;
+import org.apache.ctakes.drugner.fsm.machines.elements.FractionStrengthFSM;
+import org.apache.ctakes.drugner.fsm.machines.elements.FrequencyFSM;
+import org.apache.ctakes.drugner.fsm.machines.elements.FrequencyUnitFSM;
+import org.apache.ctakes.drugner.fsm.machines.elements.RangeStrengthFSM;
+import org.apache.ctakes.drugner.fsm.machines.elements.RouteFSM;
+import org.apache.ctakes.drugner.fsm.machines.elements.StrengthFSM;
+import org.apache.ctakes.drugner.fsm.machines.elements.StrengthUnitFSM;
+import org.apache.ctakes.drugner.fsm.machines.util.SuffixStrengthFSM;
+
+/**
+ * The drug attribute machines run by the DrugMentionAnnotator, expressed as a
+ * dependency graph of stages. A stage is run once all the stages whose output
+ * it takes as override tokens have been run.
+ * <p>
+ * Stages are grouped into waves: a wave holds every stage whose dependencies
+ * are all in earlier waves. The stages of a wave do not depend on each other
+ * and each stage has its own machines, so when the token list is long enough
+ * the stages of a wave are run concurrently. Shorter lists are run on the
+ * calling thread, where handing stages to other threads would cost more than
+ * it saves.
+ * <p>
+ * Each stage still makes its own pass over the tokens and returns its output
+ * as a set of output tokens. The machines are not fused into a single pass,
+ * because each has its own override handling and start index rules, and the
+ * later stages take the earlier output token objects as overrides rather than
+ * spans.
+ * <p>
+ * A cascade holds machine state while it runs, so an instance must not be
+ * executed by two threads at once.
+ */
+public class DrugFSMCascade {
+
+	/**
+	 * A machine of the cascade, with the stages whose output it takes. Stages
+	 * are declared after their dependencies.
+	 */
+	public enum Stage {
+		FRACTION, DECIMAL, STATUS, RANGE, FORM, ROUTE, FREQUENCY_UNIT,
+		STRENGTH_UNIT(RANGE), FREQUENCY(FREQUENCY_UNIT, RANGE), DURATION(RANGE),
+		STRENGTH(STRENGTH_UNIT, FRACTION), DOSAGES(FORM, STRENGTH_UNIT),
+		SUFFIX(STRENGTH_UNIT);
+
+		private final Stage[] iv_dependencies;
+		private final int iv_wave;
+
+		private Stage(Stage... dependencies) {
+			iv_dependencies = dependencies;
+			int wave = 0;
+			for (Stage dependency : dependencies) {
+				wave = Math.max(wave, dependency.iv_wave + 1);
+			}
+			iv_wave = wave;
+		}
+
+		/**
+		 * @return stages whose output this stage takes as override tokens
+		 */
+		public Stage[] getDependencies() {
+			return iv_dependencies.clone();
+		}
+
+		/**
+		 * @return index of the wave in which the stage is run
+		 */
+		public int getWave() {
+			return iv_wave;
+		}
+	}
+
+	// stages are only handed to other threads, never to a queue, so a cached
+	// pool grows to the widest wave times the number of pipeline threads
+	private static final ExecutorService STAGE_EXECUTOR = Executors
+			.newCachedThreadPool(runnable -> {
+				Thread thread = new Thread(runnable, "DrugFSMCascade stage");
+				thread.setDaemon(true);
+				return thread;
+			});
+
+	private final List<List<Stage>> iv_waves = new ArrayList<List<Stage>>();
+	private final int iv_parallelTokenThreshold;
+
+	private final FractionStrengthFSM iv_fractionFSM = new FractionStrengthFSM();
+	private final DecimalStrengthFSM iv_decimalFSM = new DecimalStrengthFSM();
+	private final DrugChangeStatusFSM iv_statusFSM = new DrugChangeStatusFSM();
+	private final RangeStrengthFSM iv_rangeFSM = new RangeStrengthFSM();
+	private final FormFSM iv_formFSM = new FormFSM();
+	private final RouteFSM iv_routeFSM = new RouteFSM();
+	private final FrequencyUnitFSM iv_frequencyUnitFSM = new FrequencyUnitFSM();
+	private final StrengthUnitFSM iv_strengthUnitFSM = new StrengthUnitFSM();
+	private final FrequencyFSM iv_frequencyFSM = new FrequencyFSM();
+	private final DurationFSM iv_durationFSM = new DurationFSM();
+	private final StrengthFSM iv_strengthFSM = new StrengthFSM();
+	private final DosagesFSM iv_dosagesFSM = new DosagesFSM();
+	private final SuffixStrengthFSM iv_suffixFSM = new SuffixStrengthFSM();
+
+	/**
+	 * @param parallelTokenThreshold
+	 *            smallest number of tokens for which the stages of a wave are
+	 *            run concurrently, a negative value to always run them on the
+	 *            calling thread
+	 */
+	public DrugFSMCascade(int parallelTokenThreshold) {
+		iv_parallelTokenThreshold = parallelTokenThreshold;
+		for (Stage stage : Stage.values()) {
+			while (iv_waves.size() <= stage.getWave()) {
+				iv_waves.add(new ArrayList<Stage>());
+			}
+			iv_waves.get(stage.getWave()).add(stage);
+		}
+	}
+
+	/**
+	 * Runs every stage over the tokens.
+	 *
+	 * @param tokens
+	 *            fsm base tokens
+	 * @return the output tokens of each stage
+	 * @throws Exception
+	 *             thrown by a machine
+	 */
+	public Map<Stage, Set> execute(final List tokens) throws Exception {
+		Map<Stage, Set> outputs = new EnumMap<Stage, Set>(Stage.class);
+		boolean parallel = iv_parallelTokenThreshold >= 0
+				&& tokens.size() >= iv_parallelTokenThreshold;
+		for (List<Stage> wave : iv_waves) {
+			if (!parallel || wave.size() == 1) {
+				for (Stage stage : wave) {
+					outputs.put(stage, execute(stage, tokens, outputs));
+				}
+				continue;
+			}
+			// stages on other threads read a copy of the earlier outputs
+			final Map<Stage, Set> inputs = new EnumMap<Stage, Set>(outputs);
+			List<Future<Set>> futures = new ArrayList<Future<Set>>();
+			for (int i = 1; i < wave.size(); i++) {
+				final Stage stage = wave.get(i);
+				futures.add(STAGE_EXECUTOR.submit(() -> execute(stage, tokens,
+						inputs)));
+			}
+			Exception failure = null;
+			try {
+				outputs.put(wave.get(0), execute(wave.get(0), tokens, inputs));
+			} catch (Exception e) {
+				failure = e;
+			}
+			// always wait for every stage so that no machine is still running
+			// when this method returns
+			for (int i = 1; i < wave.size(); i++) {
+				try {
+					outputs.put(wave.get(i), futures.get(i - 1).get());
+				} catch (ExecutionException ee) {
+					if (failure == null) {
+						failure = ee.getCause() instanceof Exception ? (Exception) ee
+								.getCause() : ee;
+					}
+				}
+			}
+			if (failure != null) {
+				throw failure;
+			}
+		}
+		return outputs;
+	}
+
+	private Set execute(Stage stage, List tokens, Map<Stage, Set> outputs)
+			throws Exception {
+		switch (stage) {
+		case FRACTION:
+			return iv_fractionFSM.execute(tokens);
+		case DECIMAL:
+			return iv_decimalFSM.execute(tokens);
+		case STATUS:
+			return iv_statusFSM.execute(tokens);
+		case RANGE:
+			return iv_rangeFSM.execute(tokens);
+		case FORM:
+			return iv_formFSM.execute(tokens, new HashSet());
+		case ROUTE:
+			return iv_routeFSM.execute(tokens);
+		case FREQUENCY_UNIT:
+			return iv_frequencyUnitFSM.execute(tokens);
+		case STRENGTH_UNIT:
+			return iv_strengthUnitFSM.execute(tokens, outputs.get(Stage.RANGE));
+		case FREQUENCY:
+			return iv_frequencyFSM.execute(tokens,
+					outputs.get(Stage.FREQUENCY_UNIT), outputs.get(Stage.RANGE));
+		case DURATION:
+			return iv_durationFSM.execute(tokens, outputs.get(Stage.RANGE));
+		case STRENGTH:
+			return iv_strengthFSM.execute(tokens,
+					outputs.get(Stage.STRENGTH_UNIT), outputs.get(Stage.FRACTION));
+		case DOSAGES:
+			return iv_dosagesFSM.execute(tokens, outputs.get(Stage.FORM),
+					outputs.get(Stage.STRENGTH_UNIT));
+		case SUFFIX:
+			return iv_suffixFSM.execute(tokens, outputs.get(Stage.STRENGTH_UNIT));
+		default:
+			throw new IllegalArgumentException("Unknown stage " + stage);
+		}
+	}
+}
@@ -0,0 +1,292 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.drugner.fsm.machines;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.apache.ctakes.core.fsm.token.BaseToken;
+import org.apache.ctakes.core.fsm.token.DecimalToken;
+import org.apache.ctakes.core.fsm.token.EolToken;
+import org.apache.ctakes.core.fsm.token.IntegerToken;
+import org.apache.ctakes.core.fsm.token.PunctuationToken;
+import org.apache.ctakes.core.fsm.token.WordToken;
+import org.apache.ctakes.drugner.fsm.machines.DrugFSMCascade.Stage;
+import org.apache.ctakes.drugner.fsm.machines.elements.DecimalStrengthFSM;
+import org.apache.ctakes.drugner.fsm.machines.elements.DosagesFSM;
+import org.apache.ctakes.drugner.fsm.machines.elements.DrugChangeStatusFSM;
+import org.apache.ctakes.drugner.fsm.machines.elements.DurationFSM;
+import org.apache.ctakes.drugner.fsm.machines.elements.FormFSM;
+import org.apache.ctakes.drugner.fsm.machines.elements.FractionStrengthFSM;
+import org.apache.ctakes.drugner.fsm.machines.elements.FrequencyFSM;
+import org.apache.ctakes.drugner.fsm.machines.elements.FrequencyUnitFSM;
+import org.apache.ctakes.drugner.fsm.machines.elements.RangeStrengthFSM;
+import org.apache.ctakes.drugner.fsm.machines.elements.RouteFSM;
+import org.apache.ctakes.drugner.fsm.machines.elements.StrengthFSM;
+import org.apache.ctakes.drugner.fsm.machines.elements.StrengthUnitFSM;
+import org.apache.ctakes.drugner.fsm.machines.util.SuffixStrengthFSM;
+import org.junit.Test;
+
+/**
+ * Compares the output of the cascade, run on the calling thread and run
+ * concurrently, with the machines run one after the other the way
+ * DrugMentionAnnotator ran them before the cascade.
+ */
+public class DrugFSMCascadeTest {
+
+	private static final String[] WORDS = { "take", "one", "two", "three",
+			"half", "tablet", "tablets", "capsule", "cream", "drops", "mg",
+			"mcg", "units", "milligrams", "teaspoon", "twice", "once", "daily",
+			"a", "day", "every", "hours", "hour", "for", "days", "weeks", "by",
+			"mouth", "po", "q", "h", "prn", "as", "needed", "stop",
+			"discontinued", "increase", "decrease", "to", "morning", "evening",
+			"bedtime", "at", "times", "x", "with", "meals", "Aspirin" };
+
+	private static final String[] PUNCTUATION = { "/", "-", ".", ",", "(", ")" };
+
+	@Test
+	public void testSameAsMachinesInSequence() throws Exception {
+		Random random = new Random(33);
+		DrugFSMCascade serialCascade = new DrugFSMCascade(-1);
+		DrugFSMCascade parallelCascade = new DrugFSMCascade(0);
+		DrugFSMCascade defaultCascade = new DrugFSMCascade(500);
+		Set<Stage> stagesWithOutput = EnumSet.noneOf(Stage.class);
+		for (int document = 0; document < 100; document++) {
+			List tokens = createTokens(random, 1 + random.nextInt(800));
+			Map<Stage, List<String>> expected = executeInSequence(tokens);
+			for (Stage stage : Stage.values()) {
+				if (!expected.get(stage).isEmpty()) {
+					stagesWithOutput.add(stage);
+				}
+			}
+			String message = "Document " + document + " of " + tokens.size()
+					+ " tokens";
+			assertEquals(message, expected, spans(serialCascade.execute(tokens)));
+			assertEquals(message, expected,
+					spans(parallelCascade.execute(tokens)));
+			assertEquals(message, expected,
+					spans(defaultCascade.execute(tokens)));
+		}
+		// the documents should exercise the machines, not just the empty case
+		assertTrue("Stages without output "
+				+ EnumSet.complementOf(EnumSet.copyOf(stagesWithOutput)),
+				stagesWithOutput.size() >= Stage.values().length - 2);
+	}
+
+	@Test
+	public void testWaves() {
+		for (Stage stage : Stage.values()) {
+			for (Stage dependency : stage.getDependencies()) {
+				assertTrue(stage + " should run after " + dependency,
+						dependency.getWave() < stage.getWave());
+			}
+		}
+	}
+
+	/*
+	 * DrugMentionAnnotator.executeFSMs before the cascade, with new machines for
+	 * every document
+	 */
+	private static Map<Stage, List<String>> executeInSequence(List tokens)
+			throws Exception {
+		Map<Stage, Set> outputs = new EnumMap<Stage, Set>(Stage.class);
+		Set fractionTokenSet = new FractionStrengthFSM().execute(tokens);
+		outputs.put(Stage.FRACTION, fractionTokenSet);
+		outputs.put(Stage.DECIMAL, new DecimalStrengthFSM().execute(tokens));
+		outputs.put(Stage.STATUS, new DrugChangeStatusFSM().execute(tokens));
+		Set rangeTokenSet = new RangeStrengthFSM().execute(tokens);
+		outputs.put(Stage.RANGE, rangeTokenSet);
+		Set strengthTokenSet = new StrengthUnitFSM().execute(tokens,
+				rangeTokenSet);
+		outputs.put(Stage.STRENGTH_UNIT, strengthTokenSet);
+		Set formTokenSet = new FormFSM().execute(tokens, new HashSet());
+		outputs.put(Stage.FORM, formTokenSet);
+		outputs.put(Stage.STRENGTH, new StrengthFSM().execute(tokens,
+				strengthTokenSet, fractionTokenSet));
+		outputs.put(Stage.DOSAGES, new DosagesFSM().execute(tokens,
+				formTokenSet, strengthTokenSet));
+		outputs.put(Stage.SUFFIX, new SuffixStrengthFSM().execute(tokens,
+				strengthTokenSet));
+		outputs.put(Stage.ROUTE, new RouteFSM().execute(tokens));
+		Set frequencyUnitTokenSet = new FrequencyUnitFSM().execute(tokens);
+		outputs.put(Stage.FREQUENCY_UNIT, frequencyUnitTokenSet);
+		outputs.put(Stage.FREQUENCY, new FrequencyFSM().execute(tokens,
+				frequencyUnitTokenSet, rangeTokenSet));
+		outputs.put(Stage.DURATION, new DurationFSM().execute(tokens,
+				rangeTokenSet));
+		return spans(outputs);
+	}
+
+	/*
+	 * Output tokens do not implement equals and are returned in hash sets, so
+	 * they are compared by type and span
+	 */
+	private static Map<Stage, List<String>> spans(Map<Stage, Set> outputs) {
+		Map<Stage, List<String>> spans = new EnumMap<Stage, List<String>>(
+				Stage.class);
+		for (Map.Entry<Stage, Set> output : outputs.entrySet()) {
+			List<String> stageSpans = new ArrayList<String>();
+			for (Object token : output.getValue()) {
+				BaseToken baseToken = (BaseToken) token;
+				stageSpans.add(token.getClass().getSimpleName() + " "
+						+ baseToken.getStartOffset() + "-"
+						+ baseToken.getEndOffset());
+			}
+			Collections.sort(stageSpans);
+			spans.put(output.getKey(), stageSpans);
+		}
+		return spans;
+	}
+
+	private static List createTokens(Random random, int count) {
+		List<BaseToken> tokens = new ArrayList<BaseToken>();
+		int offset = 0;
+		for (int i = 0; i < count; i++) {
+			int choice = random.nextInt(20);
+			BaseToken token;
+			if (choice < 12) {
+				String word = WORDS[random.nextInt(WORDS.length)];
+				token = new TestWordToken(offset, offset + word.length(), word);
+			} else if (choice < 15) {
+				long value = random.nextInt(4) == 0 ? 1 + random.nextInt(1000)
+						: 1 + random.nextInt(10);
+				token = new TestIntegerToken(offset, offset
+						+ Long.toString(value).length(), value);
+			} else if (choice < 16) {
+				double value = (1 + random.nextInt(40)) / 4.0;
+				token = new TestDecimalToken(offset, offset
+						+ Double.toString(value).length(), value);
+			} else if (choice < 19) {
+				String punctuation = PUNCTUATION[random
+						.nextInt(PUNCTUATION.length)];
+				token = new TestPunctuationToken(offset, offset + 1,
+						punctuation.charAt(0));
+			} else {
+				token = new TestEolToken(offset, offset + 1);
+			}
+			tokens.add(token);
+			offset = token.getEndOffset() + random.nextInt(2);
+		}
+		return tokens;
+	}
+
+	private static class TestToken implements BaseToken {
+		private final int iv_begin;
+		private final int iv_end;
+
+		private TestToken(int begin, int end) {
+			iv_begin = begin;
+			iv_end = end;
+		}
+
+		public int getStartOffset() {
+			return iv_begin;
+		}
+
+		public int getEndOffset() {
+			return iv_end;
+		}
+	}
+
+	private static final class TestWordToken extends TestToken implements
+			WordToken {
+		private final String iv_text;
+
+		private TestWordToken(int begin, int end, String text) {
+			super(begin, end);
+			iv_text = text;
+		}
+
+		public String getText() {
+			return iv_text;
+		}
+
+		public byte getCaps() {
+			return Character.isUpperCase(iv_text.charAt(0)) ? CAPS_FIRST_ONLY
+					: CAPS_NONE;
+		}
+
+		public byte getNumPosition() {
+			return NUM_NONE;
+		}
+	}
+
+	private static final class TestIntegerToken extends TestToken implements
+			IntegerToken {
+		private final long iv_value;
+
+		private TestIntegerToken(int begin, int end, long value) {
+			super(begin, end);
+			iv_value = value;
+		}
+
+		public long getValue() {
+			return iv_value;
+		}
+	}
+
+	private static final class TestDecimalToken extends TestToken implements
+			DecimalToken {
+		private final double iv_value;
+
+		private TestDecimalToken(int begin, int end, double value) {
+			super(begin, end);
+			iv_value = value;
+		}
+
+		public double getValue() {
+			return iv_value;
+		}
+
+		public boolean getPositive() {
+			return true;
+		}
+	}
+
+	private static final class TestPunctuationToken extends TestToken
+			implements PunctuationToken {
+		private final char iv_char;
+
+		private TestPunctuationToken(int begin, int end, char c) {
+			super(begin, end);
+			iv_char = c;
+		}
+
+		public char getChar() {
+			return iv_char;
+		}
+	}
+
+	private static final class TestEolToken extends TestToken implements
+			EolToken {
+		private TestEolToken(int begin, int end) {
+			super(begin, end);
+		}
+	}
+}
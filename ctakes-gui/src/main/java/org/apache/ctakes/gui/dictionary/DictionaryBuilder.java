@@ -10,6 +10,7 @@ import org.apache.ctakes.gui.dictionary.util.RareWordDbWriter;
 import org.apache.log4j.Logger;
 
 import java.io.File;
+import java.io.UncheckedIOException;
 import java.sql.Connection;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -48,8 +49,14 @@ final class DictionaryBuilder {
                                    final Collection<Tui> wantedTuis ) {
       // Set up the term utility
       final UmlsTermUtil umlsTermUtil = new UmlsTermUtil( DEFAULT_DATA_DIR );
-      final Map<Long, Concept> conceptMap
-            = parseAll( umlsTermUtil, umlsDirPath, wantedLanguages, wantedSources, wantedTargets, wantedTuis );
+      final Map<Long, Concept> conceptMap;
+      try {
+         conceptMap = parseAll( umlsTermUtil, umlsDirPath, wantedLanguages, wantedSources, wantedTargets, wantedTuis );
+      } catch ( UncheckedIOException ioE ) {
+         // don't write a dictionary from a partially parsed umls
+         LOGGER.error( ioE.getMessage(), ioE );
+         return false;
+      }
       return writeDatabase( ctakesDirPath, dictionaryName, conceptMap );
    }
 
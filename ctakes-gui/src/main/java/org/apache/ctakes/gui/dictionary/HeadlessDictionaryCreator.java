@@ -0,0 +1,72 @@
+package org.apache.ctakes.gui.dictionary;
+
+
+import org.apache.ctakes.gui.dictionary.umls.SourceTableModel;
+import org.apache.ctakes.gui.dictionary.umls.Tui;
+import org.apache.ctakes.gui.dictionary.umls.TuiTableModel;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Builds a dictionary without the gui, e.g. on a server with enough memory for a full vocabulary.
+ * <p>
+ * Usage: HeadlessDictionaryCreator umlsDir ctakesDir dictionaryName [sources [targets [languages [tuis]]]]
+ * <br>
+ * sources, targets, languages and tuis are comma separated lists such as SNOMEDCT_US,RXNORM and T047,T184.
+ * Anything not given defaults to the selection preset in the gui: the cTAKES sources as sources and targets,
+ * ENG and the cTAKES semantic types.
+ */
+final public class HeadlessDictionaryCreator {
+
+   static private final Logger LOGGER = Logger.getLogger( "HeadlessDictionaryCreator" );
+
+   private HeadlessDictionaryCreator() {
+   }
+
+   static private Collection<String> getList( final String[] args, final int index,
+                                              final Collection<String> defaults ) {
+      if ( args.length <= index || args[ index ].trim().isEmpty() ) {
+         return defaults;
+      }
+      final Collection<String> list = new ArrayList<>();
+      for ( String item : args[ index ].split( "," ) ) {
+         if ( !item.trim().isEmpty() ) {
+            list.add( item.trim() );
+         }
+      }
+      return list;
+   }
+
+   public static void main( final String... args ) {
+      if ( args.length < 3 ) {
+         LOGGER.error( "Usage: HeadlessDictionaryCreator umlsDir ctakesDir dictionaryName"
+                       + " [sources [targets [languages [tuis]]]]" );
+         System.exit( 1 );
+      }
+      final Collection<String> sources = getList( args, 3, SourceTableModel.getCtakesSources() );
+      final Collection<String> targets = getList( args, 4, SourceTableModel.getCtakesSources() );
+      final Collection<String> languages = getList( args, 5, Collections.singletonList( "ENG" ) );
+      final Collection<Tui> tuis = new ArrayList<>( TuiTableModel.getCtakesTuis() );
+      if ( args.length > 6 ) {
+         tuis.clear();
+         for ( String tui : getList( args, 6, Collections.emptyList() ) ) {
+            tuis.add( Tui.valueOf( tui ) );
+         }
+      }
+      final String dictionaryName = args[ 2 ].toLowerCase();
+      LOGGER.info( "Building " + dictionaryName + " from sources " + sources + " targets " + targets
+                   + " languages " + languages + " semantic types " + Arrays.toString( tuis.toArray() ) );
+      if ( !DictionaryBuilder.buildDictionary( args[ 0 ], args[ 1 ], dictionaryName,
+            languages, sources, targets, tuis ) ) {
+         LOGGER.error( "Dictionary " + dictionaryName + " could not be built in " + args[ 1 ] );
+         System.exit( 1 );
+      }
+      LOGGER.info( "Dictionary " + dictionaryName + " successfully built in " + args[ 1 ]
+                   + ",  " + DictionaryBuilder.CTAKES_APP_DB_PATH );
+   }
+
+}
@@ -7,7 +7,13 @@ import org.apache.log4j.Logger;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import static org.apache.ctakes.gui.dictionary.umls.MrconsoIndex.*;
@@ -22,6 +28,8 @@ final public class MrconsoParser {
    static private final Logger LOGGER = Logger.getLogger( "MrConsoParser" );
 
    static private final String MR_CONSO_SUB_PATH = "/META/MRCONSO.RRF";
+   // number of wanted rows formatted together on one thread
+   static private final int CHUNK_SIZE = 10000;
 
    // TODO - put all exclusions in a data file, display for user, allow changes and save, etc.
 
@@ -107,6 +115,14 @@ final public class MrconsoParser {
       return exclusionTypes;
    }
 
+   /**
+    * Rows of MRCONSO.RRF are read and filtered on the calling thread.  The texts of wanted rows are validated and
+    * formatted in chunks on other threads, and the results of each chunk are added to the concepts on the calling
+    * thread in file order, so the concepts are the same as if the file were parsed on a single thread.
+    *
+    * @throws UncheckedIOException if the file could not be read or a text could not be formatted.  The concepts are
+    *                              then incomplete and must not be written to a dictionary.
+    */
    static public Map<Long, Concept> parseAllConcepts( final String umlsDirPath,
                                                       final Map<Long, Concept> conceptMap,
                                                       final Collection<String> wantedSources,
@@ -119,12 +135,41 @@ final public class MrconsoParser {
                                                       final int maxWordCount,
                                                       final int maxSymCount ) {
       final String mrconsoPath = umlsDirPath + MR_CONSO_SUB_PATH;
-      final Collection<String> invalidTypeSet = new HashSet<>( Arrays.asList( getNonRxnormExclusions() ) );
       LOGGER.info( "Compiling map of Concepts from " + mrconsoPath );
+      try ( final BufferedReader reader = FileUtil.createReader( mrconsoPath ) ) {
+         return parseAllConcepts( reader, mrconsoPath, conceptMap, wantedTargets, umlsTermUtil, languages,
+               extractAbbreviations, minCharLength, maxCharLength, maxWordCount, maxSymCount );
+      } catch ( IOException ioE ) {
+         throw new UncheckedIOException( "Could not parse " + mrconsoPath, ioE );
+      }
+   }
+
+   /**
+    * Parses rows of MRCONSO.RRF from the given reader.
+    *
+    * @throws IOException if a row could not be read or a text could not be formatted
+    */
+   static Map<Long, Concept> parseAllConcepts( final BufferedReader reader,
+                                               final String mrconsoPath,
+                                               final Map<Long, Concept> conceptMap,
+                                               final Collection<String> wantedTargets,
+                                               final UmlsTermUtil umlsTermUtil,
+                                               final Collection<String> languages,
+                                               final boolean extractAbbreviations,
+                                               final int minCharLength,
+                                               final int maxCharLength,
+                                               final int maxWordCount,
+                                               final int maxSymCount ) throws IOException {
+      final Collection<String> invalidTypeSet = new HashSet<>( Arrays.asList( getNonRxnormExclusions() ) );
+      final int threadCount = Math.max( 1, Runtime.getRuntime().availableProcessors() - 1 );
+      final ExecutorService executor = Executors.newFixedThreadPool( threadCount );
+      // chunks being formatted, in file order.  Bounded so that the reader can't run far ahead of the formatting.
+      final Deque<Future<List<ConceptRow>>> pendingChunks = new ArrayDeque<>();
       long lineCount = 0;
       long textCount = 0;
-      try ( final BufferedReader reader = FileUtil.createReader( mrconsoPath ) ) {
-         List<String> tokens = FileUtil.readBsvTokens( reader, mrconsoPath );
+      try {
+         List<ConceptRow> chunk = new ArrayList<>( CHUNK_SIZE );
+         List<String> tokens = FileUtil.readBsvTokens( reader );
          while ( tokens != null ) {
             lineCount++;
             if ( lineCount % 100000 == 0 ) {
@@ -133,56 +178,43 @@ final public class MrconsoParser {
             if ( !isRowLengthOk( tokens )
                  || !isLanguageOk( tokens, languages )
                  || !isTermTypeOk( tokens, invalidTypeSet ) ) {
-               tokens = FileUtil.readBsvTokens( reader, mrconsoPath );
+               tokens = FileUtil.readBsvTokens( reader );
                continue;
             }
             final Long cuiCode = CuiCodeUtil.getInstance().getCuiCode( getToken( tokens, CUI ) );
             final Concept concept = conceptMap.get( cuiCode );
             if ( concept == null ) {
                // cui for current row is unwanted
-               tokens = FileUtil.readBsvTokens( reader, mrconsoPath );
-               continue;
-            }
-            final String text = getToken( tokens, TEXT );
-            if ( !umlsTermUtil.isTextValid( text.toLowerCase() ) ) {
-               tokens = FileUtil.readBsvTokens( reader, mrconsoPath );
-               continue;
-            }
-            if ( isPreferredTerm( tokens ) ) {
-               concept.setPreferredText( text );
-            }
-            // Get tokenized text
-            final String tokenizedText = TextTokenizer.getTokenizedText( text );
-            if ( tokenizedText == null || tokenizedText.isEmpty()
-                 || !umlsTermUtil.isTextValid( tokenizedText )
-                 || DoseUtil.hasUnit( tokenizedText ) ) {
-               tokens = FileUtil.readBsvTokens( reader, mrconsoPath );
-               continue;
-            }
-            // Remove unwanted prefixes and suffixes
-            final String strippedText = umlsTermUtil.getStrippedText( tokenizedText );
-            if ( strippedText == null || strippedText.isEmpty()
-                 || UmlsTermUtil.isTextTooShort( strippedText, minCharLength )
-                 || UmlsTermUtil.isTextTooLong( strippedText, maxCharLength, maxWordCount, maxSymCount ) ) {
-               tokens = FileUtil.readBsvTokens( reader, mrconsoPath );
+               tokens = FileUtil.readBsvTokens( reader );
                continue;
             }
-            final Collection<String> formattedTexts
-                  = umlsTermUtil.getFormattedTexts( strippedText, extractAbbreviations, minCharLength,
-                  maxCharLength, maxWordCount, maxSymCount );
-            if ( formattedTexts != null && !formattedTexts.isEmpty() ) {
-               textCount += concept.addTexts( formattedTexts );
-               // Add secondary codes
-               final String source = getToken( tokens, SOURCE );
-               final String code = getToken( tokens, SOURCE_CODE );
-               if ( wantedTargets.contains( source ) && !code.equals( "NOCODE" ) ) {
-                  concept.addCode( source, code );
+            chunk.add( new ConceptRow( concept, tokens ) );
+            if ( chunk.size() == CHUNK_SIZE ) {
+               pendingChunks.add( submitChunk( executor, chunk, umlsTermUtil, extractAbbreviations,
+                     minCharLength, maxCharLength, maxWordCount, maxSymCount ) );
+               chunk = new ArrayList<>( CHUNK_SIZE );
+               while ( pendingChunks.size() > 2 * threadCount ) {
+                  textCount += addChunk( pendingChunks.poll().get(), wantedTargets );
                }
             }
-            tokens = FileUtil.readBsvTokens( reader, mrconsoPath );
+            tokens = FileUtil.readBsvTokens( reader );
          }
-      } catch ( IOException ioE ) {
-         LOGGER.error( ioE.getMessage() );
+         if ( !chunk.isEmpty() ) {
+            pendingChunks.add( submitChunk( executor, chunk, umlsTermUtil, extractAbbreviations,
+                  minCharLength, maxCharLength, maxWordCount, maxSymCount ) );
+         }
+         while ( !pendingChunks.isEmpty() ) {
+            textCount += addChunk( pendingChunks.poll().get(), wantedTargets );
+         }
+      } catch ( ExecutionException execE ) {
+         throw new IOException( "Could not format texts of " + mrconsoPath, execE.getCause() );
+      } catch ( InterruptedException intE ) {
+         Thread.currentThread().interrupt();
+         final InterruptedIOException intIoE = new InterruptedIOException( "Interrupted parsing " + mrconsoPath );
+         intIoE.initCause( intE );
+         throw intIoE;
+      } finally {
+         executor.shutdownNow();
       }
       final Collection<Long> empties = conceptMap.entrySet().stream()
             .filter( e -> e.getValue().isEmpty() )
@@ -193,6 +225,94 @@ final public class MrconsoParser {
       return conceptMap;
    }
 
+   static private Future<List<ConceptRow>> submitChunk( final ExecutorService executor,
+                                                        final List<ConceptRow> chunk,
+                                                        final UmlsTermUtil umlsTermUtil,
+                                                        final boolean extractAbbreviations,
+                                                        final int minCharLength,
+                                                        final int maxCharLength,
+                                                        final int maxWordCount,
+                                                        final int maxSymCount ) {
+      return executor.submit( () -> {
+         for ( ConceptRow row : chunk ) {
+            row.format( umlsTermUtil, extractAbbreviations, minCharLength, maxCharLength, maxWordCount,
+                  maxSymCount );
+         }
+         return chunk;
+      } );
+   }
+
+   /**
+    * @return number of texts added to the concepts
+    */
+   static private long addChunk( final List<ConceptRow> chunk, final Collection<String> wantedTargets ) {
+      long textCount = 0;
+      for ( ConceptRow row : chunk ) {
+         if ( row.__preferredText != null ) {
+            row.__concept.setPreferredText( row.__preferredText );
+         }
+         if ( row.__formattedTexts != null && !row.__formattedTexts.isEmpty() ) {
+            textCount += row.__concept.addTexts( row.__formattedTexts );
+            // Add secondary codes
+            final String source = getToken( row.__tokens, SOURCE );
+            final String code = getToken( row.__tokens, SOURCE_CODE );
+            if ( wantedTargets.contains( source ) && !code.equals( "NOCODE" ) ) {
+               row.__concept.addCode( source, code );
+            }
+         }
+      }
+      return textCount;
+   }
+
+   /**
+    * A wanted row of MRCONSO.RRF and the texts formatted from it
+    */
+   static private final class ConceptRow {
+      private final Concept __concept;
+      private final List<String> __tokens;
+      private String __preferredText;
+      private Collection<String> __formattedTexts;
+
+      private ConceptRow( final Concept concept, final List<String> tokens ) {
+         __concept = concept;
+         __tokens = tokens;
+      }
+
+      /**
+       * Validates and formats the text of the row.  Touches nothing but the row.
+       */
+      private void format( final UmlsTermUtil umlsTermUtil,
+                           final boolean extractAbbreviations,
+                           final int minCharLength,
+                           final int maxCharLength,
+                           final int maxWordCount,
+                           final int maxSymCount ) {
+         final String text = getToken( __tokens, TEXT );
+         if ( !umlsTermUtil.isTextValid( text.toLowerCase() ) ) {
+            return;
+         }
+         if ( isPreferredTerm( __tokens ) ) {
+            __preferredText = text;
+         }
+         // Get tokenized text
+         final String tokenizedText = TextTokenizer.getTokenizedText( text );
+         if ( tokenizedText == null || tokenizedText.isEmpty()
+              || !umlsTermUtil.isTextValid( tokenizedText )
+              || DoseUtil.hasUnit( tokenizedText ) ) {
+            return;
+         }
+         // Remove unwanted prefixes and suffixes
+         final String strippedText = umlsTermUtil.getStrippedText( tokenizedText );
+         if ( strippedText == null || strippedText.isEmpty()
+              || UmlsTermUtil.isTextTooShort( strippedText, minCharLength )
+              || UmlsTermUtil.isTextTooLong( strippedText, maxCharLength, maxWordCount, maxSymCount ) ) {
+            return;
+         }
+         __formattedTexts = umlsTermUtil.getFormattedTexts( strippedText, extractAbbreviations, minCharLength,
+               maxCharLength, maxWordCount, maxSymCount );
+      }
+   }
+
    static private boolean isRowLengthOk( final List<String> tokens ) {
       return tokens.size() >= TEXT._index;
    }
@@ -228,6 +348,7 @@ final public class MrconsoParser {
     * @param umlsDirPath        path to the UMLS_ROOT Meta/MRCONSO.RRF file
     * @param sourceVocabularies desired source type names as appear in rrf: RXNORM, SNOMEDCT, MSH, etc.
     * @return Subset of cuis that exist in in the given sources
+    * @throws UncheckedIOException if the file could not be read
     */
    static public Collection<Long> getValidVocabularyCuis( final String umlsDirPath,
                                                           final Collection<String> sourceVocabularies ) {
@@ -264,7 +385,7 @@ final public class MrconsoParser {
       final Collection<Long> validCuis = new HashSet<>();
       long lineCount = 0;
       try ( final BufferedReader reader = FileUtil.createReader( mrconsoPath ) ) {
-         List<String> tokens = FileUtil.readBsvTokens( reader, mrconsoPath );
+         List<String> tokens = FileUtil.readBsvTokens( reader );
          while ( tokens != null ) {
             lineCount++;
             if ( lineCount % 100000 == 0 ) {
@@ -282,10 +403,10 @@ final public class MrconsoParser {
                   sourceCuis.put( source, (cuis + 1) );
                }
             }
-            tokens = FileUtil.readBsvTokens( reader, mrconsoPath );
+            tokens = FileUtil.readBsvTokens( reader );
          }
       } catch ( IOException ioE ) {
-         LOGGER.error( ioE.getMessage() );
+         throw new UncheckedIOException( "Could not read " + mrconsoPath, ioE );
       }
       final String cuis = sourceCuis.entrySet().stream().map( e -> e.getKey() + " " + e.getValue() )
             .collect( Collectors.joining( ", " ) );
@@ -29,14 +29,21 @@ final public class SourceTableModel implements TableModel {
    private final List<String> _sources = new ArrayList<>();
 
 
+   /**
+    * @return the source vocabularies recommended for cTAKES
+    */
+   static public Collection<String> getCtakesSources() {
+      return Arrays.asList( CTAKES_SOURCES );
+   }
+
    public void setSources( final Collection<String> sources ) {
       _sources.clear();
       _wantedSources.clear();
       _wantedTargets.clear();
       _sources.addAll( sources );
       Collections.sort( _sources );
-      _wantedSources.addAll( Arrays.asList( CTAKES_SOURCES ) );
-      _wantedTargets.addAll( Arrays.asList( CTAKES_SOURCES ) );
+      _wantedSources.addAll( getCtakesSources() );
+      _wantedTargets.addAll( getCtakesSources() );
       fireTableChanged( new TableModelEvent( this ) );
    }
 
@@ -34,11 +34,20 @@ final public class TuiTableModel implements TableModel {
    private final Collection<Tui> _wantedTuis = EnumSet.noneOf( Tui.class );
 
    public TuiTableModel() {
-      _wantedTuis.addAll( Arrays.asList( CTAKES_ANAT ) );
-      _wantedTuis.addAll( Arrays.asList( CTAKES_DISO ) );
-      _wantedTuis.addAll( Arrays.asList( CTAKES_FIND ) );
-      _wantedTuis.addAll( Arrays.asList( CTAKES_PROC ) );
-      _wantedTuis.addAll( Arrays.asList( CTAKES_DRUG ) );
+      _wantedTuis.addAll( getCtakesTuis() );
+   }
+
+   /**
+    * @return the semantic types recommended for cTAKES
+    */
+   static public Collection<Tui> getCtakesTuis() {
+      final Collection<Tui> tuis = EnumSet.noneOf( Tui.class );
+      tuis.addAll( Arrays.asList( CTAKES_ANAT ) );
+      tuis.addAll( Arrays.asList( CTAKES_DISO ) );
+      tuis.addAll( Arrays.asList( CTAKES_FIND ) );
+      tuis.addAll( Arrays.asList( CTAKES_PROC ) );
+      tuis.addAll( Arrays.asList( CTAKES_DRUG ) );
+      return tuis;
    }
 
    public Collection<Tui> getWantedTuis() {
@@ -89,19 +89,24 @@ final public class FileUtil {
 
    static private String readLine( final BufferedReader reader, final String filePath ) {
       try {
-         String line = reader.readLine();
-         while ( line != null ) {
-            if ( !line.trim().isEmpty() && !line.trim().startsWith( "//" ) ) {
-               return line;
-            }
-            line = reader.readLine();
-         }
+         return readLine( reader );
       } catch ( IOException ioE ) {
          LOGGER.error( "Error reading from file " + filePath );
       }
       return null;
    }
 
+   static private String readLine( final BufferedReader reader ) throws IOException {
+      String line = reader.readLine();
+      while ( line != null ) {
+         if ( !line.trim().isEmpty() && !line.trim().startsWith( "//" ) ) {
+            return line;
+         }
+         line = reader.readLine();
+      }
+      return null;
+   }
+
    static public List<String> readBsvTokens( final BufferedReader reader, final String filePath ) {
       final String line = readLine( reader, filePath );
       if ( line == null ) {
@@ -110,6 +115,21 @@ final public class FileUtil {
       return TokenUtil.getBsvItems( line );
    }
 
+   /**
+    * Unlike {@link #readBsvTokens(BufferedReader, String)} a read error is thrown instead of ending the file early.
+    *
+    * @param reader -
+    * @return tokens of the next line that is not empty or a comment, null at the end of the file
+    * @throws IOException if the line could not be read
+    */
+   static public List<String> readBsvTokens( final BufferedReader reader ) throws IOException {
+      final String line = readLine( reader );
+      if ( line == null ) {
+         return null;
+      }
+      return TokenUtil.getBsvItems( line );
+   }
+
    static public List<String> readCsvTokens( final BufferedReader reader, final String filePath ) {
       final String line = readLine( reader, filePath );
       if ( line == null ) {
@@ -25,6 +25,9 @@ final public class RareWordDbWriter {
 
    static private final Logger LOGGER = Logger.getLogger( "RareWordDbWriter" );
 
+   // rows added to a statement before its batch is executed
+   static private final int BATCH_SIZE = 10000;
+
 
    private RareWordDbWriter() {
    }
@@ -55,7 +58,10 @@ final public class RareWordDbWriter {
       long tuiTableCount = 0;
       long preftermTableCount = 0;
       final Map<String, Long> codeTableCounts = createCodeCounts();
+      final Map<PreparedStatement, Integer> batchSizes = new HashMap<>();
       try {
+         // rows are written in batches and committed once at the end
+         connection.setAutoCommit( false );
          // Create PreparedStatements from insert sql statements
          final PreparedStatement mainTableStatement = connection.prepareStatement( mainTableSql );
          final PreparedStatement tuiStatement = connection.prepareStatement( tuiTableSql );
@@ -82,7 +88,7 @@ final public class RareWordDbWriter {
                mainTableStatement.setInt( CuiTermsField.TCOUNT.__index, indexedRareWord.__tokenCount );
                mainTableStatement.setString( CuiTermsField.TEXT.__index, text );
                mainTableStatement.setString( CuiTermsField.RWORD.__index, indexedRareWord.__word );
-               mainTableStatement.executeUpdate();
+               addBatch( mainTableStatement, batchSizes );
                mainTableCount = incrementCount( "Main", mainTableCount );
             }
             if ( !conceptOk ) {
@@ -92,7 +98,7 @@ final public class RareWordDbWriter {
             for ( Tui tui : concept.getTuis() ) {
                tuiStatement.setLong( CuiTermsField.CUI.__index, cui );
                tuiStatement.setInt( 2, tui.getIntValue() );
-               tuiStatement.executeUpdate();
+               addBatch( tuiStatement, batchSizes );
                tuiTableCount = incrementCount( "Tui", tuiTableCount );
             }
             // write preferred term table
@@ -105,7 +111,7 @@ final public class RareWordDbWriter {
                   preferredText = preferredText.substring( 0, 510 );
                }
                preftermStatement.setString( 2, preferredText );
-               preftermStatement.executeUpdate();
+               addBatch( preftermStatement, batchSizes );
                preftermTableCount = incrementCount( "Preferred Term", preftermTableCount );
             }
             // write extra vocabulary code tables
@@ -116,11 +122,14 @@ final public class RareWordDbWriter {
                for ( String code : concept.getCodes( vocabulary ) ) {
                   setCodeAppropriately( statement, code, VocabularyStore.getInstance()
                         .getVocabularyClass( vocabulary ) );
-                  statement.executeUpdate();
+                  addBatch( statement, batchSizes );
                   codeTableCounts.put( vocabulary, incrementCount( vocabulary, codeTableCounts.get( vocabulary ) ) );
                }
             }
          }
+         for ( PreparedStatement statement : batchSizes.keySet() ) {
+            statement.executeBatch();
+         }
          connection.commit();
          mainTableStatement.close();
          tuiStatement.close();
@@ -191,6 +200,18 @@ final public class RareWordDbWriter {
       }
    }
 
+   static private void addBatch( final PreparedStatement statement,
+                                 final Map<PreparedStatement, Integer> batchSizes ) throws SQLException {
+      statement.addBatch();
+      final int batchSize = batchSizes.getOrDefault( statement, 0 ) + 1;
+      if ( batchSize == BATCH_SIZE ) {
+         statement.executeBatch();
+         batchSizes.put( statement, 0 );
+      } else {
+         batchSizes.put( statement, batchSize );
+      }
+   }
+
    static private long incrementCount( final String name, long count ) {
       count++;
       if ( count % 100000 == 0 ) {
@@ -0,0 +1,199 @@
+package org.apache.ctakes.gui.dictionary.umls;
+
+import org.apache.ctakes.gui.dictionary.util.TextTokenizer;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Parses a synthetic MRCONSO.RRF and compares the concepts with those of the single threaded parse that
+ * {@link MrconsoParser} did before texts were formatted in chunks.
+ */
+public class MrconsoParserTest {
+
+   static private final String DATA_DIR = "org/apache/ctakes/gui/dictionary/data/tiny";
+   static private final String MRCONSO_PATH = "META/MRCONSO.RRF";
+   static private final int CUI_COUNT = 2500;
+   static private final int WANTED_CUI_COUNT = 2000;
+   static private final int MIN_CHAR_LENGTH = 2;
+   static private final int MAX_CHAR_LENGTH = 48;
+   static private final int MAX_WORD_COUNT = 12;
+   static private final int MAX_SYM_COUNT = 7;
+
+   static private final String[] WORDS = { "chronic", "pain", "of", "left", "knee", "heart", "failure", "acute",
+                                            "kidney", "disease", "type", "2", "diabetes", "mellitus", "NOS",
+                                            "(disorder)", "aspirin", "10 mg", "oral", "tablet", "[D]", "structure",
+                                            "unspecified", "-", ",", "Pain", "HEART", "fever", "with", "without" };
+   static private final String[] LANGUAGES = { "ENG", "ENG", "ENG", "SPA" };
+   static private final String[] SOURCES = { "SNOMEDCT_US", "RXNORM", "MSH", "ICD10CM" };
+   static private final String[] TERM_TYPES = { "PT", "SY", "FN", "PT", "OF", "MH", "IN" };
+
+   static private UmlsTermUtil _umlsTermUtil;
+
+   @BeforeClass
+   static public void loadTermUtil() {
+      _umlsTermUtil = new UmlsTermUtil( DATA_DIR );
+   }
+
+   @Test
+   public void testSameAsSingleThreaded() throws IOException {
+      final String mrconso = createMrconso( new Random( 37 ), 60000 );
+      final Collection<String> targets = Arrays.asList( "SNOMEDCT_US", "RXNORM" );
+      final Collection<String> languages = Collections.singletonList( "ENG" );
+      final Map<Long, Concept> expected = parseSingleThreaded( mrconso, createConceptMap(), targets, languages );
+      final Map<Long, Concept> actual;
+      try ( BufferedReader reader = new BufferedReader( new StringReader( mrconso ) ) ) {
+         actual = MrconsoParser.parseAllConcepts( reader, MRCONSO_PATH, createConceptMap(), targets,
+               _umlsTermUtil, languages, true, MIN_CHAR_LENGTH, MAX_CHAR_LENGTH, MAX_WORD_COUNT, MAX_SYM_COUNT );
+      }
+      assertFalse( "The synthetic file should give concepts", expected.isEmpty() );
+      assertEquals( expected.keySet(), actual.keySet() );
+      for ( Map.Entry<Long, Concept> entry : expected.entrySet() ) {
+         final Concept expectedConcept = entry.getValue();
+         final Concept actualConcept = actual.get( entry.getKey() );
+         final String cui = CuiCodeUtil.getInstance().getAsCui( entry.getKey() );
+         assertEquals( cui, expectedConcept.getPreferredText(), actualConcept.getPreferredText() );
+         assertEquals( cui, getTextCounts( expectedConcept ), getTextCounts( actualConcept ) );
+         assertEquals( cui, new HashSet<>( expectedConcept.getVocabularies() ),
+               new HashSet<>( actualConcept.getVocabularies() ) );
+         for ( String vocabulary : expectedConcept.getVocabularies() ) {
+            assertEquals( cui, new HashSet<>( expectedConcept.getCodes( vocabulary ) ),
+                  new HashSet<>( actualConcept.getCodes( vocabulary ) ) );
+         }
+      }
+   }
+
+   @Test
+   public void testReadErrorIsThrown() {
+      final String mrconso = createMrconso( new Random( 38 ), 30000 );
+      // fails part way through the file, after some chunks have been formatted
+      final BufferedReader reader = new BufferedReader( new StringReader( mrconso ) ) {
+         private int _lineCount = 0;
+
+         @Override
+         public String readLine() throws IOException {
+            if ( ++_lineCount > 25000 ) {
+               throw new IOException( "Disk error" );
+            }
+            return super.readLine();
+         }
+      };
+      try {
+         MrconsoParser.parseAllConcepts( reader, MRCONSO_PATH, createConceptMap(), Collections.emptyList(),
+               _umlsTermUtil, Collections.singletonList( "ENG" ), true,
+               MIN_CHAR_LENGTH, MAX_CHAR_LENGTH, MAX_WORD_COUNT, MAX_SYM_COUNT );
+         fail( "A read error should not end the file early" );
+      } catch ( IOException ioE ) {
+         assertEquals( "Disk error", ioE.getMessage() );
+      }
+   }
+
+   static private Map<Long, Concept> createConceptMap() {
+      final Map<Long, Concept> conceptMap = new HashMap<>();
+      for ( int i = 0; i < WANTED_CUI_COUNT; i++ ) {
+         conceptMap.put( CuiCodeUtil.getInstance().getCuiCode( getCui( i ) ), new Concept() );
+      }
+      return conceptMap;
+   }
+
+   static private String getCui( final int index ) {
+      return String.format( "C%07d", index );
+   }
+
+   static private String createMrconso( final Random random, final int rowCount ) {
+      final StringBuilder sb = new StringBuilder();
+      for ( int row = 0; row < rowCount; row++ ) {
+         final StringBuilder text = new StringBuilder();
+         for ( int w = 1 + random.nextInt( 5 ); w > 0; w-- ) {
+            if ( text.length() > 0 ) {
+               text.append( ' ' );
+            }
+            text.append( WORDS[ random.nextInt( WORDS.length ) ] );
+         }
+         final String[] fields = new String[ 18 ];
+         Arrays.fill( fields, "" );
+         fields[ 0 ] = getCui( random.nextInt( CUI_COUNT ) );
+         fields[ 1 ] = LANGUAGES[ random.nextInt( LANGUAGES.length ) ];
+         fields[ 2 ] = random.nextInt( 3 ) == 0 ? "P" : "S";
+         fields[ 4 ] = random.nextBoolean() ? "PF" : "VO";
+         fields[ 11 ] = SOURCES[ random.nextInt( SOURCES.length ) ];
+         fields[ 12 ] = TERM_TYPES[ random.nextInt( TERM_TYPES.length ) ];
+         fields[ 13 ] = random.nextInt( 10 ) == 0 ? "NOCODE" : ( "X" + random.nextInt( 100000 ) );
+         fields[ 14 ] = text.toString();
+         sb.append( String.join( "|", fields ) ).append( "|\n" );
+      }
+      return sb.toString();
+   }
+
+   static private Map<String, Integer> getTextCounts( final Concept concept ) {
+      final Map<String, Integer> textCounts = new HashMap<>();
+      for ( String text : concept.getTexts() ) {
+         textCounts.put( text, concept.getCount( text ) );
+      }
+      return textCounts;
+   }
+
+   /**
+    * MrconsoParser.parseAllConcepts before texts were formatted in chunks on other threads
+    */
+   static private Map<Long, Concept> parseSingleThreaded( final String mrconso,
+                                                          final Map<Long, Concept> conceptMap,
+                                                          final Collection<String> wantedTargets,
+                                                          final Collection<String> languages ) {
+      final Collection<String> invalidTypeSet = new HashSet<>( Arrays.asList( MrconsoParser
+            .getNonRxnormExclusions() ) );
+      for ( String line : mrconso.split( "\n" ) ) {
+         final String[] tokens = line.split( "\\|", -1 );
+         final String type = tokens[ MrconsoIndex.TERM_TYPE._index ];
+         final String source = tokens[ MrconsoIndex.SOURCE._index ];
+         if ( !languages.contains( tokens[ MrconsoIndex.LANGUAGE._index ] )
+              || invalidTypeSet.contains( type )
+              || ( source.equals( "RXNORM" ) && type.equals( "SY" ) ) ) {
+            continue;
+         }
+         final Concept concept = conceptMap.get( CuiCodeUtil.getInstance()
+               .getCuiCode( tokens[ MrconsoIndex.CUI._index ] ) );
+         if ( concept == null ) {
+            continue;
+         }
+         final String text = tokens[ MrconsoIndex.TEXT._index ];
+         if ( !_umlsTermUtil.isTextValid( text.toLowerCase() ) ) {
+            continue;
+         }
+         if ( tokens[ MrconsoIndex.STATUS._index ].equals( "P" ) && tokens[ MrconsoIndex.FORM._index ]
+               .equals( "PF" ) ) {
+            concept.setPreferredText( text );
+         }
+         final String tokenizedText = TextTokenizer.getTokenizedText( text );
+         if ( tokenizedText == null || tokenizedText.isEmpty()
+              || !_umlsTermUtil.isTextValid( tokenizedText )
+              || DoseUtil.hasUnit( tokenizedText ) ) {
+            continue;
+         }
+         final String strippedText = _umlsTermUtil.getStrippedText( tokenizedText );
+         if ( strippedText == null || strippedText.isEmpty()
+              || UmlsTermUtil.isTextTooShort( strippedText, MIN_CHAR_LENGTH )
+              || UmlsTermUtil.isTextTooLong( strippedText, MAX_CHAR_LENGTH, MAX_WORD_COUNT, MAX_SYM_COUNT ) ) {
+            continue;
+         }
+         final Collection<String> formattedTexts = _umlsTermUtil.getFormattedTexts( strippedText, true,
+               MIN_CHAR_LENGTH, MAX_CHAR_LENGTH, MAX_WORD_COUNT, MAX_SYM_COUNT );
+         if ( formattedTexts != null && !formattedTexts.isEmpty() ) {
+            concept.addTexts( formattedTexts );
+            final String code = tokens[ MrconsoIndex.SOURCE_CODE._index ];
+            if ( wantedTargets.contains( source ) && !code.equals( "NOCODE" ) ) {
+               concept.addCode( source, code );
+            }
+         }
+      }
+      conceptMap.values().removeIf( Concept::isEmpty );
+      return conceptMap;
+   }
+
+}
@@ -198,6 +198,23 @@ public class LvgAnnotator extends JCasAnnotator_ImplBase {
 	    )
 	private String[] wordsToExclude = defaultExclusionWords;
   private Set<String> exclusionSet;
+
+	public static final String PARAM_RUNTIME_CACHE_SIZE = "RuntimeCacheSize";
+	@ConfigurationParameter(
+	    name = PARAM_RUNTIME_CACHE_SIZE,
+	    mandatory = false,
+	    defaultValue = "100000",
+	    description = "Largest number of words whose canonical forms and lemmas found by LVG are cached, 0 for no cache"
+	    )
+	private int runtimeCacheSize;
+
+	public static final String PARAM_RUNTIME_CACHE_FILE = "RuntimeCacheFile";
+	@ConfigurationParameter(
+	    name = PARAM_RUNTIME_CACHE_FILE,
+	    mandatory = false,
+	    description = "File to load the runtime cache from and save it to, none to keep it in memory only"
+	    )
+	private String runtimeCacheFile;
   
 	// LOG4J logger based on class name
 	private Logger logger = Logger.getLogger(getClass().getName());
@@ -219,6 +236,14 @@ public class LvgAnnotator extends JCasAnnotator_ImplBase {
 	// key = word, value = Set of Lemma objects
 	private Map<String, Set<LemmaLocalClass>> lemmaCacheMap;
 
+	// words looked up in LVG by this run or an earlier one, shared by all instances
+	private LvgCache runtimeCache;
+
+	// LvgCmdApi and LvgLexItemApi are created from the same configuration and share LVG's database
+	// connections and static state, and a resource may be shared by several annotators.  Every call into
+	// either api holds this one lock, which replaces the lock LvgSingleton held for a whole document.
+	private static final Object LVG_LOCK = new Object();
+
 
 	/**
 	 * Performs initialization logic. This implementation just reads values for
@@ -231,6 +256,10 @@ public class LvgAnnotator extends JCasAnnotator_ImplBase {
 		super.initialize(aContext);
 
 		configInit();
+		if (runtimeCacheSize > 0) {
+			runtimeCache = LvgCache.getCache(
+					runtimeCacheFile == null ? null : new File(runtimeCacheFile), runtimeCacheSize);
+		}
 		try {
 			lvgCmd = lvgResource.getLvg();
 
@@ -315,6 +344,18 @@ public class LvgAnnotator extends JCasAnnotator_ImplBase {
 
 	}
 
+	/**
+	 * Reports the hit rates of the runtime cache and saves its snapshot.
+	 */
+	@Override
+	public void collectionProcessComplete() throws AnalysisEngineProcessException {
+		super.collectionProcessComplete();
+		if (runtimeCache != null) {
+			logger.info(runtimeCache.getStatistics());
+			runtimeCache.saveSnapshot();
+		}
+	}
+
 	/**
 	 * A utility method that annotates a given range.
 	 */
@@ -360,10 +401,24 @@ public class LvgAnnotator extends JCasAnnotator_ImplBase {
 			}
 		}
 
+		if (canonicalForm == null && runtimeCache != null) {
+			canonicalForm = runtimeCache.getCanonicalForm(word);
+			if (canonicalForm != null) {
+				if (!canonicalForm.isEmpty()) {
+					wordAnnotation.setCanonicalForm(canonicalForm);
+				}
+				return;
+			}
+		}
+
 		// only apply LVG processing if not found in cache first
 		if (canonicalForm == null) {
 			try {
-				String out = lvgCmd.MutateToString(word);
+				String out;
+				// the LVG api is not thread safe, cache lookups run unlocked
+				synchronized (LVG_LOCK) {
+					out = lvgCmd.MutateToString(word);
+				}
 
 				String[] output = out.split("\\|");
 
@@ -374,7 +429,9 @@ public class LvgAnnotator extends JCasAnnotator_ImplBase {
 			} catch (Exception e) {
 				throw new AnalysisEngineProcessException(e);
 			}
-
+			if (runtimeCache != null) {
+				runtimeCache.putCanonicalForm(word, canonicalForm);
+			}
 		}
 
 		if (canonicalForm != null) {
@@ -403,10 +460,17 @@ public class LvgAnnotator extends JCasAnnotator_ImplBase {
 			}
 		}
 
+		if (lemmaMap == null && runtimeCache != null) {
+			lemmaMap = runtimeCache.getLemmas(word);
+		}
+
 		if (lemmaMap == null) {
 			lemmaMap = new HashMap<>();
 			try {
-				Vector<?> lexItems = lvgLexItem.MutateLexItem(word);
+				Vector<?> lexItems;
+				synchronized (LVG_LOCK) {
+					lexItems = lvgLexItem.MutateLexItem(word);
+				}
 				Iterator<?> lexItemItr = lexItems.iterator();
 				while (lexItemItr.hasNext()) {
 					LexItem li = (LexItem) lexItemItr.next();
@@ -435,6 +499,9 @@ public class LvgAnnotator extends JCasAnnotator_ImplBase {
 			} catch (Exception e) {
 				throw new AnalysisEngineProcessException(e);
 			}
+			if (runtimeCache != null) {
+				runtimeCache.putLemmas(word, lemmaMap);
+			}
 		}
 
 		// add lemma information to CAS
@@ -21,6 +21,7 @@ package org.apache.ctakes.lvg.ae;
 import org.apache.ctakes.core.pipeline.PipeBitInfo;
 import org.apache.ctakes.core.util.ListFactory;
 import org.apache.ctakes.lvg.resource.LvgCmdApiResource;
+import org.apache.ctakes.lvg.util.LvgTable;
 import org.apache.ctakes.typesystem.type.syntax.BaseToken;
 import org.apache.ctakes.typesystem.type.syntax.Lemma;
 import org.apache.ctakes.typesystem.type.textspan.Segment;
@@ -30,6 +31,7 @@ import gov.nih.nlm.nls.lvg.Lib.Category;
 import gov.nih.nlm.nls.lvg.Lib.LexItem;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
@@ -92,6 +94,14 @@ public class LvgBaseTokenAnnotator extends JCasAnnotator_ImplBase {
 	 * the frequency of a lemma to be loaded into the cache.
 	 */
 	public static final String PARAM_LEMMA_CACHE_FREQUENCY_CUTOFF = "LemmaCacheFrequencyCutoff";
+	/**
+	 * Value is "LvgTableFile". This optional parameter names a table written
+	 * by {@link org.apache.ctakes.lvg.util.LvgTableWriter}. If it is set, normalized forms and lemmas are
+	 * served from the table alone and the LvgCmdApi resource is not used.
+	 * A descriptor that still binds the resource loads LVG anyway, so table mode
+	 * should use a descriptor without the binding, such as LvgBaseTokenTableAnnotator.xml.
+	 */
+	public static final String PARAM_LVG_TABLE_FILE = "LvgTableFile";
 
 	// LOG4J logger based on class name
 	private Logger logger = Logger.getLogger(getClass().getName());
@@ -127,6 +137,9 @@ public class LvgBaseTokenAnnotator extends JCasAnnotator_ImplBase {
 
 	private Set exclusionSet;
 
+	// precompiled words, replaces lvg when set
+	private LvgTable lvgTable;
+
 	/**
 	 * Performs initialization logic. This implementation just reads values for
 	 * the configuration parameters.
@@ -140,6 +153,19 @@ public class LvgBaseTokenAnnotator extends JCasAnnotator_ImplBase {
 		context = aContext;
 		configInit();
 
+		String lvgTableFile = (String) context
+				.getConfigParameterValue(PARAM_LVG_TABLE_FILE);
+		if (lvgTableFile != null) {
+			try {
+				lvgTable = LvgTable.load(new File(lvgTableFile));
+			} catch (IOException e) {
+				throw new ResourceInitializationException(e);
+			}
+			logger.info("Loaded " + lvgTable.getEntryCount()
+					+ " words from LVG table " + lvgTableFile);
+			return;
+		}
+
 		try {
 			LvgCmdApiResource lvgResource = (LvgCmdApiResource) context
 					.getResourceObject(LVGCMDAPI_RESRC_KEY);
@@ -303,6 +329,13 @@ public class LvgBaseTokenAnnotator extends JCasAnnotator_ImplBase {
 			throws AnalysisEngineProcessException {
 		// apply LVG processing to get canonical form
 		String normalizedForm = null;
+		if (lvgTable != null) {
+			normalizedForm = lvgTable.getCanonicalForm(token);
+			if (normalizedForm != null) {
+				tokenAnnotation.setNormalizedForm(normalizedForm);
+			}
+			return;
+		}
 		if (useCmdCache) {
 			normalizedForm = (String) normCacheMap.get(token);
 			if (normalizedForm == null) {
@@ -338,7 +371,9 @@ public class LvgBaseTokenAnnotator extends JCasAnnotator_ImplBase {
 		// key = lemma string, value = Set of POS tags
 		Map lemmaMap = null;
 
-		if (useLemmaCache) {
+		if (lvgTable != null) {
+			lemmaMap = lvgTable.getLemmas(word);
+		} else if (useLemmaCache) {
 			Set lemmaSet = (Set) lemmaCacheMap.get(word);
 			if (lemmaSet == null) {
 				// logger.info("["+ word+
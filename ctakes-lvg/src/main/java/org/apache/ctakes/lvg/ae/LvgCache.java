@@ -0,0 +1,244 @@
+package org.apache.ctakes.lvg.ae;
+
+
+import org.apache.log4j.Logger;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Canonical forms and lemmas of words learned from LVG while running.
+ * <p>
+ * Lookups of the LVG api query its embedded database and are not thread safe, so every word that misses is costly.
+ * This cache keeps the result of every miss so that a word only reaches LVG the first time it is seen.
+ * Lookups and additions never lock, so the cache can be shared by all pipeline threads.
+ * Once full the cache keeps its entries and stops learning new ones.
+ * <p>
+ * The cache can be saved as a compressed binary snapshot and loaded by the next run.
+ * One cache is kept per snapshot file, shared by every annotator that names the same file.
+ */
+final public class LvgCache {
+
+   static private final Logger LOGGER = Logger.getLogger( "LvgCache" );
+
+   static private final int SNAPSHOT_MAGIC = 0x4C564743;   // "LVGC"
+   static private final int SNAPSHOT_VERSION = 1;
+
+   // LVG had no canonical form for the word
+   static private final String NO_CANONICAL_FORM = "";
+
+   static private final Map<String, LvgCache> CACHES = new HashMap<>();
+
+   private final File _snapshotFile;
+   private final int _maxSize;
+   private final Map<String, String> _canonicalForms = new ConcurrentHashMap<>();
+   private final Map<String, Map<String, Set<String>>> _lemmas = new ConcurrentHashMap<>();
+   private final LongAdder _canonicalHits = new LongAdder();
+   private final LongAdder _canonicalMisses = new LongAdder();
+   private final LongAdder _lemmaHits = new LongAdder();
+   private final LongAdder _lemmaMisses = new LongAdder();
+   private volatile boolean _changed;
+
+   /**
+    * @param snapshotFile file holding the snapshot of the cache, loaded if it exists.  null for a cache in memory only.
+    * @param maxSize      largest number of words to cache for canonical forms and for lemmas
+    * @return the cache for the snapshot file, created and loaded when first requested
+    */
+   static public LvgCache getCache( final File snapshotFile, final int maxSize ) {
+      final String key = snapshotFile == null ? "" : snapshotFile.getAbsolutePath();
+      synchronized ( CACHES ) {
+         return CACHES.computeIfAbsent( key, k -> new LvgCache( snapshotFile, maxSize ) );
+      }
+   }
+
+   private LvgCache( final File snapshotFile, final int maxSize ) {
+      _snapshotFile = snapshotFile;
+      _maxSize = maxSize;
+      if ( snapshotFile != null && snapshotFile.isFile() ) {
+         try {
+            loadSnapshot();
+            LOGGER.info( "Loaded " + _canonicalForms.size() + " canonical forms and " + _lemmas.size()
+                         + " lemma sets from " + snapshotFile.getPath() );
+         } catch ( IOException ioE ) {
+            LOGGER.warn( "Could not load LVG cache snapshot " + snapshotFile.getPath() + " : " + ioE.getMessage() );
+            _canonicalForms.clear();
+            _lemmas.clear();
+         }
+      }
+   }
+
+   /**
+    * @param word -
+    * @return null if the word has not been cached, an empty string if LVG had no canonical form for the word
+    */
+   public String getCanonicalForm( final String word ) {
+      final String canonicalForm = _canonicalForms.get( word );
+      if ( canonicalForm == null ) {
+         _canonicalMisses.increment();
+      } else {
+         _canonicalHits.increment();
+      }
+      return canonicalForm;
+   }
+
+   /**
+    * @param word          -
+    * @param canonicalForm canonical form found by LVG, null if none was found
+    */
+   public void putCanonicalForm( final String word, final String canonicalForm ) {
+      if ( _canonicalForms.size() < _maxSize ) {
+         _canonicalForms.putIfAbsent( word, canonicalForm == null ? NO_CANONICAL_FORM : canonicalForm );
+         _changed = true;
+      }
+   }
+
+   /**
+    * @param word -
+    * @return null if the word has not been cached, otherwise an unmodifiable map of lemmas to their part of speech tags
+    */
+   public Map<String, Set<String>> getLemmas( final String word ) {
+      final Map<String, Set<String>> lemmas = _lemmas.get( word );
+      if ( lemmas == null ) {
+         _lemmaMisses.increment();
+      } else {
+         _lemmaHits.increment();
+      }
+      return lemmas;
+   }
+
+   /**
+    * @param word   -
+    * @param lemmas lemmas found by LVG with their part of speech tags
+    */
+   public void putLemmas( final String word, final Map<String, Set<String>> lemmas ) {
+      if ( _lemmas.size() < _maxSize ) {
+         _lemmas.putIfAbsent( word, copyOf( lemmas ) );
+         _changed = true;
+      }
+   }
+
+   /**
+    * @return hit rates of the cache lookups
+    */
+   public String getStatistics() {
+      return "LVG cache canonical forms: " + _canonicalForms.size() + " cached, "
+             + getHitRate( _canonicalHits.sum(), _canonicalMisses.sum() )
+             + " ; lemmas: " + _lemmas.size() + " cached, " + getHitRate( _lemmaHits.sum(), _lemmaMisses.sum() );
+   }
+
+   static private String getHitRate( final long hits, final long misses ) {
+      final long lookups = hits + misses;
+      if ( lookups == 0 ) {
+         return "no lookups";
+      }
+      return String.format( "%d of %d lookups hit (%.1f%%)", hits, lookups, 100d * hits / lookups );
+   }
+
+   /**
+    * Writes the snapshot file if there is one and the cache learned words since it was loaded or last saved.
+    */
+   public void saveSnapshot() {
+      if ( _snapshotFile == null || !_changed ) {
+         return;
+      }
+      synchronized ( this ) {
+         _changed = false;
+         final File parent = _snapshotFile.getAbsoluteFile().getParentFile();
+         if ( parent != null ) {
+            parent.mkdirs();
+         }
+         // write a temporary file and rename it so that a crash never leaves a partial snapshot
+         final File partial = new File( _snapshotFile.getPath() + ".tmp" );
+         try ( DataOutputStream output = new DataOutputStream(
+               new BufferedOutputStream( new GZIPOutputStream( new FileOutputStream( partial ) ) ) ) ) {
+            writeSnapshot( output );
+         } catch ( IOException ioE ) {
+            LOGGER.warn( "Could not save LVG cache snapshot " + _snapshotFile.getPath() + " : " + ioE.getMessage() );
+            partial.delete();
+            return;
+         }
+         if ( !partial.renameTo( _snapshotFile ) ) {
+            _snapshotFile.delete();
+            if ( !partial.renameTo( _snapshotFile ) ) {
+               LOGGER.warn( "Could not replace LVG cache snapshot " + _snapshotFile.getPath() );
+               return;
+            }
+         }
+         LOGGER.info( "Saved " + _canonicalForms.size() + " canonical forms and " + _lemmas.size()
+                      + " lemma sets to " + _snapshotFile.getPath() );
+      }
+   }
+
+   private void writeSnapshot( final DataOutputStream output ) throws IOException {
+      output.writeInt( SNAPSHOT_MAGIC );
+      output.writeInt( SNAPSHOT_VERSION );
+      // copy first, the maps may grow while they are written
+      final Map<String, String> canonicalForms = new HashMap<>( _canonicalForms );
+      output.writeInt( canonicalForms.size() );
+      for ( Map.Entry<String, String> entry : canonicalForms.entrySet() ) {
+         output.writeUTF( entry.getKey() );
+         output.writeUTF( entry.getValue() );
+      }
+      final Map<String, Map<String, Set<String>>> lemmas = new HashMap<>( _lemmas );
+      output.writeInt( lemmas.size() );
+      for ( Map.Entry<String, Map<String, Set<String>>> entry : lemmas.entrySet() ) {
+         output.writeUTF( entry.getKey() );
+         output.writeInt( entry.getValue().size() );
+         for ( Map.Entry<String, Set<String>> lemma : entry.getValue().entrySet() ) {
+            output.writeUTF( lemma.getKey() );
+            output.writeInt( lemma.getValue().size() );
+            for ( String pos : lemma.getValue() ) {
+               output.writeUTF( pos );
+            }
+         }
+      }
+   }
+
+   private void loadSnapshot() throws IOException {
+      try ( DataInputStream input = new DataInputStream(
+            new BufferedInputStream( new GZIPInputStream( new FileInputStream( _snapshotFile ) ) ) ) ) {
+         if ( input.readInt() != SNAPSHOT_MAGIC || input.readInt() != SNAPSHOT_VERSION ) {
+            throw new IOException( "Not an LVG cache snapshot of version " + SNAPSHOT_VERSION );
+         }
+         final int canonicalCount = input.readInt();
+         for ( int i = 0; i < canonicalCount; i++ ) {
+            final String word = input.readUTF();
+            final String canonicalForm = input.readUTF();
+            if ( _canonicalForms.size() < _maxSize ) {
+               _canonicalForms.put( word, canonicalForm );
+            }
+         }
+         final int lemmaCount = input.readInt();
+         for ( int i = 0; i < lemmaCount; i++ ) {
+            final String word = input.readUTF();
+            final int formCount = input.readInt();
+            final Map<String, Set<String>> lemmas = new HashMap<>( formCount );
+            for ( int j = 0; j < formCount; j++ ) {
+               final String form = input.readUTF();
+               final int posCount = input.readInt();
+               final Set<String> posSet = new HashSet<>( posCount );
+               for ( int k = 0; k < posCount; k++ ) {
+                  posSet.add( input.readUTF() );
+               }
+               lemmas.put( form, posSet );
+            }
+            if ( _lemmas.size() < _maxSize ) {
+               _lemmas.put( word, copyOf( lemmas ) );
+            }
+         }
+      }
+   }
+
+   static private Map<String, Set<String>> copyOf( final Map<String, Set<String>> lemmas ) {
+      final Map<String, Set<String>> copy = new HashMap<>( lemmas.size() );
+      for ( Map.Entry<String, Set<String>> lemma : lemmas.entrySet() ) {
+         copy.put( lemma.getKey(), Collections.unmodifiableSet( new HashSet<>( lemma.getValue() ) ) );
+      }
+      return Collections.unmodifiableMap( copy );
+   }
+
+}
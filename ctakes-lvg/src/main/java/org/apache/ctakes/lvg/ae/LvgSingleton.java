@@ -56,9 +56,20 @@ enum LvgSingleton {
       }
    }
 
+   /**
+    * Documents are processed without a lock.  Words missing from the annotator caches are looked up in LVG
+    * holding one lock shared by the canonical form and lemma apis, so LVG itself is still used by one thread at a time.
+    */
    public void process( final JCas jCas ) throws AnalysisEngineProcessException {
+      _lvgAnnotator.process( jCas );
+   }
+
+   /**
+    * Reports the cache hit rates and saves the runtime cache of the single LVG instance.
+    */
+   public void collectionProcessComplete() throws AnalysisEngineProcessException {
       synchronized ( LOCK ) {
-         _lvgAnnotator.process( jCas );
+         _lvgAnnotator.collectionProcessComplete();
       }
    }
 
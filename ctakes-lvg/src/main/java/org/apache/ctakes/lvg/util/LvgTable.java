@@ -0,0 +1,232 @@
+package org.apache.ctakes.lvg.util;
+
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Memory mapped table of words and the canonical forms and lemmas found for them by LVG.
+ * <p>
+ * The table is written offline by {@link LvgTableWriter} so that a pipeline can normalize words with one hash
+ * lookup instead of a query of the LVG database.  Tables are read only and can be shared by any number of threads.
+ * <p>
+ * Layout: a header of magic, version, entry count and slot count, an open addressing hash table of slots holding
+ * the file offsets of entries, then the entries.  Each entry holds the hash and utf-8 text of the word,
+ * its canonical form or a length of -1 for none, and its lemmas with their treebank part of speech tags.
+ */
+final public class LvgTable {
+
+   static private final int MAGIC = 0x4C564754;   // "LVGT"
+   static private final int VERSION = 1;
+   static private final int HEADER_SIZE = 16;
+
+   /**
+    * Canonical form and lemmas of a word.
+    */
+   static public final class Entry {
+      private final String _canonicalForm;
+      private final Map<String, Set<String>> _lemmas;
+
+      /**
+       * @param canonicalForm canonical form, null if LVG found none
+       * @param lemmas        lemmas with their treebank part of speech tags
+       */
+      public Entry( final String canonicalForm, final Map<String, Set<String>> lemmas ) {
+         _canonicalForm = canonicalForm;
+         _lemmas = lemmas;
+      }
+
+      /**
+       * @return canonical form, null if LVG found none
+       */
+      public String getCanonicalForm() {
+         return _canonicalForm;
+      }
+
+      /**
+       * @return lemmas with their treebank part of speech tags
+       */
+      public Map<String, Set<String>> getLemmas() {
+         return _lemmas;
+      }
+   }
+
+   private final ByteBuffer _buffer;
+   private final int _entryCount;
+   private final int _slotCount;
+
+   private LvgTable( final ByteBuffer buffer ) throws IOException {
+      _buffer = buffer;
+      if ( buffer.capacity() < HEADER_SIZE || buffer.getInt( 0 ) != MAGIC || buffer.getInt( 4 ) != VERSION ) {
+         throw new IOException( "Not an LVG table of version " + VERSION );
+      }
+      _entryCount = buffer.getInt( 8 );
+      _slotCount = buffer.getInt( 12 );
+   }
+
+   /**
+    * @param tableFile table written by {@link #write(File, Map)}
+    * @return the table, mapped into memory
+    * @throws IOException if the file could not be mapped or is not a table
+    */
+   static public LvgTable load( final File tableFile ) throws IOException {
+      try ( RandomAccessFile file = new RandomAccessFile( tableFile, "r" );
+            FileChannel channel = file.getChannel() ) {
+         final MappedByteBuffer buffer = channel.map( FileChannel.MapMode.READ_ONLY, 0, channel.size() );
+         return new LvgTable( buffer );
+      }
+   }
+
+   /**
+    * @return number of words in the table
+    */
+   public int getEntryCount() {
+      return _entryCount;
+   }
+
+   /**
+    * @param word -
+    * @return the canonical form and lemmas of the word, null if the word is not in the table
+    */
+   public Entry getEntry( final String word ) {
+      final int hash = hash( word );
+      final int mask = _slotCount - 1;
+      for ( int slot = hash & mask; ; slot = ( slot + 1 ) & mask ) {
+         final int offset = _buffer.getInt( HEADER_SIZE + 4 * slot );
+         if ( offset == 0 ) {
+            return null;
+         }
+         if ( _buffer.getInt( offset ) == hash ) {
+            // each reader positions its own view of the shared buffer
+            final ByteBuffer entry = _buffer.duplicate();
+            entry.position( offset + 4 );
+            if ( word.equals( readString( entry ) ) ) {
+               return readEntry( entry );
+            }
+         }
+      }
+   }
+
+   /**
+    * @param word -
+    * @return the canonical form of the word, null if the word is not in the table or LVG found none
+    */
+   public String getCanonicalForm( final String word ) {
+      final Entry entry = getEntry( word );
+      return entry == null ? null : entry.getCanonicalForm();
+   }
+
+   /**
+    * @param word -
+    * @return lemmas of the word with their treebank part of speech tags, empty if the word is not in the table
+    */
+   public Map<String, Set<String>> getLemmas( final String word ) {
+      final Entry entry = getEntry( word );
+      return entry == null ? Collections.emptyMap() : entry.getLemmas();
+   }
+
+   /**
+    * @param tableFile file to write
+    * @param entries   words and their entries
+    * @throws IOException if the file could not be written or the table would exceed 2GB
+    */
+   static public void write( final File tableFile, final Map<String, Entry> entries ) throws IOException {
+      // keep the table at most half full so that probes stay short
+      int slotCount = 2;
+      while ( slotCount < entries.size() * 2 ) {
+         slotCount <<= 1;
+      }
+      final int[] slots = new int[ slotCount ];
+      final int entriesOffset = HEADER_SIZE + 4 * slotCount;
+      final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      final DataOutputStream entryData = new DataOutputStream( bytes );
+      for ( Map.Entry<String, Entry> entry : entries.entrySet() ) {
+         final long offset = (long)entriesOffset + entryData.size();
+         if ( offset > Integer.MAX_VALUE ) {
+            throw new IOException( "LVG table larger than 2GB" );
+         }
+         final int hash = hash( entry.getKey() );
+         int slot = hash & ( slotCount - 1 );
+         while ( slots[ slot ] != 0 ) {
+            slot = ( slot + 1 ) & ( slotCount - 1 );
+         }
+         slots[ slot ] = (int)offset;
+         entryData.writeInt( hash );
+         writeString( entryData, entry.getKey() );
+         writeString( entryData, entry.getValue().getCanonicalForm() );
+         final Map<String, Set<String>> lemmas = entry.getValue().getLemmas();
+         entryData.writeShort( lemmas.size() );
+         for ( Map.Entry<String, Set<String>> lemma : lemmas.entrySet() ) {
+            writeString( entryData, lemma.getKey() );
+            entryData.writeByte( lemma.getValue().size() );
+            for ( String pos : lemma.getValue() ) {
+               writeString( entryData, pos );
+            }
+         }
+      }
+      entryData.flush();
+      try ( DataOutputStream output = new DataOutputStream(
+            new BufferedOutputStream( new FileOutputStream( tableFile ) ) ) ) {
+         output.writeInt( MAGIC );
+         output.writeInt( VERSION );
+         output.writeInt( entries.size() );
+         output.writeInt( slotCount );
+         for ( int offset : slots ) {
+            output.writeInt( offset );
+         }
+         bytes.writeTo( output );
+      }
+   }
+
+   static private int hash( final String word ) {
+      final int hash = word.hashCode();
+      return hash ^ ( hash >>> 16 );
+   }
+
+   static private void writeString( final DataOutputStream output, final String text ) throws IOException {
+      if ( text == null ) {
+         output.writeShort( -1 );
+         return;
+      }
+      final byte[] utf8 = text.getBytes( StandardCharsets.UTF_8 );
+      if ( utf8.length >= 0xFFFF ) {
+         throw new IOException( "Text too long for an LVG table: " + text.substring( 0, 40 ) + "..." );
+      }
+      output.writeShort( utf8.length );
+      output.write( utf8 );
+   }
+
+   static private String readString( final ByteBuffer buffer ) {
+      final int length = buffer.getShort() & 0xFFFF;
+      if ( length == 0xFFFF ) {
+         return null;
+      }
+      final byte[] utf8 = new byte[ length ];
+      buffer.get( utf8 );
+      return new String( utf8, StandardCharsets.UTF_8 );
+   }
+
+   static private Entry readEntry( final ByteBuffer buffer ) {
+      final String canonicalForm = readString( buffer );
+      final int lemmaCount = buffer.getShort() & 0xFFFF;
+      if ( lemmaCount == 0 ) {
+         return new Entry( canonicalForm, Collections.emptyMap() );
+      }
+      final Map<String, Set<String>> lemmas = new HashMap<>( lemmaCount );
+      for ( int i = 0; i < lemmaCount; i++ ) {
+         final String form = readString( buffer );
+         final int posCount = buffer.get() & 0xFF;
+         final Set<String> posSet = new HashSet<>( posCount );
+         for ( int j = 0; j < posCount; j++ ) {
+            posSet.add( readString( buffer ) );
+         }
+         lemmas.put( form, posSet );
+      }
+      return new Entry( canonicalForm, lemmas );
+   }
+
+}
@@ -0,0 +1,130 @@
+package org.apache.ctakes.lvg.util;
+
+
+import gov.nih.nlm.nls.lvg.Api.LvgCmdApi;
+import gov.nih.nlm.nls.lvg.Api.LvgLexItemApi;
+import gov.nih.nlm.nls.lvg.Lib.Category;
+import gov.nih.nlm.nls.lvg.Lib.LexItem;
+import org.apache.ctakes.core.nlp.tokenizer.Token;
+import org.apache.ctakes.core.nlp.tokenizer.TokenizerPTB;
+import org.apache.ctakes.lvg.ae.LvgAnnotator;
+import org.apache.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Writes an {@link LvgTable} for the words of vocabulary files, such as dictionary term lists and a corpus sample.
+ * <p>
+ * The files are split into tokens with {@link TokenizerPTB}, as the pipeline tokenizer does,
+ * so hyphenated words and contractions are kept as the base tokens that the annotators normalize.
+ * Every distinct token of the files is looked up once with the same LVG flows used by the LVG annotators:
+ * lower case and uninflect for the canonical form, inflectional variants for the lemmas.
+ * Lemma parts of speech are converted to treebank tags with {@link LvgAnnotator#defaultTreebankMap}.
+ * <p>
+ * Usage: LvgTableWriter tableFile lvgPropertiesFile vocabularyFile...
+ */
+final public class LvgTableWriter {
+
+   static private final Logger LOGGER = Logger.getLogger( "LvgTableWriter" );
+
+   private LvgTableWriter() {
+   }
+
+   static public void main( final String... args ) throws Exception {
+      if ( args.length < 3 ) {
+         System.err.println( "Usage: LvgTableWriter tableFile lvgPropertiesFile vocabularyFile..." );
+         System.exit( 1 );
+      }
+      final Collection<String> words = new TreeSet<>();
+      for ( int i = 2; i < args.length; i++ ) {
+         readWords( new File( args[ i ] ), words );
+      }
+      LOGGER.info( "Looking up " + words.size() + " distinct words in LVG" );
+      final Map<String, LvgTable.Entry> entries = lookupWords( new File( args[ 1 ] ), words );
+      LvgTable.write( new File( args[ 0 ] ), entries );
+      LOGGER.info( "Wrote " + entries.size() + " words to " + args[ 0 ] );
+   }
+
+   static private void readWords( final File vocabularyFile, final Collection<String> words ) throws IOException {
+      final TokenizerPTB tokenizer = new TokenizerPTB();
+      try ( BufferedReader reader = new BufferedReader( new FileReader( vocabularyFile ) ) ) {
+         String line = reader.readLine();
+         while ( line != null ) {
+            // without a cas the tokenizer returns plain tokens holding their text
+            for ( Object token : tokenizer.tokenize( line ) ) {
+               final String word = ( (Token)token ).getText();
+               if ( word != null && !word.trim().isEmpty() ) {
+                  words.add( word );
+               }
+            }
+            line = reader.readLine();
+         }
+      }
+   }
+
+   static private Map<String, LvgTable.Entry> lookupWords( final File propertiesFile, final Collection<String> words )
+         throws Exception {
+      final Map<String, String> xeroxTreebankMap = new HashMap<>();
+      for ( String xtMap : LvgAnnotator.defaultTreebankMap ) {
+         final String[] tags = xtMap.split( "\\|" );
+         xeroxTreebankMap.put( tags[ 0 ], tags[ 1 ] );
+      }
+      // LVG_DIR=AUTO_MODE finds the lvg files relative to the working directory, as in LvgCmdApiResourceImpl
+      final String cwd = System.getProperty( "user.dir" );
+      final LvgCmdApi lvgCmd;
+      final LvgLexItemApi lvgLexItem;
+      try {
+         final File configDir = propertiesFile.getAbsoluteFile().getParentFile();
+         System.setProperty( "user.dir", configDir.getParentFile().getParent() );
+         lvgCmd = new LvgCmdApi( "-f:l:b", propertiesFile.getPath() );
+         lvgLexItem = new LvgLexItemApi( "-f:i -SC", propertiesFile.getPath() );
+      } finally {
+         System.setProperty( "user.dir", cwd );
+      }
+      final Map<String, LvgTable.Entry> entries = new LinkedHashMap<>( words.size() );
+      try {
+         for ( String word : words ) {
+            entries.put( word, new LvgTable.Entry( getCanonicalForm( lvgCmd, word ),
+                  getLemmas( lvgLexItem, xeroxTreebankMap, word ) ) );
+            if ( entries.size() % 10000 == 0 ) {
+               LOGGER.info( "Looked up " + entries.size() + " words" );
+            }
+         }
+      } finally {
+         lvgCmd.CleanUp();
+         lvgLexItem.CleanUp();
+      }
+      return entries;
+   }
+
+   static private String getCanonicalForm( final LvgCmdApi lvgCmd, final String word ) throws Exception {
+      final String[] output = lvgCmd.MutateToString( word ).split( "\\|" );
+      if ( output.length >= 2 && !output[ 1 ].matches( "No Output" ) ) {
+         return output[ 1 ];
+      }
+      return null;
+   }
+
+   static private Map<String, Set<String>> getLemmas( final LvgLexItemApi lvgLexItem,
+                                                      final Map<String, String> xeroxTreebankMap,
+                                                      final String word ) throws Exception {
+      final Map<String, Set<String>> lemmas = new HashMap<>();
+      for ( Object item : lvgLexItem.MutateLexItem( word ) ) {
+         final LexItem lexItem = (LexItem)item;
+         final String lemma = lexItem.GetTargetTerm();
+         for ( long bitValue : Category.ToValuesArray( lexItem.GetTargetCategory().GetValue() ) ) {
+            // note that POS is Xerox tagset
+            final String treebankTag = xeroxTreebankMap.get( Category.ToName( bitValue ) );
+            if ( treebankTag != null ) {
+               lemmas.computeIfAbsent( lemma, l -> new HashSet<>() ).add( treebankTag );
+            }
+         }
+      }
+      return lemmas;
+   }
+
+}
@@ -0,0 +1,130 @@
+package org.apache.ctakes.lvg.ae;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Saves and loads cache snapshots and checks the size bound and the marker for words without a canonical form.
+ * Caches are shared per snapshot file, so every test names its own file.
+ */
+public class LvgCacheTest {
+
+   @Rule
+   public TemporaryFolder folder = new TemporaryFolder();
+
+   @Test
+   public void testSnapshotRoundTrip() throws IOException {
+      final File snapshot = new File( folder.getRoot(), "round/trip/lvg.cache" );
+      final LvgCache cache = LvgCache.getCache( snapshot, 100 );
+      assertSame( cache, LvgCache.getCache( snapshot, 100 ) );
+      cache.putCanonicalForm( "ran", "run" );
+      cache.putCanonicalForm( "na\u00efve", "naive" );
+      cache.putCanonicalForm( "xyzzy", null );
+      cache.putLemmas( "ran", lemmas( "run", "verb" ) );
+      final Map<String, Set<String>> leaves = lemmas( "leaf", "noun" );
+      leaves.put( "leave", new HashSet<>( Arrays.asList( "verb", "noun" ) ) );
+      cache.putLemmas( "leaves", leaves );
+      cache.putLemmas( "none", Collections.emptyMap() );
+      cache.saveSnapshot();
+      assertTrue( snapshot.isFile() );
+      assertFalse( new File( snapshot.getPath() + ".tmp" ).exists() );
+
+      // another path to the same file is a new cache, loaded from the snapshot
+      final LvgCache loaded = LvgCache.getCache( new File( snapshot.getParentFile(), "../trip/lvg.cache" ), 100 );
+      assertNotSame( cache, loaded );
+      assertEquals( "run", loaded.getCanonicalForm( "ran" ) );
+      assertEquals( "naive", loaded.getCanonicalForm( "na\u00efve" ) );
+      assertEquals( "", loaded.getCanonicalForm( "xyzzy" ) );
+      assertNull( loaded.getCanonicalForm( "walked" ) );
+      assertEquals( lemmas( "run", "verb" ), loaded.getLemmas( "ran" ) );
+      assertEquals( leaves, loaded.getLemmas( "leaves" ) );
+      assertEquals( Collections.emptyMap(), loaded.getLemmas( "none" ) );
+      assertNull( loaded.getLemmas( "walked" ) );
+   }
+
+   @Test
+   public void testNoCanonicalForm() {
+      final LvgCache cache = LvgCache.getCache( new File( folder.getRoot(), "marker.cache" ), 10 );
+      assertNull( cache.getCanonicalForm( "xyzzy" ) );
+      cache.putCanonicalForm( "xyzzy", null );
+      // cached, but LVG had no canonical form for it
+      assertEquals( "", cache.getCanonicalForm( "xyzzy" ) );
+      // the first result is kept
+      cache.putCanonicalForm( "xyzzy", "plugh" );
+      assertEquals( "", cache.getCanonicalForm( "xyzzy" ) );
+   }
+
+   @Test
+   public void testSizeBound() throws IOException {
+      final File snapshot = new File( folder.getRoot(), "bound.cache" );
+      final LvgCache cache = LvgCache.getCache( snapshot, 3 );
+      for ( int i = 0; i < 10; i++ ) {
+         cache.putCanonicalForm( "word" + i, "form" + i );
+         cache.putLemmas( "word" + i, lemmas( "lemma" + i, "noun" ) );
+      }
+      for ( int i = 0; i < 10; i++ ) {
+         if ( i < 3 ) {
+            assertEquals( "form" + i, cache.getCanonicalForm( "word" + i ) );
+            assertEquals( lemmas( "lemma" + i, "noun" ), cache.getLemmas( "word" + i ) );
+         } else {
+            assertNull( cache.getCanonicalForm( "word" + i ) );
+            assertNull( cache.getLemmas( "word" + i ) );
+         }
+      }
+      cache.saveSnapshot();
+      // a smaller cache loads only as many words as it can hold
+      final LvgCache smaller = LvgCache.getCache( new File( folder.getRoot(), "./bound.cache" ), 2 );
+      int canonicalCount = 0;
+      int lemmaCount = 0;
+      for ( int i = 0; i < 3; i++ ) {
+         canonicalCount += smaller.getCanonicalForm( "word" + i ) == null ? 0 : 1;
+         lemmaCount += smaller.getLemmas( "word" + i ) == null ? 0 : 1;
+      }
+      assertEquals( 2, canonicalCount );
+      assertEquals( 2, lemmaCount );
+   }
+
+   @Test
+   public void testCachedLemmasAreCopies() {
+      final LvgCache cache = LvgCache.getCache( new File( folder.getRoot(), "copies.cache" ), 10 );
+      final Map<String, Set<String>> lemmas = lemmas( "run", "verb" );
+      cache.putLemmas( "ran", lemmas );
+      lemmas.get( "run" ).add( "noun" );
+      lemmas.put( "rerun", new HashSet<>( Collections.singletonList( "verb" ) ) );
+      final Map<String, Set<String>> cached = cache.getLemmas( "ran" );
+      assertEquals( lemmas( "run", "verb" ), cached );
+      try {
+         cached.get( "run" ).add( "noun" );
+         fail( "Cached lemmas are shared by all threads and should not be modifiable" );
+      } catch ( UnsupportedOperationException uoE ) {
+         assertEquals( lemmas( "run", "verb" ), cache.getLemmas( "ran" ) );
+      }
+   }
+
+   @Test
+   public void testUnreadableSnapshot() throws IOException {
+      final File snapshot = new File( folder.getRoot(), "unreadable.cache" );
+      try ( FileOutputStream output = new FileOutputStream( snapshot ) ) {
+         output.write( "not a snapshot".getBytes() );
+      }
+      final LvgCache cache = LvgCache.getCache( snapshot, 10 );
+      assertNull( cache.getCanonicalForm( "ran" ) );
+      cache.putCanonicalForm( "ran", "run" );
+      assertEquals( "run", cache.getCanonicalForm( "ran" ) );
+   }
+
+   static private Map<String, Set<String>> lemmas( final String lemma, final String pos ) {
+      final Map<String, Set<String>> lemmas = new HashMap<>();
+      lemmas.put( lemma, new HashSet<>( Collections.singletonList( pos ) ) );
+      return lemmas;
+   }
+
+}
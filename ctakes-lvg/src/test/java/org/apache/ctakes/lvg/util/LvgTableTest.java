@@ -0,0 +1,128 @@
+package org.apache.ctakes.lvg.util;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Writes tables and loads them back, including words without a canonical form and words with the same hash.
+ */
+public class LvgTableTest {
+
+   // all have the same String hashCode, so they probe past one another
+   static private final String[] COLLIDING = { "AaAa", "AaBB", "BBAa", "BBBB" };
+
+   @Rule
+   public TemporaryFolder folder = new TemporaryFolder();
+
+   @Test
+   public void testRoundTrip() throws IOException {
+      final Map<String, LvgTable.Entry> entries = new LinkedHashMap<>();
+      entries.put( "ran", new LvgTable.Entry( "run", lemmas( "run", "VB" ) ) );
+      final Map<String, Set<String>> leaves = lemmas( "leaf", "NN" );
+      leaves.put( "leave", new HashSet<>( Arrays.asList( "VB", "NN" ) ) );
+      entries.put( "leaves", new LvgTable.Entry( "leaf", leaves ) );
+      entries.put( "x-ray", new LvgTable.Entry( "x-ray", lemmas( "x-ray", "NN" ) ) );
+      entries.put( "na\u00efve", new LvgTable.Entry( "naive", Collections.emptyMap() ) );
+      entries.put( "xyzzy", new LvgTable.Entry( null, Collections.emptyMap() ) );
+      entries.put( "", new LvgTable.Entry( "", Collections.emptyMap() ) );
+      final LvgTable table = writeAndLoad( entries );
+
+      assertEquals( entries.size(), table.getEntryCount() );
+      for ( Map.Entry<String, LvgTable.Entry> entry : entries.entrySet() ) {
+         assertEntry( entry.getKey(), entry.getValue(), table.getEntry( entry.getKey() ) );
+      }
+      assertNull( table.getCanonicalForm( "xyzzy" ) );
+      assertNotNull( table.getEntry( "xyzzy" ) );
+      assertEquals( "", table.getCanonicalForm( "" ) );
+      assertNull( table.getEntry( "walked" ) );
+      assertNull( table.getCanonicalForm( "walked" ) );
+      assertEquals( Collections.emptyMap(), table.getLemmas( "walked" ) );
+      assertEquals( leaves, table.getLemmas( "leaves" ) );
+   }
+
+   @Test
+   public void testHashCollisions() throws IOException {
+      assertEquals( COLLIDING[ 0 ].hashCode(), COLLIDING[ 3 ].hashCode() );
+      final Map<String, LvgTable.Entry> entries = new LinkedHashMap<>();
+      // leave one colliding word out, its probe must pass the others and stop at an empty slot
+      for ( int i = 1; i < COLLIDING.length; i++ ) {
+         entries.put( COLLIDING[ i ], new LvgTable.Entry( i == 2 ? null : "form" + i, lemmas( "lemma" + i, "NN" ) ) );
+      }
+      entries.put( "Aa", new LvgTable.Entry( "aa", Collections.emptyMap() ) );
+      entries.put( "BB", new LvgTable.Entry( "bb", Collections.emptyMap() ) );
+      final LvgTable table = writeAndLoad( entries );
+
+      for ( Map.Entry<String, LvgTable.Entry> entry : entries.entrySet() ) {
+         assertEntry( entry.getKey(), entry.getValue(), table.getEntry( entry.getKey() ) );
+      }
+      assertNull( table.getEntry( COLLIDING[ 0 ] ) );
+   }
+
+   @Test
+   public void testManyWords() throws IOException {
+      final Random random = new Random( 45 );
+      final Map<String, LvgTable.Entry> entries = new HashMap<>();
+      for ( int i = 0; i < 5000; i++ ) {
+         final String word = Integer.toString( random.nextInt( 100000 ), 36 );
+         final String canonicalForm = random.nextInt( 5 ) == 0 ? null : word.toLowerCase();
+         entries.put( word, new LvgTable.Entry( canonicalForm,
+               random.nextBoolean() ? Collections.emptyMap() : lemmas( word, "NN" ) ) );
+      }
+      for ( String colliding : COLLIDING ) {
+         entries.put( colliding, new LvgTable.Entry( colliding.toLowerCase(), Collections.emptyMap() ) );
+      }
+      final LvgTable table = writeAndLoad( entries );
+
+      assertEquals( entries.size(), table.getEntryCount() );
+      for ( Map.Entry<String, LvgTable.Entry> entry : entries.entrySet() ) {
+         assertEntry( entry.getKey(), entry.getValue(), table.getEntry( entry.getKey() ) );
+      }
+      for ( int i = 0; i < 1000; i++ ) {
+         final String word = "missing" + i;
+         assertNull( word, table.getEntry( word ) );
+      }
+   }
+
+   @Test
+   public void testEmptyTable() throws IOException {
+      final LvgTable table = writeAndLoad( Collections.emptyMap() );
+      assertEquals( 0, table.getEntryCount() );
+      assertNull( table.getEntry( "ran" ) );
+   }
+
+   @Test( expected = IOException.class )
+   public void testNotATable() throws IOException {
+      final File tableFile = new File( folder.getRoot(), "not.table" );
+      try ( FileOutputStream output = new FileOutputStream( tableFile ) ) {
+         output.write( "not an lvg table".getBytes() );
+      }
+      LvgTable.load( tableFile );
+   }
+
+   private LvgTable writeAndLoad( final Map<String, LvgTable.Entry> entries ) throws IOException {
+      final File tableFile = File.createTempFile( "lvg", ".table", folder.getRoot() );
+      LvgTable.write( tableFile, entries );
+      return LvgTable.load( tableFile );
+   }
+
+   static private void assertEntry( final String word, final LvgTable.Entry expected, final LvgTable.Entry actual ) {
+      assertNotNull( word, actual );
+      assertEquals( word, expected.getCanonicalForm(), actual.getCanonicalForm() );
+      assertEquals( word, expected.getLemmas(), actual.getLemmas() );
+   }
+
+   static private Map<String, Set<String>> lemmas( final String lemma, final String pos ) {
+      final Map<String, Set<String>> lemmas = new HashMap<>();
+      lemmas.put( lemma, new HashSet<>( Collections.singletonList( pos ) ) );
+      return lemmas;
+   }
+
+}
@@ -28,6 +28,7 @@ import org.apache.uima.analysis_engine.annotator.AnnotatorConfigurationException
 import org.apache.uima.cas.FSIterator;
 import org.apache.uima.cas.Type;
 import org.apache.uima.cas.TypeSystem;
+import org.apache.uima.cas.text.AnnotationIndex;
 import org.apache.uima.fit.descriptor.ConfigurationParameter;
 import org.apache.uima.fit.factory.AnalysisEngineFactory;
 import org.apache.uima.jcas.JCas;
@@ -270,10 +271,13 @@ public class ContextAnnotator extends org.apache.uima.fit.component.JCasAnnotato
 
 	public void process(JCas jCas) throws AnalysisEngineProcessException {
 		try {
+			AnnotationIndex<Annotation> contextIndex = jCas.getAnnotationIndex(contextType);
+			List<Annotation> contexts = getSortedAnnotations(contextIndex);
 			FSIterator windowIterator = jCas.getAnnotationIndex(windowType).iterator();
 			while (windowIterator.hasNext()) {
 				Annotation window = (Annotation) windowIterator.next();
 				List<Annotation> focusList = constrainToWindow(jCas, focusType, window);
+				List<Annotation> windowContexts = getCovered(contextIndex, contexts, window);
 
 				// why is this list reversed?
 				Collections.reverse(focusList);
@@ -284,11 +288,17 @@ public class ContextAnnotator extends org.apache.uima.fit.component.JCasAnnotato
 					Iterator<Annotation> focusIterator = focusList.iterator();
 					while (focusIterator.hasNext()) {
 						Annotation focus = focusIterator.next();
-						List<Annotation> scopeContextAnnotations = getScopeContextAnnotations(jCas, focus, window,
-								scope);
+						List<Annotation> scopeContextAnnotations = getScopeContextAnnotations(jCas, contextIndex,
+								contexts, windowContexts, focus, window, scope);
 						ContextHit contextHit = contextAnalyzer.analyzeContext(scopeContextAnnotations, scope);
 						if (contextHit != null) {
 							contextConsumer.consumeHit(jCas, focus, scope, contextHit);
+							if (contextIndex.size() != contexts.size()) {
+								// the consumer added context annotations, which the
+								// remaining scopes must see
+								contexts = getSortedAnnotations(contextIndex);
+								windowContexts = getCovered(contextIndex, contexts, window);
+							}
 						}
 					}
 				}
@@ -321,8 +331,52 @@ public class ContextAnnotator extends org.apache.uima.fit.component.JCasAnnotato
 		return scopeContextAnnotations;
 	}
 
+	/**
+	 * Same as {@link #getScopeContextAnnotations(JCas, Annotation, Annotation, int)}, but reads the context
+	 * annotations from sorted lists instead of creating iterators over the CAS.
+	 * 
+	 * @param contexts
+	 *            all context annotations of the document, in index order
+	 * @param windowContexts
+	 *            the context annotations covered by the window, in index order
+	 */
+	List<Annotation> getScopeContextAnnotations(JCas jCas, AnnotationIndex<Annotation> contextIndex,
+			List<Annotation> contexts, List<Annotation> windowContexts, Annotation focus, Annotation window, int scope) {
+		List<Annotation> scopeContextAnnotations = new ArrayList<Annotation>();
+		switch (scope) {
+		case LEFT_SCOPE:
+			scopeContextAnnotations = getLeftScopeContextAnnotations(contextIndex, windowContexts, focus, window);
+			break;
+		case MIDDLE_SCOPE:
+			scopeContextAnnotations = getMiddleScopeContextAnnotations(jCas, focus,
+					getCovered(contextIndex, contexts, focus));
+			break;
+		case RIGHT_SCOPE:
+			scopeContextAnnotations = getRightScopeContextAnnotations(contextIndex, windowContexts, focus, window);
+			break;
+		case ALL_SCOPE:
+			scopeContextAnnotations.addAll(getLeftScopeContextAnnotations(contextIndex, windowContexts, focus, window));
+			scopeContextAnnotations.addAll(getMiddleScopeContextAnnotations(jCas, focus,
+					getCovered(contextIndex, contexts, focus)));
+			scopeContextAnnotations.addAll(getRightScopeContextAnnotations(contextIndex, windowContexts, focus, window));
+			break;
+		}
+		return scopeContextAnnotations;
+	}
+
 	protected List<Annotation> getLeftScopeContextAnnotations(JCas jCas, Annotation focus, Annotation window)
 			throws AnalysisEngineProcessException {
+		return getLeftScopeContextAnnotations(jCas.getAnnotationIndex(contextType),
+				constrainToWindow(jCas, contextType, window), focus, window);
+	}
+
+	/**
+	 * Walks the window's context annotations to the left of the focus the same
+	 * way a subiterator over the window would after moveTo(focus) and
+	 * moveToNext().
+	 */
+	private List<Annotation> getLeftScopeContextAnnotations(AnnotationIndex<Annotation> contextIndex,
+			List<Annotation> windowContexts, Annotation focus, Annotation window) {
 
 		List<Annotation> scopeContextAnnotations = new ArrayList<Annotation>();
 
@@ -331,24 +385,22 @@ public class ContextAnnotator extends org.apache.uima.fit.component.JCasAnnotato
 		if (focus.getBegin() < window.getBegin() || focus.getEnd() > window.getEnd())
 			return scopeContextAnnotations;
 
-		FSIterator subiterator = jCas.getAnnotationIndex(contextType).subiterator(window);
-		subiterator.moveTo(focus);
-		subiterator.moveToNext();
-		if (!subiterator.isValid())
-			subiterator.moveTo(focus);
-
-		while (scopeContextAnnotations.size() < leftScopeSize) {
-			subiterator.moveToPrevious();
-			if (subiterator.isValid()) {
-				Annotation contextAnnotation = (Annotation) subiterator.get();
-				if (contextAnnotation.getEnd() > focus.getBegin()) {
-					continue;
-				}
-				if (!contextAnalyzer.isBoundary(contextAnnotation, LEFT_SCOPE)) {
-					scopeContextAnnotations.add(contextAnnotation);
-				} else {
-					break;
-				}
+		int position = lowerBound(contextIndex, windowContexts, focus);
+		if (position >= windowContexts.size()) {
+			// the subiterator was invalid, it never moves again
+			return scopeContextAnnotations;
+		}
+		if (position + 1 < windowContexts.size()) {
+			position++;
+		}
+
+		for (int i = position - 1; i >= 0 && scopeContextAnnotations.size() < leftScopeSize; i--) {
+			Annotation contextAnnotation = windowContexts.get(i);
+			if (contextAnnotation.getEnd() > focus.getBegin()) {
+				continue;
+			}
+			if (!contextAnalyzer.isBoundary(contextAnnotation, LEFT_SCOPE)) {
+				scopeContextAnnotations.add(contextAnnotation);
 			} else {
 				break;
 			}
@@ -359,6 +411,17 @@ public class ContextAnnotator extends org.apache.uima.fit.component.JCasAnnotato
 
 	protected List<Annotation> getRightScopeContextAnnotations(JCas jCas, Annotation focus, Annotation window)
 			throws AnalysisEngineProcessException {
+		return getRightScopeContextAnnotations(jCas.getAnnotationIndex(contextType),
+				constrainToWindow(jCas, contextType, window), focus, window);
+	}
+
+	/**
+	 * Walks the window's context annotations to the right of the focus the
+	 * same way a subiterator over the window would after moveTo(focus) and
+	 * moveToPrevious().
+	 */
+	private List<Annotation> getRightScopeContextAnnotations(AnnotationIndex<Annotation> contextIndex,
+			List<Annotation> windowContexts, Annotation focus, Annotation window) {
 
 		List<Annotation> scopeContextAnnotations = new ArrayList<Annotation>();
 
@@ -367,24 +430,23 @@ public class ContextAnnotator extends org.apache.uima.fit.component.JCasAnnotato
 		if (focus.getBegin() < window.getBegin() || focus.getEnd() > window.getEnd())
 			return scopeContextAnnotations;
 
-		FSIterator subiterator = jCas.getAnnotationIndex(contextType).subiterator(window);
-		subiterator.moveTo(focus);
-		subiterator.moveToPrevious();
-		if (!subiterator.isValid())
-			subiterator.moveTo(focus);
-
-		while (scopeContextAnnotations.size() < rightScopeSize) {
-			subiterator.moveToNext();
-			if (subiterator.isValid()) {
-				Annotation contextAnnotation = (Annotation) subiterator.get();
-				if (contextAnnotation.getBegin() < focus.getEnd()) {
-					continue;
-				}
-				if (!contextAnalyzer.isBoundary(contextAnnotation, RIGHT_SCOPE)) {
-					scopeContextAnnotations.add(contextAnnotation);
-				} else {
-					break;
-				}
+		int position = lowerBound(contextIndex, windowContexts, focus);
+		if (position >= windowContexts.size()) {
+			// the subiterator was invalid, it never moves again
+			return scopeContextAnnotations;
+		}
+		if (position > 0) {
+			position--;
+		}
+
+		for (int i = position + 1; i < windowContexts.size()
+				&& scopeContextAnnotations.size() < rightScopeSize; i++) {
+			Annotation contextAnnotation = windowContexts.get(i);
+			if (contextAnnotation.getBegin() < focus.getEnd()) {
+				continue;
+			}
+			if (!contextAnalyzer.isBoundary(contextAnnotation, RIGHT_SCOPE)) {
+				scopeContextAnnotations.add(contextAnnotation);
 			} else {
 				break;
 			}
@@ -394,13 +456,11 @@ public class ContextAnnotator extends org.apache.uima.fit.component.JCasAnnotato
 
 	protected List<Annotation> getMiddleScopeContextAnnotations(JCas jCas, Annotation focus)
 			throws AnalysisEngineProcessException {
+		return getMiddleScopeContextAnnotations(jCas, focus, constrainToWindow(jCas, contextType, focus));
+	}
 
-		List<Annotation> scopeContextAnnotations = new ArrayList<Annotation>();
-
-		FSIterator subiterator = jCas.getAnnotationIndex(contextType).subiterator(focus);
-		while (subiterator.hasNext()) {
-			scopeContextAnnotations.add((Annotation) subiterator.next());
-		}
+	private List<Annotation> getMiddleScopeContextAnnotations(JCas jCas, Annotation focus,
+			List<Annotation> scopeContextAnnotations) {
 		if (scopeContextAnnotations.size() == 0 && JCasUtil.getType(focus.getClass()) == contextType)
 			scopeContextAnnotations.add(focus);
 		else if (scopeContextAnnotations.size() == 0) {
@@ -413,6 +473,56 @@ public class ContextAnnotator extends org.apache.uima.fit.component.JCasAnnotato
 		return scopeContextAnnotations;
 	}
 
+	static List<Annotation> getSortedAnnotations(AnnotationIndex<Annotation> index) {
+		List<Annotation> list = new ArrayList<Annotation>(index.size());
+		for (Annotation annotation : index) {
+			list.add(annotation);
+		}
+		return list;
+	}
+
+	/**
+	 * @param sorted
+	 *            annotations in the order of the index
+	 * @return index in the list of the first annotation that the index does
+	 *         not order before the given annotation, where a subiterator would
+	 *         be positioned by moveTo(annotation)
+	 */
+	private static int lowerBound(AnnotationIndex<Annotation> index, List<Annotation> sorted, Annotation annotation) {
+		int low = 0;
+		int high = sorted.size();
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (index.compare(sorted.get(middle), annotation) < 0) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * @param sorted
+	 *            annotations in the order of the index
+	 * @return the annotations that a strict subiterator over the bound would
+	 *         return, in the same order
+	 */
+	static List<Annotation> getCovered(AnnotationIndex<Annotation> index, List<Annotation> sorted,
+			Annotation bound) {
+		List<Annotation> covered = new ArrayList<Annotation>();
+		for (int i = lowerBound(index, sorted, bound); i < sorted.size(); i++) {
+			Annotation annotation = sorted.get(i);
+			if (annotation.getBegin() > bound.getEnd()) {
+				break;
+			}
+			if (annotation != bound && annotation.getEnd() <= bound.getEnd()) {
+				covered.add(annotation);
+			}
+		}
+		return covered;
+	}
+
 	/**
 	 * Gets a list of annotations within the specified window annotation.
 	 * 
@@ -0,0 +1,434 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.necontexts;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.ctakes.core.util.JCasUtil;
+import org.apache.ctakes.typesystem.type.syntax.BaseToken;
+import org.apache.ctakes.typesystem.type.syntax.PunctuationToken;
+import org.apache.ctakes.typesystem.type.syntax.WordToken;
+import org.apache.ctakes.typesystem.type.textsem.IdentifiedAnnotation;
+import org.apache.ctakes.typesystem.type.textspan.Sentence;
+import org.apache.uima.UimaContext;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.cas.FSIterator;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.TypeSystem;
+import org.apache.uima.cas.text.AnnotationIndex;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.tcas.Annotation;
+import org.junit.Test;
+
+/**
+ * Compares the scopes that ContextAnnotator reads from sorted lists with the
+ * scopes of the subiterator walk it had before, kept here as
+ * {@link SubiteratorContextAnnotator}.
+ */
+public class ContextAnnotatorScopeTests {
+
+	private static final List<Integer> ALL_SCOPES = Arrays.asList(ContextAnnotator.LEFT_SCOPE,
+			ContextAnnotator.MIDDLE_SCOPE, ContextAnnotator.RIGHT_SCOPE, ContextAnnotator.ALL_SCOPE);
+
+	/**
+	 * Random windows and focus annotations, including windows with the same
+	 * offsets as a context annotation, focus annotations with the same offsets
+	 * as a context annotation and focus annotations that sort after every
+	 * context annotation of the window.
+	 */
+	@Test
+	public void testScopesOnRandomWindows() throws Exception {
+		Random random = new Random(39);
+		JCas jCas = JCasFactory.createJCas();
+		for (int document = 0; document < 100; document++) {
+			jCas.reset();
+			List<BaseToken> tokens = createDocument(jCas, random);
+			int length = jCas.getDocumentText().length();
+			ContextAnnotator annotator = configure(new ContextAnnotator(), 1 + random.nextInt(8),
+					1 + random.nextInt(8), new RecordingAnalyzer(null), new RecordingConsumer(null));
+			ContextAnnotator reference = configure(new SubiteratorContextAnnotator(), annotator.leftScopeSize,
+					annotator.rightScopeSize, new RecordingAnalyzer(null), new RecordingConsumer(null));
+
+			AnnotationIndex<Annotation> contextIndex = jCas.getAnnotationIndex(BaseToken.type);
+			List<Annotation> contexts = ContextAnnotator.getSortedAnnotations(contextIndex);
+			for (int trial = 0; trial < 50; trial++) {
+				Annotation window = randomSpan(jCas, random, tokens, length, true);
+				Annotation focus = randomSpan(jCas, random, tokens, length, false);
+				if (trial == 0) {
+					// a focus at the end of the window, after every context annotation
+					window = new Sentence(jCas, 0, length);
+					focus = new IdentifiedAnnotation(jCas, length - 1, length);
+				}
+				List<Annotation> windowContexts = ContextAnnotator.getCovered(contextIndex, contexts, window);
+				for (int scope : ALL_SCOPES) {
+					String message = "Document " + document + " window " + describe(window) + " focus "
+							+ describe(focus) + " scope " + scope;
+					List<String> expected = describe(reference.getScopeContextAnnotations(jCas, focus, window, scope));
+					// through the per-scope methods subclasses can call, and through the lists process() uses
+					assertEquals(message, expected,
+							describe(annotator.getScopeContextAnnotations(jCas, focus, window, scope)));
+					assertEquals(message, expected, describe(annotator.getScopeContextAnnotations(jCas, contextIndex,
+							contexts, windowContexts, focus, window, scope)));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Whole documents through process(), where the windows are sentences that
+	 * can share their offsets with a token and the consumer adds tokens to the
+	 * window while the scopes of the window are being read.
+	 */
+	@Test
+	public void testProcessMatchesSubiteratorWalk() throws Exception {
+		JCas referenceCas = JCasFactory.createJCas();
+		JCas jCas = JCasFactory.createJCas();
+		for (int document = 0; document < 100; document++) {
+			referenceCas.reset();
+			jCas.reset();
+			// the same random document in both CASes
+			createProcessDocument(referenceCas, new Random(document));
+			createProcessDocument(jCas, new Random(document));
+			boolean addTokens = document % 2 == 0;
+
+			List<String> expected = new ArrayList<String>();
+			ContextAnnotator reference = configure(new SubiteratorContextAnnotator(), 4, 3,
+					new RecordingAnalyzer(expected), new RecordingConsumer(addTokens ? expected : null));
+			reference.process(referenceCas);
+
+			List<String> actual = new ArrayList<String>();
+			ContextAnnotator annotator = configure(new ContextAnnotator(), 4, 3, new RecordingAnalyzer(actual),
+					new RecordingConsumer(addTokens ? actual : null));
+			annotator.process(jCas);
+
+			assertEquals("Document " + document, expected, actual);
+			assertTrue(expected.size() > 0);
+			if (addTokens) {
+				assertEquals(describe(ContextAnnotator.getSortedAnnotations(referenceCas.getAnnotationIndex(BaseToken.type))),
+						describe(ContextAnnotator.getSortedAnnotations(jCas.getAnnotationIndex(BaseToken.type))));
+			}
+		}
+	}
+
+	private static ContextAnnotator configure(ContextAnnotator annotator, int leftScopeSize, int rightScopeSize,
+			ContextAnalyzer analyzer, ContextHitConsumer consumer) {
+		annotator.windowType = Sentence.type;
+		annotator.focusType = IdentifiedAnnotation.type;
+		annotator.contextType = BaseToken.type;
+		annotator.leftScopeSize = leftScopeSize;
+		annotator.rightScopeSize = rightScopeSize;
+		annotator.contextAnalyzer = analyzer;
+		annotator.contextConsumer = consumer;
+		annotator.scopes.addAll(ALL_SCOPES);
+		return annotator;
+	}
+
+	/*
+	 * Tokens of the three context types over random, possibly empty,
+	 * overlapping and duplicate spans that all end a few characters before the
+	 * end of the text
+	 */
+	private static List<BaseToken> createDocument(JCas jCas, Random random) {
+		int length = 30 + random.nextInt(60);
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < length; i++) {
+			text.append(random.nextInt(5) == 0 ? ' ' : (char) ('a' + random.nextInt(26)));
+		}
+		jCas.setDocumentText(text.toString());
+		List<BaseToken> tokens = new ArrayList<BaseToken>();
+		for (int t = 10 + random.nextInt(30); t > 0; t--) {
+			int begin = random.nextInt(length - 3);
+			int end = Math.min(length - 3, begin + random.nextInt(6));
+			BaseToken token = createToken(jCas, random.nextInt(3), begin, end);
+			token.addToIndexes();
+			tokens.add(token);
+			if (random.nextInt(8) == 0) {
+				BaseToken duplicate = createToken(jCas, random.nextInt(3), begin, end);
+				duplicate.addToIndexes();
+				tokens.add(duplicate);
+			}
+		}
+		return tokens;
+	}
+
+	private static BaseToken createToken(JCas jCas, int kind, int begin, int end) {
+		switch (kind) {
+		case 0:
+			return new WordToken(jCas, begin, end);
+		case 1:
+			return new PunctuationToken(jCas, begin, end);
+		default:
+			return new BaseToken(jCas, begin, end);
+		}
+	}
+
+	/*
+	 * A random span, or the span of a random token, as a window or a focus
+	 */
+	private static Annotation randomSpan(JCas jCas, Random random, List<BaseToken> tokens, int length,
+			boolean window) {
+		int begin;
+		int end;
+		if (random.nextInt(4) == 0) {
+			BaseToken token = tokens.get(random.nextInt(tokens.size()));
+			begin = token.getBegin();
+			end = token.getEnd();
+		} else {
+			begin = random.nextInt(length);
+			end = Math.min(length, begin + random.nextInt(window ? length : 8));
+		}
+		return window ? new Sentence(jCas, begin, end) : new IdentifiedAnnotation(jCas, begin, end);
+	}
+
+	/*
+	 * A random document with overlapping sentences, some with the offsets of a
+	 * token, and focus annotations over tokens and random spans, one of them
+	 * after every token
+	 */
+	private static void createProcessDocument(JCas jCas, Random random) {
+		List<BaseToken> tokens = createDocument(jCas, random);
+		int length = jCas.getDocumentText().length();
+		new Sentence(jCas, 0, length).addToIndexes();
+		for (int s = random.nextInt(5); s > 0; s--) {
+			Annotation span = randomSpan(jCas, random, tokens, length, true);
+			span.addToIndexes();
+		}
+		for (int f = 3 + random.nextInt(10); f > 0; f--) {
+			Annotation span = randomSpan(jCas, random, tokens, length, false);
+			span.addToIndexes();
+		}
+		new IdentifiedAnnotation(jCas, length - 2, length).addToIndexes();
+	}
+
+	private static String describe(Annotation annotation) {
+		return annotation.getClass().getSimpleName() + "[" + annotation.getBegin() + "," + annotation.getEnd() + "]";
+	}
+
+	private static List<String> describe(List<Annotation> annotations) {
+		List<String> descriptions = new ArrayList<String>();
+		for (Annotation annotation : annotations) {
+			descriptions.add(describe(annotation));
+		}
+		return descriptions;
+	}
+
+	/**
+	 * Punctuation is a boundary. Records every scope it is given when it has a
+	 * log, and reports a hit for every other scope that is not empty.
+	 */
+	public static class RecordingAnalyzer implements ContextAnalyzer {
+		private final List<String> log;
+		private int scopes = 0;
+
+		public RecordingAnalyzer(List<String> log) {
+			this.log = log;
+		}
+
+		public void initialize(UimaContext context) {
+		}
+
+		public boolean isBoundary(Annotation contextAnnotation, int scopeOrientation) {
+			return contextAnnotation instanceof PunctuationToken;
+		}
+
+		@SuppressWarnings("unchecked")
+		public ContextHit analyzeContext(List<? extends Annotation> contextAnnotations, int scopeOrientation) {
+			if (log != null) {
+				log.add(scopeOrientation + " " + describe((List<Annotation>) contextAnnotations));
+			}
+			scopes++;
+			if (contextAnnotations.isEmpty() || scopes % 2 == 0) {
+				return null;
+			}
+			return new ContextHit(contextAnnotations.get(0).getBegin(), contextAnnotations.get(0).getEnd());
+		}
+	}
+
+	/**
+	 * Records every hit when it has a log, and then adds a token next to the
+	 * focus, so that the remaining scopes of the window have to see it.
+	 */
+	public static class RecordingConsumer implements ContextHitConsumer {
+		private final List<String> log;
+
+		public RecordingConsumer(List<String> log) {
+			this.log = log;
+		}
+
+		public void consumeHit(JCas jCas, Annotation focusAnnotation, int scope, ContextHit contextHit) {
+			if (log == null) {
+				return;
+			}
+			log.add("hit " + describe(focusAnnotation) + " " + scope);
+			int length = jCas.getDocumentText().length();
+			int begin = Math.max(0, focusAnnotation.getBegin() - 2);
+			new WordToken(jCas, begin, Math.min(length, begin + 1)).addToIndexes();
+			new WordToken(jCas, Math.min(length, focusAnnotation.getEnd() + 1), Math.min(length,
+					focusAnnotation.getEnd() + 2)).addToIndexes();
+		}
+	}
+
+	/**
+	 * ContextAnnotator as it was before it read the scopes from sorted lists:
+	 * a subiterator over the window or the focus for every scope of every
+	 * focus annotation.
+	 */
+	static class SubiteratorContextAnnotator extends ContextAnnotator {
+
+		@Override
+		public void process(JCas jCas) throws AnalysisEngineProcessException {
+			try {
+				FSIterator windowIterator = jCas.getAnnotationIndex(windowType).iterator();
+				while (windowIterator.hasNext()) {
+					Annotation window = (Annotation) windowIterator.next();
+					List<Annotation> focusList = constrainToWindow(jCas, focusType, window);
+
+					// why is this list reversed?
+					Collections.reverse(focusList);
+
+					Iterator<Integer> scopeIterator = scopes.iterator();
+					while (scopeIterator.hasNext()) {
+						int scope = scopeIterator.next();
+						Iterator<Annotation> focusIterator = focusList.iterator();
+						while (focusIterator.hasNext()) {
+							Annotation focus = focusIterator.next();
+							List<Annotation> scopeContextAnnotations = getScopeContextAnnotations(jCas, focus,
+									window, scope);
+							ContextHit contextHit = contextAnalyzer.analyzeContext(scopeContextAnnotations, scope);
+							if (contextHit != null) {
+								contextConsumer.consumeHit(jCas, focus, scope, contextHit);
+							}
+						}
+					}
+				}
+			} catch (Exception e) {
+				throw new AnalysisEngineProcessException(e);
+			}
+		}
+
+		@Override
+		protected List<Annotation> getLeftScopeContextAnnotations(JCas jCas, Annotation focus, Annotation window)
+				throws AnalysisEngineProcessException {
+
+			List<Annotation> scopeContextAnnotations = new ArrayList<Annotation>();
+
+			if (focus.getBegin() < window.getBegin() || focus.getEnd() > window.getEnd())
+				return scopeContextAnnotations;
+
+			FSIterator subiterator = jCas.getAnnotationIndex(contextType).subiterator(window);
+			subiterator.moveTo(focus);
+			subiterator.moveToNext();
+			if (!subiterator.isValid())
+				subiterator.moveTo(focus);
+
+			while (scopeContextAnnotations.size() < leftScopeSize) {
+				subiterator.moveToPrevious();
+				if (subiterator.isValid()) {
+					Annotation contextAnnotation = (Annotation) subiterator.get();
+					if (contextAnnotation.getEnd() > focus.getBegin()) {
+						continue;
+					}
+					if (!contextAnalyzer.isBoundary(contextAnnotation, LEFT_SCOPE)) {
+						scopeContextAnnotations.add(contextAnnotation);
+					} else {
+						break;
+					}
+				} else {
+					break;
+				}
+			}
+			Collections.reverse(scopeContextAnnotations);
+			return scopeContextAnnotations;
+		}
+
+		@Override
+		protected List<Annotation> getRightScopeContextAnnotations(JCas jCas, Annotation focus, Annotation window)
+				throws AnalysisEngineProcessException {
+
+			List<Annotation> scopeContextAnnotations = new ArrayList<Annotation>();
+
+			if (focus.getBegin() < window.getBegin() || focus.getEnd() > window.getEnd())
+				return scopeContextAnnotations;
+
+			FSIterator subiterator = jCas.getAnnotationIndex(contextType).subiterator(window);
+			subiterator.moveTo(focus);
+			subiterator.moveToPrevious();
+			if (!subiterator.isValid())
+				subiterator.moveTo(focus);
+
+			while (scopeContextAnnotations.size() < rightScopeSize) {
+				subiterator.moveToNext();
+				if (subiterator.isValid()) {
+					Annotation contextAnnotation = (Annotation) subiterator.get();
+					if (contextAnnotation.getBegin() < focus.getEnd()) {
+						continue;
+					}
+					if (!contextAnalyzer.isBoundary(contextAnnotation, RIGHT_SCOPE)) {
+						scopeContextAnnotations.add(contextAnnotation);
+					} else {
+						break;
+					}
+				} else {
+					break;
+				}
+			}
+			return scopeContextAnnotations;
+		}
+
+		@Override
+		protected List<Annotation> getMiddleScopeContextAnnotations(JCas jCas, Annotation focus)
+				throws AnalysisEngineProcessException {
+
+			List<Annotation> scopeContextAnnotations = new ArrayList<Annotation>();
+
+			FSIterator subiterator = jCas.getAnnotationIndex(contextType).subiterator(focus);
+			while (subiterator.hasNext()) {
+				scopeContextAnnotations.add((Annotation) subiterator.next());
+			}
+			if (scopeContextAnnotations.size() == 0 && JCasUtil.getType(focus.getClass()) == contextType)
+				scopeContextAnnotations.add(focus);
+			else if (scopeContextAnnotations.size() == 0) {
+				TypeSystem typeSystem = jCas.getTypeSystem();
+				Type superType = jCas.getType(focusType).casType;
+				Type subType = focus.getType();
+				if (typeSystem.subsumes(superType, subType))
+					scopeContextAnnotations.add(focus);
+			}
+			return scopeContextAnnotations;
+		}
+
+		private static List<Annotation> constrainToWindow(JCas jCas, int type, Annotation window) {
+			List<Annotation> list = new ArrayList<Annotation>();
+			FSIterator subiterator = jCas.getAnnotationIndex(type).subiterator(window);
+			while (subiterator.hasNext()) {
+				list.add((Annotation) subiterator.next());
+			}
+			return list;
+		}
+	}
+}
@@ -57,6 +57,7 @@ import java.util.List;
 
 import org.apache.ctakes.core.pipeline.PipeBitInfo;
 import org.apache.ctakes.core.resource.FileLocator;
+import org.apache.ctakes.core.util.SentenceCache;
 import org.apache.ctakes.typesystem.type.syntax.BaseToken;
 import org.apache.ctakes.typesystem.type.syntax.NewlineToken;
 import org.apache.ctakes.typesystem.type.textspan.Segment;
@@ -99,6 +100,17 @@ public class POSTagger extends JCasAnnotator_ImplBase {
 	private String posModelPath;
 	private opennlp.tools.postag.POSTaggerME tagger;
 
+	/**
+	 * "SentenceCacheSize" is an optional, single, integer parameter giving the
+	 * number of distinct sentences whose tags are remembered. Templated text
+	 * that repeats across notes is then tagged without running the model.
+	 * The cache is shared by all taggers using the same model. 0 disables it.
+	 */
+	public static final String PARAM_SENTENCE_CACHE_SIZE = "SentenceCacheSize";
+	@ConfigurationParameter(name = PARAM_SENTENCE_CACHE_SIZE, mandatory = false, defaultValue = "0", description = "Number of distinct sentences whose tags are cached, 0 to disable")
+	private int sentenceCacheSize;
+	private SentenceCache<String[]> sentenceCache;
+
 	@Override
 	public void initialize(UimaContext uimaContext)
 			throws ResourceInitializationException {
@@ -113,6 +125,7 @@ public class POSTagger extends JCasAnnotator_ImplBase {
 			logger.info("Error loading POS tagger model: " + posModelPath);
 			throw new ResourceInitializationException(e);
 		}
+		sentenceCache = SentenceCache.getSharedCache("POSTagger " + posModelPath, sentenceCacheSize);
 	}
 
 	@Override
@@ -136,7 +149,7 @@ public class POSTagger extends JCasAnnotator_ImplBase {
 			}
 
 			if (words.length > 0) {
-				String[] wordTagList = tagger.tag(words);
+				String[] wordTagList = tag(words);
 
 				try {
 					for (int i = 0; i < printableTokens.size(); i++) {
@@ -153,6 +166,27 @@ public class POSTagger extends JCasAnnotator_ImplBase {
 		}
 	}
 
+	private String[] tag(String[] words) {
+		if (sentenceCache == null) {
+			return tagger.tag(words);
+		}
+		SentenceCache.Key key = SentenceCache.createKey(words);
+		String[] tags = sentenceCache.get(key);
+		if (tags == null) {
+			tags = tagger.tag(words);
+			sentenceCache.put(key, tags);
+		}
+		return tags;
+	}
+
+	@Override
+	public void collectionProcessComplete() throws AnalysisEngineProcessException {
+		super.collectionProcessComplete();
+		if (sentenceCache != null) {
+			sentenceCache.logStatistics();
+		}
+	}
+
 	public static AnalysisEngineDescription createAnnotatorDescription()
 			throws ResourceInitializationException {
 		return AnalysisEngineFactory.createEngineDescription(
@@ -75,6 +75,23 @@ final public class ThreadSafePosTagger extends POSTagger {
             POSTagger.PARAM_POS_MODEL_FILE, model );
    }
 
+   /**
+    * @param model             a part of speech model
+    * @param sentenceCacheSize number of distinct sentences whose tags are cached across documents, 0 to disable
+    * @return a part of speech tagger using the given model and a sentence cache shared by all pipeline threads
+    * @throws ResourceInitializationException -
+    */
+   public static AnalysisEngineDescription createAnnotatorDescription( final String model,
+                                                                       final int sentenceCacheSize )
+         throws ResourceInitializationException {
+      return AnalysisEngineFactory.createEngineDescription(
+            ThreadSafePosTagger.class,
+            TypeSystemDescriptionFactory.createTypeSystemDescription(),
+            TypePrioritiesFactory.createTypePriorities( Segment.class, Sentence.class, BaseToken.class ),
+            POSTagger.PARAM_POS_MODEL_FILE, model,
+            POSTagger.PARAM_SENTENCE_CACHE_SIZE, sentenceCacheSize );
+   }
+
 
    private enum PosSingleton implements ThreadSafeWrapper<POSTagger> {
       INSTANCE;
@@ -163,6 +163,10 @@ public abstract class RelationExtractorAnnotator extends CleartkAnnotator<String
 		// walk through each sentence in the text
 		for (Annotation coveringAnnotation : JCasUtil.select(jCas, coveringClass)) {
 
+			// pairs and their features, kept until the whole covering annotation can be classified at once
+			List<IdentifiedAnnotationPair> batchPairs = new ArrayList<>();
+			List<List<Feature>> batchFeatures = new ArrayList<>();
+
 			// walk through the pairs of annotations
 			for (IdentifiedAnnotationPair pair : this.getCandidateRelationArgumentPairs(jCas, coveringAnnotation)) {
 				IdentifiedAnnotation arg1 = pair.getArg1();
@@ -202,30 +206,49 @@ public abstract class RelationExtractorAnnotator extends CleartkAnnotator<String
 					this.dataWriter.write(new Instance<>(category, features));
 				}
 
-				// during classification feed the features to the classifier and create
-				// annotations
-				else {
-					String predictedCategory = this.classify(features);
-
-					// add a relation annotation if a true relation was predicted
-					if (!predictedCategory.equals(NO_RELATION_CATEGORY)) {
-
-						// if we predict an inverted relation, reverse the order of the
-						// arguments
-						if (predictedCategory.endsWith("-1")) {
-							predictedCategory = predictedCategory.substring(0, predictedCategory.length() - 2);
-							IdentifiedAnnotation temp = arg1;
-							arg1 = arg2;
-							arg2 = temp;
-						}
-
-						createRelation(jCas, arg1, arg2, predictedCategory);
-					}
+				// during classification collect the features for the batch, or classify right away
+				else if (this.isBatchClassification()) {
+					batchPairs.add(pair);
+					batchFeatures.add(features);
+				} else {
+					this.createPredictedRelation(jCas, arg1, arg2, this.classify(features));
 				}
 			} // end pair in pairs
+
+			if (!batchPairs.isEmpty()) {
+				List<String> predictedCategories = this.classify(batchFeatures, coveringAnnotation);
+				for (int i = 0; i < batchPairs.size(); i++) {
+					IdentifiedAnnotationPair pair = batchPairs.get(i);
+					this.createPredictedRelation(jCas, pair.getArg1(), pair.getArg2(), predictedCategories.get(i));
+				}
+			}
 		} // end for(Sentence)
 	}
 
+	/**
+	 * Create annotations for a prediction, unless no relation was predicted.
+	 */
+	private void createPredictedRelation(
+			JCas jCas,
+			IdentifiedAnnotation arg1,
+			IdentifiedAnnotation arg2,
+			String predictedCategory) {
+		// add a relation annotation if a true relation was predicted
+		if (!predictedCategory.equals(NO_RELATION_CATEGORY)) {
+
+			// if we predict an inverted relation, reverse the order of the
+			// arguments
+			if (predictedCategory.endsWith("-1")) {
+				predictedCategory = predictedCategory.substring(0, predictedCategory.length() - 2);
+				IdentifiedAnnotation temp = arg1;
+				arg1 = arg2;
+				arg2 = temp;
+			}
+
+			createRelation(jCas, arg1, arg2, predictedCategory);
+		}
+	}
+
 	/**
 	 * Looks up the arguments in the specified lookup table and converts the
 	 * relation into a label for classification
@@ -262,6 +285,39 @@ public abstract class RelationExtractorAnnotator extends CleartkAnnotator<String
 		return this.classifier.classify(features);
 	}
 
+	/**
+	 * Whether the candidate pairs of a covering annotation are classified together after all of
+	 * their features have been extracted. Subclasses that keep state between
+	 * {@link #classify(List)} and {@link #createRelation(JCas, IdentifiedAnnotation, IdentifiedAnnotation, String)},
+	 * or whose features depend on relations created earlier in the same covering annotation,
+	 * should return <i>false</i> to classify and create one pair at a time.
+	 * 
+	 * @return <i>true</i> to classify all pairs of a covering annotation as one batch
+	 */
+	protected boolean isBatchClassification() {
+		return true;
+	}
+
+	/**
+	 * Predict outcomes for all candidate pairs of a covering annotation. By default, this
+	 * delegates to {@link #classify(List)} for each pair, in order. Subclasses with a
+	 * classifier that can take many instances in one call may override this method.
+	 * 
+	 * @param featureLists
+	 *          The features of each pair, in candidate order.
+	 * @param coveringAnnotation
+	 *          The sentence (or other covering annotation) that holds the pairs.
+	 * @return The predicted outcome (label) for each list of features, in the same order.
+	 */
+	protected List<String> classify(List<List<Feature>> featureLists, Annotation coveringAnnotation)
+			throws CleartkProcessingException {
+		List<String> predictedCategories = new ArrayList<>(featureLists.size());
+		for (List<Feature> features : featureLists) {
+			predictedCategories.add(this.classify(features));
+		}
+		return predictedCategories;
+	}
+
 	/**
 	 * Create a UIMA relation type based on arguments and the relation label. This
 	 * allows subclasses to create/define their own types: e.g. coreference can
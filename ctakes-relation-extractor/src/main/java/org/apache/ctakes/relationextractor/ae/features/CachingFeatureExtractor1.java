@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.relationextractor.ae.features;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.tcas.Annotation;
+import org.cleartk.ml.Feature;
+import org.cleartk.ml.feature.extractor.CleartkExtractorException;
+import org.cleartk.ml.feature.extractor.FeatureExtractor1;
+
+/**
+ * Memoizes the features of a single argument for the current document.
+ * <p>
+ * An argument usually takes part in many candidate pairs, so unary features such as the
+ * tokens, part of speech or entity type of a mention are the same for every pair it is in.
+ * The cache is keyed by annotation identity and is dropped as soon as the extractor sees
+ * a different document, so it never hands back features from a previous CAS.
+ */
+public class CachingFeatureExtractor1<T extends Annotation> implements FeatureExtractor1<T> {
+
+  private final FeatureExtractor1<T> extractor;
+
+  private final Map<Annotation, List<Feature>> cache = new IdentityHashMap<>();
+
+  private JCas cachedView;
+  private String cachedText;
+
+  public CachingFeatureExtractor1(FeatureExtractor1<T> extractor) {
+    this.extractor = extractor;
+  }
+
+  @Override
+  public List<Feature> extract(JCas view, T focusAnnotation) throws CleartkExtractorException {
+    // identity checks on purpose: a new document always sets a new text object
+    if (view != this.cachedView || view.getDocumentText() != this.cachedText) {
+      this.cache.clear();
+      this.cachedView = view;
+      this.cachedText = view.getDocumentText();
+    }
+    List<Feature> features = this.cache.get(focusAnnotation);
+    if (features == null) {
+      features = this.extractor.extract(view, focusAnnotation);
+      this.cache.put(focusAnnotation, features);
+    }
+    // callers add to the returned list, so never hand out the cached one
+    return new ArrayList<>(features);
+  }
+
+}
@@ -46,16 +46,16 @@ public class NamedEntityFeaturesExtractor implements RelationFeaturesExtractor<I
   /**
    * All extractors for mention 1, with features named to distinguish them from mention 2
    */
-  private FeatureExtractor1 mention1FeaturesExtractor = new NamingExtractor1(
+  private FeatureExtractor1 mention1FeaturesExtractor = new CachingFeatureExtractor1(new NamingExtractor1(
       "mention1",
-      namedEntityType);
+      namedEntityType));
 
   /**
    * All extractors for mention 2, with features named to distinguish them from mention 1
    */
-  private FeatureExtractor1 mention2FeaturesExtractor = new NamingExtractor1(
+  private FeatureExtractor1 mention2FeaturesExtractor = new CachingFeatureExtractor1(new NamingExtractor1(
       "mention2",
-      namedEntityType);
+      namedEntityType));
 
   /**
    * Number of named entities between the two mentions
@@ -48,16 +48,16 @@ public class PartOfSpeechFeaturesExtractor implements RelationFeaturesExtractor<
   /**
    * All extractors for mention 1, with features named to distinguish them from mention 2
    */
-  private FeatureExtractor1 mention1FeaturesExtractor = new NamingExtractor1(
+  private FeatureExtractor1 mention1FeaturesExtractor = new CachingFeatureExtractor1(new NamingExtractor1(
       "mention1",
-      tokenPOS);
+      tokenPOS));
 
   /**
    * All extractors for mention 2, with features named to distinguish them from mention 1
    */
-  private FeatureExtractor1 mention2FeaturesExtractor = new NamingExtractor1(
+  private FeatureExtractor1 mention2FeaturesExtractor = new CachingFeatureExtractor1(new NamingExtractor1(
       "mention2",
-      tokenPOS);
+      tokenPOS));
 
   @Override
   public List<Feature> extract(JCas jCas, IdentifiedAnnotation arg1, IdentifiedAnnotation arg2)
@@ -65,16 +65,16 @@ public class TokenFeaturesExtractor implements RelationFeaturesExtractor<Identif
   /**
    * All extractors for mention 1, with features named to distinguish them from mention 2
    */
-  private FeatureExtractor1 mention1FeaturesExtractor = new NamingExtractor1(
+  private FeatureExtractor1 mention1FeaturesExtractor = new CachingFeatureExtractor1(new NamingExtractor1(
       "mention1",
-      new CombinedExtractor1(coveredText, tokenContext));
+      new CombinedExtractor1(coveredText, tokenContext)));
 
   /**
    * All extractors for mention 2, with features named to distinguish them from mention 1
    */
-  private FeatureExtractor1 mention2FeaturesExtractor = new NamingExtractor1(
+  private FeatureExtractor1 mention2FeaturesExtractor = new CachingFeatureExtractor1(new NamingExtractor1(
       "mention2",
-      new CombinedExtractor1(coveredText, tokenContext));
+      new CombinedExtractor1(coveredText, tokenContext)));
 
   /**
    * First word, last word, and all words between the mentions
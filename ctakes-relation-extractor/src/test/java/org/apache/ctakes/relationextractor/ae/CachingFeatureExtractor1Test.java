@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.relationextractor.ae;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.ctakes.relationextractor.ae.features.CachingFeatureExtractor1;
+import org.apache.ctakes.typesystem.type.textsem.EntityMention;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.jcas.JCas;
+import org.cleartk.ml.Feature;
+import org.cleartk.ml.feature.extractor.FeatureExtractor1;
+import org.junit.Test;
+
+public class CachingFeatureExtractor1Test {
+
+  private int calls = 0;
+
+  private FeatureExtractor1<EntityMention> coveredText = new FeatureExtractor1<EntityMention>() {
+    @Override
+    public List<Feature> extract(JCas jCas, EntityMention mention) {
+      calls++;
+      return Arrays.asList(new Feature("text", mention.getCoveredText()));
+    }
+  };
+
+  @Test
+  public void test() throws Exception {
+    JCas jCas = JCasFactory.createJCas();
+    jCas.setDocumentText("aaa bbb");
+    EntityMention e1 = new EntityMention(jCas, 0, 3);
+    e1.addToIndexes();
+    EntityMention e2 = new EntityMention(jCas, 4, 7);
+    e2.addToIndexes();
+
+    CachingFeatureExtractor1<EntityMention> extractor = new CachingFeatureExtractor1<>(coveredText);
+    assertEquals(Arrays.asList(new Feature("text", "aaa")), extractor.extract(jCas, e1));
+    assertEquals(Arrays.asList(new Feature("text", "aaa")), extractor.extract(jCas, e1));
+    assertEquals(Arrays.asList(new Feature("text", "bbb")), extractor.extract(jCas, e2));
+    assertEquals(2, calls);
+
+    // callers may add to the returned list without touching the cache
+    extractor.extract(jCas, e1).add(new Feature("extra", 1));
+    assertEquals(1, extractor.extract(jCas, e1).size());
+
+    // a new document must not see the features of the old one
+    jCas.reset();
+    jCas.setDocumentText("ccc");
+    EntityMention e3 = new EntityMention(jCas, 0, 3);
+    e3.addToIndexes();
+    assertEquals(Arrays.asList(new Feature("text", "ccc")), extractor.extract(jCas, e3));
+    assertEquals(3, calls);
+  }
+}
@@ -28,6 +28,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.regex.Pattern;
 
 import org.apache.uima.UimaContext;
 import org.apache.uima.analysis_component.JCasAnnotator_ImplBase;
@@ -41,6 +42,7 @@ import org.apache.ctakes.core.util.DocumentIDAnnotationUtil;
 import org.apache.ctakes.core.util.FSUtil;
 import org.apache.ctakes.sideeffect.util.PatternMatch;
 import org.apache.ctakes.sideeffect.util.SEUtil;
+import org.apache.ctakes.sideeffect.util.TaggedSentence;
 import org.apache.ctakes.typesystem.type.textsem.IdentifiedAnnotation;
 import org.apache.ctakes.typesystem.type.textspan.Segment;
 import org.apache.ctakes.drugner.type.SubSectionAnnotation;
@@ -90,6 +92,24 @@ public class SideEffectAnnotator extends JCasAnnotator_ImplBase
 	private List<String> madeVerb = new ArrayList<String>();
 	private List<String> afterWord = new ArrayList<String>();
 
+	//rule patterns, compiled once the indication keywords are known
+	private Pattern pseDueToDrugPattern;
+	private Pattern drugDueToPsePattern;
+	private Pattern discontDrugBecausePsePattern;
+	private Pattern drugDiscontBecausePsePattern;
+	private Pattern notePseWithDrugPattern;
+	private Pattern drugCausePsePattern;
+	private Pattern drugMadePsePattern;
+	private Pattern sideEffectWordPattern;
+	private Pattern pseAfterDrugPattern;
+	private static final Pattern DISCUSSED_PATTERN = Pattern.compile(".*(dicussed|concerned).*");
+	private static final Pattern OTHER_PSE_PATTERN = Pattern.compile(".*(<PSE>).*");
+	private static final Pattern CHECK_PATTERN = Pattern.compile(".*(check).*");
+	private static final Pattern PARENTHESIS_PATTERN = Pattern.compile("(<@DRUG>)\\s(\\(.*<@PSE>.*\\))");
+	private static final Pattern FOR_TREATED_PATTERN = Pattern.compile("\\(.*((for)|(treated with)).*\\)");
+	private static final Pattern MADE_GOT_PATTERN = Pattern.compile("\\(.*(made|got).*\\)");
+	private static final Pattern TRIAL_PATTERN = Pattern.compile(".*trial.*");
+
 	public void initialize(UimaContext annotCtx)
 	throws ResourceInitializationException
 	{ 
@@ -147,6 +167,16 @@ public class SideEffectAnnotator extends JCasAnnotator_ImplBase
 	        str = (String[]) getContext().getConfigParameterValue("hasPatternOfPseAfterDrug");
 	        for (int i = 0; i < str.length; i++)
 	        	afterWord.add(str[i]);	        
+	        
+	        pseDueToDrugPattern = PatternMatch.compile("(<@PSE>).*(KW).*(<@DRUG>)", causeWord1);
+	        drugDueToPsePattern = PatternMatch.compile("(<@DRUG>).*(KW).*(<@PSE>)", causeWord2);
+	        discontDrugBecausePsePattern = PatternMatch.compile("(KW).*(<@DRUG>).*(because|after).*(<@PSE>)", discontVerb);
+	        drugDiscontBecausePsePattern = PatternMatch.compile("(<@DRUG>).*(KW).*(because|after).*(<@PSE>)", discontVerb);
+	        notePseWithDrugPattern = PatternMatch.compile("(KW).*(<@PSE>).*(with).*(<@DRUG>)", noteVerb);
+	        drugCausePsePattern = PatternMatch.compile("(<@DRUG>).*(KW).*(<@PSE>)", causeVerb);
+	        drugMadePsePattern = PatternMatch.compile("(<@DRUG>).*(KW)\\s(him|her)\\s(<@PSE>)", madeVerb);
+	        sideEffectWordPattern = PatternMatch.compile("(KW)", sideEffectWord);
+	        pseAfterDrugPattern = PatternMatch.compile("(<@PSE>).*(KW).*(<@DRUG>)", afterWord);
 		} catch (Exception e) {
 			throw new ResourceInitializationException(e);
 		}		
@@ -322,9 +352,13 @@ public class SideEffectAnnotator extends JCasAnnotator_ImplBase
 	 */
 	private List<SideEffect> getSideEffectsWithPrioritizedRule(JCas jcas, List<PotentialSideEffect> pseLst) {
 		List<SideEffect> seLst = new ArrayList<SideEffect>();
+		Map<String, TaggedSentence> taggedSentences = new HashMap<String, TaggedSentence>();
 		
 		for(PotentialSideEffect pse : pseLst) {
-			String input = getRegexInput(jcas, pse);
+			String input = getRegexInput(jcas, pse, taggedSentences);
+			//every pattern of a drug and pse pair needs both target tags
+			boolean tagged = input.indexOf(TaggedSentence.TARGET_DRUG)!=-1 
+				&& input.indexOf(TaggedSentence.TARGET_PSE)!=-1;
 			SideEffect se = new SideEffect(); 
 			
 			if(isInAllergySection(jcas, pse)) {
@@ -332,17 +366,17 @@ public class SideEffectAnnotator extends JCasAnnotator_ImplBase
 				se.rule = "isInAllergySection";
 				seLst.add(se);	
 			}
-			else if(hasPatternOfDrugDueToPse(jcas, pse, input)) { 
+			else if(tagged && hasPatternOfDrugDueToPse(jcas, pse, input)) { 
 				se.pse = pse;
 				se.rule = "hasPatternOfDrugDueToPse";
 				seLst.add(se);	
 			}
-			else if(hasPatternOfDrugCausePse(jcas, pse, input)) {
+			else if(tagged && hasPatternOfDrugCausePse(jcas, pse, input)) {
 				se.pse = pse;
 				se.rule = "hasPatternOfDrugCausePse";
 				seLst.add(se);	
 			}
-			else if(hasPatternOfDrugMadePse(jcas, pse, input)) {
+			else if(tagged && hasPatternOfDrugMadePse(jcas, pse, input)) {
 				se.pse = pse;
 				se.rule = "hasPatternOfDrugMadePse";
 				seLst.add(se);	
@@ -352,7 +386,7 @@ public class SideEffectAnnotator extends JCasAnnotator_ImplBase
 				se.rule = "hasWordOfSideEffect";
 				seLst.add(se);	
 			}
-			else if(hasPatternOfPseDueToDrug(jcas, pse, input)) {
+			else if(tagged && hasPatternOfPseDueToDrug(jcas, pse, input)) {
 				se.pse = pse;
 				se.rule = "hasPatternOfPseDueToDrug";
 				seLst.add(se);
@@ -362,27 +396,27 @@ public class SideEffectAnnotator extends JCasAnnotator_ImplBase
 				se.rule = "hasSideEffectAsPse";
 				seLst.add(se);
 			}
-			else if(hasPatternOfNotePseWithDrug(jcas, pse, input)) {
+			else if(tagged && hasPatternOfNotePseWithDrug(jcas, pse, input)) {
 				se.pse = pse;
 				se.rule = "hasPatternOfNotePseWithDrug";
 				seLst.add(se);
 			}
-			else if(hasPatternOfDiscontDrugBecausePse(jcas, pse, input)) {
+			else if(tagged && hasPatternOfDiscontDrugBecausePse(jcas, pse, input)) {
 				se.pse = pse;
 				se.rule = "hasPatternOfDiscontDrugBecausePse";
 				seLst.add(se);
 			}
-			else if(hasPatternOfDrugDiscontBecausePse(jcas, pse, input)) {
+			else if(tagged && hasPatternOfDrugDiscontBecausePse(jcas, pse, input)) {
 				se.pse = pse;
 				se.rule = "hasPatternOfDrugDiscontBecausePse";
 				seLst.add(se);
 			}
-			else if(hasPatternOfPseAfterDrug(jcas, pse, input)) { 
+			else if(tagged && hasPatternOfPseAfterDrug(jcas, pse, input)) { 
 				se.pse = pse;
 				se.rule = "hasPatternOfPseAfterDrug";
 				seLst.add(se);
 			}
-			else if(isInParenthesis(jcas, pse, input)) { 
+			else if(tagged && isInParenthesis(jcas, pse, input)) { 
 				se.pse = pse;
 				se.rule = "isInParenthesis";
 				seLst.add(se);
@@ -481,7 +515,7 @@ public class SideEffectAnnotator extends JCasAnnotator_ImplBase
 		if(pse.drug.getPolarity()==-1) return false;
 
 		//false if not satisfied a given pattern
-		PatternMatch pm = new PatternMatch("(<@PSE>).*(KW).*(<@DRUG>)", input, causeWord1);
+		PatternMatch pm = new PatternMatch(pseDueToDrugPattern, input);
 		if(!pm.mat.find()) return false;
 		
 		//false if there is DRUG between @PSE and KW
@@ -511,7 +545,7 @@ public class SideEffectAnnotator extends JCasAnnotator_ImplBase
 	 */
 	private boolean hasPatternOfDrugDueToPse(JCas jcas, PotentialSideEffect pse, String input) {
 		//false if not satisfied a given pattern
-		PatternMatch pm = new PatternMatch("(<@DRUG>).*(KW).*(<@PSE>)", input, causeWord2);
+		PatternMatch pm = new PatternMatch(drugDueToPsePattern, input);
 		if(!pm.mat.find()) return false;
 		
 		//false if there is PSE between @DRUG and KW
@@ -539,7 +573,7 @@ public class SideEffectAnnotator extends JCasAnnotator_ImplBase
 	 * @return true if finds a given pattern, else false 
 	 */
 	private boolean hasPatternOfDiscontDrugBecausePse(JCas jcas, PotentialSideEffect pse, String input) {
-		PatternMatch pm = new PatternMatch("(KW).*(<@DRUG>).*(because|after).*(<@PSE>)", input, discontVerb);
+		PatternMatch pm = new PatternMatch(discontDrugBecausePsePattern, input);
 		if(!pm.mat.find()) return false;
 		
 		if(pm.isPseBetween(pm.mat.end(1), pm.mat.start(2))) return false;
@@ -563,7 +597,7 @@ public class SideEffectAnnotator extends JCasAnnotator_ImplBase
 	 * @return true if finds a given pattern, else false 
 	 */
 	private boolean hasPatternOfDrugDiscontBecausePse(JCas jcas, PotentialSideEffect pse, String input) {
-		PatternMatch pm = new PatternMatch("(<@DRUG>).*(KW).*(because|after).*(<@PSE>)", input, discontVerb);
+		PatternMatch pm = new PatternMatch(drugDiscontBecausePsePattern, input);
 		if(!pm.mat.find()) return false;
 		
 		if(pm.isPseBetween(pm.mat.end(2), pm.mat.start(3))) return false;
@@ -587,7 +621,7 @@ public class SideEffectAnnotator extends JCasAnnotator_ImplBase
 	 * @return true if finds a given pattern, else false 
 	 */
 	private boolean hasPatternOfNotePseWithDrug(JCas jcas, PotentialSideEffect pse, String input) {
-		PatternMatch pm = new PatternMatch("(KW).*(<@PSE>).*(with).*(<@DRUG>)", input, noteVerb);
+		PatternMatch pm = new PatternMatch(notePseWithDrugPattern, input);
 		if(!pm.mat.find()) return false;
 		
 		if(pm.isDrugBetween(pm.mat.end(1), pm.mat.start(2))) return false;
@@ -613,7 +647,7 @@ public class SideEffectAnnotator extends JCasAnnotator_ImplBase
 	 * @return true if finds a given pattern, else false 
 	 */
 	private boolean hasPatternOfDrugCausePse(JCas jcas, PotentialSideEffect pse, String input) {
-		PatternMatch pm = new PatternMatch("(<@DRUG>).*(KW).*(<@PSE>)", input, causeVerb);
+		PatternMatch pm = new PatternMatch(drugCausePsePattern, input);
 		if(!pm.mat.find()) return false;
 		
 		if(pm.isDrugBetween(pm.mat.end(2), pm.mat.start(3))) return false;
@@ -637,7 +671,7 @@ public class SideEffectAnnotator extends JCasAnnotator_ImplBase
 	 * @return true if finds a given pattern, else false 
 	 */
 	private boolean hasPatternOfDrugMadePse(JCas jcas, PotentialSideEffect pse, String input) {
-		PatternMatch pm = new PatternMatch("(<@DRUG>).*(KW)\\s(him|her)\\s(<@PSE>)", input, madeVerb);
+		PatternMatch pm = new PatternMatch(drugMadePsePattern, input);
 		if(!pm.mat.find()) return false;
 		
 		int[] drugSpan={-1, -1};
@@ -666,7 +700,7 @@ public class SideEffectAnnotator extends JCasAnnotator_ImplBase
 								
 		//if there is no sideEffectWord in the sentence, return false
 		String pseSen = pse.sentence.replace('-', ' ').toLowerCase().trim();
-		PatternMatch pm = new PatternMatch("(KW)", pseSen, sideEffectWord);
+		PatternMatch pm = new PatternMatch(sideEffectWordPattern, pseSen);
 		if(!pm.mat.find()) return false;
 		
 		//if sideEffectWord is negated return false
@@ -694,14 +728,14 @@ public class SideEffectAnnotator extends JCasAnnotator_ImplBase
 	 */	
 	private boolean hasSideEffectAsPse(JCas jcas, PotentialSideEffect pse, String input) {
 		//if the pse sentence contains certain word, return false
-		if(input.matches(".*(dicussed|concerned).*")) return false;
+		if(DISCUSSED_PATTERN.matcher(input).matches()) return false;
 				
 		//if pse!=sideEffectWord, return false
 		String str = pse.ne.getCoveredText().replace('-', ' ').toLowerCase().trim();
 		if(!sideEffectWord.contains(str)) return false;
 		
 		//if there is PSE, return false
-		if(input.matches(".*(<PSE>).*")) return false;
+		if(OTHER_PSE_PATTERN.matcher(input).matches()) return false;
 				
 		return true;
 	}
@@ -717,9 +751,9 @@ public class SideEffectAnnotator extends JCasAnnotator_ImplBase
 	 */	
 	private boolean hasPatternOfPseAfterDrug(JCas jcas, PotentialSideEffect pse, String input) {
 		//if the pse sentence contains certain word, return false
-		if(input.matches(".*(check).*")) return false;
+		if(CHECK_PATTERN.matcher(input).matches()) return false;
 		
-		PatternMatch pm = new PatternMatch("(<@PSE>).*(KW).*(<@DRUG>)", input, afterWord);
+		PatternMatch pm = new PatternMatch(pseAfterDrugPattern, input);
 		if(!pm.mat.find()) return false;
 		
 		if(pm.isDrugBetween(pm.mat.end(1), pm.mat.start(2))) return false;
@@ -784,17 +818,17 @@ public class SideEffectAnnotator extends JCasAnnotator_ImplBase
 	 */
 	private boolean isInParenthesis(JCas jcas, PotentialSideEffect pse, String input) {
 		//if pse is not in the parenthesis return false		
-		PatternMatch pm = new PatternMatch("(<@DRUG>)\\s(\\(.*<@PSE>.*\\))", input); 
+		PatternMatch pm = new PatternMatch(PARENTHESIS_PATTERN, input); 
 		if(!pm.mat.find()) return false;
 		
 		//if "for" or "treated with" is also in the parenthesis, return false
-		if(pm.mat.group(2).matches("\\(.*((for)|(treated with)).*\\)")) return false; 
+		if(FOR_TREATED_PATTERN.matcher(pm.mat.group(2)).matches()) return false; 
 
 		//if there is certain words in the parenthesis, return true
-		if(pm.mat.group(2).matches("\\(.*(made|got).*\\)")) return true; 
+		if(MADE_GOT_PATTERN.matcher(pm.mat.group(2)).matches()) return true; 
 
 		//if the pse sentence does not include "trial", return false
-		if(input.matches(".*trial.*")) return true;
+		if(TRIAL_PATTERN.matcher(input).matches()) return true;
 
 		return false;
 	}
@@ -829,37 +863,30 @@ public class SideEffectAnnotator extends JCasAnnotator_ImplBase
 	 *	eg) target PSE: upset stomach, target drug: Aspirin
 	 * 	    Aspirin and Tylenol cause upset stomach -> <@DRUG> and <DRUG> cause <@PSE>
 	 * 
+	 * The named entities of a sentence are tagged once and shared by all pairs in the sentence.
+	 * 
 	 * @param jcas
 	 * @param pse instance of PotentialSideEffect
+	 * @param taggedSentences tagged sentences of the document by span and text
 	 * @return string that is used for regular expression matching  
 	 */
-	private String getRegexInput(JCas jcas, PotentialSideEffect pse) {		
-		String str = pse.sentence.toLowerCase();
-		Iterator neIter = FSUtil.getAnnotationsIteratorInSpan(jcas, IdentifiedAnnotation.type, pse.senBegin, pse.senEnd+1);
-		// NEs are stored in CAS in order of offsets so using replaceFirst() works
-		while(neIter.hasNext()) {
-			IdentifiedAnnotation nea = (IdentifiedAnnotation) neIter.next();
-			if(nea.getTypeID()==1) {
-				String drug="";
-				if(nea.getBegin()==pse.drug.getBegin() && nea.getEnd()==pse.drug.getEnd())
-					drug = "<@DRUG>";
-				else 
-					drug = "<DRUG>";
-				//some named entity contain special char used in RegEx (eg, ')')
-				str = str.replaceFirst(
-						nea.getCoveredText().replaceAll("[\\<\\(\\[\\{\\\\^\\-\\=\\$\\!\\|\\]\\}\\)\\?\\*\\+\\.\\>]", "").toLowerCase(),drug);
+	private String getRegexInput(JCas jcas, PotentialSideEffect pse, Map<String, TaggedSentence> taggedSentences) {		
+		String key = pse.senBegin + "|" + pse.senEnd + "|" + pse.sentence;
+		TaggedSentence tagged = taggedSentences.get(key);
+		if(tagged==null) {
+			tagged = new TaggedSentence(pse.sentence);
+			Iterator neIter = FSUtil.getAnnotationsIteratorInSpan(jcas, IdentifiedAnnotation.type, pse.senBegin, pse.senEnd+1);
+			// NEs are stored in CAS in order of offsets
+			while(neIter.hasNext()) {
+				IdentifiedAnnotation nea = (IdentifiedAnnotation) neIter.next();
+				if(nea.getTypeID()==1)
+					tagged.addDrug(nea.getCoveredText(), nea.getBegin(), nea.getEnd());
+				else if(nea.getTypeID()==2 || nea.getTypeID()==3)
+					tagged.addPse(nea.getCoveredText(), nea.getBegin(), nea.getEnd());
 			}
-			else if(nea.getTypeID()==2 || nea.getTypeID()==3) {
-				String ps="";
-				if(nea.getBegin()==pse.ne.getBegin() && nea.getEnd()==pse.ne.getEnd())
-					ps = "<@PSE>";
-				else 
-					ps = "<PSE>";
-				str = str.replaceFirst(
-						nea.getCoveredText().replaceAll("[\\<\\(\\[\\{\\\\^\\-\\=\\$\\!\\|\\]\\}\\)\\?\\*\\+\\.\\>]", "").toLowerCase(),ps);
-			}			
+			taggedSentences.put(key, tagged);
 		}
 				
-		return str.trim();
+		return tagged.getRegexInput(pse.drug.getBegin(), pse.drug.getEnd(), pse.ne.getBegin(), pse.ne.getEnd());
 	}
 }
@@ -34,10 +34,21 @@ import java.util.regex.Pattern;
  *   "expr" is an regular expression;
  *   "in" is a string to match.	
  *   
+ * PatternMatch(Pattern p, String in):
+ *   "p" is a pattern compiled once by compile(expr, kw) or Pattern.compile(expr);
+ *   "in" is a string to match.
+ *   
  * @author Mayo Clinic
  *
  */
 public class PatternMatch {
+	private static final Pattern DRUG_IN = Pattern.compile(".*<DRUG>.*");
+	private static final Pattern PSE_IN = Pattern.compile(".*<PSE>.*");
+	private static final Pattern DRUG = Pattern.compile("(<DRUG>)");
+	private static final Pattern PSE = Pattern.compile("(<PSE>)");
+	private static final Pattern DRUG_OR_PSE = Pattern.compile("<DRUG>|<PSE>");
+	private static final Pattern CONJUNCTION = Pattern.compile("(\\sand\\s)|(\\sor\\s)|(,)|(,\\s)|(\\s,\\s)");
+
 	private List<String> keywords; 
 	private String regex;
 	private String input;    
@@ -46,23 +57,34 @@ public class PatternMatch {
     
     //expr: (PSE).*(KW).*(DRUG)
     public PatternMatch(String expr, String in, List<String> kw) {
-    	StringBuffer sb = new StringBuffer();
-    	for(String s : kw) 
-    		sb.append(s+"|");
-    	
-    	regex = expr.replaceAll("KW", sb.substring(0, sb.length()-1)); 
-    	input = in;
+    	this(compile(expr, kw), in);
     	keywords = kw;  
-    	pat = Pattern.compile(regex);
-    	mat = pat.matcher(input);
     }
     
     public PatternMatch(String expr, String in) {   	
-    	regex = expr; 
+    	this(Pattern.compile(expr), in);
+    }
+    
+    public PatternMatch(Pattern p, String in) {
+    	regex = p.pattern();
     	input = in;
-    	pat = Pattern.compile(regex);
+    	pat = p;
     	mat = pat.matcher(input);
     }
+    
+    /**
+     * Return the pattern of expr with "KW" replaced by the list of kw
+     * 
+     * @param expr regular expression, eg (PSE).*(KW).*(DRUG)
+     * @param kw list of keywords
+     */
+    public static Pattern compile(String expr, List<String> kw) {
+    	StringBuffer sb = new StringBuffer();
+    	for(String s : kw) 
+    		sb.append(s+"|");
+    	
+    	return Pattern.compile(expr.replaceAll("KW", sb.substring(0, sb.length()-1)));
+    }
         
     /**
      * Return true if finds "DRUG" in input.substring(begin, end)
@@ -71,7 +93,7 @@ public class PatternMatch {
      * @param end
      */
     public boolean isDrugBetween(int begin, int end) {
-    	return input.substring(begin, end).matches(".*<DRUG>.*");
+    	return DRUG_IN.matcher(input).region(begin, end).matches();
     }
     
     /**
@@ -84,15 +106,7 @@ public class PatternMatch {
      * @return
      */
     public boolean isDrugBetween(int begin, int end, int[] span) {
-       	Pattern p = Pattern.compile("(<DRUG>)");
-    	Matcher m = p.matcher(input.substring(begin, end));
-    	while(m.find()) {
-    		span[0] = m.start()+begin;
-    		span[1] = m.end()+begin;
-    		return true;
-    	}
-    	
-    	return false;
+    	return find(DRUG, begin, end, span);
     }
     
     /**
@@ -102,7 +116,7 @@ public class PatternMatch {
      * @param end
      */
     public boolean isPseBetween(int begin, int end) {
-    	return input.substring(begin, end).matches(".*<PSE>.*");
+    	return PSE_IN.matcher(input).region(begin, end).matches();
     }
     
     /**
@@ -115,11 +129,15 @@ public class PatternMatch {
      * @return
      */
     public boolean isPseBetween(int begin, int end, int[] span) {
-       	Pattern p = Pattern.compile("(<PSE>)");
-    	Matcher m = p.matcher(input.substring(begin, end));
-    	while(m.find()) {
-    		span[0] = m.start()+begin;
-    		span[1] = m.end()+begin;
+    	return find(PSE, begin, end, span);
+    }
+    
+    private boolean find(Pattern p, int begin, int end, int[] span) {
+    	//offsets of a match in a region are offsets in "input"
+    	Matcher m = p.matcher(input).region(begin, end);
+    	if(m.find()) {
+    		span[0] = m.start();
+    		span[1] = m.end();
     		return true;
     	}
     	
@@ -135,7 +153,7 @@ public class PatternMatch {
      * @return
      */
     public boolean isDistantBetween(int begin, int end) {
-    	String s = input.substring(begin, end).replaceAll("<DRUG>|<PSE>", "");
-    	return !s.matches("(\\sand\\s)|(\\sor\\s)|(,)|(,\\s)|(\\s,\\s)");
+    	String s = DRUG_OR_PSE.matcher(input.substring(begin, end)).replaceAll("");
+    	return !CONJUNCTION.matcher(s).matches();
     }       
 }
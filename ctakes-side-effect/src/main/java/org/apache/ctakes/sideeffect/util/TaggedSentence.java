@@ -0,0 +1,158 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.sideeffect.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Lower cased sentence with its drug and pse named entities replaced by tags,
+ * used for regular expression pattern matching in SideEffectAnnotator:
+ * the target drug and pse become <@DRUG> and <@PSE>, the other drugs and pses <DRUG> and <PSE>.
+ *
+ *	eg) target PSE: upset stomach, target drug: Aspirin
+ * 	    Aspirin and Tylenol cause upset stomach -> <@DRUG> and <DRUG> cause <@PSE>
+ *
+ * The text of each named entity replaces its first occurrence in the sentence, in order of offsets.
+ * Those replacements are made once per sentence,
+ * after which the input for any drug and pse pair is only a concatenation.
+ */
+public class TaggedSentence {
+	public static final String DRUG = "<DRUG>";
+	public static final String TARGET_DRUG = "<@DRUG>";
+	public static final String PSE = "<PSE>";
+	public static final String TARGET_PSE = "<@PSE>";
+
+	//some named entity contain special char used in RegEx (eg, ')')
+	private static final Pattern SPECIAL_CHARACTERS = Pattern.compile(
+			"[\\<\\(\\[\\{\\\\^\\-\\=\\$\\!\\|\\]\\}\\)\\?\\*\\+\\.\\>]");
+
+	private static class Entity {
+		boolean drug;
+		int begin, end;
+		String text; //lower cased covered text without special chars
+	}
+
+	private final String sentence;
+	private final List<Entity> entities = new ArrayList<Entity>();
+	//sentence text (String) and tags (Entity) in order, null until first needed
+	private List<Object> segments;
+	//false if a tag could change where later named entity texts are found
+	private boolean segmented;
+
+	/**
+	 * @param sen sentence that contains the named entities
+	 */
+	public TaggedSentence(String sen) {
+		sentence = sen.toLowerCase();
+	}
+
+	/**
+	 * Add a drug named entity, in order of offsets
+	 */
+	public void addDrug(String coveredText, int begin, int end) {
+		addEntity(true, coveredText, begin, end);
+	}
+
+	/**
+	 * Add a sign/symptom or disease/disorder named entity, in order of offsets
+	 */
+	public void addPse(String coveredText, int begin, int end) {
+		addEntity(false, coveredText, begin, end);
+	}
+
+	private void addEntity(boolean drug, String coveredText, int begin, int end) {
+		Entity e = new Entity();
+		e.drug = drug;
+		e.begin = begin;
+		e.end = end;
+		e.text = SPECIAL_CHARACTERS.matcher(coveredText).replaceAll("").toLowerCase();
+		entities.add(e);
+		segments = null;
+	}
+
+	/**
+	 * Return a string to be used for regular expression pattern matching
+	 *
+	 * @param drugBegin begin offset of the target drug
+	 * @param drugEnd end offset of the target drug
+	 * @param pseBegin begin offset of the target pse
+	 * @param pseEnd end offset of the target pse
+	 * @return string that is used for regular expression matching
+	 */
+	public String getRegexInput(int drugBegin, int drugEnd, int pseBegin, int pseEnd) {
+		if (segments == null)
+			segment();
+		if (!segmented) {
+			String str = sentence;
+			for (Entity e : entities)
+				str = str.replaceFirst(e.text, getTag(e, drugBegin, drugEnd, pseBegin, pseEnd));
+			return str.trim();
+		}
+		StringBuilder sb = new StringBuilder(sentence.length() + 8 * entities.size());
+		for (Object segment : segments) {
+			if (segment instanceof String)
+				sb.append((String) segment);
+			else
+				sb.append(getTag((Entity) segment, drugBegin, drugEnd, pseBegin, pseEnd));
+		}
+		return sb.toString().trim();
+	}
+
+	private static String getTag(Entity e, int drugBegin, int drugEnd, int pseBegin, int pseEnd) {
+		if (e.drug)
+			return e.begin == drugBegin && e.end == drugEnd ? TARGET_DRUG : DRUG;
+		return e.begin == pseBegin && e.end == pseEnd ? TARGET_PSE : PSE;
+	}
+
+	/*
+	 * Entity texts have no regex special chars, so replaceFirst is a search for the literal text.
+	 * Tags are upper case with '<', '>' and '@', so a lower cased text without '@'
+	 * is never found across a tag and is found at the same place whatever the tags are.
+	 */
+	private void segment() {
+		segments = new ArrayList<Object>();
+		segments.add(sentence);
+		segmented = true;
+		for (Entity e : entities) {
+			if (e.text.indexOf('@') != -1) {
+				segmented = false;
+				return;
+			}
+			if (e.text.length() == 0) {
+				//an empty text is found at the start of the sentence
+				segments.add(0, e);
+				continue;
+			}
+			for (int i = 0; i < segments.size(); i++) {
+				if (!(segments.get(i) instanceof String))
+					continue;
+				String text = (String) segments.get(i);
+				int index = text.indexOf(e.text);
+				if (index != -1) {
+					segments.set(i, text.substring(0, index));
+					segments.add(i + 1, e);
+					segments.add(i + 2, text.substring(index + e.text.length()));
+					break;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,156 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.sideeffect.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+public class TaggedSentenceTest {
+
+	private static class Ne {
+		final boolean drug;
+		final String text;
+		final int begin, end;
+
+		Ne(boolean drug, String text, int begin, int end) {
+			this.drug = drug;
+			this.text = text;
+			this.begin = begin;
+			this.end = end;
+		}
+	}
+
+	//the input SideEffectAnnotator built for every drug and pse pair before sentences were tagged once
+	private static String replaceFirstInput(String sentence, List<Ne> nes, Ne drug, Ne pse) {
+		String str = sentence.toLowerCase();
+		for (Ne nea : nes) {
+			String tag;
+			if (nea.drug)
+				tag = nea.begin == drug.begin && nea.end == drug.end ? "<@DRUG>" : "<DRUG>";
+			else
+				tag = nea.begin == pse.begin && nea.end == pse.end ? "<@PSE>" : "<PSE>";
+			str = str.replaceFirst(
+					nea.text.replaceAll("[\\<\\(\\[\\{\\\\^\\-\\=\\$\\!\\|\\]\\}\\)\\?\\*\\+\\.\\>]", "").toLowerCase(), tag);
+		}
+		return str.trim();
+	}
+
+	private static TaggedSentence tag(String sentence, List<Ne> nes) {
+		TaggedSentence tagged = new TaggedSentence(sentence);
+		for (Ne ne : nes) {
+			if (ne.drug)
+				tagged.addDrug(ne.text, ne.begin, ne.end);
+			else
+				tagged.addPse(ne.text, ne.begin, ne.end);
+		}
+		return tagged;
+	}
+
+	@Test
+	public void testGoldenInputs() {
+		String sentence = "Aspirin and Tylenol cause upset stomach. ";
+		Ne aspirin = new Ne(true, "Aspirin", 0, 7);
+		Ne tylenol = new Ne(true, "Tylenol", 12, 19);
+		Ne upsetStomach = new Ne(false, "upset stomach", 26, 39);
+		TaggedSentence tagged = tag(sentence, Arrays.asList(aspirin, tylenol, upsetStomach));
+		assertEquals("<@DRUG> and <DRUG> cause <@PSE>.",
+				tagged.getRegexInput(aspirin.begin, aspirin.end, upsetStomach.begin, upsetStomach.end));
+		assertEquals("<DRUG> and <@DRUG> cause <@PSE>.",
+				tagged.getRegexInput(tylenol.begin, tylenol.end, upsetStomach.begin, upsetStomach.end));
+
+		// special chars are removed from the named entity text before it is searched for
+		sentence = "Rash (on Keflex) after x-ray.";
+		Ne rash = new Ne(false, "Rash", 0, 4);
+		Ne keflex = new Ne(true, "Keflex)", 9, 16);
+		Ne xray = new Ne(false, "x-ray", 23, 28);
+		tagged = tag(sentence, Arrays.asList(rash, keflex, xray));
+		assertEquals("<@PSE> (on <@DRUG>) after x-ray.",
+				tagged.getRegexInput(keflex.begin, keflex.end, rash.begin, rash.end));
+	}
+
+	@Test
+	public void testSameAsReplaceFirst() {
+		String[] words = { "rash", "pain", "aspirin", "paxil", "and", "or", ",", "caused", "due", "to",
+				"a", "in", "after", "(", ")", "x-ray", "n@user", "", " ", "-" };
+		Random random = new Random(48);
+		for (int s = 0; s < 2000; s++) {
+			StringBuilder sb = new StringBuilder();
+			List<Ne> nes = new ArrayList<Ne>();
+			int length = 1 + random.nextInt(12);
+			for (int w = 0; w < length; w++) {
+				String word = words[random.nextInt(words.length)];
+				if (random.nextBoolean())
+					word = word.toUpperCase();
+				int begin = sb.length();
+				sb.append(word).append(' ');
+				if (random.nextInt(3) == 0)
+					nes.add(new Ne(random.nextBoolean(), word, begin, begin + word.length()));
+			}
+			if (random.nextInt(10) == 0 && !nes.isEmpty())
+				// a named entity text not in the sentence
+				nes.add(new Ne(nes.get(0).drug, "stomach", sb.length() + 1, sb.length() + 8));
+			String sentence = sb.toString();
+			TaggedSentence tagged = tag(sentence, nes);
+			for (Ne drug : nes) {
+				if (!drug.drug)
+					continue;
+				for (Ne pse : nes) {
+					if (pse.drug)
+						continue;
+					assertEquals(sentence, replaceFirstInput(sentence, nes, drug, pse),
+							tagged.getRegexInput(drug.begin, drug.end, pse.begin, pse.end));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testPrecompiledPatternMatch() {
+		List<String> keywords = Arrays.asList("due to", "caused by");
+		Pattern pattern = PatternMatch.compile("(<@PSE>).*(KW).*(<@DRUG>)", keywords);
+		String[] inputs = { "<@PSE> <DRUG> due to <PSE> <DRUG>, <@DRUG>",
+				"<@PSE> caused by <DRUG> and <@DRUG>",
+				"<@PSE> caused by <DRUG>\nand <@DRUG>",
+				"<@PSE> was due to <DRUG> or <PSE> <@DRUG>" };
+		for (String input : inputs) {
+			PatternMatch pm = new PatternMatch(pattern, input);
+			PatternMatch reference = new PatternMatch("(<@PSE>).*(KW).*(<@DRUG>)", input, keywords);
+			assertEquals(reference.mat.find(), pm.mat.find());
+			for (int begin = 0; begin <= input.length(); begin++) {
+				for (int end = begin; end <= input.length(); end++) {
+					String between = input.substring(begin, end);
+					assertEquals(between.matches(".*<DRUG>.*"), pm.isDrugBetween(begin, end));
+					assertEquals(between.matches(".*<PSE>.*"), pm.isPseBetween(begin, end));
+					int[] span = { -1, -1 };
+					int drug = between.indexOf("<DRUG>");
+					assertEquals(drug != -1, pm.isDrugBetween(begin, end, span));
+					if (drug != -1)
+						assertEquals(begin + drug, span[0]);
+				}
+			}
+		}
+	}
+}
@@ -23,12 +23,14 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.regex.Pattern;
 
 import libsvm.svm;
 import libsvm.svm_model;
@@ -42,15 +44,33 @@ import org.apache.uima.resource.ResourceInitializationException;
 
 import org.apache.ctakes.core.resource.FileResource;
 import org.apache.ctakes.smokingstatus.Const;
+import org.apache.ctakes.smokingstatus.util.LinearSvmPredictor;
 import org.apache.ctakes.typesystem.type.syntax.WordToken;
 import org.apache.ctakes.smokingstatus.type.libsvm.NominalAttributeValue;
 
 public class PcsClassifierAnnotator_libsvm extends JCasAnnotator_ImplBase {
+	// To deal with the cases like: Tobacco--quit in 1980.
+	private static final Pattern DASHES = Pattern.compile("-{2,}");
+	private static final Pattern WHITESPACE = Pattern.compile("\\s");
+	private static final Pattern DATE_PUNCTUATION = Pattern
+			.compile("[.?!:;()',\"{}<>#+]");
+	private static final Pattern DATE = Pattern.compile("19\\d\\d|19\\d\\ds"
+			+ "|20\\d\\d|20\\d\\ds" + "|[1-9]0s" + "|\\d{1,2}[/-]\\d{1,2}"
+			+ "|\\d{1,2}[/-]\\d{4}" + "|\\d{1,2}[/-]\\d{1,2}[/-]\\d{2}"
+			+ "|\\d{1,2}[/-]\\d{1,2}[/-]\\d{4}");
+
 	Set<String> stopWords;
 	List<String> goWords;
 	boolean caseSensitive = true;
 	Map<?, ?> tokenCounts;
 	svm_model model; // trained libsvm model
+	LinearSvmPredictor predictor;
+
+	// feature indices of each lower case go word, the bigram go words are joined by "_"
+	Map<String, int[]> unigramFeatures;
+	Map<String, int[]> bigramFeatures;
+	// feature vector reused for every sentence: one feature per go word, then the date information
+	svm_node[] features;
 
 	public void initialize(UimaContext aContext)
 			throws ResourceInitializationException {
@@ -78,19 +98,47 @@ public class PcsClassifierAnnotator_libsvm extends JCasAnnotator_ImplBase {
 
 			model = svm.svm_load_model(pathOfTrainedModel.getFile()
 					.getAbsolutePath());
+			predictor = new LinearSvmPredictor(model);
 		} catch (Exception ace) {
 			ace.printStackTrace();
 		}
+
+		unigramFeatures = new HashMap<String, int[]>();
+		bigramFeatures = new HashMap<String, int[]>();
+		for (int j = 0; j < goWords.size(); j++) {
+			String k = goWords.get(j);
+			// go words are matched ignoring case, the unigrams are lower case
+			addFeatureIndex(k.indexOf("_") != -1 ? bigramFeatures
+					: unigramFeatures, k.toLowerCase(), j);
+		}
+		features = new svm_node[goWords.size() + 1];
+		for (int j = 0; j < features.length; j++) {
+			features[j] = new svm_node();
+			features[j].index = j + 1;
+		}
+	}
+
+	private static void addFeatureIndex(Map<String, int[]> featureIndices,
+			String key, int index) {
+		int[] indices = featureIndices.get(key);
+		if (indices == null) {
+			indices = new int[] { index };
+		} else {
+			// the same go word listed more than once
+			indices = Arrays.copyOf(indices, indices.length + 1);
+			indices[indices.length - 1] = index;
+		}
+		featureIndices.put(key, indices);
 	}
 
 	public void process(JCas jcas) {
-		List<Double> feature = new ArrayList<Double>();
+		for (svm_node feature : features)
+			feature.value = 0.0;
 
 		JFSIndexRepository indexes = jcas.getJFSIndexRepository();
 		Iterator<?> wordTokenItr = indexes.getAnnotationIndex(WordToken.type)
 				.iterator();
 		List<String> unigrams = new ArrayList<String>();
-		List bigrams = new ArrayList();
 
 		while (wordTokenItr.hasNext()) {
 			WordToken token = (WordToken) wordTokenItr.next();
@@ -98,52 +146,20 @@ public class PcsClassifierAnnotator_libsvm extends JCasAnnotator_ImplBase {
 
 			if (tok == null)
 				continue;
-			if (!caseSensitive)
-				tok = tok.toLowerCase();
-			// if(!stopWords.contains(tok)) unigrams.add(tok);
-			// -- this is the replace of the above line
 			// Since the model was trained on words without non-word characters
-			tok = tok.toLowerCase().replaceAll("-{2,}", " ").trim(); // To deal
-			// with
-			// the
-			// cases
-			// like:
-			// Tobacco--quit
-			// in
-			// 1980.
-			String[] toks = tok.split("\\s");
+			tok = DASHES.matcher(tok.toLowerCase()).replaceAll(" ").trim();
+			String[] toks = WHITESPACE.split(tok);
 			for (int i = 0; i < toks.length; i++)
 				if (!stopWords.contains(toks[i]))
 					unigrams.add(toks[i]);
 		}
 
-		for (int i = 0; i < unigrams.size() - 1; i++)
-			bigrams.add((String) unigrams.get(i) + "_"
-					+ (String) unigrams.get(i + 1));
-
 		// unigram & bigram keywords
-		Iterator<String> itr = goWords.iterator();
-		while (itr.hasNext()) {
-			String k = (String) itr.next();
-			double val = 0.0;
-
-			if (k.indexOf("_") != -1) {
-				for (int i = 0; i < bigrams.size(); i++) {
-					if (k.equalsIgnoreCase((String) bigrams.get(i))) {
-						val = 1.0;
-						break;
-					}
-				}
-			} else {
-				for (int i = 0; i < unigrams.size(); i++) {
-					if (k.equalsIgnoreCase((String) unigrams.get(i))) {
-						val = 1.0;
-						break;
-					}
-				}
-			}
-
-			feature.add(new Double(val));
+		for (int i = 0; i < unigrams.size(); i++) {
+			setFeatures(unigramFeatures.get(unigrams.get(i)));
+			if (i < unigrams.size() - 1)
+				setFeatures(bigramFeatures.get(unigrams.get(i) + "_"
+						+ unigrams.get(i + 1)));
 		}
 
 		// date information
@@ -151,36 +167,20 @@ public class PcsClassifierAnnotator_libsvm extends JCasAnnotator_ImplBase {
 
 		// Cannot access sentence by SentenceAnnotator or RecordSentence
 		String sen = jcas.getDocumentText(); // this is sentence!!
-		sen = sen.replaceAll("[.?!:;()',\"{}<>#+]", " ").trim();
-		String[] strTokens = sen.split("\\s");
+		sen = DATE_PUNCTUATION.matcher(sen).replaceAll(" ").trim();
+		String[] strTokens = WHITESPACE.split(sen);
 
 		for (int i = 0; i < strTokens.length; i++) {
-			String s = strTokens[i];
-			if (s.matches("19\\d\\d") || s.matches("19\\d\\ds")
-					|| s.matches("20\\d\\d") || s.matches("20\\d\\ds")
-					|| s.matches("[1-9]0s")
-					|| s.matches("\\d{1,2}[/-]\\d{1,2}")
-					|| s.matches("\\d{1,2}[/-]\\d{4}")
-					|| s.matches("\\d{1,2}[/-]\\d{1,2}[/-]\\d{2}")
-					|| s.matches("\\d{1,2}[/-]\\d{1,2}[/-]\\d{4}")) {
+			if (DATE.matcher(strTokens[i]).matches()) {
 				dateInfo = 1.0;
-				// System.out.println("***dateInfo|"+s+"|"+dateInfo);
 				break;
 			}
 		}
 
-		feature.add(new Double(dateInfo));
-
-		// set the libSVM feature vector
-		svm_node[] x = new svm_node[feature.size()];
-		for (int j = 0; j < feature.size(); j++) {
-			x[j] = new svm_node();
-			x[j].index = j + 1;
-			x[j].value = ((Double) feature.get(j)).doubleValue();
-		}
+		features[features.length - 1].value = dateInfo;
 
 		double clsLabel; // 1:CURRENT_SMOKER, 2:PAST_SMOKER, 3:SMOKER
-		clsLabel = svm.svm_predict(model, x); // predict class label using
+		clsLabel = predictor.predict(features); // predict class label using
 		// libSVM
 		String clsVal; // string value
 		if (clsLabel == Const.CLASS_CURR_SMOKER_INT)
@@ -201,6 +201,13 @@ public class PcsClassifierAnnotator_libsvm extends JCasAnnotator_ImplBase {
 		nominalAttributeValue.addToIndexes();
 	}
 
+	private void setFeatures(int[] indices) {
+		if (indices == null)
+			return;
+		for (int index : indices)
+			features[index].value = 1.0;
+	}
+
 	private Set<String> readLinesFromFile(String fileName) throws IOException {
 		Set<String> returnValues = new HashSet<String>();
 		File file = new File(fileName);
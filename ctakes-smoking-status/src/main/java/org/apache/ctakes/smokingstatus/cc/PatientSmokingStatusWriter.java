@@ -0,0 +1,152 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.smokingstatus.cc;
+
+
+import org.apache.ctakes.core.patient.PatientNoteStore;
+import org.apache.ctakes.core.pipeline.PipeBitInfo;
+import org.apache.ctakes.smokingstatus.patientLevel.SmokingStatusCounts;
+import org.apache.ctakes.smokingstatus.type.SmokingDocumentClassification;
+import org.apache.log4j.Logger;
+import org.apache.uima.UimaContext;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.fit.component.JCasAnnotator_ImplBase;
+import org.apache.uima.fit.descriptor.ConfigurationParameter;
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.ResourceInitializationException;
+
+import java.io.*;
+
+/**
+ * Writes the patient level smoking status of each patient as soon as all of its documents have been classified.
+ * <p>
+ * Only the counts of document classifications are kept for patients that are not complete.
+ * A patient is complete when the number of documents wanted for it in the {@link PatientNoteStore} have been seen,
+ * or, for input sorted by patient, when a document of another patient arrives.
+ * Remaining patients are written when the collection is complete.
+ * Each line of the output file holds the patient identifier and the smoking status separated by a bar.
+ */
+@PipeBitInfo(
+      name = "Patient Smoking Status Writer",
+      description = "Writes patient level smoking status as the documents of each patient are completed.",
+      role = PipeBitInfo.Role.WRITER,
+      dependencies = { PipeBitInfo.TypeProduct.DOCUMENT_ID }
+)
+final public class PatientSmokingStatusWriter extends JCasAnnotator_ImplBase {
+
+   static private final Logger LOGGER = Logger.getLogger( "PatientSmokingStatusWriter" );
+
+   static public final String PARAM_OUTPUT_FILE = "PatientOutputFile";
+   static public final String PARAM_SORTED_INPUT = "SortedByPatient";
+
+   @ConfigurationParameter(
+         name = PARAM_OUTPUT_FILE,
+         description = "File to which the patient level smoking status is written."
+   )
+   private String _outputFilePath;
+
+   @ConfigurationParameter(
+         name = PARAM_SORTED_INPUT,
+         description = "All documents of a patient are processed one after the other.",
+         mandatory = false,
+         defaultValue = "false"
+   )
+   private boolean _sortedInput;
+
+   private final SmokingStatusCounts _counts = new SmokingStatusCounts();
+   private String _previousPatientId;
+   private Writer _writer;
+   private int _patientCount;
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public void initialize( final UimaContext context ) throws ResourceInitializationException {
+      super.initialize( context );
+      final File outputFile = new File( _outputFilePath );
+      final File parent = outputFile.getAbsoluteFile().getParentFile();
+      if ( parent != null ) {
+         parent.mkdirs();
+      }
+      try {
+         _writer = new BufferedWriter( new FileWriter( outputFile ) );
+      } catch ( IOException ioE ) {
+         throw new ResourceInitializationException( ioE );
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   synchronized public void process( final JCas jCas ) throws AnalysisEngineProcessException {
+      final String patientId = PatientNoteStore.getDefaultPatientId( jCas );
+      String classification = null;
+      for ( SmokingDocumentClassification documentClassification
+            : JCasUtil.select( jCas, SmokingDocumentClassification.class ) ) {
+         // there should be just one SmokingDocumentClassification
+         classification = documentClassification.getClassification();
+         break;
+      }
+      try {
+         if ( _sortedInput && _previousPatientId != null && !_previousPatientId.equals( patientId ) ) {
+            writePatient( _previousPatientId );
+         }
+         _previousPatientId = patientId;
+         _counts.add( patientId, classification );
+         final int wantedDocCount = PatientNoteStore.getInstance().getWantedDocCount( patientId );
+         if ( wantedDocCount > 0 && _counts.getDocumentCount( patientId ) >= wantedDocCount ) {
+            writePatient( patientId );
+         }
+      } catch ( IOException ioE ) {
+         throw new AnalysisEngineProcessException( ioE );
+      }
+   }
+
+   /**
+    * Writes the patients that are still counted.
+    * {@inheritDoc}
+    */
+   @Override
+   synchronized public void collectionProcessComplete() throws AnalysisEngineProcessException {
+      super.collectionProcessComplete();
+      try {
+         for ( String patientId : _counts.getPatientIds() ) {
+            writePatient( patientId );
+         }
+         _writer.close();
+      } catch ( IOException ioE ) {
+         throw new AnalysisEngineProcessException( ioE );
+      }
+      LOGGER.info( "Wrote smoking status of " + _patientCount + " patients to " + _outputFilePath );
+   }
+
+   private void writePatient( final String patientId ) throws IOException {
+      final String smokingStatus = _counts.remove( patientId );
+      if ( smokingStatus == null ) {
+         return;
+      }
+      _writer.write( patientId + "|" + smokingStatus + "\n" );
+      _writer.flush();
+      _patientCount++;
+   }
+
+}
@@ -172,9 +172,8 @@ public class RecordResolutionCasConsumer extends CasConsumer_ImplBase
         if (!outFile.exists())
           outFile.createNewFile();
         patientSmokingStatus.setOutputFile(outFile.getAbsolutePath());
-	    patientSmokingStatus.collectCounts("\\"+iv_delimiter);
-	    patientSmokingStatus.assignPatientLevelSmokingStatus();
-	    patientSmokingStatus.printToFile();
+        patientSmokingStatus.setDelimiter("\\"+iv_delimiter);
+        patientSmokingStatus.run();
     }
   }
   
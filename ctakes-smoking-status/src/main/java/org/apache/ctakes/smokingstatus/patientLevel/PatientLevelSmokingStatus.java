@@ -20,37 +20,53 @@ package org.apache.ctakes.smokingstatus.patientLevel;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
-import java.io.FileNotFoundException;
+import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Set;
-import java.util.Vector;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+
+import org.apache.log4j.Logger;
 
 /**
  * Patient-level smoking status classification used for the AMIA 2009 paper
  * From PatientLevelSmokingStatus_Jan09.java revised frequency based except for assigning past smoker
  * if exists only past and non-smoker    
+ * <p>
+ * Document level assignments are streamed from record resolution files and only per-patient counters are kept.
+ * When the input is sorted by patient each patient is written as soon as its last document has been read.
+ * A directory of record resolution files is counted with one thread per file and the counts are merged.
  * @author Mayo Clinic
  */
 public class PatientLevelSmokingStatus {	
 
-	
-	public static void main(String[] args) {
-		if (args.length < 2)
-			System.out.println("Using input file " +inputFile + " and output file " +outputFile+".  These values can be overridden by providing the input file and output file parameters, respectively, "+
-					" when deploying this application.  By default the delimiter used to split out the patient information from the classification is ',', but a third parameter can be used to set this character value.");
-		else {
-			inputFile = args[0];
-			outputFile = args[1];
+	private static final Logger LOGGER = Logger.getLogger("PatientLevelSmokingStatus");
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.out.println("Usage: PatientLevelSmokingStatus inputFile outputFile [delimiter [sorted]]."
+					+ "  The input file is a record resolution file or a directory of them, counted in parallel."
+					+ "  By default the delimiter used to split out the patient information from the classification is ','."
+					+ "  If the fourth parameter is 'sorted' the input is taken to be sorted by patient"
+					+ " and each patient is written as soon as all of its documents have been read.");
+			return;
 		}
-		if (args.length == 3)
-			delimiter = args[2];
-		collectCounts(delimiter);
-		assignPatientLevelSmokingStatus();
-		printToFile();
+		PatientLevelSmokingStatus patientLevel = new PatientLevelSmokingStatus();
+		patientLevel.setInputFile(args[0]);
+		patientLevel.setOutputFile(args[1]);
+		if (args.length >= 3)
+			patientLevel.setDelimiter(args[2]);
+		if (args.length >= 4)
+			patientLevel.setSortedInput(args[3].equalsIgnoreCase("sorted"));
+		patientLevel.run();
 	}
 	/*
 	 * Set the path and name of input file to read document level classifications
@@ -65,251 +81,148 @@ public class PatientLevelSmokingStatus {
 		outputFile = fileName;
 	}	
 	/*
-	 * goes through the document level assignments for each patients and summarizes the counts
-	 * stores them in a hashmap
+	 * Set the regular expression that splits the document id from the classification
 	 */
-	public static void collectCounts(String delim){
-		try {
-			FileReader fr = new FileReader(inputFile);
-			BufferedReader reader = new BufferedReader(fr);
-			String line = null;
-			try {
-				//Format of the input information to be processed:
-				//Example: docSet35_0106487312_12_200812_12_2008701
-				//docSet35 - is something that retrieval api assigns by default to output to a subset (in this case I think that is doc_link_id)
-				//01064873 - is the MCN
-				//12_12_2008 - this should have been the start date range(which it is not in this case because of programming error)
-				//12_12_2008 - this should have been the end date range (which is is not in this case because of programming error)
-				//The last n-digits is a sequential numbers.
-				boolean currentSmoker = false;
-				boolean nonSmoker = false;
-				boolean pastSmoker = false;
-				boolean smoker = false;
+	public void setDelimiter(String delim){
+		delimiter = Pattern.compile(delim);
+	}
+	/*
+	 * Set whether all documents of a patient are next to each other in the input file
+	 */
+	public void setSortedInput(boolean sorted){
+		sortedInput = sorted;
+	}
+	/*
+	 * Set the number of threads used to count a directory of input files
+	 */
+	public void setThreadCount(int threads){
+		threadCount = Math.max(1, threads);
+	}
 
-				//collect the counts and fill the hash map
-				while ( (line = reader.readLine()) != null) {
-					if(line.length()<1) continue;
-					line = line.trim();
-					System.out.println("Line: " + line);
-					String[] parts = line.split(delim);
-					String[] parts1 = parts[0].split("_"); //0106487312
-					String clinicNumber = parts1[1].substring(0, 8);
-					
-					System.out.println(parts[1]); //class label
-					if (parts[1].equals("PAST_SMOKER")){
-						pastSmoker = true;
-						System.out.println("past smoker doc");
-					}
-					if (parts[1].equals("NON_SMOKER")){
-						nonSmoker = true;
-						System.out.println("non smoker doc");
-					}
-					if (parts[1].equals("CURRENT_SMOKER")){
-						currentSmoker = true;
-						System.out.println("current smoker doc");
-					}
-					if (parts[1].equals("SMOKER")){
-						smoker = true;
-						System.out.println("smoker doc");
-					}
-					
-					//if a new clinic number
-					if (!patientsStatuses.containsKey(clinicNumber)){
-						//create a vector for currentSmoker, nonSmoker, pastSmoker, and smoker values
-						Vector<Integer> smokingStatusElements = new Vector<Integer>(4);
-						if (currentSmoker == true){
-							//smokingStatusElements
-							smokingStatusElements.insertElementAt(new Integer(1), 0);
-							smokingStatusElements.insertElementAt(new Integer(0), 1);
-							smokingStatusElements.insertElementAt(new Integer(0), 2);
-							smokingStatusElements.insertElementAt(new Integer(0), 3);
-							System.out.println("incrementing current");
-						}
-						else if (nonSmoker == true){
-							smokingStatusElements.insertElementAt(new Integer(0), 0);
-							smokingStatusElements.insertElementAt(new Integer(1), 1);
-							smokingStatusElements.insertElementAt(new Integer(0), 2);
-							smokingStatusElements.insertElementAt(new Integer(0), 3);
-							System.out.println("incrementing non");
-						}
-						else if (pastSmoker == true){
-							//smokingStatusElements[0] = new Integer(0);
-							
-							smokingStatusElements.insertElementAt(new Integer(0), 0);
-							smokingStatusElements.insertElementAt(new Integer(0), 1);
-							smokingStatusElements.insertElementAt(new Integer(1), 2);
-							smokingStatusElements.insertElementAt(new Integer(0), 3);
-							System.out.println("incrementing past");
-							
-							//System.out.println("past smoker");
-						}
-						else if (smoker == true){
-							//smokingStatusElements[0] = new Integer(0);
-							
-							smokingStatusElements.insertElementAt(new Integer(0), 0);
-							smokingStatusElements.insertElementAt(new Integer(0), 1);
-							smokingStatusElements.insertElementAt(new Integer(0), 2);
-							smokingStatusElements.insertElementAt(new Integer(1), 3);
-							System.out.println("incrementing past");
-							
-							//System.out.println("past smoker");
-						}
-						//account for the UNKNOWN category
-						else {
-							smokingStatusElements.insertElementAt(new Integer(0), 0);
-							smokingStatusElements.insertElementAt(new Integer(0), 1);
-							smokingStatusElements.insertElementAt(new Integer(0), 2);
-							smokingStatusElements.insertElementAt(new Integer(0), 3);
-						}
-					
-						//clinicNumber = parts1[0] + "_" + clinicNumber;
-						patientsStatuses.put(clinicNumber, smokingStatusElements);
-					}
-					
-					//if an existing clinic number
-					else {
-						Vector<Integer> smokingStatusElements = (Vector<Integer>) patientsStatuses.get(clinicNumber);
-						
-						//increment the respective smoking status
-						if (currentSmoker == true){
-							int currentValue = ((Integer) smokingStatusElements.elementAt(0)).intValue();
-							currentValue = currentValue + 1;
-							smokingStatusElements.setElementAt(new Integer(currentValue), 0);
-							System.out.println("incrementing current: " + currentValue);
-							patientsStatuses.put(clinicNumber, smokingStatusElements);
-						}
-						else if (nonSmoker == true){
-							int currentValue = ((Integer) smokingStatusElements.elementAt(1)).intValue();
-							currentValue = currentValue + 1;
-							smokingStatusElements.setElementAt(new Integer(currentValue), 1);
-							System.out.println("incrementing non: " + currentValue);
-							patientsStatuses.put(clinicNumber, smokingStatusElements);
-						}
-						else if (pastSmoker == true){
-							int currentValue = ((Integer) smokingStatusElements.elementAt(2)).intValue();
-							currentValue = currentValue + 1;
-							smokingStatusElements.setElementAt(new Integer(currentValue), 2);
-							System.out.println("incrementing past: " + currentValue);
-							patientsStatuses.put(clinicNumber, smokingStatusElements);
-						}
-						else if (smoker == true){
-							int currentValue = ((Integer) smokingStatusElements.elementAt(3)).intValue();
-							currentValue = currentValue + 1;
-							smokingStatusElements.setElementAt(new Integer(currentValue), 3);
-							System.out.println("incrementing smoker: " + currentValue);
-							patientsStatuses.put(clinicNumber, smokingStatusElements);
-						}
-						//account for the UNKNOWN category
-						else {
-							//do nothing
-						}
-					
-						//patientsStatuses.put(clinicNumber, smokingStatusElements);
-					}
-					
-					currentSmoker = false;
-					nonSmoker = false;
-					pastSmoker = false;
-					smoker = false;
-				}
-			} catch (IOException e) {
-				e.printStackTrace();
+	/**
+	 * Reads the document level assignments and writes the patient level classifications
+	 * @throws IOException if the input could not be read or the output written
+	 */
+	public void run() throws IOException {
+		if (inputFile == null || outputFile == null)
+			throw new IOException("Both an input file and an output file are required");
+		File input = new File(inputFile);
+		try (Writer out = new BufferedWriter(new FileWriter(outputFile, false))) {
+			if (input.isDirectory()) {
+				write(countInParallel(input), out);
+			} else if (sortedInput) {
+				streamSorted(input, out);
+			} else {
+				SmokingStatusCounts counts = new SmokingStatusCounts();
+				collectCounts(input, counts, null, null);
+				write(counts, out);
 			}
-			
-			try {
-				reader.close();
-				fr.close();
-			} catch (IOException e) {
-				// TODO Auto-generated catch block
-				e.printStackTrace();
+		}
+	}
+
+	/*
+	 * counts every file of the directory on its own thread and merges the counts
+	 */
+	private SmokingStatusCounts countInParallel(File directory) throws IOException {
+		File[] files = directory.listFiles(File::isFile);
+		if (files == null)
+			throw new IOException("Cannot list " + directory.getPath());
+		Arrays.sort(files);
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(threadCount, Math.max(1, files.length)));
+		try {
+			List<Future<SmokingStatusCounts>> futures = new ArrayList<Future<SmokingStatusCounts>>();
+			for (File file : files) {
+				futures.add(executor.submit(() -> {
+					SmokingStatusCounts counts = new SmokingStatusCounts();
+					collectCounts(file, counts, null, null);
+					return counts;
+				}));
 			}
-		} catch (FileNotFoundException e1) {
-			e1.printStackTrace();
+			SmokingStatusCounts merged = new SmokingStatusCounts();
+			for (Future<SmokingStatusCounts> future : futures)
+				merged.merge(future.get());
+			return merged;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted counting " + directory.getPath(), e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			throw new IOException(e.getCause());
+		} finally {
+			executor.shutdownNow();
 		}
 	}
 
-	/**
-	 * performs the patient-level smoking status classification based on document-level classification
-	 * each patient is assigned only one final smoking status
-	 * 
-	 * RULE:
-	 * If exists only U assign U
-	 * Else if exist N and there is no PCS assign N
-	 * Else if exist S and there is no PC assign S
-	 * Else if exist P or C (can be both)
- 	 *   If exists either P or C assign P or C respectively
-	 *   Else if exist both P and C 
-	 *     If(C freq >= P freq) assign C
-	 *     Else assign P  
-	 * 
+	/*
+	 * writes each patient of a file sorted by patient once its last document has been read
 	 */
-	public static void assignPatientLevelSmokingStatus(){
-		Set<String> clinicNumbers = patientsStatuses.keySet();
-		Iterator<String> itClinicNumbers = clinicNumbers.iterator();
-		while (itClinicNumbers.hasNext()){
-			String clinicNumber = (String) itClinicNumbers.next();
-			Vector<?> smokingStatuses = (Vector<?>) patientsStatuses.get(clinicNumber);
-			
-			int current = ((Integer) smokingStatuses.elementAt(0)).intValue();
-			int non = ((Integer) smokingStatuses.elementAt(1)).intValue();
-			int past = ((Integer) smokingStatuses.elementAt(2)).intValue();
-			int smoker = ((Integer) smokingStatuses.elementAt(3)).intValue();
+	private void streamSorted(File input, Writer out) throws IOException {
+		SmokingStatusCounts counts = new SmokingStatusCounts();
+		collectCounts(input, counts, out, new String[1]);
+		write(counts, out);
+	}
 
-			if (current == 0 && non == 0 && past == 0 && smoker == 0){
-				finalAssignment.put(clinicNumber, "UNKNOWN");
-			}
-			else if(non>0 && past==0 && current==0 && smoker==0) {
-				finalAssignment.put(clinicNumber, "NON_SMOKER");
-			}
-			else if(smoker>0 && past==0 && current==0) {
-				finalAssignment.put(clinicNumber, "SMOKER");
-			}
-			else if(past>0 || current>0) {
-				if(past>0 && current==0) {
-					finalAssignment.put(clinicNumber, "PAST_SMOKER");
-				}
-				else if(past==0 && current>0) {
-					finalAssignment.put(clinicNumber, "CURRENT_SMOKER");
+	/*
+	 * goes through the document level assignments for each patients and summarizes the counts.
+	 * If an output is given, the previous patient is written and removed whenever the clinic number changes.
+	 */
+	private void collectCounts(File input, SmokingStatusCounts counts, Writer out, String[] previousClinicNumber)
+			throws IOException {
+		try (BufferedReader reader = new BufferedReader(new FileReader(input))) {
+			//Format of the input information to be processed:
+			//Example: docSet35_0106487312_12_200812_12_2008701
+			//docSet35 - is something that retrieval api assigns by default to output to a subset (in this case I think that is doc_link_id)
+			//01064873 - is the MCN
+			//12_12_2008 - this should have been the start date range(which it is not in this case because of programming error)
+			//12_12_2008 - this should have been the end date range (which is is not in this case because of programming error)
+			//The last n-digits is a sequential numbers.
+			String line;
+			while ((line = reader.readLine()) != null) {
+				line = line.trim();
+				if (line.length() < 1)
+					continue;
+				String[] parts = delimiter.split(line);
+				String clinicNumber = getClinicNumber(parts[0]);
+				if (clinicNumber == null || parts.length < 2) {
+					LOGGER.warn("Skipping malformed record resolution line in " + input.getPath() + " : " + line);
+					continue;
 				}
-				else if(past>0 && current>0) {
-					if(past<=current) {
-						finalAssignment.put(clinicNumber, "CURRENT_SMOKER");
-					}
-					else {
-						finalAssignment.put(clinicNumber, "PAST_SMOKER");
-					}
+				if (out != null) {
+					if (previousClinicNumber[0] != null && !previousClinicNumber[0].equals(clinicNumber))
+						write(previousClinicNumber[0], counts.remove(previousClinicNumber[0]), out);
+					previousClinicNumber[0] = clinicNumber;
 				}
-			}
-			else {
-				System.out.println("Undefined case");
-				System.exit(1);
+				counts.add(clinicNumber, parts[1]);
 			}
 		}
 	}
-	
+
+	/*
+	 * the 8 digit clinic number that follows the first '_' of the document id
+	 */
+	private static String getClinicNumber(String documentId) {
+		String[] parts = documentId.split("_");
+		if (parts.length < 2 || parts[1].length() < 8)
+			return null;
+		return parts[1].substring(0, 8);
+	}
+
 	/*
-	 * writes the clinic number and the final smoking status to a file
+	 * writes the clinic number and the final smoking status of every counted patient
 	 */
-	public static void printToFile(){
-	    BufferedWriter out = null;
-		try {
-			out = new BufferedWriter(new FileWriter(outputFile, false));
-			Set<String> clinicNumbers = finalAssignment.keySet();
-			Iterator<String> itClinicNumbers = clinicNumbers.iterator();
-			while (itClinicNumbers.hasNext()){
-				String clinicNumber = (String) itClinicNumbers.next();
-				String smokingStatus = (String) finalAssignment.get(clinicNumber);
-				out.write("\n" + clinicNumber + "|" + smokingStatus);
-			}
-			out.close();
-		} catch (IOException e1) {
-			// TODO Auto-generated catch block
-			e1.printStackTrace();
-		}
+	private static void write(SmokingStatusCounts counts, Writer out) throws IOException {
+		for (String clinicNumber : counts.getPatientIds())
+			write(clinicNumber, counts.remove(clinicNumber), out);
 	}
-	private static String inputFile = "R:/Dept/projects/Text/NHGRI/October2010/smokingstatus/data/record_resolution.txt";
-	private static String outputFile = "R:/Dept/projects/Text/NHGRI/October2010/smokingstatus/data/record_resolution_patient.txt";
-	private static HashMap<String, Vector<Integer>> patientsStatuses = new HashMap<String, Vector<Integer>>();
-	private static HashMap<String, String> finalAssignment = new HashMap<String, String>();
-	private static String delimiter = "\\,";
-}
\ No newline at end of file
+
+	private static void write(String clinicNumber, String smokingStatus, Writer out) throws IOException {
+		out.write("\n" + clinicNumber + "|" + smokingStatus);
+	}
+
+	private String inputFile;
+	private String outputFile;
+	private Pattern delimiter = Pattern.compile("\\,");
+	private boolean sortedInput = false;
+	private int threadCount = Runtime.getRuntime().availableProcessors();
+}
@@ -0,0 +1,166 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.smokingstatus.patientLevel;
+
+
+import org.apache.ctakes.smokingstatus.Const;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Counts of the document level smoking status classifications of patients.
+ * <p>
+ * Only five counters are kept per patient, so a patient can be resolved and removed as soon as all of its documents
+ * have been counted.  Counts collected separately, for instance one per input file on its own thread,
+ * are combined with {@link #merge(SmokingStatusCounts)}.
+ * Not thread safe.
+ */
+final public class SmokingStatusCounts {
+
+   static private final int CURRENT_INDEX = 0;
+   static private final int NON_INDEX = 1;
+   static private final int PAST_INDEX = 2;
+   static private final int SMOKER_INDEX = 3;
+   static private final int DOCUMENT_INDEX = 4;
+
+   private final Map<String, int[]> _patientCounts = new HashMap<>();
+
+   /**
+    * @param patientId      -
+    * @param classification document level classification, any value other than a smoker or non-smoker is unknown
+    */
+   public void add( final String patientId, final String classification ) {
+      final int[] counts = _patientCounts.computeIfAbsent( patientId, p -> new int[ DOCUMENT_INDEX + 1 ] );
+      final int index = getIndex( classification );
+      if ( index >= 0 ) {
+         counts[ index ]++;
+      }
+      counts[ DOCUMENT_INDEX ]++;
+   }
+
+   /**
+    * @param patientId -
+    * @return number of documents counted for the patient
+    */
+   public int getDocumentCount( final String patientId ) {
+      final int[] counts = _patientCounts.get( patientId );
+      return counts == null ? 0 : counts[ DOCUMENT_INDEX ];
+   }
+
+   /**
+    * @return identifiers of the patients with counts
+    */
+   public Collection<String> getPatientIds() {
+      return new ArrayList<>( _patientCounts.keySet() );
+   }
+
+   /**
+    * @return number of patients with counts
+    */
+   public int size() {
+      return _patientCounts.size();
+   }
+
+   /**
+    * @param patientId -
+    * @return the patient level smoking status, null if the patient has no counts
+    */
+   public String resolve( final String patientId ) {
+      final int[] counts = _patientCounts.get( patientId );
+      return counts == null ? null : resolve( counts );
+   }
+
+   /**
+    * Resolves the patient level smoking status and forgets the counts of the patient.
+    *
+    * @param patientId -
+    * @return the patient level smoking status, null if the patient has no counts
+    */
+   public String remove( final String patientId ) {
+      final int[] counts = _patientCounts.remove( patientId );
+      return counts == null ? null : resolve( counts );
+   }
+
+   /**
+    * Adds the counts of other patients or other documents of the same patients.
+    *
+    * @param other counts to add to these, left unchanged
+    */
+   public void merge( final SmokingStatusCounts other ) {
+      for ( Map.Entry<String, int[]> entry : other._patientCounts.entrySet() ) {
+         final int[] counts = _patientCounts.get( entry.getKey() );
+         if ( counts == null ) {
+            _patientCounts.put( entry.getKey(), entry.getValue().clone() );
+         } else {
+            for ( int i = 0; i < counts.length; i++ ) {
+               counts[ i ] += entry.getValue()[ i ];
+            }
+         }
+      }
+   }
+
+   static private int getIndex( final String classification ) {
+      if ( classification == null ) {
+         return -1;
+      }
+      switch ( classification ) {
+         case Const.CLASS_CURR_SMOKER:
+            return CURRENT_INDEX;
+         case Const.CLASS_NON_SMOKER:
+            return NON_INDEX;
+         case Const.CLASS_PAST_SMOKER:
+            return PAST_INDEX;
+         case Const.CLASS_SMOKER:
+            return SMOKER_INDEX;
+      }
+      return -1;
+   }
+
+   /**
+    * Each patient is assigned only one final smoking status.
+    * <pre>
+    * If exists only U assign U
+    * Else if exist N and there is no PCS assign N
+    * Else if exist S and there is no PC assign S
+    * Else if exist P or C (can be both)
+    *   If exists either P or C assign P or C respectively
+    *   Else if exist both P and C
+    *     If(C freq >= P freq) assign C
+    *     Else assign P
+    * </pre>
+    */
+   static private String resolve( final int[] counts ) {
+      final int current = counts[ CURRENT_INDEX ];
+      final int past = counts[ PAST_INDEX ];
+      if ( current > 0 || past > 0 ) {
+         return current >= past ? Const.CLASS_CURR_SMOKER : Const.CLASS_PAST_SMOKER;
+      }
+      if ( counts[ SMOKER_INDEX ] > 0 ) {
+         return Const.CLASS_SMOKER;
+      }
+      if ( counts[ NON_INDEX ] > 0 ) {
+         return Const.CLASS_NON_SMOKER;
+      }
+      return Const.CLASS_UNKNOWN;
+   }
+
+}
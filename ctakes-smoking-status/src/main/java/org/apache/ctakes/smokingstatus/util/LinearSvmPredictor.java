@@ -0,0 +1,133 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.smokingstatus.util;
+
+import libsvm.svm;
+import libsvm.svm_model;
+import libsvm.svm_node;
+import libsvm.svm_parameter;
+
+/**
+ * Predicts class labels with a libsvm classification model.
+ * <p>
+ * For a model with a linear kernel the support vectors of every pair of
+ * classes are folded into one weight vector when the predictor is created, so
+ * a prediction costs one sparse dot product per pair of classes instead of one
+ * per support vector. The labels are those of {@link svm#svm_predict}, which is
+ * used for models with other kernels.
+ */
+public class LinearSvmPredictor {
+	private final svm_model model;
+
+	// weights[p][index] of the decision function of class pair p, null if the model is not linear
+	private final double[][] weights;
+
+	public LinearSvmPredictor(svm_model model) {
+		this.model = model;
+		int svmType = svm.svm_get_svm_type(model);
+		if (model.param.kernel_type == svm_parameter.LINEAR
+				&& (svmType == svm_parameter.C_SVC || svmType == svm_parameter.NU_SVC)) {
+			weights = foldSupportVectors(model);
+		} else {
+			weights = null;
+		}
+	}
+
+	/**
+	 * @return true if predictions use the folded linear decision functions
+	 */
+	public boolean isLinear() {
+		return weights != null;
+	}
+
+	/**
+	 * @param x
+	 *            features, in increasing index order as libsvm requires
+	 * @return the predicted class label
+	 */
+	public double predict(svm_node[] x) {
+		if (weights == null) {
+			return svm.svm_predict(model, x);
+		}
+		int nrClass = model.nr_class;
+		int[] votes = new int[nrClass];
+		int p = 0;
+		for (int i = 0; i < nrClass; i++) {
+			for (int j = i + 1; j < nrClass; j++) {
+				double[] w = weights[p];
+				double sum = 0;
+				for (svm_node node : x) {
+					if (node.index < w.length) {
+						sum += w[node.index] * node.value;
+					}
+				}
+				sum -= model.rho[p];
+				if (sum > 0) {
+					++votes[i];
+				} else {
+					++votes[j];
+				}
+				p++;
+			}
+		}
+		// the first class with the most votes, as in svm_predict
+		int voteMaxIdx = 0;
+		for (int i = 1; i < nrClass; i++) {
+			if (votes[i] > votes[voteMaxIdx]) {
+				voteMaxIdx = i;
+			}
+		}
+		return model.label[voteMaxIdx];
+	}
+
+	private static double[][] foldSupportVectors(svm_model model) {
+		int nrClass = model.nr_class;
+		int maxIndex = 0;
+		for (svm_node[] sv : model.SV) {
+			for (svm_node node : sv) {
+				maxIndex = Math.max(maxIndex, node.index);
+			}
+		}
+		int[] start = new int[nrClass];
+		for (int i = 1; i < nrClass; i++) {
+			start[i] = start[i - 1] + model.nSV[i - 1];
+		}
+		double[][] weights = new double[nrClass * (nrClass - 1) / 2][];
+		int p = 0;
+		for (int i = 0; i < nrClass; i++) {
+			for (int j = i + 1; j < nrClass; j++) {
+				double[] w = new double[maxIndex + 1];
+				// coefficients of the same pairs svm_predict_values uses
+				addSupportVectors(w, model, model.sv_coef[j - 1], start[i], model.nSV[i]);
+				addSupportVectors(w, model, model.sv_coef[i], start[j], model.nSV[j]);
+				weights[p++] = w;
+			}
+		}
+		return weights;
+	}
+
+	private static void addSupportVectors(double[] w, svm_model model,
+			double[] coef, int start, int count) {
+		for (int k = start; k < start + count; k++) {
+			for (svm_node node : model.SV[k]) {
+				w[node.index] += coef[k] * node.value;
+			}
+		}
+	}
+}
@@ -0,0 +1,118 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.smokingstatus.cc;
+
+import org.apache.ctakes.core.patient.PatientNoteStore;
+import org.apache.ctakes.smokingstatus.Const;
+import org.apache.ctakes.smokingstatus.type.SmokingDocumentClassification;
+import org.apache.ctakes.typesystem.type.structured.Metadata;
+import org.apache.uima.UIMAException;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.fit.factory.AnalysisEngineFactory;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.jcas.JCas;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks when the writer writes each patient: once its wanted document count is reached, when the next patient
+ * starts for sorted input, and otherwise when the collection is complete.
+ * Patient identifiers are unique to each test because the note store is shared.
+ */
+public class PatientSmokingStatusWriterTest {
+
+   @Rule
+   public TemporaryFolder folder = new TemporaryFolder();
+
+   @Test
+   public void testSortedByPatient() throws UIMAException, IOException {
+      final File output = new File( folder.getRoot(), "sorted/patients.txt" );
+      final AnalysisEngine writer = createWriter( output, true );
+      final JCas jCas = JCasFactory.createJCas();
+      process( writer, jCas, "sortedA", Const.CLASS_PAST_SMOKER );
+      process( writer, jCas, "sortedA", Const.CLASS_CURR_SMOKER );
+      assertEquals( Collections.emptyList(), readLines( output ) );
+      process( writer, jCas, "sortedB", Const.CLASS_NON_SMOKER );
+      assertEquals( Collections.singletonList( "sortedA|" + Const.CLASS_CURR_SMOKER ), readLines( output ) );
+      process( writer, jCas, "sortedB", null );
+      process( writer, jCas, "sortedC", null );
+      assertEquals( Arrays.asList( "sortedA|" + Const.CLASS_CURR_SMOKER, "sortedB|" + Const.CLASS_NON_SMOKER ),
+            readLines( output ) );
+      writer.collectionProcessComplete();
+      assertEquals( Arrays.asList( "sortedA|" + Const.CLASS_CURR_SMOKER, "sortedB|" + Const.CLASS_NON_SMOKER,
+            "sortedC|" + Const.CLASS_UNKNOWN ), readLines( output ) );
+   }
+
+   @Test
+   public void testWantedDocumentCount() throws UIMAException, IOException {
+      PatientNoteStore.getInstance().setWantedDocCount( "wantedA", 3 );
+      final File output = new File( folder.getRoot(), "wanted.txt" );
+      final AnalysisEngine writer = createWriter( output, false );
+      final JCas jCas = JCasFactory.createJCas();
+      process( writer, jCas, "wantedA", Const.CLASS_SMOKER );
+      process( writer, jCas, "wantedB", Const.CLASS_PAST_SMOKER );
+      process( writer, jCas, "wantedA", Const.CLASS_NON_SMOKER );
+      assertEquals( Collections.emptyList(), readLines( output ) );
+      process( writer, jCas, "wantedA", Const.CLASS_UNKNOWN );
+      assertEquals( Collections.singletonList( "wantedA|" + Const.CLASS_SMOKER ), readLines( output ) );
+      process( writer, jCas, "wantedB", Const.CLASS_CURR_SMOKER );
+      assertEquals( Collections.singletonList( "wantedA|" + Const.CLASS_SMOKER ), readLines( output ) );
+      writer.collectionProcessComplete();
+      assertEquals( Arrays.asList( "wantedA|" + Const.CLASS_SMOKER, "wantedB|" + Const.CLASS_CURR_SMOKER ),
+            readLines( output ) );
+   }
+
+   static private AnalysisEngine createWriter( final File output, final boolean sorted )
+         throws UIMAException {
+      return AnalysisEngineFactory.createEngine( PatientSmokingStatusWriter.class,
+            PatientSmokingStatusWriter.PARAM_OUTPUT_FILE, output.getPath(),
+            PatientSmokingStatusWriter.PARAM_SORTED_INPUT, sorted );
+   }
+
+   static private void process( final AnalysisEngine writer, final JCas jCas, final String patientId,
+                                final String classification ) throws UIMAException {
+      jCas.reset();
+      jCas.setDocumentText( "Smoking history." );
+      final Metadata metadata = new Metadata( jCas );
+      metadata.setPatientIdentifier( patientId );
+      metadata.addToIndexes();
+      if ( classification != null ) {
+         final SmokingDocumentClassification documentClassification = new SmokingDocumentClassification( jCas );
+         documentClassification.setClassification( classification );
+         documentClassification.addToIndexes();
+      }
+      writer.process( jCas );
+   }
+
+   static private List<String> readLines( final File output ) throws IOException {
+      return Files.readAllLines( output.toPath(), StandardCharsets.UTF_8 );
+   }
+
+}
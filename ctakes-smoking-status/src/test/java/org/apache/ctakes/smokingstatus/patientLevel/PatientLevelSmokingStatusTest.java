@@ -0,0 +1,152 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.smokingstatus.patientLevel;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Resolves record resolution files read whole, streamed in patient order and
+ * split across a directory, and checks that every way gives the same patients.
+ */
+public class PatientLevelSmokingStatusTest {
+
+	private static final String[] CLASSIFICATIONS = { "CURRENT_SMOKER",
+			"NON_SMOKER", "PAST_SMOKER", "SMOKER", "UNKNOWN" };
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testSortedStreaming() throws IOException {
+		List<String> lines = Arrays.asList(
+				"docSet1_0000000112_12_2008_12_20081,PAST_SMOKER",
+				"docSet1_0000000112_12_2008_12_20082,CURRENT_SMOKER",
+				"docSet1_0000000112_12_2008_12_20083,PAST_SMOKER",
+				"",
+				"docSet1_0000000212_12_2008_12_20081,NON_SMOKER",
+				"docSet1_0000000212_12_2008_12_20082,UNKNOWN",
+				"malformed line",
+				"docSet1_0000000312_12_2008_12_20081,UNKNOWN",
+				"docSet2_0000000412_12_2008_12_20081,SMOKER",
+				"docSet2_0000000412_12_2008_12_20082,NON_SMOKER");
+		Map<String, String> expected = new HashMap<String, String>();
+		expected.put("00000001", "PAST_SMOKER");
+		expected.put("00000002", "NON_SMOKER");
+		expected.put("00000003", "UNKNOWN");
+		expected.put("00000004", "SMOKER");
+		File input = write("sorted.txt", lines);
+
+		assertEquals(expected, run(input, true));
+		assertEquals(expected, run(input, false));
+	}
+
+	@Test
+	public void testSameEveryWay() throws IOException {
+		List<String> sortedLines = new ArrayList<String>();
+		for (int patient = 0; patient < 200; patient++) {
+			for (int document = 0; document <= patient % 6; document++) {
+				sortedLines.add(line(patient, document));
+			}
+		}
+		List<String> shuffledLines = new ArrayList<String>(sortedLines);
+		Collections.shuffle(shuffledLines, new Random(47));
+
+		Map<String, String> expected = run(write("shuffled.txt", shuffledLines), false);
+		assertEquals(200, expected.size());
+		assertEquals(expected, run(write("sorted.txt", sortedLines), true));
+
+		// patients split across files are merged
+		File directory = new File(folder.getRoot(), "split");
+		directory.mkdirs();
+		int fileCount = 5;
+		for (int f = 0; f < fileCount; f++) {
+			List<String> part = new ArrayList<String>();
+			for (int i = f; i < shuffledLines.size(); i += fileCount) {
+				part.add(shuffledLines.get(i));
+			}
+			Files.write(new File(directory, "part" + f + ".txt").toPath(),
+					part, StandardCharsets.UTF_8);
+		}
+		for (int threads : new int[] { 1, 3 }) {
+			PatientLevelSmokingStatus patientLevel = new PatientLevelSmokingStatus();
+			patientLevel.setThreadCount(threads);
+			assertEquals(expected, run(patientLevel, directory));
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testNoOutput() throws IOException {
+		PatientLevelSmokingStatus patientLevel = new PatientLevelSmokingStatus();
+		patientLevel.setInputFile(write("input.txt",
+				Arrays.asList("docSet1_0000000112_12_2008_12_20081,SMOKER")).getPath());
+		patientLevel.run();
+	}
+
+	private static String line(int patient, int document) {
+		String classification = CLASSIFICATIONS[(patient * 3 + document * 7) % CLASSIFICATIONS.length];
+		return String.format("docSet1_%08d12_12_2008_12_2008%d,%s", patient, document, classification);
+	}
+
+	private File write(String name, List<String> lines) throws IOException {
+		File file = new File(folder.getRoot(), name);
+		Files.write(file.toPath(), lines, StandardCharsets.UTF_8);
+		return file;
+	}
+
+	private Map<String, String> run(File input, boolean sorted) throws IOException {
+		PatientLevelSmokingStatus patientLevel = new PatientLevelSmokingStatus();
+		patientLevel.setSortedInput(sorted);
+		return run(patientLevel, input);
+	}
+
+	/**
+	 * @return smoking status of each clinic number written, every clinic number written once
+	 */
+	private Map<String, String> run(PatientLevelSmokingStatus patientLevel, File input) throws IOException {
+		File output = File.createTempFile("patients", ".txt", folder.getRoot());
+		patientLevel.setInputFile(input.getPath());
+		patientLevel.setOutputFile(output.getPath());
+		patientLevel.run();
+		Map<String, String> statuses = new HashMap<String, String>();
+		for (String line : Files.readAllLines(output.toPath(), StandardCharsets.UTF_8)) {
+			if (line.isEmpty())
+				continue;
+			String[] parts = line.split("\\|");
+			assertEquals(line, 2, parts.length);
+			assertEquals("Written twice: " + parts[0], null, statuses.put(parts[0], parts[1]));
+		}
+		return statuses;
+	}
+}
@@ -0,0 +1,198 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.smokingstatus.patientLevel;
+
+import org.apache.ctakes.smokingstatus.Const;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+
+/**
+ * Resolves patients from counts and compares every combination of small counts with the rule that
+ * PatientLevelSmokingStatus applied before patients were streamed.
+ */
+public class SmokingStatusCountsTest {
+
+   static private final String C = Const.CLASS_CURR_SMOKER;
+   static private final String N = Const.CLASS_NON_SMOKER;
+   static private final String P = Const.CLASS_PAST_SMOKER;
+   static private final String S = Const.CLASS_SMOKER;
+   static private final String U = Const.CLASS_UNKNOWN;
+
+   @Test
+   public void testRuleCases() {
+      // documents of the patient, then the expected patient level status
+      final String[][] cases = {
+            { U, U },
+            { U, U, U },
+            { N, N },
+            { N, U, N },
+            { S, S },
+            { N, S, S },
+            { N, N, N, S, S },
+            { P, P },
+            { C, C },
+            { N, P, P },
+            { S, P, U, P },
+            { N, S, C, C },
+            { C, P, C },
+            { P, C, C },
+            { P, C, P, P },
+            { C, C, P, P, C },
+            { P, P, C, N, S, S, S, P },
+      };
+      for ( String[] documents : cases ) {
+         final SmokingStatusCounts counts = new SmokingStatusCounts();
+         for ( int i = 0; i < documents.length - 1; i++ ) {
+            counts.add( "patient", documents[ i ] );
+         }
+         assertEquals( Arrays.toString( documents ), documents[ documents.length - 1 ], counts.resolve( "patient" ) );
+      }
+   }
+
+   @Test
+   public void testSameAsFormerRule() {
+      for ( int current = 0; current <= 3; current++ ) {
+         for ( int non = 0; non <= 3; non++ ) {
+            for ( int past = 0; past <= 3; past++ ) {
+               for ( int smoker = 0; smoker <= 3; smoker++ ) {
+                  for ( int unknown = 0; unknown <= 1; unknown++ ) {
+                     if ( current + non + past + smoker + unknown == 0 ) {
+                        continue;
+                     }
+                     final SmokingStatusCounts counts = new SmokingStatusCounts();
+                     addDocuments( counts, "patient", C, current );
+                     addDocuments( counts, "patient", N, non );
+                     addDocuments( counts, "patient", P, past );
+                     addDocuments( counts, "patient", S, smoker );
+                     addDocuments( counts, "patient", U, unknown );
+                     assertEquals( "C" + current + " N" + non + " P" + past + " S" + smoker,
+                           resolveFormerly( current, non, past, smoker ), counts.resolve( "patient" ) );
+                     assertEquals( current + non + past + smoker + unknown, counts.getDocumentCount( "patient" ) );
+                  }
+               }
+            }
+         }
+      }
+   }
+
+   @Test
+   public void testOtherClassificationsAreUnknown() {
+      final SmokingStatusCounts counts = new SmokingStatusCounts();
+      counts.add( "patient", null );
+      counts.add( "patient", Const.CLASS_KNOWN );
+      counts.add( "patient", "current_smoker" );
+      assertEquals( 3, counts.getDocumentCount( "patient" ) );
+      assertEquals( U, counts.resolve( "patient" ) );
+   }
+
+   @Test
+   public void testRemove() {
+      final SmokingStatusCounts counts = new SmokingStatusCounts();
+      counts.add( "a", P );
+      counts.add( "b", N );
+      assertEquals( 2, counts.size() );
+      assertEquals( P, counts.remove( "a" ) );
+      assertEquals( 1, counts.size() );
+      assertNull( counts.resolve( "a" ) );
+      assertNull( counts.remove( "a" ) );
+      assertEquals( 0, counts.getDocumentCount( "a" ) );
+      assertEquals( new HashSet<>( Arrays.asList( "b" ) ), new HashSet<>( counts.getPatientIds() ) );
+   }
+
+   @Test
+   public void testMerge() {
+      final SmokingStatusCounts first = new SmokingStatusCounts();
+      first.add( "a", P );
+      first.add( "a", C );
+      first.add( "b", N );
+      final SmokingStatusCounts second = new SmokingStatusCounts();
+      second.add( "a", C );
+      second.add( "c", S );
+      second.add( "c", U );
+      first.merge( second );
+
+      assertEquals( C, first.resolve( "a" ) );
+      assertEquals( 3, first.getDocumentCount( "a" ) );
+      assertEquals( N, first.resolve( "b" ) );
+      assertEquals( S, first.resolve( "c" ) );
+      assertEquals( 2, first.getDocumentCount( "c" ) );
+      assertEquals( 3, first.size() );
+
+      // the merged counts are copies, the other counts are left unchanged
+      first.add( "c", P );
+      assertEquals( S, second.resolve( "c" ) );
+      assertEquals( 2, second.getDocumentCount( "c" ) );
+      assertEquals( 1, second.getDocumentCount( "a" ) );
+   }
+
+   @Test
+   public void testMergeSameAsCountingTogether() {
+      final String[] classifications = { C, N, P, S, U };
+      final SmokingStatusCounts together = new SmokingStatusCounts();
+      final SmokingStatusCounts merged = new SmokingStatusCounts();
+      SmokingStatusCounts part = new SmokingStatusCounts();
+      for ( int i = 0; i < 500; i++ ) {
+         final String patientId = "p" + ( i * 7 % 23 );
+         final String classification = classifications[ i * 13 % classifications.length ];
+         together.add( patientId, classification );
+         part.add( patientId, classification );
+         if ( i % 100 == 99 ) {
+            merged.merge( part );
+            part = new SmokingStatusCounts();
+         }
+      }
+      assertEquals( new HashSet<>( together.getPatientIds() ), new HashSet<>( merged.getPatientIds() ) );
+      for ( String patientId : together.getPatientIds() ) {
+         assertEquals( patientId, together.resolve( patientId ), merged.resolve( patientId ) );
+         assertEquals( patientId, together.getDocumentCount( patientId ), merged.getDocumentCount( patientId ) );
+      }
+   }
+
+   static private void addDocuments( final SmokingStatusCounts counts, final String patientId,
+                                     final String classification, final int count ) {
+      for ( int i = 0; i < count; i++ ) {
+         counts.add( patientId, classification );
+      }
+   }
+
+   /**
+    * PatientLevelSmokingStatus.assignPatientLevelSmokingStatus before patients were streamed
+    */
+   static private String resolveFormerly( final int current, final int non, final int past, final int smoker ) {
+      if ( current == 0 && non == 0 && past == 0 && smoker == 0 ) {
+         return "UNKNOWN";
+      } else if ( non > 0 && past == 0 && current == 0 && smoker == 0 ) {
+         return "NON_SMOKER";
+      } else if ( smoker > 0 && past == 0 && current == 0 ) {
+         return "SMOKER";
+      } else if ( past > 0 && current == 0 ) {
+         return "PAST_SMOKER";
+      } else if ( past == 0 && current > 0 ) {
+         return "CURRENT_SMOKER";
+      } else if ( past <= current ) {
+         return "CURRENT_SMOKER";
+      }
+      return "PAST_SMOKER";
+   }
+
+}
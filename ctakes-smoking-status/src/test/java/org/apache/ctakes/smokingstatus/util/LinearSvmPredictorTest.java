@@ -0,0 +1,247 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.smokingstatus.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.TreeMap;
+
+import libsvm.svm;
+import libsvm.svm_model;
+import libsvm.svm_node;
+import libsvm.svm_parameter;
+import libsvm.svm_print_interface;
+import libsvm.svm_problem;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Compares the labels of the folded linear decision functions with those of
+ * {@link svm#svm_predict} for trained models and random sparse vectors.
+ * <p>
+ * The folded weights add the same products in another order, so a decision
+ * value within rounding of zero may fall on the other side. A label may only
+ * differ for such vectors.
+ */
+public class LinearSvmPredictorTest {
+
+	private static final int DIMENSION = 60;
+
+	// decision values closer to zero than this may be rounded either way
+	private static final double ROUNDING = 1e-9;
+
+	@BeforeClass
+	public static void quietTraining() {
+		svm.svm_set_print_string_function(new svm_print_interface() {
+			public void print(String s) {
+			}
+		});
+	}
+
+	@Test
+	public void testSameAsSvmPredict() {
+		Random random = new Random(46);
+		int ties = 0;
+		for (int nrClass = 2; nrClass <= 5; nrClass++) {
+			for (int svmType : new int[] { svm_parameter.C_SVC, svm_parameter.NU_SVC }) {
+				svm_model model = train(random, nrClass, svmType, svm_parameter.LINEAR);
+				LinearSvmPredictor predictor = new LinearSvmPredictor(model);
+				assertTrue(predictor.isLinear());
+				ties += compare(random, model, predictor);
+			}
+		}
+		assertTrue("Random vectors should give some tied votes", ties > 0);
+	}
+
+	@Test
+	public void testOtherKernels() {
+		Random random = new Random(47);
+		svm_model model = train(random, 3, svm_parameter.C_SVC, svm_parameter.RBF);
+		LinearSvmPredictor predictor = new LinearSvmPredictor(model);
+		assertFalse(predictor.isLinear());
+		for (int i = 0; i < 500; i++) {
+			svm_node[] x = randomVector(random, DIMENSION);
+			assertEquals(svm.svm_predict(model, x), predictor.predict(x), 0d);
+		}
+	}
+
+	/**
+	 * Each class wins one of the three pairs, so the votes tie and the first
+	 * class of the model is predicted whatever its label.
+	 */
+	@Test
+	public void testTiedVotes() {
+		svm_model model = new svm_model();
+		model.param = new svm_parameter();
+		model.param.svm_type = svm_parameter.C_SVC;
+		model.param.kernel_type = svm_parameter.LINEAR;
+		model.nr_class = 3;
+		model.l = 3;
+		model.label = new int[] { 3, 1, 2 };
+		model.nSV = new int[] { 1, 1, 1 };
+		model.SV = new svm_node[3][];
+		for (int k = 0; k < 3; k++) {
+			model.SV[k] = new svm_node[] { node(1, 1) };
+		}
+		model.sv_coef = new double[2][3];
+		// pairs (0,1), (0,2) and (1,2) are won by 0, 2 and 1
+		model.rho = new double[] { -1, 1, -1 };
+		LinearSvmPredictor predictor = new LinearSvmPredictor(model);
+		assertTrue(predictor.isLinear());
+		svm_node[] x = { node(1, 0.5) };
+		assertEquals(3d, svm.svm_predict(model, x), 0d);
+		assertEquals(3d, predictor.predict(x), 0d);
+	}
+
+	/**
+	 * @return number of vectors whose votes tied
+	 */
+	private static int compare(Random random, svm_model model,
+			LinearSvmPredictor predictor) {
+		int nrClass = model.nr_class;
+		double[] decValues = new double[nrClass * (nrClass - 1) / 2];
+		int ties = 0;
+		for (int i = 0; i < 2000; i++) {
+			// some vectors use indices beyond those of the support vectors
+			svm_node[] x = randomVector(random, i % 10 == 0 ? DIMENSION + 20 : DIMENSION);
+			double expected = svm.svm_predict_values(model, x, decValues);
+			double actual = predictor.predict(x);
+			if (expected != actual) {
+				double smallest = Double.MAX_VALUE;
+				for (double decValue : decValues) {
+					smallest = Math.min(smallest, Math.abs(decValue));
+				}
+				assertTrue(nrClass + " classes, vector " + i + " predicted "
+						+ actual + " instead of " + expected,
+						smallest < ROUNDING);
+			}
+			if (isTied(decValues, nrClass)) {
+				ties++;
+			}
+		}
+		return ties;
+	}
+
+	private static boolean isTied(double[] decValues, int nrClass) {
+		int[] votes = new int[nrClass];
+		int p = 0;
+		for (int i = 0; i < nrClass; i++) {
+			for (int j = i + 1; j < nrClass; j++) {
+				if (decValues[p++] > 0) {
+					votes[i]++;
+				} else {
+					votes[j]++;
+				}
+			}
+		}
+		int max = 0;
+		int maxCount = 0;
+		for (int vote : votes) {
+			if (vote > max) {
+				max = vote;
+				maxCount = 1;
+			} else if (vote == max) {
+				maxCount++;
+			}
+		}
+		return maxCount > 1;
+	}
+
+	/**
+	 * Trains on the same number of vectors of each class. Vectors of a class
+	 * mostly use a band of indices of their own, and some are given another
+	 * label so that the classes overlap.
+	 */
+	private static svm_model train(Random random, int nrClass, int svmType,
+			int kernelType) {
+		int band = DIMENSION / nrClass;
+		svm_problem problem = new svm_problem();
+		problem.l = 80 * nrClass;
+		problem.x = new svm_node[problem.l][];
+		problem.y = new double[problem.l];
+		for (int i = 0; i < problem.l; i++) {
+			int label = i % nrClass;
+			TreeMap<Integer, Double> values = new TreeMap<Integer, Double>();
+			for (int n = random.nextInt(4); n < 8; n++) {
+				int index = random.nextInt(3) == 0 ? 1 + random.nextInt(DIMENSION)
+						: 1 + label * band + random.nextInt(band);
+				values.put(index, random.nextInt(4) == 0 ? random.nextGaussian() : 1d);
+			}
+			problem.x[i] = toVector(values);
+			if (random.nextInt(10) == 0) {
+				label = random.nextInt(nrClass);
+			}
+			// labels that are not 0..n-1 and not in increasing order
+			problem.y[i] = 10 * (nrClass - label);
+		}
+		svm_parameter param = new svm_parameter();
+		param.svm_type = svmType;
+		param.kernel_type = kernelType;
+		param.gamma = 1d / DIMENSION;
+		param.C = 1;
+		param.nu = 0.1;
+		param.eps = 1e-3;
+		param.cache_size = 40;
+		param.shrinking = 1;
+		param.probability = 0;
+		param.nr_weight = 0;
+		param.weight_label = new int[0];
+		param.weight = new double[0];
+		String error = svm.svm_check_parameter(problem, param);
+		assertEquals(null, error);
+		svm_model model = svm.svm_train(problem, param);
+		assertEquals(nrClass, model.nr_class);
+		return model;
+	}
+
+	/**
+	 * @return a sparse vector with indices in increasing order, sometimes
+	 *         empty
+	 */
+	private static svm_node[] randomVector(Random random, int dimension) {
+		TreeMap<Integer, Double> values = new TreeMap<Integer, Double>();
+		int count = random.nextInt(12);
+		for (int n = 0; n < count; n++) {
+			// mostly binary, as the smoking status features are
+			values.put(1 + random.nextInt(dimension),
+					random.nextInt(4) == 0 ? random.nextGaussian() : 1d);
+		}
+		return toVector(values);
+	}
+
+	private static svm_node[] toVector(TreeMap<Integer, Double> values) {
+		svm_node[] x = new svm_node[values.size()];
+		int n = 0;
+		for (Integer index : values.keySet()) {
+			x[n++] = node(index, values.get(index));
+		}
+		return x;
+	}
+
+	private static svm_node node(int index, double value) {
+		svm_node node = new svm_node();
+		node.index = index;
+		node.value = value;
+		return node;
+	}
+}
@@ -6,6 +6,7 @@ import org.apache.ctakes.relationextractor.ae.RelationExtractorAnnotator;
 import org.apache.ctakes.relationextractor.ae.features.PartOfSpeechFeaturesExtractor;
 import org.apache.ctakes.relationextractor.ae.features.RelationFeaturesExtractor;
 import org.apache.ctakes.temporal.ae.feature.*;
+import org.apache.ctakes.temporal.utils.SentenceMentionIndex;
 import org.apache.ctakes.typesystem.type.relation.BinaryTextRelation;
 import org.apache.ctakes.typesystem.type.relation.RelationArgument;
 import org.apache.ctakes.typesystem.type.relation.TemporalTextRelation;
@@ -14,6 +15,7 @@ import org.apache.ctakes.typesystem.type.textsem.IdentifiedAnnotation;
 import org.apache.ctakes.typesystem.type.textspan.Segment;
 import org.apache.ctakes.typesystem.type.textspan.Sentence;
 import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
 import org.apache.uima.fit.factory.AnalysisEngineFactory;
 import org.apache.uima.fit.util.JCasUtil;
 import org.apache.uima.jcas.JCas;
@@ -89,6 +91,15 @@ public class ConsecutiveSentencesEventEventRelationAnnotator extends RelationExt
 				);
 	}
 
+	@Override
+	public void process(JCas jCas) throws AnalysisEngineProcessException {
+		try {
+			super.process(jCas);
+		} finally {
+			SentenceMentionIndex.release();
+		}
+	}
+
 	@Override
 	protected Class<? extends Annotation> getCoveringClass() {
 		return DocumentAnnotation.class;
@@ -117,8 +128,8 @@ public class ConsecutiveSentencesEventEventRelationAnnotator extends RelationExt
 				for (int i=0; i<sentListLength-1; i++ ) {
 					Sentence currentSent = sentList.get(i);
 					Sentence nextSent	 = sentList.get(i+1);
-					List<EventMention> currentEvents = JCasUtil.selectCovered(jCas, EventMention.class, currentSent);
-					List<EventMention> nextEvents	 = JCasUtil.selectCovered(jCas, EventMention.class, nextSent);
+					List<EventMention> currentEvents = SentenceMentionIndex.selectCovered(jCas, EventMention.class, currentSent);
+					List<EventMention> nextEvents	 = SentenceMentionIndex.selectCovered(jCas, EventMention.class, nextSent);
 
 					//filtering events
 					List<EventMention> realEvents = new ArrayList<>();
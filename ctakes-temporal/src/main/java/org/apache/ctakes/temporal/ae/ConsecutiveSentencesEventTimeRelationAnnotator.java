@@ -6,6 +6,7 @@ import org.apache.ctakes.relationextractor.ae.RelationExtractorAnnotator;
 import org.apache.ctakes.relationextractor.ae.features.PartOfSpeechFeaturesExtractor;
 import org.apache.ctakes.relationextractor.ae.features.RelationFeaturesExtractor;
 import org.apache.ctakes.temporal.ae.feature.*;
+import org.apache.ctakes.temporal.utils.SentenceMentionIndex;
 import org.apache.ctakes.typesystem.type.relation.BinaryTextRelation;
 import org.apache.ctakes.typesystem.type.relation.RelationArgument;
 import org.apache.ctakes.typesystem.type.relation.TemporalTextRelation;
@@ -15,6 +16,7 @@ import org.apache.ctakes.typesystem.type.textsem.TimeMention;
 import org.apache.ctakes.typesystem.type.textspan.Segment;
 import org.apache.ctakes.typesystem.type.textspan.Sentence;
 import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
 import org.apache.uima.fit.factory.AnalysisEngineFactory;
 import org.apache.uima.fit.util.JCasUtil;
 import org.apache.uima.jcas.JCas;
@@ -87,6 +89,15 @@ public class ConsecutiveSentencesEventTimeRelationAnnotator extends RelationExtr
 				);
 	}
 
+	@Override
+	public void process(JCas jCas) throws AnalysisEngineProcessException {
+		try {
+			super.process(jCas);
+		} finally {
+			SentenceMentionIndex.release();
+		}
+	}
+
 	@Override
 	protected Class<? extends Annotation> getCoveringClass() {
 		return DocumentAnnotation.class;
@@ -122,7 +133,7 @@ public class ConsecutiveSentencesEventTimeRelationAnnotator extends RelationExtr
 					consecutiveSents.addAll(sents);
 				}
 				for(Sentence sent : consecutiveSents){
-					List<EventMention> events = new ArrayList<>(JCasUtil.selectCovered(jCas, EventMention.class, sent));
+					List<EventMention> events = new ArrayList<>(SentenceMentionIndex.selectCovered(jCas, EventMention.class, sent));
 					//filter events:
 					List<EventMention> realEvents = Lists.newArrayList();
 					for( EventMention event : events){
@@ -10,6 +10,7 @@ import java.util.Map;
 import org.apache.ctakes.core.pipeline.PipeBitInfo;
 import org.apache.ctakes.temporal.ae.TemporalRelationExtractorAnnotator.IdentifiedAnnotationPair;
 import org.apache.ctakes.temporal.nn.data.ArgContextProvider;
+import org.apache.ctakes.temporal.utils.SentenceMentionIndex;
 import org.apache.ctakes.typesystem.type.relation.BinaryTextRelation;
 import org.apache.ctakes.typesystem.type.relation.RelationArgument;
 import org.apache.ctakes.typesystem.type.relation.TemporalTextRelation;
@@ -40,88 +41,91 @@ public class EventEventCNNAnnotator extends CleartkAnnotator<String> {
 
 	@Override
 	public void process(JCas jCas) throws AnalysisEngineProcessException {
+		try {
+	//		Map<EventMention, Collection<EventMention>> coveringMap =
+	//				JCasUtil.indexCovering(jCas, EventMention.class, EventMention.class);
 
-//		Map<EventMention, Collection<EventMention>> coveringMap =
-//				JCasUtil.indexCovering(jCas, EventMention.class, EventMention.class);
-
-		//get all gold relation lookup
-		Map<List<Annotation>, BinaryTextRelation> relationLookup;
-		relationLookup = new HashMap<>();
-		if (this.isTraining()) {
+			//get all gold relation lookup
+			Map<List<Annotation>, BinaryTextRelation> relationLookup;
 			relationLookup = new HashMap<>();
-			for (BinaryTextRelation relation : JCasUtil.select(jCas, BinaryTextRelation.class)) {
-				Annotation arg1 = relation.getArg1().getArgument();
-				Annotation arg2 = relation.getArg2().getArgument();
-				// The key is a list of args so we can do bi-directional lookup
-				List<Annotation> key = Arrays.asList(arg1, arg2);
-				if(relationLookup.containsKey(key)){
-					String reln = relationLookup.get(key).getCategory();
-					System.err.println("Error in: "+ ViewUriUtil.getURI(jCas).toString());
-					System.err.println("Error! This attempted relation " + relation.getCategory() + " already has a relation " + reln + " at this span: " + arg1.getCoveredText() + " -- " + arg2.getCoveredText());
-				}else{
-					relationLookup.put(key, relation);
+			if (this.isTraining()) {
+				relationLookup = new HashMap<>();
+				for (BinaryTextRelation relation : JCasUtil.select(jCas, BinaryTextRelation.class)) {
+					Annotation arg1 = relation.getArg1().getArgument();
+					Annotation arg2 = relation.getArg2().getArgument();
+					// The key is a list of args so we can do bi-directional lookup
+					List<Annotation> key = Arrays.asList(arg1, arg2);
+					if(relationLookup.containsKey(key)){
+						String reln = relationLookup.get(key).getCategory();
+						System.err.println("Error in: "+ ViewUriUtil.getURI(jCas).toString());
+						System.err.println("Error! This attempted relation " + relation.getCategory() + " already has a relation " + reln + " at this span: " + arg1.getCoveredText() + " -- " + arg2.getCoveredText());
+					}else{
+						relationLookup.put(key, relation);
+					}
 				}
 			}
-		}
-
-		// go over sentences, extracting event-time relation instances
-		for(Sentence sentence : JCasUtil.select(jCas, Sentence.class)) {
-			// collect all relevant relation arguments from the sentence
-			List<IdentifiedAnnotationPair> candidatePairs =
-					getCandidateRelationArgumentPairs(jCas, sentence);
-
-			// walk through the pairs of annotations
-			for (IdentifiedAnnotationPair pair : candidatePairs) {
-				IdentifiedAnnotation arg1 = pair.getArg1();
-				IdentifiedAnnotation arg2 = pair.getArg2();
-
-				String context;
-				if(arg2.getBegin() < arg1.getBegin()) {
-					// ... time ... event ... scenario
-					context = ArgContextProvider.getTokenContext(jCas, sentence, arg2, "e", arg1, "e", 5); 
-//					context = getTokensBetweenExpanded(jCas, sentence, arg2, "e", arg1, "e", 5, coveringMap);
-				} else {
-					// ... event ... time ... scenario
-					context = ArgContextProvider.getTokenContext(jCas, sentence, arg1, "e", arg2, "e", 5);
-//					context = getTokensBetweenExpanded(jCas, sentence, arg1, "e", arg2, "e", 5, coveringMap);
-				}
 
-				//derive features based on context:
-				List<Feature> feats = new ArrayList<>();
-				String[] tokens = context.split(" ");
-				for (String token: tokens){
-					feats.add(new Feature(token.toLowerCase()));
-				}
+			// go over sentences, extracting event-time relation instances
+			for(Sentence sentence : JCasUtil.select(jCas, Sentence.class)) {
+				// collect all relevant relation arguments from the sentence
+				List<IdentifiedAnnotationPair> candidatePairs =
+						getCandidateRelationArgumentPairs(jCas, sentence);
+
+				// walk through the pairs of annotations
+				for (IdentifiedAnnotationPair pair : candidatePairs) {
+					IdentifiedAnnotation arg1 = pair.getArg1();
+					IdentifiedAnnotation arg2 = pair.getArg2();
+
+					String context;
+					if(arg2.getBegin() < arg1.getBegin()) {
+						// ... time ... event ... scenario
+						context = ArgContextProvider.getTokenContext(jCas, sentence, arg2, "e", arg1, "e", 5); 
+	//					context = getTokensBetweenExpanded(jCas, sentence, arg2, "e", arg1, "e", 5, coveringMap);
+					} else {
+						// ... event ... time ... scenario
+						context = ArgContextProvider.getTokenContext(jCas, sentence, arg1, "e", arg2, "e", 5);
+	//					context = getTokensBetweenExpanded(jCas, sentence, arg1, "e", arg2, "e", 5, coveringMap);
+					}
 
-				// during training, feed the features to the data writer
-				if (this.isTraining()) {
-					String category = getRelationCategory(relationLookup, arg1, arg2);
-					if (category == null) {
-						category = NO_RELATION_CATEGORY;
-					}else{
-						category = category.toLowerCase();
+					//derive features based on context:
+					List<Feature> feats = new ArrayList<>();
+					String[] tokens = context.split(" ");
+					for (String token: tokens){
+						feats.add(new Feature(token.toLowerCase()));
 					}
-					this.dataWriter.write(new Instance<>(category, feats));
-				}else {
-					String predictedCategory = this.classifier.classify(feats);
-
-					// add a relation annotation if a true relation was predicted
-					if (predictedCategory != null && !predictedCategory.equals(NO_RELATION_CATEGORY)) {
-
-						// if we predict an inverted relation, reverse the order of the
-						// arguments
-						if (predictedCategory.endsWith("-1")) {
-							predictedCategory = predictedCategory.substring(0, predictedCategory.length() - 2);
-							IdentifiedAnnotation temp = arg1;
-							arg1 = arg2;
-							arg2 = temp;
-						}
 
-						createRelation(jCas, arg1, arg2, predictedCategory.toUpperCase(), 0.0);
+					// during training, feed the features to the data writer
+					if (this.isTraining()) {
+						String category = getRelationCategory(relationLookup, arg1, arg2);
+						if (category == null) {
+							category = NO_RELATION_CATEGORY;
+						}else{
+							category = category.toLowerCase();
+						}
+						this.dataWriter.write(new Instance<>(category, feats));
+					}else {
+						String predictedCategory = this.classifier.classify(feats);
+
+						// add a relation annotation if a true relation was predicted
+						if (predictedCategory != null && !predictedCategory.equals(NO_RELATION_CATEGORY)) {
+
+							// if we predict an inverted relation, reverse the order of the
+							// arguments
+							if (predictedCategory.endsWith("-1")) {
+								predictedCategory = predictedCategory.substring(0, predictedCategory.length() - 2);
+								IdentifiedAnnotation temp = arg1;
+								arg1 = arg2;
+								arg2 = temp;
+							}
+
+							createRelation(jCas, arg1, arg2, predictedCategory.toUpperCase(), 0.0);
+						}
 					}
 				}
-			}
 
+			}
+		} finally {
+			SentenceMentionIndex.release();
 		}
 	}
 
@@ -319,7 +323,7 @@ public class EventEventCNNAnnotator extends CleartkAnnotator<String> {
 //				JCasUtil.indexCovering(jCas, EventMention.class, EventMention.class);
 
 		List<IdentifiedAnnotationPair> pairs = Lists.newArrayList();
-		List<EventMention> events = new ArrayList<>(JCasUtil.selectCovered(jCas, EventMention.class, sentence));
+		List<EventMention> events = new ArrayList<>(SentenceMentionIndex.selectCovered(jCas, EventMention.class, sentence));
 		//filter events:
 		List<EventMention> realEvents = Lists.newArrayList();
 		for( EventMention event : events){
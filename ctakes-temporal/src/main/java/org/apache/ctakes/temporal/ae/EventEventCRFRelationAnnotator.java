@@ -62,6 +62,7 @@ import org.apache.ctakes.temporal.ae.feature.UmlsFeatureExtractor;
 import org.apache.ctakes.temporal.ae.feature.UnexpandedTokenFeaturesExtractor;
 //import org.apache.ctakes.temporal.ae.feature.UnexpandedTokenFeaturesExtractor;
 //import org.apache.ctakes.temporal.ae.feature.treekernel.TemporalPETExtractor;
+import org.apache.ctakes.temporal.utils.SentenceMentionIndex;
 import org.apache.ctakes.typesystem.type.relation.BinaryTextRelation;
 import org.apache.ctakes.typesystem.type.relation.RelationArgument;
 import org.apache.ctakes.typesystem.type.relation.TemporalTextRelation;
@@ -179,6 +180,15 @@ public class EventEventCRFRelationAnnotator extends TemporalSequenceAnnotator_Im
 	}
 
 
+	@Override
+	public void process(JCas jCas) throws AnalysisEngineProcessException {
+		try {
+			super.process(jCas);
+		} finally {
+			SentenceMentionIndex.release();
+		}
+	}
+
 	@Override
 	public void process(JCas jCas, Segment segment)
 			throws AnalysisEngineProcessException {
@@ -203,7 +213,7 @@ public class EventEventCRFRelationAnnotator extends TemporalSequenceAnnotator_Im
 		for (Sentence sentence : JCasUtil.selectCovered(jCas, Sentence.class, segment)) {
 			List<IdentifiedAnnotationPair> pairs = Lists.newArrayList();
 			
-			List<EventMention> events = new ArrayList<>(JCasUtil.selectCovered(jCas, EventMention.class, sentence));
+			List<EventMention> events = new ArrayList<>(SentenceMentionIndex.selectCovered(jCas, EventMention.class, sentence));
 			//filter events:
 			List<EventMention> realEvents = Lists.newArrayList();
 			for( EventMention event : events){
@@ -57,6 +57,7 @@ import org.apache.ctakes.temporal.ae.feature.SectionHeaderRelationExtractor;
 import org.apache.ctakes.temporal.ae.feature.UmlsFeatureExtractor;
 import org.apache.ctakes.temporal.ae.feature.UnexpandedTokenFeaturesExtractor;
 //import org.apache.ctakes.temporal.ae.feature.treekernel.TemporalPETExtractor;
+import org.apache.ctakes.temporal.utils.SentenceMentionIndex;
 import org.apache.ctakes.typesystem.type.relation.BinaryTextRelation;
 import org.apache.ctakes.typesystem.type.relation.RelationArgument;
 import org.apache.ctakes.typesystem.type.relation.TemporalTextRelation;
@@ -66,6 +67,7 @@ import org.apache.ctakes.typesystem.type.textsem.EventMention;
 import org.apache.ctakes.typesystem.type.textsem.IdentifiedAnnotation;
 import org.apache.ctakes.typesystem.type.textspan.Sentence;
 import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
 import org.apache.uima.jcas.JCas;
 import org.apache.uima.jcas.tcas.Annotation;
 import org.apache.uima.resource.ResourceInitializationException;
@@ -163,6 +165,15 @@ public class EventEventI2B2RelationAnnotator extends RelationExtractorAnnotator
 				);
 	}
 
+	@Override
+	public void process(JCas jCas) throws AnalysisEngineProcessException {
+		try {
+			super.process(jCas);
+		} finally {
+			SentenceMentionIndex.release();
+		}
+	}
+
 	@Override
 	protected Class<? extends Annotation> getCoveringClass() {
 		return Sentence.class;
@@ -176,7 +187,7 @@ public class EventEventI2B2RelationAnnotator extends RelationExtractorAnnotator
 				JCasUtil.indexCovering(jCas, EventMention.class, EventMention.class);
 
 		List<IdentifiedAnnotationPair> pairs = Lists.newArrayList();
-		List<EventMention> events = new ArrayList<>(JCasUtil.selectCovered(jCas, EventMention.class, sentence));
+		List<EventMention> events = new ArrayList<>(SentenceMentionIndex.selectCovered(jCas, EventMention.class, sentence));
 		//filter events:
 		List<EventMention> realEvents = Lists.newArrayList();
 		for( EventMention event : events){
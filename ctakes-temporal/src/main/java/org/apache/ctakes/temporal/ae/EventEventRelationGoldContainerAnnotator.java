@@ -63,6 +63,7 @@ import org.apache.ctakes.temporal.ae.feature.UmlsFeatureExtractor;
 import org.apache.ctakes.temporal.ae.feature.UnexpandedTokenFeaturesExtractor;
 //import org.apache.ctakes.temporal.ae.feature.UnexpandedTokenFeaturesExtractor;
 //import org.apache.ctakes.temporal.ae.feature.treekernel.TemporalPETExtractor;
+import org.apache.ctakes.temporal.utils.SentenceMentionIndex;
 import org.apache.ctakes.typesystem.type.relation.BinaryTextRelation;
 import org.apache.ctakes.typesystem.type.relation.RelationArgument;
 import org.apache.ctakes.typesystem.type.relation.TemporalTextRelation;
@@ -181,6 +182,15 @@ public class EventEventRelationGoldContainerAnnotator extends RelationExtractorA
 				);
 	}
 
+	@Override
+	public void process(JCas jCas) throws AnalysisEngineProcessException {
+		try {
+			super.process(jCas);
+		} finally {
+			SentenceMentionIndex.release();
+		}
+	}
+
 	@Override
 	protected Class<? extends Annotation> getCoveringClass() {
 		return Sentence.class;
@@ -200,7 +210,7 @@ public class EventEventRelationGoldContainerAnnotator extends RelationExtractorA
 
 		List<IdentifiedAnnotationPair> pairs = Lists.newArrayList();
 		
-		List<EventMention> events = new ArrayList<>(JCasUtil.selectCovered(jCas, EventMention.class, sentence));
+		List<EventMention> events = new ArrayList<>(SentenceMentionIndex.selectCovered(jCas, EventMention.class, sentence));
 		//filter events:
 		List<EventMention> realEvents = Lists.newArrayList();
 		for( EventMention event : events){
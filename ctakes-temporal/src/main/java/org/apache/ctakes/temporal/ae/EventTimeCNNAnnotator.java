@@ -9,6 +9,7 @@ import java.util.Map;
 
 import org.apache.ctakes.core.pipeline.PipeBitInfo;
 import org.apache.ctakes.temporal.ae.TemporalRelationExtractorAnnotator.IdentifiedAnnotationPair;
+import org.apache.ctakes.temporal.utils.SentenceMentionIndex;
 import org.apache.ctakes.typesystem.type.relation.BinaryTextRelation;
 import org.apache.ctakes.typesystem.type.relation.RelationArgument;
 import org.apache.ctakes.typesystem.type.relation.TemporalTextRelation;
@@ -44,98 +45,102 @@ public class EventTimeCNNAnnotator extends CleartkAnnotator<String> {
 
 	@Override
 	public void process(JCas jCas) throws AnalysisEngineProcessException {
+		try {
 		
-		Map<EventMention, Collection<EventMention>> coveringMap =
-				JCasUtil.indexCovering(jCas, EventMention.class, EventMention.class);
+			Map<EventMention, Collection<EventMention>> coveringMap =
+					JCasUtil.indexCovering(jCas, EventMention.class, EventMention.class);
 		
-		//get all gold relation lookup
-		Map<List<Annotation>, BinaryTextRelation> relationLookup;
-		relationLookup = new HashMap<>();
-		if (this.isTraining()) {
+			//get all gold relation lookup
+			Map<List<Annotation>, BinaryTextRelation> relationLookup;
 			relationLookup = new HashMap<>();
-			for (BinaryTextRelation relation : JCasUtil.select(jCas, BinaryTextRelation.class)) {
-				Annotation arg1 = relation.getArg1().getArgument();
-				Annotation arg2 = relation.getArg2().getArgument();
-				// The key is a list of args so we can do bi-directional lookup
-				List<Annotation> key = Arrays.asList(arg1, arg2);
-				if(relationLookup.containsKey(key)){
-					String reln = relationLookup.get(key).getCategory();
-					System.err.println("Error in: "+ ViewUriUtil.getURI(jCas).toString());
-					System.err.println("Error! This attempted relation " + relation.getCategory() + " already has a relation " + reln + " at this span: " + arg1.getCoveredText() + " -- " + arg2.getCoveredText());
-				}else{
-					relationLookup.put(key, relation);
-				}
-			}
-		}
-
-		// go over sentences, extracting event-time relation instances
-		for(Sentence sentence : JCasUtil.select(jCas, Sentence.class)) {
-			// collect all relevant relation arguments from the sentence
-			List<IdentifiedAnnotationPair> candidatePairs =
-					getCandidateRelationArgumentPairs(jCas, sentence);
-
-			// walk through the pairs of annotations
-			for (IdentifiedAnnotationPair pair : candidatePairs) {
-				IdentifiedAnnotation arg1 = pair.getArg1();
-				IdentifiedAnnotation arg2 = pair.getArg2();
-
-				String context;
-				if(arg2.getBegin() < arg1.getBegin()) {
-					// ... time ... event ... scenario
-//					context = eventTimeRelationPrinter.getTokensBetween(jCas, sentence, arg2, "t", arg1, "e", 5); 
-					context = getTokensBetweenExpanded(jCas, sentence, arg2, "t", arg1, "e", 5, coveringMap);
-				} else {
-					// ... event ... time ... scenario
-//					context = eventTimeRelationPrinter.getTokensBetween(jCas, sentence, arg1, "e", arg2, "t", 5);
-					context = getTokensBetweenExpanded(jCas, sentence, arg1, "e", arg2, "t", 5, coveringMap);
-				}
-
-				//derive features based on context:
-				List<Feature> feats = new ArrayList<>();
-				String[] tokens = context.split(" ");
-				for (String token: tokens){
-					feats.add(new Feature(token.toLowerCase()));
-				}
-
-				// during training, feed the features to the data writer
-				if (this.isTraining()) {
-					String category = getRelationCategory(relationLookup, arg1, arg2);
-					if (category == null) {
-						category = NO_RELATION_CATEGORY;
+			if (this.isTraining()) {
+				relationLookup = new HashMap<>();
+				for (BinaryTextRelation relation : JCasUtil.select(jCas, BinaryTextRelation.class)) {
+					Annotation arg1 = relation.getArg1().getArgument();
+					Annotation arg2 = relation.getArg2().getArgument();
+					// The key is a list of args so we can do bi-directional lookup
+					List<Annotation> key = Arrays.asList(arg1, arg2);
+					if(relationLookup.containsKey(key)){
+						String reln = relationLookup.get(key).getCategory();
+						System.err.println("Error in: "+ ViewUriUtil.getURI(jCas).toString());
+						System.err.println("Error! This attempted relation " + relation.getCategory() + " already has a relation " + reln + " at this span: " + arg1.getCoveredText() + " -- " + arg2.getCoveredText());
 					}else{
-						category = category.toLowerCase();
+						relationLookup.put(key, relation);
 					}
-					this.dataWriter.write(new Instance<>(category, feats));
 				}
+			}
 
-				// during classification feed the features to the classifier and create annotations
-				else {
-					String predictedCategory = this.classifier.classify(feats);
+			// go over sentences, extracting event-time relation instances
+			for(Sentence sentence : JCasUtil.select(jCas, Sentence.class)) {
+				// collect all relevant relation arguments from the sentence
+				List<IdentifiedAnnotationPair> candidatePairs =
+						getCandidateRelationArgumentPairs(jCas, sentence);
+
+				// walk through the pairs of annotations
+				for (IdentifiedAnnotationPair pair : candidatePairs) {
+					IdentifiedAnnotation arg1 = pair.getArg1();
+					IdentifiedAnnotation arg2 = pair.getArg2();
+
+					String context;
+					if(arg2.getBegin() < arg1.getBegin()) {
+						// ... time ... event ... scenario
+	//					context = eventTimeRelationPrinter.getTokensBetween(jCas, sentence, arg2, "t", arg1, "e", 5); 
+						context = getTokensBetweenExpanded(jCas, sentence, arg2, "t", arg1, "e", 5, coveringMap);
+					} else {
+						// ... event ... time ... scenario
+	//					context = eventTimeRelationPrinter.getTokensBetween(jCas, sentence, arg1, "e", arg2, "t", 5);
+						context = getTokensBetweenExpanded(jCas, sentence, arg1, "e", arg2, "t", 5, coveringMap);
+					}
 
-					// add a relation annotation if a true relation was predicted
-					if (predictedCategory != null && !predictedCategory.equals(NO_RELATION_CATEGORY)) {
+					//derive features based on context:
+					List<Feature> feats = new ArrayList<>();
+					String[] tokens = context.split(" ");
+					for (String token: tokens){
+						feats.add(new Feature(token.toLowerCase()));
+					}
 
-						// if we predict an inverted relation, reverse the order of the arguments
-						if (predictedCategory.endsWith("-1")) {
-							predictedCategory = predictedCategory.substring(0, predictedCategory.length() - 2);
-							if(arg1 instanceof TimeMention){
-								IdentifiedAnnotation temp = arg1;
-								arg1 = arg2;
-								arg2 = temp;
-							}
+					// during training, feed the features to the data writer
+					if (this.isTraining()) {
+						String category = getRelationCategory(relationLookup, arg1, arg2);
+						if (category == null) {
+							category = NO_RELATION_CATEGORY;
 						}else{
-							if(arg1 instanceof EventMention){
-								IdentifiedAnnotation temp = arg1;
-								arg1 = arg2;
-								arg2 = temp;
-							}
+							category = category.toLowerCase();
 						}
+						this.dataWriter.write(new Instance<>(category, feats));
+					}
 
-						createRelation(jCas, arg1, arg2, predictedCategory.toUpperCase(), 0.0);
+					// during classification feed the features to the classifier and create annotations
+					else {
+						String predictedCategory = this.classifier.classify(feats);
+
+						// add a relation annotation if a true relation was predicted
+						if (predictedCategory != null && !predictedCategory.equals(NO_RELATION_CATEGORY)) {
+
+							// if we predict an inverted relation, reverse the order of the arguments
+							if (predictedCategory.endsWith("-1")) {
+								predictedCategory = predictedCategory.substring(0, predictedCategory.length() - 2);
+								if(arg1 instanceof TimeMention){
+									IdentifiedAnnotation temp = arg1;
+									arg1 = arg2;
+									arg2 = temp;
+								}
+							}else{
+								if(arg1 instanceof EventMention){
+									IdentifiedAnnotation temp = arg1;
+									arg1 = arg2;
+									arg2 = temp;
+								}
+							}
+
+							createRelation(jCas, arg1, arg2, predictedCategory.toUpperCase(), 0.0);
+						}
 					}
 				}
-			}
 
+			}
+		} finally {
+			SentenceMentionIndex.release();
 		}
 	}
 
@@ -323,7 +328,7 @@ public class EventTimeCNNAnnotator extends CleartkAnnotator<String> {
 				JCasUtil.indexCovering(jCas, EventMention.class, EventMention.class);
 
 		List<IdentifiedAnnotationPair> pairs = Lists.newArrayList();
-		for (EventMention event : JCasUtil.selectCovered(jCas, EventMention.class, sentence)) {
+		for (EventMention event : SentenceMentionIndex.selectCovered(jCas, EventMention.class, sentence)) {
 			boolean eventValid = false;
 			if (event.getClass().equals(EventMention.class)) {//event is a gold event
 				eventValid = true;
@@ -332,7 +337,7 @@ public class EventTimeCNNAnnotator extends CleartkAnnotator<String> {
 			if(eventValid){
 				// ignore subclasses like Procedure and Disease/Disorder
 				if(this.isTraining()){//if training mode, train on both gold event and span-overlapping system events
-					for (TimeMention time : JCasUtil.selectCovered(jCas, TimeMention.class, sentence)) {
+					for (TimeMention time : SentenceMentionIndex.selectCovered(jCas, TimeMention.class, sentence)) {
 
 						Collection<EventMention> eventList = coveringMap.get(event);
 						for(EventMention covEvent : eventList){
@@ -341,7 +346,7 @@ public class EventTimeCNNAnnotator extends CleartkAnnotator<String> {
 						pairs.add(new IdentifiedAnnotationPair(event, time));
 					}
 				}else{//if testing mode, only test on system generated events
-					for (TimeMention time : JCasUtil.selectCovered(jCas, TimeMention.class, sentence)) {
+					for (TimeMention time : SentenceMentionIndex.selectCovered(jCas, TimeMention.class, sentence)) {
 						pairs.add(new IdentifiedAnnotationPair(event, time));
 					}
 				}
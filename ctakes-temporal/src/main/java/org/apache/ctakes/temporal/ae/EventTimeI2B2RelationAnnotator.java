@@ -53,6 +53,7 @@ import org.apache.ctakes.temporal.ae.feature.UnexpandedTokenFeaturesExtractor;
 //import org.apache.ctakes.temporal.ae.feature.treekernel.EventVerbRelationTreeExtractor;
 //import org.apache.ctakes.temporal.ae.feature.treekernel.TemporalPETExtractor;
 //import org.apache.ctakes.temporal.ae.feature.treekernel.TemporalPathExtractor;
+import org.apache.ctakes.temporal.utils.SentenceMentionIndex;
 import org.apache.ctakes.typesystem.type.relation.BinaryTextRelation;
 import org.apache.ctakes.typesystem.type.relation.RelationArgument;
 import org.apache.ctakes.typesystem.type.relation.TemporalTextRelation;
@@ -61,6 +62,7 @@ import org.apache.ctakes.typesystem.type.textsem.IdentifiedAnnotation;
 import org.apache.ctakes.typesystem.type.textsem.TimeMention;
 import org.apache.ctakes.typesystem.type.textspan.Sentence;
 import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
 import org.apache.uima.jcas.JCas;
 import org.apache.uima.jcas.tcas.Annotation;
 import org.apache.uima.resource.ResourceInitializationException;
@@ -157,6 +159,15 @@ public class EventTimeI2B2RelationAnnotator extends RelationExtractorAnnotator {
 				);
 	}
 
+	@Override
+	public void process(JCas jCas) throws AnalysisEngineProcessException {
+		try {
+			super.process(jCas);
+		} finally {
+			SentenceMentionIndex.release();
+		}
+	}
+
 	@Override
 	protected Class<? extends Annotation> getCoveringClass() {
 		return Sentence.class;
@@ -170,7 +181,7 @@ public class EventTimeI2B2RelationAnnotator extends RelationExtractorAnnotator {
 				JCasUtil.indexCovering(jCas, EventMention.class, EventMention.class);
 
 		List<IdentifiedAnnotationPair> pairs = Lists.newArrayList();
-		for (EventMention event : JCasUtil.selectCovered(jCas, EventMention.class, sentence)) {
+		for (EventMention event : SentenceMentionIndex.selectCovered(jCas, EventMention.class, sentence)) {
 			boolean eventValid = false;
 			if (event.getClass().equals(EventMention.class)) {//event is a gold event
 				eventValid = true;
@@ -179,7 +190,7 @@ public class EventTimeI2B2RelationAnnotator extends RelationExtractorAnnotator {
 			if(eventValid){
 				// ignore subclasses like Procedure and Disease/Disorder
 				if(this.isTraining()){//if training mode, train on both gold event and span-overlapping system events
-					for (TimeMention time : JCasUtil.selectCovered(jCas, TimeMention.class, sentence)) {
+					for (TimeMention time : SentenceMentionIndex.selectCovered(jCas, TimeMention.class, sentence)) {
 //						Collection<EventMention> eventList = coveringMap.get(event);
 //						for(EventMention covEvent : eventList){
 //							pairs.add(new IdentifiedAnnotationPair(covEvent, time));
@@ -190,7 +201,7 @@ public class EventTimeI2B2RelationAnnotator extends RelationExtractorAnnotator {
 //						}
 					}
 				}else{//if testing mode, only test on system generated events
-					for (TimeMention time : JCasUtil.selectCovered(jCas, TimeMention.class, sentence)) {
+					for (TimeMention time : SentenceMentionIndex.selectCovered(jCas, TimeMention.class, sentence)) {
 						pairs.add(new IdentifiedAnnotationPair(event, time));
 					}
 				}
@@ -26,6 +26,7 @@ import org.apache.ctakes.relationextractor.ae.features.PartOfSpeechFeaturesExtra
 import org.apache.ctakes.relationextractor.ae.features.RelationFeaturesExtractor;
 import org.apache.ctakes.relationextractor.ae.features.TokenFeaturesExtractor;
 import org.apache.ctakes.temporal.ae.feature.*;
+import org.apache.ctakes.temporal.utils.SentenceMentionIndex;
 import org.apache.ctakes.typesystem.type.relation.BinaryTextRelation;
 import org.apache.ctakes.typesystem.type.relation.RelationArgument;
 import org.apache.ctakes.typesystem.type.relation.TemporalTextRelation;
@@ -36,6 +37,7 @@ import org.apache.ctakes.typesystem.type.textspan.Sentence;
 import org.apache.log4j.Logger;
 import org.apache.uima.UimaContext;
 import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
 import org.apache.uima.fit.factory.AnalysisEngineFactory;
 import org.apache.uima.fit.util.JCasUtil;
 import org.apache.uima.jcas.JCas;
@@ -162,6 +164,15 @@ public class EventTimeRelationAnnotator extends RelationExtractorAnnotator {
 				);
 	}
 
+	@Override
+	public void process(JCas jCas) throws AnalysisEngineProcessException {
+		try {
+			super.process(jCas);
+		} finally {
+			SentenceMentionIndex.release();
+		}
+	}
+
 	@Override
 	protected Class<? extends Annotation> getCoveringClass() {
 		return Sentence.class;
@@ -172,7 +183,7 @@ public class EventTimeRelationAnnotator extends RelationExtractorAnnotator {
 			JCas jCas,
 			Annotation sentence) {
 		List<IdentifiedAnnotationPair> pairs = Lists.newArrayList();
-		for (EventMention event : JCasUtil.selectCovered(jCas, EventMention.class, sentence)) {
+		for (EventMention event : SentenceMentionIndex.selectCovered(jCas, EventMention.class, sentence)) {
 			// ignore subclasses like Procedure and Disease/Disorder
 			if (event.getClass().equals(EventMention.class)) {
 //				boolean eventValid = false;
@@ -183,7 +194,7 @@ public class EventTimeRelationAnnotator extends RelationExtractorAnnotator {
 //					}
 //				}
 //				if(eventValid){
-					for (TimeMention time : JCasUtil.selectCovered(jCas, TimeMention.class, sentence)) {
+					for (TimeMention time : SentenceMentionIndex.selectCovered(jCas, TimeMention.class, sentence)) {
 						pairs.add(new IdentifiedAnnotationPair(event, time));
 					}
 //				}
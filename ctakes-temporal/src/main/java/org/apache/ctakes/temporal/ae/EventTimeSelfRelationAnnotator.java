@@ -60,6 +60,7 @@ import org.apache.ctakes.temporal.ae.feature.UnexpandedTokenFeaturesExtractor;
 //import org.apache.ctakes.temporal.ae.feature.treekernel.EventVerbRelationTreeExtractor;
 //import org.apache.ctakes.temporal.ae.feature.treekernel.TemporalPETExtractor;
 //import org.apache.ctakes.temporal.ae.feature.treekernel.TemporalPathExtractor;
+import org.apache.ctakes.temporal.utils.SentenceMentionIndex;
 import org.apache.ctakes.typesystem.type.relation.BinaryTextRelation;
 import org.apache.ctakes.typesystem.type.relation.RelationArgument;
 import org.apache.ctakes.typesystem.type.relation.TemporalTextRelation;
@@ -184,7 +185,7 @@ public class EventTimeSelfRelationAnnotator extends TemporalRelationExtractorAnn
 				JCasUtil.indexCovering(jCas, EventMention.class, EventMention.class);
 
 		List<IdentifiedAnnotationPair> pairs = Lists.newArrayList();
-		for (EventMention event : JCasUtil.selectCovered(jCas, EventMention.class, sentence)) {
+		for (EventMention event : SentenceMentionIndex.selectCovered(jCas, EventMention.class, sentence)) {
 			boolean eventValid = false;
 			if (event.getClass().equals(EventMention.class)) {//event is a gold event
 //				for( EventMention aEve : JCasUtil.selectCovered(jCas, EventMention.class, event)){
@@ -198,7 +199,7 @@ public class EventTimeSelfRelationAnnotator extends TemporalRelationExtractorAnn
 			if(eventValid){
 				// ignore subclasses like Procedure and Disease/Disorder
 				if(this.isTraining()){//if training mode, train on both gold event and span-overlapping system events
-					for (TimeMention time : JCasUtil.selectCovered(jCas, TimeMention.class, sentence)) {
+					for (TimeMention time : SentenceMentionIndex.selectCovered(jCas, TimeMention.class, sentence)) {
 						
 						Collection<EventMention> eventList = coveringMap.get(event);
 						for(EventMention covEvent : eventList){
@@ -207,7 +208,7 @@ public class EventTimeSelfRelationAnnotator extends TemporalRelationExtractorAnn
 						pairs.add(new IdentifiedAnnotationPair(event, time));
 					}
 				}else{//if testing mode, only test on system generated events
-					for (TimeMention time : JCasUtil.selectCovered(jCas, TimeMention.class, sentence)) {
+					for (TimeMention time : SentenceMentionIndex.selectCovered(jCas, TimeMention.class, sentence)) {
 						pairs.add(new IdentifiedAnnotationPair(event, time));
 					}
 				}
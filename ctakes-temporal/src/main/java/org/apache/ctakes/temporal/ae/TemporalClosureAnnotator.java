@@ -0,0 +1,140 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.temporal.ae;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
+import org.apache.ctakes.core.pipeline.PipeBitInfo;
+import org.apache.ctakes.temporal.utils.TemporalClosure;
+import org.apache.ctakes.typesystem.type.relation.BinaryTextRelation;
+import org.apache.ctakes.typesystem.type.relation.RelationArgument;
+import org.apache.log4j.Logger;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.fit.component.JCasAnnotator_ImplBase;
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.tcas.Annotation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Adds the temporal relations implied by the contains, overlap, before, begins-on and ends-on relations in the cas.
+ * Subclasses can close other categories by overriding {@link #validTemporalType(String)}.
+ * <p>
+ * Relations between the same two arguments are first reduced to one: all are removed if their types differ,
+ * all but one if they are the same.  The closure is then computed by {@link TemporalClosure}, and every inferred
+ * relation between two arguments that had none is added, except contained-by and after, whose reciprocals are added.
+ */
+@PipeBitInfo(
+      name = "TLink Closure Engine",
+      description = "Performs closure on Temporal Relations",
+      role = PipeBitInfo.Role.SPECIAL,
+      dependencies = { PipeBitInfo.TypeProduct.TEMPORAL_RELATION }
+)
+public class TemporalClosureAnnotator extends JCasAnnotator_ImplBase {
+
+   static private final Logger LOGGER = Logger.getLogger( "TemporalClosureAnnotator" );
+
+   @Override
+   public void process( final JCas jCas ) throws AnalysisEngineProcessException {
+      final Multimap<List<Annotation>, BinaryTextRelation> annotationsToRelation = HashMultimap.create();
+      for ( BinaryTextRelation relation : JCasUtil.select( jCas, BinaryTextRelation.class ) ) {
+         if ( validTemporalType( relation.getCategory() ) ) {
+            final Annotation arg1 = relation.getArg1().getArgument();
+            final Annotation arg2 = relation.getArg2().getArgument();
+            if ( arg1 == null || arg2 == null ) {
+               LOGGER.warn( "Ignoring " + relation.getCategory() + " relation with a null argument" );
+            } else {
+               annotationsToRelation.put( Arrays.asList( arg1, arg2 ), relation );
+            }
+         }
+      }
+      for ( List<Annotation> span : Lists.newArrayList( annotationsToRelation.keySet() ) ) {
+         final Collection<BinaryTextRelation> relations = annotationsToRelation.get( span );
+         if ( relations.size() > 1 ) {//if same span maps to multiple relations
+            final Set<String> types = Sets.newHashSet();
+            for ( BinaryTextRelation relation : relations ) {
+               types.add( relation.getCategory() );
+            }
+            if ( types.size() > 1 ) {
+               for ( BinaryTextRelation relation : Lists.newArrayList( relations ) ) {
+                  annotationsToRelation.remove( span, relation );
+                  removeRelation( relation );
+               }
+            } else if ( types.size() == 1 ) {
+               for ( int i = 1; i < relations.size(); i++ ) {
+                  final BinaryTextRelation relation = (BinaryTextRelation)relations.toArray()[ i ];
+                  annotationsToRelation.remove( span, relation );
+                  removeRelation( relation );
+               }
+            }
+         }
+      }
+      final List<BinaryTextRelation> temporalRelations = new ArrayList<>( annotationsToRelation.values() );
+      if ( temporalRelations.isEmpty() ) {
+         return;
+      }
+      final TemporalClosure closure = new TemporalClosure( temporalRelations );
+      int addedCount = 0;
+      for ( BinaryTextRelation relation : closure.getClosedTlinks( jCas ) ) {
+         final RelationArgument arg1 = relation.getArg1();
+         final RelationArgument arg2 = relation.getArg2();
+         final String relationType = relation.getCategory();
+         if ( relationType.equals( "CONTAINED-BY" ) || relationType.equals( "AFTER" ) ) {
+            // ignore these two categories, because their reciprocal already exist.
+            continue;
+         }
+         // only add an inferred relation between arguments that had none
+         if ( annotationsToRelation.get( Arrays.asList( arg1.getArgument(), arg2.getArgument() ) ).isEmpty() ) {
+            arg1.addToIndexes();
+            arg2.addToIndexes();
+            relation.addToIndexes();
+            addedCount++;
+         }
+      }
+      LOGGER.info( "Entities: " + closure.getEntityCount()
+                   + ", Marked TLinks: " + temporalRelations.size()
+                   + ", Closed TLinks: " + closure.getTlinkCount()
+                   + ", Conflicting Pairs: " + closure.getConflicts().size()
+                   + ", Added Closure Relations: " + addedCount );
+   }
+
+   static private void removeRelation( final BinaryTextRelation relation ) {
+      relation.getArg1().removeFromIndexes();
+      relation.getArg2().removeFromIndexes();
+      relation.removeFromIndexes();
+   }
+
+   /**
+    * @param relationType category of a relation in the cas
+    * @return true if relations of the category are closed
+    */
+   protected boolean validTemporalType( final String relationType ) {
+      return relationType.equals( "CONTAINS" ) || relationType.equals( "OVERLAP" )
+             || relationType.equals( "BEFORE" ) || relationType.equals( "ENDS-ON" )
+             || relationType.equals( "BEGINS-ON" );
+   }
+
+}
@@ -24,6 +24,7 @@ package org.apache.ctakes.temporal.ae;
 
 import com.google.common.collect.Lists;
 import org.apache.ctakes.relationextractor.ae.features.*;
+import org.apache.ctakes.temporal.utils.SentenceMentionIndex;
 import org.apache.ctakes.typesystem.type.relation.BinaryTextRelation;
 import org.apache.ctakes.typesystem.type.relation.RelationArgument;
 import org.apache.ctakes.typesystem.type.textsem.IdentifiedAnnotation;
@@ -167,143 +168,146 @@ public abstract class TemporalRelationExtractorAnnotator extends CleartkAnnotato
 	 */
 	@Override
 	public void process(JCas jCas) throws AnalysisEngineProcessException {
-
-		// lookup from pair of annotations to binary text relation
-		// note: assumes that there will be at most one relation per pair
-		Map<List<Annotation>, BinaryTextRelation> relationLookup;
-		relationLookup = new HashMap<>();
-		if (this.isTraining()) {
+		try {
+			// lookup from pair of annotations to binary text relation
+			// note: assumes that there will be at most one relation per pair
+			Map<List<Annotation>, BinaryTextRelation> relationLookup;
 			relationLookup = new HashMap<>();
-			for (BinaryTextRelation relation : JCasUtil.select(jCas, this.getRelationClass())) {
-				Annotation arg1 = relation.getArg1().getArgument();
-				Annotation arg2 = relation.getArg2().getArgument();
-				// The key is a list of args so we can do bi-directional lookup
-				List<Annotation> key = Arrays.asList(arg1, arg2);
-				if(relationLookup.containsKey(key)){
-					String reln = relationLookup.get(key).getCategory();
-					System.err.println("Error in: "+ ViewUriUtil.getURI(jCas).toString());
-					System.err.println("Error! This attempted relation " + relation.getCategory() + " already has a relation " + reln + " at this span: " + arg1.getCoveredText() + " -- " + arg2.getCoveredText());
+			if (this.isTraining()) {
+				relationLookup = new HashMap<>();
+				for (BinaryTextRelation relation : JCasUtil.select(jCas, this.getRelationClass())) {
+					Annotation arg1 = relation.getArg1().getArgument();
+					Annotation arg2 = relation.getArg2().getArgument();
+					// The key is a list of args so we can do bi-directional lookup
+					List<Annotation> key = Arrays.asList(arg1, arg2);
+					if(relationLookup.containsKey(key)){
+						String reln = relationLookup.get(key).getCategory();
+						System.err.println("Error in: "+ ViewUriUtil.getURI(jCas).toString());
+						System.err.println("Error! This attempted relation " + relation.getCategory() + " already has a relation " + reln + " at this span: " + arg1.getCoveredText() + " -- " + arg2.getCoveredText());
+					}
+					relationLookup.put(key, relation);
 				}
-				relationLookup.put(key, relation);
 			}
-		}
 
-		// walk through each sentence in the text
-		for (Annotation coveringAnnotation : JCasUtil.select(jCas, coveringClass)) {
-
-			// collect all relevant relation arguments from the sentence
-			List<IdentifiedAnnotationPair> candidatePairs =
-					this.getCandidateRelationArgumentPairs(jCas, coveringAnnotation);
-
-			// walk through the pairs of annotations
-			for (IdentifiedAnnotationPair pair : candidatePairs) {
-				IdentifiedAnnotation arg1 = pair.getArg1();
-				IdentifiedAnnotation arg2 = pair.getArg2();
-				// apply all the feature extractors to extract the list of features
-				List<Feature> features = new ArrayList<>();
-				for (RelationFeaturesExtractor<IdentifiedAnnotation,IdentifiedAnnotation> extractor : this.featureExtractors) {
-					List<Feature> feats = extractor.extract(jCas, arg1, arg2);
-					if (feats != null)  features.addAll(feats);
-				}
+			// walk through each sentence in the text
+			for (Annotation coveringAnnotation : JCasUtil.select(jCas, coveringClass)) {
+
+				// collect all relevant relation arguments from the sentence
+				List<IdentifiedAnnotationPair> candidatePairs =
+						this.getCandidateRelationArgumentPairs(jCas, coveringAnnotation);
+
+				// walk through the pairs of annotations
+				for (IdentifiedAnnotationPair pair : candidatePairs) {
+					IdentifiedAnnotation arg1 = pair.getArg1();
+					IdentifiedAnnotation arg2 = pair.getArg2();
+					// apply all the feature extractors to extract the list of features
+					List<Feature> features = new ArrayList<>();
+					for (RelationFeaturesExtractor<IdentifiedAnnotation,IdentifiedAnnotation> extractor : this.featureExtractors) {
+						List<Feature> feats = extractor.extract(jCas, arg1, arg2);
+						if (feats != null)  features.addAll(feats);
+					}
 
-				// sanity check on feature values
-				//List<Feature> transformedFeatures = new ArrayList<>();//for normalization
-				for (Feature feature : features) {
-					if (feature.getValue() == null) {
-						feature.setValue("NULL");
-						String message = String.format("Null value found in %s from %s", feature, features);
-						System.err.println(message);
-						//            throw new IllegalArgumentException(String.format(message, feature, features));
+					// sanity check on feature values
+					//List<Feature> transformedFeatures = new ArrayList<>();//for normalization
+					for (Feature feature : features) {
+						if (feature.getValue() == null) {
+							feature.setValue("NULL");
+							String message = String.format("Null value found in %s from %s", feature, features);
+							System.err.println(message);
+							//            throw new IllegalArgumentException(String.format(message, feature, features));
+						}
+						/**for normalization
+						//transform feature:
+						Object featureValue = feature.getValue();
+						if (this.featureTransformExtractor != null) {
+							if (featureValue instanceof Number) {
+								transformedFeatures.add(featureTransformExtractor.transform(feature));
+							}else{
+								transformedFeatures.add(feature);
+							}
+						}*/
 					}
+
 					/**for normalization
-					//transform feature:
-					Object featureValue = feature.getValue();
+					//transform features:
 					if (this.featureTransformExtractor != null) {
-						if (featureValue instanceof Number) {
-							transformedFeatures.add(featureTransformExtractor.transform(feature));
-						}else{
-							transformedFeatures.add(feature);
-						}
+						features = transformedFeatures;
 					}*/
-				}
-
-				/**for normalization
-				//transform features:
-				if (this.featureTransformExtractor != null) {
-					features = transformedFeatures;
-				}*/
-
-				// during training, feed the features to the data writer
-				if (this.isTraining()) {
-					String category = this.getRelationCategory(relationLookup, arg1, arg2);
-					if (category == null) {
-						continue;
-					}
-
-					//populate category_frequency count:
-					if(category_frequency.containsKey(category)){
-						category_frequency.put(category, category_frequency.get(category)+1);
-					}else{
-						category_frequency.put(category, 1);
-					}
-					// create a classification instance and write it to the training data
-					this.dataWriter.write(new Instance<>(category, features));
-				}
 
-				// during classification feed the features to the classifier and create
-				// annotations
-				else {
-					String predictedCategory = this.classify(features);
-					/**
-					Map<String,Double> scores = this.classifier.score(features);
-
-					Map.Entry<String, Double> maxEntry = null;
-					for( Map.Entry<String, Double> entry: scores.entrySet() ){
-						if(maxEntry == null || entry.getValue().compareTo(maxEntry.getValue()) > 0){
-							maxEntry = entry;
+					// during training, feed the features to the data writer
+					if (this.isTraining()) {
+						String category = this.getRelationCategory(relationLookup, arg1, arg2);
+						if (category == null) {
+							continue;
 						}
-					}
 
-					String predictedCategory = null;
-					double confidence = 0d;
-					if(maxEntry != null){
-						predictedCategory = maxEntry.getKey();
-						confidence = maxEntry.getValue().doubleValue();
+						//populate category_frequency count:
+						if(category_frequency.containsKey(category)){
+							category_frequency.put(category, category_frequency.get(category)+1);
+						}else{
+							category_frequency.put(category, 1);
+						}
+						// create a classification instance and write it to the training data
+						this.dataWriter.write(new Instance<>(category, features));
 					}
 
-					// before creating the final relation (and possibly flipping the order of arguments) 
-					// create the probabilistic copies in the other cas if that flag is set:
-					if(probViewname != null){
-						try {
-							JCas probView = jCas.getView(probViewname);
-							Map<String,Double> probs = SoftMaxUtil.getDistributionFromScores(scores);
-
-							for(String label : probs.keySet()){
-								createRelation(probView, arg1, arg2, label, probs.get(label));
+					// during classification feed the features to the classifier and create
+					// annotations
+					else {
+						String predictedCategory = this.classify(features);
+						/**
+						Map<String,Double> scores = this.classifier.score(features);
+
+						Map.Entry<String, Double> maxEntry = null;
+						for( Map.Entry<String, Double> entry: scores.entrySet() ){
+							if(maxEntry == null || entry.getValue().compareTo(maxEntry.getValue()) > 0){
+								maxEntry = entry;
 							}
-						} catch (CASException e) {
-							e.printStackTrace();
-							throw new AnalysisEngineProcessException(e);
 						}
-					}*/
 
-					// add a relation annotation if a true relation was predicted
-					if (predictedCategory != null && !predictedCategory.equals(NO_RELATION_CATEGORY)) {
-
-						// if we predict an inverted relation, reverse the order of the
-						// arguments
-						if (predictedCategory.endsWith("-1")) {
-							predictedCategory = predictedCategory.substring(0, predictedCategory.length() - 2);
-							IdentifiedAnnotation temp = arg1;
-							arg1 = arg2;
-							arg2 = temp;
+						String predictedCategory = null;
+						double confidence = 0d;
+						if(maxEntry != null){
+							predictedCategory = maxEntry.getKey();
+							confidence = maxEntry.getValue().doubleValue();
 						}
 
-						createRelation(jCas, arg1, arg2, predictedCategory, 0.0);
+						// before creating the final relation (and possibly flipping the order of arguments) 
+						// create the probabilistic copies in the other cas if that flag is set:
+						if(probViewname != null){
+							try {
+								JCas probView = jCas.getView(probViewname);
+								Map<String,Double> probs = SoftMaxUtil.getDistributionFromScores(scores);
+
+								for(String label : probs.keySet()){
+									createRelation(probView, arg1, arg2, label, probs.get(label));
+								}
+							} catch (CASException e) {
+								e.printStackTrace();
+								throw new AnalysisEngineProcessException(e);
+							}
+						}*/
+
+						// add a relation annotation if a true relation was predicted
+						if (predictedCategory != null && !predictedCategory.equals(NO_RELATION_CATEGORY)) {
+
+							// if we predict an inverted relation, reverse the order of the
+							// arguments
+							if (predictedCategory.endsWith("-1")) {
+								predictedCategory = predictedCategory.substring(0, predictedCategory.length() - 2);
+								IdentifiedAnnotation temp = arg1;
+								arg1 = arg2;
+								arg2 = temp;
+							}
+
+							createRelation(jCas, arg1, arg2, predictedCategory, 0.0);
+						}
 					}
-				}
-			} // end pair in pairs
-		} // end for(Sentence)
+				} // end pair in pairs
+			} // end for(Sentence)
+		} finally {
+			SentenceMentionIndex.release();
+		}
 	}
 
 	/**
@@ -28,11 +28,13 @@ import java.util.Set;
 
 import org.apache.ctakes.core.pipeline.PipeBitInfo;
 import org.apache.ctakes.relationextractor.ae.RelationExtractorAnnotator;
+import org.apache.ctakes.temporal.utils.SentenceMentionIndex;
 import org.apache.ctakes.typesystem.type.syntax.BaseToken;
 import org.apache.ctakes.typesystem.type.textsem.EventMention;
 import org.apache.ctakes.typesystem.type.textsem.TimeMention;
 import org.apache.ctakes.typesystem.type.textspan.Sentence;
 import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
 import org.apache.uima.jcas.JCas;
 import org.apache.uima.jcas.tcas.Annotation;
 import org.apache.uima.resource.ResourceInitializationException;
@@ -65,6 +67,15 @@ public class F1BaselineEventTimeRelationAnnotator extends
 		        new File(modelDirectory, "model.jar"));
 		  }
 
+	@Override
+	public void process(JCas jCas) throws AnalysisEngineProcessException {
+		try {
+			super.process(jCas);
+		} finally {
+			SentenceMentionIndex.release();
+		}
+	}
+
 	@Override
 	protected Class<? extends Annotation> getCoveringClass() {
 		return Sentence.class;
@@ -73,7 +84,7 @@ public class F1BaselineEventTimeRelationAnnotator extends
 	@Override
 	protected List<IdentifiedAnnotationPair> getCandidateRelationArgumentPairs(
 			JCas jCas, Annotation sentence) {
-    	List<EventMention> events = JCasUtil.selectCovered(jCas, EventMention.class, sentence);
+    	List<EventMention> events = SentenceMentionIndex.selectCovered(jCas, EventMention.class, sentence);
 	    	    
 	    if(events.size() == 0) {
 	      return Lists.newArrayList();
@@ -23,9 +23,11 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.ctakes.relationextractor.ae.RelationExtractorAnnotator;
+import org.apache.ctakes.temporal.utils.SentenceMentionIndex;
 import org.apache.ctakes.typesystem.type.textsem.EventMention;
 import org.apache.ctakes.typesystem.type.textspan.Sentence;
 import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
 import org.apache.uima.jcas.JCas;
 import org.apache.uima.jcas.tcas.Annotation;
 import org.apache.uima.resource.ResourceInitializationException;
@@ -33,7 +35,6 @@ import org.cleartk.ml.CleartkAnnotator;
 import org.cleartk.ml.Feature;
 import org.cleartk.ml.jar.GenericJarClassifierFactory;
 import org.apache.uima.fit.factory.AnalysisEngineFactory;
-import org.apache.uima.fit.util.JCasUtil;
 
 public class RecallBaselineEventEventRelationAnnotator extends
 		RelationExtractorAnnotator {
@@ -47,6 +48,15 @@ public class RecallBaselineEventEventRelationAnnotator extends
 		        new File(modelDirectory, "model.jar"));
 		  }
 
+	@Override
+	public void process(JCas jCas) throws AnalysisEngineProcessException {
+		try {
+			super.process(jCas);
+		} finally {
+			SentenceMentionIndex.release();
+		}
+	}
+
 	@Override
 	protected Class<? extends Annotation> getCoveringClass() {
 		return Sentence.class;
@@ -57,7 +67,7 @@ public class RecallBaselineEventEventRelationAnnotator extends
 			JCas jCas, Annotation sentence) {
 	    List<IdentifiedAnnotationPair> results = new ArrayList<IdentifiedAnnotationPair>();
 	    // get all event mentions in the sentence
-	    List<EventMention> events = JCasUtil.selectCovered(jCas, EventMention.class, sentence);
+	    List<EventMention> events = SentenceMentionIndex.selectCovered(jCas, EventMention.class, sentence);
 	    
 	    // filter out all the ctakes-generated events with more specific types
 	    List<EventMention> realEvents = new ArrayList<EventMention>();
@@ -27,11 +27,13 @@ import java.util.List;
 import java.util.Set;
 
 import org.apache.ctakes.relationextractor.ae.RelationExtractorAnnotator;
+import org.apache.ctakes.temporal.utils.SentenceMentionIndex;
 import org.apache.ctakes.typesystem.type.syntax.BaseToken;
 import org.apache.ctakes.typesystem.type.textsem.EventMention;
 import org.apache.ctakes.typesystem.type.textsem.TimeMention;
 import org.apache.ctakes.typesystem.type.textspan.Sentence;
 import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
 import org.apache.uima.jcas.JCas;
 import org.apache.uima.jcas.tcas.Annotation;
 import org.apache.uima.resource.ResourceInitializationException;
@@ -59,6 +61,15 @@ public class RecallBaselineEventTimeRelationAnnotator extends
 		        new File(modelDirectory, "model.jar"));
 		  }
 
+	@Override
+	public void process(JCas jCas) throws AnalysisEngineProcessException {
+		try {
+			super.process(jCas);
+		} finally {
+			SentenceMentionIndex.release();
+		}
+	}
+
 	@Override
 	protected Class<? extends Annotation> getCoveringClass() {
 		return Sentence.class;
@@ -67,8 +78,8 @@ public class RecallBaselineEventTimeRelationAnnotator extends
 	@Override
 	protected List<IdentifiedAnnotationPair> getCandidateRelationArgumentPairs(
 			JCas jCas, Annotation sentence) {
-	    List<EventMention> events = JCasUtil.selectCovered(jCas, EventMention.class, sentence);
-	    List<TimeMention> times = JCasUtil.selectCovered(jCas, TimeMention.class, sentence);
+	    List<EventMention> events = SentenceMentionIndex.selectCovered(jCas, EventMention.class, sentence);
+	    List<TimeMention> times = SentenceMentionIndex.selectCovered(jCas, TimeMention.class, sentence);
 	    	    
 	    if(times.size() < 1 || events.size() < 1) {
 	      return Lists.newArrayList();
@@ -25,13 +25,14 @@ import java.util.List;
 import org.apache.ctakes.constituency.parser.util.AnnotationTreeUtils;
 import org.apache.ctakes.relationextractor.ae.RelationExtractorAnnotator;
 import org.apache.ctakes.relationextractor.ae.features.RelationFeaturesExtractor;
+import org.apache.ctakes.temporal.utils.SentenceMentionIndex;
 import org.apache.ctakes.typesystem.type.syntax.TreebankNode;
 import org.apache.ctakes.typesystem.type.textsem.EventMention;
 import org.apache.ctakes.typesystem.type.textsem.IdentifiedAnnotation;
 import org.apache.ctakes.typesystem.type.textspan.Sentence;
 import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
 import org.apache.uima.fit.factory.AnalysisEngineFactory;
-import org.apache.uima.fit.util.JCasUtil;
 import org.apache.uima.jcas.JCas;
 import org.apache.uima.jcas.tcas.Annotation;
 import org.apache.uima.resource.ResourceInitializationException;
@@ -51,6 +52,15 @@ public class TreeHeightBaseline extends RelationExtractorAnnotator {
 		        new File(modelDirectory, "model.jar"));
 		  }
 
+	@Override
+	public void process(JCas jCas) throws AnalysisEngineProcessException {
+		try {
+			super.process(jCas);
+		} finally {
+			SentenceMentionIndex.release();
+		}
+	}
+
 	@Override
 	protected Class<? extends Annotation> getCoveringClass() {
 		return Sentence.class;
@@ -72,7 +82,7 @@ public class TreeHeightBaseline extends RelationExtractorAnnotator {
 	    List<IdentifiedAnnotationPair> results = new ArrayList<>();
 
 	    // get all event mentions in the sentence
-	    List<EventMention> events = JCasUtil.selectCovered(jCas, EventMention.class, sentence);
+	    List<EventMention> events = SentenceMentionIndex.selectCovered(jCas, EventMention.class, sentence);
 	    
 	    // filter out all the ctakes-generated events with more specific types
 	    List<EventMention> realEvents = new ArrayList<>();
@@ -25,6 +25,7 @@ import java.util.Map;
 import java.util.TreeMap;
 
 import org.apache.ctakes.relationextractor.ae.features.RelationFeaturesExtractor;
+import org.apache.ctakes.temporal.utils.SentenceMentionIndex;
 import org.apache.ctakes.typesystem.type.textsem.EventMention;
 import org.apache.ctakes.typesystem.type.textsem.IdentifiedAnnotation;
 import org.apache.ctakes.typesystem.type.textsem.TimeMention;
@@ -75,7 +76,7 @@ RelationFeaturesExtractor<IdentifiedAnnotation,IdentifiedAnnotation> {
 			timeDistMap = new TreeMap<Integer, TimeMention>();
 
 			for(Sentence sent : eventSentList) {
-				for (TimeMention atime : JCasUtil.selectCovered(jCas, TimeMention.class, sent)) {
+				for (TimeMention atime : SentenceMentionIndex.selectCovered(jCas, TimeMention.class, sent)) {
 					timeDistMap.put(Math.abs(atime.getBegin() - event.getBegin()), atime);
 				}
 			}
@@ -95,7 +96,7 @@ RelationFeaturesExtractor<IdentifiedAnnotation,IdentifiedAnnotation> {
 			eventDistMap = new TreeMap<Integer, EventMention>();
 
 			for(Sentence sent : timeSentList) {
-				for (EventMention aEvent : JCasUtil.selectCovered(jCas, EventMention.class, sent)) {
+				for (EventMention aEvent : SentenceMentionIndex.selectCovered(jCas, EventMention.class, sent)) {
 					eventDistMap.put(Math.abs(aEvent.getBegin() - time.getBegin()), aEvent);
 				}
 			}
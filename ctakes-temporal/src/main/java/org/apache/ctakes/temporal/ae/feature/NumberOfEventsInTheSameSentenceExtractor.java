@@ -24,6 +24,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.ctakes.relationextractor.ae.features.RelationFeaturesExtractor;
+import org.apache.ctakes.temporal.utils.SentenceMentionIndex;
 import org.apache.ctakes.typesystem.type.textsem.EventMention;
 import org.apache.ctakes.typesystem.type.textsem.IdentifiedAnnotation;
 import org.apache.ctakes.typesystem.type.textspan.Sentence;
@@ -54,7 +55,7 @@ RelationFeaturesExtractor<IdentifiedAnnotation,IdentifiedAnnotation> {
 		if (sentList == null && sentList.isEmpty()) return feats;
 
 		for(Sentence sent : sentList) {
-			List<EventMention> events = JCasUtil.selectCovered(jCas, EventMention.class, sent);
+			List<EventMention> events = SentenceMentionIndex.selectCovered(jCas, EventMention.class, sent);
 
 			//filter out ctakes events:
 			List<EventMention> realEvents = Lists.newArrayList();
@@ -24,6 +24,7 @@ import java.util.Map;
 import java.util.TreeMap;
 
 import org.apache.ctakes.relationextractor.ae.features.RelationFeaturesExtractor;
+import org.apache.ctakes.temporal.utils.SentenceMentionIndex;
 import org.apache.ctakes.typesystem.type.syntax.TreebankNode;
 import org.apache.ctakes.typesystem.type.textsem.DateAnnotation;
 import org.apache.ctakes.typesystem.type.textsem.EventMention;
@@ -64,7 +65,7 @@ public class TimeXRelationFeaturesExtractor implements RelationFeaturesExtractor
 			Map<Integer, IdentifiedAnnotation> timeDistMap = new TreeMap<>();
 
 			for(Sentence sent : sentList) {
-				for (TimeMention time : JCasUtil.selectCovered(jCas, TimeMention.class, sent)) {
+				for (TimeMention time : SentenceMentionIndex.selectCovered(jCas, TimeMention.class, sent)) {
 					timeDistMap.put(Math.abs(time.getBegin() - event.getBegin()), time);
 				}
 				for (TimeAnnotation time : JCasUtil.selectCovered(jCas, TimeAnnotation.class, sent)) {
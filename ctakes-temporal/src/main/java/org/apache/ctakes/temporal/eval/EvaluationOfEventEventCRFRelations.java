@@ -25,10 +25,9 @@ import com.lexicalscope.jewel.cli.Option;
 import org.apache.ctakes.core.pipeline.PipeBitInfo;
 import org.apache.ctakes.relationextractor.eval.RelationExtractorEvaluation.HashableArguments;
 import org.apache.ctakes.temporal.ae.EventEventCRFRelationAnnotator;
+import org.apache.ctakes.temporal.ae.TemporalClosureAnnotator;
 import org.apache.ctakes.temporal.eval.EvaluationOfEventTimeRelations.Overlap2Contains;
 import org.apache.ctakes.temporal.eval.EvaluationOfEventTimeRelations.ParameterSettings;
-import org.apache.ctakes.temporal.utils.AnnotationIdCollection;
-import org.apache.ctakes.temporal.utils.TLinkTypeArray2;
 import org.apache.ctakes.typesystem.type.relation.BinaryTextRelation;
 import org.apache.ctakes.typesystem.type.relation.RelationArgument;
 import org.apache.ctakes.typesystem.type.relation.TemporalTextRelation;
@@ -169,6 +168,7 @@ EvaluationOfTemporalRelations_ImplBase{
 			
 			evaluation.printErrors = false;
 			
+			evaluation.applyOptions(options);
 			//do closure on system, but not on gold, to calculate recall
 			evaluation.skipTrain = options.getSkipTrain();
 			if(evaluation.skipTrain && options.getTest()){
@@ -177,7 +177,7 @@ EvaluationOfTemporalRelations_ImplBase{
 				evaluation.prepareXMIsFor(patientSets);
 			}
 			evaluation.printErrors=true;
-			params.stats = evaluation.trainAndTest(training, testing);//training);//
+			params.stats = AnnotationStatistics.addAll(evaluation.trainAndTest(options, training, testing));//training);//
 			//      System.err.println(options.getKernelParams() == null ? params : options.getKernelParams());
 //			System.err.println("No closure on gold::Closure on System::Recall Mode");
 			System.err.println(params.stats);
@@ -945,101 +945,8 @@ EvaluationOfTemporalRelations_ImplBase{
          role = PipeBitInfo.Role.SPECIAL,
          dependencies = { PipeBitInfo.TypeProduct.TEMPORAL_RELATION }
    )
-   public static class AddClosure extends JCasAnnotator_ImplBase {
-
-		@Override
-		public void process(JCas jCas) throws AnalysisEngineProcessException {
-
-			Multimap<List<Annotation>, BinaryTextRelation> annotationsToRelation = HashMultimap.create();
-			for (BinaryTextRelation relation : JCasUtil.select(jCas, BinaryTextRelation.class)){
-				String relationType = relation.getCategory();
-				if(validTemporalType(relationType)){
-					Annotation arg1 = relation.getArg1().getArgument();
-					Annotation arg2 = relation.getArg2().getArgument();
-					annotationsToRelation.put(Arrays.asList(arg1, arg2), relation);
-				}
-			}
-			for (List<Annotation> span: Lists.newArrayList(annotationsToRelation.keySet())){
-				Collection<BinaryTextRelation> relations = annotationsToRelation.get(span);
-				if(relations.size()>1){//if same span maps to multiple relations
-					Set<String> types = Sets.newHashSet();
-					for(BinaryTextRelation relation: relations){
-						types.add(relation.getCategory());
-					}
-					if(types.size()>1){
-						for(BinaryTextRelation relation: Lists.newArrayList(relations)){
-							annotationsToRelation.remove(span, relation);
-							relation.getArg1().removeFromIndexes();
-							relation.getArg2().removeFromIndexes();
-							relation.removeFromIndexes();
-						}
-					}else if(types.size()==1){
-						for (int i =1; i< relations.size(); i++){
-							BinaryTextRelation relation = (BinaryTextRelation) relations.toArray()[i];
-							annotationsToRelation.remove(span, relation);
-							relation.getArg1().removeFromIndexes();
-							relation.getArg2().removeFromIndexes();
-							relation.removeFromIndexes();
-						}
-					}
-				}
-			}
-
-			ArrayList<BinaryTextRelation> temporalRelation = new ArrayList<>(annotationsToRelation.values());//new ArrayList<BinaryTextRelation>();
-			//			Map<List<Annotation>, BinaryTextRelation> temporalRelationLookup = new HashMap<List<Annotation>, BinaryTextRelation>();
-			//
-			//			for (BinaryTextRelation relation : JCasUtil.select(jCas, BinaryTextRelation.class)){
-			//				String relationType = relation.getCategory();
-			//				if(validTemporalType(relationType)){
-			//					Annotation arg1 = relation.getArg1().getArgument();
-			//			        Annotation arg2 = relation.getArg2().getArgument();
-			//			        BinaryTextRelation tempRelation = temporalRelationLookup.get(Arrays.asList(arg1, arg2));
-			//					if( tempRelation == null){
-			//						temporalRelation.add(relation);					
-			//				        temporalRelationLookup.put(Arrays.asList(arg1, arg2), relation);
-			//					}else{//if there is duplicate
-			//						relation.getArg1().removeFromIndexes();
-			//						relation.getArg2().removeFromIndexes();
-			//						relation.removeFromIndexes();
-			//					}
-			//					
-			//				}
-			//			}
-
-			if (!temporalRelation.isEmpty()){
-				TLinkTypeArray2 relationArray = new TLinkTypeArray2(temporalRelation, new AnnotationIdCollection(temporalRelation));
-
-				int addedCount = 0;
-				for (BinaryTextRelation relation : relationArray.getClosedTlinks(jCas)) {
-					RelationArgument arg1 = relation.getArg1();
-					RelationArgument arg2 = relation.getArg2();
-					String relationType = relation.getCategory();
-					if(relationType.equals("CONTAINED-BY")||relationType.equals("AFTER")){//ignore these two categories, because their reciprocal already exist.
-						continue;
-					}
-					//check if the inferred relation new:
-					Collection<BinaryTextRelation> relations = annotationsToRelation.get(Arrays.asList(arg1.getArgument(), arg2.getArgument()));
-					if(relations.isEmpty()){ //if haven't seen this inferred relation before, then add this relation
-						arg1.addToIndexes();
-						arg2.addToIndexes();
-						relation.addToIndexes();
-						addedCount++;
-					}		
-				}
-
-				System.out.println( "**************************************************************");
-				System.out.println( "Finally added closure relations: " + addedCount );
-				System.out.println( "**************************************************************");
-			}			
-
-		}
-
-		private static boolean validTemporalType(String relationType) {
-			if(relationType.equals("CONTAINS")||relationType.equals("OVERLAP")||relationType.equals("BEFORE")||relationType.equals("ENDS-ON")||relationType.equals("BEGINS-ON"))
-				return true;
-			return false;
-		}
-	}
+   public static class AddClosure extends TemporalClosureAnnotator {
+   }
 
 	//	public static class AddTransitiveBeforeAndOnRelations extends JCasAnnotator_ImplBase {
 	//
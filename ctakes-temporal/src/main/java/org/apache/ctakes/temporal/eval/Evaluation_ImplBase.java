@@ -64,6 +64,7 @@ import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
 import org.apache.uima.cas.CAS;
 import org.apache.uima.cas.CASException;
 import org.apache.uima.cas.Feature;
+import org.apache.uima.cas.SerialFormat;
 import org.apache.uima.cas.impl.XmiCasDeserializer;
 import org.apache.uima.cas.impl.XmiCasSerializer;
 import org.apache.uima.collection.CollectionReader;
@@ -82,8 +83,8 @@ import org.apache.uima.jcas.cas.TOP;
 import org.apache.uima.jcas.tcas.Annotation;
 import org.apache.uima.resource.ResourceInitializationException;
 import org.apache.uima.util.CasCopier;
+import org.apache.uima.util.CasIOUtils;
 import org.apache.uima.util.XMLSerializer;
-import org.cleartk.timeml.util.TimeWordsExtractor;
 import org.cleartk.util.ViewUriUtil;
 import org.cleartk.util.ae.UriToDocumentTextAnnotator;
 import org.cleartk.util.cr.UriCollectionReader;
@@ -101,8 +102,11 @@ import javax.xml.transform.stream.StreamResult;
 import java.io.*;
 import java.net.MalformedURLException;
 import java.net.URI;
-import java.net.URL;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -116,9 +120,13 @@ org.cleartk.eval.Evaluation_ImplBase<Integer, STATISTICS_TYPE> {
 
 	private static final String LOOKUP_PATH = "/org/apache/ctakes/temporal/badEEContainNotes.txt";
 
-	private static boolean isTraining;
+	private static final String FOLD_STATISTICS_FILE = "fold-statistics.ser";
 
-	public static HashSet<String> badNotes;
+	/**
+	 * Names of the notes listed in badEEContainNotes.txt.  Loaded once and unmodifiable, so it can be read by
+	 * evaluations and folds running on several threads.
+	 */
+	public static final Set<String> badNotes = loadBadNotes();
 
 	public static final String GOLD_VIEW_NAME = "GoldView";
 
@@ -126,6 +134,8 @@ org.cleartk.eval.Evaluation_ImplBase<Integer, STATISTICS_TYPE> {
 	
 	public static final int MAX_DOC_VIEWS = 3;
 
+	public static final String BINARY_CAS_EXTENSION = ".bcas";
+
 	public enum XMLFormat {Knowtator, Anafora, I2B2, AnaforaCoref}
 
 	public enum Subcorpus {Colon, Brain, DeepPhe}
@@ -200,6 +210,20 @@ org.cleartk.eval.Evaluation_ImplBase<Integer, STATISTICS_TYPE> {
 
 		@Option(longName = "skipWrite")
 		public boolean getSkipDataWriting();
+
+		// cross validate the training items in this many folds instead of testing, if more than one
+		@Option( longName = "folds", defaultValue = "0" )
+		public int getFolds();
+
+		@Option( longName = "fold-threads", defaultValue = "1" )
+		public int getFoldThreads();
+
+		@Option( longName = "resume-folds" )
+		public boolean getResumeFolds();
+
+		// preprocess into compressed binary CASes, which tools that read the xmi directory as xmi cannot load
+		@Option( longName = "binary-cas" )
+		public boolean getBinaryCas();
 	}
 
 	public static List<Integer> getTrainItems( Options options ) {
@@ -234,6 +258,12 @@ org.cleartk.eval.Evaluation_ImplBase<Integer, STATISTICS_TYPE> {
 
 	private boolean xmiExists;
 
+	private int foldThreads = 1;
+
+	private boolean resumeFolds = false;
+
+	private boolean binaryCas = false;
+
 	protected File treebankDirectory;
 
 	protected boolean printErrors = false;
@@ -263,36 +293,100 @@ org.cleartk.eval.Evaluation_ImplBase<Integer, STATISTICS_TYPE> {
 		this.xmiExists = this.xmiDirectory.exists() && this.xmiDirectory.listFiles().length > 0;
 		this.treebankDirectory = treebankDirectory;
 
-		this.isTraining = true;
-		this.badNotes = new HashSet<>();
-		URL url = TimeWordsExtractor.class.getResource( LOOKUP_PATH );
-		try ( BufferedReader br = new BufferedReader( new FileReader( url.getFile() ) ) ) {
+	}
+
+	private static Set<String> loadBadNotes() {
+		Set<String> notes = new HashSet<>();
+		InputStream stream = Evaluation_ImplBase.class.getResourceAsStream( LOOKUP_PATH );
+		if ( stream == null ) {
+			LOGGER.error( "Missing resource " + LOOKUP_PATH );
+			return Collections.emptySet();
+		}
+		try ( BufferedReader br = new BufferedReader( new InputStreamReader( stream ) ) ) {
 			String line;
 			while ( (line = br.readLine()) != null ) {
-				badNotes.add( line.trim() );
+				notes.add( line.trim() );
 			}
-		} catch ( FileNotFoundException e ) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
 		} catch ( IOException e ) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
+			LOGGER.error( "Could not read " + LOOKUP_PATH, e );
 		}
+		return Collections.unmodifiableSet( notes );
 	}
 
 	public void setI2B2Output( String outDir ) {
 		i2b2Output = outDir;
 	}
 
+	/**
+	 * Cross validation folds are run on this many threads.  Folds are only safe to run together
+	 * if {@link #train(CollectionReader, File)} and {@link #test(CollectionReader, File)} keep their state
+	 * in the fold directory and the engines they create, so the default is one.
+	 */
+	public void setFoldThreads( int foldThreads ) {
+		this.foldThreads = Math.max( 1, foldThreads );
+	}
+
+	/**
+	 * If true, a cross validation fold whose directory holds statistics saved by an earlier run of the same
+	 * {@link #getFoldConfiguration() configuration} with the same train and test items is not run again.
+	 * Off by default, because a rerun after changing anything the configuration does not describe,
+	 * e.g. the code or the models, would otherwise report stale statistics.
+	 */
+	public void setResumeFolds( boolean resumeFolds ) {
+		this.resumeFolds = resumeFolds;
+	}
+
+	/**
+	 * If true, notes are preprocessed into compressed binary CASes, which are several times smaller and faster
+	 * to read than xmi.  Off by default, because the analysis tools that read the xmi directory only read xmi.
+	 */
+	public void setBinaryCas( boolean binaryCas ) {
+		this.binaryCas = binaryCas;
+	}
+
+	/**
+	 * Applies the {@code --fold-threads}, {@code --resume-folds} and {@code --binary-cas} options.
+	 */
+	public void applyOptions( Options options ) {
+		this.setFoldThreads( options.getFoldThreads() );
+		this.setResumeFolds( options.getResumeFolds() );
+		this.setBinaryCas( options.getBinaryCas() );
+	}
+
+	/**
+	 * @return description of the settings that saved fold statistics must have been computed with.
+	 * Subclasses with other settings that change their statistics should add them.
+	 */
+	protected String getFoldConfiguration() {
+		return this.getClass().getName() + " " + this.xmlFormat + " " + this.subcorpus + " "
+				+ Arrays.toString( this.kernelParams );
+	}
+
+	/**
+	 * Trains on the train items and tests on the test items, or with {@code --folds} cross validates the train items
+	 * as set by {@link #applyOptions(Options)}.
+	 *
+	 * @return statistics of the test, or of each fold
+	 */
+	public List<STATISTICS_TYPE> trainAndTest( Options options, List<Integer> trainItems, List<Integer> testItems )
+			throws Exception {
+		if ( options.getFolds() > 1 ) {
+			return this.crossValidation( trainItems, options.getFolds() );
+		}
+		return Collections.singletonList( this.trainAndTest( trainItems, testItems ) );
+	}
+
 	public void prepareXMIsFor( List<Integer> patientSets ) throws Exception {
 		boolean needsXMIs = false;
 		for ( File textFile : this.getFilesFor( patientSets ) ) {
-			if ( !getXMIFile( this.xmiDirectory, textFile ).exists() ) {
+			if ( !getBinaryCasFile( this.xmiDirectory, textFile ).exists()
+					&& !getXMIFile( this.xmiDirectory, textFile ).exists() ) {
 				needsXMIs = true;
 				break;
 			}
 		}
 		if ( needsXMIs ) {
+			LOGGER.info( "Preprocessing notes into " + this.xmiDirectory );
 			CollectionReader reader = this.getCollectionReader( patientSets );
 			AnalysisEngine engine = this.getXMIWritingPreprocessorAggregateBuilder().createAggregate();
 			SimplePipeline.runPipeline( reader, engine );
@@ -300,6 +394,101 @@ org.cleartk.eval.Evaluation_ImplBase<Integer, STATISTICS_TYPE> {
 		this.xmiExists = true;
 	}
 
+	/**
+	 * Preprocesses all items once, then runs the folds on {@link #setFoldThreads(int)} threads.
+	 * Every fold reads the cached CASes, trains and tests in its own directory and engines, and saves its
+	 * statistics there.  With {@link #setResumeFolds(boolean)}, a fold whose saved statistics are for the same
+	 * configuration and items is not run again, so an interrupted cross validation resumes with its unfinished
+	 * folds.
+	 */
+	@Override
+	public List<STATISTICS_TYPE> crossValidation( List<Integer> items, int numberOfFolds ) throws Exception {
+		this.prepareXMIsFor( items );
+		ExecutorService executor = Executors.newFixedThreadPool( Math.min( this.foldThreads, numberOfFolds ) );
+		try {
+			List<Future<STATISTICS_TYPE>> futures = new ArrayList<>();
+			for ( int i = 0; i < numberOfFolds; ++i ) {
+				final File directory = new File( this.baseDirectory, String.format( "fold-%d", i ) );
+				final List<Integer> trainItems = new ArrayList<>();
+				final List<Integer> testItems = new ArrayList<>();
+				for ( int j = 0; j < items.size(); ++j ) {
+					( j % numberOfFolds == i ? testItems : trainItems ).add( items.get( j ) );
+				}
+				futures.add( executor.submit( () -> this.runFold( trainItems, testItems, directory ) ) );
+			}
+			List<STATISTICS_TYPE> stats = new ArrayList<>();
+			for ( Future<STATISTICS_TYPE> future : futures ) {
+				try {
+					stats.add( future.get() );
+				} catch ( ExecutionException e ) {
+					throw e.getCause() instanceof Exception ? (Exception)e.getCause() : e;
+				}
+			}
+			return stats;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private STATISTICS_TYPE runFold( List<Integer> trainItems, List<Integer> testItems, File directory )
+			throws Exception {
+		File checkpoint = new File( directory, FOLD_STATISTICS_FILE );
+		List<Object> key = Arrays.asList( this.getFoldConfiguration(), new ArrayList<>( trainItems ),
+				new ArrayList<>( testItems ) );
+		if ( this.resumeFolds ) {
+			STATISTICS_TYPE stats = readFoldStatistics( checkpoint, key );
+			if ( stats != null ) {
+				LOGGER.info( "Using the saved statistics of " + directory );
+				return stats;
+			}
+		}
+		this.train( this.getCollectionReader( trainItems ), directory );
+		STATISTICS_TYPE stats = this.test( this.getCollectionReader( testItems ), directory );
+		writeFoldStatistics( checkpoint, key, stats );
+		return stats;
+	}
+
+	/**
+	 * @return the statistics saved in the checkpoint with the same key, otherwise null
+	 */
+	@SuppressWarnings( "unchecked" )
+	static <T> T readFoldStatistics( File checkpoint, List<?> key ) {
+		if ( !checkpoint.exists() ) {
+			return null;
+		}
+		try ( ObjectInputStream input = new ObjectInputStream(
+				new BufferedInputStream( new FileInputStream( checkpoint ) ) ) ) {
+			if ( key.equals( input.readObject() ) ) {
+				return (T)input.readObject();
+			}
+		} catch ( IOException | ClassNotFoundException | ClassCastException e ) {
+			LOGGER.warn( "Ignoring unreadable fold statistics " + checkpoint + " : " + e.getMessage() );
+		}
+		return null;
+	}
+
+	/**
+	 * Saves the statistics with their key, unless they are not Serializable.
+	 */
+	static void writeFoldStatistics( File checkpoint, List<?> key, Object stats ) throws IOException {
+		if ( !( stats instanceof Serializable ) ) {
+			return;
+		}
+		// write a temporary file and rename it, so a crash never leaves a partial checkpoint
+		File partial = new File( checkpoint.getPath() + ".tmp" );
+		try ( ObjectOutputStream output = new ObjectOutputStream(
+				new BufferedOutputStream( new FileOutputStream( partial ) ) ) ) {
+			output.writeObject( new ArrayList<>( key ) );
+			output.writeObject( stats );
+		}
+		if ( !partial.renameTo( checkpoint ) ) {
+			checkpoint.delete();
+			if ( !partial.renameTo( checkpoint ) ) {
+				LOGGER.warn( "Could not save fold statistics " + checkpoint );
+			}
+		}
+	}
+
 	private List<File> getFilesFor( List<Integer> patientSets ) throws FileNotFoundException {
 		List<File> files = new ArrayList<>();
 		if ( this.xmlFormat == XMLFormat.Anafora ) {
@@ -459,7 +648,9 @@ org.cleartk.eval.Evaluation_ImplBase<Integer, STATISTICS_TYPE> {
 		aggregateBuilder.add( AnalysisEngineFactory.createEngineDescription(
 				XMIWriter.class,
 				XMIWriter.PARAM_XMI_DIRECTORY,
-				this.xmiDirectory ) );
+				this.xmiDirectory,
+				XMIWriter.PARAM_BINARY_CAS,
+				this.binaryCas ) );
 
 		return aggregateBuilder;
 	}
@@ -741,13 +932,33 @@ org.cleartk.eval.Evaluation_ImplBase<Integer, STATISTICS_TYPE> {
 		return getXMIFile( xmiDirectory, new File( ViewUriUtil.getURI( jCas ).getPath() ) );
 	}
 
+	static File getBinaryCasFile( File xmiDirectory, File textFile ) {
+		String fileName = textFile.getName();
+		if ( fileName.endsWith( ".xmi" ) ) {
+			fileName = fileName.substring( 0, fileName.length() - 4 );
+		}
+		return new File( xmiDirectory, fileName + BINARY_CAS_EXTENSION );
+	}
+
+	static File getBinaryCasFile( File xmiDirectory, JCas jCas ) throws AnalysisEngineProcessException {
+		return getBinaryCasFile( xmiDirectory, new File( ViewUriUtil.getURI( jCas ).getPath() ) );
+	}
+
+	/**
+	 * Writes the CAS as xmi, or as a compressed binary CAS which is several times smaller and faster to read.
+	 */
 	public static class XMIWriter extends JCasAnnotator_ImplBase {
 
 		public static final String PARAM_XMI_DIRECTORY = "XMIDirectory";
 
+		public static final String PARAM_BINARY_CAS = "BinaryCas";
+
 		@ConfigurationParameter( name = PARAM_XMI_DIRECTORY, mandatory = true )
 		private File xmiDirectory;
 
+		@ConfigurationParameter( name = PARAM_BINARY_CAS, mandatory = false, defaultValue = "false" )
+		private boolean binaryCas;
+
 		@Override
 		public void initialize( UimaContext context ) throws ResourceInitializationException {
 			super.initialize( context );
@@ -758,6 +969,15 @@ org.cleartk.eval.Evaluation_ImplBase<Integer, STATISTICS_TYPE> {
 
 		@Override
 		public void process( JCas jCas ) throws AnalysisEngineProcessException {
+			if ( this.binaryCas ) {
+				File casFile = getBinaryCasFile( this.xmiDirectory, jCas );
+				try ( OutputStream outputStream = new BufferedOutputStream( new FileOutputStream( casFile ) ) ) {
+					CasIOUtils.save( jCas.getCas(), outputStream, SerialFormat.COMPRESSED );
+				} catch ( IOException e ) {
+					throw new AnalysisEngineProcessException( e );
+				}
+				return;
+			}
 			File xmiFile = getXMIFile( this.xmiDirectory, jCas );
 			try {
 				FileOutputStream outputStream = new FileOutputStream( xmiFile );
@@ -776,6 +996,9 @@ org.cleartk.eval.Evaluation_ImplBase<Integer, STATISTICS_TYPE> {
 		}
 	}
 
+	/**
+	 * Reads the compressed binary CAS written by {@link XMIWriter} if there is one, otherwise the xmi.
+	 */
 	public static class XMIReader extends JCasAnnotator_ImplBase {
 
 		public static final String PARAM_XMI_DIRECTORY = "XMIDirectory";
@@ -785,6 +1008,15 @@ org.cleartk.eval.Evaluation_ImplBase<Integer, STATISTICS_TYPE> {
 
 		@Override
 		public void process( JCas jCas ) throws AnalysisEngineProcessException {
+			File casFile = getBinaryCasFile( this.xmiDirectory, jCas );
+			if ( casFile.exists() ) {
+				try ( InputStream inputStream = new BufferedInputStream( new FileInputStream( casFile ) ) ) {
+					CasIOUtils.load( inputStream, jCas.getCas() );
+				} catch ( IOException e ) {
+					throw new AnalysisEngineProcessException( e );
+				}
+				return;
+			}
 			File xmiFile = getXMIFile( this.xmiDirectory, jCas );
 			try {
 				FileInputStream inputStream = new FileInputStream( xmiFile );
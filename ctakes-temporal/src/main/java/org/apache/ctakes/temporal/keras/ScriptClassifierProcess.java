@@ -0,0 +1,181 @@
+package org.apache.ctakes.temporal.keras;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.uima.UIMAFramework;
+import org.apache.uima.util.Level;
+import org.apache.uima.util.Logger;
+
+/**
+ * One running classify.* script.  Instances are written to the script's standard input one per
+ * line and the script answers with one line per instance, in order.  A whole batch is written
+ * before any answer is read, so a document costs one pipe round trip instead of one per instance.
+ * <p>
+ * Writing and reading happen on their own threads so that a large batch cannot deadlock on full
+ * pipe buffers, and so that a script that stops answering can be timed out.  A script that dies
+ * or times out is destroyed and started again on the next call.  Its I/O tasks are cancelled, and
+ * since a read from a pipe held open by a child of the script cannot be interrupted, each batch gets
+ * threads of its own rather than waiting behind a reader that is still blocked.
+ */
+class ScriptClassifierProcess implements Closeable {
+  private static final Logger logger = UIMAFramework.getLogger(ScriptClassifierProcess.class);
+  // number of standard error lines kept to explain a failure
+  private static final int MAX_ERROR_LINES = 20;
+
+  private final String[] command;
+  private final long timeoutMillis;
+  private final ExecutorService ioThreads;
+  private final Deque<String> errorLines = new ArrayDeque<>();
+
+  private Process process = null;
+  private PrintStream toScript = null;
+  private BufferedReader fromScript = null;
+
+  /**
+   * @param command       script and its arguments
+   * @param timeoutMillis longest wait for the answers to one batch, 0 to wait forever
+   */
+  ScriptClassifierProcess(String[] command, long timeoutMillis) {
+    this.command = command;
+    this.timeoutMillis = timeoutMillis;
+    this.ioThreads = Executors.newCachedThreadPool(runnable -> {
+      Thread thread = new Thread(runnable, "ScriptClassifierProcess I/O");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  synchronized void start() throws IOException {
+    if(process != null && process.isAlive()){
+      return;
+    }
+    destroy();
+    process = Runtime.getRuntime().exec(command);
+    toScript = new PrintStream(process.getOutputStream());
+    fromScript = new BufferedReader(new InputStreamReader(process.getInputStream()));
+    // keep draining standard error so that a chatty backend can never block the script
+    final BufferedReader errReader = new BufferedReader(new InputStreamReader(process.getErrorStream()));
+    Thread errThread = new Thread(() -> drainErrors(errReader), "ScriptClassifierProcess stderr");
+    errThread.setDaemon(true);
+    errThread.start();
+  }
+
+  /**
+   * @param lines encoded instances, one per line
+   * @return the script's answer for each line, in order
+   */
+  synchronized List<String> classify(final List<String> lines) throws IOException {
+    if(lines.isEmpty()){
+      return new ArrayList<>();
+    }
+    start();
+    final PrintStream out = toScript;
+    final BufferedReader in = fromScript;
+    Future<?> written = ioThreads.submit(() -> {
+      for(String line : lines){
+        out.println(line);
+      }
+      out.flush();
+    });
+    Future<List<String>> answered = ioThreads.submit(() -> {
+      List<String> answers = new ArrayList<>(lines.size());
+      for(int i = 0; i < lines.size(); i++){
+        String answer = in.readLine();
+        if(answer == null){
+          throw new IOException("Classifier script exited after " + i + " of " + lines.size() + " instances");
+        }
+        answers.add(answer);
+      }
+      return answers;
+    });
+    try {
+      List<String> answers = timeoutMillis > 0
+          ? answered.get(timeoutMillis, TimeUnit.MILLISECONDS)
+          : answered.get();
+      written.get();
+      return answers;
+    } catch(TimeoutException e){
+      fail(written, answered);
+      throw new IOException("Classifier script did not answer " + lines.size() + " instances within " + timeoutMillis + " ms", e);
+    } catch(ExecutionException e){
+      fail(written, answered);
+      throw new IOException(e.getCause());
+    } catch(InterruptedException e){
+      fail(written, answered);
+      Thread.currentThread().interrupt();
+      throw new IOException(e);
+    }
+  }
+
+  @Override
+  public synchronized void close() {
+    if(process != null && process.isAlive()){
+      // an empty line tells the script that there is nothing more to classify
+      toScript.print('\n');
+      toScript.flush();
+      toScript.close();
+      try {
+        if(!process.waitFor(Math.max(timeoutMillis, 1000), TimeUnit.MILLISECONDS)){
+          logger.log(Level.WARNING, "Classifier script did not exit, destroying it");
+        }
+      } catch(InterruptedException e){
+        Thread.currentThread().interrupt();
+      }
+    }
+    destroy();
+    ioThreads.shutdownNow();
+  }
+
+  private void fail(Future<?>... tasks) {
+    synchronized(errorLines){
+      for(String line : errorLines){
+        logger.log(Level.SEVERE, line);
+      }
+    }
+    for(Future<?> task : tasks){
+      task.cancel(true);
+    }
+    destroy();
+  }
+
+  private void destroy() {
+    if(process != null){
+      // killing the script closes its end of the pipes, which ends any read or write still blocked on them
+      process.destroyForcibly();
+    }
+    process = null;
+    toScript = null;
+    fromScript = null;
+  }
+
+  private void drainErrors(BufferedReader errReader) {
+    try {
+      String line;
+      while((line = errReader.readLine()) != null){
+        logger.log(Level.FINE, line);
+        synchronized(errorLines){
+          if(errorLines.size() == MAX_ERROR_LINES){
+            errorLines.removeFirst();
+          }
+          errorLines.addLast(line);
+        }
+      }
+    } catch(IOException e){
+      // the script is gone, nothing more to read
+    }
+  }
+}
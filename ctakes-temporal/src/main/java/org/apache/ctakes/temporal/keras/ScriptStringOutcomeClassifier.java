@@ -1,16 +1,17 @@
 package org.apache.ctakes.temporal.keras;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Locale;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 
 import org.apache.uima.UIMAFramework;
 import org.apache.uima.util.Level;
 import org.apache.uima.util.Logger;
+import org.cleartk.ml.Classifier;
 import org.cleartk.ml.CleartkProcessingException;
 import org.cleartk.ml.Feature;
 import org.cleartk.ml.encoder.features.FeaturesEncoder;
@@ -32,10 +33,9 @@ import com.google.common.annotations.Beta;
 @Beta
 public abstract class ScriptStringOutcomeClassifier extends Classifier_ImplBase<FeatureVector, String, Integer> {
   File modelDir = null;
-  Process classifierProcess = null;
-  PrintStream toClassifier = null;
-  BufferedReader reader = null;
-  BufferedReader errReader = null;
+  // idle classifier processes; a call takes one, so concurrent documents use different processes
+  private final BlockingQueue<ScriptClassifierProcess> processes = new LinkedBlockingQueue<>();
+  private final List<ScriptClassifierProcess> allProcesses = new ArrayList<>();
   Logger logger = UIMAFramework.getLogger(ScriptStringOutcomeClassifier.class);
 
   public ScriptStringOutcomeClassifier(
@@ -43,6 +43,20 @@ public abstract class ScriptStringOutcomeClassifier extends Classifier_ImplBase<
       OutcomeEncoder<String, Integer> outcomeEncoder,
       File modelDir,
       File scriptDir) {
+    this(featuresEncoder, outcomeEncoder, modelDir, scriptDir, 1, 0);
+  }
+
+  /**
+   * @param processCount  number of classifier processes to share between concurrent callers
+   * @param timeoutMillis longest wait for the predictions of one batch, 0 to wait forever
+   */
+  public ScriptStringOutcomeClassifier(
+      FeaturesEncoder<FeatureVector> featuresEncoder,
+      OutcomeEncoder<String, Integer> outcomeEncoder,
+      File modelDir,
+      File scriptDir,
+      int processCount,
+      long timeoutMillis) {
     super(featuresEncoder, outcomeEncoder);
     this.modelDir = modelDir;
     
@@ -60,16 +74,18 @@ public abstract class ScriptStringOutcomeClassifier extends Classifier_ImplBase<
       throw new RuntimeException("There are no files named classify.*");
     }
     
+    String[] command = new String[]{
+        classifyScript.getAbsolutePath(),
+        modelDir.getAbsolutePath()};
+    for(int i = 0; i < Math.max(1, processCount); i++){
+      ScriptClassifierProcess process = new ScriptClassifierProcess(command, timeoutMillis);
+      allProcesses.add(process);
+      processes.add(process);
+    }
     try {
-      this.classifierProcess = Runtime.getRuntime().exec(new String[]{
-          classifyScript.getAbsolutePath(),
-          modelDir.getAbsolutePath()});
-      // start the classifier process running, give it a chance to read the model, and
-      // set classifierProcess to the running classifier
-      toClassifier = new PrintStream(classifierProcess.getOutputStream());
-      reader = new BufferedReader(new InputStreamReader(classifierProcess.getInputStream()));
-      errReader = new BufferedReader(new InputStreamReader(classifierProcess.getErrorStream()));
-      errReader.readLine(); // read line about which backend it is using.
+      // start the first classifier process running so that it can read the model,
+      // any others are started when concurrent callers need them
+      allProcesses.get(0).start();
     } catch (IOException e) {
       e.printStackTrace();
       throw new RuntimeException(e);
@@ -78,46 +94,91 @@ public abstract class ScriptStringOutcomeClassifier extends Classifier_ImplBase<
 
   public String classify(List<Feature> features)
       throws CleartkProcessingException {
+    return classifyAll(Collections.singletonList(features)).get(0);
+  }
+
+  /**
+   * Classify many instances, e.g. all candidate pairs of a document, with a single request to
+   * one of the classifier processes.
+   *
+   * @param instances the features of each instance
+   * @return the predicted outcome of each instance, in the same order
+   */
+  public List<String> classifyAll(List<List<Feature>> instances)
+      throws CleartkProcessingException {
     // Encode the features and pass them to the standard input of the classifier process
-    // and then read the standard output prediction, which will be in the string format expected by
+    // and then read the standard output predictions, which will be in the string format expected by
     // the annotator.    
-
-    StringBuilder buf = new StringBuilder();
-    
+    List<String> lines = new ArrayList<>(instances.size());
+    for(List<Feature> features : instances){
+      StringBuilder buf = new StringBuilder();
 //    for (FeatureVector.Entry featureNode : this.featuresEncoder.encodeAll(features)) {
 //      buf.append(String.format(Locale.US, " %d:%.7f", featureNode.index, featureNode.value));  
 //    }
-    for (int i = 0; i < features.size(); i ++){
-    	buf.append(features.get(i).getValue());
-    	if( i < features.size()-1){
-    		buf.append(" ");
-    	}
+      for (int i = 0; i < features.size(); i ++){
+        buf.append(features.get(i).getValue());
+        if( i < features.size()-1){
+          buf.append(" ");
+        }
+      }
+      lines.add(buf.toString());
+    }
+    if(lines.isEmpty()){
+      return new ArrayList<>();
     }
 
-    this.toClassifier.println(buf);
-    this.toClassifier.flush();
-    
-    String line = "";
-    String eLine = "";
+    ScriptClassifierProcess process;
+    try {
+      process = processes.take();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CleartkProcessingException(e);
+    }
     try {
-      line = reader.readLine();
-      if(line == null){
-         while((eLine = errReader.readLine()) != null){
-           logger.log(Level.SEVERE, eLine);
-         }
+      try {
+        return process.classify(lines);
+      } catch (IOException e) {
+        // the process has been stopped, try once more with a fresh one
+        logger.log(Level.WARNING, "Restarting classifier process: " + e.getMessage());
+        return process.classify(lines);
       }
     } catch (IOException e) {
-      throw new RuntimeException(e);
+      logger.log(Level.SEVERE, e.getMessage());
+      throw new CleartkProcessingException(e);
+    } finally {
+      processes.add(process);
+    }
+  }
+
+  /**
+   * Classify many instances with one request when the classifier is script based, otherwise one
+   * instance at a time.
+   */
+  public static List<String> classifyAll(Classifier<String> classifier, List<List<Feature>> instances)
+      throws CleartkProcessingException {
+    if(classifier instanceof ScriptStringOutcomeClassifier){
+      return ((ScriptStringOutcomeClassifier) classifier).classifyAll(instances);
+    }
+    List<String> predictions = new ArrayList<>(instances.size());
+    for(List<Feature> features : instances){
+      predictions.add(classifier.classify(features));
+    }
+    return predictions;
+  }
+
+  /**
+   * Stop all classifier processes.
+   */
+  public void close() {
+    for(ScriptClassifierProcess process : allProcesses){
+      process.close();
     }
-    
-    return line;
   }
 
   @Override
   protected void finalize() throws Throwable {
     super.finalize();
     
-    this.toClassifier.print('\n');
-    classifierProcess.waitFor();
+    close();
   }
 }
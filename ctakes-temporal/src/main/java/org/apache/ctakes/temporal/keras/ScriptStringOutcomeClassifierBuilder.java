@@ -18,15 +18,47 @@ import org.cleartk.ml.util.featurevector.FeatureVector;
 
 public abstract class ScriptStringOutcomeClassifierBuilder<T extends ScriptStringOutcomeClassifier> extends ClassifierBuilder_ImplBase<T, FeatureVector, String, Integer> {
   public static final Attributes.Name SCRIPT_DIR_PARAM = new Attributes.Name("ScriptDirectory");
+  public static final Attributes.Name SCRIPT_PROCESSES_PARAM = new Attributes.Name("ScriptProcesses");
+  public static final Attributes.Name SCRIPT_TIMEOUT_PARAM = new Attributes.Name("ScriptTimeoutMillis");
   protected static final Logger logger = UIMAFramework.getLogger(ScriptStringOutcomeClassifierBuilder.class);
   
   protected File modelDir = null;
   protected File scriptDir = null;
+  protected int processCount = 1;
+  protected long timeoutMillis = 0;
   
   public void setScriptDirectory(String scriptDir){
     Attributes atts = this.manifest.getMainAttributes();
     atts.put(SCRIPT_DIR_PARAM, scriptDir); 
   }
+
+  /**
+   * @param processCount number of classifier processes shared by concurrent documents
+   */
+  public void setScriptProcesses(int processCount){
+    Attributes atts = this.manifest.getMainAttributes();
+    atts.put(SCRIPT_PROCESSES_PARAM, String.valueOf(processCount));
+  }
+
+  /**
+   * @param timeoutMillis longest wait for the predictions of one document, 0 to wait forever
+   */
+  public void setScriptTimeout(long timeoutMillis){
+    Attributes atts = this.manifest.getMainAttributes();
+    atts.put(SCRIPT_TIMEOUT_PARAM, String.valueOf(timeoutMillis));
+  }
+
+  @Override
+  protected void unpackageClassifier(JarInputStream modelStream) throws IOException {
+    super.unpackageClassifier(modelStream);
+    Attributes atts = modelStream.getManifest().getMainAttributes();
+    if(atts.getValue(SCRIPT_PROCESSES_PARAM) != null){
+      this.processCount = Integer.parseInt(atts.getValue(SCRIPT_PROCESSES_PARAM));
+    }
+    if(atts.getValue(SCRIPT_TIMEOUT_PARAM) != null){
+      this.timeoutMillis = Long.parseLong(atts.getValue(SCRIPT_TIMEOUT_PARAM));
+    }
+  }
   
   @Override
   public File getTrainingDataFile(File dir) {
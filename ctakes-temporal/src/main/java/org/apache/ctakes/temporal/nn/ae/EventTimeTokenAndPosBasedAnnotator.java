@@ -9,7 +9,9 @@ import java.util.Map;
 
 import org.apache.ctakes.core.pipeline.PipeBitInfo;
 import org.apache.ctakes.temporal.ae.TemporalRelationExtractorAnnotator.IdentifiedAnnotationPair;
+import org.apache.ctakes.temporal.keras.ScriptStringOutcomeClassifier;
 import org.apache.ctakes.temporal.nn.data.ArgContextProvider;
+import org.apache.ctakes.temporal.utils.SentenceMentionIndex;
 import org.apache.ctakes.typesystem.type.relation.BinaryTextRelation;
 import org.apache.ctakes.typesystem.type.relation.RelationArgument;
 import org.apache.ctakes.typesystem.type.relation.TemporalTextRelation;
@@ -46,94 +48,108 @@ public class EventTimeTokenAndPosBasedAnnotator extends CleartkAnnotator<String>
 
   @Override
   public void process(JCas jCas) throws AnalysisEngineProcessException {
-
-    //get all gold relation lookup
-    Map<List<Annotation>, BinaryTextRelation> relationLookup;
-    relationLookup = new HashMap<>();
-    if(this.isTraining()) {
+    try {
+      //get all gold relation lookup
+      Map<List<Annotation>, BinaryTextRelation> relationLookup;
       relationLookup = new HashMap<>();
-      for(BinaryTextRelation relation : JCasUtil.select(jCas, BinaryTextRelation.class)) {
-        Annotation arg1 = relation.getArg1().getArgument();
-        Annotation arg2 = relation.getArg2().getArgument();
-        // The key is a list of args so we can do bi-directional lookup
-        List<Annotation> key = Arrays.asList(arg1, arg2);
-        if(relationLookup.containsKey(key)){
-          String reln = relationLookup.get(key).getCategory();
-          System.err.println("Error in: "+ ViewUriUtil.getURI(jCas).toString());
-          System.err.println("Error! This attempted relation " + relation.getCategory() + " already has a relation " + reln + " at this span: " + arg1.getCoveredText() + " -- " + arg2.getCoveredText());
-        } else{
-          relationLookup.put(key, relation);
+      if(this.isTraining()) {
+        relationLookup = new HashMap<>();
+        for(BinaryTextRelation relation : JCasUtil.select(jCas, BinaryTextRelation.class)) {
+          Annotation arg1 = relation.getArg1().getArgument();
+          Annotation arg2 = relation.getArg2().getArgument();
+          // The key is a list of args so we can do bi-directional lookup
+          List<Annotation> key = Arrays.asList(arg1, arg2);
+          if(relationLookup.containsKey(key)){
+            String reln = relationLookup.get(key).getCategory();
+            System.err.println("Error in: "+ ViewUriUtil.getURI(jCas).toString());
+            System.err.println("Error! This attempted relation " + relation.getCategory() + " already has a relation " + reln + " at this span: " + arg1.getCoveredText() + " -- " + arg2.getCoveredText());
+          } else{
+            relationLookup.put(key, relation);
+          }
         }
       }
-    }
 
-    // go over sentences, extracting event-time relation instances
-    for(Sentence sentence : JCasUtil.select(jCas, Sentence.class)) {
-      // collect all relevant relation arguments from the sentence
-      List<IdentifiedAnnotationPair> candidatePairs =
-          getCandidateRelationArgumentPairs(jCas, sentence);
+      // during classification, pairs and their features are collected for the whole document
+      List<IdentifiedAnnotationPair> classifyPairs = new ArrayList<>();
+      List<List<Feature>> classifyFeatures = new ArrayList<>();
+      // go over sentences, extracting event-time relation instances
+      for(Sentence sentence : JCasUtil.select(jCas, Sentence.class)) {
+        // collect all relevant relation arguments from the sentence
+        List<IdentifiedAnnotationPair> candidatePairs =
+            getCandidateRelationArgumentPairs(jCas, sentence);
 
-      // walk through the pairs of annotations
-      for(IdentifiedAnnotationPair pair : candidatePairs) {
-        IdentifiedAnnotation arg1 = pair.getArg1();
-        IdentifiedAnnotation arg2 = pair.getArg2();
+        // walk through the pairs of annotations
+        for(IdentifiedAnnotationPair pair : candidatePairs) {
+          IdentifiedAnnotation arg1 = pair.getArg1();
+          IdentifiedAnnotation arg2 = pair.getArg2();
 
-        String tokenContext;
-        String posContext;
-        if(arg2.getBegin() < arg1.getBegin()) {
-          // ... time ... event ... scenario
-          tokenContext = ArgContextProvider.getTokenContext(jCas, sentence, arg2, "t", arg1, "e", 2);
-          posContext = ArgContextProvider.getPosContext(jCas, sentence, arg2, "t", arg1, "e", 2);
-        } else {
-          // ... event ... time ... scenario
-          tokenContext = ArgContextProvider.getTokenContext(jCas, sentence, arg1, "e", arg2, "t", 2);
-          posContext = ArgContextProvider.getPosContext(jCas, sentence, arg1, "e", arg2, "t", 2);
-        }
+          String tokenContext;
+          String posContext;
+          if(arg2.getBegin() < arg1.getBegin()) {
+            // ... time ... event ... scenario
+            tokenContext = ArgContextProvider.getTokenContext(jCas, sentence, arg2, "t", arg1, "e", 2);
+            posContext = ArgContextProvider.getPosContext(jCas, sentence, arg2, "t", arg1, "e", 2);
+          } else {
+            // ... event ... time ... scenario
+            tokenContext = ArgContextProvider.getTokenContext(jCas, sentence, arg1, "e", arg2, "t", 2);
+            posContext = ArgContextProvider.getPosContext(jCas, sentence, arg1, "e", arg2, "t", 2);
+          }
 
-        //derive features based on context:
-        List<Feature> features = new ArrayList<>();
-        String[] tokens = (tokenContext + "|" + posContext).split(" ");
-        for(String token: tokens){
-          features.add(new Feature(token.toLowerCase()));
-        }
+          //derive features based on context:
+          List<Feature> features = new ArrayList<>();
+          String[] tokens = (tokenContext + "|" + posContext).split(" ");
+          for(String token: tokens){
+            features.add(new Feature(token.toLowerCase()));
+          }
 
-        // during training, feed the features to the data writer
-        if(this.isTraining()) {
-          String category = getRelationCategory(relationLookup, arg1, arg2);
-          if(category == null) {
-            category = NO_RELATION_CATEGORY;
-          } else {
-            category = category.toLowerCase();
+          // during training, feed the features to the data writer
+          if(this.isTraining()) {
+            String category = getRelationCategory(relationLookup, arg1, arg2);
+            if(category == null) {
+              category = NO_RELATION_CATEGORY;
+            } else {
+              category = category.toLowerCase();
+            }
+            this.dataWriter.write(new Instance<>(category, features));
+          }
+          // during classification feed the features to the classifier and create annotations
+          else {
+            classifyPairs.add(pair);
+            classifyFeatures.add(features);
           }
-          this.dataWriter.write(new Instance<>(category, features));
         }
-        // during classification feed the features to the classifier and create annotations
-        else {
-          String predictedCategory = this.classifier.classify(features);
+      }
+      // classify all pairs of the document with one request, then create the relations
+      List<String> predictedCategories = ScriptStringOutcomeClassifier.classifyAll(this.classifier, classifyFeatures);
+      for(int i = 0; i < classifyPairs.size(); i++) {
+        IdentifiedAnnotation arg1 = classifyPairs.get(i).getArg1();
+        IdentifiedAnnotation arg2 = classifyPairs.get(i).getArg2();
+        String predictedCategory = predictedCategories.get(i);
 
-          // add a relation annotation if a true relation was predicted
-          if(predictedCategory != null && !predictedCategory.equals(NO_RELATION_CATEGORY)) {
+        // add a relation annotation if a true relation was predicted
+        if(predictedCategory != null && !predictedCategory.equals(NO_RELATION_CATEGORY)) {
 
-            // if we predict an inverted relation, reverse the order of the arguments
-            if(predictedCategory.endsWith("-1")) {
-              predictedCategory = predictedCategory.substring(0, predictedCategory.length() - 2);
-              if(arg1 instanceof TimeMention){
-                IdentifiedAnnotation temp = arg1;
-                arg1 = arg2;
-                arg2 = temp;
-              }
-            } else {
-              if(arg1 instanceof EventMention){
-                IdentifiedAnnotation temp = arg1;
-                arg1 = arg2;
-                arg2 = temp;
-              }
+          // if we predict an inverted relation, reverse the order of the arguments
+          if(predictedCategory.endsWith("-1")) {
+            predictedCategory = predictedCategory.substring(0, predictedCategory.length() - 2);
+            if(arg1 instanceof TimeMention){
+              IdentifiedAnnotation temp = arg1;
+              arg1 = arg2;
+              arg2 = temp;
+            }
+          } else {
+            if(arg1 instanceof EventMention){
+              IdentifiedAnnotation temp = arg1;
+              arg1 = arg2;
+              arg2 = temp;
             }
-            
-            createRelation(jCas, arg1, arg2, predictedCategory.toUpperCase(), 0.0);
           }
+
+          createRelation(jCas, arg1, arg2, predictedCategory.toUpperCase(), 0.0);
         }
       }
+    } finally {
+      SentenceMentionIndex.release();
     }
   }
   
@@ -287,10 +303,10 @@ public class EventTimeTokenAndPosBasedAnnotator extends CleartkAnnotator<String>
 
   public List<IdentifiedAnnotationPair> getCandidateRelationArgumentPairs(JCas jCas, Annotation sentence) {
     List<IdentifiedAnnotationPair> pairs = Lists.newArrayList();
-    for (EventMention event : JCasUtil.selectCovered(jCas, EventMention.class, sentence)) {
+    for (EventMention event : SentenceMentionIndex.selectCovered(jCas, EventMention.class, sentence)) {
       // ignore subclasses like Procedure and Disease/Disorder
       if (event.getClass().equals(EventMention.class)) {
-        for (TimeMention time : JCasUtil.selectCovered(jCas, TimeMention.class, sentence)) {
+        for (TimeMention time : SentenceMentionIndex.selectCovered(jCas, TimeMention.class, sentence)) {
           pairs.add(new IdentifiedAnnotationPair(event, time));
         }
       }
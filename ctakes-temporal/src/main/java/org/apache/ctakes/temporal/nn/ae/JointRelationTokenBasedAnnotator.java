@@ -20,8 +20,10 @@ import java.util.Set;
 import org.apache.ctakes.core.resource.FileLocator;
 import org.apache.ctakes.core.util.OntologyConceptUtil;
 import org.apache.ctakes.temporal.ae.TemporalRelationExtractorAnnotator.IdentifiedAnnotationPair;
+import org.apache.ctakes.temporal.keras.ScriptStringOutcomeClassifier;
 import org.apache.ctakes.temporal.nn.ae.EventTimeTokenBasedAnnotator.OutputMode;
 import org.apache.ctakes.temporal.nn.data.ArgContextProvider;
+import org.apache.ctakes.temporal.utils.SentenceMentionIndex;
 import org.apache.ctakes.typesystem.type.relation.BinaryTextRelation;
 import org.apache.ctakes.typesystem.type.relation.RelationArgument;
 import org.apache.ctakes.typesystem.type.relation.TemporalTextRelation;
@@ -103,155 +105,170 @@ public class JointRelationTokenBasedAnnotator extends CleartkAnnotator<String> {
 	}
 	@Override
 	public void process(JCas jCas) throws AnalysisEngineProcessException {
-		if(timexMode == OutputMode.IndexTags && !this.isTraining()){
-			final String timexIdxMapFile = "target/eval/thyme/train_and_test/event-event/timex_idx.txt";
-			try {
-				timex_idx = TimexIdxReader(FileLocator.getAsStream(timexIdxMapFile));
-			} catch (IOException e) {
-				e.printStackTrace();
+		try {
+			if(timexMode == OutputMode.IndexTags && !this.isTraining()){
+				final String timexIdxMapFile = "target/eval/thyme/train_and_test/event-event/timex_idx.txt";
+				try {
+					timex_idx = TimexIdxReader(FileLocator.getAsStream(timexIdxMapFile));
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
 			}
-		}
 
-		//		Map<EventMention, Collection<EventMention>> coveringMap =
-		//				JCasUtil.indexCovering(jCas, EventMention.class, EventMention.class);
+			//		Map<EventMention, Collection<EventMention>> coveringMap =
+			//				JCasUtil.indexCovering(jCas, EventMention.class, EventMention.class);
 
-		// get all gold relation lookup
-		Map<List<Annotation>, BinaryTextRelation> relationLookup;
-		relationLookup = new HashMap<>();
-		if (this.isTraining()) {
+			// get all gold relation lookup
+			Map<List<Annotation>, BinaryTextRelation> relationLookup;
 			relationLookup = new HashMap<>();
-			for (BinaryTextRelation relation : JCasUtil.select(jCas, BinaryTextRelation.class)) {
-				Annotation arg1 = relation.getArg1().getArgument();
-				Annotation arg2 = relation.getArg2().getArgument();
-				// The key is a list of args so we can do bi-directional lookup
-				List<Annotation> key = Arrays.asList(arg1, arg2);
-				if(relationLookup.containsKey(key)){
-					String reln = relationLookup.get(key).getCategory();
-					System.err.println("Error in: "+ ViewUriUtil.getURI(jCas).toString());
-					System.err.println("Error! This attempted relation " + relation.getCategory() + 
-							" already has a relation " + reln + " at this span: " + 
-							arg1.getCoveredText() + " -- " + arg2.getCoveredText());
-				} else {
-					relationLookup.put(key, relation);
+			if (this.isTraining()) {
+				relationLookup = new HashMap<>();
+				for (BinaryTextRelation relation : JCasUtil.select(jCas, BinaryTextRelation.class)) {
+					Annotation arg1 = relation.getArg1().getArgument();
+					Annotation arg2 = relation.getArg2().getArgument();
+					// The key is a list of args so we can do bi-directional lookup
+					List<Annotation> key = Arrays.asList(arg1, arg2);
+					if(relationLookup.containsKey(key)){
+						String reln = relationLookup.get(key).getCategory();
+						System.err.println("Error in: "+ ViewUriUtil.getURI(jCas).toString());
+						System.err.println("Error! This attempted relation " + relation.getCategory() + 
+								" already has a relation " + reln + " at this span: " + 
+								arg1.getCoveredText() + " -- " + arg2.getCoveredText());
+					} else {
+						relationLookup.put(key, relation);
+					}
 				}
 			}
-		}
 
-		for(Sentence sentence : JCasUtil.select(jCas, Sentence.class)) {
-			// collect all relevant relation arguments from the sentence
-			List<IdentifiedAnnotationPair> candidatePairs = getCandidateRelationArgumentPairs(jCas, sentence);
-
-			// walk through the pairs of annotations
-			for (IdentifiedAnnotationPair pair : candidatePairs) {
-				IdentifiedAnnotation arg1 = pair.getArg1();
-				IdentifiedAnnotation arg2 = pair.getArg2();
-
-				String context;
-				String cuis;
-				if(arg2.getBegin() < arg1.getBegin()) {
-					// ... event2 ... event1 ... scenario
-					if(timexMode == OutputMode.TokenSeq){
-						String arg2tag = "e2";
-						if(arg2 instanceof TimeMention){
-							arg2tag="t";
-						}
-						context = ArgContextProvider.getTokenContext(jCas, sentence, arg2, arg2tag, arg1, "e1", 2); 
+			// during classification, pairs and their features are collected for the whole document
+			List<IdentifiedAnnotationPair> classifyPairs = new ArrayList<>();
+			List<List<Feature>> classifyFeatures = new ArrayList<>();
+			for(Sentence sentence : JCasUtil.select(jCas, Sentence.class)) {
+				// collect all relevant relation arguments from the sentence
+				List<IdentifiedAnnotationPair> candidatePairs = getCandidateRelationArgumentPairs(jCas, sentence);
+
+				// walk through the pairs of annotations
+				for (IdentifiedAnnotationPair pair : candidatePairs) {
+					IdentifiedAnnotation arg1 = pair.getArg1();
+					IdentifiedAnnotation arg2 = pair.getArg2();
+
+					String context;
+					String cuis;
+					if(arg2.getBegin() < arg1.getBegin()) {
+						// ... event2 ... event1 ... scenario
+						if(timexMode == OutputMode.TokenSeq){
+							String arg2tag = "e2";
+							if(arg2 instanceof TimeMention){
+								arg2tag="t";
+							}
+							context = ArgContextProvider.getTokenContext(jCas, sentence, arg2, arg2tag, arg1, "e1", 2); 
 
-					}else{
-						context = getTokenTimexContext(jCas, sentence, arg2, "e2", arg1, "e1", 2);
-					}
-				} else {
-					// ... event1 ... event2 ... scenario
-					if(timexMode == OutputMode.TokenSeq){
-						String arg2tag ="e2";
-						if(arg2 instanceof TimeMention){
-							arg2tag="t";
+						}else{
+							context = getTokenTimexContext(jCas, sentence, arg2, "e2", arg1, "e1", 2);
+						}
+					} else {
+						// ... event1 ... event2 ... scenario
+						if(timexMode == OutputMode.TokenSeq){
+							String arg2tag ="e2";
+							if(arg2 instanceof TimeMention){
+								arg2tag="t";
+							}
+							context = ArgContextProvider.getTokenContext(jCas, sentence, arg1, "e1", arg2, arg2tag, 2);
+						}else{
+							context = getTokenTimexContext(jCas, sentence, arg1, "e1", arg2, "e2", 2);
 						}
-						context = ArgContextProvider.getTokenContext(jCas, sentence, arg1, "e1", arg2, arg2tag, 2);
-					}else{
-						context = getTokenTimexContext(jCas, sentence, arg1, "e1", arg2, "e2", 2);
 					}
-				}
 
-				//get CUIs for two arguments
-				//				Set<String> CUIs = getCuiDtrel(jCas, arg1);
-				//				CUIs.addAll(getCuiDtrel(jCas, arg2));
-				//
-				//				cuis = String.join(" ", CUIs);
-
-				//derive features based on context:
-				List<Feature> feats = new ArrayList<>();
-				String[] tokens = context.split(" ");
-				//				String[] tokens = (context + "|" + cuis).split(" ");
-				for (String token: tokens){
-					feats.add(new Feature(token.toLowerCase()));
-				}
+					//get CUIs for two arguments
+					//				Set<String> CUIs = getCuiDtrel(jCas, arg1);
+					//				CUIs.addAll(getCuiDtrel(jCas, arg2));
+					//
+					//				cuis = String.join(" ", CUIs);
+
+					//derive features based on context:
+					List<Feature> feats = new ArrayList<>();
+					String[] tokens = context.split(" ");
+					//				String[] tokens = (context + "|" + cuis).split(" ");
+					for (String token: tokens){
+						feats.add(new Feature(token.toLowerCase()));
+					}
 
-				// during training, feed the features to the data writer
-				if(this.isTraining()) {
-					String category = getRelationCategory(relationLookup, arg1, arg2);
+					// during training, feed the features to the data writer
+					if(this.isTraining()) {
+						String category = getRelationCategory(relationLookup, arg1, arg2);
 
-					// drop some portion of negative examples during training
-					// if(category == null && coin.nextDouble() <= 0.5) {
-					//   continue; // skip this negative example
-					// }
+						// drop some portion of negative examples during training
+						// if(category == null && coin.nextDouble() <= 0.5) {
+						//   continue; // skip this negative example
+						// }
 
-					if(category == null) {
-						category = NO_RELATION_CATEGORY;
-					} else{
-						category = category.toLowerCase();
+						if(category == null) {
+							category = NO_RELATION_CATEGORY;
+						} else{
+							category = category.toLowerCase();
+						}
+						this.dataWriter.write(new Instance<>(category, feats));
+					} else {
+						classifyPairs.add(pair);
+						classifyFeatures.add(feats);
 					}
-					this.dataWriter.write(new Instance<>(category, feats));
-				} else {
-					String predictedCategory = this.classifier.classify(feats);
-
-					// add a relation annotation if a true relation was predicted
-					if (predictedCategory != null && !predictedCategory.equals(NO_RELATION_CATEGORY)) {
-
-						// if we predict an inverted relation, reverse the order of the
-						// arguments
-						//if for event-time relations:
-						if(arg1 instanceof TimeMention || arg2 instanceof TimeMention){
-							if(predictedCategory.endsWith("-1")) {
-								predictedCategory = predictedCategory.substring(0, predictedCategory.length() - 2);
-								if(arg1 instanceof TimeMention){
-									IdentifiedAnnotation temp = arg1;
-									arg1 = arg2;
-									arg2 = temp;
-								}
-							} else {
-								if(arg1 instanceof EventMention){
-									IdentifiedAnnotation temp = arg1;
-									arg1 = arg2;
-									arg2 = temp;
-								}
-							}
+				}
 
-							//							createRelation(jCas, arg1, arg2, predictedCategory.toUpperCase(), 0.0);
-						}else{//if for event-event relations:		
-							if (predictedCategory.endsWith("-1")) {
-								predictedCategory = predictedCategory.substring(0, predictedCategory.length() - 2);
+			}
+			// classify all pairs of the document with one request, then create the relations
+			List<String> predictedCategories = ScriptStringOutcomeClassifier.classifyAll(this.classifier, classifyFeatures);
+			for(int i = 0; i < classifyPairs.size(); i++) {
+				IdentifiedAnnotation arg1 = classifyPairs.get(i).getArg1();
+				IdentifiedAnnotation arg2 = classifyPairs.get(i).getArg2();
+				String predictedCategory = predictedCategories.get(i);
+
+				// add a relation annotation if a true relation was predicted
+				if (predictedCategory != null && !predictedCategory.equals(NO_RELATION_CATEGORY)) {
+
+					// if we predict an inverted relation, reverse the order of the
+					// arguments
+					//if for event-time relations:
+					if(arg1 instanceof TimeMention || arg2 instanceof TimeMention){
+						if(predictedCategory.endsWith("-1")) {
+							predictedCategory = predictedCategory.substring(0, predictedCategory.length() - 2);
+							if(arg1 instanceof TimeMention){
 								IdentifiedAnnotation temp = arg1;
 								arg1 = arg2;
 								arg2 = temp;
 							}
+						} else {
+							if(arg1 instanceof EventMention){
+								IdentifiedAnnotation temp = arg1;
+								arg1 = arg2;
+								arg2 = temp;
+							}
+						}
 
-							//							createRelation(jCas, arg1, arg2, predictedCategory.toUpperCase(), 0.0);
+						//							createRelation(jCas, arg1, arg2, predictedCategory.toUpperCase(), 0.0);
+					}else{//if for event-event relations:		
+						if (predictedCategory.endsWith("-1")) {
+							predictedCategory = predictedCategory.substring(0, predictedCategory.length() - 2);
+							IdentifiedAnnotation temp = arg1;
+							arg1 = arg2;
+							arg2 = temp;
 						}
 
-						createRelation(jCas, arg1, arg2, predictedCategory.toUpperCase(), 0.0);
+						//							createRelation(jCas, arg1, arg2, predictedCategory.toUpperCase(), 0.0);
 					}
+
+					createRelation(jCas, arg1, arg2, predictedCategory.toUpperCase(), 0.0);
 				}
 			}
-
-		}
-		if(timexMode== OutputMode.IndexTags && !this.isTraining()){//in test time update the hashmap file for each cas
-			try {
-				TimexIdxWriter();
-			} catch (IOException e) {
-				// TODO Auto-generated catch block
-				e.printStackTrace();
+			if(timexMode== OutputMode.IndexTags && !this.isTraining()){//in test time update the hashmap file for each cas
+				try {
+					TimexIdxWriter();
+				} catch (IOException e) {
+					// TODO Auto-generated catch block
+					e.printStackTrace();
+				}
 			}
+		} finally {
+			SentenceMentionIndex.release();
 		}
 	}
 
@@ -506,7 +523,7 @@ public class JointRelationTokenBasedAnnotator extends CleartkAnnotator<String> {
 	private static List<IdentifiedAnnotationPair> getCandidateRelationArgumentPairs(JCas jCas, Sentence sentence) {
 
 		List<IdentifiedAnnotationPair> pairs = Lists.newArrayList();
-		List<EventMention> events = new ArrayList<>(JCasUtil.selectCovered(jCas, EventMention.class, sentence));
+		List<EventMention> events = new ArrayList<>(SentenceMentionIndex.selectCovered(jCas, EventMention.class, sentence));
 		// filter events
 		List<EventMention> realEvents = Lists.newArrayList();
 		for( EventMention event : events){
@@ -526,7 +543,7 @@ public class JointRelationTokenBasedAnnotator extends CleartkAnnotator<String> {
 		}
 
 		for (EventMention event: events){
-			for (TimeMention time : JCasUtil.selectCovered(jCas, TimeMention.class, sentence)) {
+			for (TimeMention time : SentenceMentionIndex.selectCovered(jCas, TimeMention.class, sentence)) {
 				pairs.add(new IdentifiedAnnotationPair(event, time));
 			}
 		}
@@ -0,0 +1,189 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.temporal.utils;
+
+import org.apache.ctakes.typesystem.type.syntax.BaseToken;
+import org.apache.ctakes.typesystem.type.textsem.EntityMention;
+import org.apache.ctakes.typesystem.type.textsem.EventMention;
+import org.apache.ctakes.typesystem.type.textsem.TimeMention;
+import org.apache.ctakes.typesystem.type.textspan.Sentence;
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.tcas.Annotation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Events, times, entities and tokens of a document bucketed by sentence.
+ * <p>
+ * The temporal relation annotators select the mentions in a sentence once per sentence and often once more per
+ * event.  Each such selection walks the cas index.  This index is built with one pass per mention type,
+ * the first time a type is requested for a document, and is then shared by the annotator and its feature extractors.
+ * <p>
+ * The index is held for the thread processing the cas.  A uima cas has no place to attach it and no end of document
+ * callback, so every annotator that selects through this class calls {@link #release()} when its process ends,
+ * and nothing of the document is kept after the annotator is done with it.  An index that was not released is
+ * thrown away as soon as another document, or the same cas with a different number of sentences
+ * or of mentions of the requested type, is seen.
+ * <p>
+ * Changes are detected by comparing the number of sentences and of mentions of the requested type in the cas
+ * with the numbers seen when the buckets were built.  An annotator that removes a mention and adds another of
+ * the same type, or moves a sentence, leaves the counts unchanged and is served stale buckets.  Such an annotator
+ * should select from the cas with {@link JCasUtil#selectCovered(JCas, Class, Annotation)} instead.
+ */
+final public class SentenceMentionIndex {
+
+   static private final ThreadLocal<SentenceMentionIndex> CURRENT_INDEX = new ThreadLocal<>();
+
+   static private final Collection<Class<? extends Annotation>> INDEXED_TYPES
+         = Arrays.asList( EventMention.class, TimeMention.class, EntityMention.class, BaseToken.class );
+
+   private final JCas _jCas;
+   private final String _documentText;
+   private final Map<Class<? extends Annotation>, Map<Annotation, List<? extends Annotation>>> _typeBuckets
+         = new HashMap<>();
+   private final Map<Class<? extends Annotation>, Integer> _typeCounts = new HashMap<>();
+   private int _sentenceCount;
+
+   private SentenceMentionIndex( final JCas jCas ) {
+      _jCas = jCas;
+      _documentText = jCas.getDocumentText();
+      _sentenceCount = countOf( jCas, Sentence.class );
+   }
+
+   /**
+    * Drop-in replacement for {@link JCasUtil#selectCovered(JCas, Class, Annotation)}.
+    * Lists of indexed mention types covered by a sentence come from the shared index,
+    * anything else is selected from the cas.
+    *
+    * @param jCas     cas holding the annotations
+    * @param type     type of annotation to select
+    * @param covering annotation covering the selected annotations, usually a sentence
+    * @param <T>      type of annotation to select
+    * @return unmodifiable list of annotations of the type covered by the covering annotation, in index order
+    */
+   static public <T extends Annotation> List<T> selectCovered( final JCas jCas,
+                                                               final Class<T> type,
+                                                               final Annotation covering ) {
+      if ( !(covering instanceof Sentence) || !INDEXED_TYPES.contains( type ) ) {
+         return JCasUtil.selectCovered( jCas, type, covering );
+      }
+      return getIndex( jCas ).getCovered( type, covering );
+   }
+
+   /**
+    * @param jCas cas holding the annotations
+    * @return the index of the cas, built anew if the cas holds another document than the last seen on this thread
+    */
+   static public SentenceMentionIndex getIndex( final JCas jCas ) {
+      SentenceMentionIndex index = CURRENT_INDEX.get();
+      if ( index == null || index._jCas != jCas || index._documentText != jCas.getDocumentText() ) {
+         index = new SentenceMentionIndex( jCas );
+         CURRENT_INDEX.set( index );
+      }
+      return index;
+   }
+
+   /**
+    * Drops the index held for this thread.  Annotators that select through this class call this in a finally block
+    * at the end of their process.
+    */
+   static public void release() {
+      CURRENT_INDEX.remove();
+   }
+
+   /**
+    * @return true if an index is held for this thread
+    */
+   static public boolean isHeld() {
+      return CURRENT_INDEX.get() != null;
+   }
+
+   /**
+    * @param sentence -
+    * @return event mentions, including subtypes, covered by the sentence
+    */
+   public List<EventMention> getEvents( final Annotation sentence ) {
+      return getCovered( EventMention.class, sentence );
+   }
+
+   /**
+    * @param sentence -
+    * @return time mentions covered by the sentence
+    */
+   public List<TimeMention> getTimes( final Annotation sentence ) {
+      return getCovered( TimeMention.class, sentence );
+   }
+
+   /**
+    * @param sentence -
+    * @return entity mentions covered by the sentence
+    */
+   public List<EntityMention> getEntities( final Annotation sentence ) {
+      return getCovered( EntityMention.class, sentence );
+   }
+
+   /**
+    * @param sentence -
+    * @return tokens covered by the sentence
+    */
+   public List<BaseToken> getTokens( final Annotation sentence ) {
+      return getCovered( BaseToken.class, sentence );
+   }
+
+   @SuppressWarnings( "unchecked" )
+   synchronized private <T extends Annotation> List<T> getCovered( final Class<T> type, final Annotation sentence ) {
+      final int sentenceCount = countOf( _jCas, Sentence.class );
+      if ( sentenceCount != _sentenceCount ) {
+         _typeBuckets.clear();
+         _typeCounts.clear();
+         _sentenceCount = sentenceCount;
+      }
+      final int typeCount = countOf( _jCas, type );
+      Map<Annotation, List<? extends Annotation>> buckets = _typeBuckets.get( type );
+      if ( buckets == null || _typeCounts.get( type ) != typeCount ) {
+         buckets = new HashMap<>();
+         for ( Map.Entry<Sentence, Collection<T>> covered
+               : JCasUtil.indexCovered( _jCas, Sentence.class, type ).entrySet() ) {
+            buckets.put( covered.getKey(), Collections.unmodifiableList( new ArrayList<>( covered.getValue() ) ) );
+         }
+         _typeBuckets.put( type, buckets );
+         _typeCounts.put( type, typeCount );
+      }
+      final List<? extends Annotation> bucket = buckets.get( sentence );
+      if ( bucket == null ) {
+         // not a sentence of this cas, or one that covers nothing
+         return sentence.getCAS() == _jCas.getCas()
+                ? Collections.emptyList()
+                : JCasUtil.selectCovered( _jCas, type, sentence );
+      }
+      return (List<T>)bucket;
+   }
+
+   static private int countOf( final JCas jCas, final Class<? extends Annotation> type ) {
+      return jCas.getAnnotationIndex( JCasUtil.getType( jCas, type ) ).size();
+   }
+
+}
@@ -0,0 +1,475 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.temporal.utils;
+
+import org.apache.ctakes.typesystem.type.relation.BinaryTextRelation;
+import org.apache.ctakes.typesystem.type.relation.RelationArgument;
+import org.apache.ctakes.typesystem.type.relation.TemporalTextRelation;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.tcas.Annotation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.ctakes.temporal.utils.TlinkType.AFTER;
+import static org.apache.ctakes.temporal.utils.TlinkType.BEFORE;
+import static org.apache.ctakes.temporal.utils.TlinkType.BEGINS_ON;
+import static org.apache.ctakes.temporal.utils.TlinkType.CONTAINED_BY;
+import static org.apache.ctakes.temporal.utils.TlinkType.CONTAINS;
+import static org.apache.ctakes.temporal.utils.TlinkType.ENDS_ON;
+import static org.apache.ctakes.temporal.utils.TlinkType.OVERLAP;
+
+/**
+ * Transitive closure of the temporal relations (tlinks) between events and times.
+ * <p>
+ * Infers the same relations as {@link TLinkTypeArray2}: types are composed along every path A to B to C with
+ * {@link TlinkType#getTimeRelationTypeAtoC(TlinkType)}, and A overlaps (contains) an entity B that it is already
+ * related to when A overlaps (contains) both some C before B and some D after B.
+ * The relations are found differently:
+ * <ul>
+ * <li>Entities are numbered as they are added and the types between two entities are a bit mask in an
+ * integer-indexed matrix, so composing two cells is a lookup in a precomputed table of masks.</li>
+ * <li>Types are propagated from a work list: when a cell gains types only the paths through that cell are
+ * composed again, instead of every triple of entities on every pass.</li>
+ * </ul>
+ * Relations can be added at any time, and the closure is brought up to date when it is read.
+ * Pairs of entities holding contradictory types, such as before and after, are reported as conflicts.
+ * <p>
+ * Not thread safe.
+ */
+final public class TemporalClosure {
+
+   static private final TlinkType[] TYPES = TlinkType.values();
+   static private final int MASK_COUNT = 1 << TYPES.length;
+   // COMPOSED[ mask A to B ][ mask B to C ] is the mask A to C
+   static private final byte[][] COMPOSED = new byte[ MASK_COUNT ][ MASK_COUNT ];
+   static private final byte[] RECIPROCALS = new byte[ MASK_COUNT ];
+   static private final boolean[] CONFLICTS = new boolean[ MASK_COUNT ];
+
+   static private final int OVERLAP_BIT = bit( OVERLAP );
+   static private final int CONTAINS_BIT = bit( CONTAINS );
+   // B is after some C when C to B is before or ends on
+   static private final int AFTER_BITS = bit( AFTER ) | bit( BEGINS_ON );
+   static private final int BEFORE_BITS = bit( BEFORE ) | bit( ENDS_ON );
+
+   static {
+      final int[][] typeComposed = new int[ TYPES.length ][ TYPES.length ];
+      for ( TlinkType typeAtoB : TYPES ) {
+         for ( TlinkType typeBtoC : TYPES ) {
+            final TlinkType typeAtoC = typeAtoB.getTimeRelationTypeAtoC( typeBtoC );
+            typeComposed[ typeAtoB.ordinal() ][ typeBtoC.ordinal() ] = typeAtoC == null ? 0 : bit( typeAtoC );
+         }
+      }
+      for ( int maskAtoB = 1; maskAtoB < MASK_COUNT; maskAtoB++ ) {
+         for ( int maskBtoC = 1; maskBtoC < MASK_COUNT; maskBtoC++ ) {
+            int maskAtoC = 0;
+            for ( int i = 0; i < TYPES.length; i++ ) {
+               if ( (maskAtoB & (1 << i)) == 0 ) {
+                  continue;
+               }
+               for ( int j = 0; j < TYPES.length; j++ ) {
+                  if ( (maskBtoC & (1 << j)) != 0 ) {
+                     maskAtoC |= typeComposed[ i ][ j ];
+                  }
+               }
+            }
+            COMPOSED[ maskAtoB ][ maskBtoC ] = (byte)maskAtoC;
+         }
+      }
+      final int orderBits = bit( BEFORE ) | bit( AFTER );
+      final int intervalBits = bit( OVERLAP ) | bit( CONTAINS ) | bit( CONTAINED_BY );
+      for ( int mask = 1; mask < MASK_COUNT; mask++ ) {
+         int reciprocals = 0;
+         boolean conflict = false;
+         for ( TlinkType type : TYPES ) {
+            if ( (mask & bit( type )) != 0 ) {
+               reciprocals |= bit( type.getReciprocal() );
+               conflict |= type != OVERLAP && (mask & bit( type.getReciprocal() )) != 0;
+            }
+         }
+         RECIPROCALS[ mask ] = (byte)reciprocals;
+         CONFLICTS[ mask ] = conflict || ((mask & orderBits) != 0 && (mask & intervalBits) != 0);
+      }
+   }
+
+   static private int bit( final TlinkType tlinkType ) {
+      return 1 << tlinkType.ordinal();
+   }
+
+   private final Map<Annotation, Integer> _entityIndices = new HashMap<>();
+   private final List<Annotation> _entities = new ArrayList<>();
+   // _matrix[ a ][ b ] is the mask of types a to b, sized to the capacity in both dimensions
+   private byte[][] _matrix = new byte[ 0 ][];
+   // entities related to each entity, in the order the relations were found
+   private int[][] _neighbors = new int[ 0 ][];
+   private int[] _neighborCounts = new int[ 0 ];
+   // pairs whose types changed since their paths were last composed, as a stack of a, b
+   private int[] _work = new int[ 64 ];
+   private int _workSize;
+   private boolean _containmentChecked = true;
+
+   public TemporalClosure() {
+   }
+
+   /**
+    * @param tlinks temporal relations to start with
+    */
+   public TemporalClosure( final Collection<? extends BinaryTextRelation> tlinks ) {
+      for ( BinaryTextRelation tlink : tlinks ) {
+         add( tlink );
+      }
+   }
+
+   /**
+    * Adds a relation and the relations that it implies through the relations already added.
+    * The arguments are added as entities even if the relation has no valid type.
+    *
+    * @param tlink temporal relation
+    * @return true if the relation was not already known or implied
+    */
+   public boolean add( final BinaryTextRelation tlink ) {
+      return add( tlink.getArg1().getArgument(), tlink.getArg2().getArgument(), TlinkType.getTlinkType( tlink ) );
+   }
+
+   /**
+    * @param entityA   event or time
+    * @param entityB   event or time
+    * @param tlinkType type of the relation from entity A to entity B, may be null to only add the entities
+    * @return true if the relation was not already known or implied
+    */
+   public boolean add( final Annotation entityA, final Annotation entityB, final TlinkType tlinkType ) {
+      final int indexA = getOrAddIndex( entityA );
+      final int indexB = getOrAddIndex( entityB );
+      if ( tlinkType == null || indexA == indexB ) {
+         return false;
+      }
+      final boolean added = addTypes( indexA, indexB, bit( tlinkType ) );
+      propagate();
+      return added;
+   }
+
+   /**
+    * @return number of entities in the relations
+    */
+   public int getEntityCount() {
+      return _entities.size();
+   }
+
+   /**
+    * @param entityA event or time
+    * @param entityB event or time
+    * @return types of the relation from entity A to entity B, empty if none is known
+    */
+   public TlinkTypeSet getTlinkTypes( final Annotation entityA, final Annotation entityB ) {
+      close();
+      final TlinkTypeSet tlinkTypes = new TlinkTypeSet();
+      final Integer indexA = _entityIndices.get( entityA );
+      final Integer indexB = _entityIndices.get( entityB );
+      if ( indexA == null || indexB == null || indexA.equals( indexB ) ) {
+         return tlinkTypes;
+      }
+      final int mask = _matrix[ indexA ][ indexB ];
+      for ( TlinkType type : TYPES ) {
+         if ( (mask & bit( type )) != 0 ) {
+            tlinkTypes.add( type );
+         }
+      }
+      return tlinkTypes;
+   }
+
+   /**
+    * @return number of relations from one entity to another, counting each type and each direction
+    */
+   public int getTlinkCount() {
+      close();
+      int count = 0;
+      for ( int a = 0; a < _entities.size(); a++ ) {
+         for ( int i = 0; i < _neighborCounts[ a ]; i++ ) {
+            count += Integer.bitCount( _matrix[ a ][ _neighbors[ a ][ i ] ] );
+         }
+      }
+      return count;
+   }
+
+   /**
+    * @return pairs of entities holding contradictory types: a type and its reciprocal (other than overlap),
+    * or before or after together with overlap or containment.  Each pair is listed once.
+    */
+   public List<Annotation[]> getConflicts() {
+      close();
+      final List<Annotation[]> conflicts = new ArrayList<>();
+      for ( int a = 0; a < _entities.size(); a++ ) {
+         for ( int i = 0; i < _neighborCounts[ a ]; i++ ) {
+            final int b = _neighbors[ a ][ i ];
+            if ( a < b && CONFLICTS[ _matrix[ a ][ b ] ] ) {
+               conflicts.add( new Annotation[] { _entities.get( a ), _entities.get( b ) } );
+            }
+         }
+      }
+      return conflicts;
+   }
+
+   /**
+    * Creates a relation for every type between every two entities, explicit and inferred, in both directions.
+    * The relations are not added to the cas indexes.
+    *
+    * @param jCas ye olde ...
+    * @return new relations, ordered by the text span of their first and then their second argument
+    */
+   public List<BinaryTextRelation> getClosedTlinks( final JCas jCas ) {
+      close();
+      final Integer[] order = new Integer[ _entities.size() ];
+      for ( int i = 0; i < order.length; i++ ) {
+         order[ i ] = i;
+      }
+      final Comparator<Integer> bySpan = Comparator.comparingInt( ( Integer i ) -> _entities.get( i ).getBegin() )
+            .thenComparingInt( i -> _entities.get( i ).getEnd() );
+      Arrays.sort( order, bySpan );
+      final List<BinaryTextRelation> closedTlinks = new ArrayList<>();
+      for ( int a : order ) {
+         final int[] neighbors = Arrays.copyOf( _neighbors[ a ], _neighborCounts[ a ] );
+         final Integer[] sorted = new Integer[ neighbors.length ];
+         for ( int i = 0; i < neighbors.length; i++ ) {
+            sorted[ i ] = neighbors[ i ];
+         }
+         Arrays.sort( sorted, bySpan );
+         for ( int b : sorted ) {
+            final int mask = _matrix[ a ][ b ];
+            for ( TlinkType type : TYPES ) {
+               if ( (mask & bit( type )) != 0 ) {
+                  closedTlinks.add( createTlink( jCas, _entities.get( a ), _entities.get( b ), type ) );
+               }
+            }
+         }
+      }
+      return closedTlinks;
+   }
+
+   static private BinaryTextRelation createTlink( final JCas jCas, final Annotation entityA,
+                                                  final Annotation entityB, final TlinkType tlinkType ) {
+      final RelationArgument arg1 = new RelationArgument( jCas );
+      arg1.setArgument( entityA );
+      final RelationArgument arg2 = new RelationArgument( jCas );
+      arg2.setArgument( entityB );
+      final TemporalTextRelation relation = new TemporalTextRelation( jCas );
+      relation.setArg1( arg1 );
+      relation.setArg2( arg2 );
+      relation.setCategory( tlinkType.name().replace( "_", "-" ) );
+      return relation;
+   }
+
+   //   --------------------  Closure  --------------------   //
+
+   private int getOrAddIndex( final Annotation entity ) {
+      final Integer index = _entityIndices.get( entity );
+      if ( index != null ) {
+         return index;
+      }
+      final int newIndex = _entities.size();
+      _entities.add( entity );
+      _entityIndices.put( entity, newIndex );
+      if ( newIndex == _matrix.length ) {
+         grow();
+      }
+      return newIndex;
+   }
+
+   private void grow() {
+      final int capacity = Math.max( 16, _matrix.length * 2 );
+      final byte[][] matrix = new byte[ capacity ][];
+      for ( int i = 0; i < capacity; i++ ) {
+         matrix[ i ] = i < _matrix.length ? Arrays.copyOf( _matrix[ i ], capacity ) : new byte[ capacity ];
+      }
+      _matrix = matrix;
+      _neighbors = Arrays.copyOf( _neighbors, capacity );
+      for ( int i = 0; i < capacity; i++ ) {
+         if ( _neighbors[ i ] == null ) {
+            _neighbors[ i ] = new int[ 4 ];
+         }
+      }
+      _neighborCounts = Arrays.copyOf( _neighborCounts, capacity );
+   }
+
+   /**
+    * Adds types a to b and their reciprocals b to a, queueing both pairs.
+    */
+   private boolean addTypes( final int a, final int b, final int mask ) {
+      final int reciprocals = RECIPROCALS[ mask ];
+      final boolean added = addOneWay( a, b, mask );
+      if ( (_matrix[ b ][ a ] | reciprocals) != _matrix[ b ][ a ] ) {
+         _matrix[ b ][ a ] |= reciprocals;
+         push( b, a );
+      }
+      return added;
+   }
+
+   /**
+    * Adds types a to b without their reciprocals, queueing the pair if it changed.
+    */
+   private boolean addOneWay( final int a, final int b, final int mask ) {
+      final int old = _matrix[ a ][ b ];
+      final int merged = old | mask;
+      if ( merged == old ) {
+         return false;
+      }
+      if ( old == 0 && _matrix[ b ][ a ] == 0 ) {
+         addNeighbor( a, b );
+         addNeighbor( b, a );
+      }
+      _matrix[ a ][ b ] = (byte)merged;
+      push( a, b );
+      _containmentChecked = false;
+      return true;
+   }
+
+   private void addNeighbor( final int a, final int b ) {
+      if ( _neighborCounts[ a ] == _neighbors[ a ].length ) {
+         _neighbors[ a ] = Arrays.copyOf( _neighbors[ a ], _neighbors[ a ].length * 2 );
+      }
+      _neighbors[ a ][ _neighborCounts[ a ]++ ] = b;
+   }
+
+   private void push( final int a, final int b ) {
+      if ( _workSize + 2 > _work.length ) {
+         _work = Arrays.copyOf( _work, _work.length * 2 );
+      }
+      _work[ _workSize++ ] = a;
+      _work[ _workSize++ ] = b;
+   }
+
+   /**
+    * Composes the paths through every queued pair until no cell changes.
+    */
+   private void propagate() {
+      while ( _workSize > 0 ) {
+         final int b = _work[ --_workSize ];
+         final int a = _work[ --_workSize ];
+         final int maskAtoB = _matrix[ a ][ b ];
+         // a to b to c
+         for ( int i = 0; i < _neighborCounts[ b ]; i++ ) {
+            final int c = _neighbors[ b ][ i ];
+            if ( c != a ) {
+               final int maskAtoC = COMPOSED[ maskAtoB ][ _matrix[ b ][ c ] ];
+               if ( maskAtoC != 0 ) {
+                  addTypes( a, c, maskAtoC );
+               }
+            }
+         }
+         // c to a to b
+         for ( int i = 0; i < _neighborCounts[ a ]; i++ ) {
+            final int c = _neighbors[ a ][ i ];
+            if ( c != b ) {
+               final int maskCtoB = COMPOSED[ _matrix[ c ][ a ] ][ maskAtoB ];
+               if ( maskCtoB != 0 ) {
+                  addTypes( c, b, maskCtoB );
+               }
+            }
+         }
+      }
+   }
+
+   /**
+    * Brings the closure up to date, alternating composition with the overlap and containment rule.
+    */
+   private void close() {
+      propagate();
+      while ( !_containmentChecked ) {
+         _containmentChecked = true;
+         if ( inferContainment( OVERLAP_BIT ) | inferContainment( CONTAINS_BIT ) ) {
+            propagate();
+         }
+      }
+   }
+
+   /**
+    * If A ov C && A ov D, C < B || C eo B, B < D || D bo B, then A ov B   ( A ov C < B < D ov A ).
+    * The same for contains.  As in {@link TLinkTypeArray2} the rule is only applied to an A and B already related,
+    * and it adds A to B without the reciprocal B to A.
+    *
+    * @param typeBit overlap or contains
+    * @return true if any type was added
+    */
+   private boolean inferContainment( final int typeBit ) {
+      final int count = _entities.size();
+      // for each candidate B, the first C that it is after, and whether there is another; the same for before
+      final int[] afterWitness = new int[ count ];
+      final int[] beforeWitness = new int[ count ];
+      final boolean[] afterMany = new boolean[ count ];
+      final boolean[] beforeMany = new boolean[ count ];
+      final int[] candidates = new int[ count ];
+      Arrays.fill( afterWitness, -1 );
+      Arrays.fill( beforeWitness, -1 );
+      boolean added = false;
+      for ( int a = 0; a < count; a++ ) {
+         int candidateCount = 0;
+         for ( int i = 0; i < _neighborCounts[ a ]; i++ ) {
+            final int c = _neighbors[ a ][ i ];
+            if ( (_matrix[ a ][ c ] & typeBit) == 0 ) {
+               continue;
+            }
+            for ( int j = 0; j < _neighborCounts[ c ]; j++ ) {
+               final int b = _neighbors[ c ][ j ];
+               if ( b == a ) {
+                  continue;
+               }
+               final int maskBtoC = _matrix[ b ][ c ];
+               final boolean after = (maskBtoC & AFTER_BITS) != 0;
+               final boolean before = (maskBtoC & BEFORE_BITS) != 0;
+               if ( (after || before) && afterWitness[ b ] < 0 && beforeWitness[ b ] < 0 ) {
+                  candidates[ candidateCount++ ] = b;
+               }
+               if ( after ) {
+                  afterMany[ b ] = afterWitness[ b ] >= 0;
+                  if ( afterWitness[ b ] < 0 ) {
+                     afterWitness[ b ] = c;
+                  }
+               }
+               if ( before ) {
+                  beforeMany[ b ] = beforeWitness[ b ] >= 0;
+                  if ( beforeWitness[ b ] < 0 ) {
+                     beforeWitness[ b ] = c;
+                  }
+               }
+            }
+         }
+         for ( int i = 0; i < candidateCount; i++ ) {
+            final int b = candidates[ i ];
+            final int maskAtoB = _matrix[ a ][ b ];
+            if ( afterWitness[ b ] >= 0 && beforeWitness[ b ] >= 0
+                 && (afterMany[ b ] || beforeMany[ b ] || afterWitness[ b ] != beforeWitness[ b ])
+                 && maskAtoB != 0 && (maskAtoB & typeBit) == 0 ) {
+               // the pair is already related, so no neighbor is added while the lists are read
+               addOneWay( a, b, typeBit );
+               added = true;
+            }
+            afterWitness[ b ] = -1;
+            beforeWitness[ b ] = -1;
+            afterMany[ b ] = false;
+            beforeMany[ b ] = false;
+         }
+      }
+      return added;
+   }
+
+}
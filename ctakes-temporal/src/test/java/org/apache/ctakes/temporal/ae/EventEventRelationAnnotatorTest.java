@@ -18,12 +18,15 @@
  */
 package org.apache.ctakes.temporal.ae;
 
+import static org.junit.Assert.assertFalse;
+
 import java.io.IOException;
 import java.util.Collection;
 
 import org.apache.ctakes.dependency.parser.ae.ClearNLPDependencyParserAE;
 import org.apache.ctakes.temporal.eval.Evaluation_ImplBase.CopyNPChunksToLookupWindowAnnotations;
 import org.apache.ctakes.temporal.eval.Evaluation_ImplBase.RemoveEnclosedLookupWindows;
+import org.apache.ctakes.temporal.utils.SentenceMentionIndex;
 import org.apache.ctakes.typesystem.type.refsem.Event;
 import org.apache.ctakes.typesystem.type.refsem.EventProperties;
 import org.apache.ctakes.typesystem.type.relation.TemporalTextRelation;
@@ -80,6 +83,8 @@ public class EventEventRelationAnnotatorTest extends TemporalTest_ImplBase {
 				.createAnnotatorDescription("/org/apache/ctakes/temporal/ae/eventevent/model.jar"));
 
 		SimplePipeline.runPipeline(jcas, builder.createAggregateDescription());
+		// the relation annotator, the last in the pipeline, does not keep the sentence mention index
+		assertFalse(SentenceMentionIndex.isHeld());
 
 		Collection<TemporalTextRelation> relations = JCasUtil.select(jcas,
 				TemporalTextRelation.class);
@@ -0,0 +1,215 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.temporal.eval;
+
+import com.lexicalscope.jewel.cli.CliFactory;
+import org.apache.uima.collection.CollectionReader;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.jcas.JCas;
+import org.cleartk.util.ViewUriUtil;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class Evaluation_ImplBaseTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testFoldStatisticsKeyedOnConfigurationAndItems() throws IOException {
+		File checkpoint = new File( folder.getRoot(), "fold-statistics.ser" );
+		List<Object> key = key( "EvaluationOfA Anafora Colon [-t 0]", Arrays.asList( 1, 2, 3 ), Arrays.asList( 4 ) );
+		HashMap<String, Double> stats = new HashMap<>();
+		stats.put( "f1", 0.75 );
+		Evaluation_ImplBase.writeFoldStatistics( checkpoint, key, stats );
+
+		assertEquals( stats, Evaluation_ImplBase.readFoldStatistics( checkpoint,
+				key( "EvaluationOfA Anafora Colon [-t 0]", Arrays.asList( 1, 2, 3 ), Arrays.asList( 4 ) ) ) );
+		// same test items of another run configuration
+		assertNull( Evaluation_ImplBase.readFoldStatistics( checkpoint,
+				key( "EvaluationOfA Anafora Colon [-t 5]", Arrays.asList( 1, 2, 3 ), Arrays.asList( 4 ) ) ) );
+		assertNull( Evaluation_ImplBase.readFoldStatistics( checkpoint,
+				key( "EvaluationOfB Anafora Colon [-t 0]", Arrays.asList( 1, 2, 3 ), Arrays.asList( 4 ) ) ) );
+		// same test items trained on other items
+		assertNull( Evaluation_ImplBase.readFoldStatistics( checkpoint,
+				key( "EvaluationOfA Anafora Colon [-t 0]", Arrays.asList( 1, 2 ), Arrays.asList( 4 ) ) ) );
+		assertNull( Evaluation_ImplBase.readFoldStatistics( checkpoint,
+				key( "EvaluationOfA Anafora Colon [-t 0]", Arrays.asList( 1, 2, 3 ), Arrays.asList( 5 ) ) ) );
+		assertFalse( new File( checkpoint.getPath() + ".tmp" ).exists() );
+	}
+
+	@Test
+	public void testUnusableFoldStatistics() throws IOException {
+		File checkpoint = new File( folder.getRoot(), "fold-statistics.ser" );
+		List<Object> key = key( "EvaluationOfA", Arrays.asList( 1 ), Arrays.asList( 2 ) );
+		assertNull( Evaluation_ImplBase.readFoldStatistics( checkpoint, key ) );
+		// statistics that cannot be serialized are not saved
+		Evaluation_ImplBase.writeFoldStatistics( checkpoint, key, new Object() );
+		assertFalse( checkpoint.exists() );
+		try ( FileOutputStream output = new FileOutputStream( checkpoint ) ) {
+			output.write( "not a checkpoint".getBytes() );
+		}
+		assertNull( Evaluation_ImplBase.readFoldStatistics( checkpoint, key ) );
+	}
+
+	@Test
+	public void testBadNotesLoadedOnce() {
+		assertTrue( Evaluation_ImplBase.badNotes.contains( "ID028_path_083" ) );
+		int size = Evaluation_ImplBase.badNotes.size();
+		// shared by every evaluation and fold thread, so it must not change
+		try {
+			Evaluation_ImplBase.badNotes.add( "ID001_clinic_001" );
+			fail( "The notes should not be modifiable" );
+		} catch ( UnsupportedOperationException e ) {
+			assertEquals( size, Evaluation_ImplBase.badNotes.size() );
+		}
+	}
+
+	/**
+	 * Runs cross validation from the command line options as the drivers do.  The first run is killed in its last
+	 * fold, and a rerun with --resume-folds only trains that fold.
+	 */
+	@Test
+	public void testKilledCrossValidationResumes() throws Exception {
+		File xmlDirectory = new File( folder.getRoot(), "xml" );
+		File xmiDirectory = new File( folder.getRoot(), "xmi" );
+		xmiDirectory.mkdirs();
+		for ( String section : THYMEData.SECTIONS ) {
+			new File( xmlDirectory, section ).mkdirs();
+		}
+		for ( int patient = 1; patient <= 6; patient++ ) {
+			String note = String.format( "ID%03d_clinic_%03d", patient, patient );
+			File noteDirectory = new File( new File( xmlDirectory, THYMEData.SECTIONS[ patient % 3 ] ), note );
+			noteDirectory.mkdirs();
+			new File( noteDirectory, note ).createNewFile();
+			// already preprocessed
+			new File( xmiDirectory, note + ".xmi" ).createNewFile();
+		}
+		String[] args = { "--xml", xmlDirectory.getPath(), "--xmi", xmiDirectory.getPath(), "--patients", "1-6",
+				"--folds", "3" };
+
+		NoteEvaluation killed = new NoteEvaluation( folder.getRoot(), args, "ID003_clinic_003" );
+		try {
+			killed.run();
+			fail( "The last fold should have been killed" );
+		} catch ( IllegalStateException e ) {
+			assertEquals( 3, killed.trainCount.get() );
+		}
+
+		List<TreeSet<String>> expected = Arrays.asList(
+				new TreeSet<>( Arrays.asList( "ID001_clinic_001", "ID004_clinic_004" ) ),
+				new TreeSet<>( Arrays.asList( "ID002_clinic_002", "ID005_clinic_005" ) ),
+				new TreeSet<>( Arrays.asList( "ID003_clinic_003", "ID006_clinic_006" ) ) );
+		NoteEvaluation resumed = new NoteEvaluation( folder.getRoot(), append( args, "--resume-folds",
+				"--fold-threads", "2" ), null );
+		assertEquals( expected, resumed.run() );
+		assertEquals( 1, resumed.trainCount.get() );
+
+		NoteEvaluation resumedAgain = new NoteEvaluation( folder.getRoot(), append( args, "--resume-folds" ), null );
+		assertEquals( expected, resumedAgain.run() );
+		assertEquals( 0, resumedAgain.trainCount.get() );
+
+		// without --resume-folds every fold is run again
+		NoteEvaluation rerun = new NoteEvaluation( folder.getRoot(), args, null );
+		assertEquals( expected, rerun.run() );
+		assertEquals( 3, rerun.trainCount.get() );
+	}
+
+	/**
+	 * Tests by listing the notes it reads, and is killed when it tests a given note.
+	 */
+	private static class NoteEvaluation extends Evaluation_ImplBase<TreeSet<String>> {
+
+		private final Evaluation_ImplBase.Options options;
+		private final String killNote;
+		private final AtomicInteger trainCount = new AtomicInteger();
+
+		private NoteEvaluation( File baseDirectory, String[] args, String killNote ) throws Exception {
+			this( baseDirectory, CliFactory.parseArguments( Evaluation_ImplBase.Options.class, args ), killNote );
+		}
+
+		private NoteEvaluation( File baseDirectory, Evaluation_ImplBase.Options options, String killNote ) {
+			super( baseDirectory, options.getRawTextDirectory(), options.getXMLDirectory(), options.getXMLFormat(),
+					options.getSubcorpus(), options.getXMIDirectory(), options.getTreebankDirectory() );
+			this.options = options;
+			this.killNote = killNote;
+		}
+
+		private List<TreeSet<String>> run() throws Exception {
+			this.applyOptions( this.options );
+			this.prepareXMIsFor( this.options.getPatients().getList() );
+			return this.trainAndTest( this.options, this.options.getPatients().getList(),
+					Collections.<Integer>emptyList() );
+		}
+
+		@Override
+		protected void train( CollectionReader collectionReader, File directory ) throws Exception {
+			this.trainCount.incrementAndGet();
+			readNotes( collectionReader );
+		}
+
+		@Override
+		protected TreeSet<String> test( CollectionReader collectionReader, File directory ) throws Exception {
+			TreeSet<String> notes = readNotes( collectionReader );
+			if ( notes.contains( this.killNote ) ) {
+				throw new IllegalStateException( "Killed while testing " + this.killNote );
+			}
+			return notes;
+		}
+
+		private static TreeSet<String> readNotes( CollectionReader collectionReader ) throws Exception {
+			TreeSet<String> notes = new TreeSet<>();
+			JCas jCas = JCasFactory.createJCas();
+			while ( collectionReader.hasNext() ) {
+				jCas.reset();
+				collectionReader.getNext( jCas.getCas() );
+				notes.add( new File( ViewUriUtil.getURI( jCas ).getPath() ).getName() );
+			}
+			return notes;
+		}
+	}
+
+	private static String[] append( String[] args, String... moreArgs ) {
+		List<String> all = new ArrayList<>( Arrays.asList( args ) );
+		all.addAll( Arrays.asList( moreArgs ) );
+		return all.toArray( new String[ all.size() ] );
+	}
+
+	private static List<Object> key( String configuration, List<Integer> trainItems, List<Integer> testItems ) {
+		return Arrays.asList( configuration, new ArrayList<>( trainItems ), new ArrayList<>( testItems ) );
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.temporal.keras;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ScriptClassifierProcessTest {
+
+  // answers each line with its first word, and stops answering on "hang"
+  private static final String STUB_SCRIPT = "#!/bin/sh\n"
+      + "echo 'stub backend' >&2\n"
+      + "while read line; do\n"
+      + "  if [ -z \"$line\" ]; then exit 0; fi\n"
+      + "  set -- $line\n"
+      + "  if [ \"$1\" = hang ]; then sleep 30; fi\n"
+      + "  echo \"$1\"\n"
+      + "done\n";
+
+  private String[] command;
+
+  @Before
+  public void writeStubScript() throws IOException {
+    Assume.assumeTrue(new File("/bin/sh").exists());
+    File dir = Files.createTempDirectory("classify").toFile();
+    dir.deleteOnExit();
+    File script = new File(dir, "classify.sh");
+    Files.write(script.toPath(), STUB_SCRIPT.getBytes(StandardCharsets.UTF_8));
+    script.setExecutable(true);
+    script.deleteOnExit();
+    command = new String[]{ script.getAbsolutePath(), dir.getAbsolutePath() };
+  }
+
+  @Test
+  public void testBatch() throws IOException {
+    // large enough to fill the pipe buffers if writing and reading were not overlapped
+    List<String> lines = new ArrayList<>();
+    for(int i = 0; i < 20000; i++){
+      lines.add("outcome" + i + " some features");
+    }
+    try(ScriptClassifierProcess process = new ScriptClassifierProcess(command, 60000)){
+      List<String> answers = process.classify(lines);
+      assertEquals(lines.size(), answers.size());
+      for(int i = 0; i < lines.size(); i++){
+        assertEquals("outcome" + i, answers.get(i));
+      }
+      assertEquals(Arrays.asList("a", "b"), process.classify(Arrays.asList("a x", "b y")));
+    }
+  }
+
+  @Test
+  public void testTimeoutAndRestart() throws IOException {
+    try(ScriptClassifierProcess process = new ScriptClassifierProcess(command, 500)){
+      try {
+        process.classify(Arrays.asList("a", "hang", "b"));
+        fail("expected a timeout");
+      } catch(IOException e){
+        // expected
+      }
+      // the hung script was destroyed, the next batch runs on a new one
+      assertEquals(Arrays.asList("c", "d"), process.classify(Arrays.asList("c", "d")));
+    }
+  }
+
+  @Test
+  public void testRepeatedTimeouts() throws IOException {
+    try(ScriptClassifierProcess process = new ScriptClassifierProcess(command, 300)){
+      // the sleep of each hung script keeps its standard output open, so its reader stays blocked
+      for(int i = 0; i < 4; i++){
+        try {
+          process.classify(Arrays.asList("a", "hang"));
+          fail("expected a timeout");
+        } catch(IOException e){
+          // expected
+        }
+      }
+      // blocked readers of earlier batches must not hold up the threads of a new one
+      assertEquals(Arrays.asList("c", "d"), process.classify(Arrays.asList("c", "d")));
+    }
+  }
+}
@@ -0,0 +1,106 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.temporal.utils;
+
+import org.apache.ctakes.typesystem.type.textsem.EventMention;
+import org.apache.ctakes.typesystem.type.textsem.MedicationMention;
+import org.apache.ctakes.typesystem.type.textsem.TimeMention;
+import org.apache.ctakes.typesystem.type.textspan.Sentence;
+import org.apache.uima.UIMAException;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.jcas.JCas;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SentenceMentionIndexTest {
+
+   @Test
+   public void testSameAsSelectCovered() throws UIMAException {
+      final JCas jCas = JCasFactory.createJCas();
+      jCas.setDocumentText( "Seen today for pain. Aspirin given on 10/18 and again later." );
+      new Sentence( jCas, 0, 20 ).addToIndexes();
+      new Sentence( jCas, 21, 60 ).addToIndexes();
+      new EventMention( jCas, 15, 19 ).addToIndexes();
+      new MedicationMention( jCas, 21, 28 ).addToIndexes();
+      new EventMention( jCas, 21, 28 ).addToIndexes();
+      new EventMention( jCas, 29, 34 ).addToIndexes();
+      new TimeMention( jCas, 5, 10 ).addToIndexes();
+      new TimeMention( jCas, 38, 43 ).addToIndexes();
+      new TimeMention( jCas, 48, 59 ).addToIndexes();
+      // crosses the sentence boundary, so is covered by neither
+      new EventMention( jCas, 15, 28 ).addToIndexes();
+      assertSameAsSelectCovered( jCas );
+   }
+
+   @Test
+   public void testRebuiltForChanges() throws UIMAException {
+      final JCas jCas = JCasFactory.createJCas();
+      jCas.setDocumentText( "Pain today." );
+      final Sentence sentence = new Sentence( jCas, 0, 11 );
+      sentence.addToIndexes();
+      new EventMention( jCas, 0, 4 ).addToIndexes();
+      final List<EventMention> events = SentenceMentionIndex.selectCovered( jCas, EventMention.class, sentence );
+      assertEquals( 1, events.size() );
+      assertSame( events, SentenceMentionIndex.selectCovered( jCas, EventMention.class, sentence ) );
+      new TimeMention( jCas, 5, 10 ).addToIndexes();
+      assertSame( events, SentenceMentionIndex.selectCovered( jCas, EventMention.class, sentence ) );
+      new EventMention( jCas, 5, 10 ).addToIndexes();
+      assertSameAsSelectCovered( jCas );
+
+      jCas.reset();
+      jCas.setDocumentText( "No pain." );
+      final Sentence nextSentence = new Sentence( jCas, 0, 8 );
+      nextSentence.addToIndexes();
+      assertEquals( 0, SentenceMentionIndex.selectCovered( jCas, EventMention.class, nextSentence ).size() );
+   }
+
+   @Test
+   public void testNothingHeldAfterRelease() throws UIMAException {
+      final JCas jCas = JCasFactory.createJCas();
+      jCas.setDocumentText( "Pain today." );
+      final Sentence sentence = new Sentence( jCas, 0, 11 );
+      sentence.addToIndexes();
+      new EventMention( jCas, 0, 4 ).addToIndexes();
+      assertEquals( 1, SentenceMentionIndex.selectCovered( jCas, EventMention.class, sentence ).size() );
+      assertTrue( SentenceMentionIndex.isHeld() );
+      SentenceMentionIndex.release();
+      assertFalse( SentenceMentionIndex.isHeld() );
+      // selecting again builds a new index
+      assertEquals( 1, SentenceMentionIndex.selectCovered( jCas, EventMention.class, sentence ).size() );
+      SentenceMentionIndex.release();
+      assertFalse( SentenceMentionIndex.isHeld() );
+   }
+
+   static private void assertSameAsSelectCovered( final JCas jCas ) {
+      for ( Sentence sentence : JCasUtil.select( jCas, Sentence.class ) ) {
+         assertEquals( JCasUtil.selectCovered( jCas, EventMention.class, sentence ),
+               SentenceMentionIndex.selectCovered( jCas, EventMention.class, sentence ) );
+         assertEquals( JCasUtil.selectCovered( jCas, TimeMention.class, sentence ),
+               SentenceMentionIndex.selectCovered( jCas, TimeMention.class, sentence ) );
+      }
+   }
+
+}
@@ -0,0 +1,136 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.temporal.utils;
+
+import org.apache.ctakes.typesystem.type.relation.BinaryTextRelation;
+import org.apache.ctakes.typesystem.type.relation.RelationArgument;
+import org.apache.ctakes.typesystem.type.relation.TemporalTextRelation;
+import org.apache.uima.UIMAException;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.tcas.Annotation;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.apache.ctakes.temporal.utils.TlinkType.AFTER;
+import static org.apache.ctakes.temporal.utils.TlinkType.BEFORE;
+import static org.apache.ctakes.temporal.utils.TlinkType.CONTAINS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TemporalClosureTest {
+
+   static private final String[] CATEGORIES = { "BEFORE", "OVERLAP", "CONTAINS", "BEGINS-ON", "ENDS-ON" };
+
+   @Test
+   public void testIncrementalClosure() throws UIMAException {
+      final JCas jCas = JCasFactory.createJCas();
+      final Annotation a = new Annotation( jCas, 0, 1 );
+      final Annotation b = new Annotation( jCas, 2, 3 );
+      final Annotation c = new Annotation( jCas, 4, 5 );
+      final TemporalClosure closure = new TemporalClosure();
+      assertTrue( closure.add( a, b, BEFORE ) );
+      assertTrue( closure.add( b, c, BEFORE ) );
+      assertTrue( closure.getTlinkTypes( a, c ).contains( BEFORE ) );
+      assertTrue( closure.getTlinkTypes( c, a ).contains( AFTER ) );
+      // already implied
+      assertFalse( closure.add( a, c, BEFORE ) );
+      assertTrue( closure.getConflicts().isEmpty() );
+      assertTrue( closure.add( c, a, BEFORE ) );
+      assertFalse( closure.getConflicts().isEmpty() );
+   }
+
+   @Test
+   public void testSameAsTLinkTypeArray2() throws UIMAException {
+      final JCas jCas = JCasFactory.createJCas();
+      final Random random = new Random( 1 );
+      for ( int trial = 0; trial < 50; trial++ ) {
+         final int count = 3 + random.nextInt( 12 );
+         final Annotation[] entities = new Annotation[ count ];
+         for ( int i = 0; i < count; i++ ) {
+            entities[ i ] = new Annotation( jCas, i * 10, i * 10 + 5 );
+         }
+         final ArrayList<BinaryTextRelation> tlinks = new ArrayList<>();
+         for ( int i = 0; i < count * 2; i++ ) {
+            final int a = random.nextInt( count );
+            final int b = random.nextInt( count );
+            if ( a != b ) {
+               tlinks.add( createTlink( jCas, entities[ a ], entities[ b ],
+                     CATEGORIES[ random.nextInt( CATEGORIES.length ) ] ) );
+            }
+         }
+         if ( tlinks.isEmpty() ) {
+            continue;
+         }
+         final TLinkTypeArray2 array = new TLinkTypeArray2( tlinks, new AnnotationIdCollection( tlinks ) );
+         final TemporalClosure closure = new TemporalClosure( tlinks );
+         final Set<String> expected = getKeys( array.getClosedTlinks( jCas ) );
+         assertEquals( expected, getKeys( closure.getClosedTlinks( jCas ) ) );
+         assertEquals( expected.size(), closure.getTlinkCount() );
+      }
+   }
+
+   @Test
+   public void testContainment() throws UIMAException {
+      // A contains C, C before B, B before D, D contained by A : A contains B
+      final JCas jCas = JCasFactory.createJCas();
+      final Annotation a = new Annotation( jCas, 0, 1 );
+      final Annotation b = new Annotation( jCas, 2, 3 );
+      final Annotation c = new Annotation( jCas, 4, 5 );
+      final Annotation d = new Annotation( jCas, 6, 7 );
+      final TemporalClosure closure = new TemporalClosure();
+      closure.add( a, c, CONTAINS );
+      closure.add( a, d, CONTAINS );
+      closure.add( c, b, BEFORE );
+      closure.add( b, d, BEFORE );
+      // the rule only applies to entities already related
+      assertFalse( closure.getTlinkTypes( a, b ).contains( CONTAINS ) );
+      closure.add( a, b, TlinkType.OVERLAP );
+      assertTrue( closure.getTlinkTypes( a, b ).contains( CONTAINS ) );
+   }
+
+   static private BinaryTextRelation createTlink( final JCas jCas, final Annotation entityA,
+                                                  final Annotation entityB, final String category ) {
+      final RelationArgument arg1 = new RelationArgument( jCas );
+      arg1.setArgument( entityA );
+      final RelationArgument arg2 = new RelationArgument( jCas );
+      arg2.setArgument( entityB );
+      final TemporalTextRelation tlink = new TemporalTextRelation( jCas );
+      tlink.setArg1( arg1 );
+      tlink.setArg2( arg2 );
+      tlink.setCategory( category );
+      return tlink;
+   }
+
+   static private Set<String> getKeys( final List<BinaryTextRelation> tlinks ) {
+      final Set<String> keys = new HashSet<>();
+      for ( BinaryTextRelation tlink : tlinks ) {
+         keys.add( tlink.getArg1().getArgument().getBegin() + " " + tlink.getCategory() + " "
+                   + tlink.getArg2().getArgument().getBegin() );
+      }
+      return keys;
+   }
+
+}
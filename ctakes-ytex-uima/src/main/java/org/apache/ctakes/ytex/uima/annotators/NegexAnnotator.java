@@ -27,9 +27,11 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -94,7 +96,22 @@ import org.apache.uima.resource.ResourceInitializationException;
 )
 public class NegexAnnotator extends JCasAnnotator_ImplBase {
 	private static final Log log = LogFactory.getLog(NegexAnnotator.class);
+	private static final Set<String> PREN_STOP_TAGS = new HashSet<String>(
+			Arrays.asList("[CONJ]", "[PSEU]", "[POST]", "[PREP]", "[POSP]"));
+	private static final Set<String> POST_STOP_TAGS = new HashSet<String>(
+			Arrays.asList("[CONJ]", "[PSEU]", "[PREN]", "[PREP]", "[POSP]"));
+	private static final Set<String> PREP_STOP_TAGS = new HashSet<String>(
+			Arrays.asList("[CONJ]", "[PSEU]", "[PREN]", "[POST]", "[POSP]"));
+	private static final Set<String> POSP_STOP_TAGS = new HashSet<String>(
+			Arrays.asList("[CONJ]", "[PSEU]", "[PREN]", "[POST]", "[PREP]"));
+	// regex characters that keep a trigger phrase from being matched literally
+	private static final String REGEX_CHARS = "\\^$.|?*+()[]{}_";
 	private List<NegexRule> listNegexRules = null;
+	/**
+	 * for each rule, the alphanumeric runs of its trigger phrase; null if the
+	 * rule must always be tried
+	 */
+	private List<String[]> listRuleRuns = null;
 	private boolean negatePossibilities = true;
 	private boolean checkPossibilities = true;
 	private boolean storeAsInterval = false;
@@ -104,7 +121,10 @@ public class NegexAnnotator extends JCasAnnotator_ImplBase {
 	public void initialize(UimaContext aContext)
 			throws ResourceInitializationException {
 		super.initialize(aContext);
-		this.listNegexRules = this.initializeRules();
+		this.listNegexRules = initializeRules();
+		this.listRuleRuns = new ArrayList<String[]>(listNegexRules.size());
+		for (NegexRule rule : listNegexRules)
+			listRuleRuns.add(getLiteralRuns(rule.getRule()));
 		negatePossibilities = getBooleanConfigParam(aContext,
 				"negatePossibilities", negatePossibilities);
 		if (negatePossibilities) {
@@ -126,11 +146,11 @@ public class NegexAnnotator extends JCasAnnotator_ImplBase {
 
 	}
 
-	private List<String> initalizeRuleList() {
+	private static List<String> initalizeRuleList() {
 		List<String> rules = new ArrayList<String>();
 		BufferedReader reader = null;
 		try {
-			reader = new BufferedReader(new InputStreamReader(this.getClass()
+			reader = new BufferedReader(new InputStreamReader(NegexAnnotator.class
 					.getResourceAsStream(
 							"/org/apache/ctakes/ytex/uima/annotators/negex_triggers.txt")));
 			String line = null;
@@ -166,8 +186,8 @@ public class NegexAnnotator extends JCasAnnotator_ImplBase {
 		return rules;
 	}
 
-	private List<NegexRule> initializeRules() {
-		List<String> listRules = this.initalizeRuleList();
+	static List<NegexRule> initializeRules() {
+		List<String> listRules = initalizeRuleList();
 		List<NegexRule> listNegexRules = new ArrayList<NegexRule>(
 				listRules.size());
 		Iterator<String> iRule = listRules.iterator();
@@ -216,6 +236,57 @@ public class NegexAnnotator extends JCasAnnotator_ImplBase {
 
 	}
 
+	/**
+	 * A rule built from a trigger phrase without regex characters can only
+	 * match where every alphanumeric run of the phrase is a whole alphanumeric
+	 * run of the sentence: the phrase is matched case insensitively (ascii
+	 * only), and is delimited by punctuation and whitespace. Blacking out a
+	 * named entity replaces characters with '_', which is not alphanumeric, so
+	 * it can only add runs where the named entity splits a word.
+	 * 
+	 * @param rule
+	 *            the trigger phrase, with words joined by \s+
+	 * @return the lower case alphanumeric runs of the phrase, or null if the
+	 *         phrase is not a literal
+	 */
+	static String[] getLiteralRuns(String rule) {
+		String phrase = rule.replace("\\s+", " ");
+		for (int i = 0; i < phrase.length(); i++) {
+			char c = phrase.charAt(i);
+			if (REGEX_CHARS.indexOf(c) >= 0
+					|| (c != ' ' && Character.isWhitespace(c)))
+				return null;
+		}
+		List<String> runs = getRuns(phrase);
+		return runs.isEmpty() ? null : runs.toArray(new String[runs.size()]);
+	}
+
+	/**
+	 * @return the maximal runs of ascii letters and digits in the text, lower
+	 *         cased
+	 */
+	static List<String> getRuns(CharSequence text) {
+		List<String> runs = new ArrayList<String>();
+		StringBuilder run = new StringBuilder();
+		for (int i = 0; i <= text.length(); i++) {
+			char c = i < text.length() ? text.charAt(i) : ' ';
+			if (c >= 'A' && c <= 'Z') {
+				run.append((char) (c + ('a' - 'A')));
+			} else if (isRunChar(c)) {
+				run.append(c);
+			} else if (run.length() > 0) {
+				runs.add(run.toString());
+				run.setLength(0);
+			}
+		}
+		return runs;
+	}
+
+	private static boolean isRunChar(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')
+				|| (c >= '0' && c <= '9');
+	}
+
 	public static interface TargetAnnoFilter {
 		public boolean filter(Annotation anno);
 	}
@@ -265,14 +336,165 @@ public class NegexAnnotator extends JCasAnnotator_ImplBase {
 		FSIterator sentenceIter = sentenceIdx.iterator();
 		while (sentenceIter.hasNext()) {
 			Sentence s = (Sentence) sentenceIter.next();
+			// the triggers in the sentence, found when the first annotation
+			// needs them
+			NegexSentence negexSentence = null;
 			FSIterator neIter = targetIdx.subiterator(s);
 			while (neIter.hasNext()) {
 				Annotation ne = (Annotation) neIter.next();
-				if (filter == null || filter.filter(ne))
-					checkNegation(aJCas, s, ne);
-				// checkNegation2(aJCas, s, ne);
+				if (filter == null || filter.filter(ne)) {
+					if (negexSentence == null)
+						negexSentence = new NegexSentence(s.getCoveredText(),
+								listNegexRules, listRuleRuns);
+					checkNegation(aJCas, s, ne, negexSentence);
+				}
+			}
+		}
+	}
+
+	/**
+	 * The rules that can match in a sentence, and the triggers found for each
+	 * named entity span in it. The rules are those whose trigger phrase occurs
+	 * in the sentence, found with a single pass over the sentence, so each
+	 * named entity is only matched against those. Named entities with the
+	 * same span share their triggers.
+	 */
+	static class NegexSentence {
+		private String sentence;
+		private List<NegexRule> rules;
+		private List<String[]> ruleRuns;
+		private Set<String> sentenceRuns;
+		private List<NegexRule> candidateRules;
+		private Map<Long, NegexToken[]> spanTokens = new HashMap<Long, NegexToken[]>();
+
+		NegexSentence(String sentenceText, List<NegexRule> rules,
+				List<String[]> ruleRuns) {
+			// need to add . on either side due to the way the regexs are built
+			this.sentence = "." + sentenceText + ".";
+			this.rules = rules;
+			this.ruleRuns = ruleRuns;
+			this.sentenceRuns = new HashSet<String>(getRuns(sentence));
+			this.candidateRules = getCandidateRules(sentenceRuns);
+		}
+
+		private List<NegexRule> getCandidateRules(Set<String> runs) {
+			List<NegexRule> candidates = new ArrayList<NegexRule>();
+			for (int i = 0; i < rules.size(); i++) {
+				String[] literalRuns = ruleRuns.get(i);
+				boolean candidate = true;
+				if (literalRuns != null) {
+					for (int j = 0; j < literalRuns.length && candidate; j++)
+						candidate = runs.contains(literalRuns[j]);
+				}
+				if (candidate)
+					candidates.add(rules.get(i));
+			}
+			return candidates;
+		}
+
+		String getSentence() {
+			return sentence;
+		}
+
+		List<NegexRule> getCandidateRules() {
+			return candidateRules;
+		}
+
+		/**
+		 * @return the triggers found with the named entity blacked out; must not
+		 *         be modified
+		 */
+		NegexToken[] getTokens(int neRelStart, int neRelEnd) {
+			Long span = ((long) neRelStart << 32) | (neRelEnd & 0xffffffffL);
+			NegexToken[] tokens = spanTokens.get(span);
+			if (tokens == null) {
+				// a named entity that starts or ends inside a word leaves part
+				// of the word as a run of its own
+				List<String> pieces = new ArrayList<String>(2);
+				if (neRelStart < neRelEnd && neRelStart > 0
+						&& isRunChar(sentence.charAt(neRelStart - 1))
+						&& isRunChar(sentence.charAt(neRelStart))) {
+					int pieceStart = neRelStart - 1;
+					while (pieceStart > 0
+							&& isRunChar(sentence.charAt(pieceStart - 1)))
+						pieceStart--;
+					pieces.addAll(getRuns(sentence.substring(pieceStart,
+							neRelStart)));
+				}
+				if (neRelStart < neRelEnd && neRelEnd < sentence.length()
+						&& isRunChar(sentence.charAt(neRelEnd - 1))
+						&& isRunChar(sentence.charAt(neRelEnd))) {
+					int pieceEnd = neRelEnd + 1;
+					while (pieceEnd < sentence.length()
+							&& isRunChar(sentence.charAt(pieceEnd)))
+						pieceEnd++;
+					pieces.addAll(getRuns(sentence.substring(neRelEnd,
+							pieceEnd)));
+				}
+				List<NegexRule> spanRules = candidateRules;
+				if (!pieces.isEmpty()) {
+					Set<String> runs = new HashSet<String>(sentenceRuns);
+					runs.addAll(pieces);
+					spanRules = getCandidateRules(runs);
+				}
+				tokens = findTriggers(sentence, neRelStart, neRelEnd, spanRules);
+				spanTokens.put(span, tokens);
+			}
+			return tokens;
+		}
+	}
+
+	/**
+	 * Match the rules against the sentence with the named entity blacked out.
+	 * Rules are tried in order, and each match blacks out its range so that
+	 * later rules do not match it.
+	 * 
+	 * @param sentence
+	 *            the sentence, with the extra . on either side
+	 * @param neRelStart
+	 *            start of the named entity in the sentence
+	 * @param neRelEnd
+	 *            end of the named entity in the sentence
+	 * @param rules
+	 *            rules to match
+	 * @return array that maps each character of the sentence to a token
+	 */
+	static NegexToken[] findTriggers(String sentence, int neRelStart,
+			int neRelEnd, List<NegexRule> rules) {
+		// allocate array of tokens
+		// this maps each character of the sentence to a token
+		NegexToken[] tokens = new NegexToken[sentence.length()];
+		// char buffer for modify the sentence
+		// we want to 'black out' trigger words already found and the phrase we
+		// were looking for
+		CharBuffer buf = CharBuffer.wrap(sentence.toCharArray());
+		// black out the ne in the sentence buffer
+		for (int i = neRelStart; i < neRelEnd; i++) {
+			// black out the named entity from the char buffer
+			buf.put(i, '_');
+		}
+		// look for negex rules in the sentence
+		for (NegexRule rule : rules) {
+			Matcher m = rule.getPattern().matcher(buf);
+			while (m.find() == true) {
+				// see if the range has not already been marked
+				boolean bUnoccupied = true;
+				for (int i = m.start(); i < m.end() && bUnoccupied; i++)
+					bUnoccupied = tokens[i] == null;
+				if (bUnoccupied) {
+					// mark the range in the sentence with this token
+					// black it out so other rules do not match
+					NegexToken t = new NegexToken(m.start(), m.end(), rule);
+					for (int i = m.start(); i < m.end() && bUnoccupied; i++) {
+						// black out this range from the char buffer
+						buf.put(i, '_');
+						// add the token to the array
+						tokens[i] = t;
+					}
+				}
 			}
 		}
+		return tokens;
 	}
 
 	public static class NegexRule {
@@ -429,10 +651,8 @@ public class NegexAnnotator extends JCasAnnotator_ImplBase {
 
 	}
 
-	private NegexToken findTokenByTag(String tag, String stopTags[],
+	private NegexToken findTokenByTag(String tag, Set<String> stopTagSet,
 			boolean before, int neRelStart, int neRelEnd, NegexToken tokens[]) {
-		Set<String> stopTagSet = new HashSet<String>(stopTags.length);
-		stopTagSet.addAll(Arrays.asList(stopTags));
 		if (before) {
 			for (int i = neRelStart - 1; i > 0; i--) {
 				if (tokens[i] != null) {
@@ -464,80 +684,41 @@ public class NegexAnnotator extends JCasAnnotator_ImplBase {
 	 *            the sentence in which we will look
 	 * @param ne
 	 *            the named entity whose negation status will be checked.
-	 * @param checkPoss
-	 *            should possibility be checked?
-	 * @param negPoss
-	 *            should possiblities be negated?
+	 * @param negexSentence
+	 *            the rules that can match in the sentence
 	 */
-	private void checkNegation(JCas aJCas, Sentence s, Annotation ne) {
+	private void checkNegation(JCas aJCas, Sentence s, Annotation ne,
+			NegexSentence negexSentence) {
 		if (storeAsInterval && ne instanceof IdentifiedAnnotation) {
 			// default is affirmed, which is coded as confidence = 1
 			((IdentifiedAnnotation) ne).setConfidence(1);
 		}
-		// need to add . on either side due to the way the regexs are built
-		String sentence = "." + s.getCoveredText() + ".";
-		// allocate array of tokens
-		// this maps each character of the sentence to a token
-		NegexToken[] tokens = new NegexToken[sentence.length()];
-		// char buffer for modify the sentence
-		// we want to 'black out' trigger words already found and the phrase we
-		// were looking for
-		CharBuffer buf = CharBuffer.wrap(sentence.toCharArray());
 		// calculate location of the ne relative to the sentence
 		int neRelStart = ne.getBegin() - s.getBegin() + 1;
 		int neRelEnd = ne.getEnd() - s.getBegin() + 1;
-		// black out the ne in the sentence buffer
-		for (int i = neRelStart; i < neRelEnd; i++) {
-			// black out the named entity from the char buffer
-			buf.put(i, '_');
-		}
-		// look for negex rules in the sentence
-		for (NegexRule rule : this.listNegexRules) {
-			Matcher m = rule.getPattern().matcher(buf);
-			while (m.find() == true) {
-				// see if the range has not already been marked
-				boolean bUnoccupied = true;
-				for (int i = m.start(); i < m.end() && bUnoccupied; i++)
-					bUnoccupied = tokens[i] == null;
-				if (bUnoccupied) {
-					// mark the range in the sentence with this token
-					// black it out so other rules do not match
-					NegexToken t = new NegexToken(m.start(), m.end(), rule);
-					for (int i = m.start(); i < m.end() && bUnoccupied; i++) {
-						// black out this range from the char buffer
-						buf.put(i, '_');
-						// add the token to the array
-						tokens[i] = t;
-					}
-				}
-			}
-		}
+		NegexToken[] tokens = negexSentence.getTokens(neRelStart, neRelEnd);
 		// prenegation
 		// look for a PREN rule before the ne, without any intervening stop tags
-		NegexToken t = this.findTokenByTag("[PREN]", new String[] { "[CONJ]",
-				"[PSEU]", "[POST]", "[PREP]", "[POSP]" }, true, neRelStart,
-				neRelEnd, tokens);
+		NegexToken t = this.findTokenByTag("[PREN]", PREN_STOP_TAGS, true,
+				neRelStart, neRelEnd, tokens);
 		if (t != null) {
 			// hit - negate the ne
 			annotateNegation(aJCas, s, ne, t, true, false);
 		} else {
 			// look for POST rule after the ne, without any intervening stop
 			// tags
-			t = this.findTokenByTag("[POST]", new String[] { "[CONJ]",
-					"[PSEU]", "[PREN]", "[PREP]", "[POSP]" }, false,
+			t = this.findTokenByTag("[POST]", POST_STOP_TAGS, false,
 					neRelStart, neRelEnd, tokens);
 			if (t != null) {
 				annotateNegation(aJCas, s, ne, t, true, false);
 			} else if (this.checkPossibilities || this.negatePossibilities) {
 				// check possibles
-				t = this.findTokenByTag("[PREP]", new String[] { "[CONJ]",
-						"[PSEU]", "[PREN]", "[POST]", "[POSP]" }, true,
+				t = this.findTokenByTag("[PREP]", PREP_STOP_TAGS, true,
 						neRelStart, neRelEnd, tokens);
 				if (t != null) {
 					annotateNegation(aJCas, s, ne, t, false, true);
 				} else {
-					t = this.findTokenByTag("[POSP]", new String[] { "[CONJ]",
-							"[PSEU]", "[PREN]", "[POST]", "[PREP]" }, false,
+					t = this.findTokenByTag("[POSP]", POSP_STOP_TAGS, false,
 							neRelStart, neRelEnd, tokens);
 					if (t != null)
 						annotateNegation(aJCas, s, ne, t, true, true);
@@ -546,262 +727,6 @@ public class NegexAnnotator extends JCasAnnotator_ImplBase {
 		}
 	}
 
-	private void checkNegation2(JCas aJCas, Sentence s,
-			IdentifiedAnnotation ne, boolean negPoss) {
-		// Sorter s = new Sorter();
-		String sToReturn = "";
-		String sScope = "";
-		// String sentencePortion = "";
-		// ArrayList sortedRules = null;
-
-		String filler = "_";
-		// boolean negationScope = true;
-
-		// Sort the rules by length in descending order.
-		// Rules need to be sorted so the longest rule is always tried to match
-		// first.
-		// Some of the rules overlap so without sorting first shorter rules
-		// (some of them POSSIBLE or PSEUDO)
-		// would match before longer legitimate negation rules.
-		//
-
-		// There is efficiency issue here. It is better if rules are sorted by
-		// the
-		// calling program once and used without sorting in GennegEx.
-		// sortedRules = this.rules;
-
-		// Process the sentence and tag each matched negation
-		// rule with correct negation rule tag.
-		//
-		// At the same time check for the phrase that we want to decide
-		// the negation status for and
-		// tag the phrase with [PHRASE] ... [PHRASE]
-		// In both the negation rules and in the phrase replace white space
-		// with "filler" string. (This could cause problems if the sentences
-		// we study has "filler" on their own.)
-
-		// Sentence needs one character in the beginning and end to match.
-		// We remove the extra characters after processing.
-		// vng String sentence = "." + sentenceString + ".";
-		String sentence = "." + s.getCoveredText() + ".";
-
-		// Tag the phrases we want to detect for negation.
-		// Should happen before rule detection.
-		// vng String phrase = phraseString;
-		String phrase = ne.getCoveredText();
-		Pattern pph = Pattern.compile(phrase.trim(), Pattern.CASE_INSENSITIVE);
-		Matcher mph = pph.matcher(sentence);
-		CharBuffer buf = CharBuffer.wrap(sentence.toCharArray());
-
-		while (mph.find() == true) {
-			sentence = mph.replaceAll(" [PHRASE]"
-					+ mph.group().trim().replaceAll(" ", filler) + "[PHRASE]");
-		}
-
-		for (NegexRule rule : this.listNegexRules) {
-			Matcher m = rule.getPattern().matcher(sentence);
-			while (m.find() == true) {
-				sentence = m.replaceAll(" " + rule.getTag()
-						+ m.group().trim().replaceAll(" ", filler)
-						+ rule.getTag() + " ");
-			}
-		}
-
-		// Exchange the [PHRASE] ... [PHRASE] tags for [NEGATED] ... [NEGATED]
-		// based of PREN, POST rules and if flag is set to true
-		// then based on PREP and POSP, as well.
-
-		// Because PRENEGATION [PREN} is checked first it takes precedent over
-		// POSTNEGATION [POST].
-		// Similarly POSTNEGATION [POST] takes precedent over POSSIBLE
-		// PRENEGATION [PREP]
-		// and [PREP] takes precedent over POSSIBLE POSTNEGATION [POSP].
-
-		Pattern pSpace = Pattern.compile("[\\s+]");
-		String[] sentenceTokens = pSpace.split(sentence);
-		StringBuilder sb = new StringBuilder();
-
-		// Check for [PREN]
-		for (int i = 0; i < sentenceTokens.length; i++) {
-			sb.append(" " + sentenceTokens[i].trim());
-			if (sentenceTokens[i].trim().startsWith("[PREN]")) {
-
-				for (int j = i + 1; j < sentenceTokens.length; j++) {
-					if (sentenceTokens[j].trim().startsWith("[CONJ]")
-							|| sentenceTokens[j].trim().startsWith("[PSEU]")
-							|| sentenceTokens[j].trim().startsWith("[POST]")
-							|| sentenceTokens[j].trim().startsWith("[PREP]")
-							|| sentenceTokens[j].trim().startsWith("[POSP]")) {
-						break;
-					}
-
-					if (sentenceTokens[j].trim().startsWith("[PHRASE]")) {
-						sentenceTokens[j] = sentenceTokens[j].trim()
-								.replaceAll("\\[PHRASE\\]", "[NEGATED]");
-					}
-				}
-			}
-		}
-
-		sentence = sb.toString();
-		pSpace = Pattern.compile("[\\s+]");
-		sentenceTokens = pSpace.split(sentence);
-		StringBuilder sb2 = new StringBuilder();
-
-		// Check for [POST]
-		for (int i = sentenceTokens.length - 1; i > 0; i--) {
-			sb2.insert(0, sentenceTokens[i] + " ");
-			if (sentenceTokens[i].trim().startsWith("[POST]")) {
-				for (int j = i - 1; j > 0; j--) {
-					if (sentenceTokens[j].trim().startsWith("[CONJ]")
-							|| sentenceTokens[j].trim().startsWith("[PSEU]")
-							|| sentenceTokens[j].trim().startsWith("[PREN]")
-							|| sentenceTokens[j].trim().startsWith("[PREP]")
-							|| sentenceTokens[j].trim().startsWith("[POSP]")) {
-						break;
-					}
-
-					if (sentenceTokens[j].trim().startsWith("[PHRASE]")) {
-						sentenceTokens[j] = sentenceTokens[j].trim()
-								.replaceAll("\\[PHRASE\\]", "[NEGATED]");
-					}
-				}
-			}
-		}
-		sentence = sb2.toString();
-
-		// If POSSIBLE negation is detected as negation.
-		// negatePossible being set to "true" then check for [PREP] and [POSP].
-		if (negPoss == true) {
-			pSpace = Pattern.compile("[\\s+]");
-			sentenceTokens = pSpace.split(sentence);
-
-			StringBuilder sb3 = new StringBuilder();
-
-			// Check for [PREP]
-			for (int i = 0; i < sentenceTokens.length; i++) {
-				sb3.append(" " + sentenceTokens[i].trim());
-				if (sentenceTokens[i].trim().startsWith("[PREP]")) {
-
-					for (int j = i + 1; j < sentenceTokens.length; j++) {
-						if (sentenceTokens[j].trim().startsWith("[CONJ]")
-								|| sentenceTokens[j].trim()
-										.startsWith("[PSEU]")
-								|| sentenceTokens[j].trim()
-										.startsWith("[POST]")
-								|| sentenceTokens[j].trim()
-										.startsWith("[PREN]")
-								|| sentenceTokens[j].trim()
-										.startsWith("[POSP]")) {
-							break;
-						}
-
-						if (sentenceTokens[j].trim().startsWith("[PHRASE]")) {
-							sentenceTokens[j] = sentenceTokens[j].trim()
-									.replaceAll("\\[PHRASE\\]", "[POSSIBLE]");
-						}
-					}
-				}
-			}
-			sentence = sb3.toString();
-			pSpace = Pattern.compile("[\\s+]");
-			sentenceTokens = pSpace.split(sentence);
-			StringBuilder sb4 = new StringBuilder();
-
-			// Check for [POSP]
-			for (int i = sentenceTokens.length - 1; i > 0; i--) {
-				sb4.insert(0, sentenceTokens[i] + " ");
-				if (sentenceTokens[i].trim().startsWith("[POSP]")) {
-					for (int j = i - 1; j > 0; j--) {
-						if (sentenceTokens[j].trim().startsWith("[CONJ]")
-								|| sentenceTokens[j].trim()
-										.startsWith("[PSEU]")
-								|| sentenceTokens[j].trim()
-										.startsWith("[PREN]")
-								|| sentenceTokens[j].trim()
-										.startsWith("[PREP]")
-								|| sentenceTokens[j].trim()
-										.startsWith("[POST]")) {
-							break;
-						}
-
-						if (sentenceTokens[j].trim().startsWith("[PHRASE]")) {
-							sentenceTokens[j] = sentenceTokens[j].trim()
-									.replaceAll("\\[PHRASE\\]", "[POSSIBLE]");
-						}
-					}
-				}
-			}
-			sentence = sb4.toString();
-		}
-
-		// Remove the filler character we used.
-		sentence = sentence.replaceAll(filler, " ");
-
-		// Remove the extra periods at the beginning
-		// and end of the sentence.
-		sentence = sentence.substring(0, sentence.trim().lastIndexOf('.'));
-		sentence = sentence.replaceFirst(".", "");
-
-		// Get the scope of the negation for PREN and PREP
-		if (sentence.contains("[PREN]") || sentence.contains("[PREP]")) {
-			int startOffset = sentence.indexOf("[PREN]");
-			if (startOffset == -1) {
-				startOffset = sentence.indexOf("[PREP]");
-			}
-
-			int endOffset = sentence.indexOf("[CONJ]");
-			if (endOffset == -1) {
-				endOffset = sentence.indexOf("[PSEU]");
-			}
-			if (endOffset == -1) {
-				endOffset = sentence.indexOf("[POST]");
-			}
-			if (endOffset == -1) {
-				endOffset = sentence.indexOf("[POSP]");
-			}
-			if (endOffset == -1 || endOffset < startOffset) {
-				endOffset = sentence.length() - 1;
-			}
-			sScope = sentence.substring(startOffset, endOffset + 1);
-		}
-
-		// Get the scope of the negation for POST and POSP
-		if (sentence.contains("[POST]") || sentence.contains("[POSP]")) {
-			int endOffset = sentence.lastIndexOf("[POST]");
-			if (endOffset == -1) {
-				endOffset = sentence.lastIndexOf("[POSP]");
-			}
-
-			int startOffset = sentence.lastIndexOf("[CONJ]");
-			if (startOffset == -1) {
-				startOffset = sentence.lastIndexOf("[PSEU]");
-			}
-			if (startOffset == -1) {
-				startOffset = sentence.lastIndexOf("[PREN]");
-			}
-			if (startOffset == -1) {
-				startOffset = sentence.lastIndexOf("[PREP]");
-			}
-			if (startOffset == -1) {
-				startOffset = 0;
-			}
-			sScope = sentence.substring(startOffset, endOffset);
-		}
-
-		// Classify to: negated/possible/affirmed
-		if (sentence.contains("[NEGATED]")) {
-			sentence = sentence + "\t" + "negated" + "\t" + sScope;
-		} else if (sentence.contains("[POSSIBLE]")) {
-			sentence = sentence + "\t" + "possible" + "\t" + sScope;
-		} else {
-			sentence = sentence + "\t" + "affirmed" + "\t" + sScope;
-		}
-
-		sToReturn = sentence;
-		System.out.println(sToReturn);
-	}
-
 	/**
 	 * set the certainty/confidence flag on a named entity, and add a negation
 	 * context annotation.
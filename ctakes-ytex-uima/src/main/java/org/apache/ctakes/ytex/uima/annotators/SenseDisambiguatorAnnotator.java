@@ -58,6 +58,8 @@ import com.google.common.base.Strings;
  * +- windowSize around the target named entity are used for disambiguation.
  * defaults to 10
  * <li>ytex.sense.metric - measure to use. defaults to INTRINSIC_PATH
+ * <li>ytex.sense.threads - number of threads used to score the concept pairs
+ * of a document. defaults to 1
  * <li>ytex.conceptGraph - concept graph to use.
  * <li>ytex.conceptProperty - field of ontology concept to use. Use cui for
  * UmlsConcept, code for OntologyConcept.
@@ -192,16 +194,23 @@ public class SenseDisambiguatorAnnotator extends JCasAnnotator_ImplBase {
 		}
 		if(log.isTraceEnabled())
 			log.trace("listConcept: " + listConcept);
-		// iterate through named entities and disambiguate
+		// disambiguate all the named entities at once
+		List<Map<String, Double>> listScores = new ArrayList<Map<String, Double>>(
+				listConcept.size());
+		for (Set<String> conceptSenses : listConcept) {
+			// only bother with wsd if there is more than one sense
+			listScores.add(conceptSenses.size() > 1 ? new HashMap<String, Double>()
+					: null);
+		}
+		List<String> listBestConcept = this.wsd.disambiguate(listConcept,
+				null, windowSize, metric, listScores, true);
 		for (int i = 0; i < listConcept.size(); i++) {
 			Set<String> conceptSenses = listConcept.get(i);
-			// only bother with wsd if there is more than one sense
 			if (conceptSenses.size() > 1) {
 				if(log.isTraceEnabled())
 					log.trace("i: " + i + ", conceptSenses: " + conceptSenses);
-				Map<String, Double> scores = new HashMap<String, Double>();
-				String concept = this.wsd.disambiguate(listConcept, i, null,
-						windowSize, metric, scores, true);
+				Map<String, Double> scores = listScores.get(i);
+				String concept = listBestConcept.get(i);
 				if(log.isTraceEnabled())
 					log.trace("i: " + i + ", concept: " + concept);
 				IdentifiedAnnotation ne = listNonTrivialNE.get(i);
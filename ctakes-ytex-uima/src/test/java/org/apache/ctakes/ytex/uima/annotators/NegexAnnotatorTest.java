@@ -0,0 +1,88 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.ytex.uima.annotators;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.ctakes.ytex.uima.annotators.NegexAnnotator.NegexRule;
+import org.apache.ctakes.ytex.uima.annotators.NegexAnnotator.NegexSentence;
+import org.apache.ctakes.ytex.uima.annotators.NegexAnnotator.NegexToken;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Verify that matching only the rules whose trigger phrase occurs in the
+ * sentence finds the same triggers as matching every rule.
+ */
+public class NegexAnnotatorTest {
+
+	private static final String[] SENTENCES = {
+			"Patient denies chest pain or shortness of breath.",
+			"No evidence of pneumonia, but r/o pulmonary embolism.",
+			"CT was negative for mass; cannot exclude small nodule.",
+			"Fever has resolved, cough is unlikely to be related to asthma.",
+			"There was no significant interval change in the effusion.",
+			"Rule out MI versus angina which was ruled out previously.",
+			"NO EVIDENCE OF FRACTURE;no_dislocation.",
+			"", };
+
+	@Test
+	public void testCandidateRules() {
+		List<NegexRule> rules = NegexAnnotator.initializeRules();
+		Assert.assertFalse(rules.isEmpty());
+		List<String[]> ruleRuns = new ArrayList<String[]>(rules.size());
+		for (NegexRule rule : rules)
+			ruleRuns.add(NegexAnnotator.getLiteralRuns(rule.getRule()));
+		int triggers = 0;
+		for (String text : SENTENCES) {
+			NegexSentence negexSentence = new NegexSentence(text, rules,
+					ruleRuns);
+			Assert.assertTrue(negexSentence.getCandidateRules().size() <= rules
+					.size());
+			String sentence = negexSentence.getSentence();
+			// every span of up to 30 characters that a named entity could
+			// cover, including spans that split words
+			for (int start = 1; start < sentence.length() - 1; start++) {
+				for (int end = start + 1; end < sentence.length()
+						&& end <= start + 30; end++) {
+					NegexToken[] expected = NegexAnnotator.findTriggers(
+							sentence, start, end, rules);
+					NegexToken[] actual = negexSentence.getTokens(start, end);
+					Assert.assertTrue(text + " " + start + "," + end,
+							Arrays.equals(expected, actual));
+					for (NegexToken t : actual)
+						if (t != null)
+							triggers++;
+				}
+			}
+		}
+		Assert.assertTrue(triggers > 0);
+	}
+
+	@Test
+	public void testLiteralRuns() {
+		Assert.assertArrayEquals(new String[] { "no", "evidence", "of" },
+				NegexAnnotator.getLiteralRuns("no\\s+evidence\\s+of"));
+		Assert.assertArrayEquals(new String[] { "r", "o" },
+				NegexAnnotator.getLiteralRuns("r/o"));
+		Assert.assertNull(NegexAnnotator.getLiteralRuns("rule(s)?\\s+out"));
+	}
+}
@@ -49,6 +49,8 @@ public class AppJdl {
 	private String srcConn;
 	private String srcData;
 	private String srcLoad;
+	private int writers = 1;
+	private File progressFile;
 	public static final URL XSD = AppJdl.class
 			.getResource("/org/apache/ctakes/jdl/xdl.xsd");
 
@@ -66,6 +68,33 @@ public class AppJdl {
 		this.srcLoad = srcLoad;
 	}
 
+	/**
+	 * @param srcConn
+	 *            the conn file
+	 * @param srcData
+	 *            the data file
+	 * @param srcLoad
+	 *            the load file
+	 * @param writers
+	 *            the number of writer connections
+	 * @param progressFile
+	 *            the file recording committed chunks to resume from, may be
+	 *            null
+	 */
+	public AppJdl(String srcConn, String srcData, String srcLoad, int writers,
+			File progressFile) {
+		this(srcConn, srcData, srcLoad);
+		this.writers = writers;
+		this.progressFile = progressFile;
+	}
+
+	/**
+	 * @return true if rows are loaded in chunks by writer threads
+	 */
+	private boolean isParallel() {
+		return writers > 1 || progressFile != null;
+	}
+
 	/**
 	 * Execute the loader of the data into the database.
 	 */
@@ -87,7 +116,11 @@ public class AppJdl {
 						try {
 							CsvLoader csvLoader = new CsvLoader(csv, new File(
 									srcData));
-							csvLoader.dataInsert(jdlConnection);
+							if (isParallel())
+								csvLoader.dataInsert(jdlConnection, writers,
+										progressFile);
+							else
+								csvLoader.dataInsert(jdlConnection);
 						} catch (FileNotFoundException e) {
 							throw new RuntimeException(e);
 						}
@@ -96,7 +129,11 @@ public class AppJdl {
 					if (xml != null) {
 						XmlLoader xPathParsing = new XmlLoader(xml,
 								DomUtil.srcToDocument(srcData));
-						xPathParsing.dataInsert(jdlConnection);
+						if (isParallel())
+							xPathParsing.dataInsert(jdlConnection, writers,
+									progressFile);
+						else
+							xPathParsing.dataInsert(jdlConnection);
 					}
 				} catch (JAXBException e) {
 					e.printStackTrace();
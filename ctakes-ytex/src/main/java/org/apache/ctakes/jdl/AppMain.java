@@ -18,6 +18,7 @@
  */
 package org.apache.ctakes.jdl;
 
+import java.io.File;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.HelpFormatter;
@@ -35,12 +36,18 @@ public final class AppMain {
 	private static final String OPT_XDL_CONN_LONG = "conn";
 	private static final String OPT_XDL_DATA_LONG = "data";
 	private static final String OPT_XDL_LOAD_LONG = "load";
+	private static final String OPT_XDL_THREADS_LONG = "threads";
+	private static final String OPT_XDL_PROGRESS_LONG = "progress";
 	private static final String OPT_XDL_CONN_DESCR = "conn file";
 	private static final String OPT_XDL_DATA_DESCR = "data file";
 	private static final String OPT_XDL_LOAD_DESCR = "load file";
+	private static final String OPT_XDL_THREADS_DESCR = "number of writer connections";
+	private static final String OPT_XDL_PROGRESS_DESCR = "progress file to resume an interrupted load from, with the same data and load files";
 	public static final String OPT_XDL_CONN = "c";
 	public static final String OPT_XDL_DATA = "d";
 	public static final String OPT_XDL_LOAD = "l";
+	public static final String OPT_XDL_THREADS = "t";
+	public static final String OPT_XDL_PROGRESS = "p";
 
 	private AppMain() {
 	}
@@ -57,6 +64,8 @@ public final class AppMain {
 		options.addOption(optXdlConn);
 		options.addOption(optXdlData);
 		options.addOption(OPT_XDL_LOAD, OPT_XDL_LOAD_LONG, true, OPT_XDL_LOAD_DESCR);
+		options.addOption(OPT_XDL_THREADS, OPT_XDL_THREADS_LONG, true, OPT_XDL_THREADS_DESCR);
+		options.addOption(OPT_XDL_PROGRESS, OPT_XDL_PROGRESS_LONG, true, OPT_XDL_PROGRESS_DESCR);
 		return options;
 	}
 
@@ -85,8 +94,11 @@ public final class AppMain {
 			String srcConn = cl.getOptionValue(OPT_XDL_CONN);
 			String srcData = cl.getOptionValue(OPT_XDL_DATA);
 			String srcLoad = cl.getOptionValue(OPT_XDL_LOAD);
-			new AppJdl(srcConn, srcData, srcLoad).execute();
-		} catch (ParseException e) {
+			int writers = Integer.parseInt(cl.getOptionValue(OPT_XDL_THREADS, "1"));
+			String srcProgress = cl.getOptionValue(OPT_XDL_PROGRESS);
+			new AppJdl(srcConn, srcData, srcLoad, writers,
+					srcProgress == null ? null : new File(srcProgress)).execute();
+		} catch (ParseException | NumberFormatException e) {
 			new HelpFormatter().printHelp(cmdLineSyntax, header, getOprions(), null, true);
 		}
 	}
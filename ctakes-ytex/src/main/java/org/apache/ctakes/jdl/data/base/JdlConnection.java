@@ -50,6 +50,18 @@ public class JdlConnection {
 		password = StringUtils.defaultIfEmpty(jdbc.getPassword(), password);
 	}
 
+	/**
+	 * @param jdlConnection
+	 *            the jdlConnection whose settings to use; the new instance
+	 *            opens its own connection
+	 */
+	public JdlConnection(final JdlConnection jdlConnection) {
+		driver = jdlConnection.driver;
+		url = jdlConnection.url;
+		user = jdlConnection.user;
+		password = jdlConnection.password;
+	}
+
 	/**
 	 * @return the connected
 	 * @throws SQLException
@@ -146,63 +146,7 @@ public class CsvLoader extends Loader {
 				}
 				r++;
 				try {
-					int cs = 0; // columns to skip
-					int ce = 0; // columns from external
-					int c = 0;
-					// PreparedStatement preparedStatement = jdlConnection
-					// .getOpenConnection().prepareStatement(sql);
-					// if (ncommit == null) {
-					// jdlConnection.setAutoCommit(true);
-					// } else {
-					// jdlConnection.setAutoCommit(false);
-					// }
-					for (Column column : loader.getColumn()) {
-						if (BooleanUtils.isTrue(column.isSkip())) {
-							cs++;
-						} else {
-							c++;
-							Object value = column.getConstant();
-							ce++;
-							if (value == null) {
-								if (column.getSeq() != null) {
-									value = r + column.getSeq().intValue();
-								} else {
-									// value = values[r][c + cs - ce];
-									value = row[c + cs - ce];
-									ce--;
-								}
-							}
-							if (value == null
-									|| (value instanceof String && ((String) value)
-											.length() == 0))
-								preparedStatement.setObject(c, null);
-							else {
-								// if there is a formatter, parse the string
-								if (this.formatMap
-										.containsKey(column.getName())) {
-									try {
-										preparedStatement
-												.setObject(
-														c,
-														this.formatMap
-																.get(column
-																		.getName())
-																.parseObject(
-																		(String) value));
-									} catch (Exception e) {
-										System.err.println("Could not format '"
-												+ value + "' for column "
-												+ column.getName()
-												+ " on line " + r);
-										e.printStackTrace(System.err);
-										throw new RuntimeException(e);
-									}
-								} else {
-									preparedStatement.setObject(c, value);
-								}
-							}
-						}
-					}
+					setParameters(preparedStatement, row, r, formatMap);
 					preparedStatement.addBatch();
 					leftoversToCommit = true;
 					// preparedStatement.executeBatch();
@@ -254,4 +198,110 @@ public class CsvLoader extends Loader {
 		// e.printStackTrace();
 		// }
 	}
+
+	/**
+	 * Loads the rows through several writer connections, committing every
+	 * <code>commit</code> rows of the load file as one chunk.
+	 * 
+	 * @param jdlConnection
+	 *            the jdlConnection whose settings the writers use
+	 * @param writers
+	 *            the number of writer connections
+	 * @param progressFile
+	 *            the file recording committed chunks, null to load all rows
+	 * @see ParallelLoad
+	 */
+	public final void dataInsert(final JdlConnection jdlConnection,
+			final int writers, final File progressFile) {
+		String sql = getSqlInsert(loader);
+		if (log.isInfoEnabled())
+			log.info(sql);
+		final int rs = (loader.getSkip() == null) ? 0 : loader.getSkip()
+				.intValue();
+		ParallelLoad load = new ParallelLoad(jdlConnection, sql,
+				ParallelLoad.getChunkSize(loader.getCommit()), writers,
+				progressFile, () -> {
+					// formats are not thread safe, each writer gets copies
+					final Map<String, Format> formats = copyFormats();
+					return (preparedStatement, row, r) -> setParameters(
+							preparedStatement, (String[]) row, r, formats);
+				});
+		load.load(sink -> {
+			String[] row;
+			int r = 0;
+			while ((row = parser.getLine()) != null) {
+				r++;
+				if (r > rs)
+					sink.addRow(row, r);
+			}
+		});
+	}
+
+	private Map<String, Format> copyFormats() {
+		Map<String, Format> formats = new HashMap<String, Format>();
+		for (Map.Entry<String, Format> entry : formatMap.entrySet())
+			formats.put(entry.getKey(), (Format) entry.getValue().clone());
+		return formats;
+	}
+
+	/**
+	 * Binds the columns of a row.
+	 * 
+	 * @param preparedStatement
+	 *            the insert statement
+	 * @param row
+	 *            the values of the line
+	 * @param r
+	 *            the line number
+	 * @param formats
+	 *            the formats of the columns to parse
+	 * @throws SQLException
+	 *             exception
+	 */
+	private void setParameters(final PreparedStatement preparedStatement,
+			final String[] row, final int r, final Map<String, Format> formats)
+			throws SQLException {
+		int cs = 0; // columns to skip
+		int ce = 0; // columns from external
+		int c = 0;
+		for (Column column : loader.getColumn()) {
+			if (BooleanUtils.isTrue(column.isSkip())) {
+				cs++;
+			} else {
+				c++;
+				Object value = column.getConstant();
+				ce++;
+				if (value == null) {
+					if (column.getSeq() != null) {
+						value = r + column.getSeq().intValue();
+					} else {
+						value = row[c + cs - ce];
+						ce--;
+					}
+				}
+				if (value == null
+						|| (value instanceof String && ((String) value)
+								.length() == 0))
+					preparedStatement.setObject(c, null);
+				else {
+					// if there is a formatter, parse the string
+					if (formats.containsKey(column.getName())) {
+						try {
+							preparedStatement.setObject(c,
+									formats.get(column.getName())
+											.parseObject((String) value));
+						} catch (Exception e) {
+							System.err.println("Could not format '" + value
+									+ "' for column " + column.getName()
+									+ " on line " + r);
+							e.printStackTrace(System.err);
+							throw new RuntimeException(e);
+						}
+					} else {
+						preparedStatement.setObject(c, value);
+					}
+				}
+			}
+		}
+	}
 }
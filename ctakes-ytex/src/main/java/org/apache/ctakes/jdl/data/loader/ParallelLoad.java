@@ -0,0 +1,419 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.jdl.data.loader;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.ctakes.jdl.data.base.JdlConnection;
+
+/**
+ * Loads rows into a table through several writer connections.
+ * <p>
+ * The rows are read on the calling thread and grouped into chunks of
+ * <code>commit</code> rows. Chunks are passed through a bounded queue to the
+ * writers, each with its own connection, which bind the rows, insert them in
+ * JDBC batches and commit each chunk in one transaction. Binding runs on the
+ * writers, so the conversion of values (e.g. formatted dates) is spread over
+ * the writer threads.
+ * <p>
+ * The JDBC batch size adapts to the database: it grows while batches run
+ * faster than {@link #TARGET_BATCH_MILLIS} and shrinks when they run slower.
+ * <p>
+ * If a progress file is given, the first row number and size of every
+ * committed chunk is appended to it. A load restarted with the same progress
+ * file skips the chunks listed there, so an interrupted load resumes after
+ * its committed chunks. A chunk committed right before a crash but not yet
+ * recorded is loaded again.
+ * <p>
+ * Chunks are identified by their first row number, so a resumed load must read
+ * the same input with the same skip and commit size. The progress file
+ * records the chunk size, and a load with a different chunk size fails
+ * instead of inserting the committed rows a second time.
+ */
+public class ParallelLoad {
+	/**
+	 * Binds the values of a row to the insert statement. Each writer gets its
+	 * own binder, so binders need not be thread safe.
+	 */
+	public interface RowBinder {
+		/**
+		 * @param preparedStatement
+		 *            the insert statement
+		 * @param row
+		 *            the row as passed to {@link RowSink#addRow(Object, int)}
+		 * @param r
+		 *            the row number
+		 * @throws SQLException
+		 *             exception
+		 */
+		void bind(PreparedStatement preparedStatement, Object row, int r)
+				throws SQLException;
+	}
+
+	/**
+	 * Receives the rows read from the input.
+	 */
+	public interface RowSink {
+		/**
+		 * @param row
+		 *            the row, handed to a {@link RowBinder} on a writer thread
+		 * @param r
+		 *            the row number; rows must be added in increasing order
+		 * @throws InterruptedException
+		 *             if interrupted while waiting for the writers
+		 */
+		void addRow(Object row, int r) throws InterruptedException;
+	}
+
+	/**
+	 * Reads the input and adds its rows to the sink.
+	 */
+	public interface RowReader {
+		/**
+		 * @param sink
+		 *            the sink to add the rows to
+		 * @throws Exception
+		 *             exception
+		 */
+		void read(RowSink sink) throws Exception;
+	}
+
+	static final Log log = LogFactory.getLog(ParallelLoad.class);
+
+	/**
+	 * number of rows per chunk if the load file has no commit size
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 1000;
+	static final int TARGET_BATCH_MILLIS = 500;
+	static final int MIN_BATCH_SIZE = 10;
+	static final int INITIAL_BATCH_SIZE = 100;
+	static final int MAX_BATCH_SIZE = 50000;
+	static final String CHUNK_SIZE_KEY = "chunkSize=";
+
+	private final JdlConnection jdlConnection;
+	private final String sql;
+	private final int chunkSize;
+	private final int writers;
+	private final File progressFile;
+	private final Supplier<RowBinder> binders;
+	private final BlockingQueue<Chunk> queue;
+	private final Map<Integer, Integer> committedChunks = new HashMap<Integer, Integer>();
+	private final AtomicInteger rowsInserted = new AtomicInteger();
+	private final List<Future<?>> futures = new ArrayList<Future<?>>();
+	private Writer progressWriter;
+	private Chunk chunk;
+	private int rowsSkipped;
+
+	/**
+	 * @param jdlConnection
+	 *            the connection settings, each writer opens its own connection
+	 * @param sql
+	 *            the insert statement
+	 * @param chunkSize
+	 *            the number of rows committed together
+	 * @param writers
+	 *            the number of writer connections
+	 * @param progressFile
+	 *            the file recording committed chunks, null to load all rows
+	 * @param binders
+	 *            creates the binder of each writer
+	 */
+	public ParallelLoad(final JdlConnection jdlConnection, final String sql,
+			final int chunkSize, final int writers, final File progressFile,
+			final Supplier<RowBinder> binders) {
+		this.jdlConnection = jdlConnection;
+		this.sql = sql;
+		this.chunkSize = chunkSize;
+		this.writers = Math.max(1, writers);
+		this.progressFile = progressFile;
+		this.binders = binders;
+		this.queue = new ArrayBlockingQueue<Chunk>(2 * this.writers);
+	}
+
+	/**
+	 * @param commit
+	 *            the commit size of the load file, may be null
+	 * @return the chunk size to use
+	 */
+	public static int getChunkSize(final Number commit) {
+		return commit == null ? DEFAULT_CHUNK_SIZE : commit.intValue();
+	}
+
+	/**
+	 * Reads all rows and waits until the writers have committed them.
+	 *
+	 * @param reader
+	 *            the reader of the input
+	 * @return the number of rows inserted
+	 */
+	public int load(final RowReader reader) {
+		ExecutorService executor = Executors.newFixedThreadPool(writers);
+		try {
+			readProgress();
+			for (int i = 0; i < writers; i++) {
+				futures.add(executor.submit(() -> {
+					write();
+					return null;
+				}));
+			}
+			reader.read((row, r) -> addRow(row, r));
+			if (chunk != null) {
+				enqueue(chunk);
+				chunk = null;
+			}
+			for (int i = 0; i < writers; i++) {
+				enqueue(Chunk.END);
+			}
+			waitForWriters();
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		} finally {
+			executor.shutdownNow();
+			awaitWriters(executor);
+			closeProgress();
+		}
+		log.info("inserted " + rowsInserted.get() + " rows total, skipped "
+				+ rowsSkipped + " rows of committed chunks");
+		return rowsInserted.get();
+	}
+
+	private void addRow(final Object row, final int r)
+			throws InterruptedException {
+		if (chunk == null) {
+			chunk = new Chunk(r);
+		}
+		chunk.rows.add(row);
+		if (chunk.rows.size() == chunkSize) {
+			enqueue(chunk);
+			chunk = null;
+		}
+	}
+
+	/**
+	 * Queues a chunk unless it was committed by an earlier run, and fails fast
+	 * if a writer has failed.
+	 */
+	private void enqueue(final Chunk next) throws InterruptedException {
+		Integer committed = committedChunks.get(next.firstRow);
+		if (committed != null && committed.intValue() == next.rows.size()) {
+			rowsSkipped += next.rows.size();
+			return;
+		}
+		do {
+			for (Future<?> future : futures) {
+				if (future.isDone()) {
+					// throws if the writer failed
+					waitFor(future);
+				}
+			}
+		} while (!queue.offer(next, 1, TimeUnit.SECONDS));
+	}
+
+	private void waitForWriters() throws InterruptedException {
+		for (Future<?> future : futures) {
+			waitFor(future);
+		}
+	}
+
+	/**
+	 * Waits for the writers to stop, so that a chunk committed while the load
+	 * was failing is recorded before the progress file is closed.
+	 */
+	private void awaitWriters(final ExecutorService executor) {
+		try {
+			if (!executor.awaitTermination(1, TimeUnit.MINUTES))
+				log.warn("writers still running after the load stopped");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void waitFor(final Future<?> future) throws InterruptedException {
+		try {
+			future.get();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			throw new RuntimeException(cause);
+		}
+	}
+
+	private void write() throws Exception {
+		JdlConnection connection = new JdlConnection(jdlConnection);
+		RowBinder binder = binders.get();
+		PreparedStatement preparedStatement = null;
+		try {
+			preparedStatement = connection.getOpenConnection().prepareStatement(sql);
+			connection.setAutoCommit(false);
+			int batchSize = Math.min(INITIAL_BATCH_SIZE, chunkSize);
+			for (Chunk next = queue.take(); next != Chunk.END; next = queue.take()) {
+				int batched = 0;
+				long batchStart = System.currentTimeMillis();
+				for (int i = 0; i < next.rows.size(); i++) {
+					binder.bind(preparedStatement, next.rows.get(i), next.firstRow + i);
+					preparedStatement.addBatch();
+					batched++;
+					if (batched == batchSize) {
+						preparedStatement.executeBatch();
+						batchSize = adaptBatchSize(batchSize,
+								System.currentTimeMillis() - batchStart);
+						batched = 0;
+						batchStart = System.currentTimeMillis();
+					}
+				}
+				if (batched > 0) {
+					preparedStatement.executeBatch();
+				}
+				connection.commitConnection();
+				recordProgress(next);
+				log.info("inserted " + rowsInserted.addAndGet(next.rows.size())
+						+ " rows");
+			}
+		} catch (Exception e) {
+			try {
+				connection.rollbackConnection();
+			} catch (SQLException se) {
+				log.error("rollback", se);
+			}
+			throw e;
+		} finally {
+			if (preparedStatement != null) {
+				try {
+					preparedStatement.close();
+				} catch (Exception e) {
+				}
+			}
+			connection.closeConnection();
+		}
+	}
+
+	/**
+	 * @return the batch size scaled toward the target batch time, changed by
+	 *         at most a factor of 2
+	 */
+	static int adaptBatchSize(final int batchSize, final long millis) {
+		long scaled = batchSize * (long) TARGET_BATCH_MILLIS / Math.max(1, millis);
+		scaled = Math.max(batchSize / 2, Math.min(2L * batchSize, scaled));
+		return (int) Math.max(MIN_BATCH_SIZE, Math.min(MAX_BATCH_SIZE, scaled));
+	}
+
+	/**
+	 * Reads the chunks committed by earlier runs.
+	 *
+	 * @throws IllegalStateException
+	 *             if the progress file lists chunks of another size
+	 */
+	private void readProgress() throws IOException {
+		if (progressFile == null)
+			return;
+		Integer recordedChunkSize = null;
+		if (progressFile.exists()) {
+			BufferedReader reader = new BufferedReader(new FileReader(progressFile));
+			try {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					line = line.trim();
+					if (line.startsWith(CHUNK_SIZE_KEY)) {
+						recordedChunkSize = Integer.valueOf(line
+								.substring(CHUNK_SIZE_KEY.length()));
+						continue;
+					}
+					String[] fields = line.split(",");
+					if (fields.length == 2) {
+						committedChunks.put(Integer.valueOf(fields[0]),
+								Integer.valueOf(fields[1]));
+					}
+				}
+			} finally {
+				reader.close();
+			}
+			if (!committedChunks.isEmpty()
+					&& (recordedChunkSize == null || recordedChunkSize.intValue() != chunkSize)) {
+				throw new IllegalStateException("progress file " + progressFile
+						+ " lists chunks of " + recordedChunkSize
+						+ " rows, not " + chunkSize
+						+ "; resume with the same commit size or remove the file");
+			}
+			log.info("resuming after " + committedChunks.size()
+					+ " committed chunks listed in " + progressFile);
+		}
+		progressWriter = new FileWriter(progressFile, true);
+		if (recordedChunkSize == null || recordedChunkSize.intValue() != chunkSize) {
+			progressWriter.write(CHUNK_SIZE_KEY + chunkSize + "\n");
+			progressWriter.flush();
+		}
+	}
+
+	private void recordProgress(final Chunk committed) throws IOException {
+		if (progressFile == null)
+			return;
+		synchronized (progressWriter) {
+			progressWriter.write(committed.firstRow + "," + committed.rows.size() + "\n");
+			progressWriter.flush();
+		}
+	}
+
+	private void closeProgress() {
+		if (progressWriter != null) {
+			try {
+				progressWriter.close();
+			} catch (IOException e) {
+				log.error("closing " + progressFile, e);
+			}
+		}
+	}
+
+	/**
+	 * Rows committed together.
+	 */
+	private static final class Chunk {
+		static final Chunk END = new Chunk(-1);
+		final int firstRow;
+		final List<Object> rows = new ArrayList<Object>();
+
+		Chunk(final int firstRow) {
+			this.firstRow = firstRow;
+		}
+	}
+}
@@ -18,6 +18,7 @@
  */
 package org.apache.ctakes.jdl.data.loader;
 
+import java.io.File;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.Iterator;
@@ -81,30 +82,16 @@ public class XmlLoader extends Loader {
 			Iterator<?> iterator = context.iteratePointers(loader.getXroot());
 			while (iterator.hasNext()) {
 				r++;
-				NodePointer pointer = (NodePointer) iterator.next();
-				Node node = (Node) pointer.getNode();
-				JXPathContext context = JXPathContext.newContext(DomUtil.nodeToDocument(node));
+				Object[] values = getValues((NodePointer) iterator.next(), r);
 				try {
-					int c = 0;
 					PreparedStatement preparedStatement = jdlConnection.getOpenConnection().prepareStatement(sql);
 					if (ncommit == null) {
 						jdlConnection.setAutoCommit(true);
 					} else {
 						jdlConnection.setAutoCommit(false);
 					}
-					for (Column column : loader.getColumn()) {
-						c++;
-						Object value = column.getConstant();
-						if (value == null) {
-							if (column.getSeq() != null) {
-								value = r + column.getSeq().intValue();
-							} else if (column.getXpath() != null) {
-								value = this.context.getValue(column.getXpath());
-							} else {
-								value = context.getPointer(column.getXleaf()).getValue();
-							}
-						}
-						preparedStatement.setObject(c, value);
+					for (int c = 0; c < values.length; c++) {
+						preparedStatement.setObject(c + 1, values[c]);
 					}
 					executeBatch(preparedStatement);
 					if (!jdlConnection.isAutoCommit() && (r % ncommit.intValue() == 0)) {
@@ -134,4 +121,66 @@ public class XmlLoader extends Loader {
 			e.printStackTrace();
 		}
 	}
+
+	/**
+	 * Loads the rows through several writer connections, committing every
+	 * <code>commit</code> rows of the load file as one chunk. The values are
+	 * read from the document on the calling thread, the DOM is not thread safe.
+	 * 
+	 * @param jdlConnection
+	 *            the jdlConnection whose settings the writers use
+	 * @param writers
+	 *            the number of writer connections
+	 * @param progressFile
+	 *            the file recording committed chunks, null to load all rows
+	 * @see ParallelLoad
+	 */
+	public final void dataInsert(final JdlConnection jdlConnection,
+			final int writers, final File progressFile) {
+		ParallelLoad load = new ParallelLoad(jdlConnection,
+				getSqlInsert(loader),
+				ParallelLoad.getChunkSize(loader.getCommit()), writers,
+				progressFile, () -> (preparedStatement, row, r) -> {
+					Object[] values = (Object[]) row;
+					for (int c = 0; c < values.length; c++) {
+						preparedStatement.setObject(c + 1, values[c]);
+					}
+				});
+		load.load(sink -> {
+			Iterator<?> iterator = context.iteratePointers(loader.getXroot());
+			int r = 0;
+			while (iterator.hasNext()) {
+				r++;
+				sink.addRow(getValues((NodePointer) iterator.next(), r), r);
+			}
+		});
+	}
+
+	/**
+	 * @param pointer
+	 *            the pointer to the root node of the row
+	 * @param r
+	 *            the row number
+	 * @return the values of the columns
+	 */
+	private Object[] getValues(final NodePointer pointer, final int r) {
+		Node node = (Node) pointer.getNode();
+		JXPathContext context = JXPathContext.newContext(DomUtil.nodeToDocument(node));
+		Object[] values = new Object[loader.getColumn().size()];
+		int c = 0;
+		for (Column column : loader.getColumn()) {
+			Object value = column.getConstant();
+			if (value == null) {
+				if (column.getSeq() != null) {
+					value = r + column.getSeq().intValue();
+				} else if (column.getXpath() != null) {
+					value = this.context.getValue(column.getXpath());
+				} else {
+					value = context.getPointer(column.getXleaf()).getValue();
+				}
+			}
+			values[c++] = value;
+		}
+		return values;
+	}
 }
@@ -21,17 +21,19 @@ package org.apache.ctakes.ytex.kernel;
 import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.lang.ref.SoftReference;
-import java.lang.reflect.Array;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
-import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -84,6 +86,10 @@ public class IntrinsicInfoContentEvaluatorImpl implements
 	private static final Log log = LogFactory
 			.getLog(IntrinsicInfoContentEvaluatorImpl.class);
 	private static final double log2adjust = 1d / Math.log(2);
+	/**
+	 * smallest number of nodes handed to a thread when counting closures
+	 */
+	private static final int MIN_NODES_PER_TASK = 2000;
 
 	/**
 	 * @param args
@@ -109,6 +115,8 @@ public class IntrinsicInfoContentEvaluatorImpl implements
 
 	private ConceptDao conceptDao;
 
+	private int threads = Runtime.getRuntime().availableProcessors();
+
 	private double computeIC(IntrinsicICInfo icInfo, int maxLeaves) {
 		// |leaves(c)|/|subsumers(c)| + 1
 		double denom = log2adjust
@@ -125,181 +133,6 @@ public class IntrinsicInfoContentEvaluatorImpl implements
 			return num - denom;
 	}
 
-	/**
-	 * recursively compute the number of leaves. fill in the icInfoMap as we go
-	 * along
-	 * 
-	 * @param concept
-	 *            concept for which we should get the leaves
-	 * @param leafCache
-	 *            cache of concept's leaves
-	 * @param icInfoMap
-	 *            to be updated with leaf counts
-	 * @param cg
-	 * @param w
-	 * @param visitedNodes
-	 *            list of nodes that have already been visited - we don't need
-	 *            to revisit them when getting the leaves
-	 * @return
-	 * @throws IOException
-	 */
-	private HashSet<Integer> getLeaves(ConcRel concept,
-			SoftReference<HashSet<Integer>>[] leafCache,
-			Map<String, IntrinsicICInfo> icInfoMap, ConceptGraph cg,
-			BufferedWriter w, HashSet<Integer> visitedNodes) throws IOException {
-		// look in cache
-		SoftReference<HashSet<Integer>> refLeaves = leafCache[concept.getNodeIndex()];
-		if (refLeaves != null && refLeaves.get() != null) {
-			return refLeaves.get();
-		}
-		// not in cache - compute recursively
-		HashSet<Integer> leaves = new HashSet<Integer>();
-		leafCache[concept.getNodeIndex()] = new SoftReference<HashSet<Integer>>(leaves);
-		if (concept.isLeaf()) {
-			// for leaves, just add the concept id
-			leaves.add(concept.getNodeIndex());
-		} else {
-			IntrinsicICInfo icInfo = icInfoMap.get(concept.getConceptID());
-			// have we already computed the leaf count for this node?
-			// if yes, then we can ignore previously visited nodes
-			// if no, then compute it now and revisit previously visited nodes
-			// if we have to
-			boolean needLeaves = (icInfo != null && icInfo.getLeafCount() == 0);
-			HashSet<Integer> visitedNodesLocal = visitedNodes;
-			if (needLeaves || visitedNodesLocal == null) {
-				// allocate a set to keep track of nodes we've already visited
-				// so that we don't revisit them. if we have already computed
-				// this node's leaf count then we reuse whatever the caller gave
-				// us if non null, else allocate a new one.
-				// if we haven't already computed this node's leaf count,
-				// allocate a new set to avoid duplications in the traversal for
-				// this node
-				visitedNodesLocal = new HashSet<Integer>();
-			}
-			// for inner nodes, recurse
-			for (ConcRel child : concept.getChildren()) {
-				// if we've already visited a node, then don't bother adding
-				// that node's leaves - we already have them
-				if (!visitedNodesLocal.contains(child.getNodeIndex())) {
-					leaves.addAll(getLeaves(child, leafCache, icInfoMap, cg, w,
-							visitedNodesLocal));
-				}
-			}
-			// add this node to the set of visited nodes so we know not to
-			// revisit. This is only of importance if the caller gave us
-			// a non-empty set.
-			if (visitedNodes != null && visitedNodes != visitedNodesLocal) {
-				visitedNodes.add(concept.getNodeIndex());
-				visitedNodes.addAll(visitedNodesLocal);
-			}
-			// update the leaf count if we haven't done so already
-			if (needLeaves) {
-				icInfo.setLeafCount(leaves.size());
-				// output leaves if desired
-				if (w != null) {
-					w.write(concept.getConceptID());
-					w.write("\t");
-					w.write(Integer.toString(leaves.size()));
-					w.write("\t");
-					Iterator<Integer> iter = leaves.iterator();
-					while (iter.hasNext()) {
-						w.write(cg.getConceptList().get(iter.next())
-								.getConceptID());
-						w.write(" ");
-					}
-					w.newLine();
-				}
-			}
-		}
-		return leaves;
-	}
-
-	// /**
-	// * add/update icInfoMap entry for concept with the concept's leaf count
-	// *
-	// * @param concept
-	// * @param icInfoMap
-	// * @param w
-	// * @param subsumerMap
-	// * @throws IOException
-	// */
-	// private void computeLeafCount(ConcRel concept,
-	// Map<String, IntrinsicICInfo> icInfoMap,
-	// SoftReference<TIntSet>[] leafCache, ConceptGraph cg,
-	// BufferedWriter w) throws IOException {
-	// // see if we already computed this
-	// IntrinsicICInfo icInfo = icInfoMap.get(concept.getConceptID());
-	// if (icInfo != null && icInfo.getLeafCount() > 0) {
-	// return;
-	// }
-	// // if not, figure it out
-	// if (icInfo == null) {
-	// icInfo = new IntrinsicICInfo(concept);
-	// icInfoMap.put(concept.getConceptID(), icInfo);
-	// }
-	// // for leaves the default (0) is correct
-	// if (!concept.isLeaf()) {
-	// TIntSet leaves = this.getLeaves(concept, leafCache);
-	// icInfo.setLeafCount(leaves.size());
-	// if (w != null) {
-	// w.write(concept.getConceptID());
-	// w.write("\t");
-	// w.write(Integer.toString(leaves.size()));
-	// w.write("\t");
-	// TIntIterator iter = leaves.iterator();
-	// while (iter.hasNext()) {
-	// w.write(cg.getConceptList().get(iter.next()).getConceptID());
-	// w.write(" ");
-	// }
-	// w.newLine();
-	// }
-	// }
-	// // recurse to parents
-	// for (ConcRel parent : concept.getParents()) {
-	// computeLeafCount(parent, icInfoMap, leafCache, cg, w);
-	// }
-	// }
-
-	/**
-	 * add/update icInfoMap entry for concept with the concept's subsumer count
-	 * 
-	 * @param concept
-	 * @param icInfoMap
-	 * @param subsumerMap
-	 * @param w
-	 * @throws IOException
-	 */
-	private void computeSubsumerCount(ConcRel concept,
-			Map<String, IntrinsicICInfo> icInfoMap,
-			Map<String, Set<String>> subsumerMap, short[] depthArray,
-			BufferedWriter w) throws IOException {
-		// see if we already computed this
-		IntrinsicICInfo icInfo = icInfoMap.get(concept.getConceptID());
-		if (icInfo != null && icInfo.getSubsumerCount() > 0) {
-			return;
-		}
-		// if not, figure it out
-		if (icInfo == null) {
-			icInfo = new IntrinsicICInfo(concept);
-			icInfoMap.put(concept.getConceptID(), icInfo);
-		}
-		Set<String> subsumers = this.getSubsumers(concept, subsumerMap,
-				depthArray);
-		if (w != null) {
-			w.write(concept.getConceptID());
-			w.write("\t");
-			w.write(Integer.toString(subsumers.size()));
-			w.write("\t");
-			w.write(subsumers.toString());
-			w.newLine();
-		}
-		icInfo.setSubsumerCount(subsumers.size());
-		// recursively compute the children's subsumer counts
-		for (ConcRel child : concept.getChildren()) {
-			computeSubsumerCount(child, icInfoMap, subsumerMap, depthArray, w);
-		}
-	}
-
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -320,67 +153,285 @@ public class IntrinsicInfoContentEvaluatorImpl implements
 	@Override
 	public void evaluateIntrinsicInfoContent(String conceptGraphName,
 			String conceptGraphDir, ConceptGraph cg) throws IOException {
-		log.info("computing subsumer counts");
-		// compute the subsumer count
-		Map<String, IntrinsicICInfo> icInfoMap = new HashMap<String, IntrinsicICInfo>();
-		Map<String, Set<String>> subsumerMap = new WeakHashMap<String, Set<String>>();
-		short[] depthArray = new short[cg.getConceptList().size()];
+		List<ConcRel> conceptList = cg.getConceptList();
+		int[][] parents = new int[conceptList.size()][];
+		int[][] children = new int[conceptList.size()][];
+		for (ConcRel cr : conceptList) {
+			parents[cr.getNodeIndex()] = getNodeIndices(cr.getParents());
+			children[cr.getNodeIndex()] = getNodeIndices(cr.getChildren());
+		}
+		// only concepts below the root are evaluated
+		boolean[] reachable = getDescendants(
+				cg.getConceptMap().get(cg.getRoot()).getNodeIndex(), children);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
 		BufferedWriter w = null;
 		try {
-			w = this.getOutputFile(conceptGraphName, conceptGraphDir,
-					"subsumer");
-			computeSubsumerCount(cg.getConceptMap().get(cg.getRoot()),
-					icInfoMap, subsumerMap, depthArray, w);
-		} finally {
-			if (w != null) {
-				try {
-					w.close();
-				} catch (IOException e) {
+			log.info("computing subsumer counts");
+			short[] layers = new short[conceptList.size()];
+			int[] subsumerCounts;
+			try {
+				w = this.getOutputFile(conceptGraphName, conceptGraphDir,
+						"subsumer");
+				subsumerCounts = countClosure(parents, children, true,
+						layers, reachable, conceptList, w, executor);
+			} finally {
+				closeQuietly(w);
+			}
+			log.info("computing max leaves");
+			// get the leaves in this concept graph
+			Set<String> leafSet = null;
+			try {
+				w = this.getOutputFile(conceptGraphName, conceptGraphDir,
+						"allleaf");
+				leafSet = this.getAllLeaves(cg, w);
+			} finally {
+				closeQuietly(w);
+			}
+			log.info("computing leaf counts");
+			int[] leafCounts;
+			try {
+				w = this.getOutputFile(conceptGraphName, conceptGraphDir, "leaf");
+				leafCounts = countClosure(children, parents, false,
+						new short[conceptList.size()], reachable, conceptList,
+						w, executor);
+			} finally {
+				closeQuietly(w);
+			}
+			Map<String, IntrinsicICInfo> icInfoMap = new HashMap<String, IntrinsicICInfo>();
+			short[] depthArray = new short[conceptList.size()];
+			for (ConcRel cr : conceptList) {
+				int index = cr.getNodeIndex();
+				if (reachable[index]) {
+					IntrinsicICInfo icInfo = new IntrinsicICInfo(cr);
+					icInfo.setSubsumerCount(subsumerCounts[index]);
+					// leaves keep a leaf count of 0
+					if (!cr.isLeaf())
+						icInfo.setLeafCount(leafCounts[index]);
+					icInfoMap.put(cr.getConceptID(), icInfo);
+					depthArray[index] = (short) (layers[index] + 1);
 				}
 			}
-		}
-		subsumerMap = null;
-		log.info("computing max leaves");
-		// get the leaves in this concept graph
-		Set<String> leafSet = null;
-		try {
-			w = this.getOutputFile(conceptGraphName, conceptGraphDir, "allleaf");
-			leafSet = this.getAllLeaves(cg, w);
+			log.info("storing intrinsic ic");
+			storeIntrinsicIC(conceptGraphName, leafSet.size(), icInfoMap,
+					depthArray, cg);
+			log.info("finished computing intrinsic ic");
 		} finally {
-			if (w != null) {
-				try {
-					w.close();
-				} catch (IOException e) {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * For every node, count the nodes of its closure over the source edges:
+	 * the union of the closures of its sources, plus the node itself. With
+	 * parents as sources this counts subsumers, with children as sources and
+	 * includeSelf false it counts leaves.
+	 * <p>
+	 * Nodes are processed in layers: a node's layer is one more than the
+	 * deepest layer of its sources. The nodes of a layer only read the
+	 * closures of earlier layers, so each layer is split across the executor.
+	 * Closures are kept as sorted arrays of node indices and dropped as soon
+	 * as every target of a node has been processed.
+	 * 
+	 * @param sources
+	 *            node indices of the sources of each node
+	 * @param targets
+	 *            node indices of the targets of each node, the reverse of
+	 *            sources
+	 * @param includeSelf
+	 *            if false, a node is only part of its own closure if it has no
+	 *            sources
+	 * @param layers
+	 *            filled in with the layer of each node
+	 * @param reachable
+	 *            nodes to write to w
+	 * @param w
+	 *            optional debug output
+	 * @return size of the closure of each node
+	 */
+	private int[] countClosure(final int[][] sources, int[][] targets,
+			final boolean includeSelf, short[] layers, boolean[] reachable,
+			List<ConcRel> conceptList, BufferedWriter w,
+			ExecutorService executor) throws IOException {
+		int nodeCount = sources.length;
+		final int[][] closures = new int[nodeCount][];
+		final int[] counts = new int[nodeCount];
+		// number of sources not yet processed / targets not yet processed
+		int[] pendingSources = new int[nodeCount];
+		int[] pendingTargets = new int[nodeCount];
+		int[] layer = new int[nodeCount];
+		int layerSize = 0;
+		for (int i = 0; i < nodeCount; i++) {
+			pendingSources[i] = sources[i].length;
+			pendingTargets[i] = targets[i].length;
+			if (pendingSources[i] == 0)
+				layer[layerSize++] = i;
+		}
+		int processed = 0;
+		short layerIndex = 0;
+		int[] nextLayer = new int[nodeCount];
+		while (layerSize > 0) {
+			final int[] currentLayer = layer;
+			int chunkSize = Math.max(MIN_NODES_PER_TASK, (layerSize
+					+ threads - 1)
+					/ threads);
+			List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+			for (int start = 0; start < layerSize; start += chunkSize) {
+				final int from = start;
+				final int to = Math.min(start + chunkSize, layerSize);
+				tasks.add(new Callable<Object>() {
+					@Override
+					public Object call() {
+						for (int n = from; n < to; n++) {
+							int node = currentLayer[n];
+							closures[node] = mergeClosures(node,
+									sources[node], closures, includeSelf);
+							counts[node] = closures[node].length;
+						}
+						return null;
+					}
+				});
+			}
+			invokeAll(tasks, executor);
+			// write the layer, release closures no longer needed and collect
+			// the next layer
+			int nextLayerSize = 0;
+			for (int n = 0; n < layerSize; n++) {
+				int node = currentLayer[n];
+				layers[node] = layerIndex;
+				if (w != null && reachable[node])
+					writeClosure(w, conceptList, node, closures[node]);
+				for (int source : sources[node]) {
+					if (--pendingTargets[source] == 0)
+						closures[source] = null;
+				}
+				if (pendingTargets[node] == 0)
+					closures[node] = null;
+				for (int target : targets[node]) {
+					if (--pendingSources[target] == 0)
+						nextLayer[nextLayerSize++] = target;
 				}
 			}
+			processed += layerSize;
+			int[] swap = layer;
+			layer = nextLayer;
+			nextLayer = swap;
+			layerSize = nextLayerSize;
+			layerIndex++;
+		}
+		if (processed < nodeCount) {
+			throw new IllegalArgumentException("concept graph has a cycle: "
+					+ (nodeCount - processed) + " concepts not evaluated");
+		}
+		return counts;
+	}
+
+	/**
+	 * @return sorted node indices of the union of the source closures, plus
+	 *         the node itself
+	 */
+	private static int[] mergeClosures(int node, int[] sources,
+			int[][] closures, boolean includeSelf) {
+		int[] self = new int[] { node };
+		if (sources.length == 0)
+			return self;
+		int[] merged = includeSelf ? mergeSorted(self, closures[sources[0]])
+				: closures[sources[0]];
+		for (int i = 1; i < sources.length; i++)
+			merged = mergeSorted(merged, closures[sources[i]]);
+		return merged;
+	}
+
+	/**
+	 * @return sorted union of two sorted arrays without duplicates
+	 */
+	private static int[] mergeSorted(int[] a, int[] b) {
+		int[] merged = new int[a.length + b.length];
+		int i = 0;
+		int j = 0;
+		int size = 0;
+		while (i < a.length && j < b.length) {
+			if (a[i] < b[j]) {
+				merged[size++] = a[i++];
+			} else if (a[i] > b[j]) {
+				merged[size++] = b[j++];
+			} else {
+				merged[size++] = a[i++];
+				j++;
+			}
+		}
+		while (i < a.length)
+			merged[size++] = a[i++];
+		while (j < b.length)
+			merged[size++] = b[j++];
+		return size == merged.length ? merged : Arrays.copyOf(merged, size);
+	}
+
+	private void writeClosure(BufferedWriter w, List<ConcRel> conceptList,
+			int node, int[] closure) throws IOException {
+		w.write(conceptList.get(node).getConceptID());
+		w.write("\t");
+		w.write(Integer.toString(closure.length));
+		w.write("\t");
+		for (int member : closure) {
+			w.write(conceptList.get(member).getConceptID());
+			w.write(" ");
+		}
+		w.newLine();
+	}
+
+	private static void invokeAll(List<Callable<Object>> tasks,
+			ExecutorService executor) {
+		if (tasks.size() == 1) {
+			try {
+				tasks.get(0).call();
+			} catch (Exception e) {
+				throw new RuntimeException(e);
+			}
+			return;
 		}
-		log.info("computing leaf counts");
-		@SuppressWarnings("unchecked")
-		SoftReference<HashSet<Integer>>[] leafCache = (SoftReference<HashSet<Integer>>[]) Array
-				.newInstance((new SoftReference<HashSet<Integer>>(new HashSet<Integer>()))
-						.getClass(), cg.getConceptList().size());
-		// compute leaf count of all concepts in this graph
 		try {
-			w = this.getOutputFile(conceptGraphName, conceptGraphDir, "leaf");
-			// for (String leaf : leafSet) {
-			// computeLeafCount(cg.getConceptMap().get(leaf), icInfoMap,
-			// leafCache, cg, w);
-			// }
-			this.getLeaves(cg.getConceptMap().get(cg.getRoot()), leafCache,
-					icInfoMap, cg, w, null);
-		} finally {
-			if (w != null) {
-				try {
-					w.close();
-				} catch (IOException e) {
+			for (Future<Object> future : executor.invokeAll(tasks))
+				future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+	private static int[] getNodeIndices(Set<ConcRel> concepts) {
+		int[] indices = new int[concepts.size()];
+		int i = 0;
+		for (ConcRel cr : concepts)
+			indices[i++] = cr.getNodeIndex();
+		return indices;
+	}
+
+	private static boolean[] getDescendants(int root, int[][] children) {
+		boolean[] descendants = new boolean[children.length];
+		int[] stack = new int[children.length];
+		int stackSize = 0;
+		descendants[root] = true;
+		stack[stackSize++] = root;
+		while (stackSize > 0) {
+			for (int child : children[stack[--stackSize]]) {
+				if (!descendants[child]) {
+					descendants[child] = true;
+					stack[stackSize++] = child;
 				}
 			}
 		}
-		leafCache = null;
-		log.info("storing intrinsic ic");
-		storeIntrinsicIC(conceptGraphName, leafSet.size(), icInfoMap,
-				depthArray, cg);
-		log.info("finished computing intrinsic ic");
+		return descendants;
+	}
+
+	private static void closeQuietly(BufferedWriter w) {
+		if (w != null) {
+			try {
+				w.close();
+			} catch (IOException e) {
+			}
+		}
 	}
 
 	private BufferedWriter getOutputFile(final String conceptGraphName,
@@ -418,66 +469,6 @@ public class IntrinsicInfoContentEvaluatorImpl implements
 		return conceptDao;
 	}
 
-	// private TIntSet getLeaves(ConcRel concept,
-	// SoftReference<TIntSet>[] leafCache) {
-	// // look in cache
-	// SoftReference<TIntSet> refLeaves = leafCache[concept.getNodeIndex()];
-	// if (refLeaves != null && refLeaves.get() != null) {
-	// return refLeaves.get();
-	// }
-	// // not in cache - compute recursively
-	// TIntSet leaves = new TIntHashSet();
-	// leafCache[concept.getNodeIndex()] = new SoftReference<TIntSet>(leaves);
-	// if (concept.isLeaf()) {
-	// // for leaves, just add the concept id
-	// leaves.add(concept.getNodeIndex());
-	// } else {
-	// // for inner nodes, recurse
-	// for (ConcRel child : concept.getChildren()) {
-	// leaves.addAll(getLeaves(child, leafCache));
-	// }
-	// }
-	// return leaves;
-	// }
-
-	/**
-	 * recursively compute the subsumers of a concept
-	 * 
-	 * @param concept
-	 * @param subsumerMap
-	 * @return
-	 */
-	private Set<String> getSubsumers(ConcRel concept,
-			Map<String, Set<String>> subsumerMap, short depthArray[]) {
-		// look in cache
-		if (subsumerMap.containsKey(concept.getConceptID()))
-			return subsumerMap.get(concept.getConceptID());
-		// not in cache - compute recursively
-		Set<String> subsumers = new HashSet<String>();
-		boolean calcDepth = depthArray[concept.getNodeIndex()] == 0;
-		short parentMaxDepth = 0;
-		if (concept.getParents() != null && !concept.getParents().isEmpty()) {
-			// parents - recurse
-			for (ConcRel parent : concept.getParents()) {
-				subsumers.addAll(getSubsumers(parent, subsumerMap, depthArray));
-				// get the deepest parent
-				if (calcDepth) {
-					short parentDepth = depthArray[parent.getNodeIndex()];
-					if (parentDepth > parentMaxDepth)
-						parentMaxDepth = parentDepth;
-				}
-			}
-		}
-		if (calcDepth)
-			depthArray[concept.getNodeIndex()] = (short) (parentMaxDepth + 1);
-		// add the concept itself to the set of subsumers
-		subsumers.add(concept.getConceptID());
-		// add this to the cache - copy the key so that this can be gc'ed as
-		// needed
-		subsumerMap.put(new String(concept.getConceptID()), subsumers);
-		return subsumers;
-	}
-
 	public void setClassifierEvaluationDao(
 			ClassifierEvaluationDao classifierEvaluationDao) {
 		this.classifierEvaluationDao = classifierEvaluationDao;
@@ -487,6 +478,24 @@ public class IntrinsicInfoContentEvaluatorImpl implements
 		this.conceptDao = conceptDao;
 	}
 
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * @param threads
+	 *            number of threads used to count leaves and subsumers,
+	 *            defaults to the number of processors
+	 * @throws IllegalArgumentException
+	 *             if threads is less than 1
+	 */
+	public void setThreads(int threads) {
+		if (threads < 1)
+			throw new IllegalArgumentException("threads must be at least 1: "
+					+ threads);
+		this.threads = threads;
+	}
+
 	private void storeIntrinsicIC(String conceptGraphName, int maxLeaves,
 			Map<String, IntrinsicICInfo> icInfoMap, short depthArray[],
 			ConceptGraph cg) {
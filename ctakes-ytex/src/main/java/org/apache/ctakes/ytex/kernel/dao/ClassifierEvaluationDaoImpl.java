@@ -38,6 +38,7 @@ import org.apache.ctakes.ytex.kernel.model.FeatureEvaluation;
 import org.apache.ctakes.ytex.kernel.model.FeatureParentChild;
 import org.apache.ctakes.ytex.kernel.model.FeatureRank;
 import org.hibernate.Query;
+import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.type.Type;
 
@@ -45,6 +46,10 @@ import org.hibernate.type.Type;
 public class ClassifierEvaluationDaoImpl implements ClassifierEvaluationDao {
 	private static final Log log = LogFactory
 			.getLog(ClassifierEvaluationDaoImpl.class);
+	/**
+	 * number of feature ranks saved between session flushes
+	 */
+	private static final int FEATURE_RANK_BATCH_SIZE = 1000;
 	private SessionFactory sessionFactory;
 
 	public SessionFactory getSessionFactory() {
@@ -198,9 +203,20 @@ public class ClassifierEvaluationDaoImpl implements ClassifierEvaluationDao {
 	@Override
 	public void saveFeatureEvaluation(FeatureEvaluation featureEvaluation,
 			List<FeatureRank> features) {
-		this.getSessionFactory().getCurrentSession().save(featureEvaluation);
-		for (FeatureRank r : features)
-			this.getSessionFactory().getCurrentSession().save(r);
+		Session session = this.getSessionFactory().getCurrentSession();
+		session.save(featureEvaluation);
+		// write the ranks in batches and evict them, so that evaluations with
+		// a rank per concept don't fill up the session
+		for (int i = 0; i < features.size(); i++) {
+			session.save(features.get(i));
+			if ((i + 1) % FEATURE_RANK_BATCH_SIZE == 0
+					|| i == features.size() - 1) {
+				session.flush();
+				for (FeatureRank r : features.subList(i
+						- (i % FEATURE_RANK_BATCH_SIZE), i + 1))
+					session.evict(r);
+			}
+		}
 	}
 
 	@SuppressWarnings("unchecked")
@@ -59,4 +59,36 @@ public interface WordSenseDisambiguator {
 			SimilarityMetricEnum metric, Map<String, Double> scoreMap,
 			boolean weighted);
 
+	/**
+	 * Disambiguate all the named entities of a document. Gives the same
+	 * results as calling
+	 * {@link #disambiguate(List, int, Set, int, SimilarityMetricEnum, Map, boolean)}
+	 * for each named entity, but the concept pairs of all named entities are
+	 * scored together, so that a pair shared by several named entities is
+	 * scored only once.
+	 * 
+	 * @param sentenceConcepts
+	 *            named entities from the document, represented as list of
+	 *            sets of concept ids
+	 * @param contextConcepts
+	 *            context concepts, e.g. from title
+	 * @param windowSize
+	 *            number of named entities on either side of target to use for
+	 *            disambiguation
+	 * @param metric
+	 *            metric to use
+	 * @param scoreMaps
+	 *            optional list parallel to sentenceConcepts to get the scores
+	 *            assigned to the concepts of each named entity. entries may be
+	 *            null.
+	 * @param weighted
+	 *            to weight context concepts by frequency
+	 * @return list parallel to sentenceConcepts with the concept chosen for
+	 *         each named entity, null for named entities without concepts
+	 */
+	List<String> disambiguate(List<Set<String>> sentenceConcepts,
+			Set<String> contextConcepts, int windowSize,
+			SimilarityMetricEnum metric, List<Map<String, Double>> scoreMaps,
+			boolean weighted);
+
 }
\ No newline at end of file
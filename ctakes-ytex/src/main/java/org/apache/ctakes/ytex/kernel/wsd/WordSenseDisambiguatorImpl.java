@@ -18,26 +18,56 @@
  */
 package org.apache.ctakes.ytex.kernel.wsd;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.SortedMap;
 import java.util.SortedSet;
-import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
+import net.sf.ehcache.Cache;
+import net.sf.ehcache.Element;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.ctakes.ytex.kernel.metric.ConceptPair;
 import org.apache.ctakes.ytex.kernel.metric.ConceptPairSimilarity;
 import org.apache.ctakes.ytex.kernel.metric.ConceptSimilarityService;
 import org.apache.ctakes.ytex.kernel.metric.ConceptSimilarityService.SimilarityMetricEnum;
 import org.apache.ctakes.ytex.kernel.model.ConcRel;
 
-import com.google.common.collect.SetMultimap;
 import com.google.common.collect.TreeMultimap;
 
+/**
+ * Adapted Lesk word sense disambiguation: the concept of a named entity that
+ * is most similar to the concepts of the surrounding named entities wins.
+ * <p>
+ * Concept pair similarities are kept in the optional similarityCache, shared
+ * by all documents. When a whole document is disambiguated, the pairs of all
+ * its named entities are collected first and the ones missing from the cache
+ * are scored in one batch, split across threads if threads &gt; 1.
+ */
 public class WordSenseDisambiguatorImpl implements WordSenseDisambiguator {
+	private static final Log log = LogFactory
+			.getLog(WordSenseDisambiguatorImpl.class);
+	/**
+	 * batches smaller than this are scored on the calling thread
+	 */
+	private static final int MIN_PAIRS_PER_THREAD = 64;
+
 	ConceptSimilarityService conceptSimilarityService;
+	Cache similarityCache;
+	int threads = 1;
+	private ExecutorService executor;
 
 	public ConceptSimilarityService getConceptSimilarityService() {
 		return conceptSimilarityService;
@@ -48,6 +78,31 @@ public class WordSenseDisambiguatorImpl implements WordSenseDisambiguator {
 		this.conceptSimilarityService = conceptSimilarityService;
 	}
 
+	public Cache getSimilarityCache() {
+		return similarityCache;
+	}
+
+	/**
+	 * @param similarityCache
+	 *            cache of concept pair similarities, optional
+	 */
+	public void setSimilarityCache(Cache similarityCache) {
+		this.similarityCache = similarityCache;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * @param threads
+	 *            number of threads used to score the concept pairs of a
+	 *            document, defaults to 1
+	 */
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
 	@Override
 	public String disambiguate(List<Set<String>> sentenceConcepts, int index,
 			Set<String> contextConcepts, int windowSize,
@@ -74,6 +129,86 @@ public class WordSenseDisambiguatorImpl implements WordSenseDisambiguator {
 		Set<String> candidateConcepts = sentenceConcepts.get(index);
 		if (candidateConcepts.size() == 1)
 			return candidateConcepts.iterator().next();
+		Map<String, Integer> windowContextConcepts = getWindowContextConcepts(
+				sentenceConcepts, index, contextConcepts, windowSize);
+		// allocate map to hold scores
+		TreeMultimap<Double, String> scoreConceptMap = TreeMultimap.create();
+		for (String c : candidateConcepts) {
+			scoreConceptMap
+					.put(scoreConcept(c, windowContextConcepts, metric,
+							weighted), c);
+		}
+		return getBestConcept(candidateConcepts, scoreConceptMap, scoreMap);
+	}
+
+	@Override
+	public List<String> disambiguate(List<Set<String>> sentenceConcepts,
+			Set<String> contextConcepts, int windowSize,
+			SimilarityMetricEnum metric, List<Map<String, Double>> scoreMaps,
+			boolean weighted) {
+		// collect the concept pairs of every named entity
+		List<Map<String, Integer>> windows = new ArrayList<Map<String, Integer>>(
+				sentenceConcepts.size());
+		Set<ConceptPair> conceptPairs = new LinkedHashSet<ConceptPair>();
+		for (int i = 0; i < sentenceConcepts.size(); i++) {
+			Map<String, Integer> windowContextConcepts = null;
+			if (sentenceConcepts.get(i).size() > 1) {
+				windowContextConcepts = getWindowContextConcepts(
+						sentenceConcepts, i, contextConcepts, windowSize);
+				for (String c : sentenceConcepts.get(i)) {
+					for (String windowConcept : windowContextConcepts.keySet()) {
+						conceptPairs.add(new ConceptPair(c, windowConcept));
+					}
+				}
+			}
+			windows.add(windowContextConcepts);
+		}
+		Map<ConceptPair, Double> pairScores = scoreConceptPairs(conceptPairs,
+				metric);
+		if (log.isDebugEnabled())
+			log.debug("named entities: " + sentenceConcepts.size()
+					+ ", concept pairs: " + conceptPairs.size());
+		// pick the best concept of each named entity
+		List<String> concepts = new ArrayList<String>(sentenceConcepts.size());
+		for (int i = 0; i < sentenceConcepts.size(); i++) {
+			Set<String> candidateConcepts = sentenceConcepts.get(i);
+			Map<String, Integer> windowContextConcepts = windows.get(i);
+			if (windowContextConcepts == null) {
+				concepts.add(candidateConcepts.isEmpty() ? null
+						: candidateConcepts.iterator().next());
+				continue;
+			}
+			TreeMultimap<Double, String> scoreConceptMap = TreeMultimap
+					.create();
+			for (String c : candidateConcepts) {
+				// add up in the same order as scoreConcept
+				double score = 0d;
+				for (Map.Entry<String, Integer> windowConcept : windowContextConcepts
+						.entrySet()) {
+					double sim = pairScores.get(new ConceptPair(c,
+							windowConcept.getKey()));
+					if (weighted)
+						score += sim * windowConcept.getValue().doubleValue();
+					else
+						score += sim;
+				}
+				scoreConceptMap.put(score, c);
+			}
+			concepts.add(getBestConcept(candidateConcepts, scoreConceptMap,
+					scoreMaps != null ? scoreMaps.get(i) : null));
+		}
+		return concepts;
+	}
+
+	/**
+	 * get the concepts to compare the target named entity to
+	 * 
+	 * @return map of concept id to the number of times it occurs in the
+	 *         context
+	 */
+	private Map<String, Integer> getWindowContextConcepts(
+			List<Set<String>> sentenceConcepts, int index,
+			Set<String> contextConcepts, int windowSize) {
 		// allocate set to hold all the concepts to compare to
 		Map<String, Integer> windowContextConcepts = new HashMap<String, Integer>();
 		// add context concepts (e.g. title concepts)
@@ -112,16 +247,22 @@ public class WordSenseDisambiguatorImpl implements WordSenseDisambiguator {
 				addConcepts(windowContextConcepts, cs);
 			}
 		}
-		// allocate map to hold scores
-		TreeMultimap<Double, String> scoreConceptMap = TreeMultimap.create();
-		for (String c : candidateConcepts) {
-			scoreConceptMap
-					.put(scoreConcept(c, windowContextConcepts, metric,
-							weighted), c);
-		}
+		return windowContextConcepts;
+	}
+
+	/**
+	 * pick the best scoring concept
+	 * 
+	 * @param scoreMap
+	 *            optional, filled in with the concept scores
+	 * @return highest scoring concept, null if all the concepts have the same
+	 *         score
+	 */
+	private String getBestConcept(Set<String> candidateConcepts,
+			TreeMultimap<Double, String> scoreConceptMap,
+			Map<String, Double> scoreMap) {
 		// if scoreMap is not null, fill it in with the concept scores - invert
 		// scoreConceptMap
-		boolean bNonZero = false;
 		if (scoreMap != null) {
 			for (Map.Entry<Double, String> scoreConcept : scoreConceptMap
 					.entries()) {
@@ -175,15 +316,135 @@ public class WordSenseDisambiguatorImpl implements WordSenseDisambiguator {
 		double score = 0d;
 		for (Map.Entry<String, Integer> windowConcept : windowContextConcepts
 				.entrySet()) {
-			ConceptPairSimilarity csim = conceptSimilarityService.similarity(
-					metrics, concept, windowConcept.getKey(), null, false);
+			ConceptPair conceptPair = new ConceptPair(concept,
+					windowConcept.getKey());
+			Double sim = getCachedSimilarity(conceptPair, metric);
+			if (sim == null) {
+				ConceptPairSimilarity csim = conceptSimilarityService
+						.similarity(metrics, concept, windowConcept.getKey(),
+								null, false);
+				sim = csim.getSimilarities().get(0);
+				putCachedSimilarity(conceptPair, metric, sim);
+			}
 			if (weighted)
-				score += csim.getSimilarities().get(0)
-						* windowConcept.getValue().doubleValue();
+				score += sim * windowConcept.getValue().doubleValue();
 			else
-				score += csim.getSimilarities().get(0);
+				score += sim;
 		}
 		return score;
 	}
 
+	/**
+	 * score concept pairs, computing only the ones that are not cached
+	 * 
+	 * @return map of concept pair to similarity
+	 */
+	private Map<ConceptPair, Double> scoreConceptPairs(
+			Collection<ConceptPair> conceptPairs, SimilarityMetricEnum metric) {
+		Map<ConceptPair, Double> pairScores = new HashMap<ConceptPair, Double>(
+				conceptPairs.size() * 2);
+		List<ConceptPair> misses = new ArrayList<ConceptPair>();
+		for (ConceptPair conceptPair : conceptPairs) {
+			Double sim = getCachedSimilarity(conceptPair, metric);
+			if (sim != null)
+				pairScores.put(conceptPair, sim);
+			else
+				misses.add(conceptPair);
+		}
+		if (!misses.isEmpty()) {
+			List<ConceptPairSimilarity> sims = computeSimilarities(misses,
+					metric);
+			for (int i = 0; i < misses.size(); i++) {
+				Double sim = sims.get(i).getSimilarities().get(0);
+				pairScores.put(misses.get(i), sim);
+				putCachedSimilarity(misses.get(i), metric, sim);
+			}
+		}
+		return pairScores;
+	}
+
+	/**
+	 * compute the similarities in one batch call per thread
+	 * 
+	 * @return similarities in the order of the concept pairs
+	 */
+	private List<ConceptPairSimilarity> computeSimilarities(
+			List<ConceptPair> conceptPairs, SimilarityMetricEnum metric) {
+		final List<SimilarityMetricEnum> metrics = Arrays.asList(metric);
+		int nThreads = Math.min(threads, conceptPairs.size()
+				/ MIN_PAIRS_PER_THREAD);
+		if (nThreads <= 1) {
+			return conceptSimilarityService.similarity(conceptPairs, metrics,
+					null, false);
+		}
+		int chunkSize = (conceptPairs.size() + nThreads - 1) / nThreads;
+		List<Future<List<ConceptPairSimilarity>>> futures = new ArrayList<Future<List<ConceptPairSimilarity>>>(
+				nThreads);
+		for (int start = 0; start < conceptPairs.size(); start += chunkSize) {
+			final List<ConceptPair> chunk = conceptPairs.subList(start,
+					Math.min(start + chunkSize, conceptPairs.size()));
+			futures.add(getExecutor().submit(
+					new Callable<List<ConceptPairSimilarity>>() {
+						@Override
+						public List<ConceptPairSimilarity> call() {
+							return conceptSimilarityService.similarity(chunk,
+									metrics, null, false);
+						}
+					}));
+		}
+		List<ConceptPairSimilarity> sims = new ArrayList<ConceptPairSimilarity>(
+				conceptPairs.size());
+		try {
+			for (Future<List<ConceptPairSimilarity>> future : futures) {
+				sims.addAll(future.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		}
+		return sims;
+	}
+
+	private synchronized ExecutorService getExecutor() {
+		if (executor == null) {
+			executor = Executors.newFixedThreadPool(threads,
+					new ThreadFactory() {
+						@Override
+						public Thread newThread(Runnable r) {
+							Thread t = new Thread(r, "WordSenseDisambiguator");
+							t.setDaemon(true);
+							return t;
+						}
+					});
+		}
+		return executor;
+	}
+
+	private String getCacheKey(ConceptPair conceptPair,
+			SimilarityMetricEnum metric) {
+		StringBuilder cacheKeyBuilder = new StringBuilder(
+				conceptSimilarityService.getConceptGraphName());
+		cacheKeyBuilder.append('|').append(metric.name());
+		cacheKeyBuilder.append('|').append(conceptPair.getConcept1());
+		cacheKeyBuilder.append('|').append(conceptPair.getConcept2());
+		return cacheKeyBuilder.toString();
+	}
+
+	private Double getCachedSimilarity(ConceptPair conceptPair,
+			SimilarityMetricEnum metric) {
+		if (similarityCache == null)
+			return null;
+		Element e = similarityCache.get(getCacheKey(conceptPair, metric));
+		return e != null ? (Double) e.getObjectValue() : null;
+	}
+
+	private void putCachedSimilarity(ConceptPair conceptPair,
+			SimilarityMetricEnum metric, Double sim) {
+		if (similarityCache != null)
+			similarityCache.put(new Element(getCacheKey(conceptPair, metric),
+					sim));
+	}
+
 }
@@ -0,0 +1,186 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.jdl.data.loader;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.bind.JAXBException;
+
+import org.apache.ctakes.jdl.common.FileUtil;
+import org.apache.ctakes.jdl.data.base.JdlConnection;
+import org.apache.ctakes.jdl.data.xml.jaxb.ObjectFactoryUtil;
+import org.apache.ctakes.jdl.schema.xdl.JdbcType;
+import org.apache.ctakes.jdl.test.Resources;
+import org.apache.ctakes.jdl.test.SqlJdl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ParallelLoadTest {
+	private static final int ROWS = 1000;
+	private static final int WRITERS = 4;
+	private static final int CHUNK_SIZE = 7;
+	private static final String SQL = "insert into tab_test (id,name,thekey,thevalue,code,descr) values (?,?,?,?,?,?)";
+	private static JdlConnection jdlConnection;
+	private Connection connection;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@BeforeClass
+	public static void initClass() throws JAXBException {
+		JdbcType jdbc = ObjectFactoryUtil.getJdbcTypeBySrcXml(FileUtil
+				.getFile(Resources.CONN_X).toString());
+		// without the jdbc profile conn.xml is not filtered, load into an
+		// in memory database
+		if (Resources.ENV_DRIVER.equals(jdbc.getDriver())) {
+			jdbc.setDriver("org.hsqldb.jdbc.JDBCDriver");
+			jdbc.setUrl("jdbc:hsqldb:mem:parallelload");
+			jdbc.setUsername("sa");
+			jdbc.setPassword("");
+		}
+		jdlConnection = new JdlConnection(jdbc);
+	}
+
+	@Before
+	public void createTable() throws Exception {
+		connection = jdlConnection.getOpenConnection();
+		SqlJdl.create(connection);
+	}
+
+	@After
+	public void dropTable() throws SQLException {
+		SqlJdl.drop(connection);
+		jdlConnection.closeConnection();
+	}
+
+	@Test
+	public void getChunkSize() {
+		assertThat(ParallelLoad.getChunkSize(null), is(ParallelLoad.DEFAULT_CHUNK_SIZE));
+		assertThat(ParallelLoad.getChunkSize(2), is(2));
+	}
+
+	@Test
+	public void adaptBatchSize() {
+		int target = ParallelLoad.TARGET_BATCH_MILLIS;
+		assertThat(ParallelLoad.adaptBatchSize(100, target), is(100));
+		// fast batches grow, at most doubling
+		assertThat(ParallelLoad.adaptBatchSize(100, target / 2), is(200));
+		assertThat(ParallelLoad.adaptBatchSize(100, 0), is(200));
+		// slow batches shrink, at most halving
+		assertThat(ParallelLoad.adaptBatchSize(100, target * 10), is(50));
+		assertThat(ParallelLoad.adaptBatchSize(ParallelLoad.MIN_BATCH_SIZE, target * 10),
+				is(ParallelLoad.MIN_BATCH_SIZE));
+		assertThat(ParallelLoad.adaptBatchSize(ParallelLoad.MAX_BATCH_SIZE, 0),
+				is(ParallelLoad.MAX_BATCH_SIZE));
+	}
+
+	@Test
+	public void load() throws SQLException {
+		assertThat(newLoad(CHUNK_SIZE, null).load(rows(ROWS + 1)), is(ROWS));
+		assertThat(getIds(), is(getRowNumbers()));
+	}
+
+	@Test
+	public void resume() throws SQLException {
+		File progressFile = new File(folder.getRoot(), "progress.txt");
+		try {
+			newLoad(CHUNK_SIZE, progressFile).load(rows(ROWS / 2));
+			fail("the input should fail");
+		} catch (IllegalStateException e) {
+			assertThat(e.getMessage(), is("input failed"));
+		}
+		int committed = getIds().size();
+		int inserted = newLoad(CHUNK_SIZE, progressFile).load(rows(ROWS + 1));
+		// every row once: committed chunks are skipped, the others loaded
+		assertThat(committed + inserted, is(ROWS));
+		assertThat(getIds(), is(getRowNumbers()));
+		// nothing is left to load
+		assertThat(newLoad(CHUNK_SIZE, progressFile).load(rows(ROWS + 1)), is(0));
+		assertThat(getIds(), is(getRowNumbers()));
+	}
+
+	@Test
+	public void resumeWithOtherChunkSize() throws SQLException {
+		File progressFile = new File(folder.getRoot(), "progress.txt");
+		newLoad(CHUNK_SIZE, progressFile).load(rows(ROWS + 1));
+		try {
+			newLoad(CHUNK_SIZE + 1, progressFile).load(rows(ROWS + 1));
+			fail("the chunks of the progress file should not match");
+		} catch (IllegalStateException e) {
+			assertThat(getIds(), is(getRowNumbers()));
+		}
+	}
+
+	private static ParallelLoad newLoad(final int chunkSize, final File progressFile) {
+		return new ParallelLoad(jdlConnection, SQL, chunkSize, WRITERS,
+				progressFile, () -> (preparedStatement, row, r) -> {
+					preparedStatement.setInt(1, r);
+					preparedStatement.setString(2, (String) row);
+					preparedStatement.setInt(3, r % 10);
+					preparedStatement.setString(4, "value");
+					preparedStatement.setInt(5, 2 * r);
+					preparedStatement.setString(6, "row " + r);
+				});
+	}
+
+	/**
+	 * @return reader of the rows numbered 1 to {@link #ROWS}, failing before
+	 *         row <code>failAt</code>
+	 */
+	private static ParallelLoad.RowReader rows(final int failAt) {
+		return sink -> {
+			for (int r = 1; r <= ROWS; r++) {
+				if (r == failAt)
+					throw new IllegalStateException("input failed");
+				sink.addRow("name " + r, r);
+			}
+		};
+	}
+
+	private List<Integer> getIds() throws SQLException {
+		List<Integer> ids = new ArrayList<Integer>();
+		for (String[] row : SqlJdl.select(connection, false)) {
+			ids.add(new BigDecimal(row[0]).intValue());
+		}
+		Collections.sort(ids);
+		return ids;
+	}
+
+	private static List<Integer> getRowNumbers() {
+		List<Integer> rowNumbers = new ArrayList<Integer>();
+		for (int r = 1; r <= ROWS; r++) {
+			rowNumbers.add(r);
+		}
+		return rowNumbers;
+	}
+}
@@ -0,0 +1,226 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.ytex.kernel;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.apache.ctakes.ytex.kernel.model.ConcRel;
+import org.apache.ctakes.ytex.kernel.model.ConceptGraph;
+import org.junit.Test;
+
+/**
+ * Compares the depths and intrinsic information content computed by the
+ * layered closure counts with the recursive subsumer and leaf traversal the
+ * evaluator used before.
+ */
+public class IntrinsicInfoContentEvaluatorImplTest {
+
+	private static final double log2adjust = 1d / Math.log(2);
+
+	@Test
+	public void testSameAsRecursiveTraversal() throws IOException {
+		Random random = new Random(36);
+		for (int graph = 0; graph < 30; graph++) {
+			int conceptCount = 1 + random.nextInt(graph < 25 ? 200 : 3000);
+			// the last graphs have layers wide enough to be split across
+			// threads
+			boolean wide = graph >= 27;
+			if (wide)
+				conceptCount = 10000;
+			for (int threads : new int[] { 1, 4 }) {
+				// the evaluator sets depth and ic on the concepts, so each run
+				// gets its own copy of the graph
+				ConceptGraph expected = createGraph(new Random(graph),
+						conceptCount, wide);
+				ConceptGraph actual = createGraph(new Random(graph),
+						conceptCount, wide);
+				evaluateRecursively(expected);
+				IntrinsicInfoContentEvaluatorImpl evaluator = new IntrinsicInfoContentEvaluatorImpl();
+				evaluator.setThreads(threads);
+				evaluator.evaluateIntrinsicInfoContent("test", null, actual);
+				for (ConcRel cr : expected.getConceptList()) {
+					ConcRel other = actual.getConceptList().get(
+							cr.getNodeIndex());
+					String message = "graph " + graph + " with " + threads
+							+ " threads, concept " + cr.getConceptID();
+					assertEquals(message, cr.getDepth(), other.getDepth());
+					assertEquals(message, cr.getIntrinsicInfoContent(),
+							other.getIntrinsicInfoContent(), 0d);
+				}
+				assertEquals(expected.getDepthMax(), actual.getDepthMax());
+				assertEquals(expected.getIntrinsicICMax(),
+						actual.getIntrinsicICMax(), 0d);
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNoThreads() {
+		new IntrinsicInfoContentEvaluatorImpl().setThreads(0);
+	}
+
+	/**
+	 * A DAG below the root, plus a second root that is not evaluated but whose
+	 * descendants are partly shared with the evaluated graph. Concepts of a
+	 * wide graph are children of the first few concepts.
+	 */
+	private static ConceptGraph createGraph(Random random, int conceptCount,
+			boolean wide) {
+		ConceptGraph cg = new ConceptGraph();
+		cg.setRoot("C0");
+		cg.addConcept("C0");
+		ConcRel otherRoot = cg.addConcept("X0");
+		for (int i = 1; i < conceptCount; i++) {
+			ConcRel cr = cg.addConcept("C" + i);
+			int parentCount = 1 + (random.nextInt(4) == 0 ? random.nextInt(3)
+					: 0);
+			for (int p = 0; p < parentCount; p++) {
+				int parent;
+				if (wide)
+					parent = random.nextInt(Math.min(i, 20));
+				else
+					// favour recent concepts so the graph gets deep
+					parent = random.nextBoolean() ? random.nextInt(i) : Math
+							.max(0, i - 1 - random.nextInt(10));
+				addRelation(cg.getConceptMap().get("C" + parent), cr);
+			}
+			if (random.nextInt(20) == 0)
+				addRelation(otherRoot, cr);
+		}
+		return cg;
+	}
+
+	private static void addRelation(ConcRel parent, ConcRel child) {
+		parent.getChildren().add(child);
+		child.getParents().add(parent);
+	}
+
+	/**
+	 * The evaluation before layered closure counts, without debug output and
+	 * with plain caches in place of the weak and soft references
+	 */
+	private static void evaluateRecursively(ConceptGraph cg) {
+		Map<String, Integer> subsumerCounts = new HashMap<String, Integer>();
+		Map<String, Set<String>> subsumerMap = new HashMap<String, Set<String>>();
+		short[] depthArray = new short[cg.getConceptList().size()];
+		ConcRel root = cg.getConceptMap().get(cg.getRoot());
+		computeSubsumerCount(root, subsumerCounts, subsumerMap, depthArray);
+		int maxLeaves = 0;
+		for (ConcRel cr : cg.getConceptList()) {
+			if (cr.isLeaf())
+				maxLeaves++;
+		}
+		Map<String, Integer> leafCounts = new HashMap<String, Integer>();
+		for (String conceptId : subsumerCounts.keySet())
+			leafCounts.put(conceptId, 0);
+		getLeaves(root, new HashSet[cg.getConceptList().size()], leafCounts,
+				null);
+		double maxIC = 0d;
+		short maxDepth = 0;
+		for (Map.Entry<String, Integer> subsumerCount : subsumerCounts
+				.entrySet()) {
+			ConcRel cr = cg.getConceptMap().get(subsumerCount.getKey());
+			short depth = depthArray[cr.getNodeIndex()];
+			cr.setDepth(depth);
+			if (depth > maxDepth)
+				maxDepth = depth;
+			// |leaves(c)|/|subsumers(c)| + 1
+			double denom = log2adjust
+					* Math.log((double) leafCounts.get(cr.getConceptID())
+							/ (double) subsumerCount.getValue() + 1d);
+			double ic = log2adjust * Math.log((double) maxLeaves + 1d) - denom;
+			cr.setIntrinsicInfoContent(ic);
+			if (ic > maxIC)
+				maxIC = ic;
+		}
+		cg.setDepthMax(maxDepth);
+		cg.setIntrinsicICMax(maxIC);
+	}
+
+	private static void computeSubsumerCount(ConcRel concept,
+			Map<String, Integer> subsumerCounts,
+			Map<String, Set<String>> subsumerMap, short[] depthArray) {
+		if (subsumerCounts.containsKey(concept.getConceptID()))
+			return;
+		subsumerCounts.put(concept.getConceptID(),
+				getSubsumers(concept, subsumerMap, depthArray).size());
+		for (ConcRel child : concept.getChildren())
+			computeSubsumerCount(child, subsumerCounts, subsumerMap,
+					depthArray);
+	}
+
+	private static Set<String> getSubsumers(ConcRel concept,
+			Map<String, Set<String>> subsumerMap, short depthArray[]) {
+		if (subsumerMap.containsKey(concept.getConceptID()))
+			return subsumerMap.get(concept.getConceptID());
+		Set<String> subsumers = new HashSet<String>();
+		boolean calcDepth = depthArray[concept.getNodeIndex()] == 0;
+		short parentMaxDepth = 0;
+		for (ConcRel parent : concept.getParents()) {
+			subsumers.addAll(getSubsumers(parent, subsumerMap, depthArray));
+			if (calcDepth) {
+				short parentDepth = depthArray[parent.getNodeIndex()];
+				if (parentDepth > parentMaxDepth)
+					parentMaxDepth = parentDepth;
+			}
+		}
+		if (calcDepth)
+			depthArray[concept.getNodeIndex()] = (short) (parentMaxDepth + 1);
+		subsumers.add(concept.getConceptID());
+		subsumerMap.put(concept.getConceptID(), subsumers);
+		return subsumers;
+	}
+
+	private static HashSet<Integer> getLeaves(ConcRel concept,
+			HashSet<Integer>[] leafCache, Map<String, Integer> leafCounts,
+			HashSet<Integer> visitedNodes) {
+		if (leafCache[concept.getNodeIndex()] != null)
+			return leafCache[concept.getNodeIndex()];
+		HashSet<Integer> leaves = new HashSet<Integer>();
+		leafCache[concept.getNodeIndex()] = leaves;
+		if (concept.isLeaf()) {
+			leaves.add(concept.getNodeIndex());
+		} else {
+			Integer leafCount = leafCounts.get(concept.getConceptID());
+			boolean needLeaves = (leafCount != null && leafCount == 0);
+			HashSet<Integer> visitedNodesLocal = visitedNodes;
+			if (needLeaves || visitedNodesLocal == null)
+				visitedNodesLocal = new HashSet<Integer>();
+			for (ConcRel child : concept.getChildren()) {
+				if (!visitedNodesLocal.contains(child.getNodeIndex()))
+					leaves.addAll(getLeaves(child, leafCache, leafCounts,
+							visitedNodesLocal));
+			}
+			if (visitedNodes != null && visitedNodes != visitedNodesLocal) {
+				visitedNodes.add(concept.getNodeIndex());
+				visitedNodes.addAll(visitedNodesLocal);
+			}
+			if (needLeaves)
+				leafCounts.put(concept.getConceptID(), leaves.size());
+		}
+		return leaves;
+	}
+}
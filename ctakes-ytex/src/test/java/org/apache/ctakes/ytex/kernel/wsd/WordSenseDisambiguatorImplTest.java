@@ -0,0 +1,335 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.ytex.kernel.wsd;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import net.sf.ehcache.Cache;
+import net.sf.ehcache.CacheManager;
+
+import org.apache.ctakes.ytex.kernel.metric.ConceptPair;
+import org.apache.ctakes.ytex.kernel.metric.ConceptPairSimilarity;
+import org.apache.ctakes.ytex.kernel.metric.ConceptSimilarityService;
+import org.apache.ctakes.ytex.kernel.metric.LCSPath;
+import org.apache.ctakes.ytex.kernel.model.ConceptGraph;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Compares the document-level disambiguate, which scores the concept pairs of
+ * all named entities in one cached batch, with the per-entity disambiguate.
+ */
+public class WordSenseDisambiguatorImplTest {
+
+	private static final String CACHE_NAME = "wsdSimilarityCacheTest";
+	private static final int CONCEPT_COUNT = 300;
+	private static final int WINDOW_SIZE = 5;
+
+	private CacheManager cacheManager;
+
+	@Before
+	public void setUp() {
+		cacheManager = CacheManager.create();
+		if (cacheManager.cacheExists(CACHE_NAME))
+			cacheManager.removeCache(CACHE_NAME);
+		cacheManager.addCache(new Cache(CACHE_NAME, 1000000, false, true, 0,
+				0));
+	}
+
+	@After
+	public void tearDown() {
+		cacheManager.removeCache(CACHE_NAME);
+	}
+
+	@Test
+	public void testSameAsPerEntity() {
+		for (int threads : new int[] { 1, 4 }) {
+			Random random = new Random(35);
+			StubConceptSimilarityService service = new StubConceptSimilarityService(
+					"graph", random);
+			WordSenseDisambiguatorImpl reference = createDisambiguator(
+					service, null, 1);
+			// start cold so that the batches are big enough to be split
+			Cache cache = cacheManager.getCache(CACHE_NAME);
+			cache.removeAll();
+			WordSenseDisambiguatorImpl wsd = createDisambiguator(service,
+					cache, threads);
+			for (int document = 0; document < 40; document++) {
+				List<Set<String>> sentenceConcepts = createSentence(random,
+						1 + random.nextInt(document < 30 ? 20 : 60));
+				Set<String> contextConcepts = random.nextBoolean() ? null
+						: createConcepts(random);
+				for (ConceptSimilarityService.SimilarityMetricEnum metric : new ConceptSimilarityService.SimilarityMetricEnum[] {
+						ConceptSimilarityService.SimilarityMetricEnum.INTRINSIC_PATH,
+						ConceptSimilarityService.SimilarityMetricEnum.LCH }) {
+					for (boolean weighted : new boolean[] { true, false }) {
+						assertSameAsPerEntity("document " + document
+								+ " with " + threads + " threads, " + metric
+								+ ", weighted " + weighted, reference, wsd,
+								sentenceConcepts, contextConcepts, metric,
+								weighted);
+					}
+				}
+			}
+			if (threads > 1)
+				assertTrue("pairs were not scored on the executor threads",
+						service.threadNames.contains("WordSenseDisambiguator"));
+			else
+				assertFalse(service.threadNames
+						.contains("WordSenseDisambiguator"));
+		}
+	}
+
+	@Test
+	public void testCachedPairsNotRescored() {
+		Random random = new Random(36);
+		StubConceptSimilarityService service = new StubConceptSimilarityService(
+				"graph", random);
+		WordSenseDisambiguatorImpl wsd = createDisambiguator(service,
+				cacheManager.getCache(CACHE_NAME), 4);
+		List<List<Set<String>>> documents = new ArrayList<List<Set<String>>>();
+		for (int document = 0; document < 20; document++) {
+			documents.add(createSentence(random, 1 + random.nextInt(60)));
+		}
+		for (List<Set<String>> sentenceConcepts : documents) {
+			wsd.disambiguate(sentenceConcepts, null, WINDOW_SIZE,
+					ConceptSimilarityService.SimilarityMetricEnum.LCH, null,
+					true);
+		}
+		// every pair was scored once across all the documents
+		assertTrue(service.scoredPairs.size() > 0);
+		assertEquals(service.scoredPairs.size(),
+				new HashSet<String>(service.scoredPairs).size());
+		// the second pass is served from the cache, including the per-entity
+		// calls
+		int scored = service.scoredPairs.size();
+		for (List<Set<String>> sentenceConcepts : documents) {
+			wsd.disambiguate(sentenceConcepts, null, WINDOW_SIZE,
+					ConceptSimilarityService.SimilarityMetricEnum.LCH, null,
+					false);
+			for (int i = 0; i < sentenceConcepts.size(); i++) {
+				wsd.disambiguate(sentenceConcepts, i, null, WINDOW_SIZE,
+						ConceptSimilarityService.SimilarityMetricEnum.LCH,
+						null);
+			}
+		}
+		assertEquals(scored, service.scoredPairs.size());
+	}
+
+	@Test
+	public void testCacheKeyHasGraphAndMetric() {
+		Random random = new Random(37);
+		StubConceptSimilarityService service = new StubConceptSimilarityService(
+				"graph", random);
+		WordSenseDisambiguatorImpl reference = createDisambiguator(service,
+				null, 1);
+		WordSenseDisambiguatorImpl wsd = createDisambiguator(service,
+				cacheManager.getCache(CACHE_NAME), 1);
+		List<Set<String>> sentenceConcepts = createSentence(random, 40);
+		int scored = 0;
+		for (String graphName : new String[] { "graph", "otherGraph" }) {
+			service.conceptGraphName = graphName;
+			for (ConceptSimilarityService.SimilarityMetricEnum metric : new ConceptSimilarityService.SimilarityMetricEnum[] {
+					ConceptSimilarityService.SimilarityMetricEnum.LCH,
+					ConceptSimilarityService.SimilarityMetricEnum.INTRINSIC_LIN }) {
+				// a cache hit from another graph or metric would give the
+				// other graph's or metric's similarity
+				wsd.disambiguate(sentenceConcepts, null, WINDOW_SIZE, metric,
+						null, true);
+				assertTrue(graphName + ", " + metric + " was not scored",
+						service.scoredPairs.size() > scored);
+				assertSameAsPerEntity(graphName + ", " + metric, reference,
+						wsd, sentenceConcepts, null, metric, true);
+				scored = service.scoredPairs.size();
+			}
+		}
+	}
+
+	private void assertSameAsPerEntity(String message,
+			WordSenseDisambiguatorImpl reference,
+			WordSenseDisambiguatorImpl wsd, List<Set<String>> sentenceConcepts,
+			Set<String> contextConcepts,
+			ConceptSimilarityService.SimilarityMetricEnum metric,
+			boolean weighted) {
+		List<Map<String, Double>> scoreMaps = new ArrayList<Map<String, Double>>();
+		for (int i = 0; i < sentenceConcepts.size(); i++) {
+			scoreMaps.add(new HashMap<String, Double>());
+		}
+		List<String> concepts = wsd.disambiguate(sentenceConcepts,
+				contextConcepts, WINDOW_SIZE, metric, scoreMaps, weighted);
+		assertEquals(message, sentenceConcepts.size(), concepts.size());
+		for (int i = 0; i < sentenceConcepts.size(); i++) {
+			Map<String, Double> scoreMap = new HashMap<String, Double>();
+			String concept = reference.disambiguate(sentenceConcepts, i,
+					contextConcepts, WINDOW_SIZE, metric, scoreMap, weighted);
+			assertEquals(message + ", named entity " + i, concept,
+					concepts.get(i));
+			assertEquals(message + ", named entity " + i, scoreMap,
+					scoreMaps.get(i));
+		}
+	}
+
+	private WordSenseDisambiguatorImpl createDisambiguator(
+			ConceptSimilarityService service, Cache cache, int threads) {
+		WordSenseDisambiguatorImpl wsd = new WordSenseDisambiguatorImpl();
+		wsd.setConceptSimilarityService(service);
+		wsd.setSimilarityCache(cache);
+		wsd.setThreads(threads);
+		return wsd;
+	}
+
+	private List<Set<String>> createSentence(Random random, int namedEntities) {
+		List<Set<String>> sentenceConcepts = new ArrayList<Set<String>>(
+				namedEntities);
+		for (int i = 0; i < namedEntities; i++) {
+			sentenceConcepts.add(createConcepts(random));
+		}
+		return sentenceConcepts;
+	}
+
+	private Set<String> createConcepts(Random random) {
+		Set<String> concepts = new TreeSet<String>();
+		int conceptCount = 1 + random.nextInt(4);
+		while (concepts.size() < conceptCount) {
+			concepts.add("C" + random.nextInt(CONCEPT_COUNT));
+		}
+		return concepts;
+	}
+
+	/**
+	 * similarities are a function of the graph name, metric and concept pair.
+	 * Only a few distinct values are used so that candidates tie and the
+	 * intrinsic information content breaks the tie.
+	 */
+	private static class StubConceptSimilarityService implements
+			ConceptSimilarityService {
+		String conceptGraphName;
+		ConceptGraph conceptGraph = new ConceptGraph();
+		List<String> scoredPairs = new ArrayList<String>();
+		Set<String> threadNames = new HashSet<String>();
+
+		StubConceptSimilarityService(String conceptGraphName, Random random) {
+			this.conceptGraphName = conceptGraphName;
+			for (int i = 0; i < CONCEPT_COUNT; i++) {
+				conceptGraph.addConcept("C" + i).setIntrinsicInfoContent(
+						random.nextDouble());
+			}
+		}
+
+		@Override
+		public String getConceptGraphName() {
+			return conceptGraphName;
+		}
+
+		@Override
+		public ConceptGraph getConceptGraph() {
+			return conceptGraph;
+		}
+
+		@Override
+		public ConceptPairSimilarity similarity(
+				List<SimilarityMetricEnum> metrics, String concept1,
+				String concept2, Map<String, Double> conceptFilter, boolean lcs) {
+			List<Double> sims = new ArrayList<Double>(metrics.size());
+			for (SimilarityMetricEnum metric : metrics) {
+				String key = conceptGraphName + "|" + metric.name() + "|"
+						+ concept1 + "|" + concept2;
+				synchronized (this) {
+					scoredPairs.add(key);
+					threadNames.add(Thread.currentThread().getName());
+				}
+				sims.add(((key.hashCode() & 0x7fffffff) % 5) / 4d);
+			}
+			ConceptPairSimilarity csim = new ConceptPairSimilarity();
+			csim.setConceptPair(new ConceptPair(concept1, concept2));
+			csim.setSimilarities(sims);
+			return csim;
+		}
+
+		@Override
+		public List<ConceptPairSimilarity> similarity(
+				List<ConceptPair> conceptPairs,
+				List<SimilarityMetricEnum> metrics,
+				Map<String, Double> conceptFilter, boolean lcs) {
+			List<ConceptPairSimilarity> sims = new ArrayList<ConceptPairSimilarity>(
+					conceptPairs.size());
+			for (ConceptPair conceptPair : conceptPairs) {
+				sims.add(similarity(metrics, conceptPair.getConcept1(),
+						conceptPair.getConcept2(), conceptFilter, lcs));
+			}
+			return sims;
+		}
+
+		@Override
+		public int lcs(String concept1, String concept2, List<LCSPath> lcsPath) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Map<String, BitSet> getCuiTuiMap() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public List<String> getTuiList() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public double loadConceptFilter(String label, int rankCutoff,
+				Map<String, Double> conceptFilter) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public int getLCS(String concept1, String concept2, Set<String> lcses,
+				List<LCSPath> lcsPaths) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Object[] getBestLCS(Set<String> lcses, boolean intrinsicIC,
+				Map<String, Double> conceptFilter) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public double getIC(String concept, boolean intrinsicICMap) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public int getDepth(String concept) {
+			throw new UnsupportedOperationException();
+		}
+	}
+}